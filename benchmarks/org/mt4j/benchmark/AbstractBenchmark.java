@@ -0,0 +1,87 @@
+package org.mt4j.benchmark;
+
+
+/**
+ * Base class of the benchmarks run by the <code>BenchmarkRunner</code>.
+ * <p>
+ * A benchmark is run once for each of its parameters. For each parameter
+ * <code>setUp</code> is called once, then <code>run</code> is called repeatedly
+ * and the average time per call is reported. The state used by <code>run</code>
+ * should be prepared in <code>setUp</code> so that only the operation itself is measured.
+ */
+public abstract class AbstractBenchmark {
+
+	/** The name. */
+	private final String name;
+	
+	/** The parameters, e.g. the scene sizes. */
+	private final int[] params;
+	
+	
+	/**
+	 * Instantiates a new benchmark.
+	 * 
+	 * @param name the name
+	 * @param params the parameters the benchmark is run with
+	 */
+	protected AbstractBenchmark(String name, int... params){
+		this.name = name;
+		this.params = params.length == 0 ? new int[]{0} : params;
+	}
+	
+	
+	/**
+	 * Checks if this benchmark needs an application to create components.
+	 * These benchmarks are skipped if no <code>HeadlessApplication</code> can be created.
+	 * 
+	 * @return true, if the application is used
+	 */
+	public boolean isUsingApplication(){
+		return false;
+	}
+	
+	/**
+	 * Prepares the state for the parameter.
+	 * 
+	 * @param app the application, null if <code>isUsingApplication()</code> returns false
+	 * @param param the parameter
+	 * 
+	 * @throws Exception the exception
+	 */
+	public abstract void setUp(HeadlessApplication app, int param) throws Exception;
+	
+	/**
+	 * Runs the measured operation once.
+	 * <br>The returned value is consumed by the runner so that the JIT can't 
+	 * remove the operation as dead code.
+	 * 
+	 * @return a value depending on the result of the operation
+	 */
+	public abstract int run();
+	
+	/**
+	 * Releases the state created in <code>setUp</code>.
+	 */
+	public void tearDown(){
+	}
+	
+	
+	/**
+	 * Gets the name.
+	 * 
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets the parameters.
+	 * 
+	 * @return the parameters
+	 */
+	public int[] getParams() {
+		return params.clone();
+	}
+	
+}
@@ -0,0 +1,327 @@
+package org.mt4j.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+import org.mt4j.input.inputProcessors.componentProcessors.unistrokeProcessor.UnistrokeRecognizeBenchmark;
+import org.mt4j.util.logging.JavaLogger;
+import org.mt4j.util.logging.MTLoggerFactory;
+
+
+/**
+ * Runs the benchmarks and reports the average time per operation.
+ * <p>
+ * Each benchmark is first run for a number of warmup iterations to let the JIT 
+ * compile it, then the time of the measurement iterations is taken. The reported error
+ * is the standard deviation of the measurement iterations.
+ * <p>
+ * Usage: <code>BenchmarkRunner [-w warmupIterations] [-i iterations] [-t millisPerIteration]
+ * [-o resultFile] [-b baselineFile] [nameFilter...]</code>
+ * <br>The result file has the same format as <code>benchmarks/baseline.txt</code>. If a
+ * baseline is given, the change to the baseline result is printed for each benchmark.
+ * The baseline is recorded with the default settings and all benchmarks, see the header of the file.
+ * <p>
+ * The benchmarks are compiled against the classes of <code>src</code> and the libraries
+ * in <code>mt4jLibs</code> and run from the project directory. Benchmarks that need a 
+ * <code>HeadlessApplication</code> are reported as skipped if processing can't load 
+ * the AWT toolkit.
+ */
+public class BenchmarkRunner {
+	
+	private int warmupIterations = 5;
+	private int iterations = 10;
+	private long iterationMillis = 200;
+	
+	/** Why no application could be created. */
+	private String appError;
+	
+	/** The standard output. */
+	private static final PrintStream OUT = System.out;
+	
+	/** The standard error output. */
+	private static final PrintStream ERR = System.err;
+	
+	/** Discards everything printed while measuring. */
+	private static final PrintStream NULL_OUT = new PrintStream(new OutputStream() {
+		@Override
+		public void write(int b) {
+		}
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	});
+	
+	/** Keeps the results of the runs alive so they can't be optimized away. */
+	private int sink;
+	
+	
+	/**
+	 * Creates all benchmarks.
+	 * 
+	 * @return the benchmarks
+	 */
+	public static List<AbstractBenchmark> createBenchmarks(){
+		List<AbstractBenchmark> list = new ArrayList<AbstractBenchmark>();
+		list.add(new MatrixMultBenchmark());
+		list.add(new MatrixInvertBenchmark());
+		list.add(new InputCursorHistoryBenchmark());
+		list.add(new TriangleNormalGeneratorBenchmark());
+		list.add(new UnistrokeRecognizeBenchmark());
+		list.add(new PickBenchmark());
+		list.add(new TransformStoreBenchmark());
+		list.add(new ListScrollBenchmark());
+		list.add(new ObjParserBenchmark());
+		list.add(new CssApplyStylesBenchmark());
+		return list;
+	}
+	
+	
+	public static void main(String[] args) throws IOException {
+		MTLoggerFactory.setLoggerProvider(new JavaLogger());
+		
+		BenchmarkRunner runner = new BenchmarkRunner();
+		String resultFile = null;
+		String baselineFile = null;
+		List<String> filters = new ArrayList<String>();
+		for (int i = 0; i < args.length; i++) {
+			String arg = args[i];
+			if (arg.equals("-w")){
+				runner.warmupIterations = Integer.parseInt(args[++i]);
+			}else if (arg.equals("-i")){
+				runner.iterations = Math.max(2, Integer.parseInt(args[++i]));
+			}else if (arg.equals("-t")){
+				runner.iterationMillis = Long.parseLong(args[++i]);
+			}else if (arg.equals("-o")){
+				resultFile = args[++i];
+			}else if (arg.equals("-b")){
+				baselineFile = args[++i];
+			}else{
+				filters.add(arg);
+			}
+		}
+		
+		HashMap<String, Double> baseline = baselineFile != null ? readResults(new File(baselineFile)) : new HashMap<String, Double>();
+		
+		List<String> lines = new ArrayList<String>();
+		lines.add("# mt4j benchmark results - " + System.getProperty("java.vm.name") + " " + System.getProperty("java.version") 
+				+ ", " + System.getProperty("os.name") + " " + System.getProperty("os.arch") 
+				+ ", " + Runtime.getRuntime().availableProcessors() + " cpus");
+		lines.add("# warmup " + runner.warmupIterations + " x " + runner.iterationMillis + "ms, measurement " + runner.iterations + " x " + runner.iterationMillis + "ms");
+		lines.add("# regenerate from the project directory with a JDK 8 and a display, so that no benchmark is skipped:");
+		lines.add("#   CP=$(find mt4jLibs -name '*.jar' | tr '\\n' :)");
+		lines.add("#   javac -encoding ISO-8859-1 -d bin-bench -cp \"$CP\" $(find src benchmarks -name '*.java')");
+		lines.add("#   java -cp \"bin-bench:$CP\" org.mt4j.benchmark.BenchmarkRunner -o benchmarks/baseline.txt");
+		lines.add(String.format(Locale.US, "# %-40s %8s %14s %12s", "benchmark", "param", "ns/op", "error"));
+		for (String line : lines) {
+			System.out.println(line);
+		}
+		
+		for (AbstractBenchmark benchmark : createBenchmarks()) {
+			if (!matches(benchmark.getName(), filters)){
+				continue;
+			}
+			for (int param : benchmark.getParams()) {
+				String line = runner.run(benchmark, param, baseline);
+				lines.add(line);
+			}
+		}
+		
+		int skipped = 0;
+		for (String line : lines) {
+			if (line.contains("   skipped: ")){
+				skipped++;
+			}
+		}
+		if (skipped > 0){
+			System.err.println(skipped + " benchmark runs were skipped, the results are incomplete");
+		}
+		
+		if (resultFile != null){
+			PrintWriter writer = new PrintWriter(new FileWriter(resultFile));
+			for (String line : lines) {
+				writer.println(line);
+			}
+			writer.close();
+		}
+		System.exit(0);
+	}
+	
+	
+	private static boolean matches(String name, List<String> filters){
+		if (filters.isEmpty()){
+			return true;
+		}
+		for (String filter : filters) {
+			if (name.contains(filter)){
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	
+	private String run(AbstractBenchmark benchmark, int param, HashMap<String, Double> baseline){
+		String key = String.format(Locale.US, "%-42s %8d", benchmark.getName(), param);
+		String line;
+		String skipReason = null;
+		
+		HeadlessApplication application = null;
+		if (benchmark.isUsingApplication()){
+			application = this.getApplication();
+			if (application == null){
+				skipReason = appError;
+			}
+		}
+		
+		if (skipReason == null){
+			try {
+				//Some operations print debug output and warnings, which would flood the report
+				double[] result;
+				System.setOut(NULL_OUT);
+				System.setErr(NULL_OUT);
+				try {
+					benchmark.setUp(application, param);
+					result = this.measure(benchmark);
+				} finally {
+					System.setOut(OUT);
+					System.setErr(ERR);
+				}
+				line = String.format(Locale.US, "%s %14.1f %12.1f", key, result[0], result[1]);
+				
+				Double base = baseline.get(key.trim().replaceAll("\\s+", " "));
+				if (base != null){
+					System.out.println(String.format(Locale.US, "%s   (%+.1f%% to baseline %.1f)", line, (result[0] - base) / base * 100.0, base));
+				}else{
+					System.out.println(line);
+				}
+			} catch (Throwable e) {
+				skipReason = e.toString();
+				line = null;
+			}finally{
+				benchmark.tearDown();
+			}
+		}else{
+			line = null;
+		}
+		
+		if (skipReason != null){
+			line = "# " + key + "   skipped: " + skipReason;
+			System.out.println(line);
+		}
+		return line;
+	}
+	
+	
+	/**
+	 * Measures the average time of the operation.
+	 * 
+	 * @param benchmark the benchmark
+	 * @return the mean time per operation in ns and its standard deviation
+	 */
+	private double[] measure(AbstractBenchmark benchmark){
+		//Find the number of operations that takes about one iteration
+		long targetNanos = iterationMillis * 1000000L;
+		int batch = 1;
+		long elapsed = this.runBatch(benchmark, batch);
+		while (elapsed < targetNanos / 10){
+			batch *= 2;
+			elapsed = this.runBatch(benchmark, batch);
+		}
+		batch = (int) Math.max(1, Math.min(Integer.MAX_VALUE, (double) batch * targetNanos / Math.max(1, elapsed)));
+		
+		for (int i = 0; i < warmupIterations; i++) {
+			this.runBatch(benchmark, batch);
+		}
+		
+		double[] nanosPerOp = new double[iterations];
+		double sum = 0;
+		for (int i = 0; i < iterations; i++) {
+			nanosPerOp[i] = (double) this.runBatch(benchmark, batch) / batch;
+			sum += nanosPerOp[i];
+		}
+		double mean = sum / iterations;
+		double variance = 0;
+		for (int i = 0; i < iterations; i++) {
+			variance += (nanosPerOp[i] - mean) * (nanosPerOp[i] - mean);
+		}
+		variance /= iterations - 1;
+		return new double[]{mean, Math.sqrt(variance)};
+	}
+	
+	
+	private long runBatch(AbstractBenchmark benchmark, int batch){
+		int s = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < batch; i++) {
+			s += benchmark.run();
+		}
+		long elapsed = System.nanoTime() - start;
+		sink += s;
+		return elapsed;
+	}
+	
+	
+	/**
+	 * Creates a new application for each run, so that the runs don't see the 
+	 * components and styles created by the previous ones.
+	 */
+	private HeadlessApplication getApplication(){
+		if (appError == null){
+			try {
+				return new HeadlessApplication(1024, 768);
+			} catch (Throwable e) {
+				appError = "no application available (" + e + ")";
+			}
+		}
+		return null;
+	}
+	
+	
+	/**
+	 * Reads the results of a result file.
+	 * 
+	 * @param file the file
+	 * @return the ns/op by "name param"
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static HashMap<String, Double> readResults(File file) throws IOException{
+		HashMap<String, Double> results = new HashMap<String, Double>();
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null){
+				line = line.trim();
+				if (line.length() == 0 || line.startsWith("#")){
+					continue;
+				}
+				String[] parts = line.split("\\s+");
+				if (parts.length >= 4){
+					results.put(parts[0] + " " + parts[1], Double.valueOf(parts[2]));
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		return results;
+	}
+	
+	/**
+	 * Gets the sum of the results of all runs.
+	 * 
+	 * @return the sink
+	 */
+	public int getSink() {
+		return sink;
+	}
+
+}
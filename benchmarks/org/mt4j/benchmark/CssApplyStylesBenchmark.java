@@ -0,0 +1,72 @@
+package org.mt4j.benchmark;
+
+import java.io.ByteArrayInputStream;
+
+import org.mt4j.components.MTComponent;
+import org.mt4j.components.css.util.CSSStyleManager;
+import org.mt4j.components.visibleComponents.shapes.MTRectangle;
+
+
+/**
+ * Applies a style sheet with type, ID and descendant selectors to all registered components.
+ * The parameter is the number of components.
+ */
+public class CssApplyStylesBenchmark extends AbstractBenchmark {
+	
+	private static final String STYLES = 
+		"MTRectangle {background-color: red; border-width: 2px;}\n" +
+		"#even {background-color: blue;}\n" +
+		"#odd {border-color: green;}\n" +
+		"#group0 MTRectangle {background-color: silver;}\n" +
+		"#group1 > #odd {background-color: maroon;}\n" +
+		"#group2 #even {visibility: hidden;}\n";
+	
+	private CSSStyleManager styleManager;
+	private MTComponent root;
+
+	public CssApplyStylesBenchmark() {
+		super("CSSStyleManager.applyStyles", 100, 1000);
+	}
+	
+	@Override
+	public boolean isUsingApplication() {
+		return true;
+	}
+
+	@Override
+	public void setUp(HeadlessApplication app, int param) {
+		styleManager = app.getCssStyleManager();
+		styleManager.loadStyles(new ByteArrayInputStream(STYLES.getBytes()));
+		
+		root = new MTComponent(app);
+		MTComponent[] groups = new MTComponent[4];
+		for (int i = 0; i < groups.length; i++) {
+			groups[i] = new MTComponent(app);
+			groups[i].setCSSID("group" + i);
+			root.addChild(groups[i]);
+		}
+		for (int i = 0; i < param; i++) {
+			MTRectangle rect = new MTRectangle(app, i % 100, i / 100, 10, 10);
+			rect.setCSSID(i % 2 == 0 ? "even" : "odd");
+			groups[i % groups.length].addChild(rect);
+			rect.enableCSS();
+			styleManager.registerComponent(rect);
+		}
+	}
+
+	@Override
+	public int run() {
+		styleManager.applyStyles();
+		return root.getChildCount();
+	}
+	
+	@Override
+	public void tearDown() {
+		if (root != null){
+			root.destroy();
+			root = null;
+		}
+		styleManager = null;
+	}
+
+}
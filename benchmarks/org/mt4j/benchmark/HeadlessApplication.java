@@ -0,0 +1,41 @@
+package org.mt4j.benchmark;
+
+import org.mt4j.MTApplication;
+
+import processing.core.PGraphics3D;
+
+
+/**
+ * An application that is never started and never opens a window.
+ * <p>
+ * It only sets up what components need to be created, transformed and picked:
+ * the size and a P3D graphics object for the matrix calculations. Nothing can be
+ * drawn. Processing still needs the AWT toolkit to load, so this doesn't work
+ * with <code>-Djava.awt.headless=true</code>, use a virtual display like Xvfb instead.
+ */
+public class HeadlessApplication extends MTApplication {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Instantiates a new headless application.
+	 * 
+	 * @param width the width
+	 * @param height the height
+	 */
+	public HeadlessApplication(int width, int height){
+		super();
+		this.width = width;
+		this.height = height;
+		
+		PGraphics3D graphics = new PGraphics3D();
+		graphics.setParent(this);
+		graphics.setPrimary(true);
+		graphics.setSize(width, height);
+		this.g = graphics;
+	}
+
+	@Override
+	public void startUp() {
+	}
+	
+}
@@ -0,0 +1,42 @@
+package org.mt4j.benchmark;
+
+import org.mt4j.input.inputData.InputCursor;
+import org.mt4j.input.inputData.MTFingerInputEvt;
+import org.mt4j.util.math.Vector3D;
+
+
+/**
+ * Adds an event to a cursor with a full history and queries its velocity and direction,
+ * like the drag and flick processors do for every event.
+ */
+public class InputCursorHistoryBenchmark extends AbstractBenchmark {
+	
+	private InputCursor cursor;
+	private Vector3D velocity;
+	private Vector3D direction;
+	private int count;
+
+	public InputCursorHistoryBenchmark() {
+		super("InputCursor.history");
+	}
+
+	@Override
+	public void setUp(HeadlessApplication app, int param) {
+		cursor = new InputCursor();
+		velocity = new Vector3D();
+		direction = new Vector3D();
+		for (int i = 0; i < 200; i++) {
+			new MTFingerInputEvt(null, i, i, MTFingerInputEvt.INPUT_UPDATED, cursor).onFired();
+		}
+	}
+
+	@Override
+	public int run() {
+		count++;
+		new MTFingerInputEvt(null, count & 1023, count & 511, MTFingerInputEvt.INPUT_UPDATED, cursor).onFired();
+		cursor.getVelocityVector(120, velocity);
+		cursor.getDirection(direction);
+		return (int) (velocity.x + direction.y) + cursor.getEvents(50).size();
+	}
+
+}
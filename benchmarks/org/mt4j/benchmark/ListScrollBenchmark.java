@@ -0,0 +1,68 @@
+package org.mt4j.benchmark;
+
+import org.mt4j.components.visibleComponents.widgets.IListCellProvider;
+import org.mt4j.components.visibleComponents.widgets.MTList;
+import org.mt4j.components.visibleComponents.widgets.MTListCell;
+import org.mt4j.util.MTColor;
+
+
+/**
+ * Scrolls a virtualized list up and down by a few rows per step.
+ * The parameter is the number of rows, the cost should not depend on it.
+ */
+public class ListScrollBenchmark extends AbstractBenchmark {
+	
+	private MTList list;
+	private float step;
+	private int steps;
+
+	public ListScrollBenchmark() {
+		super("MTList.scrollVirtual", 1000, 50000);
+	}
+	
+	@Override
+	public boolean isUsingApplication() {
+		return true;
+	}
+
+	@Override
+	public void setUp(final HeadlessApplication app, final int param) {
+		list = new MTList(app, 0, 0, 300, 600);
+		final MTColor even = new MTColor(200, 200, 200);
+		final MTColor odd = new MTColor(150, 150, 150);
+		list.setCellProvider(new IListCellProvider() {
+			public int getCellCount() {
+				return param;
+			}
+			
+			public MTListCell createCell(MTList list) {
+				return new MTListCell(app, 300, list.getPreferredCellHeight());
+			}
+			
+			public void bindCell(MTListCell cell, int index) {
+				cell.setFillColor(index % 2 == 0 ? even : odd);
+			}
+		});
+		step = -3.5f * list.getPreferredCellHeight();
+		steps = 0;
+	}
+
+	@Override
+	public int run() {
+		//Change the direction every 100 steps
+		if (++steps % 100 == 0){
+			step = -step;
+		}
+		list.scrollY(step);
+		return list.getFirstVisibleIndex();
+	}
+	
+	@Override
+	public void tearDown() {
+		if (list != null){
+			list.destroy();
+			list = null;
+		}
+	}
+
+}
@@ -0,0 +1,33 @@
+package org.mt4j.benchmark;
+
+import org.mt4j.util.math.Matrix;
+import org.mt4j.util.math.Vector3D;
+
+
+/**
+ * Inverts a transformation matrix into a reused result matrix.
+ */
+public class MatrixInvertBenchmark extends AbstractBenchmark {
+	
+	private Matrix m;
+	private Matrix store;
+
+	public MatrixInvertBenchmark() {
+		super("Matrix.invert");
+	}
+
+	@Override
+	public void setUp(HeadlessApplication app, int param) {
+		m = Matrix.getZRotationMatrix(new Vector3D(10, 20, 0), 33);
+		m.multLocal(Matrix.getTranslationMatrix(5, 6, 7));
+		m.multLocal(Matrix.getScalingMatrix(2, 3, 1));
+		store = new Matrix();
+	}
+
+	@Override
+	public int run() {
+		m.invert(store);
+		return (int) store.m03;
+	}
+
+}
@@ -0,0 +1,35 @@
+package org.mt4j.benchmark;
+
+import org.mt4j.util.math.Matrix;
+import org.mt4j.util.math.Vector3D;
+
+
+/**
+ * Multiplies two transformation matrices into a reused result matrix.
+ */
+public class MatrixMultBenchmark extends AbstractBenchmark {
+	
+	private Matrix a;
+	private Matrix b;
+	private Matrix store;
+
+	public MatrixMultBenchmark() {
+		super("Matrix.mult");
+	}
+
+	@Override
+	public void setUp(HeadlessApplication app, int param) {
+		a = Matrix.getZRotationMatrix(new Vector3D(10, 20, 0), 33);
+		a.multLocal(Matrix.getTranslationMatrix(5, 6, 7));
+		b = Matrix.getXRotationMatrix(new Vector3D(0, 0, 0), 12);
+		b.multLocal(Matrix.getScalingMatrix(2, 3, 1));
+		store = new Matrix();
+	}
+
+	@Override
+	public int run() {
+		a.mult(b, store);
+		return (int) store.m03;
+	}
+
+}
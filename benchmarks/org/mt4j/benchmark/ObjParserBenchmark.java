@@ -0,0 +1,88 @@
+package org.mt4j.benchmark;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+import org.mt4j.components.visibleComponents.shapes.mesh.MTTriangleMesh;
+import org.mt4j.util.modelImporter.MeshCache;
+import org.mt4j.util.modelImporter.ModelImporterFactory;
+
+
+/**
+ * Loads a generated OBJ file of a triangulated height field with texture coordinates.
+ * The parameter is the number of grid cells per side.
+ * <br>The mesh cache is disabled while measuring, so the file is parsed every time.
+ */
+public class ObjParserBenchmark extends AbstractBenchmark {
+	
+	private HeadlessApplication app;
+	private File file;
+	private MeshCache meshCache;
+
+	public ObjParserBenchmark() {
+		super("ModelObjFileFactory.load", 32, 128);
+	}
+	
+	@Override
+	public boolean isUsingApplication() {
+		return true;
+	}
+
+	@Override
+	public void setUp(HeadlessApplication app, int param) throws IOException {
+		this.app = app;
+		meshCache = ModelImporterFactory.getMeshCache();
+		ModelImporterFactory.setMeshCache(null);
+		file = File.createTempFile("mt4jBenchmark", ".obj");
+		file.deleteOnExit();
+		PrintWriter writer = new PrintWriter(new FileWriter(file));
+		int side = param + 1;
+		for (int y = 0; y < side; y++) {
+			for (int x = 0; x < side; x++) {
+				writer.println(String.format(Locale.US, "v %f %f %f", x * 1f, (float) Math.sin(x * 0.3) * (float) Math.cos(y * 0.2), y * 1f));
+			}
+		}
+		for (int y = 0; y < side; y++) {
+			for (int x = 0; x < side; x++) {
+				writer.println(String.format(Locale.US, "vt %f %f", (float) x / param, (float) y / param));
+			}
+		}
+		writer.println("g grid");
+		for (int y = 0; y < param; y++) {
+			for (int x = 0; x < param; x++) {
+				//OBJ indices start at 1
+				int i = y * side + x + 1;
+				writer.println("f " + i + "/" + i + " " + (i + 1) + "/" + (i + 1) + " " + (i + side) + "/" + (i + side));
+				writer.println("f " + (i + 1) + "/" + (i + 1) + " " + (i + side + 1) + "/" + (i + side + 1) + " " + (i + side) + "/" + (i + side));
+			}
+		}
+		writer.close();
+	}
+
+	@Override
+	public int run() {
+		MTTriangleMesh[] meshes = ModelImporterFactory.loadModel(app, file.getAbsolutePath(), 180, false, false);
+		int vertexCount = 0;
+		for (MTTriangleMesh mesh : meshes) {
+			vertexCount += mesh.getVertexCount();
+			mesh.destroy();
+		}
+		return vertexCount;
+	}
+	
+	@Override
+	public void tearDown() {
+		if (file != null){
+			file.delete();
+		}
+		if (meshCache != null){
+			ModelImporterFactory.setMeshCache(meshCache);
+			meshCache = null;
+		}
+		app = null;
+	}
+
+}
@@ -0,0 +1,65 @@
+package org.mt4j.benchmark;
+
+import java.util.Random;
+
+import org.mt4j.components.MTComponent;
+import org.mt4j.components.PickResult;
+import org.mt4j.components.visibleComponents.shapes.MTRectangle;
+import org.mt4j.util.camera.MTCamera;
+
+
+/**
+ * Picks at random screen positions in a scene of randomly placed and rotated rectangles.
+ * The parameter is the number of rectangles.
+ */
+public class PickBenchmark extends AbstractBenchmark {
+	
+	private MTComponent root;
+	private float[] positions;
+	private PickResult pickResult;
+	private int next;
+
+	public PickBenchmark() {
+		super("MTComponent.pick", 100, 1000, 10000);
+	}
+	
+	@Override
+	public boolean isUsingApplication() {
+		return true;
+	}
+
+	@Override
+	public void setUp(HeadlessApplication app, int param) {
+		Random random = new Random(param);
+		root = new MTComponent(app, new MTCamera(app));
+		for (int i = 0; i < param; i++) {
+			MTRectangle rect = new MTRectangle(app, random.nextFloat() * app.width, random.nextFloat() * app.height, 20 + random.nextFloat() * 60, 20 + random.nextFloat() * 60);
+			rect.rotateZGlobal(rect.getCenterPointGlobal(), random.nextFloat() * 90);
+			root.addChild(rect);
+		}
+		positions = new float[2048];
+		for (int i = 0; i < positions.length; i++) {
+			positions[i] = random.nextFloat() * (i % 2 == 0 ? app.width : app.height);
+		}
+		pickResult = new PickResult();
+		next = 0;
+	}
+
+	@Override
+	public int run() {
+		float x = positions[next];
+		float y = positions[next + 1];
+		next = (next + 2) % positions.length;
+		root.pick(x, y, true, pickResult);
+		return pickResult.getNearestPickResult() != null ? 1 : 0;
+	}
+	
+	@Override
+	public void tearDown() {
+		if (root != null){
+			root.destroy();
+			root = null;
+		}
+	}
+
+}
@@ -0,0 +1,50 @@
+package org.mt4j.benchmark;
+
+import java.util.Random;
+
+import org.mt4j.components.TransformStore;
+import org.mt4j.util.math.Matrix;
+import org.mt4j.util.math.Vector3D;
+
+
+/**
+ * Changes the root matrix of a random tree in a packed transform store
+ * and updates all world matrices. The parameter is the number of nodes.
+ */
+public class TransformStoreBenchmark extends AbstractBenchmark {
+	
+	private TransformStore store;
+	private Matrix[] rootMatrices;
+	private Matrix world;
+	private int next;
+
+	public TransformStoreBenchmark() {
+		super("TransformStore.update", 1000, 20000);
+	}
+
+	@Override
+	public void setUp(HeadlessApplication app, int param) {
+		Random random = new Random(param);
+		store = new TransformStore(param);
+		int[] slots = new int[param];
+		for (int i = 0; i < param; i++) {
+			int parent = i == 0 ? TransformStore.NO_PARENT : slots[random.nextInt(i)];
+			slots[i] = store.allocate(null, parent);
+			Matrix m = Matrix.getZRotationMatrix(new Vector3D(0, 0, 0), random.nextFloat() * 10);
+			m.multLocal(Matrix.getTranslationMatrix(random.nextFloat(), random.nextFloat(), 0));
+			store.setLocal(slots[i], m);
+		}
+		store.update();
+		rootMatrices = new Matrix[]{Matrix.getTranslationMatrix(1, 0, 0), Matrix.getTranslationMatrix(0, 1, 0)};
+		world = new Matrix();
+		next = 0;
+	}
+
+	@Override
+	public int run() {
+		store.setLocal(0, rootMatrices[next++ & 1]);
+		store.update();
+		return (int) store.getWorld(0, world).m03;
+	}
+
+}
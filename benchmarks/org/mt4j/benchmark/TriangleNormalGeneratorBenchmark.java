@@ -0,0 +1,72 @@
+package org.mt4j.benchmark;
+
+import org.mt4j.components.visibleComponents.shapes.GeometryInfo;
+import org.mt4j.util.TriangleNormalGenerator;
+import org.mt4j.util.math.Vertex;
+
+
+/**
+ * Generates the normals of a triangulated grid, with and without crease angle.
+ * The parameter is the number of grid cells per side.
+ */
+public class TriangleNormalGeneratorBenchmark extends AbstractBenchmark {
+	
+	private Vertex[] vertices;
+	private int[] indices;
+	private float[][] texCoords;
+	private int[] texIndices;
+	private TriangleNormalGenerator generator;
+	private HeadlessApplication app;
+
+	public TriangleNormalGeneratorBenchmark() {
+		super("TriangleNormalGenerator", 16, 64);
+	}
+
+	@Override
+	public boolean isUsingApplication() {
+		return true;
+	}
+
+	@Override
+	public void setUp(HeadlessApplication app, int param) {
+		int side = param + 1;
+		vertices = new Vertex[side * side];
+		texCoords = new float[side * side][];
+		for (int y = 0; y < side; y++) {
+			for (int x = 0; x < side; x++) {
+				float height = (float) Math.sin(x * 0.3) * (float) Math.cos(y * 0.2) * 10;
+				vertices[y * side + x] = new Vertex(x * 10, y * 10, height);
+				texCoords[y * side + x] = new float[]{(float) x / param, (float) y / param};
+			}
+		}
+		indices = new int[param * param * 6];
+		int n = 0;
+		for (int y = 0; y < param; y++) {
+			for (int x = 0; x < param; x++) {
+				int i = y * side + x;
+				indices[n++] = i;
+				indices[n++] = i + 1;
+				indices[n++] = i + side;
+				indices[n++] = i + 1;
+				indices[n++] = i + side + 1;
+				indices[n++] = i + side;
+			}
+		}
+		texIndices = indices.clone();
+		generator = new TriangleNormalGenerator();
+		this.app = app;
+	}
+
+	@Override
+	public int run() {
+		GeometryInfo smooth = generator.generateSmoothNormals(app, vertices, indices, texCoords, texIndices, 180, false, false);
+		GeometryInfo crease = generator.generateCreaseAngleNormals(app, vertices, indices, texCoords, texIndices, 60, false, false);
+		return smooth.getVertexCount() + crease.getVertexCount();
+	}
+	
+	@Override
+	public void tearDown() {
+		app = null;
+	}
+
+}
@@ -0,0 +1,54 @@
+package org.mt4j.input.inputProcessors.componentProcessors.unistrokeProcessor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.mt4j.benchmark.AbstractBenchmark;
+import org.mt4j.benchmark.HeadlessApplication;
+import org.mt4j.input.inputProcessors.componentProcessors.unistrokeProcessor.UnistrokeUtils.Direction;
+import org.mt4j.input.inputProcessors.componentProcessors.unistrokeProcessor.UnistrokeUtils.Recognizer;
+import org.mt4j.input.inputProcessors.componentProcessors.unistrokeProcessor.UnistrokeUtils.UnistrokeGesture;
+import org.mt4j.util.math.Vector3D;
+
+
+/**
+ * Recognizes a drawn circle against the templates of the common gestures in both directions.
+ * <br>Lives in the package of the recognizer because <code>Recognize</code> isn't public.
+ */
+public class UnistrokeRecognizeBenchmark extends AbstractBenchmark {
+	
+	private static final UnistrokeGesture[] GESTURES = {
+		UnistrokeGesture.TRIANGLE, UnistrokeGesture.X, UnistrokeGesture.RECTANGLE, UnistrokeGesture.CIRCLE,
+		UnistrokeGesture.CHECK, UnistrokeGesture.CARET, UnistrokeGesture.ARROW, UnistrokeGesture.V,
+		UnistrokeGesture.DELETE, UnistrokeGesture.STAR, UnistrokeGesture.PIGTAIL
+	};
+	
+	private Recognizer recognizer;
+	private List<Vector3D> stroke;
+
+	public UnistrokeRecognizeBenchmark() {
+		super("UnistrokeUtils.Recognize");
+	}
+
+	@Override
+	public void setUp(HeadlessApplication app, int param) {
+		UnistrokeUtils utils = new UnistrokeUtils();
+		recognizer = utils.getRecognizer();
+		for (UnistrokeGesture gesture : GESTURES) {
+			recognizer.addTemplate(gesture, Direction.CLOCKWISE);
+			recognizer.addTemplate(gesture, Direction.COUNTERCLOCKWISE);
+		}
+		stroke = new ArrayList<Vector3D>();
+		for (int i = 0; i < 80; i++) {
+			double angle = i * 2 * Math.PI / 80;
+			stroke.add(new Vector3D(200 + 100 * (float) Math.cos(angle), 200 + 90 * (float) Math.sin(angle)));
+		}
+	}
+
+	@Override
+	public int run() {
+		UnistrokeGesture gesture = recognizer.Recognize(stroke);
+		return gesture != null ? gesture.ordinal() : -1;
+	}
+
+}
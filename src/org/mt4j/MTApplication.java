@@ -30,8 +30,6 @@ import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Deque;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
 
@@ -45,11 +43,15 @@ import org.mt4j.input.inputData.ActiveCursorPool;
 import org.mt4j.input.inputData.InputCursor;
 import org.mt4j.input.inputProcessors.globalProcessors.AbstractGlobalInputProcessor;
 import org.mt4j.input.inputSources.AbstractInputSource;
+import org.mt4j.sceneManagement.FrameScheduler;
 import org.mt4j.sceneManagement.IPreDrawAction;
 import org.mt4j.sceneManagement.ISceneChangeListener;
+import org.mt4j.sceneManagement.IUpdateStage;
 import org.mt4j.sceneManagement.Iscene;
 import org.mt4j.sceneManagement.SceneChangeEvent;
+import org.mt4j.sceneManagement.UpdatePipeline;
 import org.mt4j.sceneManagement.transition.ITransition;
+import org.mt4j.util.FrameProfiler;
 import org.mt4j.util.MT4jSettings;
 import org.mt4j.util.SettingsMenu;
 import org.mt4j.util.animation.AnimationManager;
@@ -59,6 +61,8 @@ import org.mt4j.util.logging.Log4jLogger;
 import org.mt4j.util.logging.MTLoggerFactory;
 import org.mt4j.util.math.Tools3D;
 import org.mt4j.util.opengl.GLFBO;
+import org.mt4j.util.opengl.GLResourceDeleter;
+import org.mt4j.util.opengl.GLResourceManager;
 
 import processing.core.PApplet;
 
@@ -115,8 +119,17 @@ public abstract class MTApplication extends PApplet {
 	/** The scene changed listeners. */
 	private List<ISceneChangeListener> sceneChangedListeners;
 	
-	/** The invoke later actions. */
-	private Deque<Runnable> invokeLaterActions;
+	/** Runs the invoke later and pre draw actions. */
+	private FrameScheduler frameScheduler;
+	
+	/** Runs the update stages, optionally on a worker thread. */
+	private UpdatePipeline updatePipeline;
+	
+	/** Deletes the OpenGL objects that are not needed anymore. */
+	private GLResourceManager glResourceManager;
+	
+	/** Measures the time of the phases of a frame. */
+	private FrameProfiler frameProfiler;
 	
 	/** The scene stack. */
 	private ArrayDeque<Iscene> sceneStack;
@@ -131,8 +144,6 @@ public abstract class MTApplication extends PApplet {
 	private ImageIcon mt4jIcon;
 
 	private CSSStyleManager cssStyleManager;
-
-	private ArrayDeque<IPreDrawAction> preDrawActions;
 	
 //	private static boolean fullscreen;
 	/*
@@ -239,14 +250,16 @@ public abstract class MTApplication extends PApplet {
 		alreadyRun 		= false;
 		
 		sceneChangedListeners = new ArrayList<ISceneChangeListener>();
-		invokeLaterActions = new ArrayDeque<Runnable>();
+		frameScheduler = new FrameScheduler();
+		updatePipeline = new UpdatePipeline();
+		glResourceManager = new GLResourceManager(new GLResourceDeleter(this));
+		frameProfiler = new FrameProfiler();
+		frameScheduler.setFrameProfiler(frameProfiler);
 		sceneStack = new ArrayDeque<Iscene>();
 		
 		sceneChangeLocked = false;
 		cssStyleManager = new CSSStyleManager(this);
 		
-		preDrawActions = new ArrayDeque<IPreDrawAction>();
-		
 	}
 	
 	/**
@@ -681,14 +694,7 @@ public abstract class MTApplication extends PApplet {
 	 * @param action the action
 	 */
 	public void registerPreDrawAction(final IPreDrawAction action){
-		synchronized (preDrawActions) {
-//			this.preDrawActions.addLast(action);
-			invokeLater(new Runnable() {
-				public void run() {
-					preDrawActions.addLast(action);
-				}
-			});
-		}
+		frameScheduler.addPreDrawAction(action);
 	}
 
 	
@@ -698,16 +704,7 @@ public abstract class MTApplication extends PApplet {
 	 * @param action the action
 	 */
 	public void unregisterPreDrawAction(final IPreDrawAction action){
-		synchronized (preDrawActions) {
-			if (preDrawActions.contains(action)){
-//				this.preDrawActions.remove(action);
-				invokeLater(new Runnable() {
-					public void run() {
-						preDrawActions.remove(action);
-					}
-				});
-			}
-		}
+		frameScheduler.removePreDrawAction(action);
 	}
 	
 	
@@ -719,16 +716,19 @@ public abstract class MTApplication extends PApplet {
 	 * <li>Updates and draws the current scene transitions.
 	 */
 	private void runApplication(){ 
-		//Process preDrawActions
-		synchronized (preDrawActions) {
-			for (Iterator<IPreDrawAction> iter = preDrawActions.iterator(); iter.hasNext();) {
-				IPreDrawAction action = iter.next();
-				action.processAction();
-				if (!action.isLoop()){
-					iter.remove(); 
-				}
-			}
-		}
+		long t = frameProfiler.beginFrame();
+		
+		//Wait for the update stages started in the last frame and publish their results
+		updatePipeline.finishFrame();
+		t = frameProfiler.mark(FrameProfiler.Phase.UPDATE_STAGES, t);
+		
+		//Process preDrawActions and invoke later actions, within the frame budget
+		frameScheduler.runFrame();
+		t = frameProfiler.now();
+		
+		//Delete the OpenGL objects released since the last frame
+		glResourceManager.processDeletions();
+		t = frameProfiler.mark(FrameProfiler.Phase.GL_RESOURCES, t);
 
 		//Use nanoTime
 		if (!alreadyRun){
@@ -752,15 +752,13 @@ public abstract class MTApplication extends PApplet {
 		
 //		System.out.println("TimeDelta: " + timeDelta);
 		
-		//Run invoke later actions
-		synchronized (invokeLaterActions) {
-			while (!invokeLaterActions.isEmpty()){
-				invokeLaterActions.pollFirst().run();
-			}
-		}
+		//Start the update stages - in pipelined mode they run while this frame is drawn
+		updatePipeline.startFrame(timeDelta);
+		t = frameProfiler.mark(FrameProfiler.Phase.UPDATE_STAGES, t);
 		
 		//Update animation manager
 		animMgr.update(timeDelta);
+		t = frameProfiler.mark(FrameProfiler.Phase.ANIMATION, t);
 		
 //		/*
 		//Handle scene transitions
@@ -781,6 +779,8 @@ public abstract class MTApplication extends PApplet {
 			}
 		}
 //		 */
+		frameProfiler.mark(FrameProfiler.Phase.DRAW, t);
+		frameProfiler.endFrame();
 		
 		/*
 		//Update scene
@@ -805,13 +805,112 @@ public abstract class MTApplication extends PApplet {
 	 * Invokes the specified runnable at the beginning the next rendering loop in the rendering thread.
 	 * This is especially useful for executing opengl commands from another thread - which would lead to errors
 	 * if not synchronized with the rendering thread.
+	 * <br>If there are many actions, some may be deferred to the following frames, see <code>getFrameScheduler()</code>.
 	 * 
 	 * @param runnable the runnable
 	 */
 	public void invokeLater(Runnable runnable){
-		synchronized (invokeLaterActions) {
-			invokeLaterActions.addLast(runnable);	
-		}
+		frameScheduler.invokeLater(runnable, FrameScheduler.Priority.USER);
+	}
+	
+	
+	/**
+	 * Invokes the specified runnable at the beginning the next rendering loop in the rendering thread.
+	 * Runnables with a higher priority are run first.
+	 * 
+	 * @param runnable the runnable
+	 * @param priority the priority
+	 */
+	public void invokeLater(Runnable runnable, FrameScheduler.Priority priority){
+		frameScheduler.invokeLater(runnable, priority);
+	}
+	
+	
+	/**
+	 * Registers an update stage which is updated every frame.
+	 * <br>If pipelined update is enabled, the stage is updated on a worker thread
+	 * while the frame is drawn, see <code>setPipelinedUpdate(boolean)</code>.
+	 * 
+	 * @param stage the stage
+	 */
+	public void registerUpdateStage(IUpdateStage stage){
+		updatePipeline.addStage(stage);
+	}
+	
+	
+	/**
+	 * Unregisters an update stage.
+	 * 
+	 * @param stage the stage
+	 */
+	public void unregisterUpdateStage(IUpdateStage stage){
+		updatePipeline.removeStage(stage);
+	}
+	
+	
+	/**
+	 * Sets whether the registered update stages are updated on a worker thread
+	 * while the current frame is drawn. Their results are then published one frame later.
+	 * <br>Only the update stages are affected, the input processing, the animations and the
+	 * scene are still updated in the rendering thread. Disabled by default.
+	 * 
+	 * @param pipelined true to update the stages on a worker thread
+	 */
+	public void setPipelinedUpdate(boolean pipelined){
+		updatePipeline.setPipelined(pipelined);
+	}
+	
+	
+	/**
+	 * Checks if the update stages are updated on a worker thread.
+	 * 
+	 * @return true, if pipelined update is enabled
+	 */
+	public boolean isPipelinedUpdate(){
+		return updatePipeline.isPipelined();
+	}
+	
+	
+	/**
+	 * Gets the update pipeline running the update stages.
+	 * 
+	 * @return the update pipeline
+	 */
+	public UpdatePipeline getUpdatePipeline(){
+		return this.updatePipeline;
+	}
+	
+	
+	/**
+	 * Gets the frame scheduler running the invoke later and pre draw actions.
+	 * It can be used to change the time budget per frame and to monitor the queued actions.
+	 * 
+	 * @return the frame scheduler
+	 */
+	public FrameScheduler getFrameScheduler(){
+		return this.frameScheduler;
+	}
+	
+	
+	/**
+	 * Gets the resource manager deleting the OpenGL objects (textures, vbos, display lists..)
+	 * that are not needed anymore. It can also be used to monitor the memory used by the objects.
+	 * 
+	 * @return the OpenGL resource manager
+	 */
+	public GLResourceManager getGLResourceManager(){
+		return this.glResourceManager;
+	}
+	
+	
+	/**
+	 * Gets the profiler measuring where the time of a frame goes. 
+	 * It is disabled by default, enable it with <code>setEnabled(true)</code>.
+	 * 
+	 * @return the frame profiler
+	 */
+	public FrameProfiler getFrameProfiler(){
+		return this.frameProfiler;
 	}
 	
 	
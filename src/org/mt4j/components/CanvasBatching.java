@@ -0,0 +1,169 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.components;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.mt4j.components.visibleComponents.AbstractVisibleComponent;
+import org.mt4j.components.visibleComponents.shapes.GeometryInfo;
+import org.mt4j.components.visibleComponents.shapes.MTPolygon;
+import org.mt4j.util.MT4jSettings;
+import org.mt4j.util.opengl.GLTexture;
+import org.mt4j.util.opengl.GeometryBatcher;
+
+import processing.core.PGraphics;
+
+
+/**
+ * Decides how the <code>MTCanvas</code> draws a component when batch rendering is enabled.
+ * <p>
+ * A component is drawn in a batch if it is a plain <code>MTPolygon</code> or <code>MTRectangle</code>
+ * drawn with direct OpenGL and without any state that is set up around its drawing
+ * (clip masks, fill paints, materials, lights, display lists, textures that aren't GLTextures..).
+ * Components that don't draw anything and don't change any state are passed through
+ * without breaking the batch.
+ * Everything else is drawn as usual, the batch is flushed before.
+ */
+public class CanvasBatching {
+
+	/** The component is drawn as usual, the batch has to be flushed before. */
+	public static final byte DRAW_DIRECT 	= 0;
+	/** The component doesn't draw anything and doesn't change the OpenGL state. */
+	public static final byte PASS_THROUGH 	= 1;
+	/** The component is added to the batch. */
+	public static final byte BATCH 		= 2;
+
+	/** Caches the classification of the component classes. */
+	private static final Map<Class<?>, Byte> classKinds = new HashMap<Class<?>, Byte>();
+
+
+	private CanvasBatching(){}
+
+
+	/**
+	 * Gets how the component has to be drawn.
+	 *
+	 * @param comp the component
+	 * @return DRAW_DIRECT, PASS_THROUGH or BATCH
+	 */
+	public static byte getDrawKind(MTComponent comp){
+		byte kind = getClassKind(comp.getClass());
+		if (kind == DRAW_DIRECT){
+			return DRAW_DIRECT;
+		}
+		if (comp.getClip() != null
+			|| comp.getChildClip() != null
+			|| comp.getLight() != null
+			|| comp.isDepthBufferDisabled()
+		){
+			return DRAW_DIRECT;
+		}
+		if (comp instanceof AbstractVisibleComponent){
+			AbstractVisibleComponent visible = (AbstractVisibleComponent)comp;
+			if (visible.getFillPaint() != null || visible.getMaterial() != null){
+				return DRAW_DIRECT;
+			}
+		}
+		if (kind == BATCH){
+			MTPolygon poly = (MTPolygon)comp;
+			GeometryInfo geometry = poly.getGeometryInfo();
+			if (!poly.isUseDirectGL()
+				|| poly.isUseDisplayList()
+				|| geometry.isContainsNormals()
+				|| geometry.getVertices() == null
+				|| !GeometryBatcher.isSupportedDrawMode(poly.getFillDrawMode())
+			){
+				return DRAW_DIRECT;
+			}
+			//The batches can only bind GLTextures
+			if (poly.isTextureEnabled() && poly.getTexture() != null && !(poly.getTexture() instanceof GLTexture)){
+				return DRAW_DIRECT;
+			}
+		}
+		return kind;
+	}
+
+
+	/**
+	 * Adds the polygon to the batch.
+	 *
+	 * @param batcher the batcher
+	 * @param poly the polygon
+	 * @return true, if added
+	 */
+	public static boolean addToBatch(GeometryBatcher batcher, MTPolygon poly){
+		GeometryInfo geometry = poly.getGeometryInfo();
+		int textureTarget = 0;
+		int textureID = 0;
+		if (poly.isTextureEnabled() && poly.getTexture() instanceof GLTexture){
+			GLTexture tex = (GLTexture)poly.getTexture();
+			textureTarget = tex.getTextureTarget();
+			textureID = tex.getTextureID();
+		}
+		return batcher.add(
+				poly.getGlobalMatrix(),
+				geometry.getVertices(),
+				geometry.isIndexed() ? geometry.getIndices() : null,
+				poly.getFillDrawMode(),
+				poly.isNoFill(),
+				textureTarget,
+				textureID,
+				poly.isNoStroke(),
+				poly.getStrokeColor(),
+				poly.getStrokeWeight(),
+				poly.getLineStipple());
+	}
+
+
+	/**
+	 * Classifies the component class by the methods it overrides.
+	 */
+	private static byte getClassKind(Class<?> clazz){
+		Byte result = classKinds.get(clazz);
+		if (result == null){
+			byte kind = DRAW_DIRECT;
+			if (MT4jSettings.getInstance().isOpenGlMode()){
+				try {
+					Class<?> preDraw 			= clazz.getMethod("preDraw", PGraphics.class).getDeclaringClass();
+					Class<?> postDraw 			= clazz.getMethod("postDraw", PGraphics.class).getDeclaringClass();
+					Class<?> postDrawChildren 	= clazz.getMethod("postDrawChildren", PGraphics.class).getDeclaringClass();
+					Class<?> drawComponent 		= clazz.getMethod("drawComponent", PGraphics.class).getDeclaringClass();
+					if (isDefaultDrawSetup(preDraw) && isDefaultDrawSetup(postDraw) && isDefaultDrawSetup(postDrawChildren)){
+						if (drawComponent == MTComponent.class){
+							kind = PASS_THROUGH;
+						}else if (drawComponent == MTPolygon.class){
+							kind = BATCH;
+						}
+					}
+				} catch (NoSuchMethodException e) {
+					kind = DRAW_DIRECT;
+				}
+			}
+			result = kind;
+			classKinds.put(clazz, result);
+		}
+		return result;
+	}
+
+
+	private static boolean isDefaultDrawSetup(Class<?> declaring){
+		return declaring == MTComponent.class || declaring == AbstractVisibleComponent.class;
+	}
+
+}
@@ -0,0 +1,231 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.components;
+
+import org.mt4j.components.interfaces.IMTComponent3D;
+import org.mt4j.util.LongObjectMap;
+
+
+/**
+ * Caches the results of hit tests (picks) at screen positions.
+ * <p>
+ * The screen is divided into square cells, all positions inside a cell share
+ * the same cache entry. The cache has no expiration time - instead it has to be
+ * invalidated when anything changes that could change the pick results
+ * (the scene graph structure, a matrix, the bounds, the visibility..).
+ * The invalidation is cheap, the entries are only discarded at the next access.
+ * <br>If the cache grows larger than its maximum size it is cleared.
+ * <p>
+ * This class isn't thread safe. The <code>MTCanvas</code> only uses it
+ * from the rendering thread.
+ */
+public class HitTestCache {
+
+	/** The default cell size in pixels. */
+	public static final float DEFAULT_CELL_SIZE = 1f;
+
+	/** The default maximum number of entries. */
+	public static final int DEFAULT_MAX_ENTRIES = 4096;
+
+	/** The cached components by cell. */
+	private LongObjectMap<IMTComponent3D> cellToComponent;
+
+	/** The cell size. */
+	private float cellSize;
+
+	/** The max entries. */
+	private int maxEntries;
+
+	/** Whether the entries have to be discarded before the next access. */
+	private boolean invalid;
+
+	private long hits;
+	private long misses;
+	private long invalidations;
+
+
+	/**
+	 * Instantiates a new hit test cache with the default cell size and maximum size.
+	 */
+	public HitTestCache(){
+		this(DEFAULT_CELL_SIZE, DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * Instantiates a new hit test cache.
+	 *
+	 * @param cellSize the cell size in pixels
+	 * @param maxEntries the maximum number of entries
+	 */
+	public HitTestCache(float cellSize, int maxEntries){
+		this.cellToComponent = new LongObjectMap<IMTComponent3D>();
+		this.setCellSize(cellSize);
+		this.maxEntries = Math.max(1, maxEntries);
+		this.invalid = false;
+	}
+
+
+	/**
+	 * Gets the cached component of the cell containing the screen position.
+	 * Counts as a hit or a miss in the statistics.
+	 *
+	 * @param x the screen x coordinate
+	 * @param y the screen y coordinate
+	 * @return the cached component or null
+	 */
+	public IMTComponent3D get(float x, float y){
+		this.discardIfInvalid();
+		IMTComponent3D comp = cellToComponent.get(this.getCellKey(x, y));
+		if (comp != null){
+			hits++;
+		}else{
+			misses++;
+		}
+		return comp;
+	}
+
+
+	/**
+	 * Stores the component for the cell containing the screen position.
+	 *
+	 * @param x the screen x coordinate
+	 * @param y the screen y coordinate
+	 * @param comp the component
+	 */
+	public void put(float x, float y, IMTComponent3D comp){
+		this.discardIfInvalid();
+		if (cellToComponent.size() >= maxEntries){
+			cellToComponent.clear();
+		}
+		cellToComponent.put(this.getCellKey(x, y), comp);
+	}
+
+
+	/**
+	 * Invalidates all entries.
+	 */
+	public void invalidate(){
+		if (!invalid){
+			invalid = true;
+			invalidations++;
+		}
+	}
+
+
+	/**
+	 * Removes all entries immediately.
+	 */
+	public void clear(){
+		cellToComponent.clear();
+		invalid = false;
+	}
+
+
+	private void discardIfInvalid(){
+		if (invalid){
+			cellToComponent.clear();
+			invalid = false;
+		}
+	}
+
+
+	private long getCellKey(float x, float y){
+		long cellX = (long) Math.floor(x / cellSize);
+		long cellY = (long) Math.floor(y / cellSize);
+		return (cellX << 32) ^ (cellY & 0xffffffffL);
+	}
+
+
+	/**
+	 * Gets the number of entries.
+	 *
+	 * @return the size
+	 */
+	public int size(){
+		return invalid ? 0 : cellToComponent.size();
+	}
+
+	/**
+	 * Gets the cell size.
+	 *
+	 * @return the cell size
+	 */
+	public float getCellSize() {
+		return cellSize;
+	}
+
+	/**
+	 * Sets the size of a cell in pixels. All positions inside a cell share the
+	 * same cache entry. Clears the cache.
+	 *
+	 * @param cellSize the new cell size
+	 */
+	public void setCellSize(float cellSize) {
+		if (cellSize <= 0){
+			throw new IllegalArgumentException("The cell size has to be > 0: " + cellSize);
+		}
+		this.cellSize = cellSize;
+		this.clear();
+	}
+
+	/**
+	 * Gets the maximum number of entries.
+	 *
+	 * @return the max entries
+	 */
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * Gets the number of lookups that found a cached component.
+	 *
+	 * @return the hits
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Gets the number of lookups that didn't find a cached component.
+	 *
+	 * @return the misses
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Gets the number of times the cache was invalidated.
+	 *
+	 * @return the invalidations
+	 */
+	public long getInvalidations() {
+		return invalidations;
+	}
+
+	/**
+	 * Resets the hit, miss and invalidation counters.
+	 */
+	public void resetStatistics(){
+		hits = 0;
+		misses = 0;
+		invalidations = 0;
+	}
+
+}
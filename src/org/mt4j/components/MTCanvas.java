@@ -17,28 +17,36 @@
  ***********************************************************************/
 package org.mt4j.components;
 
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-import java.util.HashMap;
 import java.util.List;
 
-import javax.swing.Timer;
-
+import org.mt4j.MTApplication;
+import org.mt4j.components.PickResult.PickEntry;
 import org.mt4j.components.clusters.Cluster;
 import org.mt4j.components.clusters.ClusterManager;
 import org.mt4j.components.interfaces.IMTComponent3D;
+import org.mt4j.components.visibleComponents.shapes.MTPolygon;
 import org.mt4j.input.IHitTestInfoProvider;
 import org.mt4j.input.inputData.MTInputEvent;
 import org.mt4j.input.inputProcessors.componentProcessors.dragProcessor.DragProcessor;
 import org.mt4j.input.inputProcessors.componentProcessors.rotateProcessor.RotateProcessor;
 import org.mt4j.input.inputProcessors.componentProcessors.scaleProcessor.ScaleProcessor;
 import org.mt4j.input.inputProcessors.componentProcessors.tapProcessor.TapProcessor;
+import org.mt4j.util.FrameProfiler;
+import org.mt4j.util.MT4jSettings;
 import org.mt4j.util.camera.Icamera;
+import org.mt4j.util.camera.MTCamera;
+import org.mt4j.util.logging.ILogger;
+import org.mt4j.util.logging.MTLoggerFactory;
 import org.mt4j.util.math.Matrix;
+import org.mt4j.util.math.Ray;
+import org.mt4j.util.math.Vector3D;
+import org.mt4j.util.opengl.GLBatchBackend;
+import org.mt4j.util.opengl.GeometryBatcher;
 
 import processing.core.PApplet;
 import processing.core.PGraphics;
 import processing.core.PGraphics3D;
+import processing.core.PMatrix3D;
 
 /**
  * MTCanvas is the root node of the component hierarchy of a MT4j scene.
@@ -49,34 +57,72 @@ import processing.core.PGraphics3D;
  * @author Christopher Ruff
  */
 public class MTCanvas extends MTComponent implements IHitTestInfoProvider{
+	/** The Constant logger. */
+	private static final ILogger logger = MTLoggerFactory.getLogger(MTCanvas.class.getName());
+	static{
+		logger.setLevel(ILogger.WARN);
+	}
+	
+	/** The minimum number of children for which the spatial index is used when picking. */
+	public static final int SPATIAL_INDEX_MIN_CHILDREN = 16;
 	
 	/** The cluster manager. */
 	private ClusterManager clusterManager;
 	
-	/** The last time hit test. */
-	private long lastTimeHitTest;
-	
-	/** The cache time delta. */
-	private long cacheTimeDelta;
+	/** The hit test cache. */
+	private HitTestCache hitTestCache;
 	
-	/** The cache clear time. */
-	private int cacheClearTime;
+	/** The use hit test cache. */
+	private boolean useHitTestCache;
 	
-	/** The position to component. */
-	private HashMap<Position, IMTComponent3D> positionToComponent;
+	/** The thread the canvas is drawn in, the hit test cache is only used from this thread. */
+	private Thread renderThread;
 	
-	/** The timer. */
-	private Timer timer;
+	/** The camera the hit test cache entries were computed with. */
+	private Icamera hitTestCacheCamera;
 	
-	/** The use hit test cache. */
-	private boolean useHitTestCache;
+	/** The camera and projection state the hit test cache entries were computed with. */
+	private float[] hitTestCacheCameraState;
 	
 	/** The frustum culling switch. */
 	private boolean frustumCulling;
 	
 	private int culledObjects = 0;
+	
+	/** The profiler of the application, null if the renderer isnt a MTApplication. */
+	private FrameProfiler frameProfiler;
+	
+	/** Whether the current frame is measured by the profiler. */
+	private boolean profiling;
 
 	private long lastUpdateTime;
+	
+	/** The spatial index used for picking. */
+	private SpatialPickIndex spatialIndex;
+	
+	/** Whether the spatial index is used for picking. */
+	private boolean useSpatialIndex = true;
+	
+	/** Whether the results of the spatial index are checked against a pick of all children. */
+	private boolean verifySpatialIndex = false;
+	
+	/** Temporarily disables the spatial index while verifying. */
+	private boolean spatialIndexSuspended = false;
+	
+	/** The pick result reused for the picks from the rendering thread. */
+	private PickResult pickResult;
+	
+	/** The packed transform store, null if packed transforms are disabled. */
+	private TransformStore transformStore;
+	
+	/** Whether shapes are drawn in batches. */
+	private boolean batchRendering;
+	
+	/** The batcher used if batch rendering is enabled. */
+	private GeometryBatcher geometryBatcher;
+	
+	/** The current view matrix, captured for the batcher. */
+	private float[] batchView;
 
 	
 	
@@ -100,28 +146,14 @@ public class MTCanvas extends MTComponent implements IHitTestInfoProvider{
 	public MTCanvas(PApplet pApplet, String name, Icamera attachedCamera) {
 		super(pApplet, name, attachedCamera);
 		//Cache settings
-		lastTimeHitTest = 0;
-		cacheTimeDelta = 100;
-		cacheClearTime = 20000;
+		hitTestCache = new HitTestCache();
+		hitTestCacheCameraState = new float[27];
 		useHitTestCache = true;
 		
 		lastUpdateTime = 0;
 		
 		clusterManager = new ClusterManager(this);
 		
-		positionToComponent = new HashMap<Position, IMTComponent3D>();
-		
-		//Schedule a Timer task to clear the object cache so it wont 
-		//get filled infinitely
-		timer = new Timer(cacheClearTime, new ActionListener(){
-			public void actionPerformed(ActionEvent arg0) {
-//				System.out.println("Hit test chache entries: " + positionToComponent.size() + " ... cleared!");
-				positionToComponent.clear();
-			}
-		});
-//		timer.start(); //FIXME TEST 
-		this.useHitTestCache = false; //FIXME TEST DISABLE HIT CACHE
-		
 //		this.setCollidable(false);
 		
 		this.setGestureAllowance(RotateProcessor.class, false);
@@ -139,12 +171,8 @@ public class MTCanvas extends MTComponent implements IHitTestInfoProvider{
 	protected void destroyComponent() {
 		super.destroyComponent();
 		
-		if (this.timer != null && timer.isRunning()){
-			timer.stop();
-		}
-		
-		if (positionToComponent != null){
-			positionToComponent.clear();
+		if (hitTestCache != null){
+			hitTestCache.clear();
 		}
 	}
 	
@@ -169,46 +197,28 @@ public class MTCanvas extends MTComponent implements IHitTestInfoProvider{
 	public IMTComponent3D getComponentAt(float x, float y) { 
 		IMTComponent3D closest3DComp = null;
 		try{
-			long now = System.currentTimeMillis();
-			if (useHitTestCache){
-				if (now - lastTimeHitTest > cacheTimeDelta){ //If the time since last check surpassed => do new hit-test!
-					//Benchmark the picking
-//					long a = System.nanoTime();
-					closest3DComp = this.pick(x, y).getNearestPickResult();
-					//Benchmark the picking
-//					long b = System.nanoTime();
-//					System.out.println("Time for picking the scene: " + (b-a));
-					/*
-					for (MTBaseComponent c : pickResult.getPickList())
-						System.out.println(c.getName());
-					if (closest3DComp != null)
-						System.out.println("Using: " + closest3DComp.getName());
-					*/
-					if (closest3DComp == null){
-						closest3DComp = this;
-					}
-					positionToComponent.put(new Position(x,y), closest3DComp);
+			//The cache may only be used from the rendering thread which also changes the scene
+			boolean useCache = useHitTestCache && renderThread == Thread.currentThread();
+			if (useCache){
+				this.validateHitTestCache();
+				closest3DComp = hitTestCache.get(x, y);
+			}
+			if (closest3DComp == null){
+				if (useCache && frameProfiler != null && frameProfiler.isRecording()){
+					long start = System.nanoTime();
+					closest3DComp = this.pickComponent(x, y);
+					frameProfiler.add(FrameProfiler.Phase.PICKING, System.nanoTime() - start);
+					frameProfiler.count(FrameProfiler.Counter.PICKS, 1);
 				}else{
-					//Check whats in the cache
-					IMTComponent3D cachedComp = positionToComponent.get(new Position(x,y));
-					if (cachedComp != null){ //Use cached obj
-						closest3DComp = cachedComp;
-						positionToComponent.put(new Position(x,y), closest3DComp);
-					}else{
-						closest3DComp = this.pick(x, y).getNearestPickResult();
-						if (closest3DComp == null){
-							closest3DComp = this;
-						}
-						positionToComponent.put(new Position(x,y), closest3DComp);
-					}
+					closest3DComp = this.pickComponent(x, y);
 				}
-			}else{//IF no hittest cache is being used
-				closest3DComp = this.pick(x, y).getNearestPickResult();
 				if (closest3DComp == null){
 					closest3DComp = this;
 				}
+				if (useCache){
+					hitTestCache.put(x, y, closest3DComp);
+				}
 			}
-			lastTimeHitTest = now;
 			
 	//		/*//TODO anders machen..z.b. geclusterte comps einfach als kinder von
 			//�bergeordnetem clusterpoly machen? aber mit clusterPoly.setComposite(TRUE);
@@ -236,6 +246,196 @@ public class MTCanvas extends MTComponent implements IHitTestInfoProvider{
 	}
 	
 	
+	/**
+	 * Picks the nearest component at the screen position.
+	 * If the verification of the spatial index is enabled, the result is compared to
+	 * a pick that checks all children.
+	 * 
+	 * @param x the screen x coordinate
+	 * @param y the screen y coordinate
+	 * @return the nearest picked component or null
+	 */
+	private MTComponent pickComponent(float x, float y){
+		if (!verifySpatialIndex && renderThread == Thread.currentThread()){
+			//Reuse the pick result and only look for the nearest component
+			if (this.pickResult == null){
+				this.pickResult = new PickResult();
+				this.pickResult.setNearestOnly(true);
+			}
+			MTComponent nearest = this.pick(x, y, true, this.pickResult).getNearestPickResult();
+			this.pickResult.reset(); //Dont hold references to the picked components
+			return nearest;
+		}
+		
+		PickResult pickResult = this.pick(x, y);
+		if (verifySpatialIndex && useSpatialIndex){
+			PickResult linearPickResult;
+			spatialIndexSuspended = true;
+			try{
+				linearPickResult = this.pick(x, y);
+			}finally{
+				spatialIndexSuspended = false;
+			}
+			List<PickEntry> indexed = pickResult.getPickList();
+			List<PickEntry> linear = linearPickResult.getPickList();
+			boolean same = indexed.size() == linear.size();
+			for (int i = 0; same && i < indexed.size(); i++) {
+				same = indexed.get(i).hitObj == linear.get(i).hitObj;
+			}
+			if (!same){
+				logger.error("Spatial index pick at (" + x + "," + y + ") differs from the linear pick: " + pickResult.getNearestPickResult() + " <-> " + linearPickResult.getNearestPickResult());
+				return linearPickResult.getNearestPickResult();
+			}
+		}
+		return pickResult.getNearestPickResult();
+	}
+	
+	
+	@Override
+	protected List<MTComponent> getPickCandidates(Ray globalRay) {
+		List<MTComponent> children = this.getChildList();
+		if (!useSpatialIndex || spatialIndexSuspended || children.size() < SPATIAL_INDEX_MIN_CHILDREN){
+			return children;
+		}
+		if (spatialIndex == null){
+			spatialIndex = new SpatialPickIndex(this);
+		}
+		return spatialIndex.getPickCandidates(globalRay);
+	}
+	
+	
+	@Override
+	protected void childListChanged() {
+		super.childListChanged();
+		if (spatialIndex != null){
+			spatialIndex.invalidate();
+		}
+	}
+	
+	
+	@Override
+	public void setMatricesDirty(boolean matricesDirty) {
+		super.setMatricesDirty(matricesDirty);
+		//All global bounds below this canvas change
+		if (matricesDirty){
+			this.invalidateSpatialState();
+		}
+	}
+	
+	@Override
+	protected void globalMatrixChanged() {
+		super.globalMatrixChanged();
+		//A parent of the canvas was transformed
+		this.invalidateSpatialState();
+	}
+	
+	private void invalidateSpatialState(){
+		if (spatialIndex != null){
+			spatialIndex.invalidate();
+		}
+		this.invalidateHitTestCache();
+	}
+	
+	
+	/**
+	 * Called by the components below this canvas if the global bounds of
+	 * a subtree changed.
+	 * 
+	 * @param child the direct child of this canvas whose subtree changed
+	 */
+	void childBoundsChanged(MTComponent child){
+		if (spatialIndex != null){
+			spatialIndex.childBoundsChanged(child);
+		}
+		this.invalidateHitTestCache();
+	}
+	
+	
+	/**
+	 * Called by the components below this canvas if something changed that
+	 * can change the pick results, but not the bounds (ie. the visibility).
+	 */
+	void pickStateChanged(){
+		this.invalidateHitTestCache();
+	}
+	
+	
+	/**
+	 * Discards the cached hit test results if the camera the canvas is viewed
+	 * through, its orientation or the projection has changed.
+	 */
+	private void validateHitTestCache(){
+		Icamera cam = this.getViewingCamera();
+		float[] state = hitTestCacheCameraState;
+		boolean changed = cam != hitTestCacheCamera;
+		hitTestCacheCamera = cam;
+		if (cam != null){
+			Vector3D pos = cam.getPosition();
+			Vector3D center = cam.getViewCenterPos();
+			changed |= setState(state, 0, pos.x);
+			changed |= setState(state, 1, pos.y);
+			changed |= setState(state, 2, pos.z);
+			changed |= setState(state, 3, center.x);
+			changed |= setState(state, 4, center.y);
+			changed |= setState(state, 5, center.z);
+			if (cam instanceof MTCamera){
+				MTCamera mtCam = (MTCamera) cam;
+				changed |= setState(state, 6, mtCam.getXAxisUp());
+				changed |= setState(state, 7, mtCam.getYAxisUp());
+				changed |= setState(state, 8, mtCam.getZAxisUp());
+			}
+		}
+		PApplet app = this.getRenderer();
+		changed |= setState(state, 9, app.width);
+		changed |= setState(state, 10, app.height);
+		//The frustum/perspective the pick rays are unprojected with
+		if (app.g instanceof PGraphics3D){
+			PMatrix3D p = ((PGraphics3D) app.g).projection;
+			changed |= setState(state, 11, p.m00);
+			changed |= setState(state, 12, p.m01);
+			changed |= setState(state, 13, p.m02);
+			changed |= setState(state, 14, p.m03);
+			changed |= setState(state, 15, p.m10);
+			changed |= setState(state, 16, p.m11);
+			changed |= setState(state, 17, p.m12);
+			changed |= setState(state, 18, p.m13);
+			changed |= setState(state, 19, p.m20);
+			changed |= setState(state, 20, p.m21);
+			changed |= setState(state, 21, p.m22);
+			changed |= setState(state, 22, p.m23);
+			changed |= setState(state, 23, p.m30);
+			changed |= setState(state, 24, p.m31);
+			changed |= setState(state, 25, p.m32);
+			changed |= setState(state, 26, p.m33);
+		}
+		if (changed){
+			hitTestCache.invalidate();
+		}
+	}
+	
+	private static boolean setState(float[] state, int index, float value){
+		if (state[index] != value){
+			state[index] = value;
+			return true;
+		}
+		return false;
+	}
+	
+	
+	/**
+	 * Discards all cached hit test results. 
+	 * <br>The canvas does this automatically if the scene graph structure, 
+	 * a matrix, the bounds or the visibility of a component or the canvas' camera change.
+	 * This only has to be called if the pick results change for another reason,
+	 * e.g. if a camera attached to a component below the canvas was moved.
+	 */
+	public void invalidateHitTestCache(){
+		if (hitTestCache != null){
+			hitTestCache.invalidate();
+		}
+	}
+	
+	
 	/* (non-Javadoc)
 	 * @see com.jMT.input.IHitTestInfoProvider#isBackGroundAt(float, float)
 	 */
@@ -299,7 +499,12 @@ public class MTCanvas extends MTComponent implements IHitTestInfoProvider{
 	 * @param updateTime the time passed since the last update (in ms)
 	 */
 	public void drawAndUpdateCanvas(PGraphics graphics, long updateTime){
+		this.renderThread = Thread.currentThread();
 		this.culledObjects = 0;
+		if (frameProfiler == null && this.getRenderer() instanceof MTApplication){
+			frameProfiler = ((MTApplication)this.getRenderer()).getFrameProfiler();
+		}
+		this.profiling = frameProfiler != null && frameProfiler.isRecording();
 		
 		//FIXME THIS IS A HACK! WE SHOULD REPLACE CLUSTERS WITH NORMAL COMPONENTS INSTEAD!
 		//Update cluster components 
@@ -308,8 +513,24 @@ public class MTCanvas extends MTComponent implements IHitTestInfoProvider{
             cluster.updateComponent(updateTime);
         }
 		
+		if (batchRendering){
+			((PGraphics3D)graphics).modelview.get(batchView);
+			geometryBatcher.beginFrame(batchView);
+		}
+		
+		if (transformStore != null){
+			//Update the world matrices changed since the last frame in one pass
+			transformStore.update();
+		}
+		
 		this.drawUpdateRecursive(this, updateTime, graphics);
-//		System.out.println("Culled objects: " + culledObjects);
+		
+		if (batchRendering){
+			geometryBatcher.flush();
+		}
+		if (profiling){
+			frameProfiler.count(FrameProfiler.Counter.CULLED_OBJECTS, culledObjects);
+		}
 	}
 
 	
@@ -323,7 +544,20 @@ public class MTCanvas extends MTComponent implements IHitTestInfoProvider{
 	private void drawUpdateRecursive(MTComponent currentcomp, long updateTime, PGraphics graphics){
 		if (currentcomp.isVisible()){
 			//Update current component
-			currentcomp.updateComponent(updateTime);
+			if (profiling){
+				long start = System.nanoTime();
+				currentcomp.updateComponent(updateTime);
+				//The whole traversal is measured as DRAW by the application, so move the update time
+				long nanos = System.nanoTime() - start;
+				frameProfiler.add(FrameProfiler.Phase.SCENE_UPDATE, nanos);
+				frameProfiler.add(FrameProfiler.Phase.DRAW, -nanos);
+			}else{
+				currentcomp.updateComponent(updateTime);
+			}
+			
+			//Bring the global matrix up to date - we are called top down so only the 
+			//changed branches are recalculated, using the already updated parent matrix
+			currentcomp.getGlobalMatrix();
 			
 			if (currentcomp.getAttachedCamera() != null){
 				//Saves transformations up to this object
@@ -332,6 +566,12 @@ public class MTCanvas extends MTComponent implements IHitTestInfoProvider{
 				//Resets the modelview completely with a new camera matrix
 				currentcomp.getAttachedCamera().update();
 				
+				if (batchRendering){
+					//Batched vertices are in world space, so only the camera matrix is used for them
+					((PGraphics3D)graphics).modelview.get(batchView);
+					geometryBatcher.pushView(batchView);
+				}
+				
 				if (currentcomp.getParent() != null){
 					//Applies all transforms up to this components parent
 					//because the new camera wiped out all previous transforms
@@ -353,6 +593,7 @@ public class MTCanvas extends MTComponent implements IHitTestInfoProvider{
 					if (currentcomp.isContainedIn(currentcomp.getViewingCamera().getFrustum())){
 						if (!this.calledFromDrawComponent){ //FIXME TEST
 						// DRAW THE COMPONENT  \\
+						FrameProfiler.countDrawCall();
 						currentcomp.drawComponent(graphics);
 						}
 					}else{
@@ -362,6 +603,7 @@ public class MTCanvas extends MTComponent implements IHitTestInfoProvider{
 				}else{
 					if (!this.calledFromDrawComponent){ //FIXME TEST
 					// DRAW THE COMPONENT  \\
+					FrameProfiler.countDrawCall();
 					currentcomp.drawComponent(graphics);
 					}
 				}
@@ -378,6 +620,10 @@ public class MTCanvas extends MTComponent implements IHitTestInfoProvider{
 					drawUpdateRecursive(childs.get(i), updateTime, graphics);
 				}
 
+				if (batchRendering){
+					geometryBatcher.popView();
+				}
+				
 				currentcomp.postDrawChildren(graphics);
 				
 				//Restores the transforms of the previous camera etc
@@ -389,20 +635,28 @@ public class MTCanvas extends MTComponent implements IHitTestInfoProvider{
 				
 				//TODO vater an kinder listener -> resize - new geometry -> resize own 
 				
+				byte drawKind = CanvasBatching.DRAW_DIRECT;
+				if (batchRendering){
+					drawKind = CanvasBatching.getDrawKind(currentcomp);
+					if (drawKind == CanvasBatching.DRAW_DIRECT){
+						geometryBatcher.flush();
+					}
+				}
+				
 				currentcomp.preDraw(graphics);
 				
 				if (frustumCulling){
 					//Check visibility with camera frustum
 					if (currentcomp.isContainedIn(currentcomp.getViewingCamera().getFrustum())){
 						// DRAW THE COMPONENT  \\
-						currentcomp.drawComponent(graphics);
+						this.drawComponent(currentcomp, drawKind, graphics);
 					}else{
 						culledObjects++;
 						//System.out.println("Not visible: " + currentcomp.getName());
 					}
 				}else{
 					// DRAW THE COMPONENT  \\
-					currentcomp.drawComponent(graphics);
+					this.drawComponent(currentcomp, drawKind, graphics);
 				}
 				
 				currentcomp.postDraw(graphics);
@@ -416,10 +670,130 @@ public class MTCanvas extends MTComponent implements IHitTestInfoProvider{
 					drawUpdateRecursive(childs.get(i), updateTime, graphics);
 				}
 				
+				if (batchRendering && drawKind == CanvasBatching.DRAW_DIRECT){
+					geometryBatcher.flush();
+				}
+				
 				currentcomp.postDrawChildren(graphics);
 			}
 		}//if visible end
 	}
+	
+	
+	/**
+	 * Draws the component or adds it to the current batch.
+	 */
+	private void drawComponent(MTComponent comp, byte drawKind, PGraphics graphics){
+		if (drawKind == CanvasBatching.BATCH){
+			if (CanvasBatching.addToBatch(geometryBatcher, (MTPolygon)comp)){
+				return;
+			}
+			geometryBatcher.flush();
+		}
+		FrameProfiler.countDrawCall();
+		comp.drawComponent(graphics);
+	}
+	
+	
+	/**
+	 * Gets the number of components that weren't drawn in the last frame 
+	 * because they were outside the camera frustum.
+	 *
+	 * @return the culled objects
+	 */
+	public int getCulledObjects(){
+		return culledObjects;
+	}
+	
+	
+	/**
+	 * Sets whether shapes are drawn in batches.
+	 * <p>
+	 * If enabled, consecutive <code>MTPolygon</code> and <code>MTRectangle</code> instances
+	 * that share the same texture and outline settings are drawn with one draw call. Their vertices are
+	 * transformed on the cpu. Shapes with clip masks, fill paints, materials, lights or display
+	 * lists and all other components are drawn as usual, the batch is flushed before them.
+	 * Also flushed at components with an attached camera.
+	 * <br>All fills of a batch are drawn before the outlines, overlapping shapes
+	 * with outlines are kept in separate batches.
+	 * <br>Only available in OpenGL mode. Disabled by default.
+	 *
+	 * @param batchRendering true to enable batch rendering
+	 */
+	public void setBatchRendering(boolean batchRendering){
+		if (batchRendering && !MT4jSettings.getInstance().isOpenGlMode()){
+			logger.warn("Batch rendering is only available in OpenGL mode.");
+			return;
+		}
+		if (batchRendering && geometryBatcher == null){
+			geometryBatcher = new GeometryBatcher(new GLBatchBackend(this.getRenderer()));
+			batchView = new float[16];
+		}
+		this.batchRendering = batchRendering;
+	}
+	
+	/**
+	 * Checks if shapes are drawn in batches.
+	 *
+	 * @return true, if batch rendering is enabled
+	 */
+	public boolean isBatchRendering(){
+		return this.batchRendering;
+	}
+	
+	/**
+	 * Sets whether the matrices of the components in this canvas are kept in a packed
+	 * <code>TransformStore</code>.
+	 * <p>
+	 * If enabled, the local matrices of the components are also copied into float arrays
+	 * owned by the canvas and the world matrices of all changed components are updated in one
+	 * linear pass before drawing and when a global matrix is requested. This is faster for large
+	 * scene graphs than following the parents of each component.
+	 * <code>getGlobalMatrix()</code> of the components keeps working as before.
+	 * <br>Only possible if the canvas is the root of the scene graph. Disabled by default.
+	 *
+	 * @param packedTransforms true to enable packed transforms
+	 */
+	public void setPackedTransforms(boolean packedTransforms){
+		if (packedTransforms && this.getParent() != null){
+			logger.warn("Packed transforms are only available if the canvas has no parent.");
+			return;
+		}
+		if (packedTransforms && transformStore == null){
+			transformStore = new TransformStore(256);
+			this.attachTransformStore(transformStore);
+		}else if (!packedTransforms && transformStore != null){
+			this.detachTransformStore();
+			transformStore = null;
+		}
+	}
+	
+	/**
+	 * Checks if the matrices of the components are kept in a packed transform store.
+	 *
+	 * @return true, if packed transforms are enabled
+	 */
+	public boolean isPackedTransforms(){
+		return this.transformStore != null;
+	}
+	
+	/**
+	 * Gets the packed transform store.
+	 *
+	 * @return the transform store, null if packed transforms are disabled
+	 */
+	public TransformStore getTransformStore(){
+		return this.transformStore;
+	}
+	
+	/**
+	 * Gets the geometry batcher used for batch rendering.
+	 *
+	 * @return the geometry batcher, null if batch rendering was never enabled
+	 */
+	public GeometryBatcher getGeometryBatcher(){
+		return this.geometryBatcher;
+	}
 
 	
 	/* (non-Javadoc)
@@ -468,21 +842,23 @@ public class MTCanvas extends MTComponent implements IHitTestInfoProvider{
 	 * Gets the cache time delta.
 	 * 
 	 * @return the cache time delta
+	 * @deprecated the hit test cache doesn't expire after a time anymore, it is
+	 * invalidated when the scene changes
 	 */
+	@Deprecated
 	public long getCacheTimeDelta() {
-		return cacheTimeDelta;
+		return 0;
 	}
 
 	/**
-	 * If repeated calls to getObjectAt(float x, float y) in MTCanvas class
-	 * are called during the provided cacheTimeDelta, the Canvas looks into his
-	 * cache instead of querying all objects again
-	 * Default value is: 80.
+	 * Has no effect.
 	 * 
 	 * @param cacheTimeDelta the cache time delta
+	 * @deprecated the hit test cache doesn't expire after a time anymore, it is
+	 * invalidated when the scene changes
 	 */
+	@Deprecated
 	public void setCacheTimeDelta(long cacheTimeDelta) {
-		this.cacheTimeDelta = cacheTimeDelta;
 	}
 
 	/**
@@ -497,23 +873,28 @@ public class MTCanvas extends MTComponent implements IHitTestInfoProvider{
 	
 	/**
 	 * The canvas can be set to look into a hit test cache if
-	 * repeated calls to getComponentAt() with the same coordinates
-	 * during a short period of time are made.
-	 * This period of time can be set with
-	 * <code>setCacheTimeDelta(long cacheTimeDelta)</code>
-	 * <p>
-	 * This is useful for example when a click is made many gestureanalyzers
-	 * call getObjectAt() almost concurrently.
+	 * getComponentAt() is called repeatedly at the same screen position.
+	 * The cached results are discarded when the scene graph structure, a matrix, the bounds
+	 * or the visibility of a component, the canvas' camera, its orientation or the projection change.
+	 * <br>The cache is only used for calls from the rendering thread.
+	 * <br>Default value is: true
 	 * 
 	 * @param useHitTestCache the use hit test cache
+	 * @see #invalidateHitTestCache()
 	 */
 	public void setUseHitTestCache(boolean useHitTestCache) {
-		if (useHitTestCache && !timer.isRunning())
-			timer.start();
-		else if (!useHitTestCache && timer.isRunning())
-			timer.stop();
-		
 		this.useHitTestCache = useHitTestCache;
+		hitTestCache.clear();
+	}
+	
+	/**
+	 * Gets the hit test cache, e.g. to query its hit and miss statistics
+	 * or to change its cell size.
+	 * 
+	 * @return the hit test cache
+	 */
+	public HitTestCache getHitTestCache() {
+		return hitTestCache;
 	}
 
 
@@ -521,22 +902,69 @@ public class MTCanvas extends MTComponent implements IHitTestInfoProvider{
 	 * Gets the cache clear time.
 	 * 
 	 * @return the cache clear time
+	 * @deprecated the hit test cache doesn't expire after a time anymore, it is
+	 * invalidated when the scene changes
 	 */
+	@Deprecated
 	public int getCacheClearTime() {
-		return cacheClearTime;
+		return 0;
 	}
 
 	/**
-	 * Sets the time intervals in ms in which the canvas clears its hit test cache
-	 * Default value is: 20000 ms
-	 * <p>
-	 * This is important to prevent the hit test cache from growing indefinitely.
+	 * Has no effect.
 	 * 
 	 * @param cacheClearTime the cache clear time
+	 * @deprecated the hit test cache doesn't expire after a time anymore, it is
+	 * invalidated when the scene changes
 	 */
+	@Deprecated
 	public void setCacheClearTime(int cacheClearTime) {
-		timer.setDelay(cacheClearTime);
-		this.cacheClearTime = cacheClearTime;
+	}
+
+
+	/**
+	 * Checks if the spatial index is used for picking.
+	 * 
+	 * @return true, if the spatial index is used
+	 */
+	public boolean isUseSpatialIndex() {
+		return useSpatialIndex;
+	}
+
+	/**
+	 * Sets whether the canvas keeps a bounding volume hierarchy of its children
+	 * to speed up picking. Only the children whose bounds are hit by the pick ray
+	 * are then checked. The index is only used if the canvas has at least
+	 * <code>SPATIAL_INDEX_MIN_CHILDREN</code> children.
+	 * <br>Default value is: true
+	 * 
+	 * @param useSpatialIndex use the spatial index
+	 */
+	public void setUseSpatialIndex(boolean useSpatialIndex) {
+		this.useSpatialIndex = useSpatialIndex;
+		if (!useSpatialIndex){
+			this.spatialIndex = null;
+		}
+	}
+
+	/**
+	 * Checks if the spatial index results are verified.
+	 * 
+	 * @return true, if verified
+	 */
+	public boolean isVerifySpatialIndex() {
+		return verifySpatialIndex;
+	}
+
+	/**
+	 * For debugging: if set to true, each pick made by <code>getComponentAt()</code> is
+	 * repeated without the spatial index and an error is logged if the results differ.
+	 * <br>Default value is: false
+	 * 
+	 * @param verifySpatialIndex verify the spatial index
+	 */
+	public void setVerifySpatialIndex(boolean verifySpatialIndex) {
+		this.verifySpatialIndex = verifySpatialIndex;
 	}
 
 
@@ -548,57 +976,4 @@ public class MTCanvas extends MTComponent implements IHitTestInfoProvider{
 		this.frustumCulling = frustumCulling;
 	}
 	
-	
-	
-
-	
-	
-	/**
-	 * Class used for the pickobject cache.
-	 */
-	private class Position{
-		/** The y. */
-		float x,y;
-		
-		/**
-		 * Instantiates a new position.
-		 * 
-		 * @param x the x
-		 * @param y the y
-		 */
-		public Position(float x, float y){
-			this.x = x;
-			this.y = y;
-		}
-		
-		/**
-		 * Gets the x.
-		 * 
-		 * @return the x
-		 */
-		public float getX() {return x;}
-		
-		/**
-		 * Gets the y.
-		 * 
-		 * @return the y
-		 */
-		public float getY() {return y;}
-		
-		/* (non-Javadoc)
-		 * @see java.lang.Object#equals(java.lang.Object)
-		 */
-		@Override
-		public boolean equals(Object arg0) {
-			return (arg0 instanceof Position && ((Position)arg0).getX() == this.getX() && ((Position)arg0).getY() == this.getY());
-		}
-		
-		/* (non-Javadoc)
-		 * @see java.lang.Object#hashCode()
-		 */
-		@Override
-		public int hashCode() {
-			return ((int)x+(int)y);
-		}
-	}
 }
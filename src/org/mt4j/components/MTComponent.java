@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.media.opengl.GL;
 
@@ -142,11 +143,35 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 	/** The Global to local matrix. */
 	private Matrix globalToLocalMatrix;
 	
-	/** The local to Global matrix dirty. */
-	private boolean globalMatrixDirty;
+	/** 
+	 * Counts the transform changes of all components. Used to give each change
+	 * a new, higher generation number.
+	 */
+	private static final AtomicLong transformGeneration = new AtomicLong();
+	
+	/** The generation of the last change of the local matrix or the parent of this component. */
+	private long localGeneration;
+	
+	/** 
+	 * The world generation - the generation of the last change of the local matrix 
+	 * or the parent of this component or one of its ancestors.
+	 */
+	private long worldGeneration;
+	
+	/** The transform generation at which the world generation was last checked. */
+	private long worldGenerationCheckedAt;
 	
-	/** The Global to local matrix dirty. */
-	private boolean globalInverseMatrixDirty;
+	/** The world generation the cached global matrix was calculated for. */
+	private long globalMatrixGeneration;
+	
+	/** The world generation the cached global inverse matrix was calculated for. */
+	private long globalInverseMatrixGeneration;
+	
+	/** The packed transform store this component is part of or null. */
+	private TransformStore transformStore;
+	
+	/** The slot of this component in the transform store. */
+	private int transformSlot;
 	
 	/** The pgraphics3 d. */
 	private PGraphics3D pgraphics3D;
@@ -162,20 +187,11 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 	/** The state change support. */
 	private StateChangeSupport stateChangeSupport;
 	
-	/** The _translation computation. */
-	private Matrix[] _translationComputation; 
-	
-	/** The _x rotation computation. */
-	private Matrix[] _xRotationComputation; 
-	
-	/** The _y rotation computation. */
-	private Matrix[] _yRotationComputation; 
-	
-	/** The _z rotation computation. */
-	private Matrix[] _zRotationComputation; 
-	
-	/** The _scaling computation. */
-	private Matrix[] _scalingComputation; 
+	/** 
+	 * The transform matrix and its inverse used by the translate, rotate and scale methods.
+	 * Created at the first transformation. 
+	 */
+	private Matrix[] _transformComputation; 
 	
 	/** The input processors support. */
 	private ComponentInputProcessorSupport inputProcessorsSupport;
@@ -271,8 +287,12 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 		this.globalMatrix		= new Matrix();
 		this.globalToLocalMatrix= new Matrix();
 
-		this.globalMatrixDirty = true;
-		this.globalInverseMatrixDirty = true;
+		this.localGeneration = transformGeneration.incrementAndGet();
+		this.worldGeneration = this.localGeneration;
+		this.worldGenerationCheckedAt = -1;
+		this.globalMatrixGeneration = -1;
+		this.globalInverseMatrixGeneration = -1;
+		this.transformSlot = -1;
 
 		//This class should only be used with a renderer derived from pgraphics3D!
 		this.pgraphics3D = (PGraphics3D)pApplet.g;
@@ -284,11 +304,6 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 
 		//			stateChangeSupport 		= new StateChangeSupport(this);
 
-		_translationComputation 	= new Matrix[]{new Matrix(), new Matrix()}; 
-		_xRotationComputation 		= new Matrix[]{new Matrix(), new Matrix()}; 
-		_yRotationComputation 		= new Matrix[]{new Matrix(), new Matrix()}; 
-		_zRotationComputation 		= new Matrix[]{new Matrix(), new Matrix()}; 
-		_scalingComputation 		= new Matrix[]{new Matrix(), new Matrix()}; 
 
 		allowedGestures = new ArrayList<Class<? extends IInputProcessor>>(5);
 
@@ -324,6 +339,7 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 	public void setBoundingShape(IBoundingShape boundingShape){
 		this.bounds = boundingShape;
 		this.setBoundsGlobalDirty(true);
+		this.notifyCanvasBoundsChanged();
 	}	
 	/**
 	 * Gets the bounding shape.
@@ -332,7 +348,7 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 	 * @deprecated renamed to <code>getBounds</code>
 	 */
 	public IBoundingShape getBoundingShape(){
-		return this.bounds;
+		return this.getBounds();
 	}
 	/**
 	 * Checks if is bounding shape set.
@@ -351,13 +367,19 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 	public void setBounds(IBoundingShape boundingShape){
 		this.bounds = boundingShape;
 		this.setBoundsGlobalDirty(true);
+		this.notifyCanvasBoundsChanged();
 	}	
 	
 	/**
 	 * Gets the bounding shape.
+	 * <br>If the global matrix changed, the bounds are informed first, so that 
+	 * they update their global values.
 	 * @return the bounding shape
 	 */
 	public IBoundingShape getBounds(){
+		if (this.bounds != null){
+			this.getWorldGeneration();
+		}
 		return this.bounds;
 	}
 	
@@ -377,8 +399,8 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 	 */
 	private void setBoundsGlobalDirty(boolean boundsWorldVerticesDirty) {
 //		this.boundsGlobalVerticesDirty = boundsWorldVerticesDirty;
-		if (this.hasBounds()){
-			this.getBounds().setGlobalBoundsChanged();
+		if (this.bounds != null){
+			this.bounds.setGlobalBoundsChanged();
 		}
 	}
 	// BOUNDS STUFF ////////////////////////////////
@@ -478,6 +500,7 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 		this.attachedCamera = attachedCamera;
 		this.viewingCamera = attachedCamera;
 		this.propagateCamChange(attachedCamera); 
+		this.notifyCanvasBoundsChanged();
 	}
 	/// CAMERA SETTINGS /////////////////////////////////////
 	
@@ -678,6 +701,11 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 	/**
 	 * Informs the object (and its children), that its matrix - OR ONE OF ITS PARENT'S MATRIX - has been altered.
 	 * <br>Usually this shouldnt be called by the user himself.
+	 * <p>
+	 * The children are not visited. The change gets a new generation number and 
+	 * the global matrices of this component and its children are recalculated the next time 
+	 * they are needed, see <code>globalMatrixChanged()</code>.
+	 * Calling this with <code>false</code> has no effect.
 	 * 
 	 * @param matricesDirty the matrices dirty
 	 */
@@ -688,92 +716,96 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 			this.setBoundsGlobalDirty(true);
 			
 			//absolute matrix �ndert sich damit auch auch wenn dr�ber parents geadded werden!
-			this.setGlobalMatrixDirty(true);
+			this.localGeneration = transformGeneration.incrementAndGet();
 			
-			this.setGlobalInverseMatrixDirty(true);
+			if (this.transformStore != null){
+				this.transformStore.setLocal(this.transformSlot, this.getLocalMatrix());
+			}
 			
-			//Also inform the children, so they know that parent changed
-			this.propagateMatrixChange(true);
-		}else{//baseMatrixDiry == false
-			this.globalMatrixDirty = matricesDirty;
-			this.globalInverseMatrixDirty = matricesDirty;
+			this.notifyCanvasBoundsChanged();
 		}
 	}
 	
+	
 	/**
-	 * Inform the children of the matrix change.
+	 * Gets the world generation of this component. It changes whenever the
+	 * local matrix or the parent of this component or one of its ancestors changes,
+	 * so it can be used to find out if something depending on the global matrix has to be updated.
+	 * <br>If the world generation changed since it was last checked, <code>globalMatrixChanged()</code> 
+	 * is called.
 	 * 
-	 * @param matrixDirty the matrix dirty
+	 * @return the world generation
 	 */
-	private void propagateMatrixChange(boolean matrixDirty){
-//		System.out.println("Setting basematrix dirty on obj: " + this.getName());
-        for (MTComponent object : childComponents) {
-            //TEST - only propagate unitil we get to a already dirty component
-            //this should work because the dirty component should also have dirty children already
-            //CAUTION: object can have for example a dirty global matrix and a clean global inverse matrix
-            //so we check if both are dirty and only then dont propagate the dirty state
-            //FIXME NOT WORKING WITH SVG EXAMPLEaaaaaaaaa - cause of composite?
-//			if ((!object.isGlobalInverseMatrixDirty() || !object.isGlobalMatrixDirty())){ 
-            object.setMatricesDirty(matrixDirty);
-//			}
-//			else{
-//				System.out.println("Stopping matrix changed propagation at: " + object.getName() +  " because both its matrices are already dirty.");
-//			}
-        }
+	public long getWorldGeneration(){
+		long current = transformGeneration.get();
+		if (this.worldGenerationCheckedAt != current){
+			long generation = this.localGeneration;
+			if (this.parent != null){
+				generation = Math.max(generation, this.parent.getWorldGeneration());
+			}
+			this.worldGenerationCheckedAt = current;
+			if (generation != this.worldGeneration){
+				this.worldGeneration = generation;
+				this.globalMatrixChanged();
+			}
+		}
+		return this.worldGeneration;
 	}
 	
+	
 	/**
-	 * Checks if Global matrix is dirty.
-	 * 
-	 * @return true, if checks if is abs local to Global matrix dirty
-	 * 
-	 * whether the cached  Global matrix is still valid
+	 * Called when it is found that the global matrix of this component
+	 * changed, because it or one of its ancestors was transformed or moved to another parent.
+	 * This happens lazily, the first time the global matrix, the world generation or
+	 * the bounds are requested after the change.
+	 * <br>Subclasses caching values that depend on the global matrix should override this 
+	 * to invalidate them.
 	 */
-	private boolean isGlobalMatrixDirty() {
-		return globalMatrixDirty;
+	protected void globalMatrixChanged(){
+		this.setBoundsGlobalDirty(true);
 	}
-
+	
+	
 	/**
-	 * Sets the Global matrix dirty.
-	 * 
-	 * @param globalMatrixDirty the local to Global matrix dirty
+	 * Informs the canvases above this component that the global bounds of
+	 * this component's subtree changed, so their spatial pick index can be updated.
 	 */
-	private void setGlobalMatrixDirty(boolean globalMatrixDirty) {
-		/*
-		if (localToGlobalMatrixDirty){
-			System.out.println(this.getName() + ": Setting global Matrix DIRTY!");
-		}else{
-			System.out.println(this.getName() + ": Setting global Matrix NOT dirty!");
+	private void notifyCanvasBoundsChanged(){
+		MTComponent child = this;
+		MTComponent current = this.parent;
+		while (current != null){
+			if (current instanceof MTCanvas){
+				((MTCanvas) current).childBoundsChanged(child);
+			}
+			child = current;
+			current = current.parent;
 		}
-		*/
-		this.globalMatrixDirty = globalMatrixDirty;
 	}
 	
 	/**
-	 * Checks if is global to local matrix dirty.
-	 * 
-	 * @return true, if checks if is global to local matrix dirty
-	 * 
-	 * whether the cached absolute inverse global matrix is still valid
+	 * Informs this component (if it is a canvas) and the canvases above 
+	 * that something changed that can change the pick results.
 	 */
-	private boolean isGlobalInverseMatrixDirty() {
-		return globalInverseMatrixDirty;
+	private void notifyCanvasPickStateChanged(){
+		MTComponent current = this;
+		while (current != null){
+			if (current instanceof MTCanvas){
+				((MTCanvas) current).pickStateChanged();
+			}
+			current = current.parent;
+		}
 	}
 	
 	/**
-	 * Sets the Global Inverse matrix dirty.
+	 * Gets the matrices used by the translate, rotate and scale methods.
 	 * 
-	 * @param dirty the dirty
+	 * @return the transform matrix and its inverse
 	 */
-	private void setGlobalInverseMatrixDirty(boolean dirty) {
-		/*
-		if (dirty){
-			System.out.println(this.getName() + ": Setting global inverse Matrix DIRTY!");
-		}else{
-			System.out.println(this.getName() + ": Setting global inverse Matrix NOT dirty!");
+	private Matrix[] getTransformComputation(){
+		if (this._transformComputation == null){
+			this._transformComputation = new Matrix[]{new Matrix(), new Matrix()};
 		}
-		*/
-		this.globalInverseMatrixDirty = dirty;
+		return this._transformComputation;
 	}
 	
 	/**
@@ -850,65 +882,24 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 	 * the absolute transformation (global) matrix of the object
 	 */
 	public Matrix getGlobalMatrix(){
-		Matrix resMatrix = this.globalMatrix;
 		//Calculate the absolute local to global matrix only if necessary
-		if (this.isGlobalMatrixDirty()){
-			//System.out.println(this.getName() + "'s global matrix is dirty! calculate it:");
-			resMatrix = new Matrix();
-			this.getGlobalMatrixRecursive(this, resMatrix);
-			//System.out.println("Applying Matrix of: '" + this.getName() + "' Matrix: " + this.getLocalBasisMatrix().toString());
-			resMatrix.multLocal(this.getLocalMatrix());
-			
-			this.globalMatrix = resMatrix;
-			
-			this.setGlobalMatrixDirty(false);
-		}
-		//System.out.println(this.getName() + "'s global matrix is not dirty!");
-		return resMatrix;
-	}
-	
-	
-	/**
-	 * Gets the abs matrix recursive.
-	 * 
-	 * @param current the current
-	 * @param currentMatrix the current matrix
-	 * 
-	 * @return the abs matrix recursive
-	 */
-	private MTComponent getGlobalMatrixRecursive(MTComponent current, Matrix currentMatrix){
-		//System.out.println("Processing: " + current.getName());
-		if (current.getParent() != null){
-			if (current.getParent().isGlobalMatrixDirty()){
-				//System.out.println(">Parent not null: " + current.getParent().getName());
-//				System.out.println(" Recursive loop - " + current.getParent().getName() + "'s global matrix IS dirty");
-				MTComponent res = this.getGlobalMatrixRecursive(current.getParent(), currentMatrix);
-				if (!res.getLocalMatrix().isIdentity()){
-					currentMatrix.multLocal(res.getLocalMatrix());
-					//We can set 
-//					System.out.println(" Recursive loop - setting " + res.getName() + " global matrix");
-					res.globalMatrix = new Matrix(currentMatrix);
-					res.setGlobalMatrixDirty(false);
-				}
-				//System.out.println("Applying Matrix of: '" + res.getName() + "' Matrix: " + res.getLocalBasisMatrix().toString());
+		long generation = this.getWorldGeneration();
+		if (this.globalMatrixGeneration != generation){
+			if (this.transformStore != null){
+				//The store updates the world matrices of all changed components in one pass
+				this.transformStore.update();
+				this.transformStore.getWorld(this.transformSlot, this.globalMatrix);
+			}else if (this.parent != null){
+				this.parent.getGlobalMatrix().mult(this.getLocalMatrix(), this.globalMatrix);
 			}else{
-				//Currents global matrix isnt dirty -> apply the global matrix and stop recursion upwards
-//				System.out.println(" Recursive loop - " + current.getParent().getName() + "'s global matrix is NOT dirty - stop recursion");
-				Matrix parentLocalToGlobal = current.getParent().getGlobalMatrix();
-				currentMatrix.multLocal(parentLocalToGlobal);
-			}
-		}else{
-//			System.out.println(" Recursive loop - " + current.getName() + " has no parent - stop recursion and use its local as its global matrix");
-			if (current.isGlobalMatrixDirty()){
-				current.globalMatrix = new Matrix(current.getLocalMatrix());
-				current.setGlobalMatrixDirty(false);
+				this.globalMatrix.set(this.getLocalMatrix());
 			}
+			this.globalMatrixGeneration = generation;
 		}
-		return current;
+		return this.globalMatrix;
 	}
 	
 	
-	
 	/**
 	 * Returns the absolute inverse matrix (inverse of the global) which inverts all transforms made
 	 * from the parents down to this child.
@@ -918,51 +909,18 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 	 * , the absolute inverse transformation matrix of the object
 	 */
 	public Matrix getGlobalInverseMatrix() {
-		Matrix resMatrix = this.globalToLocalMatrix;
-		//Calculate the absolute local to global matrix only if necessary
-		if (this.isGlobalInverseMatrixDirty()){
-//			System.out.println("Getting global inverse of: " + this.getName() + " -its dirty!");
-			if (this.getParent()!= null){
-				resMatrix = new Matrix(this.getLocalInverseMatrix());
-				this.getGlobalInvMatrixRecursive(this.getParent(), resMatrix);
-				this.globalToLocalMatrix = resMatrix;
+		//Calculate the absolute global to local matrix only if necessary
+		long generation = this.getWorldGeneration();
+		if (this.globalInverseMatrixGeneration != generation){
+			if (this.parent != null){
+				this.getLocalInverseMatrix().mult(this.parent.getGlobalInverseMatrix(), this.globalToLocalMatrix);
 			}else{
 				//no parent -> Global inverse is local inverse
-				this.globalToLocalMatrix = this.getLocalInverseMatrix();
-				resMatrix = this.globalToLocalMatrix;
-			}
-			this.setGlobalInverseMatrixDirty(false);
-		}
-		return resMatrix;
-	}
-	
-
-	//TODO maybe cheaper to call globalMatrix.invert() than get the matrix recursively?
-	/**
-	 * Gets the global inverse matrix recursive.
-	 * 
-	 * @param current the current
-	 * @param currentMatrix the current matrix
-	 * 
-	 * @return the abs inv matrix recursive
-	 */
-	private void getGlobalInvMatrixRecursive(MTComponent current, Matrix currentMatrix){
-//		System.out.println("processing: " + current.getName() + " Inverse Matrix: " + current.getLocalInverseMatrix()) ;
-		
-		if (current.isGlobalInverseMatrixDirty()){
-//			System.out.println(" Recursive Loop -> " +  current.getName() + "'s global inverse is dirty - applying it");
-			if (!current.getLocalInverseMatrix().isIdentity()){
-				currentMatrix.multLocal(current.getLocalInverseMatrix());
-			}
-			if (current.getParent() != null)
-				this.getGlobalInvMatrixRecursive(current.getParent(), currentMatrix);
-		}else{
-			//current isnt dirty, -> get the current absolute global inverse and apply it and stop recursion
-//			System.out.println(" Recursive Loop -> " +  current.getName() + "'s global inverse is not dirty - get "  + current.getName() + "'s currents global inverse matrix and stop recursion");
-			if (!current.getGlobalInverseMatrix().isIdentity()){
-				currentMatrix.multLocal(current.getGlobalInverseMatrix());
+				this.globalToLocalMatrix.set(this.getLocalInverseMatrix());
 			}
+			this.globalInverseMatrixGeneration = generation;
 		}
+		return this.globalToLocalMatrix;
 	}
 	
 	
@@ -1304,7 +1262,7 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 	 */
 	public void translate(Vector3D dirVect) {
 //		Matrix[] ms = Matrix.getTranslationMatrixAndInverse(dirVect.getX(), dirVect.getY(), dirVect.getZ());
-		Matrix[] ms = _translationComputation; //use existing object to avoid object creation
+		Matrix[] ms = this.getTransformComputation(); //use existing object to avoid object creation
 		Matrix.toTranslationMatrixAndInverse(ms[0], ms[1], dirVect.x, dirVect.y, dirVect.z);
 		
 //		this.setLocalBasisMatrixInternal(ms[0].mult(this.getLocalBasisMatrix(), this.getLocalBasisMatrix()));
@@ -1361,7 +1319,7 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 	 */
 	public void rotateX(Vector3D rotationPoint, float degree) {
 //		Matrix[] ms = Matrix.getXRotationMatrixAndInverse(rotationPoint, degree);
-		Matrix[] ms = _xRotationComputation;
+		Matrix[] ms = this.getTransformComputation(); //use existing object to avoid object creation
 		Matrix.toXRotationMatrixAndInverse(ms[0], ms[1], rotationPoint, degree);
 		
 		this.setLocalMatrixInternal(ms[0].mult(this.getLocalMatrix(), this.getLocalMatrix()));
@@ -1431,7 +1389,7 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 	 */
 	public void rotateY(Vector3D rotationPoint, float degree) {
 //		Matrix[] ms = Matrix.getYRotationMatrixAndInverse(rotationPoint, degree);
-		Matrix[] ms = _yRotationComputation;
+		Matrix[] ms = this.getTransformComputation(); //use existing object to avoid object creation
 		Matrix.toYRotationMatrixAndInverse(ms[0], ms[1], rotationPoint, degree);
 		
 		this.setLocalMatrixInternal(ms[0].mult(this.getLocalMatrix(), this.getLocalMatrix()));
@@ -1502,7 +1460,7 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 	 */
 	public void rotateZ(Vector3D rotationPoint, float degree) {
 //		Matrix[] ms = Matrix.getZRotationMatrixAndInverse(rotationPoint, degree);
-		Matrix[] ms = _zRotationComputation;
+		Matrix[] ms = this.getTransformComputation(); //use existing object to avoid object creation
 		Matrix.toZRotationMatrixAndInverse(ms[0], ms[1], rotationPoint, degree);
 		
 		//Using special multiplication with fewer operations - seems to work ;)
@@ -1599,7 +1557,7 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 		{
 //			/*//For uniform scalings or non uniform scalings before any other transform has happened
 //			Matrix[] ms = Matrix.getScalingMatrixAndInverse(scalingPoint, X, Y, Z);
-			Matrix[] ms = _scalingComputation;
+			Matrix[] ms = this.getTransformComputation(); //use existing object to avoid object creation
 			Matrix.toScalingMatrixAndInverse(ms[0], ms[1], scalingPoint, X, Y, Z);
 			
 //			this.setLocalBasisMatrixInternal(ms[0].mult(this.getLocalBasisMatrix(), this.getLocalBasisMatrix())); //working original
@@ -1753,6 +1711,7 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 	public void setClip(Clip clip) {
 		if (MT4jSettings.getInstance().isOpenGlMode()){
 			this.clip = clip;	
+			this.notifyCanvasPickStateChanged();
 		}
 	}
 	// CLIP ////////////////
@@ -1777,6 +1736,7 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 	public void setChildClip(Clip childClip) {
 		if (MT4jSettings.getInstance().isOpenGlMode()){
 			this.childClip = childClip;	
+			this.notifyCanvasPickStateChanged();
 		}
 	}
 	// CHILD CLIP MASK /////////////////////
@@ -1888,6 +1848,9 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 			//search up the tree and update the camera responsible for drawing the component
 			tangibleComp.searchViewingCamera();
 		}
+		this.childListChanged();
+		this.notifyCanvasPickStateChanged();
+		
 		//Fire state change event
 		this.fireStateChange(StateChange.CHILD_ADDED);
 		tangibleComp.fireStateChange(StateChange.ADDED_TO_PARENT);
@@ -2098,6 +2061,60 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 //			this.getParent().removeChild(this);
 //		}
 		this.parent = parent;
+		//The global matrix depends on the parent
+		this.localGeneration = transformGeneration.incrementAndGet();
+		
+		TransformStore parentStore = parent != null ? parent.transformStore : null;
+		if (parentStore != this.transformStore){
+			this.detachTransformStore();
+			if (parentStore != null){
+				this.attachTransformStore(parentStore);
+			}
+		}else if (parentStore != null){
+			parentStore.setParent(this.transformSlot, parent.transformSlot);
+		}
+	}
+	
+	
+	/**
+	 * Adds this component and its children to the packed transform store.
+	 * 
+	 * @param store the transform store
+	 */
+	void attachTransformStore(TransformStore store){
+		this.detachTransformStore();
+		int parentSlot = (this.parent != null && this.parent.transformStore == store) ? this.parent.transformSlot : TransformStore.NO_PARENT;
+		this.transformStore = store;
+		this.transformSlot = store.allocate(this, parentSlot);
+		store.setLocal(this.transformSlot, this.getLocalMatrix());
+		for (MTComponent child : childComponents) {
+			child.attachTransformStore(store);
+		}
+	}
+	
+	
+	/**
+	 * Removes this component and its children from their packed transform store.
+	 */
+	void detachTransformStore(){
+		if (this.transformStore != null){
+			this.transformStore.release(this.transformSlot);
+			this.transformStore = null;
+			this.transformSlot = -1;
+			for (MTComponent child : childComponents) {
+				child.detachTransformStore();
+			}
+		}
+	}
+	
+	
+	/**
+	 * Called by the transform store if it moved this component to another slot.
+	 * 
+	 * @param slot the new slot
+	 */
+	void setTransformSlot(int slot){
+		this.transformSlot = slot;
 	}
 	
 	
@@ -2136,6 +2153,8 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 		try {
 			comp.setParent(null);
 			childComponents.remove(comp);
+			this.childListChanged();
+			this.notifyCanvasPickStateChanged();
 			
 			//search up the tree and update the camera responsible for drawing the component
 			//will probably be null here
@@ -2156,6 +2175,8 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 			child.removeFromParent();
 		}
 		childComponents.clear();
+		this.childListChanged();
+		this.notifyCanvasPickStateChanged();
 	}
 	
 	
@@ -2182,6 +2203,7 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 	public void setDepthBufferDisabled(boolean drawOnTop){
 		this.sendToFront();
 		this.drawnOnTop = drawOnTop;
+		this.notifyCanvasPickStateChanged();
 	}
 
 	/**
@@ -2218,15 +2240,24 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 			//System.out.println("Drawlast: " + tangibleComp.getName());
 			childComponents.add(getChildCount(),child);
 			childComponents.remove(child);
+			this.childListChanged();
+			this.notifyCanvasPickStateChanged();
 		}
 	}
 	
+	/**
+	 * Called after a child was added to, removed from or moved inside the list of children of this component.
+	 */
+	protected void childListChanged(){
+	}
+	
 
 	/* (non-Javadoc)
 	 * @see org.mt4j.components.interfaces.IMTComponent#setVisible(boolean)
 	 */
 	public void setVisible(boolean visible){
 		this.visible = visible;
+		this.notifyCanvasPickStateChanged();
 	}
 	
 	
@@ -2295,6 +2326,7 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 	 */
 	public void setPickable(boolean pickable) {
 		this.pickable = pickable;
+		this.notifyCanvasPickStateChanged();
 	}
 
 
@@ -2525,11 +2557,7 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 	 * @return the pick result
 	 */
 	public PickResult pick(float x, float y){ 
-		PickResult pickResult = new PickResult();
-		PickInfo pickInfo = new PickInfo(x,y, Tools3D.getCameraPickRay(this.getRenderer(), this, x, y));
-		this.pickRecursive(pickInfo, pickResult, Float.MAX_VALUE, pickInfo.getPickRay(), true);
-//		pickResult.printList();
-		return pickResult;
+		return this.pick(x, y, true, new PickResult());
 	}
 	
 	
@@ -2556,8 +2584,30 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 	 * @return the pick result
 	 */
 	public PickResult pick(float x, float y, boolean onlyPickables){ 
-		PickResult pickResult = new PickResult();
-		PickInfo pickInfo = new PickInfo(x,y, Tools3D.getCameraPickRay(this.getRenderer(), this, x, y));
+		return this.pick(x, y, onlyPickables, new PickResult());
+	}
+	
+	
+	/**
+	 * Checks which object lies under the specified screen coordinates.
+	 * The the results are stored in the specified PickResult object which is reset first. 
+	 * This component and its children will be checked. 
+	 * <p>
+	 * Reusing the same PickResult object for each pick avoids creating garbage.
+	 * If the pick result is set to only keep the nearest picked object, the picked
+	 * objects also don't have to be sorted.
+	 * 
+	 * @param x the x
+	 * @param y the y
+	 * @param onlyPickables check the only pickable components
+	 * @param pickResult the pick result to reuse
+	 * 
+	 * @return the pick result
+	 * @see PickResult#setNearestOnly(boolean)
+	 */
+	public PickResult pick(float x, float y, boolean onlyPickables, PickResult pickResult){ 
+		pickResult.reset();
+		PickInfo pickInfo = pickResult.getPickInfo(x, y, Tools3D.getCameraPickRay(this.getRenderer(), this, x, y));
 		this.pickRecursive(pickInfo, pickResult, Float.MAX_VALUE, pickInfo.getPickRay(), onlyPickables);
 //		pickResult.printList();
 		return pickResult;
@@ -2593,7 +2643,7 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 				currentRay	= getChangedCameraPickRay(this.getRenderer(), this, pickInfo);
 			}
 			
-			Ray invertedRay = this.getGlobalInverseMatrix().isIdentity()? currentRay : this.globalToLocal(currentRay);
+			Ray invertedRay = this.getLocalPickRay(currentRay, pickResult);
 			
 			/*
 			//DEBUG HELP!!!!! 
@@ -2613,7 +2663,7 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 					//i guess we have to use the ray in global coords to measure the distance
 					interSP.transform(this.getGlobalMatrix());
 					// Get distance from raystart to the intersecting point
-					objDistance = interSP.getSubtracted(currentRay.getRayStartPoint()).length();
+					objDistance = interSP.distance(currentRay.getRayStartPoint());
 					//System.out.println("Pick found: " + this.getName() + " InterSP: " + interSP +  " ObjDist: " + objDistance +  " Mouse Pos: " + pickInfo.getScreenXCoordinate() + "," + pickInfo.getScreenYCoordinate() + " InvRay RS:" + invertedRay.getRayStartPoint() + ",RE: " + invertedRay.getPointInRayDirection());
 
 //					//If the distance is the smallest yet = closest to the raystart: replace the returnObject and current distanceFrom
@@ -2635,30 +2685,31 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 			}
 		}else if (this.isVisible() && this.getChildClip() != null){
 			//Check for child clipping shape intersection, if not intersecting -> dont try to pick children
-			Ray invertedRay = this.getGlobalInverseMatrix().isIdentity()? currentRay : this.globalToLocal(currentRay);
+			Ray invertedRay = this.getLocalPickRay(currentRay, pickResult);
 			if (this.getChildClip().getClipShapeIntersectionLocal(invertedRay) == null){
 				return currObjDist;
 			}
 		}
 		
 		/* recursively check all children now */
-        for (MTComponent child : childComponents) {
+        for (MTComponent child : this.getPickCandidates(currentRay)) {
             if (child.isVisible()) {
                 if (composite) {
                     //Start a new picking with a new Pickresult obj from here
-                    PickResult compositePickRes = new PickResult();
-                    float compDistance = child.pickRecursive(pickInfo, compositePickRes, Float.MAX_VALUE, currentRay, onlyPickables);
+                    PickResult compositePickRes = pickResult.context.acquireCompositeResult();
+                    try{
+                        float compDistance = child.pickRecursive(pickInfo, compositePickRes, Float.MAX_VALUE, currentRay, onlyPickables);
 
-                    //Add the composites picks to the overall picks
-                    if (compositePickRes.getNearestPickResult() != null) {
+                        //Add the composites picks to the overall picks
+                        if (compositePickRes.getNearestPickResult() != null) {
 //						System.out.println("In: " + this.getName() + " Composites child picked, pick resultDistance: " + compDistance);
-                        /*//TODO m�sste diese hier nach distanz geordnet in insgesamt pickresult einf�gen..
-                              ArrayList<MTBaseComponent> pickList = compositePickRes.getPickList();
-                              for(MTBaseComponent comp : pickList){
-                                  pickResult.addPickedObject(comp, compositePickRes.getInterSectionPointOfPickedObj(comp), compositePickRes.getDistanceOfPickedObj(comp));
-                              }
-                              */
-                        //Add this composite as the last one picked with the distance of the last one picked in the composite pick
+                            /*//TODO m�sste diese hier nach distanz geordnet in insgesamt pickresult einf�gen..
+                                  ArrayList<MTBaseComponent> pickList = compositePickRes.getPickList();
+                                  for(MTBaseComponent comp : pickList){
+                                      pickResult.addPickedObject(comp, compositePickRes.getInterSectionPointOfPickedObj(comp), compositePickRes.getDistanceOfPickedObj(comp));
+                                  }
+                                  */
+                            //Add this composite as the last one picked with the distance of the last one picked in the composite pick
 //						pickResult.addPickedObjects(compositePickRes.getPickList());
 //						pickResult.addPickedObject(this, compositePickRes.getInterSectionPointNearestPickedObj(), compositePickRes.getDistanceNearestPickObj());
 
@@ -2670,9 +2721,12 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 //							currObjDist = compDistance;
 //						}
 
-                        //FIXME TEST - ADD ALL PICKED OBJECTS - SORT LATER
-                        PickEntry nearestPickEntry = compositePickRes.getNearestPickEntry();
-                        pickResult.addPickedObject(this, nearestPickEntry.intersectionPoint, nearestPickEntry.cameraDistance);
+                            //FIXME TEST - ADD ALL PICKED OBJECTS - SORT LATER
+                            PickEntry nearestPickEntry = compositePickRes.getNearestPickEntry();
+                            pickResult.addPickedObject(this, nearestPickEntry.intersectionPoint, nearestPickEntry.cameraDistance);
+                        }
+                    }finally{
+                        pickResult.context.releaseCompositeResult();
                     }
                 } else {
                     currObjDist = child.pickRecursive(pickInfo, pickResult, currObjDist, currentRay, onlyPickables);
@@ -2683,6 +2737,38 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 	}
 	
 	
+	/**
+	 * Transforms the global pick ray into local space, using a ray of the pick result
+	 * instead of creating a new one.
+	 * 
+	 * @param globalRay the global ray
+	 * @param pickResult the pick result
+	 * @return the local ray - only valid until the next call
+	 */
+	private Ray getLocalPickRay(Ray globalRay, PickResult pickResult){
+		Matrix globalInverse = this.getGlobalInverseMatrix();
+		if (globalInverse.isIdentity()){
+			return globalRay;
+		}
+		Ray localRay = pickResult.context.getLocalRay(globalRay);
+		localRay.transform(globalInverse);
+		return localRay;
+	}
+	
+	
+	/**
+	 * Returns the children that are checked when picking this component's children.
+	 * All children are returned by default. Components can return only the children 
+	 * that can possibly be hit by the ray, in the order of the child list.
+	 * 
+	 * @param globalRay the pick ray in global space
+	 * @return the children to check
+	 */
+	protected List<MTComponent> getPickCandidates(Ray globalRay){
+		return childComponents;
+	}
+	
+	
 	/**
 	 * Calculates the "real" picking ray for the object.
 	 * <br>If the obj has a custom camera attached to it, this camera's position is the new ray origin and
@@ -3033,6 +3119,7 @@ public class MTComponent implements IMTComponent3D, IMTInputEventListener, IGest
 	 */
 	public void setComposite(boolean composite) {
 		this.composite = composite;
+		this.notifyCanvasPickStateChanged();
 	}
 
 
@@ -52,6 +52,19 @@ public class PickInfo {
 		this.originalPickRay = originalPickRay;
 	}
 
+	/**
+	 * Reinitializes this pick info, so it can be reused for another pick.
+	 * 
+	 * @param screenXCoordinate the screen x coordinate
+	 * @param screenYCoordinate the screen y coordinate
+	 * @param originalPickRay the original pick ray
+	 */
+	void set(float screenXCoordinate, float screenYCoordinate, Ray originalPickRay) {
+		this.screenXCoordinate = screenXCoordinate;
+		this.screenYCoordinate = screenYCoordinate;
+		this.originalPickRay = originalPickRay;
+	}
+	
 	/**
 	 * Gets the pick ray.
 	 * 
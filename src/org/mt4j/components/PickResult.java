@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import org.mt4j.util.math.Ray;
 import org.mt4j.util.math.Vector3D;
 
 
@@ -30,6 +31,11 @@ import org.mt4j.util.math.Vector3D;
  * Acts as a visitor to the scene and collects the pick information if
  * any objects were hit (picked).
  * Later, whe can retrieve the nearest picked object and its intersection point.
+ * <p>
+ * A pick result can be reused for many picks (see <code>MTComponent.pick(float, float, boolean, PickResult)</code>).
+ * The pick entries and the objects needed while picking are then pooled, so 
+ * repeated picks don't create garbage. If only the nearest picked object is of interest,
+ * <code>setNearestOnly(true)</code> avoids collecting and sorting all picked objects.
  * 
  * @author Christopher Ruff
  */
@@ -45,6 +51,27 @@ public class PickResult {
 	
 	private boolean isAlreadySorted;
 	
+	/** The pooled entries, the first <code>usedEntries</code> are in use. */
+	private List<PickEntry> entryPool;
+	
+	/** The used entries. */
+	private int usedEntries;
+	
+	/** The number of objects added since the last reset. */
+	private int addedCount;
+	
+	/** Whether only the nearest entry is kept. */
+	private boolean nearestOnly;
+	
+	/** The pick result holding the objects that are reused while picking. */
+	PickResult context;
+	
+	/** Reused while picking. */
+	private PickInfo pickInfo;
+	private Ray localRay;
+	private List<PickResult> compositeResults;
+	private int compositeDepth;
+	
 	/** 
 	 * Sometimes the wrong obj gets picked if they are on the same plane but with different inverted rays..
 	 * probably math rounding off errors with floats etc. (at inverting the ray?) 
@@ -65,6 +92,102 @@ public class PickResult {
 		
 		pickEntries = new ArrayList<PickEntry>();
 		isAlreadySorted = false;
+		
+		entryPool = new ArrayList<PickEntry>();
+		usedEntries = 0;
+		addedCount = 0;
+		nearestOnly = false;
+		context = this;
+	}
+	
+	
+	/**
+	 * Removes all picked objects so this pick result can be reused for another pick.
+	 * The entries are pooled - entries obtained from this pick result before 
+	 * are overwritten by the next pick!
+	 */
+	public void reset(){
+		for (int i = 0; i < usedEntries; i++) {
+			PickEntry entry = entryPool.get(i);
+			entry.hitObj = null;
+			entry.intersectionPoint = null;
+		}
+		pickEntries.clear();
+		usedEntries = 0;
+		addedCount = 0;
+		isAlreadySorted = false;
+		context = this;
+	}
+	
+	
+	/**
+	 * Sets whether only the nearest picked object is kept. The nearest object 
+	 * is then determined while picking, using the same rules as the sorting of
+	 * the complete pick list.
+	 * 
+	 * @param nearestOnly only keep the nearest picked object
+	 */
+	public void setNearestOnly(boolean nearestOnly) {
+		this.nearestOnly = nearestOnly;
+	}
+	
+	/**
+	 * Checks if only the nearest picked object is kept.
+	 * 
+	 * @return true, if only the nearest picked object is kept
+	 */
+	public boolean isNearestOnly() {
+		return nearestOnly;
+	}
+	
+	
+	/**
+	 * Gets the pick info used for a pick, reused for each pick.
+	 */
+	PickInfo getPickInfo(float x, float y, Ray pickRay){
+		if (pickInfo == null){
+			pickInfo = new PickInfo(x, y, pickRay);
+		}else{
+			pickInfo.set(x, y, pickRay);
+		}
+		return pickInfo;
+	}
+	
+	/**
+	 * Gets a ray to store the pick ray in local component space. Only valid 
+	 * until the next call.
+	 */
+	Ray getLocalRay(Ray globalRay){
+		if (localRay == null){
+			localRay = new Ray(new Vector3D(), new Vector3D());
+		}
+		return localRay.setTo(globalRay);
+	}
+	
+	/**
+	 * Gets an empty, nearest only, pick result to pick the children of a composite
+	 * component. Has to be released after use.
+	 */
+	PickResult acquireCompositeResult(){
+		if (compositeResults == null){
+			compositeResults = new ArrayList<PickResult>();
+		}
+		if (compositeDepth == compositeResults.size()){
+			PickResult compositeResult = new PickResult();
+			compositeResult.setNearestOnly(true);
+			compositeResults.add(compositeResult);
+		}
+		PickResult compositeResult = compositeResults.get(compositeDepth++);
+		compositeResult.reset();
+		compositeResult.context = this;
+		return compositeResult;
+	}
+	
+	/**
+	 * Releases the last acquired composite pick result.
+	 */
+	void releaseCompositeResult(){
+		compositeDepth--;
 	}
 
 	/**
@@ -78,10 +201,37 @@ public class PickResult {
 //		pickList.add(hitObject);
 //		compToInterSectionPoint.put(hitObject, new Vector3D[]{intersectionPoint, new Vector3D(distance,distance,distance)}); //hack
 		
-		pickEntries.add(new PickEntry(hitObject, intersectionPoint, distance));
-		int lastIndex = pickEntries.size()-1;
-		pickEntries.get(lastIndex).originalOrderIndex = lastIndex;
-		isAlreadySorted = false;
+		int orderIndex = addedCount++;
+		if (nearestOnly){
+			if (pickEntries.isEmpty()){
+				pickEntries.add(this.obtainEntry(hitObject, intersectionPoint, distance, orderIndex));
+			}else{
+				//Same rule as in PickEntry.compareTo() - the new entry was added later
+				PickEntry nearest = pickEntries.get(0);
+				if (distance - HIT_TOLERANCE <= nearest.cameraDistance || nearest.isDrawnWithoutDepthBuffer(hitObject)){
+					nearest.set(hitObject, intersectionPoint, distance, orderIndex);
+				}
+			}
+			isAlreadySorted = true;
+		}else{
+			pickEntries.add(this.obtainEntry(hitObject, intersectionPoint, distance, orderIndex));
+			isAlreadySorted = false;
+		}
+	}
+	
+	
+	private PickEntry obtainEntry(MTComponent hitObject, Vector3D intersectionPoint, float distance, int orderIndex){
+		PickEntry entry;
+		if (usedEntries < entryPool.size()){
+			entry = entryPool.get(usedEntries);
+			entry.set(hitObject, intersectionPoint, distance, orderIndex);
+		}else{
+			entry = new PickEntry(hitObject, intersectionPoint, distance);
+			entry.originalOrderIndex = orderIndex;
+			entryPool.add(entry);
+		}
+		usedEntries++;
+		return entry;
 	}
 
 	/**
@@ -239,6 +389,13 @@ public class PickResult {
 			this.intersectionPoint = intersectionPoint2;
 			this.cameraDistance = distance;
 		}
+		
+		private void set(MTComponent hitObject, Vector3D intersectionPoint, float distance, int orderIndex) {
+			this.hitObj = hitObject;
+			this.intersectionPoint = intersectionPoint;
+			this.cameraDistance = distance;
+			this.originalOrderIndex = orderIndex;
+		}
 
 		//We give the later picked objects with the same distance priority 
 		//(by substracting the hit tolerance from their distance)
@@ -0,0 +1,373 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.components;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.mt4j.components.bounds.BoundingSphere;
+import org.mt4j.components.bounds.BoundingVolumeHierarchy;
+import org.mt4j.components.bounds.IBoundingShape;
+import org.mt4j.components.visibleComponents.shapes.AbstractShape;
+import org.mt4j.util.math.Matrix;
+import org.mt4j.util.math.Ray;
+import org.mt4j.util.math.Vector3D;
+
+
+/**
+ * Spatial index used by the <code>MTCanvas</code> to find the children that can possibly
+ * be hit by a pick ray without testing each of them.
+ * <p>
+ * Each direct child of the canvas is a leaf in a bounding volume hierarchy. The box of a leaf
+ * is the global axis aligned box of everything in the child's subtree that can be picked.
+ * Only the children whose box is intersected by the pick ray are returned as candidates, in
+ * the order of the canvas' child list. They are then picked as usual, so the results
+ * (including the composite, clip and attached camera rules) are the same as when
+ * all children are tested.
+ * <br>Subtrees that contain a component with an attached camera (they are picked with a different ray)
+ * or a component that overrides the picking with its own <code>getIntersectionLocal()</code> can't be
+ * bounded and are always returned as candidates.
+ * <p>
+ * The boxes are refitted lazily before the next query if a component's matrix or bounds
+ * changed, the hierarchy is rebuilt if the child list of the canvas changed.
+ * <br>Should only be used by the rendering thread.
+ */
+class SpatialPickIndex {
+
+	/** Classification of a child. */
+	private static final byte BOUNDED 	= 0;
+	private static final byte EMPTY 	= 1;
+	private static final byte UNBOUNDED = 2;
+
+	/** Caches if a component class uses the default intersection implementation. */
+	private static final Map<Class<?>, Boolean> defaultIntersectionClasses = new HashMap<Class<?>, Boolean>();
+
+	/** The canvas. */
+	private MTCanvas canvas;
+
+	/** The hierarchy. */
+	private BoundingVolumeHierarchy hierarchy;
+
+	/** The indexed children, the leaf id is the child index. */
+	private List<MTComponent> indexedChildren;
+
+	/** The leaf id of each indexed child. */
+	private IdentityHashMap<MTComponent, Integer> childToLeaf;
+
+	/** The global boxes of the children, 6 floats per child. */
+	private float[] childBounds;
+
+	/** The classification of the children. */
+	private byte[] childTypes;
+
+	/** The ids of the children that are always picked. */
+	private int[] unboundedLeaves;
+	private int unboundedCount;
+
+	/** The children whose bounds have to be recomputed. */
+	private int[] dirtyLeaves;
+	private int dirtyCount;
+	private boolean[] leafDirty;
+
+	/** Whether the hierarchy has to be rebuilt. */
+	private boolean structureDirty;
+
+	/** Query results. */
+	private int[] queryResult;
+	private List<MTComponent> candidates;
+
+	/** Scratch vector. */
+	private Vector3D scratch;
+
+
+	/**
+	 * Instantiates a new spatial pick index.
+	 *
+	 * @param canvas the canvas
+	 */
+	SpatialPickIndex(MTCanvas canvas) {
+		this.canvas 			= canvas;
+		this.hierarchy 			= new BoundingVolumeHierarchy();
+		this.indexedChildren 	= new ArrayList<MTComponent>();
+		this.childToLeaf 		= new IdentityHashMap<MTComponent, Integer>();
+		this.childBounds 		= new float[0];
+		this.childTypes 		= new byte[0];
+		this.unboundedLeaves 	= new int[0];
+		this.dirtyLeaves 		= new int[0];
+		this.leafDirty 			= new boolean[0];
+		this.queryResult 		= new int[0];
+		this.candidates 		= new ArrayList<MTComponent>();
+		this.scratch 			= new Vector3D();
+		this.structureDirty 	= true;
+	}
+
+
+	/**
+	 * Informs the index that the child list of the canvas changed.
+	 */
+	void invalidate(){
+		this.structureDirty = true;
+	}
+
+
+	/**
+	 * Informs the index that the global bounds of the subtree of a direct child of the canvas changed.
+	 *
+	 * @param child the direct child of the canvas
+	 */
+	void childBoundsChanged(MTComponent child){
+		if (structureDirty){
+			return;
+		}
+		Integer leaf = childToLeaf.get(child);
+		if (leaf == null){
+			structureDirty = true;
+			return;
+		}
+		int id = leaf;
+		if (!leafDirty[id]){
+			leafDirty[id] = true;
+			dirtyLeaves[dirtyCount++] = id;
+		}
+	}
+
+
+	/**
+	 * Returns the children of the canvas that can possibly be hit by the specified global ray,
+	 * in the order of the canvas' child list.
+	 * <br>The returned list is reused at the next call.
+	 *
+	 * @param globalRay the global ray
+	 * @return the pick candidates
+	 */
+	List<MTComponent> getPickCandidates(Ray globalRay){
+		this.update();
+
+		Vector3D start = globalRay.getRayStartPoint();
+		Vector3D end = globalRay.getPointInRayDirection();
+		float dirX = end.x - start.x;
+		float dirY = end.y - start.y;
+		float dirZ = end.z - start.z;
+		int found = hierarchy.queryLine(start.x, start.y, start.z, dirX, dirY, dirZ, 0, queryResult);
+		System.arraycopy(unboundedLeaves, 0, queryResult, found, unboundedCount);
+		found += unboundedCount;
+		Arrays.sort(queryResult, 0, found);
+
+		candidates.clear();
+		for (int i = 0; i < found; i++) {
+			candidates.add(indexedChildren.get(queryResult[i]));
+		}
+		return candidates;
+	}
+
+
+	/**
+	 * Rebuilds or refits the hierarchy if needed.
+	 */
+	private void update(){
+		if (!structureDirty && hierarchy.getRefitCount() > Math.max(64, indexedChildren.size())){
+			//Refitting doesnt change the topology, so the tree gets worse if many children are moved around
+			structureDirty = true;
+		}
+
+		if (!structureDirty){
+			for (int i = 0; i < dirtyCount && !structureDirty; i++) {
+				int id = dirtyLeaves[i];
+				byte oldType = childTypes[id];
+				byte type = this.computeChildBounds(indexedChildren.get(id), id);
+				childTypes[id] = type;
+				if (type != oldType){
+					structureDirty = true;
+				}else if (type == BOUNDED){
+					hierarchy.refit(id, childBounds);
+				}
+			}
+			this.clearDirtyLeaves();
+		}
+
+		if (structureDirty){
+			this.rebuild();
+		}
+	}
+
+
+	/**
+	 * Rebuilds the hierarchy from the current children of the canvas.
+	 */
+	private void rebuild(){
+		List<MTComponent> children = canvas.getChildList();
+		int count = children.size();
+
+		indexedChildren.clear();
+		indexedChildren.addAll(children);
+		childToLeaf.clear();
+		if (childTypes.length < count){
+			int capacity = Math.max(count, childTypes.length * 2);
+			childBounds 	= new float[capacity * 6];
+			childTypes 		= new byte[capacity];
+			unboundedLeaves = new int[capacity];
+			dirtyLeaves 	= new int[capacity];
+			leafDirty 		= new boolean[capacity];
+			queryResult 	= new int[capacity];
+		}
+		this.clearDirtyLeaves();
+
+		int[] boundedLeaves = queryResult;
+		int boundedCount = 0;
+		unboundedCount = 0;
+		for (int i = 0; i < count; i++) {
+			MTComponent child = indexedChildren.get(i);
+			childToLeaf.put(child, i);
+			byte type = this.computeChildBounds(child, i);
+			childTypes[i] = type;
+			if (type == BOUNDED){
+				boundedLeaves[boundedCount++] = i;
+			}else if (type == UNBOUNDED){
+				unboundedLeaves[unboundedCount++] = i;
+			}
+		}
+		hierarchy.build(boundedLeaves, boundedCount, childBounds);
+		structureDirty = false;
+	}
+
+
+	private void clearDirtyLeaves(){
+		for (int i = 0; i < dirtyCount; i++) {
+			leafDirty[dirtyLeaves[i]] = false;
+		}
+		dirtyCount = 0;
+	}
+
+
+	/**
+	 * Computes the global box of the child's subtree and stores it in the child bounds.
+	 *
+	 * @return the classification of the child
+	 */
+	private byte computeChildBounds(MTComponent child, int id){
+		int b = id * 6;
+		childBounds[b] 	   = Float.MAX_VALUE;
+		childBounds[b + 1] = Float.MAX_VALUE;
+		childBounds[b + 2] = Float.MAX_VALUE;
+		childBounds[b + 3] = -Float.MAX_VALUE;
+		childBounds[b + 4] = -Float.MAX_VALUE;
+		childBounds[b + 5] = -Float.MAX_VALUE;
+		if (!this.addSubtreeBounds(child, b)){
+			return UNBOUNDED;
+		}
+		if (childBounds[b] > childBounds[b + 3]){
+			return EMPTY;
+		}
+
+		//Enlarge the box a little because the components are picked with the inverted ray
+		float extent = Math.max(childBounds[b + 3] - childBounds[b], Math.max(childBounds[b + 4] - childBounds[b + 1], childBounds[b + 5] - childBounds[b + 2]));
+		float tolerance = 0.01f + extent * 0.001f;
+		for (int i = 0; i < 3; i++) {
+			childBounds[b + i] 	   -= tolerance;
+			childBounds[b + 3 + i] += tolerance;
+		}
+		return BOUNDED;
+	}
+
+
+	/**
+	 * Adds the global bounds of the component and its children to the box at the specified offset.
+	 *
+	 * @return false, if the subtree can't be bounded
+	 */
+	private boolean addSubtreeBounds(MTComponent comp, int b){
+		if (comp.getAttachedCamera() != null || !usesDefaultIntersection(comp.getClass())){
+			return false;
+		}
+
+		IBoundingShape bounds = comp.getBounds();
+		if (comp instanceof AbstractShape
+			&& (bounds == null || ((AbstractShape) comp).getBoundsBehaviour() == AbstractShape.BOUNDS_DONT_USE)
+		){
+			//Picked by the geometry
+			Vector3D[] vertices = ((AbstractShape) comp).getVerticesLocal();
+			if (vertices != null){
+				Matrix m = comp.getGlobalMatrix();
+				for (Vector3D v : vertices) {
+					this.addPoint(m, v.x, v.y, v.z, b);
+				}
+			}
+		}else if (bounds instanceof BoundingSphere){
+			BoundingSphere sphere = (BoundingSphere) bounds;
+			Vector3D c = sphere.getCenterPointLocal();
+			float r = sphere.radius;
+			Matrix m = comp.getGlobalMatrix();
+			for (int i = 0; i < 8; i++) {
+				this.addPoint(m,
+						(i & 1) == 0 ? c.x - r : c.x + r,
+						(i & 2) == 0 ? c.y - r : c.y + r,
+						(i & 4) == 0 ? c.z - r : c.z + r, b);
+			}
+		}else if (bounds != null){
+			Vector3D[] vectors = bounds.getVectorsLocal();
+			Matrix m = comp.getGlobalMatrix();
+			for (Vector3D v : vectors) {
+				this.addPoint(m, v.x, v.y, v.z, b);
+			}
+		}
+
+		List<MTComponent> children = comp.getChildList();
+		for (int i = 0; i < children.size(); i++) {
+			if (!this.addSubtreeBounds(children.get(i), b)){
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	private void addPoint(Matrix m, float x, float y, float z, int b){
+		scratch.setXYZ(x, y, z);
+		m.mult(scratch, scratch);
+		childBounds[b] 	   = Math.min(childBounds[b], 	  scratch.x);
+		childBounds[b + 1] = Math.min(childBounds[b + 1], scratch.y);
+		childBounds[b + 2] = Math.min(childBounds[b + 2], scratch.z);
+		childBounds[b + 3] = Math.max(childBounds[b + 3], scratch.x);
+		childBounds[b + 4] = Math.max(childBounds[b + 4], scratch.y);
+		childBounds[b + 5] = Math.max(childBounds[b + 5], scratch.z);
+	}
+
+
+	/**
+	 * Checks if the class uses the intersection test of <code>MTComponent</code> or
+	 * <code>AbstractShape</code>, which only hit inside the bounds or the geometry.
+	 */
+	private static boolean usesDefaultIntersection(Class<?> clazz){
+		Boolean result = defaultIntersectionClasses.get(clazz);
+		if (result == null){
+			try {
+				Class<?> declaring = clazz.getMethod("getIntersectionLocal", Ray.class).getDeclaringClass();
+				result = declaring == MTComponent.class || declaring == AbstractShape.class;
+			} catch (NoSuchMethodException e) {
+				result = Boolean.FALSE;
+			}
+			defaultIntersectionClasses.put(clazz, result);
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,428 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.components;
+
+import java.util.Arrays;
+
+import org.mt4j.util.math.Matrix;
+
+
+/**
+ * Keeps the local and world matrices of the components of a scene graph packed in
+ * float arrays, so that the world matrices can be updated in one linear pass
+ * over contiguous memory.
+ * <p>
+ * Each component gets a slot. The 16 values of the matrices of a slot are stored
+ * row by row, like the fields of <code>Matrix</code>. The slots are kept in an order where a parent 
+ * always comes before its children - if this order is broken by moving a component to a parent
+ * with a higher slot, or if too many slots were released, the slots are reordered at the
+ * next update. The components are informed of their new slot.
+ * <br>A slot without parent slot is a root, its world matrix is its local matrix.
+ * <p>
+ * Used by the <code>MTCanvas</code> if packed transforms are enabled, see 
+ * <code>MTCanvas.setPackedTransforms(boolean)</code>.
+ * <br>This class isn't thread safe, it has to be used from the thread changing the scene graph. 
+ */
+public class TransformStore {
+	
+	/** The parent value of a released slot. */
+	private static final int FREE = -2;
+	
+	/** The parent value of a root slot. */
+	public static final int NO_PARENT = -1;
+	
+	/** The local matrices, 16 floats per slot. */
+	private float[] local;
+	
+	/** The world matrices, 16 floats per slot. */
+	private float[] world;
+	
+	/** The parent slot of each slot. */
+	private int[] parents;
+	
+	/** Whether the local matrix or the parent of a slot changed. */
+	private boolean[] dirty;
+	
+	/** Whether the world matrix of a slot was changed in the current update. */
+	private boolean[] changed;
+	
+	/** The components owning the slots. */
+	private MTComponent[] owners;
+	
+	/** The number of used slots, including released ones. */
+	private int size;
+	
+	/** The number of released slots. */
+	private int released;
+	
+	/** Whether any slot is dirty. */
+	private boolean anyDirty;
+	
+	/** Whether a parent doesnt come before its child anymore. */
+	private boolean orderBroken;
+	
+	/** The number of updates that did compute world matrices. */
+	private long updates;
+	
+	/** The number of times the slots were reordered. */
+	private long reorders;
+	
+	
+	/**
+	 * Instantiates a new transform store.
+	 */
+	public TransformStore(){
+		this(64);
+	}
+	
+	/**
+	 * Instantiates a new transform store.
+	 *
+	 * @param initialCapacity the initial number of slots
+	 */
+	public TransformStore(int initialCapacity){
+		int capacity = Math.max(1, initialCapacity);
+		this.local 		= new float[capacity * 16];
+		this.world 		= new float[capacity * 16];
+		this.parents 	= new int[capacity];
+		this.dirty 		= new boolean[capacity];
+		this.changed 	= new boolean[capacity];
+		this.owners 	= new MTComponent[capacity];
+	}
+	
+	
+	/**
+	 * Allocates a slot for the component. The local matrix is set to identity.
+	 *
+	 * @param owner the component owning the slot, informed by <code>setTransformSlot</code> if the slot changes. Can be null.
+	 * @param parentSlot the parent slot or <code>NO_PARENT</code>
+	 * @return the slot
+	 */
+	public int allocate(MTComponent owner, int parentSlot){
+		if (parentSlot != NO_PARENT){
+			this.checkSlot(parentSlot);
+		}
+		if (size == parents.length){
+			this.grow();
+		}
+		int slot = size++;
+		parents[slot] = parentSlot;
+		owners[slot] = owner;
+		setIdentity(local, slot * 16);
+		dirty[slot] = true;
+		anyDirty = true;
+		return slot;
+	}
+	
+	
+	/**
+	 * Releases the slot. The slot of a child of the slot has to be released or reparented, too.
+	 *
+	 * @param slot the slot
+	 */
+	public void release(int slot){
+		this.checkSlot(slot);
+		parents[slot] = FREE;
+		owners[slot] = null;
+		dirty[slot] = false;
+		released++;
+		if (released > 16 && released > size / 4){
+			//Compact at the next update
+			orderBroken = true;
+		}
+	}
+	
+	
+	/**
+	 * Changes the parent slot of the slot.
+	 *
+	 * @param slot the slot
+	 * @param parentSlot the new parent slot or <code>NO_PARENT</code>
+	 */
+	public void setParent(int slot, int parentSlot){
+		this.checkSlot(slot);
+		if (parentSlot != NO_PARENT){
+			this.checkSlot(parentSlot);
+			if (parentSlot > slot){
+				orderBroken = true;
+			}
+		}
+		parents[slot] = parentSlot;
+		dirty[slot] = true;
+		anyDirty = true;
+	}
+	
+	
+	/**
+	 * Gets the parent slot.
+	 *
+	 * @param slot the slot
+	 * @return the parent slot or <code>NO_PARENT</code>
+	 */
+	public int getParent(int slot){
+		this.checkSlot(slot);
+		return parents[slot];
+	}
+	
+	
+	/**
+	 * Copies the matrix into the local matrix of the slot.
+	 *
+	 * @param slot the slot
+	 * @param m the local matrix
+	 */
+	public void setLocal(int slot, Matrix m){
+		this.checkSlot(slot);
+		float[] a = local;
+		int o = slot * 16;
+		a[o] 	= m.m00; a[o+1]  = m.m01; a[o+2]  = m.m02; a[o+3]  = m.m03;
+		a[o+4] 	= m.m10; a[o+5]  = m.m11; a[o+6]  = m.m12; a[o+7]  = m.m13;
+		a[o+8] 	= m.m20; a[o+9]  = m.m21; a[o+10] = m.m22; a[o+11] = m.m23;
+		a[o+12] = m.m30; a[o+13] = m.m31; a[o+14] = m.m32; a[o+15] = m.m33;
+		dirty[slot] = true;
+		anyDirty = true;
+	}
+	
+	
+	/**
+	 * Copies the world matrix of the slot into the store matrix.
+	 * <br>The world matrix is only up to date after <code>update()</code>.
+	 *
+	 * @param slot the slot
+	 * @param store the matrix to store the result in
+	 * @return the store matrix
+	 */
+	public Matrix getWorld(int slot, Matrix store){
+		this.checkSlot(slot);
+		float[] a = world;
+		int o = slot * 16;
+		store.m00 = a[o]; 	 store.m01 = a[o+1];  store.m02 = a[o+2];  store.m03 = a[o+3];
+		store.m10 = a[o+4];  store.m11 = a[o+5];  store.m12 = a[o+6];  store.m13 = a[o+7];
+		store.m20 = a[o+8];  store.m21 = a[o+9];  store.m22 = a[o+10]; store.m23 = a[o+11];
+		store.m30 = a[o+12]; store.m31 = a[o+13]; store.m32 = a[o+14]; store.m33 = a[o+15];
+		return store;
+	}
+	
+	
+	/**
+	 * Checks if a world matrix has to be updated.
+	 *
+	 * @return true, if update() has work to do
+	 */
+	public boolean isDirty(){
+		return anyDirty;
+	}
+	
+	
+	/**
+	 * Updates the world matrices of all slots whose local matrix or parent changed 
+	 * and of all their descendants. Does nothing if nothing changed.
+	 */
+	public void update(){
+		if (!anyDirty){
+			return;
+		}
+		if (orderBroken){
+			this.reorder();
+		}
+		final float[] local = this.local;
+		final float[] world = this.world;
+		final int[] parents = this.parents;
+		final boolean[] dirty = this.dirty;
+		final boolean[] changed = this.changed;
+		for (int i = 0; i < size; i++) {
+			int p = parents[i];
+			if (p == FREE){
+				changed[i] = false;
+			}else if (p == NO_PARENT){
+				if (dirty[i]){
+					System.arraycopy(local, i * 16, world, i * 16, 16);
+					changed[i] = true;
+					dirty[i] = false;
+				}else{
+					changed[i] = false;
+				}
+			}else if (dirty[i] || changed[p]){
+				mult(world, p * 16, local, i * 16, world, i * 16);
+				changed[i] = true;
+				dirty[i] = false;
+			}else{
+				changed[i] = false;
+			}
+		}
+		anyDirty = false;
+		updates++;
+	}
+	
+	
+	/**
+	 * Reorders the slots, so that each parent comes before its children, and 
+	 * removes the released slots. 
+	 */
+	private void reorder(){
+		int n = size;
+		//Depth of each slot, walking up to a root or a slot with known depth
+		int[] depth = new int[n];
+		Arrays.fill(depth, -1);
+		int[] stack = new int[n];
+		int maxDepth = 0;
+		for (int i = 0; i < n; i++) {
+			if (parents[i] == FREE || depth[i] >= 0){
+				continue;
+			}
+			int sp = 0;
+			int s = i;
+			while (depth[s] < 0){
+				stack[sp++] = s;
+				if (parents[s] == NO_PARENT){
+					break;
+				}
+				s = parents[s];
+			}
+			int d = depth[s] >= 0 ? depth[s] : -1;
+			while (sp > 0){
+				depth[stack[--sp]] = ++d;
+			}
+			maxDepth = Math.max(maxDepth, d);
+		}
+		
+		//Counting sort by depth
+		int[] start = new int[maxDepth + 2];
+		for (int i = 0; i < n; i++) {
+			if (parents[i] != FREE){
+				start[depth[i] + 1]++;
+			}
+		}
+		for (int d = 1; d < start.length; d++) {
+			start[d] += start[d - 1];
+		}
+		int[] newSlot = new int[n];
+		Arrays.fill(newSlot, FREE);
+		int used = start[maxDepth + 1];
+		int[] order = new int[used];
+		for (int i = 0; i < n; i++) {
+			if (parents[i] != FREE){
+				int pos = start[depth[i]]++;
+				order[pos] = i;
+				newSlot[i] = pos;
+			}
+		}
+		
+		float[] newLocal = new float[local.length];
+		float[] newWorld = new float[world.length];
+		int[] newParents = new int[parents.length];
+		boolean[] newDirty = new boolean[dirty.length];
+		MTComponent[] newOwners = new MTComponent[owners.length];
+		for (int pos = 0; pos < used; pos++) {
+			int old = order[pos];
+			System.arraycopy(local, old * 16, newLocal, pos * 16, 16);
+			System.arraycopy(world, old * 16, newWorld, pos * 16, 16);
+			int p = parents[old];
+			newParents[pos] = p == NO_PARENT ? NO_PARENT : newSlot[p];
+			newDirty[pos] = dirty[old];
+			newOwners[pos] = owners[old];
+		}
+		this.local = newLocal;
+		this.world = newWorld;
+		this.parents = newParents;
+		this.dirty = newDirty;
+		this.owners = newOwners;
+		this.size = used;
+		this.released = 0;
+		this.orderBroken = false;
+		this.reorders++;
+		
+		for (int pos = 0; pos < used; pos++) {
+			if (owners[pos] != null){
+				owners[pos].setTransformSlot(pos);
+			}
+		}
+	}
+	
+	
+	private void grow(){
+		int capacity = parents.length * 2;
+		local 	= Arrays.copyOf(local, capacity * 16);
+		world 	= Arrays.copyOf(world, capacity * 16);
+		parents = Arrays.copyOf(parents, capacity);
+		dirty 	= Arrays.copyOf(dirty, capacity);
+		changed = Arrays.copyOf(changed, capacity);
+		owners 	= Arrays.copyOf(owners, capacity);
+	}
+	
+	
+	private void checkSlot(int slot){
+		if (slot < 0 || slot >= size || parents[slot] == FREE){
+			throw new IllegalArgumentException("Invalid transform slot: " + slot);
+		}
+	}
+	
+	
+	/**
+	 * Gets the number of slots in use.
+	 *
+	 * @return the slot count
+	 */
+	public int getSlotCount(){
+		return size - released;
+	}
+	
+	/**
+	 * Gets the number of updates that computed world matrices.
+	 *
+	 * @return the update count
+	 */
+	public long getUpdateCount(){
+		return updates;
+	}
+	
+	/**
+	 * Gets the number of times the slots were reordered.
+	 *
+	 * @return the reorder count
+	 */
+	public long getReorderCount(){
+		return reorders;
+	}
+	
+	
+	private static void setIdentity(float[] a, int o){
+		Arrays.fill(a, o, o + 16, 0f);
+		a[o] = a[o+5] = a[o+10] = a[o+15] = 1f;
+	}
+	
+	
+	/**
+	 * Multiplies the matrices a and b (a * b) and stores the result in c.
+	 * c may be the same array as a or b, but the result must not overlap a or b.
+	 */
+	private static void mult(float[] a, int ao, float[] b, int bo, float[] c, int co){
+		for (int r = 0; r < 4; r++) {
+			float a0 = a[ao + r*4];
+			float a1 = a[ao + r*4 + 1];
+			float a2 = a[ao + r*4 + 2];
+			float a3 = a[ao + r*4 + 3];
+			int ro = co + r*4;
+			c[ro] 	  = a0 * b[bo] 	   + a1 * b[bo + 4] + a2 * b[bo + 8]  + a3 * b[bo + 12];
+			c[ro + 1] = a0 * b[bo + 1] + a1 * b[bo + 5] + a2 * b[bo + 9]  + a3 * b[bo + 13];
+			c[ro + 2] = a0 * b[bo + 2] + a1 * b[bo + 6] + a2 * b[bo + 10] + a3 * b[bo + 14];
+			c[ro + 3] = a0 * b[bo + 3] + a1 * b[bo + 7] + a2 * b[bo + 11] + a3 * b[bo + 15];
+		}
+	}
+	
+}
@@ -0,0 +1,531 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.components.bounds;
+
+import java.util.Arrays;
+
+import org.mt4j.util.math.Matrix;
+
+
+/**
+ * A bounding volume hierarchy of axis aligned boxes.
+ * <p>
+ * The leaves are identified by integer ids, their boxes are given as 6 floats
+ * per leaf (minX, minY, minZ, maxX, maxY, maxZ). The tree is built top down by
+ * splitting the leaves at the median of their box centers along the longest axis,
+ * so its depth is logarithmic in the number of leaves.
+ * <br>When a leaf moves, its box can be updated with <code>refit()</code> which
+ * only updates the nodes on the path to the root. Refitting doesn't change the
+ * topology, so the tree should be rebuilt once a lot of leaves have moved
+ * (see <code>getRefitCount()</code>).
+ * <p>
+ * The hierarchy doesn't allocate any objects while querying or refitting.
+ */
+public class BoundingVolumeHierarchy {
+
+	/** The node boxes, 6 floats per node. */
+	private float[] nodeBounds;
+
+	/** The left child of each node, -1 for leaf nodes. */
+	private int[] nodeLeft;
+
+	/** The right child of each node. */
+	private int[] nodeRight;
+
+	/** The parent of each node, -1 for the root. */
+	private int[] nodeParent;
+
+	/** The leaf id of each leaf node, -1 for inner nodes. */
+	private int[] nodeLeaf;
+
+	/** The node of each leaf id, -1 if the id isnt part of the hierarchy. */
+	private int[] leafNode;
+
+	/** The node count. */
+	private int nodeCount;
+
+	/** The leaf count. */
+	private int leafCount;
+
+	/** The traversal stack used by the queries. */
+	private int[] stack;
+
+	/** The traversal stack of node pairs used by the overlap query. */
+	private int[] pairStack;
+
+	/** The box of a node of the other hierarchy, transformed into this hierarchy's space. */
+	private float[] transformedBox;
+
+	/** The number of refitted leaves since the last build. */
+	private int refitCount;
+
+	/** Scratch arrays used during the build. */
+	private int[] buildOrder;
+	private float[] buildCenters;
+
+
+	/**
+	 * Instantiates a new, empty bounding volume hierarchy.
+	 */
+	public BoundingVolumeHierarchy() {
+		this.nodeBounds = new float[0];
+		this.nodeLeft 	= new int[0];
+		this.nodeRight 	= new int[0];
+		this.nodeParent = new int[0];
+		this.nodeLeaf 	= new int[0];
+		this.leafNode 	= new int[0];
+		this.stack 		= new int[0];
+		this.pairStack 	= new int[0];
+		this.transformedBox = new float[6];
+		this.buildOrder = new int[0];
+		this.buildCenters = new float[0];
+		this.nodeCount 	= 0;
+		this.leafCount 	= 0;
+	}
+
+
+	/**
+	 * Rebuilds the hierarchy from the specified leaves.
+	 *
+	 * @param leafIds the ids of the leaves to insert - ids have to be >= 0 and unique
+	 * @param count the number of ids to use from the <code>leafIds</code> array
+	 * @param leafBounds the boxes of the leaves, indexed by the leaf id (6 floats per id)
+	 */
+	public void build(int[] leafIds, int count, float[] leafBounds){
+		int maxId = -1;
+		for (int i = 0; i < count; i++) {
+			maxId = Math.max(maxId, leafIds[i]);
+		}
+		int nodes = Math.max(0, 2 * count - 1);
+		if (nodeLeft.length < nodes){
+			nodeBounds 	= new float[nodes * 6];
+			nodeLeft 	= new int[nodes];
+			nodeRight 	= new int[nodes];
+			nodeParent 	= new int[nodes];
+			nodeLeaf 	= new int[nodes];
+		}
+		if (leafNode.length < maxId + 1){
+			leafNode = new int[maxId + 1];
+		}
+		Arrays.fill(leafNode, -1);
+		if (buildOrder.length < count){
+			buildOrder 	 = new int[count];
+			buildCenters = new float[count];
+		}
+		System.arraycopy(leafIds, 0, buildOrder, 0, count);
+
+		this.nodeCount 	= 0;
+		this.leafCount 	= count;
+		this.refitCount = 0;
+		int depth = 0;
+		if (count > 0){
+			depth = this.buildRecursive(0, count, -1, leafBounds);
+		}
+		if (stack.length < depth + 1){
+			stack = new int[depth + 1];
+		}
+	}
+
+
+	/**
+	 * Builds the subtree for the leaves in the specified range of the build order.
+	 *
+	 * @return the depth of the subtree
+	 */
+	private int buildRecursive(int start, int end, int parent, float[] leafBounds){
+		int node = nodeCount++;
+		nodeParent[node] = parent;
+		int b = node * 6;
+
+		if (end - start == 1){
+			int leaf = buildOrder[start];
+			System.arraycopy(leafBounds, leaf * 6, nodeBounds, b, 6);
+			nodeLeft[node] 	= -1;
+			nodeRight[node] = -1;
+			nodeLeaf[node] 	= leaf;
+			leafNode[leaf] 	= node;
+			return 1;
+		}
+		nodeLeaf[node] = -1;
+
+		//Find the axis with the largest spread of the box centers
+		float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, minZ = Float.MAX_VALUE;
+		float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+		for (int i = start; i < end; i++) {
+			int l = buildOrder[i] * 6;
+			float cx = (leafBounds[l]     + leafBounds[l + 3]) * 0.5f;
+			float cy = (leafBounds[l + 1] + leafBounds[l + 4]) * 0.5f;
+			float cz = (leafBounds[l + 2] + leafBounds[l + 5]) * 0.5f;
+			minX = Math.min(minX, cx); maxX = Math.max(maxX, cx);
+			minY = Math.min(minY, cy); maxY = Math.max(maxY, cy);
+			minZ = Math.min(minZ, cz); maxZ = Math.max(maxZ, cz);
+		}
+		int axis = 0;
+		float spread = maxX - minX;
+		if (maxY - minY > spread){
+			axis = 1;
+			spread = maxY - minY;
+		}
+		if (maxZ - minZ > spread){
+			axis = 2;
+		}
+		for (int i = start; i < end; i++) {
+			int l = buildOrder[i] * 6;
+			buildCenters[i] = leafBounds[l + axis] + leafBounds[l + 3 + axis];
+		}
+
+		int mid = (start + end) >>> 1;
+		selectMedian(start, end - 1, mid);
+
+		int left = nodeCount;
+		int leftDepth = this.buildRecursive(start, mid, node, leafBounds);
+		int right = nodeCount;
+		int rightDepth = this.buildRecursive(mid, end, node, leafBounds);
+		nodeLeft[node] 	= left;
+		nodeRight[node] = right;
+		this.unionChildren(node);
+		return 1 + Math.max(leftDepth, rightDepth);
+	}
+
+
+	/**
+	 * Partially sorts the build order in [lo, hi] so that the element at index k
+	 * is at its sorted position (quickselect on the build centers).
+	 */
+	private void selectMedian(int lo, int hi, int k){
+		while (hi > lo){
+			float pivot = buildCenters[(lo + hi) >>> 1];
+			int i = lo;
+			int j = hi;
+			while (i <= j){
+				while (buildCenters[i] < pivot) i++;
+				while (buildCenters[j] > pivot) j--;
+				if (i <= j){
+					float c = buildCenters[i]; buildCenters[i] = buildCenters[j]; buildCenters[j] = c;
+					int o = buildOrder[i]; buildOrder[i] = buildOrder[j]; buildOrder[j] = o;
+					i++;
+					j--;
+				}
+			}
+			if (k <= j){
+				hi = j;
+			}else if (k >= i){
+				lo = i;
+			}else{
+				return;
+			}
+		}
+	}
+
+
+	/**
+	 * Sets the box of the node to the union of its children's boxes.
+	 */
+	private void unionChildren(int node){
+		int b = node * 6;
+		int l = nodeLeft[node] * 6;
+		int r = nodeRight[node] * 6;
+		nodeBounds[b]     = Math.min(nodeBounds[l],     nodeBounds[r]);
+		nodeBounds[b + 1] = Math.min(nodeBounds[l + 1], nodeBounds[r + 1]);
+		nodeBounds[b + 2] = Math.min(nodeBounds[l + 2], nodeBounds[r + 2]);
+		nodeBounds[b + 3] = Math.max(nodeBounds[l + 3], nodeBounds[r + 3]);
+		nodeBounds[b + 4] = Math.max(nodeBounds[l + 4], nodeBounds[r + 4]);
+		nodeBounds[b + 5] = Math.max(nodeBounds[l + 5], nodeBounds[r + 5]);
+	}
+
+
+	/**
+	 * Updates the box of a leaf and of all its ancestors.
+	 *
+	 * @param leafId the leaf id
+	 * @param leafBounds the boxes of the leaves, indexed by the leaf id (6 floats per id)
+	 * @return true, if the leaf is part of the hierarchy and was refitted
+	 */
+	public boolean refit(int leafId, float[] leafBounds){
+		if (!this.contains(leafId)){
+			return false;
+		}
+		int node = leafNode[leafId];
+		System.arraycopy(leafBounds, leafId * 6, nodeBounds, node * 6, 6);
+		node = nodeParent[node];
+		while (node != -1){
+			this.unionChildren(node);
+			node = nodeParent[node];
+		}
+		refitCount++;
+		return true;
+	}
+
+
+	/**
+	 * Checks if the leaf with the specified id is part of the hierarchy.
+	 *
+	 * @param leafId the leaf id
+	 * @return true, if successful
+	 */
+	public boolean contains(int leafId){
+		return leafId >= 0 && leafId < leafNode.length && leafNode[leafId] != -1;
+	}
+
+
+	/**
+	 * Collects the ids of all leaves whose box is intersected by the infinite line through
+	 * the specified point along the specified direction.
+	 * The boxes are enlarged by the tolerance before testing.
+	 *
+	 * @param originX the x coordinate of a point on the line
+	 * @param originY the y coordinate of a point on the line
+	 * @param originZ the z coordinate of a point on the line
+	 * @param dirX the x component of the line direction
+	 * @param dirY the y component of the line direction
+	 * @param dirZ the z component of the line direction
+	 * @param tolerance the tolerance
+	 * @param result the array to store the leaf ids in, needs a length of at least <code>getLeafCount()</code>
+	 * @return the number of leaf ids written to the result array
+	 */
+	public int queryLine(float originX, float originY, float originZ, float dirX, float dirY, float dirZ, float tolerance, int[] result){
+		if (leafCount == 0){
+			return 0;
+		}
+		int found = 0;
+		int top = 0;
+		stack[top++] = 0;
+		while (top > 0){
+			int node = stack[--top];
+			int b = node * 6;
+			if (!intersectsLine(
+					nodeBounds[b] - tolerance, nodeBounds[b + 1] - tolerance, nodeBounds[b + 2] - tolerance,
+					nodeBounds[b + 3] + tolerance, nodeBounds[b + 4] + tolerance, nodeBounds[b + 5] + tolerance,
+					originX, originY, originZ, dirX, dirY, dirZ)
+			){
+				continue;
+			}
+			if (nodeLeaf[node] != -1){
+				result[found++] = nodeLeaf[node];
+			}else{
+				stack[top++] = nodeRight[node];
+				stack[top++] = nodeLeft[node];
+			}
+		}
+		return found;
+	}
+
+
+	/**
+	 * Visits all pairs of leaves of this and the other hierarchy whose boxes overlap.
+	 * The boxes of the other hierarchy are transformed into the space of this hierarchy
+	 * by the specified matrix. The transformed boxes are enclosed by axis aligned boxes
+	 * again, so the test is conservative.
+	 *
+	 * @param other the other hierarchy
+	 * @param otherToThis the transformation from the space of the other hierarchy to the space of this hierarchy, null for the identity
+	 * @param visitor the visitor called with the ids of each pair of overlapping leaves
+	 * @return true, if the visitor stopped the query
+	 */
+	public boolean queryOverlap(BoundingVolumeHierarchy other, Matrix otherToThis, LeafPairVisitor visitor){
+		if (leafCount == 0 || other.leafCount == 0){
+			return false;
+		}
+		int top = 0;
+		top = this.pushPair(top, 0, 0);
+		while (top > 0){
+			int nodeB = pairStack[--top];
+			int nodeA = pairStack[--top];
+			float[] boxB = this.transformBox(other.nodeBounds, nodeB, otherToThis);
+			int a = nodeA * 6;
+			if (nodeBounds[a] > boxB[3] || nodeBounds[a + 3] < boxB[0]
+			 || nodeBounds[a + 1] > boxB[4] || nodeBounds[a + 4] < boxB[1]
+			 || nodeBounds[a + 2] > boxB[5] || nodeBounds[a + 5] < boxB[2]
+			){
+				continue;
+			}
+			boolean leafA = nodeLeaf[nodeA] != -1;
+			boolean leafB = other.nodeLeaf[nodeB] != -1;
+			if (leafA && leafB){
+				if (visitor.visit(nodeLeaf[nodeA], other.nodeLeaf[nodeB])){
+					return true;
+				}
+			}else if (leafB || (!leafA && getSize(nodeBounds, nodeA) >= getSize(boxB, 0))){
+				//Descend into the larger box
+				top = this.pushPair(top, nodeRight[nodeA], nodeB);
+				top = this.pushPair(top, nodeLeft[nodeA], nodeB);
+			}else{
+				top = this.pushPair(top, nodeA, other.nodeRight[nodeB]);
+				top = this.pushPair(top, nodeA, other.nodeLeft[nodeB]);
+			}
+		}
+		return false;
+	}
+
+
+	private int pushPair(int top, int nodeA, int nodeB){
+		if (top + 2 > pairStack.length){
+			pairStack = Arrays.copyOf(pairStack, Math.max(64, pairStack.length * 2));
+		}
+		pairStack[top++] = nodeA;
+		pairStack[top++] = nodeB;
+		return top;
+	}
+
+
+	/**
+	 * Gets the sum of the edge lengths of a box.
+	 */
+	private static float getSize(float[] bounds, int box){
+		int b = box * 6;
+		return (bounds[b + 3] - bounds[b]) + (bounds[b + 4] - bounds[b + 1]) + (bounds[b + 5] - bounds[b + 2]);
+	}
+
+
+	/**
+	 * Transforms the box of a node and encloses it by an axis aligned box again.
+	 */
+	private float[] transformBox(float[] bounds, int node, Matrix m){
+		int b = node * 6;
+		float[] box = transformedBox;
+		if (m == null){
+			System.arraycopy(bounds, b, box, 0, 6);
+			return box;
+		}
+		float cx = (bounds[b] + bounds[b + 3]) * 0.5f;
+		float cy = (bounds[b + 1] + bounds[b + 4]) * 0.5f;
+		float cz = (bounds[b + 2] + bounds[b + 5]) * 0.5f;
+		float ex = (bounds[b + 3] - bounds[b]) * 0.5f;
+		float ey = (bounds[b + 4] - bounds[b + 1]) * 0.5f;
+		float ez = (bounds[b + 5] - bounds[b + 2]) * 0.5f;
+
+		float tcx = m.m00 * cx + m.m01 * cy + m.m02 * cz + m.m03;
+		float tcy = m.m10 * cx + m.m11 * cy + m.m12 * cz + m.m13;
+		float tcz = m.m20 * cx + m.m21 * cy + m.m22 * cz + m.m23;
+		float tex = Math.abs(m.m00) * ex + Math.abs(m.m01) * ey + Math.abs(m.m02) * ez;
+		float tey = Math.abs(m.m10) * ex + Math.abs(m.m11) * ey + Math.abs(m.m12) * ez;
+		float tez = Math.abs(m.m20) * ex + Math.abs(m.m21) * ey + Math.abs(m.m22) * ez;
+
+		box[0] = tcx - tex;
+		box[1] = tcy - tey;
+		box[2] = tcz - tez;
+		box[3] = tcx + tex;
+		box[4] = tcy + tey;
+		box[5] = tcz + tez;
+		return box;
+	}
+
+
+	/**
+	 * Checks if an axis aligned box is intersected by an infinite line (slab test).
+	 */
+	private static boolean intersectsLine(float minX, float minY, float minZ, float maxX, float maxY, float maxZ,
+			float ox, float oy, float oz, float dx, float dy, float dz)
+	{
+		float tNear = -Float.MAX_VALUE;
+		float tFar 	= Float.MAX_VALUE;
+
+		if (dx == 0){
+			if (ox < minX || ox > maxX) return false;
+		}else{
+			float t1 = (minX - ox) / dx;
+			float t2 = (maxX - ox) / dx;
+			tNear = Math.max(tNear, Math.min(t1, t2));
+			tFar  = Math.min(tFar,  Math.max(t1, t2));
+		}
+		if (dy == 0){
+			if (oy < minY || oy > maxY) return false;
+		}else{
+			float t1 = (minY - oy) / dy;
+			float t2 = (maxY - oy) / dy;
+			tNear = Math.max(tNear, Math.min(t1, t2));
+			tFar  = Math.min(tFar,  Math.max(t1, t2));
+		}
+		if (dz == 0){
+			if (oz < minZ || oz > maxZ) return false;
+		}else{
+			float t1 = (minZ - oz) / dz;
+			float t2 = (maxZ - oz) / dz;
+			tNear = Math.max(tNear, Math.min(t1, t2));
+			tFar  = Math.min(tFar,  Math.max(t1, t2));
+		}
+		return tNear <= tFar;
+	}
+
+
+	/**
+	 * Gets the number of leaves in the hierarchy.
+	 *
+	 * @return the leaf count
+	 */
+	public int getLeafCount() {
+		return leafCount;
+	}
+
+	/**
+	 * Gets the depth of the hierarchy.
+	 *
+	 * @return the depth
+	 */
+	public int getDepth() {
+		int depth = 0;
+		for (int i = 0; i < nodeCount; i++) {
+			if (nodeLeaf[i] != -1){
+				int d = 1;
+				int n = nodeParent[i];
+				while (n != -1){
+					d++;
+					n = nodeParent[n];
+				}
+				depth = Math.max(depth, d);
+			}
+		}
+		return depth;
+	}
+
+	/**
+	 * Gets the number of leaves that were refitted since the last build.
+	 *
+	 * @return the refit count
+	 */
+	public int getRefitCount() {
+		return refitCount;
+	}
+
+
+	/**
+	 * Gets the box enclosing all leaves.
+	 *
+	 * @return the bounds (minX, minY, minZ, maxX, maxY, maxZ) or null if the hierarchy is empty
+	 */
+	public float[] getBounds(){
+		return leafCount == 0 ? null : Arrays.copyOf(nodeBounds, 6);
+	}
+
+
+	/**
+	 * Visits pairs of overlapping leaves found by <code>queryOverlap()</code>.
+	 */
+	public interface LeafPairVisitor {
+
+		/**
+		 * Called for a pair of leaves whose boxes overlap.
+		 *
+		 * @param leafId the id of the leaf of the queried hierarchy
+		 * @param otherLeafId the id of the leaf of the other hierarchy
+		 * @return true to stop the query
+		 */
+		public boolean visit(int leafId, int otherLeafId);
+	}
+
+}
@@ -137,7 +137,7 @@ public class BitmapFont implements IFont {
 	public IFontCharacter getFontCharacterByName(String characterName){
 		BitmapFontCharacter returnChar = charNameToChar.get(characterName);
 		if (returnChar == null)
-			logger.warn("Font couldnt load charactername: " + characterName);
+			logger.warn("Font couldnt load charactername: {}", characterName);
 		return returnChar;
 	}
 	
@@ -149,7 +149,10 @@ public class BitmapFont implements IFont {
 	public IFontCharacter getFontCharacterByUnicode(String unicode){
 		BitmapFontCharacter returnChar = uniCodeToChar.get(unicode);
 		if (returnChar == null){
-			logger.warn("Font couldnt load characterunicode: '" + unicode + "'");
+			//Warn only once per character, missing characters are put on the ignore list
+			if (!isInNotAvailableList(unicode)){
+				logger.warn("Font couldnt load characterunicode: '{}'", unicode);
+			}
 			
 			//This is a kind of hacky way to try to dynamically load characters from
 			//a font that were not loaded by default. 
@@ -173,19 +176,22 @@ public class BitmapFont implements IFont {
 							newArray[newArray.length-1] = loadedCharacter;
 							this.setCharacters(newArray);
 							returnChar = loadedCharacter;
-							logger.debug("Re-loaded missing character: '" + unicode + "' from the font: " + this.fontFileName);
+							logger.debug("Re-loaded missing character: '{}' from the font: {}", unicode, this.fontFileName);
 						}
 					}
 				}
 				
 				if (returnChar == null){
 					if (!isInNotAvailableList(unicode)){
-						logger.debug("Couldnt re-load the character: '" + unicode + "' -> adding to ignore list.");
+						logger.debug("Couldnt re-load the character: '{}' -> adding to ignore list.", unicode);
 						notAvailableChars.add(unicode);	
 					}
 				}
 			}
 			
+			if (returnChar == null && !isInNotAvailableList(unicode)){
+				notAvailableChars.add(unicode);
+			}
 		}
 		return returnChar;
 	}
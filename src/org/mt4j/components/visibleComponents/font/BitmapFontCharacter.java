@@ -23,6 +23,7 @@ import javax.media.opengl.GL;
 
 import org.mt4j.components.bounds.IBoundingShape;
 import org.mt4j.components.visibleComponents.shapes.MTRectangle;
+import org.mt4j.util.FrameProfiler;
 import org.mt4j.util.MT4jSettings;
 import org.mt4j.util.math.Vertex;
 import org.mt4j.util.opengl.GLTexture;
@@ -61,6 +62,46 @@ public class BitmapFontCharacter extends MTRectangle implements IFontCharacter {
 	 */
 	public BitmapFontCharacter(PApplet applet, PImage texture, String unicode, int leftOffset, int topOffset, int horizontalAdvance) {
 		super(applet, new Vertex(leftOffset, topOffset,0), texture.width, texture.height);
+		this.init(texture, unicode, leftOffset, horizontalAdvance);
+	}
+	
+	
+	/**
+	 * Instantiates a new bitmap font character that uses a region of a shared
+	 * glyph atlas texture.
+	 *
+	 * @param applet the applet
+	 * @param atlasTexture the atlas texture (power of two dimensions)
+	 * @param atlasX the x position of the glyph image in the atlas
+	 * @param atlasY the y position of the glyph image in the atlas
+	 * @param width the width of the glyph image
+	 * @param height the height of the glyph image
+	 * @param unicode the unicode
+	 * @param leftOffset the left offset
+	 * @param topOffset the top offset
+	 * @param horizontalAdvance the horizontal advance
+	 */
+	public BitmapFontCharacter(PApplet applet, PImage atlasTexture, int atlasX, int atlasY, int width, int height, String unicode, int leftOffset, int topOffset, int horizontalAdvance) {
+		super(applet, new Vertex(leftOffset, topOffset,0), width, height);
+		
+		//Use the glyph's region of the atlas (normalized texture coordinates)
+		float u0 = atlasX / (float)atlasTexture.width;
+		float v0 = atlasY / (float)atlasTexture.height;
+		float u1 = (atlasX + width) / (float)atlasTexture.width;
+		float v1 = (atlasY + height) / (float)atlasTexture.height;
+		Vertex[] vertices = this.getGeometryInfo().getVertices();
+		vertices[0].setTexCoordU(u0); vertices[0].setTexCoordV(v0);
+		vertices[1].setTexCoordU(u1); vertices[1].setTexCoordV(v0);
+		vertices[2].setTexCoordU(u1); vertices[2].setTexCoordV(v1);
+		vertices[3].setTexCoordU(u0); vertices[3].setTexCoordV(v1);
+		vertices[4].setTexCoordU(u0); vertices[4].setTexCoordV(v0);
+		this.getGeometryInfo().updateTextureBuffer(false);
+		
+		this.init(atlasTexture, unicode, leftOffset, horizontalAdvance);
+	}
+	
+	
+	private void init(PImage texture, String unicode, int leftOffset, int horizontalAdvance){
 		//hm..this is for the card loading, because
 		//when we init gl texture in other thread it breaks..
 //		this.setUseDirectGL(false);
@@ -123,6 +164,7 @@ public class BitmapFontCharacter extends MTRectangle implements IFontCharacter {
 //		/*
 		if (MT4jSettings.getInstance().isOpenGlMode()){
 			if (this.isUseDisplayList() && this.getGeometryInfo().getDisplayListIDs()[0] != -1){
+				FrameProfiler.countTextureBinds(this.getGeometryInfo().getFillDisplayListTextureBinds());
 				gl.glCallList(this.getGeometryInfo().getDisplayListIDs()[0]);
 //				gl.glCallList(this.getGeometryInfo().getDisplayListIDs()[1]); //Outline rectangle
 			}else{
@@ -163,6 +205,7 @@ public class BitmapFontCharacter extends MTRectangle implements IFontCharacter {
 				//tells opengl which texture to reference in following calls from now on!
 				//the first parameter is eigher GL.GL_TEXTURE_2D or ..1D
 				gl.glEnable(textureTarget);
+				FrameProfiler.countTextureBind();
 				gl.glBindTexture(textureTarget, tex.getTextureID());
 				
 				gl.glEnableClientState(GL.GL_TEXTURE_COORD_ARRAY);
@@ -0,0 +1,273 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.components.visibleComponents.font;
+
+import org.mt4j.util.math.Vertex;
+
+
+/**
+ * Lays out a run of characters the same way the <code>MTTextArea</code> does and collects
+ * the textured quads of the characters into one interleaved vertex array.
+ * <p>
+ * Each vertex has the layout of <code>GL_T2F_V3F</code> (u, v, x, y, z). Consecutive quads
+ * with the same texture are put into the same group, so a run of glyphs from one atlas page
+ * can be drawn with a single draw call.
+ * <br>The buffer also computes where the caret would be drawn after the last character.
+ * <p>
+ * Usage: <code>begin()</code>, <code>addCharacter()</code> for each character, <code>end()</code>.
+ */
+public class TextRunBuffer {
+
+	/** The number of floats per vertex (u, v, x, y, z). */
+	public static final int FLOATS_PER_VERTEX = 5;
+
+	/** The interleaved vertex data. */
+	private float[] data;
+
+	/** The number of quads. */
+	private int quadCount;
+
+	//Groups of consecutive quads with the same texture
+	private Object[] groupTextures;
+	private int[] groupFirstQuads;
+	private int[] groupQuadCounts;
+	private int groupCount;
+
+	//Layout state
+	private int innerPaddingLeft;
+	private int lineHeight;
+	private float penX;
+	private float penY;
+	private int lastXAdvancement;
+	private int lineTotalXAdvancement;
+	private int characterCount;
+	private String lastUnicode;
+	private int lastHorizontalDist;
+
+	private float caretX;
+	private float caretY;
+
+
+	/**
+	 * Instantiates a new text run buffer.
+	 */
+	public TextRunBuffer(){
+		this.data = new float[64 * 4 * FLOATS_PER_VERTEX];
+		this.groupTextures = new Object[4];
+		this.groupFirstQuads = new int[4];
+		this.groupQuadCounts = new int[4];
+	}
+
+
+	/**
+	 * Starts a new run and discards the old one.
+	 *
+	 * @param innerPaddingLeft the space left of each line
+	 * @param lineHeight the height of a line
+	 */
+	public void begin(int innerPaddingLeft, int lineHeight){
+		this.innerPaddingLeft = innerPaddingLeft;
+		this.lineHeight = lineHeight;
+		this.quadCount = 0;
+		this.groupCount = 0;
+		this.penX = 0;
+		this.penY = 0;
+		this.lastXAdvancement = innerPaddingLeft;
+		this.lineTotalXAdvancement = 0;
+		this.characterCount = 0;
+		this.lastUnicode = null;
+		this.lastHorizontalDist = 0;
+		for (int i = 0; i < groupTextures.length; i++) {
+			groupTextures[i] = null;
+		}
+	}
+
+
+	/**
+	 * Adds the next character of the run.
+	 *
+	 * @param unicode the unicode of the character, a "\n" starts a new line
+	 * @param horizontalDist the horizontal advancement of the character
+	 * @param quad the first 4 vertices of the character's rectangle (with texture coordinates)
+	 * relative to the pen position, or null if the character doesn't draw anything
+	 * @param texture the texture of the quad
+	 */
+	public void addCharacter(String unicode, int horizontalDist, Vertex[] quad, Object texture){
+		//Step to the right by the amount of the last characters x advancement
+		penX += lastXAdvancement;
+		lineTotalXAdvancement += lastXAdvancement;
+		lastXAdvancement = 0;
+
+		if (quad != null){
+			this.addQuad(quad, texture);
+		}
+
+		if (unicode.equals("\n")){
+			penX -= lineTotalXAdvancement;
+			penY += lineHeight;
+			lineTotalXAdvancement = 0;
+			lastXAdvancement = innerPaddingLeft;
+		}else{
+			lastXAdvancement = horizontalDist;
+		}
+		lastUnicode = unicode;
+		lastHorizontalDist = horizontalDist;
+		characterCount++;
+	}
+
+
+	/**
+	 * Ends the run and computes the caret position.
+	 */
+	public void end(){
+		if (characterCount == 0){
+			caretX = 0;
+			caretY = 0;
+		}else if (lastUnicode.equals("\n")){
+			caretX = penX + innerPaddingLeft;
+			caretY = penY;
+		}else{
+			//Same approximation as the text area uses when the caret is drawn
+			int caretAdvancement;
+			if (lastUnicode.equals("\t")){
+				caretAdvancement = lastHorizontalDist - lastHorizontalDist / 20;
+			}else{
+				caretAdvancement = 2 + lastHorizontalDist - (lastHorizontalDist / 3);
+			}
+			caretX = penX + caretAdvancement;
+			caretY = penY;
+		}
+	}
+
+
+	private void addQuad(Vertex[] quad, Object texture){
+		int needed = (quadCount + 1) * 4 * FLOATS_PER_VERTEX;
+		if (needed > data.length){
+			float[] newData = new float[Math.max(needed, data.length * 2)];
+			System.arraycopy(data, 0, newData, 0, quadCount * 4 * FLOATS_PER_VERTEX);
+			data = newData;
+		}
+		int offset = quadCount * 4 * FLOATS_PER_VERTEX;
+		for (int i = 0; i < 4; i++) {
+			Vertex v = quad[i];
+			data[offset++] = v.getTexCoordU();
+			data[offset++] = v.getTexCoordV();
+			data[offset++] = penX + v.x;
+			data[offset++] = penY + v.y;
+			data[offset++] = v.z;
+		}
+
+		if (groupCount == 0 || groupTextures[groupCount - 1] != texture){
+			if (groupCount == groupTextures.length){
+				Object[] textures = new Object[groupCount * 2];
+				System.arraycopy(groupTextures, 0, textures, 0, groupCount);
+				groupTextures = textures;
+				int[] first = new int[groupCount * 2];
+				System.arraycopy(groupFirstQuads, 0, first, 0, groupCount);
+				groupFirstQuads = first;
+				int[] counts = new int[groupCount * 2];
+				System.arraycopy(groupQuadCounts, 0, counts, 0, groupCount);
+				groupQuadCounts = counts;
+			}
+			groupTextures[groupCount] = texture;
+			groupFirstQuads[groupCount] = quadCount;
+			groupQuadCounts[groupCount] = 0;
+			groupCount++;
+		}
+		groupQuadCounts[groupCount - 1]++;
+		quadCount++;
+	}
+
+
+	/**
+	 * Gets the interleaved vertex data (u, v, x, y, z). Only the first
+	 * <code>getQuadCount() * 4 * FLOATS_PER_VERTEX</code> values are valid.
+	 *
+	 * @return the data
+	 */
+	public float[] getData() {
+		return data;
+	}
+
+	/**
+	 * Gets the number of quads.
+	 *
+	 * @return the quad count
+	 */
+	public int getQuadCount() {
+		return quadCount;
+	}
+
+	/**
+	 * Gets the number of groups of consecutive quads sharing a texture.
+	 *
+	 * @return the group count
+	 */
+	public int getGroupCount() {
+		return groupCount;
+	}
+
+	/**
+	 * Gets the texture of a group.
+	 *
+	 * @param group the group index
+	 * @return the texture
+	 */
+	public Object getGroupTexture(int group){
+		return groupTextures[group];
+	}
+
+	/**
+	 * Gets the index of the first quad of a group.
+	 *
+	 * @param group the group index
+	 * @return the first quad
+	 */
+	public int getGroupFirstQuad(int group){
+		return groupFirstQuads[group];
+	}
+
+	/**
+	 * Gets the number of quads of a group.
+	 *
+	 * @param group the group index
+	 * @return the quad count
+	 */
+	public int getGroupQuadCount(int group){
+		return groupQuadCounts[group];
+	}
+
+	/**
+	 * Gets the x position of the caret after the last character.
+	 *
+	 * @return the caret x
+	 */
+	public float getCaretX() {
+		return caretX;
+	}
+
+	/**
+	 * Gets the y position of the caret after the last character.
+	 *
+	 * @return the caret y
+	 */
+	public float getCaretY() {
+		return caretY;
+	}
+
+}
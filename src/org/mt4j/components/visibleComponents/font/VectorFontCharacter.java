@@ -26,11 +26,12 @@ import javax.media.opengl.GL;
 import org.mt4j.components.bounds.IBoundingShape;
 import org.mt4j.components.visibleComponents.shapes.GeometryInfo;
 import org.mt4j.components.visibleComponents.shapes.mesh.MTTriangleMesh;
+import org.mt4j.util.FrameProfiler;
+import org.mt4j.util.math.PolygonTriangulator;
 import org.mt4j.util.math.Tools3D;
 import org.mt4j.util.math.ToolsGeometry;
 import org.mt4j.util.math.Vertex;
 import org.mt4j.util.opengl.GLTexture;
-import org.mt4j.util.opengl.GluTrianglulator;
 
 import processing.core.PApplet;
 import processing.core.PGraphics;
@@ -71,14 +72,11 @@ public class VectorFontCharacter extends
 		List<Vertex[]> bezierContours = ToolsGeometry.createVertexArrFromBezierVertexArrays(contours, segments);
 		
 		//Triangulate bezier contours
-		GluTrianglulator triangulator = new GluTrianglulator(pApplet);
-		List<Vertex> tris = triangulator.tesselate(bezierContours);
+		List<Vertex> tris = new PolygonTriangulator().triangulate(bezierContours);
 		//Set new geometry info with triangulated vertices
 		super.setGeometryInfo(new GeometryInfo(pApplet, tris.toArray(new Vertex[tris.size()])));
 		//Set Mesh outlines
 		this.setOutlineContours(bezierContours);
-		//Delete triangulator (C++ object)
-		triangulator.deleteTess(); 
 //		*/
 		
 		this.setPickable(false);
@@ -148,6 +146,7 @@ public class VectorFontCharacter extends
 				//tells opengl which texture to reference in following calls from now on!
 				//the first parameter is eigher GL.GL_TEXTURE_2D or ..1D
 				gl.glEnable(textureTarget);
+				FrameProfiler.countTextureBind();
 				gl.glBindTexture(textureTarget, tex.getTextureID());
 				gl.glEnableClientState(GL.GL_TEXTURE_COORD_ARRAY);
 				
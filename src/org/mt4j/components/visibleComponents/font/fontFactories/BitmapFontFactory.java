@@ -34,6 +34,31 @@ public class BitmapFontFactory implements IFontFactory {
 	/** The proxy. */
 	private static BitmapFontFactoryProxy proxy; //Using proxy in other package because we need package visibility in org.processing.core ...
 	
+	/** Whether the glyphs of new fonts are packed into shared atlas textures. */
+	private static boolean useGlyphAtlas = true;
+	
+	
+	/**
+	 * Checks if the glyphs of newly created fonts are packed into shared atlas textures.
+	 *
+	 * @return true, if the glyph atlas is used
+	 */
+	public static boolean isUseGlyphAtlas() {
+		return useGlyphAtlas;
+	}
+
+	/**
+	 * Sets whether the glyphs of newly created fonts are packed into shared atlas textures
+	 * instead of using one texture per character. Only used in OpenGL mode.
+	 * <br>With an atlas the characters of a text can be drawn without switching textures.
+	 *
+	 * @param useGlyphAtlas true to use the glyph atlas
+	 */
+	public static void setUseGlyphAtlas(boolean useGlyphAtlas) {
+		BitmapFontFactory.useGlyphAtlas = useGlyphAtlas;
+	}
+	
+	
 	
 	/* (non-Javadoc)
 	 * @see org.mt4j.components.visibleComponents.font.fontFactories.IFontFactory#getCopy(org.mt4j.components.visibleComponents.font.IFont)
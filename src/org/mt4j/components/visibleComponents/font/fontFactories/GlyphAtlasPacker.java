@@ -0,0 +1,202 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.components.visibleComponents.font.fontFactories;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Packs rectangular glyph images into atlas pages, so that many glyphs
+ * can share one texture.
+ * <p>
+ * The glyphs are placed in rows (shelves) from the top left to the bottom right of
+ * the current page. If a glyph doesn't fit onto the current page a new page is started.
+ * A glyph larger than the page size gets a page of its own.
+ * <br>Best results are achieved if the glyphs are packed sorted by descending height.
+ * <p>
+ * This class only computes the placement, it doesn't copy any pixels.
+ */
+public class GlyphAtlasPacker {
+
+	/** The default width and height of a page. */
+	public static final int DEFAULT_PAGE_SIZE = 512;
+
+	/** The maximum page size. */
+	private int pageSize;
+
+	/** The empty space between two glyphs. */
+	private int padding;
+
+	/** The pages. */
+	private List<Page> pages;
+
+
+	/**
+	 * Instantiates a new glyph atlas packer with the default page size and
+	 * a padding of 1 pixel.
+	 */
+	public GlyphAtlasPacker(){
+		this(DEFAULT_PAGE_SIZE, 1);
+	}
+
+	/**
+	 * Instantiates a new glyph atlas packer.
+	 *
+	 * @param pageSize the maximum width and height of a page
+	 * @param padding the empty space between two glyphs
+	 */
+	public GlyphAtlasPacker(int pageSize, int padding){
+		if (pageSize <= 0 || padding < 0){
+			throw new IllegalArgumentException("Invalid page size or padding: " + pageSize + ", " + padding);
+		}
+		this.pageSize = pageSize;
+		this.padding = padding;
+		this.pages = new ArrayList<Page>();
+	}
+
+
+	/**
+	 * Places a glyph of the given size.
+	 *
+	 * @param width the glyph width
+	 * @param height the glyph height
+	 * @param result receives the page index, the x and the y position of the glyph
+	 */
+	public void pack(int width, int height, int[] result){
+		if (width > pageSize || height > pageSize){
+			//Glyph gets its own page
+			Page page = new Page(width, height);
+			page.usedWidth = width;
+			page.usedHeight = height;
+			page.shelfY = height + padding;
+			pages.add(page);
+			result[0] = pages.size() - 1;
+			result[1] = 0;
+			result[2] = 0;
+			return;
+		}
+
+		Page page = pages.isEmpty() ? null : pages.get(pages.size() - 1);
+		if (page == null || !page.fits(width, height)){
+			page = new Page(pageSize, pageSize);
+			pages.add(page);
+		}
+		if (page.shelfX + width > page.width){
+			//Start a new shelf below the current one
+			page.shelfY += page.shelfHeight + padding;
+			page.shelfX = 0;
+			page.shelfHeight = 0;
+		}
+		result[0] = pages.size() - 1;
+		result[1] = page.shelfX;
+		result[2] = page.shelfY;
+
+		page.shelfX += width + padding;
+		page.shelfHeight = Math.max(page.shelfHeight, height);
+		page.usedWidth = Math.max(page.usedWidth, result[1] + width);
+		page.usedHeight = Math.max(page.usedHeight, result[2] + height);
+	}
+
+
+	/**
+	 * Gets the number of pages.
+	 *
+	 * @return the page count
+	 */
+	public int getPageCount(){
+		return pages.size();
+	}
+
+	/**
+	 * Gets the width of a page - the smallest power of two that contains all
+	 * glyphs of the page.
+	 *
+	 * @param page the page index
+	 * @return the page width
+	 */
+	public int getPageWidth(int page){
+		return nextPowerOfTwo(pages.get(page).usedWidth);
+	}
+
+	/**
+	 * Gets the height of a page - the smallest power of two that contains all
+	 * glyphs of the page.
+	 *
+	 * @param page the page index
+	 * @return the page height
+	 */
+	public int getPageHeight(int page){
+		return nextPowerOfTwo(pages.get(page).usedHeight);
+	}
+
+	/**
+	 * Gets the maximum page size.
+	 *
+	 * @return the page size
+	 */
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * Gets the padding.
+	 *
+	 * @return the padding
+	 */
+	public int getPadding() {
+		return padding;
+	}
+
+
+	private static int nextPowerOfTwo(int val) {
+		int ret = 1;
+		while (ret < val) {
+			ret <<= 1;
+		}
+		return ret;
+	}
+
+
+	/**
+	 * A page of the atlas.
+	 */
+	private class Page{
+		private int width;
+		private int height;
+		private int shelfX;
+		private int shelfY;
+		private int shelfHeight;
+		private int usedWidth;
+		private int usedHeight;
+
+		private Page(int width, int height){
+			this.width = width;
+			this.height = height;
+		}
+
+		/** Checks if the glyph fits into the current or into a new shelf. */
+		private boolean fits(int glyphWidth, int glyphHeight){
+			if (shelfX + glyphWidth <= width){
+				return shelfY + Math.max(shelfHeight, glyphHeight) <= height;
+			}
+			return shelfY + shelfHeight + padding + glyphHeight <= height;
+		}
+	}
+
+}
@@ -77,6 +77,9 @@ public abstract class AbstractShape extends AbstractVisibleComponent{
 	
 	/** The texture image. */
 	private PImage textureImage;
+	
+	/** Whether the GLTexture was created by this shape from a PImage. */
+	private boolean textureCreated;
 
 	/** The draw direct gl. */
 	private boolean drawDirectGL;
@@ -286,22 +289,19 @@ public abstract class AbstractShape extends AbstractVisibleComponent{
 	 * 
 	 * @return the bounds behaviour constant
 	 */
-	private int getBoundsBehaviour(){
+	public int getBoundsBehaviour(){
 		return this.boundsBehaviour;
 	}
 	
 	
 	@Override
-	public void setMatricesDirty(boolean baseMatrixDirty) {
+	protected void globalMatrixChanged() {
 		/* 
 		 * Overridden, so the component is also informed of the need to update
 		 * the bounds vertices
 		 */
-		if (baseMatrixDirty){
-			this.globalVerticesDirty	= true;
-		}
-//		System.out.println("Set baseMatrixDirty dirty on obj: " + this.getName());
-		super.setMatricesDirty(baseMatrixDirty);
+		this.globalVerticesDirty	= true;
+		super.globalMatrixChanged();
 	}
 	
 	/**
@@ -473,6 +473,8 @@ public abstract class AbstractShape extends AbstractVisibleComponent{
 	 * or just to know the real world global coordinates of the vertices.
 	 */
 	private void updateVerticesGlobal(){
+		//Check if the global matrix changed since the last update
+		this.getWorldGeneration();
 		if (this.globalVerticesDirty){ 
 			Vertex[] unTransformedCopy = Vertex.getDeepVertexArrayCopy(this.getGeometryInfo().getVertices());
 			//transform the copied vertices and save them in the vertices array
@@ -697,10 +699,33 @@ public abstract class AbstractShape extends AbstractVisibleComponent{
 	 * If the provided texture is non power of two and you are in opengl mode, we try
 	 * to use the RECTANGULAR texture extension.
 	 * <br>If textures were disabled for this component, they are being enabled again.
+	 * <br>GLTextures are retained while they are used by this shape, so they can be shared by
+	 * several shapes, see <code>GLTexture.retain()</code>.
 	 * 
 	 * @param newTexImage the new tex image
 	 */
 	public void setTexture(PImage newTexImage){
+		PImage oldTexImage = this.textureImage;
+		boolean oldTextureCreated = this.textureCreated;
+		this.textureCreated = false;
+		
+		this.applyTexture(newTexImage);
+		
+		if (this.textureImage != oldTexImage){
+			if (this.textureImage instanceof GLTexture){
+				((GLTexture) this.textureImage).retain();
+			}
+			if (oldTexImage instanceof GLTexture){
+				//Only delete the old texture if we created it ourselves
+				((GLTexture) oldTexImage).release(oldTextureCreated);
+			}
+		}else{
+			this.textureCreated = oldTextureCreated;
+		}
+	}
+	
+	
+	private void applyTexture(PImage newTexImage){
 		if (newTexImage == null){
 			this.textureImage = null;
 			this.setTextureEnabled(false);
@@ -797,6 +822,7 @@ public abstract class AbstractShape extends AbstractVisibleComponent{
 				GLTexture newGLTexture = new GLTexture(this.getRenderer(), newTexImage, ts);
 				
 				this.textureImage = newGLTexture;
+				this.textureCreated = true;
 				this.lastTextureDimension.setXYZ(newTexImage.width, newTexImage.height, 0);
 			}
 		}else{
@@ -1222,16 +1248,17 @@ public abstract class AbstractShape extends AbstractVisibleComponent{
 	 * <li>Recursively calls destroy() on its children
 	 * <br>
 	 * <p>
-	 * By default, the openGl texture object and the VBOs associated with this shape will be deleted.
-	 * Be careful when you share textures across more than one object!
-	 * Destroying of displaylists and VBOs isnt done atm! Use disableAndDeleteDisplaylists() instead.
+	 * By default, the openGl texture object associated with this shape will be deleted if
+	 * no other shape uses it.
+	 * The displaylists and VBOs are deleted by the <code>GLResourceManager</code> when the geometry
+	 * is garbage collected, use disableAndDeleteDisplaylists() to delete them earlier.
 	 */
 	@Override
 	public void destroy(){
 //		System.out.println(this + " -> DESTROY() -> (AbstractShape)");
 		
 		/*
-		//Deletion ins now done in GeometryInfo's finalize() method
+		//Deletion is now done by the GLResourceManager when the GeometryInfo is collected
 		if (this.geometryInfo != null){
 			//Delete VBOs
 			this.getGeometryInfo().deleteAllVBOs();
@@ -1241,11 +1268,12 @@ public abstract class AbstractShape extends AbstractVisibleComponent{
 		
 		this.setBounds(null);
 		
-		//Delete openGL texture object
+		//Delete openGL texture object if it isnt used by other shapes
 		if (this.getTexture() instanceof GLTexture){
 			GLTexture tex = (GLTexture) this.getTexture();
-			//Delete texture
-			tex.destroy();
+			//Take our reference from the texture before releasing it ourselves
+			this.textureImage = null;
+			tex.release(true);
 			this.setTexture(null);
 			this.setTextureEnabled(false);
 		} 
@@ -22,14 +22,16 @@ import java.nio.IntBuffer;
 
 import javax.media.opengl.GL;
 
-import org.mt4j.MTApplication;
 import org.mt4j.components.visibleComponents.StyleInfo;
+import org.mt4j.util.FrameProfiler;
 import org.mt4j.util.MT4jSettings;
 import org.mt4j.util.math.Tools3D;
 import org.mt4j.util.math.ToolsBuffers;
 import org.mt4j.util.math.ToolsVBO;
 import org.mt4j.util.math.Vector3D;
 import org.mt4j.util.math.Vertex;
+import org.mt4j.util.opengl.GLResourceManager;
+import org.mt4j.util.opengl.GLResourceManager.ResourceType;
 
 import processing.core.PApplet;
 
@@ -93,6 +95,21 @@ public class GeometryInfo {
 	// Display list ids
 	/** The display list i ds. */
 	private int[] displayListIDs;
+	
+	/** The texture binds compiled into the fill display list. */
+	private int fillDisplayListTextureBinds;
+	
+	private static final int VBO_VERTICES 		= 0;
+	private static final int VBO_COLOR 			= 1;
+	private static final int VBO_TEXTURE 		= 2;
+	private static final int VBO_STROKE_COLOR 	= 3;
+	private static final int VBO_NORMALS 		= 4;
+	
+	/** The handles of the vbos registered with the resource manager. */
+	private GLResourceManager.Resource[] vboResources;
+	
+	/** The handles of the display lists registered with the resource manager. */
+	private GLResourceManager.Resource[] displayListResources;
 
 	/** The indexed. */
 	private boolean indexed;
@@ -157,6 +174,8 @@ public class GeometryInfo {
 		this.vboNormalsID 	= -1;
 		//Displaylist Ids
 		this.displayListIDs = new int[]{-1, -1};
+		this.vboResources = new GLResourceManager.Resource[5];
+		this.displayListResources = new GLResourceManager.Resource[2];
 		if (!(vertices.length > 0)){
 //			System.err.println("Warning in " + this + " : trying to create GeometryInfo with no vertices supplied!");
 		}
@@ -290,7 +309,7 @@ public class GeometryInfo {
 				if (createOrUpdateVBO){
 					if (this.getVBONormalsName() == -1){ 
 						//Create new normal vbo
-						this.vboNormalsID = ToolsVBO.generateNormalsVBO(this.r, this.getNormalsBuff(), this.getNormals().length);
+						this.vboNormalsID = this.registerVBO(VBO_NORMALS, ToolsVBO.generateNormalsVBO(this.r, this.getNormalsBuff(), this.getNormals().length), this.getNormalsBuff());
 					}else{
 						//Update normals vbo
 						this.updateNormalsVBO(this.getNormalsBuff(), false, false);
@@ -435,6 +454,34 @@ public class GeometryInfo {
 		this.setTextureBuffer(ToolsBuffers.generateTextureBuffer(this.getVertices()));
 	}
 	
+	/**
+	 * Sets draw buffers that were created elsewhere, e.g. mapped from a file, so they
+	 * dont have to be generated from the vertices again.
+	 * <br>The buffers have to be direct buffers in native byte order and have to contain the 
+	 * same data as the vertices, normals and indices of this geometry. A shape using this geometry
+	 * will use the buffers as they are. They can be read only, the geometry replaces its buffers 
+	 * when the vertices change instead of writing to them.
+	 * 
+	 * @param vertBuff the vertex buffer (x,y,z)
+	 * @param colorBuff the color buffer (r,g,b,a in the range 0..1)
+	 * @param strokeColBuff the stroke color buffer (r,g,b,a in the range 0..1)
+	 * @param texBuff the texture buffer (u,v)
+	 * @param normalsBuff the normals buffer (x,y,z), only used if the geometry contains normals
+	 * @param indicesBuff the indices buffer, only used if the geometry is indexed
+	 */
+	public void setDrawBuffers(FloatBuffer vertBuff, FloatBuffer colorBuff, FloatBuffer strokeColBuff, FloatBuffer texBuff, FloatBuffer normalsBuff, IntBuffer indicesBuff){
+		this.setVertexBuffer(vertBuff);
+		this.setColorBuffer(colorBuff);
+		this.setStrokeColorBuffer(strokeColBuff);
+		this.setTextureBuffer(texBuff);
+		if (this.isContainsNormals()){
+			this.setNormalsBuffer(normalsBuff);
+		}
+		if (this.isIndexed()){
+			this.setIndicesBuffer(indicesBuff);
+		}
+	}
+	
 	/**
 	 * Sets the vertex buffer.
 	 * 
@@ -562,22 +609,22 @@ public class GeometryInfo {
 		int vertexCount = this.getVertexCount();
 		//If no vbos exist yet, create them now
 		if (this.getVBOVerticesName() 	== -1){
-			this.vboVerticesID 	= ToolsVBO.generateVertexVBO(pa, this.getVertBuff(), vertexCount);
+			this.vboVerticesID 	= this.registerVBO(VBO_VERTICES, ToolsVBO.generateVertexVBO(pa, this.getVertBuff(), vertexCount), this.getVertBuff());
 		}else{
 			this.updateVertexVBO(this.getVertBuff(), false, false);
 		}
 		if (this.getVBOColorName() 		== -1){
-			this.vboColorID 	= ToolsVBO.generateColorVBO(pa, this.getColorBuff(), vertexCount);
+			this.vboColorID 	= this.registerVBO(VBO_COLOR, ToolsVBO.generateColorVBO(pa, this.getColorBuff(), vertexCount), this.getColorBuff());
 		}else{
 			this.updateColorVBO(this.getColorBuff());
 		}
 		if (this.getVBOStrokeColorName()== -1){
-			this.vboStrokeColID = ToolsVBO.generateStrokeColorVBO(pa, this.getStrokeColBuff(), vertexCount);
+			this.vboStrokeColID = this.registerVBO(VBO_STROKE_COLOR, ToolsVBO.generateStrokeColorVBO(pa, this.getStrokeColBuff(), vertexCount), this.getStrokeColBuff());
 		}else{
 			this.updateStrokeColorVBO(this.getStrokeColBuff());
 		}
 		if(this.getVBOTextureName()	== -1){
-			this.vboTextureID 	= ToolsVBO.generateTextureVBO(pa, this.getTexBuff(), vertexCount);
+			this.vboTextureID 	= this.registerVBO(VBO_TEXTURE, ToolsVBO.generateTextureVBO(pa, this.getTexBuff(), vertexCount), this.getTexBuff());
 		}else{
 			this.updateTextureVBO(this.getTexBuff());
 		}
@@ -598,7 +645,7 @@ public class GeometryInfo {
 		if (this.isContainsNormals()){
 			PApplet pa = this.getRenderer();
 			if (this.getVBONormalsName() == -1){
-				this.vboNormalsID 	= ToolsVBO.generateNormalsVBO(pa, this.getNormalsBuff(), this.getNormals().length);
+				this.vboNormalsID 	= this.registerVBO(VBO_NORMALS, ToolsVBO.generateNormalsVBO(pa, this.getNormalsBuff(), this.getNormals().length), this.getNormalsBuff());
 			}else{
 				this.updateNormalsVBO(this.getNormalsBuff(), false, false);
 			}
@@ -606,6 +653,24 @@ public class GeometryInfo {
 		//Generate/Update other VBOs
 		this.generateOrUpdateVertColStrokeColTexVBOs();
 	}
+	
+	
+	/**
+	 * Registers a generated vbo with the resource manager, so it is deleted 
+	 * if this geometry is garbage collected.
+	 *
+	 * @param slot the slot of the vbo
+	 * @param id the vbo id
+	 * @param buffer the buffer the vbo was created from
+	 * @return the vbo id
+	 */
+	private int registerVBO(int slot, int id, FloatBuffer buffer){
+		GLResourceManager resourceManager = GLResourceManager.getManager(this.r);
+		if (resourceManager != null && id > 0){
+			this.vboResources[slot] = resourceManager.register(this, ResourceType.BUFFER, id, buffer.capacity() * 4L);
+		}
+		return id;
+	}
 	/////////////// VBO GENERATING //////////////////////
 	
 	
@@ -707,29 +772,31 @@ public class GeometryInfo {
 	 */
 	public void deleteAllVBOs(){
 		if (MT4jSettings.getInstance().isOpenGlMode()){
-			GL gl = Tools3D.getGL(r);
-			if (this.getVBOVerticesName() != -1){
-				gl.glDeleteBuffersARB(1, new int[]{this.getVBOVerticesName()},0);
-				this.vboVerticesID = -1;
-			}
-			if (this.getVBOColorName() != -1){
-				gl.glDeleteBuffersARB(1, new int[]{this.getVBOColorName()},0);
-				this.vboColorID = -1;
-			}
-			if (this.getVBOStrokeColorName() != -1){
-				gl.glDeleteBuffersARB(1, new int[]{this.getVBOStrokeColorName()},0);
-				this.vboStrokeColID = -1;
-			}
-			if (this.getVBOTextureName() != -1){
-				gl.glDeleteBuffersARB(1, new int[]{this.getVBOTextureName()},0);
-				this.vboTextureID = -1;
-			}
-			if (this.getVBONormalsName() != -1){
-				gl.glDeleteBuffersARB(1, new int[]{this.getVBONormalsName()},0);
-				this.vboNormalsID = -1;
-			}
+			this.vboVerticesID 	= this.deleteVBO(VBO_VERTICES, this.getVBOVerticesName());
+			this.vboColorID 	= this.deleteVBO(VBO_COLOR, this.getVBOColorName());
+			this.vboStrokeColID = this.deleteVBO(VBO_STROKE_COLOR, this.getVBOStrokeColorName());
+			this.vboTextureID 	= this.deleteVBO(VBO_TEXTURE, this.getVBOTextureName());
+			this.vboNormalsID 	= this.deleteVBO(VBO_NORMALS, this.getVBONormalsName());
 		}
 	}
+	
+	/**
+	 * Deletes a vbo. If it is registered with the resource manager, 
+	 * it is deleted by the manager at the beginning of the next frame.
+	 *
+	 * @param slot the slot of the vbo
+	 * @param id the vbo id
+	 * @return -1
+	 */
+	private int deleteVBO(int slot, int id){
+		if (this.vboResources[slot] != null){
+			GLResourceManager.getManager(this.r).release(this.vboResources[slot]);
+			this.vboResources[slot] = null;
+		}else if (id != -1){
+			Tools3D.getGL(this.r).glDeleteBuffersARB(1, new int[]{id}, 0);
+		}
+		return -1;
+	}
 
 	
 	//////////////// VBO GETTERS //////////////////////
@@ -834,12 +901,14 @@ public class GeometryInfo {
 		if (genFillList){
 			//Start recording display list
 			gl.glNewList(listIDFill, GL.GL_COMPILE);
+			FrameProfiler.beginDisplayList();
 			shape.setNoFill(false);
 			shape.setNoStroke(true);
 			shape.drawPureGl(gl);
 			shape.setNoFill(noFillb4);
 			shape.setNoStroke(noStrokeb4);
 			//End recording
+			fillDisplayListTextureBinds = FrameProfiler.endDisplayList();
 			gl.glEndList();
 			displayListIDs[0] = listIDFill;
 		}
@@ -870,14 +939,30 @@ public class GeometryInfo {
 	 */
 	public void deleteDisplayLists(){
 		if (MT4jSettings.getInstance().isOpenGlMode()){
-			GL gl = Tools3D.getGL(this.r);
-			for (int id : this.displayListIDs){
-				if (id != -1){
-					gl.glDeleteLists(id, 1);
-				}
-			}
-			this.displayListIDs[0] = -1;
-			this.displayListIDs[1] = -1;
+			this.deleteDisplayList(0);
+			this.deleteDisplayList(1);
+		}
+	}
+	
+	/**
+	 * Deletes one of the display lists of that geometry. If it is registered with 
+	 * the resource manager, it is deleted by the manager at the beginning of the next frame.
+	 * 
+	 * @param index 0 for the fill list, 1 for the outline list
+	 */
+	public void deleteDisplayList(int index){
+		if (!MT4jSettings.getInstance().isOpenGlMode()){
+			return;
+		}
+		if (this.displayListResources[index] != null){
+			GLResourceManager.getManager(this.r).release(this.displayListResources[index]);
+			this.displayListResources[index] = null;
+		}else if (this.displayListIDs[index] != -1){
+			Tools3D.getGL(this.r).glDeleteLists(this.displayListIDs[index], 1);
+		}
+		this.displayListIDs[index] = -1;
+		if (index == 0){
+			this.fillDisplayListTextureBinds = 0;
 		}
 	}
 	
@@ -892,14 +977,40 @@ public class GeometryInfo {
 		return this.displayListIDs;
 	}
 	
+	/**
+	 * Gets the number of texture binds compiled into the fill display list.
+	 * They aren't counted by the <code>FrameProfiler</code> when the list is compiled,
+	 * so they have to be counted each time the list is called.
+	 * 
+	 * @return the texture binds of the fill display list
+	 */
+	public int getFillDisplayListTextureBinds() {
+		return this.fillDisplayListTextureBinds;
+	}
+	
 	/**
 	 * Sets the display lists for this shape.
 	 * <br><strong>The int array has to be of length=2 and
 	 * contain 2 display list ids, generated with <code>glGenlists</code></strong>
+	 * <br>The lists are registered with the resource manager, display lists
+	 * replaced by different ones are released. 
 	 * 
 	 * @param ids the ids
 	 */
 	public void setDisplayListIDs(int[] ids){
+		GLResourceManager resourceManager = GLResourceManager.getManager(this.r);
+		if (resourceManager != null){
+			for (int i = 0; i < this.displayListResources.length; i++) {
+				GLResourceManager.Resource handle = this.displayListResources[i];
+				if (handle != null && handle.getID() != ids[i]){
+					resourceManager.release(handle);
+					this.displayListResources[i] = null;
+				}
+				if (this.displayListResources[i] == null && ids[i] > 0){
+					this.displayListResources[i] = resourceManager.register(this, ResourceType.DISPLAY_LIST, ids[i], 0);
+				}
+			}
+		}
 		this.displayListIDs = ids;
 	}
 	////////////////DISPLAY LISTS //////////////////////
@@ -1054,23 +1165,4 @@ public class GeometryInfo {
 	public void setTextureCoordsNormalized(boolean normalized){
 		this.textureCoordsNormalized = normalized;
 	}
-	
-	
-	@Override
-	protected void finalize() throws Throwable {
-		//System.out.println("Finalizing GLTEXTURE - " + this);
-		if (this.r instanceof MTApplication) {
-			MTApplication mtApp = (MTApplication) this.r;
-			mtApp.invokeLater(new Runnable() {
-				public void run() {
-					deleteDisplayLists();
-					deleteAllVBOs();
-				}
-			});
-		}else{
-			//TODO use registerPre()?
-			//is the object even valid after finalize() is called??
-		}
-		super.finalize();
-	}
 }
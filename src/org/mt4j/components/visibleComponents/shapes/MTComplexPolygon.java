@@ -7,8 +7,8 @@ import org.mt4j.MTApplication;
 import org.mt4j.components.css.util.CSSHelper;
 import org.mt4j.components.css.util.CSSStylableComponent;
 import org.mt4j.components.visibleComponents.shapes.mesh.MTTriangleMesh;
+import org.mt4j.util.math.PolygonTriangulator;
 import org.mt4j.util.math.Vertex;
-import org.mt4j.util.opengl.GluTrianglulator;
 
 import processing.core.PApplet;
 
@@ -24,10 +24,10 @@ import processing.core.PApplet;
 public class MTComplexPolygon extends MTTriangleMesh implements CSSStylableComponent{
 	
 	/** The Constant WINDING_RULE_ODD. */
-	public static final int WINDING_RULE_ODD 		= GluTrianglulator.WINDING_RULE_ODD;
+	public static final int WINDING_RULE_ODD 		= PolygonTriangulator.WINDING_RULE_ODD;
 	
 	/** The Constant WINDING_RULE_NONZERO. */
-	public static final int WINDING_RULE_NONZERO 	= GluTrianglulator.WINDING_RULE_NONZERO;
+	public static final int WINDING_RULE_NONZERO 	= PolygonTriangulator.WINDING_RULE_NONZERO;
 
 	//TODO override the intersection/containspoint methods to only use outline?
 	//-> else we do expensive checks against each triangle
@@ -62,7 +62,7 @@ public class MTComplexPolygon extends MTTriangleMesh implements CSSStylableCompo
 	 * @param contours the contours
 	 */
 	public MTComplexPolygon(PApplet app, List<Vertex[]> contours) {
-		this(app, contours, GluTrianglulator.WINDING_RULE_ODD);
+		this(app, contours, PolygonTriangulator.WINDING_RULE_ODD);
 	}
 	
 	/**
@@ -98,9 +98,7 @@ public class MTComplexPolygon extends MTTriangleMesh implements CSSStylableCompo
 	public void setVertices(List<Vertex[]> contours, int windingRule) {
 		this.setOutlineContours(contours);
 		
-		GluTrianglulator triangulator = new GluTrianglulator(getRenderer());
-		List<Vertex> tris = triangulator.tesselate(contours, windingRule);
-		triangulator.deleteTess();
+		List<Vertex> tris = new PolygonTriangulator().triangulate(contours, windingRule);
 		
 		super.setVertices(tris.toArray(new Vertex[tris.size()]));
 	}
@@ -115,9 +113,7 @@ public class MTComplexPolygon extends MTTriangleMesh implements CSSStylableCompo
 		contours.add(vertices);
 		this.setOutlineContours(contours);
 		
-		GluTrianglulator triangulator = new GluTrianglulator(getRenderer());
-		Vertex[] tris = triangulator.tesselate(vertices);
-		triangulator.deleteTess();
+		Vertex[] tris = new PolygonTriangulator().triangulate(vertices);
 		
 		super.setVertices(tris);
 	}
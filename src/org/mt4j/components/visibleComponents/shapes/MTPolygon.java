@@ -26,6 +26,7 @@ import org.mt4j.components.bounds.BoundingSphere;
 import org.mt4j.components.bounds.IBoundingShape;
 import org.mt4j.components.bounds.OrientedBoundingBox;
 import org.mt4j.components.css.style.CSSStyle;
+import org.mt4j.util.FrameProfiler;
 import org.mt4j.util.MT4jSettings;
 import org.mt4j.util.MTColor;
 import org.mt4j.util.math.BezierVertex;
@@ -184,8 +185,10 @@ public class MTPolygon extends MTCSSStylableShape{
 			if (this.isUseDisplayList() /*&& this.getDisplayListIDs() != null && this.getDisplayListIDs()[0] != -1 && this.getDisplayListIDs()[1] != -1*/){
 				int[] displayLists = this.getGeometryInfo().getDisplayListIDs();
 				//Use Display Lists
-				if (!this.isNoFill()  && displayLists[0] != -1) 
+				if (!this.isNoFill()  && displayLists[0] != -1){
+					FrameProfiler.countTextureBinds(this.getGeometryInfo().getFillDisplayListTextureBinds());
 					gl.glCallList(displayLists[0]); //Draw fill
+				}
 				if (!this.isNoStroke()  && displayLists[1] != -1)
 					gl.glCallList(displayLists[1]); //Draw outline
 			}else{
@@ -342,6 +345,7 @@ public class MTPolygon extends MTCSSStylableShape{
 				//tells opengl which texture to reference in following calls from now on!
 				//the first parameter is eigher GL.GL_TEXTURE_2D or ..1D
 				gl.glEnable(textureTarget);
+				FrameProfiler.countTextureBind();
 				gl.glBindTexture(textureTarget, tex.getTextureID());
 				
 				gl.glEnableClientState(GL.GL_TEXTURE_COORD_ARRAY);
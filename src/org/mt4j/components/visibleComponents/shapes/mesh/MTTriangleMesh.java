@@ -28,6 +28,7 @@ import org.mt4j.components.bounds.BoundingSphere;
 import org.mt4j.components.bounds.IBoundingShape;
 import org.mt4j.components.visibleComponents.shapes.AbstractShape;
 import org.mt4j.components.visibleComponents.shapes.GeometryInfo;
+import org.mt4j.util.FrameProfiler;
 import org.mt4j.util.MT4jSettings;
 import org.mt4j.util.MTColor;
 import org.mt4j.util.math.BezierVertex;
@@ -52,6 +53,12 @@ public class MTTriangleMesh extends AbstractShape{
 	/** The triangles. */
 	protected Triangle[] triangles; 
 	
+	/** The hierarchy of the triangles, created when needed. */
+	private TriangleHierarchy triangleHierarchy;
+	
+	/** Meshes with less triangles test all triangles instead of using the triangle hierarchy. */
+	private static final int TRIANGLE_HIERARCHY_MIN_TRIANGLES = 16;
+	
 	/** The draw normals. */
 	private boolean drawNormals;
 	
@@ -265,6 +272,7 @@ public class MTTriangleMesh extends AbstractShape{
 			}
 		}
 		this.triangles = tris.toArray(new Triangle[tris.size()]);
+		this.triangleHierarchy = null;
 //		System.out.println("MTTriangleMesh object: \"" + this + "\" Debug-> Triangles created: " + this.triangles.length);
 	}
 	
@@ -391,7 +399,12 @@ public class MTTriangleMesh extends AbstractShape{
 		boolean checkThoroughly = true;
 		ArrayList<Vector3D> intersections = new ArrayList<Vector3D>();
 
-        for (Triangle tri : triangles) {
+		TriangleHierarchy hierarchy = this.getTriangleHierarchyIfUseful();
+		int count = hierarchy != null ? hierarchy.queryRay(ray) : triangles.length;
+		int[] candidates = hierarchy != null ? hierarchy.getQueryResult() : null;
+		
+        for (int i = 0; i < count; i++) {
+        	Triangle tri = candidates != null ? triangles[candidates[i]] : triangles[i];
             Vector3D intersectionPoint = tri.getRayTriangleIntersection(ray);
             boolean sameAlreadyEncountered = false;
 
@@ -420,6 +433,11 @@ public class MTTriangleMesh extends AbstractShape{
 	 */
 	@Override
 	public Vector3D getGeometryIntersectionLocal(Ray ray){
+		TriangleHierarchy hierarchy = this.getTriangleHierarchyIfUseful();
+		if (hierarchy != null){
+			return hierarchy.getClosestIntersection(ray);
+		}
+		
 		float distance = Float.MAX_VALUE;
 		Vector3D returnVect = null;
         for (Triangle tri : triangles) {
@@ -455,6 +473,26 @@ public class MTTriangleMesh extends AbstractShape{
 		return triangles.length;
 	}
 	
+	/**
+	 * Gets the bounding volume hierarchy of the triangles, used to speed up 
+	 * picking and intersection tests.
+	 * <br>The hierarchy is created when first needed and kept until the geometry
+	 * or the vertices of the mesh are changed.
+	 * 
+	 * @return the triangle hierarchy
+	 */
+	public TriangleHierarchy getTriangleHierarchy(){
+		if (this.triangleHierarchy == null){
+			this.triangleHierarchy = new TriangleHierarchy(this.getTriangles());
+		}
+		return this.triangleHierarchy;
+	}
+	
+	
+	private TriangleHierarchy getTriangleHierarchyIfUseful(){
+		return this.getTriangles().length >= TRIANGLE_HIERARCHY_MIN_TRIANGLES ? this.getTriangleHierarchy() : null;
+	}
+	
 	/**
 	 * The triangles of this triangle mesh.
 	 * 
@@ -554,6 +592,7 @@ public class MTTriangleMesh extends AbstractShape{
 		if (this.isUseDisplayList()){
 			int[] displayLists = this.getGeometryInfo().getDisplayListIDs();
 			if (!this.isNoFill() && displayLists[0] != -1){
+				FrameProfiler.countTextureBinds(this.getGeometryInfo().getFillDisplayListTextureBinds());
 				gl.glCallList(displayLists[0]);
 			}
 			if (!this.isNoStroke() && displayLists[1] != -1){
@@ -687,6 +726,7 @@ public class MTTriangleMesh extends AbstractShape{
 				//tells opengl which texture to reference in following calls from now on!
 				//the first parameter is eigher GL.GL_TEXTURE_2D or ..1D
 				gl.glEnable(textureTarget);
+				FrameProfiler.countTextureBind();
 				gl.glBindTexture(textureTarget, tex.getTextureID());
 				gl.glEnableClientState(GL.GL_TEXTURE_COORD_ARRAY);
 				
@@ -903,12 +943,7 @@ public class MTTriangleMesh extends AbstractShape{
 		if (this.isUseDisplayList()){
 			int[] ids = this.getGeometryInfo().getDisplayListIDs();
 			//Delete default outline display list, not really usable in a mesh.
-			if (MT4jSettings.getInstance().isOpenGlMode()){
-				GL gl =Tools3D.getGL(getRenderer());
-				if (ids[1] != -1){
-					gl.glDeleteLists(ids[1], 1);
-				}
-			}
+			this.getGeometryInfo().deleteDisplayList(1);
 			if (this.outlineContours != null){
 				ids[1] = generateContoursDisplayList(true);
 				this.getGeometryInfo().setDisplayListIDs(ids);
@@ -929,11 +964,8 @@ public class MTTriangleMesh extends AbstractShape{
 			if (this.outlineContours != null){
 				//Dont create default stroke outline display list (mostly useless with triangle meshes)
 				this.getGeometryInfo().generateDisplayLists(this, true, false);
+				this.getGeometryInfo().deleteDisplayList(1);
 				int[] ids = this.getGeometryInfo().getDisplayListIDs();
-				if (ids[1] != -1){
-					GL gl = Tools3D.getGL(getRenderer());
-					gl.glDeleteLists(ids[1], 1);
-				}
 				//Create outline display list from manually set outline contours if available.
 				ids[1] = this.generateContoursDisplayList(true);
 				this.getGeometryInfo().setDisplayListIDs(ids);
@@ -0,0 +1,192 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.components.visibleComponents.shapes.mesh;
+
+import org.mt4j.components.bounds.BoundingVolumeHierarchy;
+import org.mt4j.components.bounds.BoundingVolumeHierarchy.LeafPairVisitor;
+import org.mt4j.util.math.Matrix;
+import org.mt4j.util.math.Ray;
+import org.mt4j.util.math.ToolsGeometry;
+import org.mt4j.util.math.Vector3D;
+
+
+/**
+ * A bounding volume hierarchy over the triangles of a mesh, in the local space of the mesh.
+ * <p>
+ * Used to find the triangles that may be hit by a ray and the pairs of triangles
+ * of two meshes that may intersect, without testing all triangles.
+ * The boxes of the triangles are computed from their vertices when the hierarchy is 
+ * created, so it has to be created again if the vertices change.
+ * <p>
+ * This class isn't thread safe.
+ */
+public class TriangleHierarchy {
+	
+	/** The triangles. */
+	private Triangle[] triangles;
+	
+	/** The hierarchy, the leaf ids are the triangle indices. */
+	private BoundingVolumeHierarchy hierarchy;
+	
+	/** The tolerance added to the boxes when testing a ray. */
+	private float tolerance;
+	
+	/** The triangle indices found by the last ray query. */
+	private int[] queryResult;
+	
+	/** The vertices of a triangle of another mesh, transformed into the space of this mesh. */
+	private Vector3D u0, u1, u2;
+	
+	
+	/**
+	 * Creates the hierarchy for the triangles.
+	 * 
+	 * @param triangles the triangles
+	 */
+	public TriangleHierarchy(Triangle[] triangles){
+		this.triangles = triangles;
+		this.queryResult = new int[triangles.length];
+		this.u0 = new Vector3D();
+		this.u1 = new Vector3D();
+		this.u2 = new Vector3D();
+		
+		float[] bounds = new float[triangles.length * 6];
+		int[] ids = new int[triangles.length];
+		for (int i = 0; i < triangles.length; i++) {
+			Triangle tri = triangles[i];
+			int b = i * 6;
+			bounds[b] 	  = Math.min(tri.v0.x, Math.min(tri.v1.x, tri.v2.x));
+			bounds[b + 1] = Math.min(tri.v0.y, Math.min(tri.v1.y, tri.v2.y));
+			bounds[b + 2] = Math.min(tri.v0.z, Math.min(tri.v1.z, tri.v2.z));
+			bounds[b + 3] = Math.max(tri.v0.x, Math.max(tri.v1.x, tri.v2.x));
+			bounds[b + 4] = Math.max(tri.v0.y, Math.max(tri.v1.y, tri.v2.y));
+			bounds[b + 5] = Math.max(tri.v0.z, Math.max(tri.v1.z, tri.v2.z));
+			ids[i] = i;
+		}
+		this.hierarchy = new BoundingVolumeHierarchy();
+		this.hierarchy.build(ids, ids.length, bounds);
+		
+		//The intersection point of a ray with a triangle is computed with rounding errors, 
+		//so it may lie slightly outside of the triangle's box
+		float[] meshBounds = hierarchy.getBounds();
+		float size = 0;
+		if (meshBounds != null){
+			size = Math.max(meshBounds[3] - meshBounds[0], Math.max(meshBounds[4] - meshBounds[1], meshBounds[5] - meshBounds[2]));
+		}
+		this.tolerance = size * 1e-5f;
+	}
+	
+	
+	/**
+	 * Gets the closest intersection of the ray with the triangles.
+	 * 
+	 * @param ray the ray in the local space of the mesh
+	 * @return the intersection point or null if the ray doesent hit a triangle
+	 */
+	public Vector3D getClosestIntersection(Ray ray){
+		Vector3D start = ray.getRayStartPoint();
+		int found = this.queryRay(ray);
+		float distance = Float.MAX_VALUE;
+		Vector3D returnVect = null;
+		for (int i = 0; i < found; i++) {
+			Vector3D intersectionPoint = triangles[queryResult[i]].getRayTriangleIntersection(ray);
+			if (intersectionPoint != null) {
+				float objDistance = intersectionPoint.getSubtracted(start).length();
+				if (objDistance <= distance) {
+					distance = objDistance;
+					returnVect = intersectionPoint;
+				}
+			}
+		}
+		return returnVect;
+	}
+	
+	
+	/**
+	 * Finds the triangles whose boxes are hit by the line along the ray. 
+	 * The triangle indices are stored in the array returned by <code>getQueryResult()</code>.
+	 * 
+	 * @param ray the ray in the local space of the mesh
+	 * @return the number of triangles found
+	 */
+	public int queryRay(Ray ray){
+		Vector3D start = ray.getRayStartPoint();
+		Vector3D dir = ray.getPointInRayDirection().getSubtracted(start);
+		return hierarchy.queryLine(start.x, start.y, start.z, dir.x, dir.y, dir.z, tolerance, queryResult);
+	}
+	
+	
+	/**
+	 * Gets the triangle indices found by the last call to <code>queryRay()</code>.
+	 * 
+	 * @return the query result
+	 */
+	public int[] getQueryResult() {
+		return queryResult;
+	}
+	
+	
+	/**
+	 * Checks if a triangle of this mesh intersects a triangle of the other mesh.
+	 * Only the triangles of the other mesh whose boxes overlap a triangle box of this 
+	 * mesh are transformed and tested.
+	 * 
+	 * @param other the hierarchy of the other mesh
+	 * @param otherToThis the transformation from the local space of the other mesh to the local space of this mesh, null for the identity
+	 * @return true, if the meshes intersect
+	 */
+	public boolean intersects(final TriangleHierarchy other, final Matrix otherToThis){
+		return hierarchy.queryOverlap(other.hierarchy, otherToThis, new LeafPairVisitor() {
+			public boolean visit(int leafId, int otherLeafId) {
+				Triangle tri = triangles[leafId];
+				Triangle otherTri = other.triangles[otherLeafId];
+				if (otherToThis != null){
+					otherToThis.mult(otherTri.v0, u0);
+					otherToThis.mult(otherTri.v1, u1);
+					otherToThis.mult(otherTri.v2, u2);
+				}else{
+					u0.setXYZ(otherTri.v0.x, otherTri.v0.y, otherTri.v0.z);
+					u1.setXYZ(otherTri.v1.x, otherTri.v1.y, otherTri.v1.z);
+					u2.setXYZ(otherTri.v2.x, otherTri.v2.y, otherTri.v2.z);
+				}
+				return ToolsGeometry.isTrianglesIntersect(tri.v0, tri.v1, tri.v2, u0, u1, u2);
+			}
+		});
+	}
+	
+	
+	/**
+	 * Gets the triangles.
+	 * 
+	 * @return the triangles
+	 */
+	public Triangle[] getTriangles() {
+		return triangles;
+	}
+	
+	
+	/**
+	 * Gets the bounding volume hierarchy, the leaf ids are the triangle indices.
+	 * 
+	 * @return the hierarchy
+	 */
+	public BoundingVolumeHierarchy getHierarchy() {
+		return hierarchy;
+	}
+
+}
@@ -0,0 +1,55 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.components.visibleComponents.widgets;
+
+/**
+ * The Interface IListCellProvider. Provides the cells of a virtualized <code>MTList</code>.
+ * <p>
+ * The list only creates cells for the rows that are currently visible. Cells scrolled 
+ * out of view are kept in a pool and bound to other rows again, so <code>bindCell</code>
+ * has to set up the complete content of the cell for the given row.
+ * 
+ * @see MTList#setCellProvider(IListCellProvider)
+ */
+public interface IListCellProvider {
+	
+	/**
+	 * Gets the number of rows of the list.
+	 * 
+	 * @return the cell count
+	 */
+	public int getCellCount();
+	
+	/**
+	 * Creates a new, unbound cell. Called only if no recycled cell is available.
+	 * The cell should have the preferred cell height of the list.
+	 * 
+	 * @param list the list
+	 * @return the list cell
+	 */
+	public MTListCell createCell(MTList list);
+	
+	/**
+	 * Binds the cell to the row with the given index, i.e. sets up its content for the row.
+	 * 
+	 * @param cell the cell
+	 * @param index the row index
+	 */
+	public void bindCell(MTListCell cell, int index);
+	
+}
@@ -0,0 +1,172 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.components.visibleComponents.widgets;
+
+import org.mt4j.MTApplication;
+import org.mt4j.components.TransformSpace;
+import org.mt4j.components.visibleComponents.font.FontManager;
+import org.mt4j.util.FrameProfiler;
+import org.mt4j.util.MT4jSettings;
+import org.mt4j.util.MTColor;
+
+import processing.core.PGraphics;
+
+
+/**
+ * Shows the measurements of the applications <code>FrameProfiler</code> on screen.
+ * The text is refreshed twice a second. Below the text the frame times of the 
+ * history are drawn as bars, frames taking longer than the spike threshold are drawn red.
+ * <br>Enables the profiler when created. The overlay isn't pickable, it can be
+ * added to a <code>MTOverlayContainer</code> to stay in place if the camera is moved.
+ */
+public class MTFrameProfilerOverlay extends MTTextArea {
+	
+	/** The time between two refreshs of the text in milliseconds. */
+	private static final long REFRESH_INTERVAL = 500;
+	
+	/** The height of the frame time graph. */
+	private static final float GRAPH_HEIGHT = 50;
+	
+	/** The profiler. */
+	private FrameProfiler profiler;
+	
+	/** The time since the last refresh. */
+	private long timeSinceRefresh;
+	
+	/** The spike threshold in milliseconds. */
+	private float spikeThreshold;
+	
+	/** Whether the frame time graph is drawn. */
+	private boolean graphEnabled;
+	
+	
+	/**
+	 * Instantiates a new frame profiler overlay.
+	 *
+	 * @param app the application
+	 */
+	public MTFrameProfilerOverlay(MTApplication app) {
+		super(app, FontManager.getInstance().getDefaultFont(app));
+		this.profiler = app.getFrameProfiler();
+		this.profiler.setEnabled(true);
+		this.spikeThreshold = 1000f / Math.max(1, MT4jSettings.getInstance().getMaxFrameRate());
+		this.graphEnabled = true;
+		this.timeSinceRefresh = REFRESH_INTERVAL;
+		
+		this.setName("frame profiler overlay");
+		this.setPickable(false);
+		this.setFillColor(new MTColor(0, 0, 0, 180));
+		this.setNoStroke(true);
+	}
+	
+	
+	@Override
+	public void updateComponent(long timeDelta) {
+		super.updateComponent(timeDelta);
+		timeSinceRefresh += timeDelta;
+		if (timeSinceRefresh >= REFRESH_INTERVAL){
+			timeSinceRefresh = 0;
+			this.setText(profiler.getReport());
+		}
+	}
+	
+	
+	@Override
+	public void drawComponent(PGraphics g) {
+		super.drawComponent(g);
+		
+		int count = profiler.getHistoryCount();
+		if (!graphEnabled || count == 0){
+			return;
+		}
+		float width = this.getWidthXY(TransformSpace.LOCAL);
+		float x0 = this.getVerticesLocal()[0].x;
+		float y0 = this.getVerticesLocal()[0].y + this.getHeightXY(TransformSpace.LOCAL) + GRAPH_HEIGHT;
+		float barWidth = width / profiler.getHistorySize();
+		//Scale the graph so two times the spike threshold fills the height
+		float scale = GRAPH_HEIGHT / (2 * spikeThreshold * 1000000f);
+		
+		g.pushStyle();
+		g.strokeWeight(1);
+		for (int i = 0; i < count; i++) {
+			long nanos = profiler.getFrameTimeNanos(i);
+			if (nanos / 1000000f > spikeThreshold){
+				g.stroke(255, 0, 0);
+			}else{
+				g.stroke(0, 255, 0);
+			}
+			float x = x0 + width - (i + 0.5f) * barWidth;
+			g.line(x, y0, x, y0 - Math.min(GRAPH_HEIGHT, nanos * scale));
+		}
+		g.stroke(255);
+		float thresholdY = y0 - spikeThreshold * 1000000f * scale;
+		g.line(x0, thresholdY, x0 + width, thresholdY);
+		g.popStyle();
+	}
+	
+	
+	/**
+	 * Sets the threshold above which frames are drawn as spikes. 
+	 * Defaults to the time of a frame at the target frame rate.
+	 *
+	 * @param thresholdMillis the spike threshold in milliseconds
+	 */
+	public void setSpikeThreshold(float thresholdMillis){
+		if (thresholdMillis <= 0){
+			throw new IllegalArgumentException("The spike threshold has to be > 0: " + thresholdMillis);
+		}
+		this.spikeThreshold = thresholdMillis;
+	}
+	
+	/**
+	 * Gets the spike threshold.
+	 *
+	 * @return the spike threshold in milliseconds
+	 */
+	public float getSpikeThreshold(){
+		return spikeThreshold;
+	}
+	
+	/**
+	 * Sets whether the frame time graph is drawn.
+	 *
+	 * @param graphEnabled true to draw the graph
+	 */
+	public void setGraphEnabled(boolean graphEnabled){
+		this.graphEnabled = graphEnabled;
+	}
+	
+	/**
+	 * Checks if the frame time graph is drawn.
+	 *
+	 * @return true, if the graph is drawn
+	 */
+	public boolean isGraphEnabled(){
+		return graphEnabled;
+	}
+	
+	/**
+	 * Gets the profiler.
+	 *
+	 * @return the profiler
+	 */
+	public FrameProfiler getProfiler(){
+		return profiler;
+	}
+
+}
@@ -17,7 +17,9 @@
  ***********************************************************************/
 package org.mt4j.components.visibleComponents.widgets;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 import org.mt4j.components.MTComponent;
@@ -34,6 +36,7 @@ import org.mt4j.input.inputProcessors.componentProcessors.AbstractComponentProce
 import org.mt4j.input.inputProcessors.componentProcessors.dragProcessor.DragEvent;
 import org.mt4j.input.inputProcessors.componentProcessors.dragProcessor.DragProcessor;
 import org.mt4j.util.math.Vector3D;
+import org.mt4j.util.math.Vertex;
 
 import processing.core.PApplet;
 
@@ -41,6 +44,10 @@ import processing.core.PApplet;
  * The Class MTList. A list component to add MTListCell objects to.
  * The layout will be done automatically. The list should be (created) vertically but
  * by rotating it, it can also be used horizontally.
+ * <p>
+ * For long lists, the list can be virtualized by setting an <code>IListCellProvider</code>.
+ * Then only the cells of the visible rows exist, they are recycled while scrolling
+ * and all rows have the preferred cell height.
  * 
  * @author Christopher Ruff
  */
@@ -56,6 +63,12 @@ public class MTList extends MTClipRectangle {
 	
 	private float cellYPadding;
 	
+	/** The cell provider, null if the list isn't virtualized. */
+	private IListCellProvider cellProvider;
+	
+	/** The number of rows above and below the visible rows that also get a cell in a virtualized list. */
+	private int cellOverscan;
+	
 	//TODO dont paint listcells that are clipped entirely
 	//TODO horizontal/vertical list
 	//TODO padding, border between list cells etc
@@ -127,6 +140,7 @@ public class MTList extends MTClipRectangle {
 		this.preferredCellHeight = 50;
 		
 		this.cellYPadding = cellPaddingY;
+		this.cellOverscan = 1;
 		
 		this.listCellContainer = new MTListCellContainer(x,y,1,1, applet);
 		this.addChild(listCellContainer);
@@ -167,6 +181,7 @@ public class MTList extends MTClipRectangle {
 	 * @param item the item
 	 */
 	public void addListElement(MTListCell item){
+		this.checkNotVirtual();
 		this.listCellContainer.addCell(listCellContainer.cells.size(), item);
 	}
 	
@@ -177,6 +192,7 @@ public class MTList extends MTClipRectangle {
 	 * @param item the item
 	 */
 	public void addListElement(int index, MTListCell item){
+		this.checkNotVirtual();
 		this.listCellContainer.addCell(index, item);
 	}
 	
@@ -186,6 +202,7 @@ public class MTList extends MTClipRectangle {
 	 * @param item the item
 	 */
 	public void removeListElement(MTListCell item){
+		this.checkNotVirtual();
 		this.listCellContainer.removeCell(item);
 	}
 	
@@ -193,6 +210,9 @@ public class MTList extends MTClipRectangle {
 	 * Removes the all list elements.
 	 */
 	public void removeAllListElements(){
+		if (this.isVirtual()){
+			return;
+		}
 		MTComponent[] children = this.listCellContainer.getChildren();
 		for (MTComponent child : children) {
 			if (child instanceof MTListCell) {
@@ -203,6 +223,181 @@ public class MTList extends MTClipRectangle {
 	}
 	
 	
+	private void checkNotVirtual(){
+		if (this.isVirtual()){
+			throw new IllegalStateException("The cells of a virtualized list are provided by its cell provider: " + this.getName());
+		}
+	}
+	
+	
+	/**
+	 * Sets the cell provider and virtualizes the list. The list then only creates cells for the 
+	 * visible rows and recycles them while scrolling, so the cost of the list depends on its height
+	 * and not on the number of rows. All rows have the preferred cell height.
+	 * <br>The list elements added before are removed. Setting <code>null</code> turns the virtualization off.
+	 * 
+	 * @param cellProvider the cell provider or null
+	 */
+	public void setCellProvider(IListCellProvider cellProvider){
+		this.removeAllListElements();
+		this.listCellContainer.releaseVirtualCells(true);
+		this.listCellContainer.selectedRows.clear();
+		this.cellProvider = cellProvider;
+		this.listCellContainer.updateLayout();
+	}
+	
+	/**
+	 * Gets the cell provider.
+	 * 
+	 * @return the cell provider, null if the list isn't virtualized
+	 */
+	public IListCellProvider getCellProvider(){
+		return this.cellProvider;
+	}
+	
+	/**
+	 * Checks if the list is virtualized.
+	 * 
+	 * @return true, if a cell provider is set
+	 */
+	public boolean isVirtual(){
+		return this.cellProvider != null;
+	}
+	
+	/**
+	 * Notifies a virtualized list that the rows of its cell provider have changed. 
+	 * The visible cells are bound again and the scroll position is kept if possible.
+	 * The selection of rows that don't exist anymore is removed.
+	 */
+	public void notifyCellsChanged(){
+		if (this.isVirtual()){
+			this.listCellContainer.updateVirtualSize();
+			BitSet selectedRows = this.listCellContainer.selectedRows;
+			selectedRows.clear(this.listCellContainer.virtualCellCount, Math.max(this.listCellContainer.virtualCellCount, selectedRows.length()));
+			this.listCellContainer.releaseVirtualCells(false);
+			this.listCellContainer.constrainVirtualScroll();
+		}
+	}
+	
+	/**
+	 * Selects or deselects the row with the given index.
+	 * <br>In a virtualized list the selection belongs to the row, not to the cell. Each time a cell
+	 * is bound to a row, its selection state is set to the row's before <code>IListCellProvider.bindCell</code>
+	 * is called. If the row currently has a cell, the cell is bound again.
+	 * 
+	 * @param index the row index
+	 * @param selected true to select the row
+	 */
+	public void setCellSelected(int index, boolean selected){
+		if (this.isVirtual()){
+			if (index < 0 || index >= this.listCellContainer.virtualCellCount){
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.listCellContainer.virtualCellCount);
+			}
+			this.listCellContainer.selectedRows.set(index, selected);
+			MTListCell cell = this.listCellContainer.getVisibleCell(index);
+			if (cell != null && cell.isSelected() != selected){
+				cell.setSelected(selected);
+				this.cellProvider.bindCell(cell, index);
+			}
+		}else{
+			this.listCellContainer.cells.get(index).setSelected(selected);
+		}
+	}
+	
+	/**
+	 * Checks if the row with the given index is selected.
+	 * 
+	 * @param index the row index
+	 * @return true, if the row is selected
+	 */
+	public boolean isCellSelected(int index){
+		if (this.isVirtual()){
+			return index >= 0 && index < this.listCellContainer.virtualCellCount && this.listCellContainer.selectedRows.get(index);
+		}else{
+			return this.listCellContainer.cells.get(index).isSelected();
+		}
+	}
+	
+	/**
+	 * Gets the number of cells that currently exist in a virtualized list. 
+	 * This includes the visible cells and the recycled cells waiting to be reused.
+	 * 
+	 * @return the number of cells
+	 */
+	public int getMaterializedCellCount(){
+		return this.listCellContainer.visibleCells.size() + this.listCellContainer.cellPool.size();
+	}
+	
+	/**
+	 * Gets the index of the first row with a cell in a virtualized list, including the overscan rows.
+	 * 
+	 * @return the first visible index
+	 */
+	public int getFirstVisibleIndex(){
+		return this.listCellContainer.firstVisibleIndex;
+	}
+	
+	/**
+	 * Gets the number of cells in the scene graph of a virtualized list, including the overscan rows.
+	 * 
+	 * @return the visible cell count
+	 */
+	public int getVisibleCellCount(){
+		return this.listCellContainer.visibleCells.size();
+	}
+	
+	/**
+	 * Gets the number of rows above and below the visible rows that also have a cell in a virtualized list.
+	 * 
+	 * @return the cell overscan
+	 */
+	public int getCellOverscan(){
+		return this.cellOverscan;
+	}
+	
+	/**
+	 * Sets the number of rows above and below the visible rows that also have a cell in a virtualized list.
+	 * So the cells are bound a little before they are scrolled into view. The default is 1.
+	 * 
+	 * @param cellOverscan the cell overscan
+	 */
+	public void setCellOverscan(int cellOverscan){
+		this.cellOverscan = Math.max(0, cellOverscan);
+		this.listCellContainer.updateVisibleCells();
+	}
+	
+	/**
+	 * Gets the preferred cell height. In a virtualized list all rows have this height.
+	 * 
+	 * @return the preferred cell height
+	 */
+	public float getPreferredCellHeight() {
+		return preferredCellHeight;
+	}
+	
+	/**
+	 * Sets the preferred cell height. In a virtualized list all rows have this height.
+	 * 
+	 * @param preferredCellHeight the new preferred cell height
+	 */
+	public void setPreferredCellHeight(float preferredCellHeight) {
+		this.preferredCellHeight = preferredCellHeight;
+		if (this.isVirtual()){
+			this.listCellContainer.updateVirtualSize();
+			this.listCellContainer.releaseVirtualCells(false);
+			this.listCellContainer.constrainVirtualScroll();
+		}
+	}
+	
+	
+	@Override
+	protected void destroyComponent() {
+		super.destroyComponent();
+		//The recycled cells aren't part of the scene graph
+		this.listCellContainer.releaseVirtualCells(true);
+	}
+	
+	
 	private Vector3D getListUpperLeftLocal(){
 		PositionAnchor savedAnchor = this.getAnchor();
 		this.setAnchor(PositionAnchor.UPPER_LEFT);
@@ -260,10 +455,24 @@ public class MTList extends MTClipRectangle {
 	private class MTListCellContainer extends MTRectangle{
 		private PApplet app;
 		private List<MTListCell> cells;
-		private List<MTListCell> selectedCells; //TODO!
+		
+		/** The selected rows of a virtualized list. The cells are recycled, so the selection is kept by row. */
+		private BitSet selectedRows;
 		
 		private boolean isDragging;
 		
+		/** The cells of the visible rows of a virtualized list, beginning with the first visible index. */
+		private ArrayDeque<MTListCell> visibleCells;
+		
+		/** The recycled cells of a virtualized list. */
+		private ArrayDeque<MTListCell> cellPool;
+		
+		/** The row index of the first visible cell. */
+		private int firstVisibleIndex;
+		
+		/** The number of rows of a virtualized list. */
+		private int virtualCellCount;
+		
 
 		public MTListCellContainer(float x, float y, float width, float height,	PApplet applet) {
 			super(applet, x, y, width, height);
@@ -274,7 +483,10 @@ public class MTList extends MTClipRectangle {
 			this.setPickable(false);
 			
 			this.cells = new ArrayList<MTListCell>();
-			this.selectedCells = new ArrayList<MTListCell>();
+			this.selectedRows = new BitSet();
+			
+			this.visibleCells = new ArrayDeque<MTListCell>();
+			this.cellPool = new ArrayDeque<MTListCell>();
 			
 			isDragging = false;
 		}
@@ -302,20 +514,7 @@ public class MTList extends MTClipRectangle {
 			this.cells.add(index, item);
 			this.updateLayout();
 			
-			//Add drag listener which drags the cells parent (listcontainer) restriced to one axis 
-			if (!hasDragProcessor(item)){
-				item.registerInputProcessor(new DragProcessor(app));
-			}
-			
-			//Remove the default drag listener from the cell for safety
-			IGestureEventListener[] l = item.getGestureListeners();
-            for (IGestureEventListener gestureEventListener : l) {
-                if (gestureEventListener.getClass().equals(DefaultDragAction.class)) {
-                    item.removeGestureEventListener(DragProcessor.class, gestureEventListener);
-                }
-            }
-	    	
-			item.addGestureListener(DragProcessor.class, new ListCellDragListener(this));
+			this.addCellDragging(item);
 			
 			//FIXME DEBUG REMOVE!
 			/*
@@ -343,6 +542,25 @@ public class MTList extends MTClipRectangle {
 			*/
 		}
 		
+		/**
+		 * Adds the drag listener which drags the cells parent (listcontainer) restriced to one axis.
+		 */
+		private void addCellDragging(MTListCell item){
+			if (!hasDragProcessor(item)){
+				item.registerInputProcessor(new DragProcessor(app));
+			}
+			
+			//Remove the default drag listener from the cell for safety
+			IGestureEventListener[] l = item.getGestureListeners();
+            for (IGestureEventListener gestureEventListener : l) {
+                if (gestureEventListener.getClass().equals(DefaultDragAction.class)) {
+                    item.removeGestureEventListener(DragProcessor.class, gestureEventListener);
+                }
+            }
+	    	
+			item.addGestureListener(DragProcessor.class, new ListCellDragListener(this));
+		}
+		
 		private boolean hasDragProcessor(MTComponent comp){
 			AbstractComponentProcessor[] ps = comp.getInputProcessors();
             for (AbstractComponentProcessor p : ps) {
@@ -366,6 +584,15 @@ public class MTList extends MTClipRectangle {
 		
 		
 		public void updateLayout(){
+			if (isVirtual()){
+				this.updateVirtualSize();
+				this.setAnchor(PositionAnchor.UPPER_LEFT);
+				this.setPositionRelativeToParent(getListUpperLeftLocal());
+				this.releaseVirtualCells(false);
+				this.updateVisibleCells();
+				return;
+			}
+			
 			//Extend/Shrink listCellContainer
 			this.setWidthLocal(this.calcAllCellsWidth());
 			this.setHeightLocal(this.calcAllCellsHeight());
@@ -390,6 +617,137 @@ public class MTList extends MTClipRectangle {
             }
 		}
 		
+		/**
+		 * Sizes the container of a virtualized list to the rows of the cell provider.
+		 */
+		private void updateVirtualSize(){
+			virtualCellCount = cellProvider != null ? Math.max(0, cellProvider.getCellCount()) : 0;
+			float neededHeight = virtualCellCount * (preferredCellHeight + cellYPadding) - cellYPadding;
+			this.setWidthLocal(preferredCellWidth);
+			this.setHeightLocal(Math.max(0, neededHeight));
+		}
+		
+		/**
+		 * Creates, recycles and positions the cells of a virtualized list so that exactly
+		 * the visible rows and the overscan rows have a cell. Only looks at the visible rows, not at the whole list.
+		 */
+		public void updateVisibleCells(){
+			if (!isVirtual()){
+				return;
+			}
+			float pitch = preferredCellHeight + cellYPadding;
+			if (pitch <= 0){
+				return;
+			}
+			//The part of the container that is visible in the list
+			float top = getListUpperLeftLocal().y - getContainerUpperLeftRelParent().y;
+			float bottom = top + MTList.this.getHeightXY(TransformSpace.LOCAL);
+			int first = Math.max(0, (int) Math.floor(top / pitch) - cellOverscan);
+			int last = Math.min(virtualCellCount - 1, (int) Math.floor(bottom / pitch) + cellOverscan);
+			
+			//Recycle the cells scrolled out of view
+			while (!visibleCells.isEmpty() && firstVisibleIndex < first){
+				this.releaseCell(visibleCells.pollFirst());
+				firstVisibleIndex++;
+			}
+			while (!visibleCells.isEmpty() && firstVisibleIndex + visibleCells.size() - 1 > last){
+				this.releaseCell(visibleCells.pollLast());
+			}
+			if (visibleCells.isEmpty()){
+				firstVisibleIndex = first;
+			}
+			
+			//Add cells for the rows scrolled into view
+			Vertex upperLeft = this.getVerticesLocal()[0];
+			while (firstVisibleIndex > first){
+				firstVisibleIndex--;
+				visibleCells.addFirst(this.obtainCell(firstVisibleIndex, upperLeft, pitch));
+			}
+			while (firstVisibleIndex + visibleCells.size() <= last){
+				visibleCells.addLast(this.obtainCell(firstVisibleIndex + visibleCells.size(), upperLeft, pitch));
+			}
+		}
+		
+		private MTListCell obtainCell(int index, Vertex upperLeft, float pitch){
+			MTListCell cell = cellPool.pollFirst();
+			if (cell == null){
+				cell = cellProvider.createCell(MTList.this);
+				this.addCellDragging(cell);
+			}
+			//A recycled cell still has the selection state of its last row
+			cell.setSelected(selectedRows.get(index));
+			cellProvider.bindCell(cell, index);
+			
+			cell.setAnchor(PositionAnchor.UPPER_LEFT);
+			//FIXME TEST so that stroke isnt cut off because of clipping
+			float strokeOffset = cell.isNoStroke() ? 0 : cell.getStrokeWeight();
+			cell.setPositionRelativeToParent(new Vector3D(upperLeft.x + strokeOffset, upperLeft.y + strokeOffset + index * pitch, 0));
+			this.addChild(cell);
+			return cell;
+		}
+		
+		private void releaseCell(MTListCell cell){
+			this.removeChild(cell);
+			cell.setSelected(false);
+			cellPool.addLast(cell);
+		}
+		
+		/**
+		 * Gets the cell bound to the row of a virtualized list.
+		 * 
+		 * @param index the row index
+		 * @return the cell, null if the row has no cell at the moment
+		 */
+		private MTListCell getVisibleCell(int index){
+			int i = index - firstVisibleIndex;
+			if (i < 0 || i >= visibleCells.size()){
+				return null;
+			}
+			for (MTListCell cell : visibleCells) {
+				if (i-- == 0){
+					return cell;
+				}
+			}
+			return null;
+		}
+		
+		/**
+		 * Removes all cells of a virtualized list from the container.
+		 * 
+		 * @param destroy whether to destroy the cells instead of keeping them for reuse
+		 */
+		private void releaseVirtualCells(boolean destroy){
+			while (!visibleCells.isEmpty()){
+				this.releaseCell(visibleCells.pollFirst());
+			}
+			if (destroy){
+				for (MTListCell cell : cellPool) {
+					cell.destroy();
+				}
+				cellPool.clear();
+			}
+		}
+		
+		/**
+		 * Keeps the container of a virtualized list inside the list bounds.
+		 */
+		private void constrainVirtualScroll(){
+			Vector3D listUpperLeftLocal = getListUpperLeftLocal();
+			if (this.getHeightXY(TransformSpace.RELATIVE_TO_PARENT) <= MTList.this.getHeightXY(TransformSpace.LOCAL)
+				|| getContainerUpperLeftRelParent().y > listUpperLeftLocal.y
+			){
+				this.setAnchor(PositionAnchor.UPPER_LEFT);
+				this.setPositionRelativeToParent(listUpperLeftLocal);
+			}else{
+				Vector3D listLowLeftLocal = getListLowerLeftLocal();
+				if (getContainerLowerLeftRelParent().y < listLowLeftLocal.y){
+					this.setAnchor(PositionAnchor.LOWER_LEFT);
+					this.setPositionRelativeToParent(listLowLeftLocal);
+				}
+			}
+			this.updateVisibleCells();
+		}
+		
 		/**
 		 * Adds up the heights of all cells.
 		 * Calc all cells height.
@@ -501,6 +859,7 @@ public class MTList extends MTClipRectangle {
 							theListCellContainer.setPositionRelativeToParent(listLowLeftLocal);
 						}
 //					}
+						theListCellContainer.updateVisibleCells();
 				}
 				break;
 			case MTGestureEvent.GESTURE_ENDED:
@@ -586,6 +945,7 @@ public class MTList extends MTClipRectangle {
 					//Bounce off list end
 					startVelocityVec.scaleLocal(-0.25f);
 				}
+				theListCellContainer.updateVisibleCells();
 				
 				if (oldController != null){
 					oldController.update(timeDelta);
@@ -608,6 +968,7 @@ public class MTList extends MTClipRectangle {
 			listCellContainer.setAnchor(PositionAnchor.LOWER_LEFT);
 			listCellContainer.setPositionRelativeToParent(listLowLeftLocal);
 		}
+		listCellContainer.updateVisibleCells();
 	}
 	
 	
@@ -12,6 +12,9 @@ import processing.core.PApplet;
 public class MTListCell 
 //extends MTRectangle{
 extends MTClipRectangle{
+	
+	/** Whether the cell is selected. */
+	private boolean selected;
 
 	 
 	 
@@ -44,6 +47,25 @@ extends MTClipRectangle{
 	/* (non-Javadoc)
 	 * @see org.mt4j.components.visibleComponents.shapes.AbstractShape#setDefaultGestureActions()
 	 */
+	/**
+	 * Checks if the cell is selected.
+	 * 
+	 * @return true, if selected
+	 */
+	public boolean isSelected() {
+		return selected;
+	}
+
+	/**
+	 * Sets the selection state of the cell. In a virtualized list the selection belongs to the row 
+	 * and is set by the list when the cell is bound, use <code>MTList.setCellSelected</code> instead.
+	 * 
+	 * @param selected the new selection state
+	 */
+	public void setSelected(boolean selected) {
+		this.selected = selected;
+	}
+	
 	@Override
 	protected void setDefaultGestureActions() {
 		this.registerInputProcessor(new DragProcessor(getRenderer()));
@@ -29,6 +29,7 @@ import org.mt4j.input.inputData.MTInputEvent;
 import org.mt4j.input.inputProcessors.globalProcessors.AbstractGlobalInputProcessor;
 import org.mt4j.input.inputProcessors.globalProcessors.CursorTracer;
 import org.mt4j.sceneManagement.Iscene;
+import org.mt4j.util.FrameProfiler;
 import org.mt4j.util.MT4jSettings;
 import org.mt4j.util.camera.Icamera;
 import org.mt4j.util.math.Plane;
@@ -199,6 +200,7 @@ public class MTSceneTexture extends MTRectangle {
 		//TODO I actually think its necessary to call each time after rendering to the texture! But only for POT dimensions!?
 		/*
 		GLTexture tex = (GLTexture) this.getTexture();
+		FrameProfiler.countTextureBind();
 		gl.glBindTexture(tex.getTextureTarget(), tex.getTextureID());
 		gl.glGenerateMipmapEXT(tex.getTextureTarget());
 		gl.glBindTexture(tex.getTextureTarget(), 0);
@@ -17,6 +17,7 @@
  ***********************************************************************/
 package org.mt4j.components.visibleComponents.widgets;
 
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -33,14 +34,18 @@ import org.mt4j.components.visibleComponents.font.BitmapFontCharacter;
 import org.mt4j.components.visibleComponents.font.FontManager;
 import org.mt4j.components.visibleComponents.font.IFont;
 import org.mt4j.components.visibleComponents.font.IFontCharacter;
+import org.mt4j.components.visibleComponents.font.TextRunBuffer;
 import org.mt4j.components.visibleComponents.shapes.MTRectangle;
 import org.mt4j.components.visibleComponents.widgets.keyboard.ITextInputListener;
 import org.mt4j.components.visibleComponents.widgets.keyboard.MTKeyboard;
 import org.mt4j.input.inputProcessors.componentProcessors.lassoProcessor.IdragClusterable;
+import org.mt4j.util.FrameProfiler;
 import org.mt4j.util.MT4jSettings;
 import org.mt4j.util.MTColor;
+import org.mt4j.util.opengl.GLTexture;
 import org.mt4j.util.math.Matrix;
 import org.mt4j.util.math.Tools3D;
+import org.mt4j.util.math.ToolsBuffers;
 import org.mt4j.util.math.Vector3D;
 import org.mt4j.util.math.Vertex;
 
@@ -382,10 +387,9 @@ public class MTTextArea extends MTRectangle implements IdragClusterable, ITextIn
 	}
 	
 	@Override
-	public void setMatricesDirty(boolean baseMatrixDirty) {
-		super.setMatricesDirty(baseMatrixDirty);
-		if (baseMatrixDirty)
-			snapVectorDirty = baseMatrixDirty;
+	protected void globalMatrixChanged() {
+		super.globalMatrixChanged();
+		snapVectorDirty = true;
 	}
 	
 	
@@ -394,8 +398,24 @@ public class MTTextArea extends MTRectangle implements IdragClusterable, ITextIn
 	private void setContentDisplayListDirty(boolean dirty){
 		this.contentDisplayListDirty = dirty;
 		this.useDisplayList = (!this.contentDisplayListDirty);
+		if (dirty){
+			this.textRunDirty = true;
+		}
 	}
 	private int displayListID = 0;
+	/** The texture binds compiled into the content display list. */
+	private int displayListTextureBinds = 0;
+	
+	/** Whether bitmap font text is drawn as a text run. */
+	private boolean useTextRun = true;
+	/** The quads of the current text. */
+	private TextRunBuffer textRun;
+	/** The interleaved quad buffer of the current text. */
+	private FloatBuffer textRunBuffer;
+	/** Whether the text or the layout changed since the text run was built. */
+	private boolean textRunDirty = true;
+	/** Whether the current text can be drawn as a text run. */
+	private boolean textRunDrawable = false;
 	
 	public int useContentDisplayList(){
 		if (enableCaret)
@@ -422,7 +442,9 @@ public class MTTextArea extends MTRectangle implements IdragClusterable, ITextIn
 		
 		//Record list
 		gl.glNewList(listIDFill, GL.GL_COMPILE);
+			FrameProfiler.beginDisplayList();
 			drawCharactersGL(gl, characterList, characterList.size(), lastXAdvancement, thisLineTotalXAdvancement);
+			displayListTextureBinds = FrameProfiler.endDisplayList();
 		gl.glEndList();
 		
 		if (listIDFill != 0){
@@ -457,6 +479,7 @@ public class MTTextArea extends MTRectangle implements IdragClusterable, ITextIn
 		//if snap enabled -> apply diff vector
 		boolean applySnap = false;
 		if (isBitmapFont && textPositionRounding){
+			this.getWorldGeneration();
 			if (snapVectorDirty){ //Calc new snap vector
 				Matrix m = this.getGlobalMatrix();
 				if (m.getScale().equalsVectorWithTolerance(defaultScale, tolerance)){ //Only if no scale applied
@@ -535,7 +558,10 @@ public class MTTextArea extends MTRectangle implements IdragClusterable, ITextIn
 			//enable textures, enable vertex arrays and color only once!
 			
 			if(!enableCaret && useDisplayList && this.displayListID != 0){
+				FrameProfiler.countTextureBinds(displayListTextureBinds);
 				gl.glCallList(this.displayListID);
+			}else if (useTextRun && this.updateTextRun(enableCaret && showCaret ? charListSize - 1 : charListSize)){
+				drawTextRunGL(gl, enableCaret && showCaret ? characterList.get(charListSize - 1) : null);
 			}else{
 				drawCharactersGL(gl, characterList, charListSize, lastXAdvancement, thisLineTotalXAdvancement);
 			}
@@ -657,6 +683,113 @@ public class MTTextArea extends MTRectangle implements IdragClusterable, ITextIn
 		}
 	}
 	
+	
+	/**
+	 * Rebuilds the text run of the characters if the text or the layout changed.
+	 *
+	 * @param charCount the number of characters (without caret)
+	 * @return true, if the characters can be drawn as a text run
+	 */
+	private boolean updateTextRun(int charCount){
+		if (!textRunDirty){
+			return textRunDrawable;
+		}
+		textRunDirty = false;
+		textRunDrawable = false;
+		if (!isBitmapFont){
+			return false;
+		}
+		
+		if (textRun == null){
+			textRun = new TextRunBuffer();
+		}
+		textRun.begin(innerPaddingLeft, fontHeight);
+		for (int i = 0; i < charCount; i++) {
+			IFontCharacter character = characterList.get(i);
+			Vertex[] quad = null;
+			GLTexture texture = null;
+			if (character instanceof BitmapFontCharacter){
+				BitmapFontCharacter bitmapChar = (BitmapFontCharacter)character;
+				if (!bitmapChar.isNoFill()){
+					if (!bitmapChar.isTextureEnabled() || !(bitmapChar.getTexture() instanceof GLTexture)){
+						return false;
+					}
+					quad = bitmapChar.getGeometryInfo().getVertices();
+					texture = (GLTexture)bitmapChar.getTexture();
+				}
+			}else if (!character.getUnicode().equals("\n")){
+				return false;
+			}
+			textRun.addCharacter(character.getUnicode(), character.getHorizontalDist(), quad, texture);
+		}
+		textRun.end();
+		
+		int floatCount = textRun.getQuadCount() * 4 * TextRunBuffer.FLOATS_PER_VERTEX;
+		if (textRunBuffer == null || textRunBuffer.capacity() < floatCount){
+			textRunBuffer = ToolsBuffers.createFloatBuffer(Math.max(floatCount, 64));
+		}
+		textRunBuffer.clear();
+		textRunBuffer.put(textRun.getData(), 0, floatCount);
+		textRunBuffer.rewind();
+		textRunDrawable = true;
+		return true;
+	}
+	
+	/**
+	 * Draws the text run with one draw call per texture (atlas page).
+	 *
+	 * @param gl the gl
+	 * @param caret the caret character or null
+	 */
+	private void drawTextRunGL(GL gl, IFontCharacter caret){
+		MTColor fillColor = this.getFont().getFillColor();
+		gl.glColor4f(fillColor.getR()/255f, fillColor.getG()/255f, fillColor.getB()/255f, fillColor.getAlpha()/255f); 
+		
+		int groupCount = textRun.getGroupCount();
+		if (groupCount > 0){
+			gl.glInterleavedArrays(GL.GL_T2F_V3F, 0, textRunBuffer);
+			for (int i = 0; i < groupCount; i++) {
+				GLTexture tex = (GLTexture)textRun.getGroupTexture(i);
+				int textureTarget = tex.getTextureTarget();
+				gl.glEnable(textureTarget);
+				FrameProfiler.countTextureBind();
+				gl.glBindTexture(textureTarget, tex.getTextureID());
+				gl.glDrawArrays(GL.GL_QUADS, textRun.getGroupFirstQuad(i) * 4, textRun.getGroupQuadCount(i) * 4);
+				gl.glBindTexture(textureTarget, 0);
+				gl.glDisable(textureTarget);
+			}
+			gl.glDisableClientState(GL.GL_TEXTURE_COORD_ARRAY);
+			gl.glDisableClientState(GL.GL_VERTEX_ARRAY);
+		}
+		
+		if (caret != null){
+			gl.glPushMatrix();
+			gl.glTranslatef(textRun.getCaretX(), textRun.getCaretY(), 0);
+			caret.drawComponent(gl);
+			gl.glPopMatrix();
+		}
+	}
+	
+	/**
+	 * Sets whether bitmap font text is drawn as one text run (one draw call per glyph
+	 * texture) instead of character by character. The run is only rebuilt when the text or
+	 * the layout changes. Only used in OpenGL mode. Enabled by default.
+	 *
+	 * @param useTextRun true to draw the text as a text run
+	 */
+	public void setUseTextRun(boolean useTextRun){
+		this.useTextRun = useTextRun;
+	}
+	
+	/**
+	 * Checks if bitmap font text is drawn as one text run.
+	 *
+	 * @return true, if text runs are used
+	 */
+	public boolean isUseTextRun(){
+		return this.useTextRun;
+	}
+	
 	private boolean noStrokeSettingSaved;
 	
 	@Override
@@ -138,6 +138,19 @@ public abstract class AbstractCursorInputEvt extends MTInputEvent {
 	}
 
 	
+	/**
+	 * This method should be called instead of <code>onFired()</code> if this event is not fired 
+	 * because it was merged with a later event of the same cursor.
+	 * Here, the event is added to its cursor's event history.
+	 * <br>NOTE: this is called internally and should not be called by users!
+	 */
+	public void onCoalesced() {
+		if (this.getCursor() != null){
+			this.getCursor().addCoalescedEvent(this);
+		}
+	}
+
+	
 	/**
 	 * Gets the position x.
 	 * 
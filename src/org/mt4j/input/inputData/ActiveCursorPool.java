@@ -17,9 +17,7 @@
  ***********************************************************************/
 package org.mt4j.input.inputData;
 
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import org.mt4j.util.LongObjectMap;
 
 
 
@@ -28,23 +26,25 @@ import java.util.Map;
  * for active inputs.
  * cursors are added when a new Touch is registered. cursors should be put in the map by
  * using their cursor-ID. When the cursor has ended they have to be removed again.
+ * <p>
+ * The pool is thread safe, so input sources can add and remove cursors from their
+ * own threads while the rendering thread reads them.
  * 
  * @author Christopher Ruff
  */
 public class ActiveCursorPool {
 	
 	/** The cursor pool. */
-	private static ActiveCursorPool cursorPool;
+	private static final ActiveCursorPool cursorPool = new ActiveCursorPool();
 	
-	/** The cursors map. */
-	private Map<Long, InputCursor> cursorMap;
+	/** The cursors map. Guarded by this pool. */
+	private final LongObjectMap<InputCursor> cursorMap;
 	
 	/**
 	 * Instantiates a new cursor pool.
 	 */
 	private ActiveCursorPool(){
-		cursorMap = new HashMap<Long, InputCursor>();
-//		cursorMap = new WeakHashMap<Long, InputCursor>();
+		cursorMap = new LongObjectMap<InputCursor>(64);
 	}
 	
 	/**
@@ -53,12 +53,7 @@ public class ActiveCursorPool {
 	 * @return single instance of cursorPool
 	 */
 	public static ActiveCursorPool getInstance(){
-		if (cursorPool == null){
-			cursorPool = new ActiveCursorPool();
-			return cursorPool;
-		}else{
-			return cursorPool;
-		}
+		return cursorPool;
 	}
 
 	
@@ -68,7 +63,7 @@ public class ActiveCursorPool {
 	 * @param cursorID the cursor id
 	 * @param m the m
 	 */ //TODO automate because id = cursorID?
-	public void putActiveCursor(long cursorID, InputCursor m){
+	public synchronized void putActiveCursor(long cursorID, InputCursor m){
 		cursorMap.put(cursorID, m);
 	}
 	
@@ -80,13 +75,17 @@ public class ActiveCursorPool {
 	 * 
 	 * @return the cursor by id
 	 */
-	public InputCursor getActiveCursorByID(long ID){
+	public synchronized InputCursor getActiveCursorByID(long ID){
 		return cursorMap.get(ID);
 	}
 	
-	public InputCursor[] getActiveCursors(){
-		Collection<InputCursor> values = cursorMap.values();
-		return values.toArray(new InputCursor[values.size()]);
+	/**
+	 * Gets a snapshot of the active cursors.
+	 * 
+	 * @return the active cursors
+	 */
+	public synchronized InputCursor[] getActiveCursors(){
+		return cursorMap.values(new InputCursor[cursorMap.size()]);
 		/*
 		Set<Long> keys = cursorsMap.keySet();
 		for (Iterator iterator = keys.iterator(); iterator.hasNext();) {
@@ -108,7 +107,7 @@ public class ActiveCursorPool {
 	 * @param ID the iD
 	 * @return the input cursor
 	 */
-	public InputCursor removeCursor(long ID){
+	public synchronized InputCursor removeCursor(long ID){
 		return cursorMap.remove(ID);
 	}
 	
@@ -117,7 +116,7 @@ public class ActiveCursorPool {
 	 * 
 	 * @return the active cursor count
 	 */
-	public long getActiveCursorCount(){
+	public synchronized long getActiveCursorCount(){
 		return cursorMap.size();
 	}
 	
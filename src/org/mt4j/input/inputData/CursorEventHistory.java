@@ -0,0 +1,248 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.input.inputData;
+
+import java.util.AbstractList;
+import java.util.List;
+
+
+/**
+ * A fixed capacity ring buffer of the events of an input cursor.
+ * <p>
+ * The positions and time stamps of the events are copied into parallel primitive
+ * arrays when they are added, so that queries like the velocity or direction of
+ * the cursor can be answered without touching or allocating objects.
+ * If the buffer is full, adding an event overwrites the oldest one in constant time.
+ * <br>Indices are relative to the oldest event in the buffer, index <code>0</code> is the
+ * oldest, <code>size()-1</code> is the newest event.
+ * <p>
+ * This class isn't thread safe.
+ */
+public class CursorEventHistory {
+
+	/** The events. */
+	private final AbstractCursorInputEvt[] events;
+
+	/** The x positions of the events. */
+	private final float[] x;
+
+	/** The y positions of the events. */
+	private final float[] y;
+
+	/** The time stamps of the events. */
+	private final long[] timeStamps;
+
+	/** The array index of the oldest event. */
+	private int head;
+
+	/** The number of events. */
+	private int size;
+
+	/** The read only list view. */
+	private List<AbstractCursorInputEvt> listView;
+
+
+	/**
+	 * Instantiates a new cursor event history.
+	 *
+	 * @param capacity the maximum number of events kept
+	 */
+	public CursorEventHistory(int capacity){
+		if (capacity < 1){
+			throw new IllegalArgumentException("The capacity has to be > 0: " + capacity);
+		}
+		this.events 	= new AbstractCursorInputEvt[capacity];
+		this.x 			= new float[capacity];
+		this.y 			= new float[capacity];
+		this.timeStamps = new long[capacity];
+		this.head = 0;
+		this.size = 0;
+	}
+
+
+	/**
+	 * Adds the event. If the history is full, the oldest event is removed.
+	 *
+	 * @param evt the event
+	 */
+	public void add(AbstractCursorInputEvt evt){
+		int capacity = events.length;
+		int index;
+		if (size < capacity){
+			index = (head + size) % capacity;
+			size++;
+		}else{
+			index = head;
+			head = (head + 1) % capacity;
+		}
+		events[index] 		= evt;
+		x[index] 			= evt.getX();
+		y[index] 			= evt.getY();
+		timeStamps[index] 	= evt.getTimeStamp();
+	}
+
+
+	/**
+	 * Removes all events.
+	 */
+	public void clear(){
+		for (int i = 0; i < events.length; i++) {
+			events[i] = null;
+		}
+		head = 0;
+		size = 0;
+	}
+
+
+	private int toArrayIndex(int i){
+		if (i < 0 || i >= size){
+			throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+		}
+		return (head + i) % events.length;
+	}
+
+
+	/**
+	 * Gets the event at the index.
+	 *
+	 * @param i the index, 0 being the oldest event
+	 * @return the event
+	 */
+	public AbstractCursorInputEvt get(int i){
+		return events[this.toArrayIndex(i)];
+	}
+
+	/**
+	 * Gets the x position the event at the index had when it was added.
+	 *
+	 * @param i the index, 0 being the oldest event
+	 * @return the x position
+	 */
+	public float getX(int i){
+		return x[this.toArrayIndex(i)];
+	}
+
+	/**
+	 * Gets the y position the event at the index had when it was added.
+	 *
+	 * @param i the index, 0 being the oldest event
+	 * @return the y position
+	 */
+	public float getY(int i){
+		return y[this.toArrayIndex(i)];
+	}
+
+	/**
+	 * Gets the time stamp of the event at the index.
+	 *
+	 * @param i the index, 0 being the oldest event
+	 * @return the time stamp
+	 */
+	public long getTimeStamp(int i){
+		return timeStamps[this.toArrayIndex(i)];
+	}
+
+
+	/**
+	 * Gets the index of the event or -1 if it isn't in the history.
+	 *
+	 * @param evt the event
+	 * @return the index
+	 */
+	public int indexOf(Object evt){
+		for (int i = 0; i < size; i++) {
+			AbstractCursorInputEvt e = events[(head + i) % events.length];
+			if (evt == null ? e == null : evt.equals(e)){
+				return i;
+			}
+		}
+		return -1;
+	}
+
+
+	/**
+	 * Gets the index of the oldest event of the unbroken sequence of newest events
+	 * whose time stamps are less than <code>millisAgo</code> milliseconds before <code>now</code>.
+	 * Only events with an index greater or equal <code>minIndex</code> are considered.
+	 * <br>Returns <code>size()</code> if the newest event isn't in the time window.
+	 *
+	 * @param now the current time
+	 * @param millisAgo the time window in milliseconds
+	 * @param minIndex the smallest index considered
+	 * @return the index of the oldest event in the time window
+	 */
+	public int getFirstIndexSince(long now, int millisAgo, int minIndex){
+		int first = size;
+		int capacity = events.length;
+		for (int i = size - 1; i >= minIndex && i >= 0; i--) {
+			if (now - timeStamps[(head + i) % capacity] < millisAgo){
+				first = i;
+			}else{
+				break;
+			}
+		}
+		return first;
+	}
+
+
+	/**
+	 * Gets the number of events.
+	 *
+	 * @return the size
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * Gets the maximum number of events kept.
+	 *
+	 * @return the capacity
+	 */
+	public int getCapacity(){
+		return events.length;
+	}
+
+
+	/**
+	 * Gets a read only list view of the events, ordered from the oldest to the newest.
+	 * The view isn't a copy, it reflects later changes of the history.
+	 *
+	 * @return the list view
+	 */
+	public List<AbstractCursorInputEvt> asList(){
+		if (listView == null){
+			listView = new AbstractList<AbstractCursorInputEvt>() {
+				@Override
+				public AbstractCursorInputEvt get(int index) {
+					return CursorEventHistory.this.get(index);
+				}
+				@Override
+				public int size() {
+					return size;
+				}
+				@Override
+				public int indexOf(Object o) {
+					return CursorEventHistory.this.indexOf(o);
+				}
+			};
+		}
+		return listView;
+	}
+
+}
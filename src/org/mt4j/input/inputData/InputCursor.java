@@ -47,8 +47,14 @@ public class InputCursor{
 		logger.setLevel(ILogger.ERROR);
 	}
 	
-	/** The events. */
-	private List<AbstractCursorInputEvt> events;
+	/** The event history. */
+	private CursorEventHistory history;
+	
+	/** The last event that was fired to the input processors. */
+	private AbstractCursorInputEvt lastFiredEvent;
+	
+	/** The event that was fired to the input processors before the last one. */
+	private AbstractCursorInputEvt previousFiredEvent;
 	
 	/** The current id. */
 	private static long currentID;
@@ -68,8 +74,7 @@ public class InputCursor{
 	public InputCursor(){
 		this.ID = generateNewID();
 		
-		events = new ArrayList<AbstractCursorInputEvt>(100);
-//		events = new LinkedList<AbstractCursorInputEvt>();
+		history = new CursorEventHistory(EVENT_HISTORY_DEPTH);
 		
 		lockingProcessorsToPriority = new TreeMap<AbstractCursorProcessor, Float>(new Comparator<AbstractCursorProcessor>() {
 			//@Override //TODO make comparater inner clas and reuse 
@@ -147,20 +152,26 @@ public class InputCursor{
 //		if (ia instanceof AbstractCursorProcessor){
 //			AbstractCursorProcessor a = (AbstractCursorProcessor)ia;
 //			System.out.println(a.getName() + " trying to LOCK cursor: " + this.getId());
+		boolean debug = logger.isDebugEnabled();
+		if (debug){
 			logger.debug(ia.getName() + " trying to LOCK cursor: " + this.getId());
+		}
 //		}
 		
 			float currentLockPriority = this.getCurrentLockPriority();
 		
 		if (currentLockPriority == ia.getLockPriority()){
 			lockingProcessorsToPriority.put(ia, ia.getLockPriority());
-			logger.debug("Cursor: " + this.getId() + " LOCKED sucessfully, dont send lock signal because cursor was already locked by same priority (" + currentLockPriority +   ")");
+			if (debug){
+				logger.debug("Cursor: " + this.getId() + " LOCKED sucessfully, dont send lock signal because cursor was already locked by same priority (" + currentLockPriority +   ")");
+			}
 			return true;
 		}else if (currentLockPriority < ia.getLockPriority()){
 			lockingProcessorsToPriority.put(ia, ia.getLockPriority());
 			
-			
-			logger.debug("Cursor: " + this.getId() + " LOCKED sucessfully, send lock signal - Cursor priority was lower " + "(" + currentLockPriority +   ")" +  " than the gesture priority (" + ia.getLockPriority() + ")");
+			if (debug){
+				logger.debug("Cursor: " + this.getId() + " LOCKED sucessfully, send lock signal - Cursor priority was lower " + "(" + currentLockPriority +   ")" +  " than the gesture priority (" + ia.getLockPriority() + ")");
+			}
 			// Send only to ones lower than this priority
 			cursorLockedByHigherPriorityGesture(ia, ia.getLockPriority());
 			
@@ -174,7 +185,7 @@ public class InputCursor{
 			Set<AbstractCursorProcessor> k = m.keySet();
 			for (Iterator<AbstractCursorProcessor> iterator = k.iterator(); iterator.hasNext();) {
 				AbstractCursorProcessor processor = iterator.next();
-				logger.debug("itereating and removing old, lower priority processor: "  + processor);
+				logger.debug("itereating and removing old, lower priority processor: {}", processor);
 				iterator.remove();
 			}
 			
@@ -183,7 +194,9 @@ public class InputCursor{
 			return true;
 		}else{ //cursor locked by higher priority already
 //			lockSeekingAnalyzersToPriority.put(ia, ia.getLockPriority()); //TODO REMOVE?
-			logger.debug("Cursor: " + this.getId() + " LOCKED UN-sucessfully, send no lock signal - Cursor priority " + "(" + currentLockPriority +   ")" +  " higher than the gesture priority (" + ia.getLockPriority() + ")");
+			if (debug){
+				logger.debug("Cursor: " + this.getId() + " LOCKED UN-sucessfully, send no lock signal - Cursor priority " + "(" + currentLockPriority +   ")" +  " higher than the gesture priority (" + ia.getLockPriority() + ")");
+			}
 			return false;
 		}
 	}
@@ -211,7 +224,9 @@ public class InputCursor{
 			for (AbstractCursorProcessor processor : lesserPriorityGestureKeys) {
                 //Only send lock signal to the processors whos priority is lower than the current locking cursor priority
                 AbstractCursorProcessor a = processor;
-                logger.debug("Cursor: " + this.getId() + " Sending cursor LOCKED signal to: " + a.getName());
+                if (logger.isDebugEnabled()){
+                	logger.debug("Cursor: " + this.getId() + " Sending cursor LOCKED signal to: " + a.getName());
+                }
                 
                 //FIXME the lock is already lost here? -it was like this, yes -> change so we can use
                 //if (this.getLockedCursors.contains(inputCursor)) ... in the processors' cursorLocked() method to check if 
@@ -286,7 +301,9 @@ public class InputCursor{
 	 * @param ia the AbstractCursorProcessor
 	 */
 	public void unlock(AbstractCursorProcessor ia){
-		logger.debug(ia.getName() + " UNLOCKING cursor: " + this.getId());
+		if (logger.isDebugEnabled()){
+			logger.debug(ia.getName() + " UNLOCKING cursor: " + this.getId());
+		}
 		
 		float beforeLockPriority = this.getCurrentLockPriority();
 		float unlockingGesturePriority = ia.getLockPriority();
@@ -300,7 +317,7 @@ public class InputCursor{
 				AbstractCursorProcessor inputProcessor = iterator.next();
 				if (inputProcessor.equals(ia)){
 					iterator.remove();
-					logger.debug("Removed " + ia + " from lockSeekingAnalyzersToPriority list.");
+					logger.debug("Removed {} from lockSeekingAnalyzersToPriority list.", ia);
 				}
 			}
 		
@@ -345,15 +362,24 @@ public class InputCursor{
 	 * @param te the te
 	 */
 	protected void addEvent(AbstractCursorInputEvt te){
-		this.events.add(te);
-//		if (events.size() > EVENT_HISTORY_DEPTH && events.size() > 30){
-//            events.subList(0, 30).clear();
-//        }
-		if (events.size() > EVENT_HISTORY_DEPTH ){
-          events.remove(0);
-          //logger.debug(this.getId() + " - First event removed!");
-//          System.out.println("First event removed!");
-      }
+		this.previousFiredEvent = this.lastFiredEvent;
+		this.lastFiredEvent = te;
+		this.addToHistory(te);
+	}
+	
+	/**
+	 * Adds an event which was merged with a later event of this cursor and thus
+	 * is not fired to the input processors. It is only kept in the event history.
+	 * 
+	 * @param te the te
+	 */
+	protected void addCoalescedEvent(AbstractCursorInputEvt te){
+		this.addToHistory(te);
+	}
+	
+	private void addToHistory(AbstractCursorInputEvt te){
+		//Overwrites the oldest event if the history is full
+		this.history.add(te);
 	}
 
 	
@@ -365,7 +391,7 @@ public class InputCursor{
 	 * @return true, if successful
 	 */
 	public boolean containsEvent(AbstractCursorInputEvt te){
-		return this.events.contains(te);
+		return this.history.indexOf(te) != -1;
 	}
 	
 	
@@ -390,17 +416,21 @@ public class InputCursor{
 //	}
 	
 	/**
-	 * Gets the events.
+	 * Gets the events, ordered from the oldest to the newest.
+	 * <br>Only the last <code>EVENT_HISTORY_DEPTH</code> (99) events of the cursor are kept.
+	 * The returned list is a read only view of the cursor's event history, it reflects 
+	 * later events of the cursor. Copy it to keep the events of the current moment.
 	 * 
 	 * @return the events
 	 */
 	public List<AbstractCursorInputEvt> getEvents(){
-		return this.events;
+		return this.history.asList();
 	}
 	
 	
 	/**
-	 * Gets the events.
+	 * Gets the events of the last milliseconds, ordered from the newest to the oldest.
+	 * The first event of the cursor is never included.
 	 * 
 	 * @param millisAgo the millis ago
 	 * 
@@ -408,20 +438,9 @@ public class InputCursor{
 	 */
 	public List<AbstractCursorInputEvt> getEvents(int millisAgo){
 		ArrayList<AbstractCursorInputEvt> result = new ArrayList<AbstractCursorInputEvt>();
-		List<AbstractCursorInputEvt> allEvents = this.getEvents();
-		long now = System.currentTimeMillis();
-//		for (int i = 0; i < allEvents.size(); i++) {
-//			if(now-allEvents.get(i).getWhen()<millisAgo){
-//				result.add(allEvents.get(i));
-//			}
-//		}
-		for (int i = allEvents.size()-1; i > 0; i--) {
-			if((now - allEvents.get(i).getTimeStamp()) < millisAgo){
-				result.add(allEvents.get(i));
-			}  
-			else{// schleife abbrechen wenn falsch damit rest nicht durchsucht werden muss
-				break;
-			}
+		int first = history.getFirstIndexSince(System.currentTimeMillis(), millisAgo, 1);
+		for (int i = history.size()-1; i >= first; i--) {
+			result.add(history.get(i));
 		}
 		return result;
 	}
@@ -433,23 +452,29 @@ public class InputCursor{
 	 * @return the last event
 	 */
 	public AbstractCursorInputEvt getCurrentEvent(){
-		if(this.events.size()==0){ 
+		if(this.history.size()==0){ 
 			return null;
 		}else{
-			return this.events.get(this.getEventCount()-1);
+			return this.history.get(this.getEventCount()-1);
 		}
 	}
 	
 	/**
 	 * Gets the evt before last event.
+	 * <br>This is the event that was fired to the input processors before the current one. 
+	 * If the input source merges updates (see <code>AbstractInputSource.setCoalesceUpdates()</code>)
+	 * the merged events in between are skipped, so that the difference between the previous and the
+	 * current event is the whole movement since the last time the processors were notified.
 	 * 
 	 * @return the evt before last event
 	 */
 	public AbstractCursorInputEvt getPreviousEvent(){
-		if(this.events.size()<2){
+		if(this.history.size()<2){
 			return null;
+		}else if (this.previousFiredEvent != null){
+			return this.previousFiredEvent;
 		}else{
-			return this.events.get(this.getEventCount()-2);
+			return this.history.get(this.getEventCount()-2);
 		}
 	}
 	
@@ -538,30 +563,12 @@ public class InputCursor{
 	 * @return the previous event of
 	 */
 	public AbstractCursorInputEvt getPreviousEventOf(AbstractCursorInputEvt te){ 
-		List<AbstractCursorInputEvt> allEvents = this.getEvents();
-		AbstractCursorInputEvt returnEvent = null;
-		
-//		for (int i = 0; i < allEvents.length; i++) {
-//			T event = allEvents[i];
-//			
-//			if (event.equals(te) && allEvents[i-1] != null) {
-//				returnEvent = allEvents[i-1] ;
-//			}
-//		}
-//		return returnEvent;
-		
-		for (int i = 0; i < allEvents.size(); i++) {
-			AbstractCursorInputEvt event = allEvents.get(i);
-			
-			if (event.equals(te) 
-				&& (allEvents.size() >= 2) 
-				&& i-1 > 0
-				&& allEvents.get(i-1) != null) 
-			{
-				returnEvent = allEvents.get(i-1);
-			}
+		int index = this.history.indexOf(te);
+		if (index > 1){
+			return this.history.get(index-1);
+		}else{
+			return null;
 		}
-		return returnEvent;
 	}
 	
 	
@@ -571,10 +578,10 @@ public class InputCursor{
 	 * @return the first event
 	 */
 	public AbstractCursorInputEvt getFirstEvent(){
-		if(this.events.size()==0){
+		if(this.history.size()==0){
 			return null;
 		}else{
-			return this.events.get(0);
+			return this.history.get(0);
 		}
 	}
 	
@@ -584,7 +591,7 @@ public class InputCursor{
 	 * @return the event count
 	 */
 	public int getEventCount(){
-		return this.events.size();
+		return this.history.size();
 	}
 	
 	/**
@@ -620,8 +627,8 @@ public class InputCursor{
 	 */
 	public String toString() {
 		String s=("Cursor id=" +this.ID) + "\n";
-		for (int i = 0; i < this.events.size(); i++) {
-			s += "\t" + i + ": " + this.events.get(i)+ "\n";
+		for (int i = 0; i < this.history.size(); i++) {
+			s += "\t" + i + ": " + this.history.get(i)+ "\n";
 		}
 		return s;
 	}
@@ -629,6 +636,9 @@ public class InputCursor{
 
 	public void printLockSeekingAnalyzerList() {
 		Set<AbstractCursorProcessor> claimed = lockingProcessorsToPriority.keySet();
+		if (!logger.isDebugEnabled()){
+			return;
+		}
 		logger.debug("Lock seeking processors list of cursor: " + this.getId());
         for (AbstractCursorProcessor inputAnalyzer : claimed) {
             logger.debug(inputAnalyzer.getClass() + " " + " Priority: " + inputAnalyzer.getLockPriority());
@@ -639,6 +649,9 @@ public class InputCursor{
 
 	public void printInterestedAnalyzersList() {
 		Set<AbstractCursorProcessor> watching = registeredProcessorsToPriority.keySet();
+		if (!logger.isDebugEnabled()){
+			return;
+		}
 		logger.debug("Interested processors list of cursor: " + this.getId());
         for (AbstractCursorProcessor inputAnalyzer : watching) {
             logger.debug(inputAnalyzer.getClass() + " " + " Priority: " + inputAnalyzer.getLockPriority());
@@ -696,16 +709,40 @@ public class InputCursor{
 	*/
 	
 	
+	/**
+	 * Gets the direction of the last movement of this cursor, which is the
+	 * difference between the positions of the last two events.
+	 * The vector isn't normalized, its length is the distance moved.
+	 * 
+	 * @return the direction
+	 */
 	public Vector3D getDirection(){
-		if (this.events.isEmpty() || this.events.size() < 2)
+		if (this.history.size() < 2)
 			return Vector3D.ZERO_VECTOR;
-		
-		AbstractCursorInputEvt posEvt 	= events.get(events.size()-1);
-		AbstractCursorInputEvt prev 	= events.get(events.size()-2);
-		if (prev == null)
-			prev = posEvt;
-		//TODO normalize direction or not?
-		return new Vector3D(posEvt.getX() - prev.getX(), posEvt.getY() - prev.getY(), 0);
+		return this.getDirection(new Vector3D());
+	}
+	
+	/**
+	 * Gets the direction of the last movement of this cursor, which is the
+	 * difference between the positions of the last two events. 
+	 * The vector isn't normalized, its length is the distance moved.
+	 * Doesent create any objects.
+	 * 
+	 * @param result the vector to store the direction in
+	 * 
+	 * @return the result vector
+	 */
+	public Vector3D getDirection(Vector3D result){
+		int count = this.history.size();
+		if (count < 2){
+			result.setXYZ(0, 0, 0);
+		}else{
+			result.setXYZ(
+					history.getX(count-1) - history.getX(count-2), 
+					history.getY(count-1) - history.getY(count-2), 
+					0);
+		}
+		return result;
 	}
 	
 	
@@ -732,42 +769,36 @@ public class InputCursor{
 	 * @return the velocity vector
 	 */
 	public Vector3D getVelocityVector(int millisAgo){
-		List<AbstractCursorInputEvt> lastEvents = getEvents(millisAgo);
-		//System.out.println("Events " + millisAgo + "ms ago: " + lastEvents.size());
-		
-		float lastX = 0;
-		float lastY = 0;
-		
-		float totalX = 0;
-		float totalY = 0;
-		for (int i = 0; i < lastEvents.size(); i++) {
-			 AbstractCursorInputEvt ce = lastEvents.get(i);
-			 float x = ce.getX();
-			 float y = ce.getY();
-			 
-			 if (i == 0){
-				 lastX = x;
-				 lastY = y;
-			 }
-
-			 totalX += x - lastX;
-			 totalY += y - lastY;
-			 
-			 lastX = x;
-			 lastY = y;
+		return getVelocityVector(millisAgo, new Vector3D());
+	}
+	
+	/**
+	 * Calculates the velocity vector and stores it in the result vector.
+	 * Doesent create any objects.
+	 * 
+	 * @param millisAgo the all events from millis ago are taken into calculation
+	 * @param result the vector to store the velocity in
+	 * 
+	 * @return the result vector
+	 * @see #getVelocityVector(int)
+	 */
+	public Vector3D getVelocityVector(int millisAgo, Vector3D result){
+		int last = history.size()-1;
+		int first = history.getFirstIndexSince(System.currentTimeMillis(), millisAgo, 1);
+		if (first > last){
+			result.setXYZ(0, 0, 0);
+			return result;
 		}
 		
-//		totalX /= 20f;
-//		totalY /= 20f;
-		
-		totalX *= -0.2f;
-		totalY *= -0.2f;
+		//The sum of the movements between the events in the time window
+		float totalX = history.getX(last) - history.getX(first);
+		float totalY = history.getY(last) - history.getY(first);
 		
 		//works ok with damping float dampingValue = 0.85f; later
-		
-		//System.out.println("X total: " + totalX);
-		//System.out.println("Y total: " + totalY);
-		return new Vector3D(totalX, totalY);
+		totalX *= 0.2f;
+		totalY *= 0.2f;
+		result.setXYZ(totalX, totalY, 0);
+		return result;
 	}
 	
 //    public double getAngleFromStartPoint() {
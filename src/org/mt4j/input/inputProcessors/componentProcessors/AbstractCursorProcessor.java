@@ -121,7 +121,7 @@ public abstract class AbstractCursorProcessor extends AbstractComponentProcessor
 			
 			//Check if we Unlock a already ended cursor - just for debugging - shouldnt happen actually..
 			if (cursorUnlocked.getCurrentEvent().getId() == AbstractCursorInputEvt.INPUT_ENDED){
-				logger.warn(this + ": Unlocking already ENDED input event");
+				logger.warn("{}: Unlocking already ENDED input event", this);
 			}
 			
 			IMTComponent3D saved = cursorUnlocked.getCurrentTarget(); //FIXME Hack
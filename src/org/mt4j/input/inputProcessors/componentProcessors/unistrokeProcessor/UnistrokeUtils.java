@@ -6,6 +6,8 @@ import java.util.Stack;
 
 
 import org.mt4j.input.inputProcessors.componentProcessors.unistrokeProcessor.UnistrokeTemplates.Template;
+import org.mt4j.util.logging.ILogger;
+import org.mt4j.util.logging.MTLoggerFactory;
 import org.mt4j.util.math.Vector3D;
 
 /**
@@ -15,6 +17,10 @@ import org.mt4j.util.math.Vector3D;
  * http://www.openprocessing.org/visuals/?visualID=600
  */
 public class UnistrokeUtils {
+	private static final ILogger logger = MTLoggerFactory.getLogger(UnistrokeUtils.class.getName());
+	static{
+		logger.setLevel(ILogger.WARN);
+	}
 	
 	/** The Infinity Constant. */
 	private final float Infinity = 1e9f;
@@ -247,7 +253,7 @@ public class UnistrokeUtils {
 			float otherScore = 1.0f - (sndBest / getHalfDiagonal());
 			float ratio = otherScore / score;
 
-			System.out.println("Gesture recognition score: " + score);
+			logger.debug("Gesture recognition score: {}", score);
 			if (g != null && score > 0.7) {
 				
 				return g;
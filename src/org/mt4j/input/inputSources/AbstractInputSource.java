@@ -18,14 +18,16 @@
 package org.mt4j.input.inputSources;
 
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.Map;
 
 import org.mt4j.MTApplication;
+import org.mt4j.input.inputData.AbstractCursorInputEvt;
+import org.mt4j.input.inputData.InputCursor;
 import org.mt4j.input.inputData.MTInputEvent;
+import org.mt4j.input.inputSources.InputEventQueue.OverflowPolicy;
 import org.mt4j.sceneManagement.IPreDrawAction;
 
 
@@ -41,24 +43,59 @@ public abstract class AbstractInputSource implements IPreDrawAction {
 	private List<IinputSourceListener> inputListeners;
 	
 	/** The event queue. */
-	private Deque<MTInputEvent> eventQueue;
+	private InputEventQueue eventQueue;
 	
 	private MTApplication app;
 	
 	private List<IinputSourceListener> inputProcessorsToFireTo;
 	
+	/** If true, consecutive INPUT_UPDATED events of a cursor are merged each frame. */
+	private boolean coalesceUpdates;
+	
+	/** The events taken from the queue in the current flush (only used when coalescing). */
+	private List<MTInputEvent> flushBatch;
+	
+	/** Marks the events of the flush batch which are superseded by a later update of the same cursor. */
+	private boolean[] supersededInBatch;
+	
+	/** The index of the next event to fire from the flush batch. */
+	private int flushBatchIndex;
+	
+	/** The cursors with a later INPUT_UPDATED event in the flush batch. */
+	private Map<InputCursor, Boolean> cursorsWithLaterUpdate;
+	
+	/** The number of INPUT_UPDATED events that were merged instead of fired. */
+	private long mergedUpdateCount;
+	
 	/**
 	 * Instantiates a new abstract input source.
 	 *
 	 * @param mtApp the mt app
 	 */
 	public AbstractInputSource(MTApplication mtApp) {
+		this(mtApp, InputEventQueue.DEFAULT_CAPACITY, OverflowPolicy.COALESCE);
+	}
+	
+	/**
+	 * Instantiates a new abstract input source.
+	 *
+	 * @param mtApp the mt app
+	 * @param queueCapacity the maximum number of events queued between two frames
+	 * @param overflowPolicy what to do if the event queue is full
+	 */
+	public AbstractInputSource(MTApplication mtApp, int queueCapacity, OverflowPolicy overflowPolicy) {
 		this.inputListeners = new ArrayList<IinputSourceListener>();
-		this.eventQueue 	= new ArrayDeque<MTInputEvent>(20);
+		this.eventQueue 	= new InputEventQueue(queueCapacity, overflowPolicy);
 		
 		this.app = mtApp;
 		
 		inputProcessorsToFireTo = new ArrayList<IinputSourceListener>(10);
+		
+		this.coalesceUpdates 		= false;
+		this.flushBatch 			= new ArrayList<MTInputEvent>(64);
+		this.supersededInBatch 		= new boolean[64];
+		this.flushBatchIndex 		= 0;
+		this.cursorsWithLaterUpdate = new IdentityHashMap<InputCursor, Boolean>();
 	} 
 	
 	
@@ -110,12 +147,97 @@ public abstract class AbstractInputSource implements IPreDrawAction {
 	 * Queue input event for firing.
 	 * They will be fired automatically before the next frame in snychronization with
 	 * the render thread. Use this method instead of fireInputEvent()!
+	 * <br>This method is threadsafe and doesent lock, so it can be called from
+	 * the input source's own listener thread.
 	 * 
 	 * @param inputEvt the input evt
 	 */
 	protected void enqueueInputEvent(MTInputEvent inputEvt){ 
 //		System.out.println("ENQUEUE EVENT: Cursor: " +  ((MTFingerInputEvt)inputEvt).getCursor().getId() + " Evt-ID: " +  ((MTFingerInputEvt)inputEvt).getId());
-		this.eventQueue.addLast(inputEvt); //TODO synchronize access?
+		this.eventQueue.enqueue(inputEvt);
+	}
+	
+	
+	/**
+	 * Sets what happens if input events are queued faster than the
+	 * render thread flushes them and the event queue is full.
+	 *
+	 * @param overflowPolicy the new queue overflow policy
+	 */
+	public void setQueueOverflowPolicy(OverflowPolicy overflowPolicy){
+		this.eventQueue.setOverflowPolicy(overflowPolicy);
+	}
+	
+	/**
+	 * Gets the queue overflow policy.
+	 *
+	 * @return the queue overflow policy
+	 */
+	public OverflowPolicy getQueueOverflowPolicy(){
+		return this.eventQueue.getOverflowPolicy();
+	}
+	
+	/**
+	 * Gets the number of input events enqueued by this input source so far.
+	 *
+	 * @return the enqueued event count
+	 */
+	public long getEnqueuedEventCount(){
+		return this.eventQueue.getEnqueuedCount();
+	}
+	
+	/**
+	 * Gets the number of input events that were dropped because the event queue was full.
+	 *
+	 * @return the dropped event count
+	 */
+	public long getDroppedEventCount(){
+		return this.eventQueue.getDroppedCount();
+	}
+	
+	/**
+	 * Gets the number of input events that were merged with an already queued 
+	 * event of the same cursor because the event queue was full.
+	 *
+	 * @return the coalesced event count
+	 */
+	public long getCoalescedEventCount(){
+		return this.eventQueue.getCoalescedCount();
+	}
+	
+	
+	/**
+	 * Sets whether consecutive INPUT_UPDATED events of the same cursor that were queued 
+	 * during one frame should be merged into one event. 
+	 * This is useful if the input device sends updates a lot faster than the frame rate.
+	 * <br>Only the last update of a cursor is fired to the input processors, the updates before it are 
+	 * still added to the cursor's event history so that i.e. velocity calculations stay accurate.
+	 * INPUT_STARTED and INPUT_ENDED events are never merged.
+	 * <br>Disabled by default.
+	 *
+	 * @param coalesceUpdates true to merge the updates
+	 */
+	public void setCoalesceUpdates(boolean coalesceUpdates){
+		this.coalesceUpdates = coalesceUpdates;
+	}
+	
+	/**
+	 * Checks if consecutive INPUT_UPDATED events of a cursor are merged each frame.
+	 *
+	 * @return true, if updates are merged
+	 */
+	public boolean isCoalesceUpdates(){
+		return this.coalesceUpdates;
+	}
+	
+	/**
+	 * Gets the number of INPUT_UPDATED events that were merged instead of being fired 
+	 * because coalescing of updates is enabled.
+	 *
+	 * @return the merged update count
+	 */
+	public long getMergedUpdateCount(){
+		return this.mergedUpdateCount;
 	}
 	
 	
@@ -131,7 +253,9 @@ public abstract class AbstractInputSource implements IPreDrawAction {
 	
 	/**
 	 * Flushes the events.
-	 * <p>NOTE: not threadsafe! Has to be called in the opengl thread if in opengl mode!
+	 * <p>NOTE: Has to be called in the opengl thread if in opengl mode!
+	 * Only the events that were queued when the flush started are fired, so that
+	 * a fast input thread can't keep the render thread in here.
 	 */
 	public void flushEvents(){
 		/*
@@ -160,7 +284,8 @@ public abstract class AbstractInputSource implements IPreDrawAction {
 		}
 		*/
 		
-		if (!eventQueue.isEmpty()){
+		boolean batchPending = flushBatchIndex < flushBatch.size();
+		if (batchPending || !eventQueue.isEmpty()){
 //			System.out.print("START FLUSH CURSOR: " + ((MTFingerInputEvt)eventQueue.peek()).getCursor().getId() + " Evt-ID: " + ((MTFingerInputEvt)eventQueue.peek()).getId()+ " ");
 			//To ensure that all global input processors of the current scene
 			//get the queued events even if through the result of one event processing the scene
@@ -179,14 +304,23 @@ public abstract class AbstractInputSource implements IPreDrawAction {
 				}
 			}
 			
-			while (!eventQueue.isEmpty()){
-				try {
-					MTInputEvent te = eventQueue.pollFirst();
+			if (batchPending){
+				//Called again while firing the events of a coalesced flush (i.e. at a scene change)
+				//-> fire the remaining events of that flush first to keep the order
+				this.fireFlushBatch();
+			}
+			
+			int queued = eventQueue.size();
+			if (coalesceUpdates){
+				this.flushCoalesced(queued);
+			}else{
+				for (int i = 0; i < queued; i++) {
+					MTInputEvent te = eventQueue.poll();
+					if (te == null){
+						break;
+					}
 					this.fireInputEvent(te);
-				} catch (NoSuchElementException e) {
-					e.printStackTrace();
-					//System.err.println(e.getMessage());
-				} 
+				}
 			}
 //			System.out.println("END FLUSH");
 		}
@@ -194,6 +328,76 @@ public abstract class AbstractInputSource implements IPreDrawAction {
 	
 	
 	
+	/**
+	 * Takes the specified number of events from the queue and fires them. 
+	 * INPUT_UPDATED events which are followed by another INPUT_UPDATED event
+	 * of the same cursor are only added to the cursor, not fired.
+	 *
+	 * @param count the number of events to take from the queue
+	 */
+	private void flushCoalesced(int count){
+		flushBatch.clear();
+		flushBatchIndex = 0;
+		for (int i = 0; i < count; i++) {
+			MTInputEvent te = eventQueue.poll();
+			if (te == null){
+				break;
+			}
+			flushBatch.add(te);
+		}
+		
+		int size = flushBatch.size();
+		if (supersededInBatch.length < size){
+			supersededInBatch = new boolean[Math.max(size, supersededInBatch.length * 2)];
+		}
+		
+		//Walk backwards so we know for each update if the same cursor has a later update in this batch
+		cursorsWithLaterUpdate.clear();
+		for (int i = size - 1; i >= 0; i--) {
+			supersededInBatch[i] = false;
+			MTInputEvent te = flushBatch.get(i);
+			if (te instanceof AbstractCursorInputEvt){
+				AbstractCursorInputEvt cursorEvt = (AbstractCursorInputEvt) te;
+				InputCursor cursor = cursorEvt.getCursor();
+				if (cursor != null){
+					if (cursorEvt.getId() == AbstractCursorInputEvt.INPUT_UPDATED){
+						if (cursorsWithLaterUpdate.containsKey(cursor)){
+							supersededInBatch[i] = true;
+						}else{
+							cursorsWithLaterUpdate.put(cursor, Boolean.TRUE);
+						}
+					}else{
+						//Dont merge updates across a started or ended event
+						cursorsWithLaterUpdate.remove(cursor);
+					}
+				}
+			}
+		}
+		cursorsWithLaterUpdate.clear();
+		
+		this.fireFlushBatch();
+	}
+	
+	
+	/**
+	 * Fires the remaining events of the current flush batch.
+	 */
+	private void fireFlushBatch(){
+		while (flushBatchIndex < flushBatch.size()){
+			int index = flushBatchIndex++;
+			MTInputEvent te = flushBatch.get(index);
+			if (supersededInBatch[index]){
+				((AbstractCursorInputEvt) te).onCoalesced();
+				mergedUpdateCount++;
+			}else{
+				this.fireInputEvent(te);
+			}
+		}
+		flushBatch.clear();
+		flushBatchIndex = 0;
+	}
+	
+	
 	/**
 	 * Fire input event.
 	 * <br><b>Note:</b> This method should NOT be called directly.
@@ -0,0 +1,376 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.input.inputSources;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.mt4j.input.inputData.AbstractCursorInputEvt;
+import org.mt4j.input.inputData.MTInputEvent;
+
+
+/**
+ * A bounded, lock-free event queue used by the input sources to hand input events
+ * from their listener threads (TUIO, ManyMouse, Win7 touch, AWT..) over to the render thread.
+ * <p>
+ * The queue is a ring buffer with a sequence number per slot, so any number of
+ * threads can enqueue events concurrently without locking while the render thread
+ * polls them in <code>AbstractInputSource.flushEvents()</code>. The polling thread never
+ * blocks.
+ * <p>
+ * What happens if the queue is full is determined by the {@link OverflowPolicy}.
+ * The number of enqueued, dropped and coalesced events is counted and can be
+ * queried for diagnostics.
+ */
+public class InputEventQueue {
+
+	/**
+	 * Determines what happens if an event is enqueued while the queue is full.
+	 */
+	public enum OverflowPolicy{
+		/**
+		 * The oldest queued event is discarded to make room for the new one if it is an
+		 * INPUT_UPDATED cursor event. INPUT_STARTED and INPUT_ENDED events are never dropped, so
+		 * if one of them is at the head of the queue the new event is coalesced like with
+		 * <code>COALESCE</code> or the enqueueing thread waits for free space.
+		 */
+		DROP_OLDEST,
+
+		/**
+		 * An INPUT_UPDATED cursor event replaces the last queued INPUT_UPDATED event of
+		 * the same cursor. INPUT_STARTED and INPUT_ENDED events (and events which can't be
+		 * merged) are never dropped - the enqueueing thread waits for free space instead.
+		 */
+		COALESCE,
+
+		/** The enqueueing thread waits until the render thread has freed space in the queue. */
+		BLOCK
+	}
+
+	/** The default capacity. */
+	public static final int DEFAULT_CAPACITY = 4096;
+
+	/** The slots. */
+	private final AtomicReferenceArray<MTInputEvent> buffer;
+
+	/** The sequence number of each slot. */
+	private final AtomicLongArray sequences;
+
+	/** The mask to map a sequence number to the slot index. */
+	private final int mask;
+
+	/** The capacity. */
+	private final int capacity;
+
+	/** The position where the next event is enqueued. */
+	private final AtomicLong tail;
+
+	/** The position where the next event is polled. */
+	private final AtomicLong head;
+
+	/** The overflow policy. */
+	private volatile OverflowPolicy overflowPolicy;
+
+	private final AtomicLong enqueuedCount;
+	private final AtomicLong droppedCount;
+	private final AtomicLong coalescedCount;
+
+
+	/**
+	 * Instantiates a new input event queue with the default capacity using
+	 * the <code>COALESCE</code> overflow policy.
+	 */
+	public InputEventQueue(){
+		this(DEFAULT_CAPACITY, OverflowPolicy.COALESCE);
+	}
+
+	/**
+	 * Instantiates a new input event queue.
+	 *
+	 * @param capacity the capacity - is rounded up to the next power of two
+	 * @param overflowPolicy the overflow policy
+	 */
+	public InputEventQueue(int capacity, OverflowPolicy overflowPolicy){
+		if (capacity < 2){
+			capacity = 2;
+		}
+		int powerOfTwo = Integer.highestOneBit(capacity);
+		if (powerOfTwo < capacity){
+			powerOfTwo <<= 1;
+		}
+		this.capacity 	= powerOfTwo;
+		this.mask 		= powerOfTwo - 1;
+		this.buffer 	= new AtomicReferenceArray<MTInputEvent>(powerOfTwo);
+		this.sequences 	= new AtomicLongArray(powerOfTwo);
+		for (int i = 0; i < powerOfTwo; i++) {
+			sequences.set(i, i);
+		}
+		this.tail = new AtomicLong(0);
+		this.head = new AtomicLong(0);
+
+		this.enqueuedCount 	= new AtomicLong(0);
+		this.droppedCount 	= new AtomicLong(0);
+		this.coalescedCount = new AtomicLong(0);
+
+		this.setOverflowPolicy(overflowPolicy);
+	}
+
+
+	/**
+	 * Enqueues the event. If the queue is full the overflow policy is applied.
+	 * <br>Can be called from any thread.
+	 *
+	 * @param evt the event
+	 */
+	public void enqueue(MTInputEvent evt){
+		int waitCount = 0;
+		while (!this.offer(evt)){
+			OverflowPolicy policy = this.overflowPolicy;
+			if (policy == OverflowPolicy.DROP_OLDEST && this.pollUpdate() != null){
+				droppedCount.incrementAndGet();
+			}else{
+				if (policy != OverflowPolicy.BLOCK && this.coalesce(evt)){
+					coalescedCount.incrementAndGet();
+					return;
+				}
+				waitCount = backOff(waitCount);
+			}
+		}
+		enqueuedCount.incrementAndGet();
+	}
+
+
+
+	/**
+	 * Tries to enqueue the event without applying the overflow policy.
+	 *
+	 * @param evt the event
+	 * @return true, if the event was enqueued, false if the queue was full
+	 */
+	public boolean offer(MTInputEvent evt){
+		if (evt == null){
+			throw new NullPointerException("Cant enqueue a null event.");
+		}
+		while (true){
+			long pos = tail.get();
+			int index = (int) (pos & mask);
+			long dif = sequences.get(index) - pos;
+			if (dif == 0){
+				if (tail.compareAndSet(pos, pos + 1)){
+					buffer.set(index, evt);
+					sequences.set(index, pos + 1); //Publish
+					return true;
+				}
+			}else if (dif < 0){
+				return false; //Full
+			}
+			//Else another thread claimed the slot first -> retry
+		}
+	}
+
+
+	/**
+	 * Retrieves and removes the oldest event of the queue.
+	 *
+	 * @return the event or null if the queue is empty
+	 */
+	public MTInputEvent poll(){
+		while (true){
+			long pos = head.get();
+			int index = (int) (pos & mask);
+			long dif = sequences.get(index) - (pos + 1);
+			if (dif == 0){
+				if (head.compareAndSet(pos, pos + 1)){
+					MTInputEvent evt = buffer.getAndSet(index, null);
+					sequences.set(index, pos + capacity); //Free the slot for the next round
+					return evt;
+				}
+			}else if (dif < 0){
+				return null; //Empty
+			}
+			//Else another thread polled this slot first -> retry
+		}
+	}
+
+
+	/**
+	 * Retrieves and removes the oldest event of the queue only if it is
+	 * an INPUT_UPDATED cursor event.
+	 *
+	 * @return the event or null if the queue is empty or the oldest event may not be dropped
+	 */
+	private MTInputEvent pollUpdate(){
+		while (true){
+			long pos = head.get();
+			int index = (int) (pos & mask);
+			long dif = sequences.get(index) - (pos + 1);
+			if (dif == 0){
+				//Coalescing may replace the event, but only by another update of the same cursor
+				if (!isUpdate(buffer.get(index))){
+					return null;
+				}
+				if (head.compareAndSet(pos, pos + 1)){
+					MTInputEvent evt = buffer.getAndSet(index, null);
+					sequences.set(index, pos + capacity); //Free the slot for the next round
+					return evt;
+				}
+			}else if (dif < 0){
+				return null; //Empty
+			}
+			//Else another thread polled this slot first -> retry
+		}
+	}
+
+
+	private static boolean isUpdate(MTInputEvent evt){
+		return evt instanceof AbstractCursorInputEvt
+			&& ((AbstractCursorInputEvt) evt).getId() == AbstractCursorInputEvt.INPUT_UPDATED;
+	}
+
+
+	/**
+	 * Tries to replace the newest queued event of the same cursor by the specified event.
+	 * Only possible if both are INPUT_UPDATED events from the same source.
+	 *
+	 * @param evt the evt
+	 * @return true, if successful
+	 */
+	private boolean coalesce(MTInputEvent evt){
+		if (!(evt instanceof AbstractCursorInputEvt)){
+			return false;
+		}
+		AbstractCursorInputEvt cursorEvt = (AbstractCursorInputEvt) evt;
+		if (cursorEvt.getId() != AbstractCursorInputEvt.INPUT_UPDATED || cursorEvt.getCursor() == null){
+			return false;
+		}
+
+		long first = head.get();
+		for (long pos = tail.get() - 1; pos >= first; pos--) {
+			int index = (int) (pos & mask);
+			if (sequences.get(index) != pos + 1){
+				return false; //Slot was consumed or not yet published
+			}
+			MTInputEvent queued = buffer.get(index);
+			if (queued instanceof AbstractCursorInputEvt){
+				AbstractCursorInputEvt queuedCursorEvt = (AbstractCursorInputEvt) queued;
+				if (queuedCursorEvt.getCursor() == cursorEvt.getCursor()){
+					//Only the newest queued event of that cursor may be replaced to keep the order
+					return queuedCursorEvt.getId() == AbstractCursorInputEvt.INPUT_UPDATED
+						&& queuedCursorEvt.getSource() == cursorEvt.getSource()
+						&& queuedCursorEvt.getClass() == cursorEvt.getClass()
+						&& buffer.compareAndSet(index, queued, evt);
+				}
+			}
+		}
+		return false;
+	}
+
+
+	private static int backOff(int waitCount){
+		if (waitCount < 16){
+			Thread.yield();
+		}else{
+			LockSupport.parkNanos(100000L);
+		}
+		return waitCount + 1;
+	}
+
+
+	/**
+	 * Checks if the queue is empty.
+	 *
+	 * @return true, if is empty
+	 */
+	public boolean isEmpty(){
+		return this.size() == 0;
+	}
+
+	/**
+	 * Gets the approximate number of queued events.
+	 *
+	 * @return the size
+	 */
+	public int size(){
+		long size = tail.get() - head.get();
+		if (size < 0){
+			return 0;
+		}
+		return (int) Math.min(size, capacity);
+	}
+
+	/**
+	 * Gets the capacity.
+	 *
+	 * @return the capacity
+	 */
+	public int getCapacity(){
+		return this.capacity;
+	}
+
+	/**
+	 * Gets the overflow policy.
+	 *
+	 * @return the overflow policy
+	 */
+	public OverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	/**
+	 * Sets the overflow policy.
+	 *
+	 * @param overflowPolicy the new overflow policy
+	 */
+	public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+		if (overflowPolicy == null){
+			throw new NullPointerException("Overflow policy may not be null.");
+		}
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	/**
+	 * Gets the number of events that were enqueued so far.
+	 *
+	 * @return the enqueued count
+	 */
+	public long getEnqueuedCount(){
+		return enqueuedCount.get();
+	}
+
+	/**
+	 * Gets the number of events that were dropped because the queue was full.
+	 *
+	 * @return the dropped count
+	 */
+	public long getDroppedCount(){
+		return droppedCount.get();
+	}
+
+	/**
+	 * Gets the number of events that were merged into an already queued event
+	 * because the queue was full.
+	 *
+	 * @return the coalesced count
+	 */
+	public long getCoalescedCount(){
+		return coalescedCount.get();
+	}
+
+}
@@ -18,14 +18,12 @@
 package org.mt4j.input.inputSources;
 
 
-import java.util.HashMap;
-import java.util.Map;
-
 import org.mt4j.MTApplication;
 import org.mt4j.input.inputData.ActiveCursorPool;
 import org.mt4j.input.inputData.InputCursor;
 import org.mt4j.input.inputData.MTFiducialInputEvt;
 import org.mt4j.input.inputData.MTFingerInputEvt;
+import org.mt4j.util.LongLongMap;
 import org.mt4j.util.MT4jSettings;
 import org.mt4j.util.logging.ILogger;
 import org.mt4j.util.logging.MTLoggerFactory;
@@ -64,11 +62,14 @@ public class TuioInputSource extends AbstractInputSource implements TuioListener
 	/** The window height. */
 	private int windowHeight;
 	
+	/** Returned by the ID maps for unknown session IDs, cursor IDs are never negative. */
+	private static final long NO_CURSOR = -1;
+	
 	/** this is needed to track which events got fired as a finger down event already. */
-	private Map<Long, Long> tuioIDToCursorID;
+	private LongLongMap tuioIDToCursorID;
 
 	/** this is needed to track which events got fired as a fiducial down event already. */
-	private Map<Long, Long> tuioFiducialIDMap;
+	private LongLongMap tuioFiducialIDMap;
 	
 	/**
 	 * Instantiates a new tuio input source.
@@ -90,12 +91,12 @@ public class TuioInputSource extends AbstractInputSource implements TuioListener
 		
 		this.port 	= port;
 		tuioClient 	= new TuioClient(this.port);
-		logger.info("Initializing TUIO input on port: " + this.port);
+		logger.info("Initializing TUIO input on port: {}", this.port);
 //		tuioClient.connect();
 		tuioClient.addTuioListener(this);
 		
-		tuioIDToCursorID = new HashMap<Long, Long>();
-		tuioFiducialIDMap = new HashMap<Long, Long>();
+		tuioIDToCursorID = new LongLongMap();
+		tuioFiducialIDMap = new LongLongMap();
 		
 		windowWidth = MT4jSettings.getInstance().getWindowWidth();
 		windowHeight = MT4jSettings.getInstance().getWindowHeight();
@@ -135,8 +136,8 @@ public class TuioInputSource extends AbstractInputSource implements TuioListener
 		float absoluteX =	cursor.getX() * windowWidth;
 		float abosulteY =	cursor.getY() * windowHeight;
 		long sessionID = cursor.getSessionID();
-		Long tuioID = tuioIDToCursorID.get(sessionID);
-		if (tuioID != null ){
+		long tuioID = tuioIDToCursorID.get(sessionID, NO_CURSOR);
+		if (tuioID != NO_CURSOR){
 //			logger.info("TUIO INPUT UPDATE FINGER - TUIO ID: " + sessionID);
 			InputCursor c = ActiveCursorPool.getInstance().getActiveCursorByID(tuioID);
 			if (c != null){
@@ -155,9 +156,8 @@ public class TuioInputSource extends AbstractInputSource implements TuioListener
 			float abosulteY =	cursor.getY() * windowHeight;
 			long sessionID = cursor.getSessionID();
 //			logger.info("TUIO INPUT REMOVE FINGER - TUIO ID: " + sessionID);
-			Long lCursorID = tuioIDToCursorID.get(sessionID);
-			if (lCursorID != null){
-				long cursorID = lCursorID;
+			long cursorID = tuioIDToCursorID.get(sessionID, NO_CURSOR);
+			if (cursorID != NO_CURSOR){
 				InputCursor c = ActiveCursorPool.getInstance().getActiveCursorByID(cursorID);
 				if (c != null){
 					MTFingerInputEvt te = new MTFingerInputEvt(this, absoluteX, abosulteY, MTFingerInputEvt.INPUT_ENDED, c);
@@ -217,8 +217,8 @@ public class TuioInputSource extends AbstractInputSource implements TuioListener
 		float absoluteX =	tuioObject.getX() * windowWidth;
 		float abosulteY =	tuioObject.getY() * windowHeight;
 		
-		Long tuioID = tuioFiducialIDMap.get(session_id);
-		if (tuioID != null ){
+		long tuioID = tuioFiducialIDMap.get(session_id, NO_CURSOR);
+		if (tuioID != NO_CURSOR){
 			InputCursor c = ActiveCursorPool.getInstance().getActiveCursorByID(tuioID);
 			if (c != null){
 				MTFiducialInputEvt fiducialEvt = new MTFiducialInputEvt(this, absoluteX, abosulteY, MTFiducialInputEvt.INPUT_UPDATED, c, fiducial_id, angle, x_speed, y_speed, r_speed, m_accel, r_accel);
@@ -234,9 +234,8 @@ public class TuioInputSource extends AbstractInputSource implements TuioListener
 		long session_id = tuioObject.getSessionID();
 		int fiducial_id = tuioObject.getSymbolID();
 
-		Long cursorIDL = tuioFiducialIDMap.get(session_id);
-		if (cursorIDL != null){
-			long cursorID = cursorIDL;
+		long cursorID = tuioFiducialIDMap.get(session_id, NO_CURSOR);
+		if (cursorID != NO_CURSOR){
 			InputCursor c = ActiveCursorPool.getInstance().getActiveCursorByID(cursorID);
 			if (c != null){
 				MTFiducialInputEvt te;
@@ -253,7 +252,9 @@ public class TuioInputSource extends AbstractInputSource implements TuioListener
 				tuioFiducialIDMap.remove(session_id);
 			}
 		}else{
-			logger.info("ERROR WHEN REMOVING TUIOOBJECT - TUIO ID: " + session_id + " - Cursor not in tuioFiducialIDMap!");
+			if (logger.isInfoEnabled()){
+				logger.info("ERROR WHEN REMOVING TUIOOBJECT - TUIO ID: " + session_id + " - Cursor not in tuioFiducialIDMap!");
+			}
 		}
 	}
 
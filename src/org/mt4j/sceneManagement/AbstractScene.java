@@ -30,6 +30,7 @@ import org.mt4j.input.inputProcessors.globalProcessors.InputRetargeter;
 import org.mt4j.sceneManagement.transition.ITransition;
 import org.mt4j.util.MT4jSettings;
 import org.mt4j.util.MTColor;
+import org.mt4j.util.animation.AnimationManager;
 import org.mt4j.util.camera.Icamera;
 import org.mt4j.util.camera.MTCamera;
 import org.mt4j.util.logging.ILogger;
@@ -80,6 +81,9 @@ public abstract class AbstractScene implements Iscene {
 	
 	/** The transition. */
 	private ITransition transition;
+	
+	/** The animation manager of this scene, created on first use. */
+	private AnimationManager animationManager;
 
 	/**
 	 * The Constructor.
@@ -168,10 +172,29 @@ public abstract class AbstractScene implements Iscene {
 			this.clear(graphics);
 		}
 		
+		//Update the animations of this scene
+		if (this.animationManager != null){
+			this.animationManager.update(timeDelta);
+		}
+		
 		//Draw and update canvas
 		this.getCanvas().drawAndUpdateCanvas(graphics, timeDelta);
 	}
 	
+	/**
+	 * Gets the animation manager of this scene. It is only updated while the 
+	 * scene is drawn, so animations using it (see <code>Animation.setAnimationManager()</code>)
+	 * pause while the scene isn't active.
+	 * 
+	 * @return the animation manager of this scene
+	 */
+	public AnimationManager getAnimationManager(){
+		if (this.animationManager == null){
+			this.animationManager = new AnimationManager();
+		}
+		return this.animationManager;
+	}
+	
 	
 
 	protected void clear(PGraphics graphics){
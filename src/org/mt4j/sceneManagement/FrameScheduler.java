@@ -0,0 +1,379 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.sceneManagement;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.mt4j.util.FrameProfiler;
+import org.mt4j.util.logging.ILogger;
+import org.mt4j.util.logging.MTLoggerFactory;
+
+
+/**
+ * Runs the pre draw actions and the actions queued with <code>invokeLater</code>
+ * at the beginning of each frame in the rendering thread.
+ * <p>
+ * The queued actions are run by priority, with a time budget per frame. If the budget
+ * is used up, the remaining actions are deferred to the next frame, so a burst of
+ * actions doesnt cause a long frame. Each priority with queued actions runs at least one action 
+ * per frame, so no priority is starved. Actions queued while the actions of a frame are run
+ * are run in the next frame.
+ * <br>The pre draw actions are run every frame, their time counts against the budget.
+ * <p>
+ * The statistics of the last frame can be used to monitor the scheduler.
+ * <br>The actions can be queued from any thread, <code>runFrame()</code> has to be called by the rendering thread.
+ */
+public class FrameScheduler {
+	private static final ILogger logger = MTLoggerFactory.getLogger(FrameScheduler.class.getName());
+	static{
+		logger.setLevel(ILogger.WARN);
+	}
+	
+	/**
+	 * The priority of a queued action. Actions with a higher priority are run first.
+	 */
+	public enum Priority{
+		/** For actions handling input. */
+		INPUT,
+		/** For creating and deleting OpenGL resources. */
+		GL_RESOURCE,
+		/** The default priority. */
+		USER
+	}
+	
+	/** The default time budget per frame in milliseconds. */
+	public static final float DEFAULT_FRAME_BUDGET = 8f;
+	
+	/** The queued actions by priority. */
+	private final ArrayDeque<Runnable>[] queues;
+	
+	/** The pre draw actions. */
+	private final List<IPreDrawAction> preDrawActions;
+	
+	/** The pre draw actions to add at the beginning of the next frame. */
+	private final List<IPreDrawAction> addedPreDrawActions;
+	
+	/** The pre draw actions to remove at the beginning of the next frame. */
+	private final List<IPreDrawAction> removedPreDrawActions;
+	
+	/** The frame budget in nanoseconds, 0 if unbounded. */
+	private long frameBudgetNanos;
+	
+	/** The number of actions of each priority to run in the current frame. */
+	private final int[] frameCounts;
+	
+	private int lastQueued;
+	private int lastExecuted;
+	private int lastDeferred;
+	private long lastFrameNanos;
+	private long totalExecuted;
+	private long deferredFrames;
+	
+	/** The profiler measuring the actions, can be null. */
+	private FrameProfiler frameProfiler;
+	
+	
+	/**
+	 * Instantiates a new frame scheduler with the default budget.
+	 */
+	public FrameScheduler(){
+		this(DEFAULT_FRAME_BUDGET);
+	}
+	
+	/**
+	 * Instantiates a new frame scheduler.
+	 *
+	 * @param frameBudget the time budget per frame in milliseconds, 0 for no limit
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public FrameScheduler(float frameBudget){
+		Priority[] priorities = Priority.values();
+		this.queues = new ArrayDeque[priorities.length];
+		for (int i = 0; i < queues.length; i++) {
+			queues[i] = new ArrayDeque<Runnable>();
+		}
+		this.frameCounts = new int[priorities.length];
+		this.preDrawActions = new ArrayList<IPreDrawAction>();
+		this.addedPreDrawActions = new ArrayList<IPreDrawAction>();
+		this.removedPreDrawActions = new ArrayList<IPreDrawAction>();
+		this.setFrameBudget(frameBudget);
+	}
+	
+	
+	/**
+	 * Queues the action to be run at the beginning of the next frame.
+	 *
+	 * @param action the action
+	 * @param priority the priority
+	 */
+	public void invokeLater(Runnable action, Priority priority){
+		if (action == null){
+			throw new IllegalArgumentException("Action is null");
+		}
+		synchronized (queues) {
+			queues[priority.ordinal()].addLast(action);
+		}
+	}
+	
+	
+	/**
+	 * Adds a pre draw action. It is run from the next frame on.
+	 *
+	 * @param action the action
+	 */
+	public void addPreDrawAction(IPreDrawAction action){
+		synchronized (addedPreDrawActions) {
+			removedPreDrawActions.remove(action);
+			addedPreDrawActions.add(action);
+		}
+	}
+	
+	/**
+	 * Removes a pre draw action. It is removed before the next frame.
+	 * Does nothing if the action isn't registered.
+	 *
+	 * @param action the action
+	 */
+	public void removePreDrawAction(IPreDrawAction action){
+		synchronized (addedPreDrawActions) {
+			if (!addedPreDrawActions.remove(action) 
+					&& preDrawActions.contains(action) 
+					&& !removedPreDrawActions.contains(action)){
+				removedPreDrawActions.add(action);
+			}
+		}
+	}
+	
+	
+	/**
+	 * Runs the pre draw actions and then the queued actions until the 
+	 * frame budget is used up.
+	 */
+	public void runFrame(){
+		long start = this.nanoTime();
+		
+		//Apply the changes of the pre draw actions
+		synchronized (addedPreDrawActions) {
+			if (!removedPreDrawActions.isEmpty()){
+				preDrawActions.removeAll(removedPreDrawActions);
+				removedPreDrawActions.clear();
+			}
+			if (!addedPreDrawActions.isEmpty()){
+				preDrawActions.addAll(addedPreDrawActions);
+				addedPreDrawActions.clear();
+			}
+		}
+		
+		//Process preDrawActions
+		boolean profile = frameProfiler != null && frameProfiler.isRecording();
+		for (int i = 0; i < preDrawActions.size(); i++) {
+			IPreDrawAction action = preDrawActions.get(i);
+			if (profile){
+				long actionStart = System.nanoTime();
+				action.processAction();
+				frameProfiler.addPreDrawAction(action, System.nanoTime() - actionStart);
+			}else{
+				action.processAction();
+			}
+			if (!action.isLoop()){
+				synchronized (addedPreDrawActions) {
+					preDrawActions.remove(i--);
+				}
+			}
+		}
+		
+		//Only run the actions queued before this frame
+		int queued = 0;
+		synchronized (queues) {
+			for (int i = 0; i < queues.length; i++) {
+				frameCounts[i] = queues[i].size();
+				queued += frameCounts[i];
+			}
+		}
+		
+		long queuedStart = profile ? System.nanoTime() : 0;
+		int executed = 0;
+		//First run one action of each priority, then the others in order of priority
+		for (int i = 0; i < queues.length; i++) {
+			if (frameCounts[i] > 0){
+				this.runNext(i);
+				executed++;
+			}
+		}
+		for (int i = 0; i < queues.length; i++) {
+			while (frameCounts[i] > 0 && !this.isBudgetUsed(start)){
+				this.runNext(i);
+				executed++;
+			}
+		}
+		
+		if (profile){
+			frameProfiler.add(FrameProfiler.Phase.INVOKE_LATER, System.nanoTime() - queuedStart);
+		}
+		
+		lastQueued = queued;
+		lastExecuted = executed;
+		lastDeferred = queued - executed;
+		lastFrameNanos = this.nanoTime() - start;
+		totalExecuted += executed;
+		if (lastDeferred > 0){
+			deferredFrames++;
+			logger.debug("Deferred " + lastDeferred + " of " + queued + " actions to the next frame.");
+		}
+	}
+	
+	
+	private void runNext(int priority){
+		Runnable action;
+		synchronized (queues) {
+			action = queues[priority].pollFirst();
+		}
+		frameCounts[priority]--;
+		if (action != null){
+			action.run();
+		}
+	}
+	
+	
+	private boolean isBudgetUsed(long start){
+		return frameBudgetNanos > 0 && this.nanoTime() - start >= frameBudgetNanos;
+	}
+	
+	
+	/**
+	 * Gets the current time in nanoseconds.
+	 *
+	 * @return the time
+	 */
+	protected long nanoTime(){
+		return System.nanoTime();
+	}
+	
+	
+	/**
+	 * Sets the profiler measuring the pre draw and queued actions.
+	 *
+	 * @param frameProfiler the frame profiler, null to not measure the actions
+	 */
+	public void setFrameProfiler(FrameProfiler frameProfiler){
+		this.frameProfiler = frameProfiler;
+	}
+	
+	
+	/**
+	 * Sets the time budget per frame. 
+	 *
+	 * @param frameBudget the frame budget in milliseconds, 0 for no limit
+	 */
+	public void setFrameBudget(float frameBudget){
+		if (frameBudget < 0){
+			throw new IllegalArgumentException("The frame budget has to be >= 0: " + frameBudget);
+		}
+		this.frameBudgetNanos = (long) (frameBudget * 1000000f);
+	}
+	
+	/**
+	 * Gets the time budget per frame.
+	 *
+	 * @return the frame budget in milliseconds, 0 if unbounded
+	 */
+	public float getFrameBudget(){
+		return frameBudgetNanos / 1000000f;
+	}
+	
+	/**
+	 * Gets the number of queued actions.
+	 *
+	 * @param priority the priority
+	 * @return the number of actions with the priority waiting to be run
+	 */
+	public int getQueuedCount(Priority priority){
+		synchronized (queues) {
+			return queues[priority.ordinal()].size();
+		}
+	}
+	
+	/**
+	 * Gets the number of pre draw actions, including the ones added and 
+	 * not yet removed before the next frame.
+	 *
+	 * @return the pre draw action count
+	 */
+	public int getPreDrawActionCount(){
+		synchronized (addedPreDrawActions) {
+			return preDrawActions.size() + addedPreDrawActions.size() - removedPreDrawActions.size();
+		}
+	}
+	
+	/**
+	 * Gets the number of actions that were queued at the beginning of the last frame.
+	 *
+	 * @return the queued count
+	 */
+	public int getLastFrameQueued(){
+		return lastQueued;
+	}
+	
+	/**
+	 * Gets the number of actions run in the last frame.
+	 *
+	 * @return the executed count
+	 */
+	public int getLastFrameExecuted(){
+		return lastExecuted;
+	}
+	
+	/**
+	 * Gets the number of actions deferred to the next frame in the last frame.
+	 *
+	 * @return the deferred count
+	 */
+	public int getLastFrameDeferred(){
+		return lastDeferred;
+	}
+	
+	/**
+	 * Gets the time spent running the actions in the last frame.
+	 *
+	 * @return the time in nanoseconds
+	 */
+	public long getLastFrameNanos(){
+		return lastFrameNanos;
+	}
+	
+	/**
+	 * Gets the total number of actions run.
+	 *
+	 * @return the total executed count
+	 */
+	public long getTotalExecuted(){
+		return totalExecuted;
+	}
+	
+	/**
+	 * Gets the number of frames where actions were deferred.
+	 *
+	 * @return the deferred frames
+	 */
+	public long getDeferredFrames(){
+		return deferredFrames;
+	}
+	
+}
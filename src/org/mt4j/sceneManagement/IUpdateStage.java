@@ -0,0 +1,45 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.sceneManagement;
+
+
+/**
+ * A per frame update that can run on a worker thread while the 
+ * last frame is drawn, see <code>UpdatePipeline</code>.
+ * <p>
+ * The stage keeps its results in its own buffer: <code>update</code> computes the
+ * state of the next frame into a back buffer without touching the scene graph or OpenGL,
+ * <code>publish</code> is called in the rendering thread and applies the back buffer to the scene.
+ */
+public interface IUpdateStage {
+	
+	/**
+	 * Computes the next state. Can be called by a worker thread, so it
+	 * must only use data owned by the stage.
+	 * 
+	 * @param timeDelta the time passed since the last frame (in ms)
+	 */
+	public void update(long timeDelta);
+	
+	/**
+	 * Applies the state computed by the last <code>update</code>. Called in the rendering thread
+	 * before the input of the next frame is processed.
+	 */
+	public void publish();
+
+}
@@ -0,0 +1,257 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.sceneManagement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.mt4j.util.logging.ILogger;
+import org.mt4j.util.logging.MTLoggerFactory;
+
+
+/**
+ * Runs the registered update stages each frame.
+ * <p>
+ * In pipelined mode the stages are updated on a worker thread while the rendering 
+ * thread draws the current frame. The results are published at the beginning of the next frame,
+ * so they appear one frame later, but the update time is hidden behind the drawing. 
+ * Otherwise the stages are updated and published in the rendering thread.
+ * <p>
+ * Used by the <code>MTApplication</code>: <code>finishFrame()</code> is called at the beginning
+ * of a frame, before the input and the invoke later actions are processed, 
+ * <code>startFrame(long)</code> after them, before the animations and the scene are updated and drawn.
+ * So the worker only runs while the animations and the scene are updated and drawn. 
+ * <p>
+ * The pipeline doesn't snapshot the scene: the input, the animations, the scene and the drawing 
+ * stay in the rendering thread and work on the live scene graph. A stage must only touch the 
+ * scene in <code>publish()</code>, its <code>update(long)</code> can only use data owned by the stage.
+ */
+public class UpdatePipeline {
+	private static final ILogger logger = MTLoggerFactory.getLogger(UpdatePipeline.class.getName());
+	static{
+		logger.setLevel(ILogger.WARN);
+	}
+	
+	/** The registered stages. */
+	private final List<IUpdateStage> stages;
+	
+	/** The stages updated in the current frame, null if no update is pending. */
+	private IUpdateStage[] frameStages;
+	
+	/** Whether the stages are updated on the worker thread. */
+	private boolean pipelined;
+	
+	/** The worker, created when first needed. */
+	private ExecutorService worker;
+	
+	/** The update running on the worker. */
+	private Future<?> running;
+	
+	/** The time the last update took. */
+	private volatile long lastUpdateNanos;
+	
+	/** The time the rendering thread waited for the last update. */
+	private long lastWaitNanos;
+	
+	
+	/**
+	 * Instantiates a new update pipeline. Pipelined mode is disabled.
+	 */
+	public UpdatePipeline(){
+		this.stages = new ArrayList<IUpdateStage>();
+		this.pipelined = false;
+	}
+	
+	
+	/**
+	 * Adds an update stage. It is updated from the next frame on.
+	 *
+	 * @param stage the stage
+	 */
+	public void addStage(IUpdateStage stage){
+		synchronized (stages) {
+			if (!stages.contains(stage)){
+				stages.add(stage);
+			}
+		}
+	}
+	
+	/**
+	 * Removes an update stage. If it is being updated, its result is still published.
+	 *
+	 * @param stage the stage
+	 */
+	public void removeStage(IUpdateStage stage){
+		synchronized (stages) {
+			stages.remove(stage);
+		}
+	}
+	
+	
+	/**
+	 * Starts the update of the stages with the time delta of the current frame. 
+	 * In pipelined mode this returns immediately, otherwise the stages are updated and published.
+	 *
+	 * @param timeDelta the time passed since the last frame (in ms)
+	 */
+	public void startFrame(final long timeDelta){
+		this.finishFrame();
+		final IUpdateStage[] current;
+		synchronized (stages) {
+			if (stages.isEmpty()){
+				return;
+			}
+			current = stages.toArray(new IUpdateStage[stages.size()]);
+		}
+		this.frameStages = current;
+		if (pipelined){
+			running = this.getWorker().submit(new Runnable() {
+				public void run() {
+					updateStages(current, timeDelta);
+				}
+			});
+		}else{
+			this.updateStages(current, timeDelta);
+			this.finishFrame();
+		}
+	}
+	
+	
+	/**
+	 * Waits for the update started in the last frame to finish and publishes the results.
+	 * Has to be called by the rendering thread.
+	 */
+	public void finishFrame(){
+		if (running != null){
+			long start = System.nanoTime();
+			try {
+				running.get();
+			} catch (ExecutionException e) {
+				logger.error("Error in the update pipeline: " + e.getCause());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			lastWaitNanos = System.nanoTime() - start;
+			running = null;
+		}
+		if (frameStages != null){
+			IUpdateStage[] current = frameStages;
+			frameStages = null;
+			for (IUpdateStage stage : current) {
+				stage.publish();
+			}
+		}
+	}
+	
+	
+	private void updateStages(IUpdateStage[] current, long timeDelta){
+		long start = System.nanoTime();
+		for (IUpdateStage stage : current) {
+			try {
+				stage.update(timeDelta);
+			} catch (RuntimeException e) {
+				logger.error("Error updating {}: {}", stage, e);
+			}
+		}
+		lastUpdateNanos = System.nanoTime() - start;
+	}
+	
+	
+	private ExecutorService getWorker(){
+		if (worker == null){
+			worker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "MT4j update pipeline");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		return worker;
+	}
+	
+	
+	/**
+	 * Sets whether the stages are updated on a worker thread, while the current frame is drawn.
+	 * Has to be called by the rendering thread.
+	 *
+	 * @param pipelined true to enable pipelined mode
+	 */
+	public void setPipelined(boolean pipelined){
+		if (!pipelined){
+			this.finishFrame();
+		}
+		this.pipelined = pipelined;
+	}
+	
+	/**
+	 * Checks if pipelined mode is enabled.
+	 *
+	 * @return true, if the stages are updated on a worker thread
+	 */
+	public boolean isPipelined(){
+		return this.pipelined;
+	}
+	
+	/**
+	 * Gets the number of registered stages.
+	 *
+	 * @return the stage count
+	 */
+	public int getStageCount(){
+		synchronized (stages) {
+			return stages.size();
+		}
+	}
+	
+	/**
+	 * Gets the time the last update of the stages took.
+	 *
+	 * @return the time in nanoseconds
+	 */
+	public long getLastUpdateNanos(){
+		return lastUpdateNanos;
+	}
+	
+	/**
+	 * Gets the time the rendering thread had to wait for the last update on the worker thread.
+	 * If this is often greater than zero, the update takes longer than drawing the frame.
+	 *
+	 * @return the time in nanoseconds
+	 */
+	public long getLastWaitNanos(){
+		return lastWaitNanos;
+	}
+	
+	/**
+	 * Finishes the pending update and stops the worker thread.
+	 */
+	public void shutdown(){
+		this.finishFrame();
+		if (worker != null){
+			worker.shutdown();
+			worker = null;
+		}
+	}
+	
+}
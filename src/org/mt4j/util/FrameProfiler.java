@@ -0,0 +1,777 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.mt4j.input.inputSources.AbstractInputSource;
+import org.mt4j.util.logging.ILogger;
+import org.mt4j.util.logging.MTLoggerFactory;
+
+
+/**
+ * Measures where the time of a frame goes. 
+ * <p>
+ * The time of each frame is split into phases (see <code>Phase</code>), additionally 
+ * the draw calls, texture binds, culled objects and picks are counted. On Java VMs that 
+ * support it, the bytes allocated by the rendering thread are measured, too. 
+ * The last frames are kept in a ring buffer, so spikes can be analyzed after they happened, 
+ * see <code>getHistory()</code> and <code>getSpikes()</code>.
+ * <br>The profiler can be monitored with JMX, it is registered as <code>org.mt4j:type=FrameProfiler</code>
+ * when it is enabled. The <code>MTFrameProfilerOverlay</code> shows it on screen.
+ * <p>
+ * The profiler is disabled by default. If disabled, the instrumented code only checks a flag.
+ * <br>It has to be used from the rendering thread.
+ */
+public class FrameProfiler implements FrameProfilerMBean {
+	private static final ILogger logger = MTLoggerFactory.getLogger(FrameProfiler.class.getName());
+	static{
+		logger.setLevel(ILogger.WARN);
+	}
+	
+	/**
+	 * The phases of a frame. 
+	 */
+	public enum Phase{
+		/** Waiting for and starting the update stages. */
+		UPDATE_STAGES,
+		/** The pre draw actions which are not input sources. */
+		PRE_DRAW,
+		/** Flushing the events of the input sources, including the picking. */
+		INPUT,
+		/** The actions queued with invokeLater. */
+		INVOKE_LATER,
+		/** Deleting released OpenGL objects. */
+		GL_RESOURCES,
+		/** Updating the global animations. */
+		ANIMATION,
+		/** The <code>updateComponent()</code> calls of the scene traversal. */
+		SCENE_UPDATE,
+		/** Drawing the scene or transition, without <code>SCENE_UPDATE</code>. */
+		DRAW,
+		/** Picking components at screen positions. Part of the phase the picking is done in, usually <code>INPUT</code>. */
+		PICKING
+	}
+	
+	/**
+	 * The counts of a frame.
+	 */
+	public enum Counter{
+		/** The components drawn directly and the batched draw calls. */
+		DRAW_CALLS,
+		/** The textures bound for drawing. */
+		TEXTURE_BINDS,
+		/** The components not drawn because they were outside the camera frustum. */
+		CULLED_OBJECTS,
+		/** The picks not answered from the hit test cache. */
+		PICKS
+	}
+	
+	/** The default number of frames kept in the history. */
+	public static final int DEFAULT_HISTORY_SIZE = 300;
+	
+	private static final int PHASES = Phase.values().length;
+	private static final int COUNTERS = Counter.values().length;
+	
+	/** The draw calls of the current frame. */
+	private static int drawCalls;
+	
+	/** The texture binds of the current frame. */
+	private static int textureBinds;
+	
+	/** The texture binds of the display list being compiled, -1 if none is compiled. */
+	private static int displayListTextureBinds = -1;
+	
+	private boolean enabled;
+	
+	/** Whether the current frame is measured. */
+	private boolean recording;
+	
+	private final int historySize;
+	private final long[] frameHistory;
+	private final long[] phaseHistory;
+	private final int[] counterHistory;
+	private final long[] allocationHistory;
+	
+	/** The index of the next frame in the history. */
+	private int historyIndex;
+	
+	/** The number of measured frames. */
+	private long frameCount;
+	
+	private final long[] phases;
+	private final int[] counters;
+	private long frameStart;
+	private long frameStartAllocated;
+	
+	/** The times of the input sources by name, [0] the current frame, [1] the last frame. */
+	private final Map<String, long[]> inputSourceTimes;
+	
+	/** The thread bean if it can measure the allocated bytes, else null. */
+	private com.sun.management.ThreadMXBean allocationBean;
+	private long threadID;
+	
+	private ObjectName objectName;
+	
+	
+	/**
+	 * Instantiates a new frame profiler with the default history size.
+	 */
+	public FrameProfiler(){
+		this(DEFAULT_HISTORY_SIZE);
+	}
+	
+	/**
+	 * Instantiates a new frame profiler.
+	 *
+	 * @param historySize the number of frames kept in the history
+	 */
+	public FrameProfiler(int historySize){
+		if (historySize < 1){
+			throw new IllegalArgumentException("The history size has to be > 0: " + historySize);
+		}
+		this.historySize = historySize;
+		this.frameHistory = new long[historySize];
+		this.phaseHistory = new long[historySize * PHASES];
+		this.counterHistory = new int[historySize * COUNTERS];
+		this.allocationHistory = new long[historySize];
+		this.phases = new long[PHASES];
+		this.counters = new int[COUNTERS];
+		this.inputSourceTimes = new LinkedHashMap<String, long[]>();
+	}
+	
+	
+	/**
+	 * Counts a draw call. Called by the drawing code.
+	 */
+	public static void countDrawCall(){
+		drawCalls++;
+	}
+	
+	/**
+	 * Counts a texture bind. Called by the drawing code.
+	 */
+	public static void countTextureBind(){
+		countTextureBinds(1);
+	}
+	
+	/**
+	 * Counts texture binds, e.g. the binds compiled into a display list when the list is called.
+	 *
+	 * @param count the number of texture binds
+	 */
+	public static void countTextureBinds(int count){
+		if (displayListTextureBinds >= 0){
+			displayListTextureBinds += count;
+		}else{
+			textureBinds += count;
+		}
+	}
+	
+	/**
+	 * Starts compiling a display list. Until <code>endDisplayList()</code> the texture binds
+	 * aren't counted for the frame, as they are only executed when the list is called.
+	 */
+	public static void beginDisplayList(){
+		displayListTextureBinds = 0;
+	}
+	
+	/**
+	 * Ends compiling a display list.
+	 *
+	 * @return the texture binds compiled into the list, to be counted when the list is called
+	 */
+	public static int endDisplayList(){
+		int binds = Math.max(displayListTextureBinds, 0);
+		displayListTextureBinds = -1;
+		return binds;
+	}
+	
+	
+	/**
+	 * Starts measuring a frame if the profiler is enabled.
+	 *
+	 * @return the current time in nanoseconds, 0 if the frame isnt measured
+	 */
+	public long beginFrame(){
+		recording = enabled;
+		drawCalls = 0;
+		textureBinds = 0;
+		if (!recording){
+			return 0;
+		}
+		for (int i = 0; i < PHASES; i++) {
+			phases[i] = 0;
+		}
+		for (int i = 0; i < COUNTERS; i++) {
+			counters[i] = 0;
+		}
+		frameStartAllocated = this.getAllocatedBytes();
+		frameStart = System.nanoTime();
+		return frameStart;
+	}
+	
+	
+	/**
+	 * Adds the time since <code>since</code> to the phase.
+	 *
+	 * @param phase the phase
+	 * @param since the start time of the phase, returned by <code>beginFrame()</code>, <code>mark()</code> or <code>now()</code>
+	 * @return the current time in nanoseconds, 0 if the frame isnt measured
+	 */
+	public long mark(Phase phase, long since){
+		if (!recording){
+			return 0;
+		}
+		long now = System.nanoTime();
+		phases[phase.ordinal()] += now - since;
+		return now;
+	}
+	
+	
+	/**
+	 * Gets the current time if the frame is measured.
+	 *
+	 * @return the current time in nanoseconds, 0 if the frame isnt measured
+	 */
+	public long now(){
+		return recording ? System.nanoTime() : 0;
+	}
+	
+	
+	/**
+	 * Adds time to a phase of the current frame.
+	 *
+	 * @param phase the phase
+	 * @param nanos the nanoseconds
+	 */
+	public void add(Phase phase, long nanos){
+		if (recording){
+			phases[phase.ordinal()] += nanos;
+		}
+	}
+	
+	
+	/**
+	 * Adds to a counter of the current frame.
+	 *
+	 * @param counter the counter
+	 * @param count the count
+	 */
+	public void count(Counter counter, int count){
+		if (recording){
+			counters[counter.ordinal()] += count;
+		}
+	}
+	
+	
+	/**
+	 * Adds the time of a pre draw action. The time of input sources is added to 
+	 * <code>INPUT</code> and also kept per input source, else to <code>PRE_DRAW</code>.
+	 *
+	 * @param action the action
+	 * @param nanos the nanoseconds
+	 */
+	public void addPreDrawAction(Object action, long nanos){
+		if (!recording){
+			return;
+		}
+		if (action instanceof AbstractInputSource){
+			phases[Phase.INPUT.ordinal()] += nanos;
+			String name = action.getClass().getSimpleName();
+			long[] times = inputSourceTimes.get(name);
+			if (times == null){
+				times = new long[2];
+				inputSourceTimes.put(name, times);
+			}
+			times[0] += nanos;
+		}else{
+			phases[Phase.PRE_DRAW.ordinal()] += nanos;
+		}
+	}
+	
+	
+	/**
+	 * Checks if the current frame is measured.
+	 *
+	 * @return true, if recording
+	 */
+	public boolean isRecording(){
+		return recording;
+	}
+	
+	
+	/**
+	 * Ends the current frame and stores it in the history.
+	 */
+	public void endFrame(){
+		if (!recording){
+			return;
+		}
+		recording = false;
+		long frameTime = System.nanoTime() - frameStart;
+		counters[Counter.DRAW_CALLS.ordinal()] += drawCalls;
+		counters[Counter.TEXTURE_BINDS.ordinal()] += textureBinds;
+		
+		int slot = historyIndex;
+		frameHistory[slot] = frameTime;
+		System.arraycopy(phases, 0, phaseHistory, slot * PHASES, PHASES);
+		System.arraycopy(counters, 0, counterHistory, slot * COUNTERS, COUNTERS);
+		long allocated = this.getAllocatedBytes();
+		allocationHistory[slot] = allocated >= 0 && frameStartAllocated >= 0 ? allocated - frameStartAllocated : -1;
+		historyIndex = (historyIndex + 1) % historySize;
+		frameCount++;
+		
+		for (long[] times : inputSourceTimes.values()) {
+			times[1] = times[0];
+			times[0] = 0;
+		}
+	}
+	
+	
+	private long getAllocatedBytes(){
+		if (allocationBean == null){
+			return -1;
+		}
+		return allocationBean.getThreadAllocatedBytes(threadID);
+	}
+	
+	
+	private void initAllocationBean(){
+		try {
+			ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if (bean instanceof com.sun.management.ThreadMXBean){
+				com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+				if (sunBean.isThreadAllocatedMemorySupported()){
+					sunBean.setThreadAllocatedMemoryEnabled(true);
+					allocationBean = sunBean;
+					threadID = Thread.currentThread().getId();
+				}
+			}
+		} catch (LinkageError e) {
+			logger.debug("Allocated bytes cant be measured: " + e);
+		} catch (RuntimeException e) {
+			logger.debug("Allocated bytes cant be measured: " + e);
+		}
+	}
+	
+	
+	private void registerMBean(){
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName("org.mt4j:type=FrameProfiler");
+			if (!server.isRegistered(name)){
+				server.registerMBean(this, name);
+				objectName = name;
+			}
+		} catch (Exception e) {
+			logger.warn("Couldnt register the frame profiler with JMX: " + e);
+		}
+	}
+	
+	
+	/**
+	 * Unregisters the profiler from JMX.
+	 */
+	public void unregisterMBean(){
+		if (objectName != null){
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+			} catch (Exception e) {
+				logger.warn("Couldnt unregister the frame profiler: " + e);
+			}
+			objectName = null;
+		}
+	}
+	
+	
+	/* (non-Javadoc)
+	 * @see org.mt4j.util.FrameProfilerMBean#isEnabled()
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Enables or disables the profiler. Takes effect with the next frame.
+	 * Has to be called from the rendering thread the first time, the allocations
+	 * of the calling thread are measured.
+	 *
+	 * @param enabled true to enable the profiler
+	 */
+	public void setEnabled(boolean enabled) {
+		if (enabled && !this.enabled){
+			if (allocationBean == null){
+				this.initAllocationBean();
+			}
+			if (objectName == null){
+				this.registerMBean();
+			}
+		}
+		this.enabled = enabled;
+	}
+	
+	
+	/**
+	 * Gets the number of frames in the history.
+	 *
+	 * @return the history count
+	 */
+	public int getHistoryCount(){
+		return (int) Math.min(frameCount, historySize);
+	}
+	
+	/**
+	 * Gets the history size.
+	 *
+	 * @return the history size
+	 */
+	public int getHistorySize(){
+		return historySize;
+	}
+	
+	
+	private int getSlot(int framesAgo){
+		if (framesAgo < 0 || framesAgo >= this.getHistoryCount()){
+			throw new IndexOutOfBoundsException("No frame " + framesAgo + " frames ago, history count: " + this.getHistoryCount());
+		}
+		return (historyIndex - 1 - framesAgo + historySize) % historySize;
+	}
+	
+	
+	/**
+	 * Gets a frame from the history.
+	 *
+	 * @param framesAgo 0 for the last frame, 1 for the frame before..
+	 * @return the frame
+	 */
+	public FrameRecord getFrame(int framesAgo){
+		int slot = this.getSlot(framesAgo);
+		long[] framePhases = new long[PHASES];
+		System.arraycopy(phaseHistory, slot * PHASES, framePhases, 0, PHASES);
+		int[] frameCounters = new int[COUNTERS];
+		System.arraycopy(counterHistory, slot * COUNTERS, frameCounters, 0, COUNTERS);
+		return new FrameRecord(frameCount - 1 - framesAgo, frameHistory[slot], framePhases, frameCounters, allocationHistory[slot]);
+	}
+	
+	
+	/**
+	 * Gets the frames in the history, oldest first.
+	 *
+	 * @return the history
+	 */
+	public List<FrameRecord> getHistory(){
+		int count = this.getHistoryCount();
+		List<FrameRecord> history = new ArrayList<FrameRecord>(count);
+		for (int i = count - 1; i >= 0; i--) {
+			history.add(this.getFrame(i));
+		}
+		return history;
+	}
+	
+	
+	/**
+	 * Gets the frames in the history that took longer than the threshold, oldest first.
+	 *
+	 * @param thresholdMillis the threshold in milliseconds
+	 * @return the spikes
+	 */
+	public List<FrameRecord> getSpikes(float thresholdMillis){
+		long threshold = (long) (thresholdMillis * 1000000f);
+		List<FrameRecord> spikes = new ArrayList<FrameRecord>();
+		for (int i = this.getHistoryCount() - 1; i >= 0; i--) {
+			if (frameHistory[this.getSlot(i)] > threshold){
+				spikes.add(this.getFrame(i));
+			}
+		}
+		return spikes;
+	}
+	
+	
+	/**
+	 * Gets the frame time of a frame in the history in nanoseconds.
+	 *
+	 * @param framesAgo 0 for the last frame, 1 for the frame before..
+	 * @return the frame time
+	 */
+	public long getFrameTimeNanos(int framesAgo){
+		return frameHistory[this.getSlot(framesAgo)];
+	}
+	
+	
+	/**
+	 * Gets the time of a phase in the last frame in nanoseconds.
+	 *
+	 * @param phase the phase
+	 * @return the phase time
+	 */
+	public long getLastPhaseNanos(Phase phase){
+		return this.getHistoryCount() > 0 ? phaseHistory[this.getSlot(0) * PHASES + phase.ordinal()] : 0;
+	}
+	
+	
+	/**
+	 * Gets a count of the last frame.
+	 *
+	 * @param counter the counter
+	 * @return the count
+	 */
+	public int getLastCount(Counter counter){
+		return this.getHistoryCount() > 0 ? counterHistory[this.getSlot(0) * COUNTERS + counter.ordinal()] : 0;
+	}
+	
+	
+	private static double toMillis(long nanos){
+		return nanos / 1000000d;
+	}
+	
+	
+	public long getFrameCount() {
+		return frameCount;
+	}
+
+	public double getLastFrameTime() {
+		return this.getHistoryCount() > 0 ? toMillis(frameHistory[this.getSlot(0)]) : 0;
+	}
+
+	public double getAverageFrameTime() {
+		int count = this.getHistoryCount();
+		if (count == 0){
+			return 0;
+		}
+		long sum = 0;
+		for (int i = 0; i < count; i++) {
+			sum += frameHistory[i];
+		}
+		return toMillis(sum) / count;
+	}
+
+	public double getMaxFrameTime() {
+		long max = 0;
+		for (int i = 0; i < this.getHistoryCount(); i++) {
+			max = Math.max(max, frameHistory[i]);
+		}
+		return toMillis(max);
+	}
+
+	public String[] getPhaseNames() {
+		Phase[] values = Phase.values();
+		String[] names = new String[values.length];
+		for (int i = 0; i < values.length; i++) {
+			names[i] = values[i].name();
+		}
+		return names;
+	}
+
+	public double[] getLastPhaseTimes() {
+		double[] times = new double[PHASES];
+		if (this.getHistoryCount() > 0){
+			int offset = this.getSlot(0) * PHASES;
+			for (int i = 0; i < PHASES; i++) {
+				times[i] = toMillis(phaseHistory[offset + i]);
+			}
+		}
+		return times;
+	}
+
+	public double[] getAveragePhaseTimes() {
+		double[] times = new double[PHASES];
+		int count = this.getHistoryCount();
+		if (count > 0){
+			for (int i = 0; i < count; i++) {
+				for (int j = 0; j < PHASES; j++) {
+					times[j] += phaseHistory[i * PHASES + j];
+				}
+			}
+			for (int j = 0; j < PHASES; j++) {
+				times[j] = times[j] / count / 1000000d;
+			}
+		}
+		return times;
+	}
+
+	public String[] getCounterNames() {
+		Counter[] values = Counter.values();
+		String[] names = new String[values.length];
+		for (int i = 0; i < values.length; i++) {
+			names[i] = values[i].name();
+		}
+		return names;
+	}
+
+	public int[] getLastCounts() {
+		int[] counts = new int[COUNTERS];
+		if (this.getHistoryCount() > 0){
+			System.arraycopy(counterHistory, this.getSlot(0) * COUNTERS, counts, 0, COUNTERS);
+		}
+		return counts;
+	}
+
+	/**
+	 * Gets the bytes allocated by the rendering thread in the last frame.
+	 *
+	 * @return the allocated bytes, -1 if not supported by the VM
+	 */
+	public long getLastAllocatedBytes() {
+		return this.getHistoryCount() > 0 ? allocationHistory[this.getSlot(0)] : -1;
+	}
+
+	public String[] getInputSourceNames() {
+		return inputSourceTimes.keySet().toArray(new String[inputSourceTimes.size()]);
+	}
+
+	public double[] getLastInputSourceTimes() {
+		double[] times = new double[inputSourceTimes.size()];
+		int i = 0;
+		for (long[] sourceTimes : inputSourceTimes.values()) {
+			times[i++] = toMillis(sourceTimes[1]);
+		}
+		return times;
+	}
+	
+	
+	/**
+	 * Gets a short summary of the last frame and the averages, one line per value.
+	 *
+	 * @return the report
+	 */
+	public String getReport() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("Frame: %.2f ms (avg %.2f, max %.2f)", this.getLastFrameTime(), this.getAverageFrameTime(), this.getMaxFrameTime()));
+		double[] last = this.getLastPhaseTimes();
+		double[] average = this.getAveragePhaseTimes();
+		Phase[] phaseValues = Phase.values();
+		for (int i = 0; i < phaseValues.length; i++) {
+			sb.append(String.format("\n%s: %.2f ms (avg %.2f)", phaseValues[i], last[i], average[i]));
+		}
+		String[] sourceNames = this.getInputSourceNames();
+		double[] sourceTimes = this.getLastInputSourceTimes();
+		for (int i = 0; i < sourceNames.length; i++) {
+			sb.append(String.format("\n  %s: %.2f ms", sourceNames[i], sourceTimes[i]));
+		}
+		int[] counts = this.getLastCounts();
+		Counter[] counterValues = Counter.values();
+		for (int i = 0; i < counterValues.length; i++) {
+			sb.append("\n").append(counterValues[i]).append(": ").append(counts[i]);
+		}
+		long allocated = this.getLastAllocatedBytes();
+		if (allocated >= 0){
+			sb.append("\nALLOCATED: ").append(allocated / 1024).append(" KB");
+		}
+		return sb.toString();
+	}
+	
+	
+	/**
+	 * Clears the history.
+	 */
+	public void reset() {
+		frameCount = 0;
+		historyIndex = 0;
+		inputSourceTimes.clear();
+	}
+	
+	
+	/**
+	 * A measured frame.
+	 */
+	public static class FrameRecord {
+		private final long frame;
+		private final long frameNanos;
+		private final long[] phaseNanos;
+		private final int[] counts;
+		private final long allocatedBytes;
+		
+		private FrameRecord(long frame, long frameNanos, long[] phaseNanos, int[] counts, long allocatedBytes){
+			this.frame = frame;
+			this.frameNanos = frameNanos;
+			this.phaseNanos = phaseNanos;
+			this.counts = counts;
+			this.allocatedBytes = allocatedBytes;
+		}
+		
+		/**
+		 * Gets the number of the frame, counted from the first measured frame.
+		 *
+		 * @return the frame
+		 */
+		public long getFrame() {
+			return frame;
+		}
+		
+		/**
+		 * Gets the frame time in nanoseconds.
+		 *
+		 * @return the frame nanos
+		 */
+		public long getFrameNanos() {
+			return frameNanos;
+		}
+		
+		/**
+		 * Gets the time of a phase in nanoseconds.
+		 *
+		 * @param phase the phase
+		 * @return the phase nanos
+		 */
+		public long getPhaseNanos(Phase phase) {
+			return phaseNanos[phase.ordinal()];
+		}
+		
+		/**
+		 * Gets a count.
+		 *
+		 * @param counter the counter
+		 * @return the count
+		 */
+		public int getCount(Counter counter) {
+			return counts[counter.ordinal()];
+		}
+		
+		/**
+		 * Gets the bytes allocated by the rendering thread.
+		 *
+		 * @return the allocated bytes, -1 if not supported by the VM
+		 */
+		public long getAllocatedBytes() {
+			return allocatedBytes;
+		}
+		
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			sb.append("Frame ").append(frame).append(": ").append(String.format("%.2f ms", toMillis(frameNanos)));
+			Phase[] values = Phase.values();
+			for (int i = 0; i < values.length; i++) {
+				if (phaseNanos[i] > 0){
+					sb.append(", ").append(values[i]).append(String.format(" %.2f", toMillis(phaseNanos[i])));
+				}
+			}
+			return sb.toString();
+		}
+	}
+
+}
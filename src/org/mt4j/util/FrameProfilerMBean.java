@@ -0,0 +1,59 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.util;
+
+
+/**
+ * The management interface of the <code>FrameProfiler</code>. 
+ * The times are in milliseconds, the averages are taken over the frames in the history.
+ */
+public interface FrameProfilerMBean {
+	
+	public boolean isEnabled();
+	
+	public void setEnabled(boolean enabled);
+	
+	public long getFrameCount();
+	
+	public double getLastFrameTime();
+	
+	public double getAverageFrameTime();
+	
+	public double getMaxFrameTime();
+	
+	public String[] getPhaseNames();
+	
+	public double[] getLastPhaseTimes();
+	
+	public double[] getAveragePhaseTimes();
+	
+	public String[] getCounterNames();
+	
+	public int[] getLastCounts();
+	
+	public long getLastAllocatedBytes();
+	
+	public String[] getInputSourceNames();
+	
+	public double[] getLastInputSourceTimes();
+	
+	public String getReport();
+	
+	public void reset();
+
+}
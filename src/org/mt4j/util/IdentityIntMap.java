@@ -0,0 +1,233 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.util;
+
+
+/**
+ * A hash map from object keys, compared by identity, to primitive <code>int</code> values.
+ * <p>
+ * Uses open addressing with linear probing like <code>LongLongMap</code>, so the
+ * values aren't boxed when putting or looking up values, unlike with an
+ * <code>IdentityHashMap&lt;Object, Integer&gt;</code>. Since a value can't be
+ * null, lookups of missing keys return a value chosen by the caller.
+ * <p>
+ * This class isn't thread safe.
+ */
+public class IdentityIntMap {
+
+	/** The default initial capacity. */
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/** The keys, null for unused slots. */
+	private Object[] keys;
+
+	/** The values. */
+	private int[] values;
+
+	/** The mask to get the slot from a hash. */
+	private int mask;
+
+	/** The number of entries. */
+	private int size;
+
+	/** The size at which the table is grown. */
+	private int resizeThreshold;
+
+
+	/**
+	 * Instantiates a new map with the default initial capacity.
+	 */
+	public IdentityIntMap(){
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Instantiates a new map.
+	 *
+	 * @param expectedSize the number of entries the map can hold without growing
+	 */
+	public IdentityIntMap(int expectedSize){
+		this.allocate(LongLongMap.tableSizeFor(expectedSize));
+	}
+
+
+	/**
+	 * Spreads the bits of the identity hash code of the key.
+	 */
+	private static int hash(Object key){
+		int h = System.identityHashCode(key) * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+
+	private void allocate(int tableSize){
+		this.keys = new Object[tableSize];
+		this.values = new int[tableSize];
+		this.mask = tableSize - 1;
+		this.resizeThreshold = tableSize / 2;
+	}
+
+
+	private int findSlot(Object key){
+		int slot = hash(key) & mask;
+		Object k;
+		while ((k = keys[slot]) != null){
+			if (k == key){
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+
+	/**
+	 * Gets the value of the key.
+	 *
+	 * @param key the key
+	 * @param noValue the value returned if the key isn't in the map
+	 * @return the value or <code>noValue</code>
+	 */
+	public int get(Object key, int noValue){
+		if (key == null){
+			return noValue;
+		}
+		int slot = this.findSlot(key);
+		return slot == -1 ? noValue : values[slot];
+	}
+
+
+	/**
+	 * Checks if the map contains the key.
+	 *
+	 * @param key the key
+	 * @return true, if the key is in the map
+	 */
+	public boolean containsKey(Object key){
+		return key != null && this.findSlot(key) != -1;
+	}
+
+
+	/**
+	 * Puts the value for the key.
+	 *
+	 * @param key the key, not null
+	 * @param value the value
+	 */
+	public void put(Object key, int value){
+		if (key == null){
+			throw new IllegalArgumentException("Null keys aren't supported.");
+		}
+		int slot = hash(key) & mask;
+		Object k;
+		while ((k = keys[slot]) != null){
+			if (k == key){
+				values[slot] = value;
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		values[slot] = value;
+		size++;
+		if (size > resizeThreshold){
+			this.rehash(keys.length * 2);
+		}
+	}
+
+
+	/**
+	 * Removes the key.
+	 *
+	 * @param key the key
+	 * @return true, if the key was in the map
+	 */
+	public boolean remove(Object key){
+		if (key == null){
+			return false;
+		}
+		int slot = this.findSlot(key);
+		if (slot == -1){
+			return false;
+		}
+		
+		//Shift the following entries of the probe sequence back into the gap
+		int gap = slot;
+		int i = (gap + 1) & mask;
+		while (keys[i] != null){
+			int ideal = hash(keys[i]) & mask;
+			if (((i - ideal) & mask) >= ((i - gap) & mask)){
+				keys[gap] = keys[i];
+				values[gap] = values[i];
+				gap = i;
+			}
+			i = (i + 1) & mask;
+		}
+		keys[gap] = null;
+		size--;
+		return true;
+	}
+
+
+	private void rehash(int tableSize){
+		Object[] oldKeys = keys;
+		int[] oldValues = values;
+		this.allocate(tableSize);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != null){
+				int slot = hash(oldKeys[i]) & mask;
+				while (keys[slot] != null){
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+
+	/**
+	 * Removes all entries.
+	 */
+	public void clear(){
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = null;
+		}
+		size = 0;
+	}
+
+
+	/**
+	 * Gets the number of entries.
+	 *
+	 * @return the size
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * Checks if the map is empty.
+	 *
+	 * @return true, if empty
+	 */
+	public boolean isEmpty(){
+		return size == 0;
+	}
+
+}
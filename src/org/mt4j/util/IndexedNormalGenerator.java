@@ -0,0 +1,689 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.mt4j.util.math.ToolsMath;
+
+/**
+ * Generates vertex normals for indexed triangle geometry, working on flat arrays.
+ * <br>This is the engine behind the <code>TriangleNormalGenerator</code> and produces the
+ * same vertices, indices and normals as its original implementation:
+ * <li>A vertex that is used with different texture coordinates is duplicated.
+ * <li>With a crease angle, a vertex that gets different normals in the faces it belongs to is
+ * duplicated for each different normal.
+ * <p>
+ * The faces around each vertex are kept in compressed rows (an offset array into one
+ * face array), the texture coordinate duplicates are found with a hash table and the
+ * normal duplicates of a vertex are kept in a linked chain. So no objects are created per vertex or face
+ * and the work only grows with the number of faces around each vertex.
+ * <br>The face normals and the normals of the face corners can optionally be calculated
+ * by several threads for large meshes, see {@link #setParallel(boolean)}.
+ * <p>
+ * The results are valid until the next call to one of the generate methods.
+ * An instance is not thread safe, use one instance per thread.
+ */
+public class IndexedNormalGenerator {
+	
+	/** The minimum number of faces (or vertices) that are split across threads. */
+	private static final int PARALLEL_MIN_ELEMENTS = 8192;
+	
+	/** The threads calculating the normals in parallel, shared by all generators. */
+	private static ExecutorService pool;
+	
+	private boolean useNormalsEqualToFace;
+	private boolean useEqualNeighborNormalsAgain;
+	private boolean parallel;
+	
+	/** The number of vertices of the result. */
+	private int vertexCount;
+	
+	/** The index of the input vertex of each result vertex, -1 if the input vertex isnt used by any face. */
+	private int[] sourceVertices;
+	
+	/** The texture coordinates of the result vertices (u,v). */
+	private float[] texCoords;
+	
+	/** The normals of the result vertices (x,y,z). */
+	private float[] normals;
+	
+	/** The indices of the result (3 per face). */
+	private int[] indices;
+	
+	private int faceCount;
+	
+	/** The face that created a texture coordinate duplicate, -1 for the input vertices. */
+	private int[] creatorFaces;
+	
+	/** The next duplicate of the same vertex with a different normal, -1 at the end of the chain. */
+	private int[] nextNormalDuplicates;
+	
+	/** The face normals, not normalized. */
+	private float[] faceNormals;
+	
+	/** The normalized face normals. */
+	private float[] unitFaceNormals;
+	
+	/** The faces around each input vertex are at faceOffsets[v] until faceOffsets[v+1] in vertexFaces. */
+	private int[] faceOffsets;
+	private int[] vertexFaces;
+	
+	
+	/**
+	 * Instantiates a new indexed normal generator.
+	 */
+	public IndexedNormalGenerator(){
+		this.useNormalsEqualToFace 			= true;
+		this.useEqualNeighborNormalsAgain 	= true;
+		this.parallel 						= false;
+	}
+	
+	
+	/**
+	 * Generates normals smoothed across all faces around each vertex.
+	 * 
+	 * @param positions the positions of the input vertices (x,y,z)
+	 * @param inputVertexCount the number of input vertices
+	 * @param inputIndices the indices (3 per face)
+	 * @param inputTexCoords the texture coordinates (u,v), or null if the geometry has none
+	 * @param texIndices the texture coordinate indices (3 per face), only used with texture coordinates
+	 */
+	public void generateSmoothNormals(float[] positions, int inputVertexCount, int[] inputIndices, float[] inputTexCoords, int[] texIndices){
+		this.splitTexCoords(inputVertexCount, inputIndices, inputTexCoords, texIndices);
+		this.calcFaceNormals(positions);
+		this.buildVertexFaces(inputVertexCount);
+		
+		final int count = vertexCount;
+		this.runRanges(count, new Range() {
+			public void run(int from, int to) {
+				calcSmoothVertexNormals(from, to);
+			}
+		});
+	}
+	
+	
+	/**
+	 * Generates normals according to the crease angle. The normals of faces around a vertex
+	 * are only smoothed if the angle between the faces is smaller than the crease angle.
+	 * 
+	 * @param positions the positions of the input vertices (x,y,z)
+	 * @param inputVertexCount the number of input vertices
+	 * @param inputIndices the indices (3 per face)
+	 * @param inputTexCoords the texture coordinates (u,v), or null if the geometry has none
+	 * @param texIndices the texture coordinate indices (3 per face), only used with texture coordinates
+	 * @param creaseAngle the crease angle in degrees
+	 */
+	public void generateCreaseAngleNormals(float[] positions, int inputVertexCount, int[] inputIndices, float[] inputTexCoords, int[] texIndices, float creaseAngle){
+		this.splitTexCoords(inputVertexCount, inputIndices, inputTexCoords, texIndices);
+		this.calcFaceNormals(positions);
+		this.buildVertexFaces(inputVertexCount);
+		
+		final float creaseAngleRad = (float)Math.toRadians(creaseAngle);
+		final float[] cornerNormals = new float[faceCount * 9];
+		this.runRanges(faceCount, new Range() {
+			public void run(int from, int to) {
+				calcCornerNormals(from, to, creaseAngleRad, cornerNormals);
+			}
+		});
+		this.splitNormals(cornerNormals);
+	}
+	
+	
+	/**
+	 * Creates a vertex for each different pair of vertex index and texture coordinates.
+	 * The first pair of a vertex index keeps the index, the others are appended.
+	 */
+	private void splitTexCoords(int inputVertexCount, int[] inputIndices, float[] inputTexCoords, int[] texIndices){
+		boolean hasTexCoords = inputTexCoords != null && inputTexCoords.length > 0;
+		faceCount = inputIndices.length / 3;
+		vertexCount = inputVertexCount;
+		this.ensureVertexCapacity(inputVertexCount + inputVertexCount / 4 + 16, false);
+		Arrays.fill(sourceVertices, 0, inputVertexCount, -1);
+		Arrays.fill(creatorFaces, 0, inputVertexCount, -1);
+		Arrays.fill(texCoords, 0, inputVertexCount * 2, 0);
+		
+		//Hash table of the duplicates, open addressing with linear probing
+		int[] table = new int[64];
+		Arrays.fill(table, -1);
+		int duplicateCount = 0;
+		
+		indices = new int[faceCount * 3];
+		for (int corner = 0; corner < indices.length; corner++) {
+			int v = inputIndices[corner];
+			float u = 0;
+			float w = 0;
+			if (hasTexCoords){
+				int t = texIndices[corner];
+				u = inputTexCoords[t * 2];
+				w = inputTexCoords[t * 2 + 1];
+			}
+			
+			if (sourceVertices[v] == -1){
+				sourceVertices[v] = v;
+				texCoords[v * 2] 	 = u;
+				texCoords[v * 2 + 1] = w;
+				indices[corner] = v;
+			}else if (texCoords[v * 2] == u && texCoords[v * 2 + 1] == w){
+				indices[corner] = v;
+			}else{
+				int mask = table.length - 1;
+				int slot = hash(v, u, w) & mask;
+				int duplicate;
+				while ((duplicate = table[slot]) != -1 
+						&& !(sourceVertices[duplicate] == v && texCoords[duplicate * 2] == u && texCoords[duplicate * 2 + 1] == w)){
+					slot = (slot + 1) & mask;
+				}
+				if (duplicate == -1){
+					duplicate = this.addVertex(v, u, w);
+					creatorFaces[duplicate] = corner / 3;
+					table[slot] = duplicate;
+					if (++duplicateCount * 2 > table.length){
+						table = this.rehash(table);
+					}
+				}
+				indices[corner] = duplicate;
+			}
+		}
+	}
+	
+	
+	private int[] rehash(int[] table){
+		int[] newTable = new int[table.length * 2];
+		Arrays.fill(newTable, -1);
+		int mask = newTable.length - 1;
+		for (int duplicate : table) {
+			if (duplicate != -1){
+				int slot = hash(sourceVertices[duplicate], texCoords[duplicate * 2], texCoords[duplicate * 2 + 1]) & mask;
+				while (newTable[slot] != -1){
+					slot = (slot + 1) & mask;
+				}
+				newTable[slot] = duplicate;
+			}
+		}
+		return newTable;
+	}
+	
+	
+	private static int hash(int vertex, float u, float v){
+		//+0.0 and -0.0 are equal texture coordinates, so they need the same hash
+		int h = vertex * 0x9E3779B1;
+		h = (h ^ (u == 0 ? 0 : Float.floatToIntBits(u))) * 0x85EBCA6B;
+		h = (h ^ (v == 0 ? 0 : Float.floatToIntBits(v))) * 0xC2B2AE35;
+		return h ^ (h >>> 16);
+	}
+	
+	
+	private int addVertex(int sourceVertex, float u, float v){
+		if (vertexCount == sourceVertices.length){
+			this.ensureVertexCapacity(vertexCount * 2, true);
+		}
+		int index = vertexCount++;
+		sourceVertices[index] 		= sourceVertex;
+		texCoords[index * 2] 		= u;
+		texCoords[index * 2 + 1] 	= v;
+		creatorFaces[index] 		= -1;
+		nextNormalDuplicates[index] = -1;
+		return index;
+	}
+	
+	
+	private void ensureVertexCapacity(int capacity, boolean keep){
+		if (sourceVertices != null && sourceVertices.length >= capacity){
+			return;
+		}
+		if (keep){
+			sourceVertices 			= Arrays.copyOf(sourceVertices, capacity);
+			creatorFaces 			= Arrays.copyOf(creatorFaces, capacity);
+			nextNormalDuplicates 	= Arrays.copyOf(nextNormalDuplicates, capacity);
+			texCoords 				= Arrays.copyOf(texCoords, capacity * 2);
+			normals 				= Arrays.copyOf(normals, capacity * 3);
+		}else{
+			sourceVertices 			= new int[capacity];
+			creatorFaces 			= new int[capacity];
+			nextNormalDuplicates 	= new int[capacity];
+			texCoords 				= new float[capacity * 2];
+			normals 				= new float[capacity * 3];
+		}
+	}
+	
+	
+	private void calcFaceNormals(final float[] positions){
+		if (faceNormals == null || faceNormals.length < faceCount * 3){
+			faceNormals 	= new float[faceCount * 3];
+			unitFaceNormals = new float[faceCount * 3];
+		}
+		this.runRanges(faceCount, new Range() {
+			public void run(int from, int to) {
+				for (int f = from; f < to; f++) {
+					int p0 = sourceVertices[indices[f * 3]] * 3;
+					int p1 = sourceVertices[indices[f * 3 + 1]] * 3;
+					int p2 = sourceVertices[indices[f * 3 + 2]] * 3;
+					float ax = positions[p1] 	 - positions[p0];
+					float ay = positions[p1 + 1] - positions[p0 + 1];
+					float az = positions[p1 + 2] - positions[p0 + 2];
+					float bx = positions[p2] 	 - positions[p0];
+					float by = positions[p2 + 1] - positions[p0 + 1];
+					float bz = positions[p2 + 2] - positions[p0 + 2];
+					float x = ay * bz - by * az;
+					float y = az * bx - bz * ax;
+					float z = ax * by - bx * ay;
+					faceNormals[f * 3] 		= x;
+					faceNormals[f * 3 + 1] 	= y;
+					faceNormals[f * 3 + 2] 	= z;
+					
+					float length = (float) Math.sqrt(x*x + y*y + z*z);
+					if (length != 0){
+						float scalar = 1f / length;
+						x *= scalar;
+						y *= scalar;
+						z *= scalar;
+					}
+					unitFaceNormals[f * 3] 		= x;
+					unitFaceNormals[f * 3 + 1] 	= y;
+					unitFaceNormals[f * 3 + 2] 	= z;
+				}
+			}
+		});
+	}
+	
+	
+	/**
+	 * Collects the faces around each input vertex, in ascending order.
+	 */
+	private void buildVertexFaces(int inputVertexCount){
+		faceOffsets = new int[inputVertexCount + 1];
+		int[] lastFace = new int[inputVertexCount];
+		Arrays.fill(lastFace, -1);
+		for (int corner = 0; corner < faceCount * 3; corner++) {
+			int v = sourceVertices[indices[corner]];
+			int face = corner / 3;
+			if (lastFace[v] != face){
+				lastFace[v] = face;
+				faceOffsets[v + 1]++;
+			}
+		}
+		for (int v = 0; v < inputVertexCount; v++) {
+			faceOffsets[v + 1] += faceOffsets[v];
+		}
+		
+		vertexFaces = new int[faceOffsets[inputVertexCount]];
+		int[] next = Arrays.copyOf(faceOffsets, inputVertexCount);
+		Arrays.fill(lastFace, -1);
+		for (int corner = 0; corner < faceCount * 3; corner++) {
+			int v = sourceVertices[indices[corner]];
+			int face = corner / 3;
+			if (lastFace[v] != face){
+				lastFace[v] = face;
+				vertexFaces[next[v]++] = face;
+			}
+		}
+	}
+	
+	
+	/*
+	 * The faces around a vertex are visited in ascending order. A texture coordinate 
+	 * duplicate visits the face that created it first, the other faces after it, as the
+	 * original generator did - so the normals are summed up in the same order.
+	 * This is done by starting one before the row and using the creator face there.
+	 */
+	
+	private void calcSmoothVertexNormals(int from, int to){
+		for (int v = from; v < to; v++) {
+			int source = sourceVertices[v];
+			if (source == -1){
+				continue;
+			}
+			int start = faceOffsets[source];
+			int end = faceOffsets[source + 1];
+			int creator = creatorFaces[v];
+			
+			float x, y, z;
+			if (end - start == 1){
+				int f = vertexFaces[start] * 3;
+				x = unitFaceNormals[f];
+				y = unitFaceNormals[f + 1];
+				z = unitFaceNormals[f + 2];
+			}else{
+				x = 0; y = 0; z = 0;
+				for (int i = creator == -1 ? start : start - 1; i < end; i++) {
+					int face = i < start ? creator : vertexFaces[i];
+					if (i >= start && face == creator){
+						continue;
+					}
+					x += faceNormals[face * 3];
+					y += faceNormals[face * 3 + 1];
+					z += faceNormals[face * 3 + 2];
+				}
+				float length = (float) Math.sqrt(x*x + y*y + z*z);
+				if (length != 0){
+					float scalar = 1f / length;
+					x *= scalar;
+					y *= scalar;
+					z *= scalar;
+				}
+			}
+			normals[v * 3] 		= x;
+			normals[v * 3 + 1] 	= y;
+			normals[v * 3 + 2] 	= z;
+		}
+	}
+	
+	
+	private void calcCornerNormals(int from, int to, float creaseAngleRad, float[] cornerNormals){
+		int[] added = new int[16];
+		
+		for (int face = from; face < to; face++) {
+			float fx = faceNormals[face * 3];
+			float fy = faceNormals[face * 3 + 1];
+			float fz = faceNormals[face * 3 + 2];
+			float faceLength = (float) Math.sqrt(fx*fx + fy*fy + fz*fz);
+			float ux = unitFaceNormals[face * 3];
+			float uy = unitFaceNormals[face * 3 + 1];
+			float uz = unitFaceNormals[face * 3 + 2];
+			
+			for (int corner = face * 3; corner < face * 3 + 3; corner++) {
+				float x = ux;
+				float y = uy;
+				float z = uz;
+				
+				if (creaseAngleRad != 0){
+					int v = indices[corner];
+					int source = sourceVertices[v];
+					int start = faceOffsets[source];
+					int end = faceOffsets[source + 1];
+					int creator = creatorFaces[v];
+					int addedCount = 0;
+					
+					for (int i = creator == -1 ? start : start - 1; i < end; i++) {
+						int neighbor = i < start ? creator : vertexFaces[i];
+						if (neighbor == face || (i >= start && neighbor == creator)){
+							continue;
+						}
+						//Smooth if the angle between the faces is smaller than the crease angle
+						float nx = faceNormals[neighbor * 3];
+						float ny = faceNormals[neighbor * 3 + 1];
+						float nz = faceNormals[neighbor * 3 + 2];
+						float dot = fx * nx + fy * ny + fz * nz;
+						float angle = ToolsMath.acos(dot / (faceLength * (float) Math.sqrt(nx*nx + ny*ny + nz*nz)));
+						if (!(angle < creaseAngleRad) && !Float.isNaN(angle)){
+							continue;
+						}
+						
+						int n = neighbor * 3;
+						if (!useNormalsEqualToFace && equalsWithTolerance(unitFaceNormals, n, ux, uy, uz)){
+							continue;
+						}
+						if (!useEqualNeighborNormalsAgain){
+							boolean alreadyAdded = false;
+							for (int j = 0; j < addedCount && !alreadyAdded; j++) {
+								int a = added[j] * 3;
+								alreadyAdded = equalsWithTolerance(unitFaceNormals, n, unitFaceNormals[a], unitFaceNormals[a + 1], unitFaceNormals[a + 2]);
+							}
+							if (alreadyAdded){
+								continue;
+							}
+							if (addedCount == added.length){
+								added = Arrays.copyOf(added, addedCount * 2);
+							}
+							added[addedCount++] = neighbor;
+						}
+						x += unitFaceNormals[n];
+						y += unitFaceNormals[n + 1];
+						z += unitFaceNormals[n + 2];
+					}
+				}
+				
+				float length = (float) Math.sqrt(x*x + y*y + z*z);
+				if (length != 0){
+					float scalar = 1f / length;
+					x *= scalar;
+					y *= scalar;
+					z *= scalar;
+				}
+				cornerNormals[corner * 3] 	  = x;
+				cornerNormals[corner * 3 + 1] = y;
+				cornerNormals[corner * 3 + 2] = z;
+			}
+		}
+	}
+	
+	
+	/**
+	 * Assigns the corner normals to the vertices. The first normal of a vertex is kept
+	 * at the vertex, a different normal (not equal within <code>ToolsMath.ZERO_TOLERANCE</code>)
+	 * is put into a duplicate of the vertex.
+	 */
+	private void splitNormals(float[] cornerNormals){
+		int inputVertexCount = vertexCount;
+		boolean[] hasNormal = new boolean[inputVertexCount];
+		Arrays.fill(nextNormalDuplicates, 0, inputVertexCount, -1);
+		
+		for (int corner = 0; corner < faceCount * 3; corner++) {
+			int v = indices[corner];
+			float x = cornerNormals[corner * 3];
+			float y = cornerNormals[corner * 3 + 1];
+			float z = cornerNormals[corner * 3 + 2];
+			
+			if (!hasNormal[v]){
+				hasNormal[v] = true;
+				this.setNormal(v, x, y, z);
+			}else if (!equalsWithTolerance(normals, v * 3, x, y, z)){
+				int last = v;
+				int duplicate = nextNormalDuplicates[v];
+				while (duplicate != -1 && !equalsWithTolerance(normals, duplicate * 3, x, y, z)){
+					last = duplicate;
+					duplicate = nextNormalDuplicates[duplicate];
+				}
+				if (duplicate == -1){
+					duplicate = this.addVertex(sourceVertices[v], texCoords[v * 2], texCoords[v * 2 + 1]);
+					this.setNormal(duplicate, x, y, z);
+					nextNormalDuplicates[last] = duplicate;
+				}
+				indices[corner] = duplicate;
+			}
+		}
+	}
+	
+	
+	private void setNormal(int v, float x, float y, float z){
+		normals[v * 3] 		= x;
+		normals[v * 3 + 1] 	= y;
+		normals[v * 3 + 2] 	= z;
+	}
+	
+	
+	private static boolean equalsWithTolerance(float[] vectors, int offset, float x, float y, float z){
+		return Math.abs(vectors[offset] 	- x) <= ToolsMath.ZERO_TOLERANCE
+			&& Math.abs(vectors[offset + 1] - y) <= ToolsMath.ZERO_TOLERANCE
+			&& Math.abs(vectors[offset + 2] - z) <= ToolsMath.ZERO_TOLERANCE;
+	}
+	
+	
+	/**
+	 * Work on a range of faces or vertices.
+	 */
+	private interface Range{
+		void run(int from, int to);
+	}
+	
+	
+	/**
+	 * Runs the work on the whole range, split across the threads of the pool if parallel
+	 * calculation is enabled and the range is large enough. The calling thread works on the first part.
+	 */
+	private void runRanges(final int count, final Range range){
+		int parts = parallel ? Math.min(Runtime.getRuntime().availableProcessors(), count / PARALLEL_MIN_ELEMENTS) : 1;
+		if (parts <= 1){
+			range.run(0, count);
+			return;
+		}
+		
+		final int partSize = (count + parts - 1) / parts;
+		ExecutorService executor = getPool();
+		List<Future<?>> futures = new ArrayList<Future<?>>(parts - 1);
+		for (int i = 1; i < parts; i++) {
+			final int from = i * partSize;
+			futures.add(executor.submit(new Runnable() {
+				public void run() {
+					range.run(from, Math.min(count, from + partSize));
+				}
+			}));
+		}
+		range.run(0, partSize);
+		
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof Error){
+					throw (Error) cause;
+				}
+				throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Interrupted while generating normals", e);
+			}
+		}
+	}
+	
+	
+	private static synchronized ExecutorService getPool(){
+		if (pool == null){
+			final AtomicInteger threadCount = new AtomicInteger();
+			pool = Executors.newCachedThreadPool(new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "MT4j normal generator " + threadCount.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		return pool;
+	}
+	
+	
+	/**
+	 * Gets the number of vertices of the result.
+	 * 
+	 * @return the vertex count
+	 */
+	public int getVertexCount() {
+		return vertexCount;
+	}
+	
+	/**
+	 * Gets the index of the input vertex each result vertex was created from,
+	 * -1 for input vertices that arent used by any face.
+	 * <br>Only the first <code>getVertexCount()</code> entries are valid.
+	 * 
+	 * @return the source vertices
+	 */
+	public int[] getSourceVertices() {
+		return sourceVertices;
+	}
+	
+	/**
+	 * Gets the texture coordinates (u,v) of the result vertices.
+	 * <br>Only the first <code>getVertexCount()*2</code> entries are valid.
+	 * 
+	 * @return the tex coords
+	 */
+	public float[] getTexCoords() {
+		return texCoords;
+	}
+	
+	/**
+	 * Gets the normals (x,y,z) of the result vertices.
+	 * <br>Only the first <code>getVertexCount()*3</code> entries are valid.
+	 * 
+	 * @return the normals
+	 */
+	public float[] getNormals() {
+		return normals;
+	}
+	
+	/**
+	 * Gets the indices into the result vertices, 3 per face.
+	 * 
+	 * @return the indices
+	 */
+	public int[] getIndices() {
+		return indices;
+	}
+	
+	/**
+	 * Gets the number of faces.
+	 * 
+	 * @return the face count
+	 */
+	public int getFaceCount() {
+		return faceCount;
+	}
+
+	/**
+	 * If <code>useNormalsEqualToFace</code> is set to false, the normals of smooth neighbor faces
+	 * that are equal to the normal of the face itself are not added to the vertex normal.
+	 * <br>The default is true.
+	 * 
+	 * @param useNormalsEqualToFace use other normals equal to face
+	 */
+	public void setUseNormalsEqualToFace(boolean useNormalsEqualToFace) {
+		this.useNormalsEqualToFace = useNormalsEqualToFace;
+	}
+
+	/**
+	 * If <code>useEqualNeighborNormalsAgain</code> is set to false, the normals of smooth neighbor 
+	 * faces that are equal to the normal of a neighbor already added to a vertex normal are not added again.
+	 * <br>The default is true.
+	 * 
+	 * @param useEqualNeighborNormalsAgain use equal neighbor normals again
+	 */
+	public void setUseEqualNeighborNormalsAgain(boolean useEqualNeighborNormalsAgain) {
+		this.useEqualNeighborNormalsAgain = useEqualNeighborNormalsAgain;
+	}
+	
+	/**
+	 * Sets whether the face and vertex normals of large meshes are calculated by several threads.
+	 * The results are the same. The default is false.
+	 * 
+	 * @param parallel calculate in parallel
+	 */
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+	
+	/**
+	 * Checks if the normals of large meshes are calculated by several threads.
+	 * 
+	 * @return true, if parallel
+	 */
+	public boolean isParallel() {
+		return parallel;
+	}
+
+}
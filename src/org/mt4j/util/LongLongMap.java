@@ -0,0 +1,239 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.util;
+
+
+/**
+ * A hash map from primitive <code>long</code> keys to primitive <code>long</code> values.
+ * <p>
+ * Uses open addressing with linear probing, so neither the keys nor the
+ * values are boxed when putting or looking up values. Since a value can't be
+ * null, lookups of missing keys return a value chosen by the caller.
+ * <p>
+ * This class isn't thread safe.
+ */
+public class LongLongMap {
+
+	/** The default initial capacity. */
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/** The keys. */
+	private long[] keys;
+
+	/** The values. */
+	private long[] values;
+
+	/** Which slots are used. */
+	private boolean[] used;
+
+	/** The mask to get the slot from a hash. */
+	private int mask;
+
+	/** The number of entries. */
+	private int size;
+
+	/** The size at which the table is grown. */
+	private int resizeThreshold;
+
+
+	/**
+	 * Instantiates a new map with the default initial capacity.
+	 */
+	public LongLongMap(){
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Instantiates a new map.
+	 *
+	 * @param expectedSize the number of entries the map can hold without growing
+	 */
+	public LongLongMap(int expectedSize){
+		this.allocate(tableSizeFor(expectedSize));
+	}
+
+
+	/**
+	 * Gets the power of two table size that holds the number of entries at a load factor of 0.5.
+	 */
+	static int tableSizeFor(int expectedSize){
+		int size = 4;
+		while (size < (1 << 30) && size / 2 < expectedSize){
+			size <<= 1;
+		}
+		return size;
+	}
+
+	/**
+	 * Spreads the bits of the key, so that sequential IDs don't end up in sequential slots.
+	 */
+	static int hash(long key){
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+
+	private void allocate(int tableSize){
+		this.keys = new long[tableSize];
+		this.values = new long[tableSize];
+		this.used = new boolean[tableSize];
+		this.mask = tableSize - 1;
+		this.resizeThreshold = tableSize / 2;
+	}
+
+
+	private int findSlot(long key){
+		int slot = hash(key) & mask;
+		while (used[slot]){
+			if (keys[slot] == key){
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+
+	/**
+	 * Gets the value of the key.
+	 *
+	 * @param key the key
+	 * @param noValue the value returned if the key isn't in the map
+	 * @return the value or <code>noValue</code>
+	 */
+	public long get(long key, long noValue){
+		int slot = this.findSlot(key);
+		return slot == -1 ? noValue : values[slot];
+	}
+
+
+	/**
+	 * Checks if the map contains the key.
+	 *
+	 * @param key the key
+	 * @return true, if the key is in the map
+	 */
+	public boolean containsKey(long key){
+		return this.findSlot(key) != -1;
+	}
+
+
+	/**
+	 * Puts the value for the key.
+	 *
+	 * @param key the key
+	 * @param value the value
+	 */
+	public void put(long key, long value){
+		int slot = hash(key) & mask;
+		while (used[slot]){
+			if (keys[slot] == key){
+				values[slot] = value;
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		values[slot] = value;
+		used[slot] = true;
+		size++;
+		if (size > resizeThreshold){
+			this.rehash(keys.length * 2);
+		}
+	}
+
+
+	/**
+	 * Removes the key.
+	 *
+	 * @param key the key
+	 * @return true, if the key was in the map
+	 */
+	public boolean remove(long key){
+		int slot = this.findSlot(key);
+		if (slot == -1){
+			return false;
+		}
+		
+		//Shift the following entries of the probe sequence back into the gap
+		int gap = slot;
+		int i = (gap + 1) & mask;
+		while (used[i]){
+			int ideal = hash(keys[i]) & mask;
+			if (((i - ideal) & mask) >= ((i - gap) & mask)){
+				keys[gap] = keys[i];
+				values[gap] = values[i];
+				gap = i;
+			}
+			i = (i + 1) & mask;
+		}
+		used[gap] = false;
+		size--;
+		return true;
+	}
+
+
+	private void rehash(int tableSize){
+		long[] oldKeys = keys;
+		long[] oldValues = values;
+		boolean[] oldUsed = used;
+		this.allocate(tableSize);
+		for (int i = 0; i < oldUsed.length; i++) {
+			if (oldUsed[i]){
+				int slot = hash(oldKeys[i]) & mask;
+				while (used[slot]){
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+				used[slot] = true;
+			}
+		}
+	}
+
+
+	/**
+	 * Removes all entries.
+	 */
+	public void clear(){
+		for (int i = 0; i < used.length; i++) {
+			used[i] = false;
+		}
+		size = 0;
+	}
+
+
+	/**
+	 * Gets the number of entries.
+	 *
+	 * @return the size
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * Checks if the map is empty.
+	 *
+	 * @return true, if empty
+	 */
+	public boolean isEmpty(){
+		return size == 0;
+	}
+
+}
@@ -0,0 +1,252 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.util;
+
+import java.lang.reflect.Array;
+
+
+/**
+ * A hash map from primitive <code>long</code> keys to objects.
+ * <p>
+ * Uses open addressing with linear probing, so neither the keys nor
+ * the entries are boxed or allocated when putting or looking up values.
+ * Removing uses backward shifting, so there are no tombstones slowing down
+ * later lookups.
+ * <br><code>null</code> values are not allowed.
+ * <p>
+ * This class isn't thread safe.
+ *
+ * @param <V> the value type
+ */
+public class LongObjectMap<V> {
+
+	/** The default initial capacity. */
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/** The keys. */
+	private long[] keys;
+
+	/** The values, a slot is empty if its value is null. */
+	private Object[] values;
+
+	/** The mask to get the slot from a hash. */
+	private int mask;
+
+	/** The number of entries. */
+	private int size;
+
+	/** The size at which the table is grown. */
+	private int resizeThreshold;
+
+
+	/**
+	 * Instantiates a new map with the default initial capacity.
+	 */
+	public LongObjectMap(){
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Instantiates a new map.
+	 *
+	 * @param expectedSize the number of entries the map can hold without growing
+	 */
+	public LongObjectMap(int expectedSize){
+		this.allocate(LongLongMap.tableSizeFor(expectedSize));
+	}
+
+
+	private void allocate(int tableSize){
+		this.keys = new long[tableSize];
+		this.values = new Object[tableSize];
+		this.mask = tableSize - 1;
+		this.resizeThreshold = tableSize / 2;
+	}
+
+
+	private int findSlot(long key){
+		int slot = LongLongMap.hash(key) & mask;
+		while (values[slot] != null){
+			if (keys[slot] == key){
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+
+	/**
+	 * Gets the value of the key.
+	 *
+	 * @param key the key
+	 * @return the value or null if the key isn't in the map
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key){
+		int slot = this.findSlot(key);
+		return slot == -1 ? null : (V) values[slot];
+	}
+
+
+	/**
+	 * Checks if the map contains the key.
+	 *
+	 * @param key the key
+	 * @return true, if the key is in the map
+	 */
+	public boolean containsKey(long key){
+		return this.findSlot(key) != -1;
+	}
+
+
+	/**
+	 * Puts the value for the key.
+	 *
+	 * @param key the key
+	 * @param value the value, not null
+	 * @return the previous value or null
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(long key, V value){
+		if (value == null){
+			throw new IllegalArgumentException("Null values are not supported.");
+		}
+		int slot = LongLongMap.hash(key) & mask;
+		while (values[slot] != null){
+			if (keys[slot] == key){
+				V old = (V) values[slot];
+				values[slot] = value;
+				return old;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		values[slot] = value;
+		size++;
+		if (size > resizeThreshold){
+			this.rehash(keys.length * 2);
+		}
+		return null;
+	}
+
+
+	/**
+	 * Removes the key.
+	 *
+	 * @param key the key
+	 * @return the removed value or null if the key wasn't in the map
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(long key){
+		int slot = this.findSlot(key);
+		if (slot == -1){
+			return null;
+		}
+		V old = (V) values[slot];
+		
+		//Shift the following entries of the probe sequence back into the gap
+		int gap = slot;
+		int i = (gap + 1) & mask;
+		while (values[i] != null){
+			int ideal = LongLongMap.hash(keys[i]) & mask;
+			if (((i - ideal) & mask) >= ((i - gap) & mask)){
+				keys[gap] = keys[i];
+				values[gap] = values[i];
+				gap = i;
+			}
+			i = (i + 1) & mask;
+		}
+		values[gap] = null;
+		size--;
+		return old;
+	}
+
+
+	private void rehash(int tableSize){
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		this.allocate(tableSize);
+		for (int i = 0; i < oldValues.length; i++) {
+			if (oldValues[i] != null){
+				int slot = LongLongMap.hash(oldKeys[i]) & mask;
+				while (values[slot] != null){
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+
+	/**
+	 * Removes all entries.
+	 */
+	public void clear(){
+		for (int i = 0; i < values.length; i++) {
+			values[i] = null;
+		}
+		size = 0;
+	}
+
+
+	/**
+	 * Gets the number of entries.
+	 *
+	 * @return the size
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * Checks if the map is empty.
+	 *
+	 * @return true, if empty
+	 */
+	public boolean isEmpty(){
+		return size == 0;
+	}
+
+
+	/**
+	 * Copies the values into an array, like <code>Collection.toArray(T[])</code>.
+	 * If the array is too small, a new one of the same type is created.
+	 *
+	 * @param a the array
+	 * @return the array containing the values
+	 */
+	@SuppressWarnings("unchecked")
+	public V[] values(V[] a){
+		if (a.length < size){
+			a = (V[]) Array.newInstance(a.getClass().getComponentType(), size);
+		}
+		int n = 0;
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != null){
+				a[n++] = (V) values[i];
+			}
+		}
+		if (a.length > size){
+			a[size] = null;
+		}
+		return a;
+	}
+
+}
@@ -36,6 +36,9 @@ import processing.core.PApplet;
  * <br><li>It also duplicates equal vertices that get assigned different normals in the calculation process according
  * to the face they belong to.
  * <p>
+ * The normals are generated by an {@link IndexedNormalGenerator} working on flat arrays. The original 
+ * object based implementation can still be used with <code>setUseLegacyGenerator(true)</code>.
+ * <p>
  * 
  * @author C.Ruff
  */
@@ -59,6 +62,12 @@ public class TriangleNormalGenerator {
 	/** The use equal neighbor normals again. */
 	private boolean useEqualNeighborNormalsAgain;
 	
+	/** The generator doing the work if the legacy generator isnt used. */
+	private IndexedNormalGenerator indexedGenerator;
+	
+	/** Use the original object based implementation. */
+	private boolean useLegacyGenerator;
+	
  
 	/**
 	 * Constructor.
@@ -67,6 +76,8 @@ public class TriangleNormalGenerator {
 		nullVect = new Vertex(0,0,0, -1, -1);
 		useNormalsEqualToFace 			= true;
 		useEqualNeighborNormalsAgain 	= true;
+		indexedGenerator 				= new IndexedNormalGenerator();
+		useLegacyGenerator 				= false;
 	}
 	
 	
@@ -175,6 +186,13 @@ public class TriangleNormalGenerator {
 	 * @return the geometry info
 	 */
 	public GeometryInfo generateSmoothNormals(PApplet pa, Vertex[] originalVertices, int[] originalIndices, float[][] originalTexCoords, int[] originalTexIndices, float creaseAngle, boolean flipTextureY, boolean flipTextureX){
+			if (!useLegacyGenerator){
+				logger.debug("-> Loading all smoothed model.");
+				float[] texCoords = this.getFlatTexCoords(originalTexCoords, flipTextureY, flipTextureX);
+				indexedGenerator.generateSmoothNormals(this.getFlatPositions(originalVertices), originalVertices.length, originalIndices, texCoords, originalTexIndices);
+				return this.createGeometryInfo(pa, originalVertices, texCoords != null);
+			}
+			
 			int newDuplicatesWithDiffTexCoordsCreated 	= 0;
 			int newDuplicatesWithDiffNormalCreated 		= 0;
 			
@@ -502,6 +520,13 @@ public class TriangleNormalGenerator {
 	 * indexed, geometry info with normals
 	 */
 	public GeometryInfo generateCreaseAngleNormals(PApplet pa, Vertex[] originalVertices, int[] originalIndices, float[][] originalTexCoords, int[] originalTexIndices, float creaseAngle, boolean flipTextureY, boolean flipTextureX){
+			if (!useLegacyGenerator){
+				logger.debug("-> Loading  model with a crease angle: " + creaseAngle);
+				float[] texCoords = this.getFlatTexCoords(originalTexCoords, flipTextureY, flipTextureX);
+				indexedGenerator.generateCreaseAngleNormals(this.getFlatPositions(originalVertices), originalVertices.length, originalIndices, texCoords, originalTexIndices, creaseAngle);
+				return this.createGeometryInfo(pa, originalVertices, texCoords != null);
+			}
+			
 			int newDuplicatesWithDiffTexCoordsCreated 	= 0;
 			int newDuplicatesWithDiffNormalCreated 		= 0;
 			
@@ -954,6 +979,103 @@ public class TriangleNormalGenerator {
 
 
 	
+	private float[] getFlatPositions(Vertex[] vertices){
+		float[] positions = new float[vertices.length * 3];
+		for (int i = 0; i < vertices.length; i++) {
+			Vertex v = vertices[i];
+			positions[i * 3] 	 = v.x;
+			positions[i * 3 + 1] = v.y;
+			positions[i * 3 + 2] = v.z;
+		}
+		return positions;
+	}
+	
+	
+	private float[] getFlatTexCoords(float[][] texCoords, boolean flipTextureY, boolean flipTextureX){
+		if (texCoords.length == 0){
+			return null;
+		}
+		float[] flatTexCoords = new float[texCoords.length * 2];
+		for (int i = 0; i < texCoords.length; i++) {
+			float u = texCoords[i][0];
+			float v = texCoords[i][1];
+			if (flipTextureY){
+				v = 1.0f - v;
+			}
+			if (flipTextureX){
+				u = 1.0f - u;
+			}
+			flatTexCoords[i * 2] 	 = u;
+			flatTexCoords[i * 2 + 1] = v;
+		}
+		return flatTexCoords;
+	}
+	
+	
+	/**
+	 * Creates the geometry from the result of the indexed generator.
+	 */
+	private GeometryInfo createGeometryInfo(PApplet pa, Vertex[] originalVertices, boolean hasTexCoords){
+		int vertexCount 		= indexedGenerator.getVertexCount();
+		int[] sourceVertices 	= indexedGenerator.getSourceVertices();
+		float[] texCoords 		= indexedGenerator.getTexCoords();
+		float[] normalArray 	= indexedGenerator.getNormals();
+		
+		Vertex[] newVertices 	= new Vertex[vertexCount];
+		Vector3D[] normals  	= new Vector3D[vertexCount];
+		for (int i = 0; i < vertexCount; i++) {
+			int source = sourceVertices[i];
+			//Vertices that arent used by any face
+			if (source == -1){
+				newVertices[i] 	= nullVect;
+				normals[i] 		= nullVect;
+				continue;
+			}
+			Vertex v = originalVertices[source];
+			Vertex newVertex = new Vertex(v.x, v.y, v.z, v.getR(), v.getG(), v.getB(), v.getA());
+			if (hasTexCoords){
+				newVertex.setTexCoordU(texCoords[i * 2]);
+				newVertex.setTexCoordV(texCoords[i * 2 + 1]);
+			}
+			newVertices[i] 	= newVertex;
+			normals[i] 		= new Vector3D(normalArray[i * 3], normalArray[i * 3 + 1], normalArray[i * 3 + 2]);
+		}
+		
+		logger.debug("Original number of vertices: " + originalVertices.length);
+		logger.debug("Final number of vertices: " + vertexCount);
+		logger.debug("Final number of faces: " + indexedGenerator.getFaceCount());
+		
+		if (vertexCount > 2 && indexedGenerator.getFaceCount() > 0){
+			GeometryInfo geometryInfo = new GeometryInfo(pa, newVertices, indexedGenerator.getIndices());
+			geometryInfo.setNormals(normals, true, false);
+			return geometryInfo;
+		}
+		return null;
+	}
+	
+	
+	/**
+	 * Sets whether the original object based implementation is used to generate the normals.
+	 * It creates the same geometry but needs a lot more memory and time for large meshes.
+	 * <br>The default is false.
+	 * 
+	 * @param useLegacyGenerator use the legacy generator
+	 */
+	public void setUseLegacyGenerator(boolean useLegacyGenerator) {
+		this.useLegacyGenerator = useLegacyGenerator;
+	}
+	
+	/**
+	 * Sets whether the face and vertex normals of large meshes are calculated by several threads.
+	 * Not used by the legacy generator. The default is false.
+	 * 
+	 * @param parallel calculate in parallel
+	 */
+	public void setParallel(boolean parallel) {
+		indexedGenerator.setParallel(parallel);
+	}
+	
+	
 	/**
 	 * Sets the debug mode.
 	 * 
@@ -979,6 +1101,7 @@ public class TriangleNormalGenerator {
 	 */
 	public void setUseNormalsEqualToFace(boolean useNormalsEqualToFace) {
 		this.useNormalsEqualToFace = useNormalsEqualToFace;
+		indexedGenerator.setUseNormalsEqualToFace(useNormalsEqualToFace);
 	}
 
 	/**
@@ -994,6 +1117,7 @@ public class TriangleNormalGenerator {
 	 */
 	public void setUseEqualNeighborNormalsAgain(boolean useEqualNeighborNormalsAgain) {
 		this.useEqualNeighborNormalsAgain = useEqualNeighborNormalsAgain;
+		indexedGenerator.setUseEqualNeighborNormalsAgain(useEqualNeighborNormalsAgain);
 	}
 	
 	
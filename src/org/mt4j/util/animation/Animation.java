@@ -40,9 +40,18 @@ public class Animation extends AbstractAnimation implements IAnimationManagerLis
 	/** The trigger count down. */
 	private long triggerCountDown;
 	
+	/** The animation manager time at which the scheduled trigger count down runs out, -1 if none is scheduled. */
+	private long triggerDue;
+	
 	/** The has started. */
 	private boolean hasStarted;
 	
+	/** The animation manager, null for the global one. */
+	private AnimationManager animationManager;
+	
+	/** The animation event, reused for all events of this animation. */
+	private AnimationEvent animationEvent;
+	
 	
 	/**
 	 * Instantiates a new animation.
@@ -75,7 +84,9 @@ public class Animation extends AbstractAnimation implements IAnimationManagerLis
 		
 		this.triggerTime = triggerTime;
 		this.triggerCountDown = triggerTime;
+		this.triggerDue = -1;
 		this.hasStarted = false;
+		this.animationEvent = new AnimationEvent(this, AnimationEvent.ANIMATION_STARTED, this, targetObject);
 	}
 
 	
@@ -87,9 +98,11 @@ public class Animation extends AbstractAnimation implements IAnimationManagerLis
 			System.err.println("Animation: " + this.getName() + " has finished! To start it again, call restart() or set Animation.setResetOnFinish(true)");
 			return;
 		}
+		if (this.getAnimationManager().contains(this)){
+			return; //Already running or waiting for the trigger
+		}
 
-		AnimationManager.getInstance().registerAnimation(this);
-		AnimationManager.getInstance().addAnimationManagerListener(this);
+		this.register();
 
 		//		System.out.println("Animation STARTED: " + this.getName());
 		//		fireAnimationEvent(new AnimationEvent(this, AnimationEvent.ANIMATION_STARTED, this, this.getTargetObject()));
@@ -103,8 +116,7 @@ public class Animation extends AbstractAnimation implements IAnimationManagerLis
 		
 		this.triggerCountDown = this.getTriggerTime();
 		this.hasStarted = false;
-		AnimationManager.getInstance().registerAnimation(this);
-		AnimationManager.getInstance().addAnimationManagerListener(this);
+		this.register();
 		
 //		System.out.println("Animation RESTARTED: " + this.getName());
 //		fireAnimationEvent(new AnimationEvent(this, AnimationEvent.ANIMATION_STARTED, this, this.getTargetObject()));
@@ -115,14 +127,76 @@ public class Animation extends AbstractAnimation implements IAnimationManagerLis
 	 * @see org.mt4j.util.animation.IAnimation#stop()
 	 */
 	public void stop(){
-		AnimationManager.getInstance().unregisterAnimation(this);
-		AnimationManager.getInstance().removeAnimationManagerListener(this);
+		this.unregister();
 		
 //		System.out.println("Animation FINISHED: " + this.getName());
 		//TODO fire?
 //		fireAnimationEvent(new AnimationEvent(this, AnimationEvent.ANIMATION_ENDED, this, this.getTargetObject()));
 	}
 	
+	/**
+	 * Registers the animation at its animation manager. If a trigger time is
+	 * set, the animation manager only starts updating the animation after the 
+	 * trigger time has passed.
+	 */
+	private void register(){
+		AnimationManager manager = this.getAnimationManager();
+		manager.registerAnimation(this);
+		if (triggerTime != 0 && triggerCountDown > 0){
+			manager.addAnimationManagerListener(this, triggerCountDown);
+			triggerDue = manager.getTime() + triggerCountDown;
+			triggerCountDown = 0;
+		}else{
+			manager.addAnimationManagerListener(this);
+			triggerDue = -1;
+		}
+	}
+	
+	/**
+	 * Unregisters the animation from its animation manager.
+	 */
+	private void unregister(){
+		AnimationManager manager = this.getAnimationManager();
+		manager.unregisterAnimation(this);
+		manager.removeAnimationManagerListener(this);
+		if (!hasStarted && triggerDue != -1){
+			//Stopped while waiting for the trigger - keep the remaining count down
+			triggerCountDown = Math.max(0, triggerDue - manager.getTime());
+		}
+		triggerDue = -1;
+	}
+	
+	/**
+	 * Gets the event of this animation with the given id. 
+	 * The event object is reused, so listeners shouldn't keep it.
+	 * 
+	 * @param id the id
+	 * @return the animation event
+	 */
+	private AnimationEvent getAnimationEvent(int id){
+		animationEvent.setId(id);
+		return animationEvent;
+	}
+	
+	/**
+	 * Gets the animation manager which updates this animation.
+	 * 
+	 * @return the animation manager
+	 */
+	public AnimationManager getAnimationManager() {
+		return animationManager != null ? animationManager : AnimationManager.getInstance();
+	}
+
+	/**
+	 * Sets the animation manager which updates this animation, e.g. the 
+	 * animation manager of a scene. Should be set before the animation is started.
+	 * 
+	 * @param animationManager the animation manager, null for the global one
+	 */
+	public void setAnimationManager(AnimationManager animationManager) {
+		this.animationManager = animationManager;
+	}
+	
 	/**
 	 * Interface method of IAnimationManagerListener
 	 * <br>used to update the anmation (interpolate) with a given timedelta.
@@ -142,15 +216,14 @@ public class Animation extends AbstractAnimation implements IAnimationManagerLis
 					if (!interpolator.isFinished()){
 						if (!hasStarted){
 							hasStarted = true;
-							this.fireAnimationEvent(new AnimationEvent(this, AnimationEvent.ANIMATION_STARTED, this, this.getTarget()));
+							this.fireAnimationEvent(this.getAnimationEvent(AnimationEvent.ANIMATION_STARTED));
 						}else{
-							this.fireAnimationEvent(new AnimationEvent(this, AnimationEvent.ANIMATION_UPDATED, this, this.getTarget()));
+							this.fireAnimationEvent(this.getAnimationEvent(AnimationEvent.ANIMATION_UPDATED));
 						}
 					}else{
 						//FIXME wenn gefinished, sollte der interpolator bei lastStepdelta und 0 zur�ckgeben, oder??
-						this.fireAnimationEvent(new AnimationEvent(this, AnimationEvent.ANIMATION_ENDED, this, this.getTarget()));
-						AnimationManager.getInstance().unregisterAnimation(this);
-						AnimationManager.getInstance().removeAnimationManagerListener(this);
+						this.fireAnimationEvent(this.getAnimationEvent(AnimationEvent.ANIMATION_ENDED));
+						this.unregister();
 						this.triggerCountDown = this.getTriggerTime();
 						
 						if (this.isResetOnFinish()){
@@ -166,14 +239,13 @@ public class Animation extends AbstractAnimation implements IAnimationManagerLis
 				if (!this.interpolator.isFinished()){
 					if (!this.hasStarted){ //Animation hasnt begun yet
 						this.hasStarted = true;
-						this.fireAnimationEvent(new AnimationEvent(this, AnimationEvent.ANIMATION_STARTED, this, this.getTarget()));
+						this.fireAnimationEvent(this.getAnimationEvent(AnimationEvent.ANIMATION_STARTED));
 					}else{
-						this.fireAnimationEvent(new AnimationEvent(this, AnimationEvent.ANIMATION_UPDATED, this, this.getTarget()));
+						this.fireAnimationEvent(this.getAnimationEvent(AnimationEvent.ANIMATION_UPDATED));
 					}
 				}else{
-					this.fireAnimationEvent(new AnimationEvent(this, AnimationEvent.ANIMATION_ENDED, this, this.getTarget()));
-					AnimationManager.getInstance().unregisterAnimation(this);
-					AnimationManager.getInstance().removeAnimationManagerListener(this);
+					this.fireAnimationEvent(this.getAnimationEvent(AnimationEvent.ANIMATION_ENDED));
+					this.unregister();
 					
 					if (this.isResetOnFinish()){
 						this.getInterpolator().resetInterpolator();
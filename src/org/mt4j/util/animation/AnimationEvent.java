@@ -80,6 +80,15 @@ public class AnimationEvent extends MTEvent {
 	public int getId() {
 		return id;
 	}
+	
+	/**
+	 * Sets the id. Used by animations which reuse their event object.
+	 * 
+	 * @param id the new id
+	 */
+	public void setId(int id) {
+		this.id = id;
+	}
 
 
 	/**
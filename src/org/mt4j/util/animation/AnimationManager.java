@@ -18,29 +18,49 @@
 package org.mt4j.util.animation;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
+
+import org.mt4j.util.IdentityIntMap;
 
 /**
  * The Class AnimationManager.
+ * <p>
+ * Updates its listeners - usually the running animations - every frame. The global instance
+ * is updated by the <code>MTApplication</code>, a scene can have its own animation manager which is 
+ * only updated while the scene is drawn, see <code>AbstractScene.getAnimationManager()</code>.
+ * <p>
+ * The listeners are kept in a packed array, adding and removing them takes constant time.
+ * Listeners with a delay are kept in a timer wheel until they are due and 
+ * don't cost anything per frame while waiting.
+ * <br>The update event is reused every frame.
  * @author Christopher Ruff
  */
 public class AnimationManager {
 	
 	/** The animations. */
-	private ArrayList<IAnimation> animations;
+	private PackedList<IAnimation> animations;
 	
 	/** The instance. */
 	private static AnimationManager instance = new AnimationManager();
 	
 	/** The animation mgr listener. */
-	private ArrayList<IAnimationManagerListener> animationMgrListener;
+	private PackedList<IAnimationManagerListener> animationMgrListener;
+	
+	/** The listeners waiting for their delay to pass. */
+	private AnimationTimerWheel delayedListeners;
+	
+	/** The time passed in the updates of this manager. */
+	private long time;
 	
 	/**
 	 * Instantiates a new animation manager.
+	 * <br>Only needed for an animation manager with its own scope, 
+	 * usually <code>getInstance()</code> should be used.
 	 */
-	private AnimationManager(){
-		animations = new ArrayList<IAnimation>();
-		animationMgrListener = new ArrayList<IAnimationManagerListener>();
+	public AnimationManager(){
+		animations = new PackedList<IAnimation>();
+		animationMgrListener = new PackedList<IAnimationManagerListener>();
+		delayedListeners = new AnimationTimerWheel(8);
 		
 		animUpdateEvt = new AnimationUpdateEvent(this, 0);
 	}
@@ -68,8 +88,13 @@ public class AnimationManager {
 	 * 
 	 * @param timeDelta the time delta
 	 */
-	public void update(long timeDelta){
+	public synchronized void update(long timeDelta){
 //		AnimationUpdateEvent ev = new AnimationUpdateEvent(this, timeDelta);
+		time += timeDelta;
+		animations.compact();
+		
+		//Activate the delayed listeners whose delay has passed
+		delayedListeners.advance(time, animationMgrListener);
 		
 		//INFO: animUpdatEvt is recycled everytime, so that no new object must be
 		//allocated each frame! => the creation timestampt is wrong
@@ -84,8 +109,7 @@ public class AnimationManager {
 	 * @param a the a
 	 */
 	public synchronized  void registerAnimation(IAnimation a){
-		if (!this.contains(a))
-			animations.add(a);
+		animations.add(a);
 	}
 
 	/**
@@ -94,17 +118,18 @@ public class AnimationManager {
 	 * @param a the a
 	 */
 	public  synchronized void unregisterAnimation(IAnimation a){
-		if (animations.contains(a))
-			animations.remove(a);
+		animations.remove(a);
 	}
 
 	/**
 	 * Clear.
 	 */
 	public void clear() {
-		Iterator<IAnimation> i = animations.iterator();
-		while (i.hasNext()) {
-			IAnimation a = (IAnimation)i.next();
+		IAnimation[] all;
+		synchronized (this) {
+			all = animations.toArray(new IAnimation[animations.size()]);
+		}
+		for (IAnimation a : all) {
 //			a.stop();
             if (a instanceof IAnimationManagerListener) {
                 IAnimationManagerListener ial = (IAnimationManagerListener) a;
@@ -112,7 +137,9 @@ public class AnimationManager {
             }
             a.stop();
         }
-		animations.clear();
+		synchronized (this) {
+			animations.clear();
+		}
 	}
 	
 	/**
@@ -122,12 +149,11 @@ public class AnimationManager {
 	 * 
 	 * @return the animations for target
 	 */
-	public IAnimation[] getAnimationsForTarget(Object target){
-		Iterator<IAnimation> i = animations.iterator();
+	public synchronized IAnimation[] getAnimationsForTarget(Object target){
 		ArrayList<IAnimation> animations = new ArrayList<IAnimation>();
-		while (i.hasNext()) {
-			IAnimation a = i.next();
-			if (a.getTarget().equals(target)){
+		for (int i = 0; i < this.animations.capacityUsed(); i++) {
+			IAnimation a = this.animations.get(i);
+			if (a != null && a.getTarget() != null && a.getTarget().equals(target)){
 				animations.add(a);
 			}
 		}
@@ -141,7 +167,7 @@ public class AnimationManager {
 	 * 
 	 * @return true, if successful
 	 */
-	public boolean contains(IAnimation arg0) {
+	public synchronized boolean contains(IAnimation arg0) {
 		return animations.contains(arg0);
 	}
 
@@ -150,7 +176,7 @@ public class AnimationManager {
 	 * 
 	 * @return the int
 	 */
-	public int size() {
+	public synchronized int size() {
 		return animations.size();
 	}
 	
@@ -161,12 +187,17 @@ public class AnimationManager {
 	 * @param up the up
 	 */
 	private synchronized void fireAnimationUpdateEvent(AnimationUpdateEvent up) {
-		//		synchronized(animationMgrListener) {
-//		for (IAnimationManagerListener listener : animationMgrListener) {
-
-						for (int i = 0; i < animationMgrListener.size(); i++) {
-							IAnimationManagerListener listener = (IAnimationManagerListener)animationMgrListener.get(i);
-			listener.updateAnimation(up);
+		//Remove the gaps left by removed listeners before iterating
+		animationMgrListener.compact();
+		
+		//Listeners added during the update are updated in the next frame,
+		//removed listeners leave a gap and are skipped
+		int count = animationMgrListener.capacityUsed();
+		for (int i = 0; i < count; i++) {
+			IAnimationManagerListener listener = animationMgrListener.get(i);
+			if (listener != null){
+				listener.updateAnimation(up);
+			}
 		}
 	}
 
@@ -177,10 +208,24 @@ public class AnimationManager {
 	 * @param listener the listener
 	 */
 	public synchronized void addAnimationManagerListener(IAnimationManagerListener listener){
-		if (!animationMgrListener.contains(listener)){
-			animationMgrListener.add(listener);
+		delayedListeners.cancel(listener);
+		animationMgrListener.add(listener);
+	}
+	
+	/**
+	 * Adds the animation manager listener. It is updated once the delay has passed,
+	 * beginning with the update in which the delay runs out.
+	 * 
+	 * @param listener the listener
+	 * @param delay the delay in milliseconds
+	 */
+	public synchronized void addAnimationManagerListener(IAnimationManagerListener listener, long delay){
+		if (delay <= 0){
+			this.addAnimationManagerListener(listener);
+		}else{
+			animationMgrListener.remove(listener);
+			delayedListeners.schedule(listener, time + delay);
 		}
-		
 	}
 	
 	/**
@@ -189,8 +234,8 @@ public class AnimationManager {
 	 * @param listener the listener
 	 */
 	public synchronized void removeAnimationManagerListener(IAnimationManagerListener listener){
-		if (animationMgrListener.contains(listener)){
-			animationMgrListener.remove(listener);
+		if (!animationMgrListener.remove(listener)){
+			delayedListeners.cancel(listener);
 		}
 	}
 	
@@ -199,10 +244,11 @@ public class AnimationManager {
 	 */
 	public synchronized void removeAllAnimationListeners(){
 		animationMgrListener.clear();
+		delayedListeners.clear();
 	}
 	
 	/**
-	 * Gets the animation manager listeners.
+	 * Gets the animation manager listeners, without the delayed ones.
 	 * 
 	 * @return the animation manager listeners
 	 */
@@ -210,4 +256,116 @@ public class AnimationManager {
 		return animationMgrListener.toArray(new IAnimationManagerListener[this.animationMgrListener.size()]);
 	}
 	
+	/**
+	 * Gets the number of listeners waiting for their delay to pass.
+	 * 
+	 * @return the delayed listener count
+	 */
+	public synchronized int getDelayedListenerCount(){
+		return delayedListeners.size();
+	}
+	
+	/**
+	 * Gets the time passed in the updates of this animation manager.
+	 * 
+	 * @return the time in milliseconds
+	 */
+	public synchronized long getTime(){
+		return time;
+	}
+	
+	
+	/**
+	 * A list keeping its elements in an array, with constant time add, remove and contains.
+	 * Removing leaves a gap, so the order is kept and the list can be iterated while elements are
+	 * removed. The gaps are closed by <code>compact()</code>.
+	 */
+	static class PackedList<T> {
+		private Object[] elements;
+		private int end;
+		private final IdentityIntMap indices;
+		
+		PackedList(){
+			elements = new Object[16];
+			indices = new IdentityIntMap();
+		}
+		
+		boolean add(T element){
+			if (indices.containsKey(element)){
+				return false;
+			}
+			//Not compacted here, the list may be iterated at the moment
+			if (end == elements.length){
+				elements = Arrays.copyOf(elements, end * 2);
+			}
+			indices.put(element, end);
+			elements[end++] = element;
+			return true;
+		}
+		
+		boolean remove(Object element){
+			int index = indices.get(element, -1);
+			if (index == -1){
+				return false;
+			}
+			indices.remove(element);
+			elements[index] = null;
+			return true;
+		}
+		
+		boolean contains(Object element){
+			return indices.containsKey(element);
+		}
+		
+		@SuppressWarnings("unchecked")
+		T get(int i){
+			return (T) elements[i];
+		}
+		
+		/** The number of elements. */
+		int size(){
+			return indices.size();
+		}
+		
+		/** The number of array slots used, including the gaps. */
+		int capacityUsed(){
+			return end;
+		}
+		
+		void compact(){
+			if (indices.size() == end){
+				return;
+			}
+			int j = 0;
+			for (int i = 0; i < end; i++) {
+				Object e = elements[i];
+				if (e != null){
+					if (i != j){
+						elements[j] = e;
+						indices.put(e, j);
+					}
+					j++;
+				}
+			}
+			Arrays.fill(elements, j, end, null);
+			end = j;
+		}
+		
+		void clear(){
+			Arrays.fill(elements, 0, end, null);
+			end = 0;
+			indices.clear();
+		}
+		
+		<A> A[] toArray(A[] a){
+			int j = 0;
+			for (int i = 0; i < end; i++) {
+				if (elements[i] != null){
+					System.arraycopy(elements, i, a, j++, 1);
+				}
+			}
+			return a;
+		}
+	}
+	
 }
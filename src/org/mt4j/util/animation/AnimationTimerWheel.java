@@ -0,0 +1,191 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.util.animation;
+
+import java.util.Arrays;
+
+import org.mt4j.util.IdentityIntMap;
+
+
+/**
+ * A hashed timer wheel holding the delayed listeners of an <code>AnimationManager</code>
+ * until they are due.
+ * <p>
+ * The time is divided into ticks, each tick maps to a bucket of the wheel. Advancing the time 
+ * only looks at the buckets of the ticks passed, so waiting listeners cost nothing per frame.
+ * Listeners more than one round ahead stay in their bucket until their round comes.
+ * <br>The buckets are arrays that are reused, scheduling allocates only if a bucket has to grow. 
+ */
+class AnimationTimerWheel {
+	
+	/** The number of buckets, a power of two. */
+	private static final int BUCKETS = 256;
+	
+	/** The tick length in milliseconds. */
+	private final long tickMillis;
+	
+	/** The listeners in each bucket. */
+	private final Object[][] items;
+	
+	/** The due times of the listeners in each bucket. */
+	private final long[][] dues;
+	
+	/** The number of listeners in each bucket. */
+	private final int[] counts;
+	
+	/** The bucket of each scheduled listener. */
+	private final IdentityIntMap bucketOf;
+	
+	/** The tick of the last advance. */
+	private long currentTick;
+	
+	
+	/**
+	 * Instantiates a new timer wheel.
+	 *
+	 * @param tickMillis the tick length in milliseconds
+	 */
+	AnimationTimerWheel(long tickMillis){
+		this.tickMillis = Math.max(1, tickMillis);
+		this.items = new Object[BUCKETS][];
+		this.dues = new long[BUCKETS][];
+		this.counts = new int[BUCKETS];
+		this.bucketOf = new IdentityIntMap();
+	}
+	
+	
+	/**
+	 * Schedules the listener. If it is already scheduled, it is rescheduled.
+	 *
+	 * @param item the listener
+	 * @param due the time it is due
+	 */
+	void schedule(Object item, long due){
+		this.cancel(item);
+		int bucket = (int) (Math.max(due / tickMillis, currentTick) & (BUCKETS - 1));
+		int n = counts[bucket];
+		if (items[bucket] == null){
+			items[bucket] = new Object[4];
+			dues[bucket] = new long[4];
+		}else if (n == items[bucket].length){
+			items[bucket] = Arrays.copyOf(items[bucket], n * 2);
+			dues[bucket] = Arrays.copyOf(dues[bucket], n * 2);
+		}
+		items[bucket][n] = item;
+		dues[bucket][n] = due;
+		counts[bucket] = n + 1;
+		bucketOf.put(item, bucket);
+	}
+	
+	
+	/**
+	 * Removes the listener if it is scheduled.
+	 *
+	 * @param item the listener
+	 * @return true, if it was scheduled
+	 */
+	boolean cancel(Object item){
+		int bucket = bucketOf.get(item, -1);
+		if (bucket == -1){
+			return false;
+		}
+		bucketOf.remove(item);
+		Object[] bucketItems = items[bucket];
+		for (int i = 0; i < counts[bucket]; i++) {
+			if (bucketItems[i] == item){
+				this.removeAt(bucket, i);
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	
+	/**
+	 * Checks if the listener is scheduled.
+	 *
+	 * @param item the listener
+	 * @return true, if scheduled
+	 */
+	boolean contains(Object item){
+		return bucketOf.containsKey(item);
+	}
+	
+	
+	/**
+	 * Advances the time and moves the listeners due to the list.
+	 *
+	 * @param now the current time
+	 * @param due the list to add the due listeners to
+	 */
+	@SuppressWarnings("unchecked")
+	<T> void advance(long now, AnimationManager.PackedList<T> due){
+		if (bucketOf.isEmpty()){
+			currentTick = now / tickMillis;
+			return;
+		}
+		long nowTick = now / tickMillis;
+		long ticks = Math.min(nowTick - currentTick, BUCKETS - 1);
+		//The bucket of the current tick is visited again, it can hold listeners due later in the tick
+		for (long t = nowTick - ticks; t <= nowTick; t++) {
+			int bucket = (int) (t & (BUCKETS - 1));
+			for (int i = 0; i < counts[bucket]; i++) {
+				if (dues[bucket][i] <= now){
+					Object item = items[bucket][i];
+					bucketOf.remove(item);
+					this.removeAt(bucket, i--);
+					due.add((T) item);
+				}
+			}
+		}
+		currentTick = nowTick;
+	}
+	
+	
+	private void removeAt(int bucket, int i){
+		int last = --counts[bucket];
+		items[bucket][i] = items[bucket][last];
+		dues[bucket][i] = dues[bucket][last];
+		items[bucket][last] = null;
+	}
+	
+	
+	/**
+	 * Gets the number of scheduled listeners.
+	 *
+	 * @return the size
+	 */
+	int size(){
+		return bucketOf.size();
+	}
+	
+	
+	/**
+	 * Removes all listeners.
+	 */
+	void clear(){
+		for (int b = 0; b < BUCKETS; b++) {
+			if (items[b] != null){
+				Arrays.fill(items[b], null);
+			}
+			counts[b] = 0;
+		}
+		bucketOf.clear();
+	}
+	
+}
@@ -9,6 +9,7 @@ public class AniAdapter extends Ani {
 	private AniAnimation correspondingAnimation;
 	private Object animationTarget;
 	private float currentStepDelta;
+	private AnimationEvent animationEvent;
 	
 	
 	static{
@@ -50,7 +51,7 @@ public class AniAdapter extends Ani {
 	@Override
 	protected void dispatchOnStart() {
 		super.dispatchOnStart();
-		correspondingAnimation.fireAnimationEvent(new AnimationEvent(this, AnimationEvent.ANIMATION_STARTED, correspondingAnimation, animationTarget));
+		correspondingAnimation.fireAnimationEvent(this.getAnimationEvent(AnimationEvent.ANIMATION_STARTED));
 	}
 	
 	
@@ -62,7 +63,7 @@ public class AniAdapter extends Ani {
 //		if (this.currentStepDelta == -1.0f){
 //			System.out.println();
 //		}
-		correspondingAnimation.fireAnimationEvent(new AnimationEvent(this, AnimationEvent.ANIMATION_UPDATED, correspondingAnimation, animationTarget));
+		correspondingAnimation.fireAnimationEvent(this.getAnimationEvent(AnimationEvent.ANIMATION_UPDATED));
 	}
 	
 	
@@ -71,7 +72,7 @@ public class AniAdapter extends Ani {
 	protected void dispatchOnEnd() {
 		this.currentStepDelta = 0.0f; //Else we get the same delta as from the last step twice!
 		super.dispatchOnEnd();
-		correspondingAnimation.fireAnimationEvent(new AnimationEvent(this, AnimationEvent.ANIMATION_ENDED, correspondingAnimation, animationTarget));
+		correspondingAnimation.fireAnimationEvent(this.getAnimationEvent(AnimationEvent.ANIMATION_ENDED));
 	}
 	
 	
@@ -90,6 +91,20 @@ public class AniAdapter extends Ani {
 	}
 	
 	
+	/**
+	 * Gets the animation event with the given id. The event object is reused
+	 * for all events of this adapter.
+	 */
+	private AnimationEvent getAnimationEvent(int id){
+		if (animationEvent == null){
+			animationEvent = new AnimationEvent(this, id, correspondingAnimation, animationTarget);
+		}else{
+			animationEvent.setId(id);
+		}
+		return animationEvent;
+	}
+	
+	
 	public float getCurrentStepDelta(){
 		return this.currentStepDelta;
 	}
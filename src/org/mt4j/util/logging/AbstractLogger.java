@@ -0,0 +1,160 @@
+package org.mt4j.util.logging;
+
+/**
+ * Base class of the loggers. Checks the level before a message is formatted and
+ * hands the message to the <code>AsyncLogDispatcher</code> if asynchronous logging is 
+ * enabled, see <code>MTLoggerFactory.setAsynchronous()</code>.
+ * <br>Subclasses only have to check the levels and write the messages.
+ */
+public abstract class AbstractLogger implements ILogger {
+	
+	/**
+	 * Writes the message to the underlying logger. Called from the logging thread
+	 * if asynchronous logging is enabled.
+	 * 
+	 * @param level the level
+	 * @param message the message
+	 */
+	protected abstract void write(int level, String message);
+	
+	
+	public boolean isInfoEnabled() {
+		return this.isEnabled(INFO);
+	}
+	
+	public boolean isDebugEnabled() {
+		return this.isEnabled(DEBUG);
+	}
+	
+	
+	private void log(int level, Object message){
+		if (this.isEnabled(level)){
+			this.dispatch(level, String.valueOf(message));
+		}
+	}
+	
+	private void log(int level, String pattern, Object[] args){
+		if (this.isEnabled(level)){
+			this.dispatch(level, format(pattern, args));
+		}
+	}
+	
+	private void dispatch(int level, String message){
+		AsyncLogDispatcher dispatcher = MTLoggerFactory.getAsyncDispatcher();
+		if (dispatcher == null || !dispatcher.offer(this, level, message)){
+			this.write(level, message);
+		}
+	}
+	
+	
+	/**
+	 * Replaces the "{}" placeholders of the pattern with the arguments.
+	 * Surplus placeholders are left in place, surplus arguments are ignored.
+	 * 
+	 * @param pattern the pattern
+	 * @param args the arguments
+	 * @return the message
+	 */
+	public static String format(String pattern, Object[] args){
+		if (pattern == null){
+			return "null";
+		}
+		if (args == null || args.length == 0){
+			return pattern;
+		}
+		StringBuilder sb = new StringBuilder(pattern.length() + 16 * args.length);
+		int start = 0;
+		for (int i = 0; i < args.length; i++) {
+			int index = pattern.indexOf("{}", start);
+			if (index == -1){
+				break;
+			}
+			sb.append(pattern, start, index).append(args[i]);
+			start = index + 2;
+		}
+		sb.append(pattern, start, pattern.length());
+		return sb.toString();
+	}
+	
+	
+	public void info(Object message) {
+		this.log(INFO, message);
+	}
+
+	public void debug(Object message) {
+		this.log(DEBUG, message);
+	}
+
+	public void warn(Object message) {
+		this.log(WARN, message);
+	}
+
+	public void error(Object message) {
+		this.log(ERROR, message);
+	}
+	
+	public void info(String pattern, Object arg) {
+		if (this.isEnabled(INFO)){
+			this.dispatch(INFO, format(pattern, new Object[]{arg}));
+		}
+	}
+
+	public void info(String pattern, Object arg1, Object arg2) {
+		if (this.isEnabled(INFO)){
+			this.dispatch(INFO, format(pattern, new Object[]{arg1, arg2}));
+		}
+	}
+
+	public void info(String pattern, Object... args) {
+		this.log(INFO, pattern, args);
+	}
+
+	public void debug(String pattern, Object arg) {
+		if (this.isEnabled(DEBUG)){
+			this.dispatch(DEBUG, format(pattern, new Object[]{arg}));
+		}
+	}
+
+	public void debug(String pattern, Object arg1, Object arg2) {
+		if (this.isEnabled(DEBUG)){
+			this.dispatch(DEBUG, format(pattern, new Object[]{arg1, arg2}));
+		}
+	}
+
+	public void debug(String pattern, Object... args) {
+		this.log(DEBUG, pattern, args);
+	}
+
+	public void warn(String pattern, Object arg) {
+		if (this.isEnabled(WARN)){
+			this.dispatch(WARN, format(pattern, new Object[]{arg}));
+		}
+	}
+
+	public void warn(String pattern, Object arg1, Object arg2) {
+		if (this.isEnabled(WARN)){
+			this.dispatch(WARN, format(pattern, new Object[]{arg1, arg2}));
+		}
+	}
+
+	public void warn(String pattern, Object... args) {
+		this.log(WARN, pattern, args);
+	}
+
+	public void error(String pattern, Object arg) {
+		if (this.isEnabled(ERROR)){
+			this.dispatch(ERROR, format(pattern, new Object[]{arg}));
+		}
+	}
+
+	public void error(String pattern, Object arg1, Object arg2) {
+		if (this.isEnabled(ERROR)){
+			this.dispatch(ERROR, format(pattern, new Object[]{arg1, arg2}));
+		}
+	}
+
+	public void error(String pattern, Object... args) {
+		this.log(ERROR, pattern, args);
+	}
+
+}
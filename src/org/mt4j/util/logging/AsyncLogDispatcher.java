@@ -0,0 +1,139 @@
+package org.mt4j.util.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes the messages of the loggers on a background thread, so logging doesnt block 
+ * the rendering thread on console or file output.
+ * <p>
+ * The messages are queued in a bounded queue. If the queue is full, messages are dropped 
+ * and counted instead of blocking the caller - except errors, they are written by the caller then.
+ * The queued messages are written when the VM shuts down.
+ */
+public class AsyncLogDispatcher {
+	
+	/** The default queue capacity. */
+	public static final int DEFAULT_CAPACITY = 4096;
+	
+	private final BlockingQueue<Entry> queue;
+	
+	private final AtomicLong dropped;
+	
+	private final Thread thread;
+	
+	private volatile boolean stopped;
+	
+	
+	public AsyncLogDispatcher(){
+		this(DEFAULT_CAPACITY);
+	}
+	
+	public AsyncLogDispatcher(int capacity){
+		this.queue = new ArrayBlockingQueue<Entry>(Math.max(1, capacity));
+		this.dropped = new AtomicLong();
+		this.thread = new Thread(new Runnable() {
+			public void run() {
+				dispatchLoop();
+			}
+		}, "MT4j log dispatcher");
+		this.thread.setDaemon(true);
+		this.thread.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			public void run() {
+				flush();
+			}
+		}));
+	}
+	
+	
+	/**
+	 * Queues a message. Doesnt block.
+	 * 
+	 * @return true, if the message was queued or dropped, false if it has to be written by the caller
+	 */
+	boolean offer(AbstractLogger logger, int level, String message){
+		if (stopped){
+			return false;
+		}
+		if (queue.offer(new Entry(logger, level, message))){
+			return true;
+		}
+		if (level == ILogger.ERROR){
+			return false;
+		}
+		dropped.incrementAndGet();
+		return true;
+	}
+	
+	
+	private void dispatchLoop(){
+		while (!stopped){
+			try {
+				Entry entry = queue.take();
+				entry.logger.write(entry.level, entry.message);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+	
+	
+	/**
+	 * Writes the queued messages in the calling thread.
+	 */
+	public void flush(){
+		List<Entry> entries = new ArrayList<Entry>();
+		queue.drainTo(entries);
+		for (Entry entry : entries) {
+			entry.logger.write(entry.level, entry.message);
+		}
+	}
+	
+	
+	/**
+	 * Stops the background thread and writes the queued messages. 
+	 * Messages logged afterwards are written by the caller.
+	 */
+	public void shutdown(){
+		stopped = true;
+		thread.interrupt();
+		this.flush();
+	}
+	
+	
+	/**
+	 * Gets the number of queued messages.
+	 */
+	public int getQueuedCount(){
+		return queue.size();
+	}
+	
+	
+	/**
+	 * Gets the number of messages dropped because the queue was full.
+	 */
+	public long getDroppedCount(){
+		return dropped.get();
+	}
+	
+	
+	private static class Entry{
+		private final AbstractLogger logger;
+		private final int level;
+		private final String message;
+		
+		private Entry(AbstractLogger logger, int level, String message){
+			this.logger = logger;
+			this.level = level;
+			this.message = message;
+		}
+	}
+
+}
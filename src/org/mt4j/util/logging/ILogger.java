@@ -13,6 +13,16 @@ public interface ILogger {
 	
 	public int getLevel();
 	
+	/**
+	 * Checks if messages of the level (<code>INFO, DEBUG, WARN, ERROR</code>) are logged.
+	 * Use it to guard expensive messages.
+	 */
+	public boolean isEnabled(int level);
+	
+	public boolean isInfoEnabled();
+	
+	public boolean isDebugEnabled();
+	
 	public void info(Object msg);
 
 	public void debug(Object msg);
@@ -20,10 +30,38 @@ public interface ILogger {
 	public void warn(Object msg);
 	
 	public void error(Object msg);
+	
+	/*
+	 * Parameterized messages. The "{}" placeholders of the pattern are replaced by the arguments 
+	 * only if the level is enabled, so the arguments toString() isnt called otherwise.
+	 */
+	
+	public void info(String pattern, Object arg);
+	
+	public void info(String pattern, Object arg1, Object arg2);
+	
+	public void info(String pattern, Object... args);
+	
+	public void debug(String pattern, Object arg);
+	
+	public void debug(String pattern, Object arg1, Object arg2);
+	
+	public void debug(String pattern, Object... args);
+	
+	public void warn(String pattern, Object arg);
+	
+	public void warn(String pattern, Object arg1, Object arg2);
+	
+	public void warn(String pattern, Object... args);
+	
+	public void error(String pattern, Object arg);
+	
+	public void error(String pattern, Object arg1, Object arg2);
+	
+	public void error(String pattern, Object... args);
 
 	public ILogger createNew(String name);
 	
 	//public void setOutputChannel(int channel);
 
 }
-
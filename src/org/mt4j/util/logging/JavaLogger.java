@@ -4,7 +4,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 
-public class JavaLogger implements ILogger {
+public class JavaLogger extends AbstractLogger {
 	private Logger logger;
 
 	public JavaLogger(){	}
@@ -40,20 +40,25 @@ public class JavaLogger implements ILogger {
 		}
 	}
 
-	public void info(Object message) {
-		logger.info(message.toString());
-	}
-
-	public void debug(Object message) {
-		logger.info(message.toString());
+	private Level getJavaLevel(int level){
+		switch (level) {
+		case ERROR:
+			return Level.SEVERE;
+		case WARN:
+			return Level.WARNING;
+		default:
+			//Debug messages are logged as info, so they pass the default console handler
+			return Level.INFO;
+		}
 	}
-
-	public void warn(Object message) {
-		logger.warning(message.toString());
+	
+	public boolean isEnabled(int level) {
+		return logger.isLoggable(getJavaLevel(level));
 	}
 
-	public void error(Object message) {
-		logger.severe(message.toString());
+	@Override
+	protected void write(int level, String message) {
+		logger.logp(getJavaLevel(level), logger.getName(), null, message);
 	}
 
 	public ILogger createNew(String name) {
@@ -5,7 +5,7 @@ import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 import org.apache.log4j.SimpleLayout;
 
-public class Log4jLogger implements ILogger {
+public class Log4jLogger extends AbstractLogger {
 	private Logger logger;
 	
 	public Log4jLogger(){	}
@@ -43,20 +43,26 @@ public class Log4jLogger implements ILogger {
 		}
 	}
 
-	public void info(Object message) {
-		this.logger.info(message);
-	}
-
-	public void debug(Object message) {
-		this.logger.debug(message);
+	private Level getLog4jLevel(int level){
+		switch (level) {
+		case INFO:
+			return Level.INFO;
+		case DEBUG:
+			return Level.DEBUG;
+		case WARN:
+			return Level.WARN;
+		default:
+			return Level.ERROR;
+		}
 	}
-
-	public void warn(Object message) {
-		this.logger.warn(message);
+	
+	public boolean isEnabled(int level) {
+		return this.logger.isEnabledFor(getLog4jLevel(level));
 	}
 
-	public void error(Object message) {
-		this.logger.error(message);
+	@Override
+	protected void write(int level, String message) {
+		this.logger.log(getLog4jLevel(level), message);
 	}
 
 //	public ILogger getLogger(String name) {
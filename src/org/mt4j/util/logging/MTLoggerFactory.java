@@ -5,6 +5,8 @@ public class MTLoggerFactory {
 //	private static MTLoggerFactory instance;
 	private static ILogger logger;
 	
+	private static volatile AsyncLogDispatcher asyncDispatcher;
+	
 	private MTLoggerFactory(){}
 	
 //	public static MTLoggerFactory getInstance(){
@@ -28,5 +30,31 @@ public class MTLoggerFactory {
 		MTLoggerFactory.logger = logger;
 	}
 	
+	
+	/**
+	 * Enables or disables asynchronous logging. If enabled, the messages of all loggers
+	 * are written by a background thread, see <code>AsyncLogDispatcher</code>.
+	 */
+	public static synchronized void setAsynchronous(boolean asynchronous){
+		if (asynchronous && asyncDispatcher == null){
+			asyncDispatcher = new AsyncLogDispatcher();
+		}else if (!asynchronous && asyncDispatcher != null){
+			AsyncLogDispatcher dispatcher = asyncDispatcher;
+			asyncDispatcher = null;
+			dispatcher.shutdown();
+		}
+	}
+	
+	public static boolean isAsynchronous(){
+		return asyncDispatcher != null;
+	}
+	
+	/**
+	 * Gets the dispatcher writing the messages if asynchronous logging is enabled, else null.
+	 */
+	public static AsyncLogDispatcher getAsyncDispatcher(){
+		return asyncDispatcher;
+	}
+	
 
 }
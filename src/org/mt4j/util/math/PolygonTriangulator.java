@@ -0,0 +1,1260 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.util.math;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.mt4j.util.LongLongMap;
+
+
+/**
+ * Triangulates polygons consisting of one or more contours without using OpenGL.
+ * <p>
+ * The contours may intersect each other and themselves. Like with the GLU tessellator
+ * used by the <code>GluTrianglulator</code>, the winding rule determines which regions 
+ * of the polygon are inside. The winding rule constants have the same values as the 
+ * GLU constants, so both triangulators can be used with the same winding rule values.
+ * The contours are projected onto the x,y plane, the z coordinates, texture coordinates
+ * and colors of the vertices are kept (and interpolated for vertices created at
+ * intersections).
+ * <p>
+ * The triangulation works in these steps:
+ * <ul>
+ * <li>the edges of the contours are split at their intersections
+ * <li>the winding numbers of the regions on both sides of each edge are computed
+ * <li>the edges separating inside from outside regions are connected to outer and hole boundaries
+ * <li>the holes are bridged into the outer boundary containing them and the resulting
+ * polygons are triangulated by ear clipping
+ * </ul>
+ * The triangulator doesn't keep any state between calls, so it can be used by 
+ * multiple threads at the same time, e.g. to triangulate fonts or svg shapes while loading.
+ */
+public class PolygonTriangulator {
+	
+	/** Regions with an odd winding number are inside. */
+	public static final int WINDING_RULE_ODD 			= 100130;
+	
+	/** Regions with a winding number other than zero are inside. */
+	public static final int WINDING_RULE_NONZERO 		= 100131;
+	
+	/** Regions with a positive winding number are inside. */
+	public static final int WINDING_RULE_POSITIVE 		= 100132;
+	
+	/** Regions with a negative winding number are inside. */
+	public static final int WINDING_RULE_NEGATIVE 		= 100133;
+	
+	/** Regions with a winding number of at least two in absolute value are inside. */
+	public static final int WINDING_RULE_ABS_GEQ_TWO 	= 100134;
+	
+	
+	/**
+	 * Triangulates a single contour with the odd winding rule.
+	 * 
+	 * @param contour the contour
+	 * @return the triangles, 3 vertices per triangle
+	 */
+	public Vertex[] triangulate(Vertex[] contour){
+		List<Vertex[]> contours = new ArrayList<Vertex[]>();
+		contours.add(contour);
+		List<Vertex> tris = this.triangulate(contours, WINDING_RULE_ODD);
+		return tris.toArray(new Vertex[tris.size()]);
+	}
+	
+	
+	/**
+	 * Triangulates the contours with the odd winding rule.
+	 * 
+	 * @param contours the contours
+	 * @return the triangles, 3 vertices per triangle
+	 */
+	public List<Vertex> triangulate(List<Vertex[]> contours){
+		return this.triangulate(contours, WINDING_RULE_ODD);
+	}
+	
+	
+	/**
+	 * Triangulates the contours into one list of triangles.
+	 * <br>A new vertex is created for each corner of each triangle.
+	 * 
+	 * @param contours the contours
+	 * @param windingRule the winding rule which determines which regions of the polygon are inside (e.g. <code>WINDING_RULE_ODD</code>)
+	 * @return the triangles, 3 vertices per triangle
+	 */
+	public List<Vertex> triangulate(List<Vertex[]> contours, int windingRule){
+		if (windingRule < WINDING_RULE_ODD || windingRule > WINDING_RULE_ABS_GEQ_TWO){
+			throw new IllegalArgumentException("Unknown winding rule: " + windingRule);
+		}
+		Tessellation tessellation = new Tessellation(windingRule);
+		for (Vertex[] contour : contours) {
+			tessellation.addContour(contour);
+		}
+		return tessellation.triangulate();
+	}
+	
+	
+	/**
+	 * Checks if a region with the winding number is inside.
+	 */
+	private static boolean isInside(int windingRule, int winding){
+		switch (windingRule) {
+		case WINDING_RULE_ODD:
+			return (winding & 1) != 0;
+		case WINDING_RULE_NONZERO:
+			return winding != 0;
+		case WINDING_RULE_POSITIVE:
+			return winding > 0;
+		case WINDING_RULE_NEGATIVE:
+			return winding < 0;
+		default:
+			return Math.abs(winding) >= 2;
+		}
+	}
+	
+	
+	/**
+	 * The state of a single triangulation.
+	 */
+	private static class Tessellation{
+		private int windingRule;
+		
+		/** The point coordinates. */
+		private double[] px, py;
+		
+		/** The vertex each point copies its z coordinate, texture coordinates and color from. */
+		private Vertex[] pointVertex;
+		
+		/** The union find parents of the points, points closer than the tolerance are merged. */
+		private int[] pointParent;
+		private int pointCount;
+		
+		/** The points by their float coordinates. */
+		private LongLongMap pointByPosition;
+		
+		/** The directed input edges. */
+		private int[] edgeStart, edgeEnd;
+		private int edgeCount;
+		
+		/** The points where the input edges have to be split. */
+		private int[] splitEdge, splitPoint;
+		private int splitCount;
+		
+		/** The distance below which points are merged. */
+		private double tolerance;
+		
+		/** The edges of the split contours with their multiplicity. */
+		private int[] fa, fb, fm;
+		private int fCount;
+		
+		/** The boundary edges, the inside is on their left side. */
+		private int[] ba, bb;
+		private int bCount;
+		
+		/** The created triangles, 3 point indices per triangle. */
+		private int[] triangles;
+		private int triangleCount;
+		
+		
+		public Tessellation(int windingRule){
+			this.windingRule 	= windingRule;
+			this.px 			= new double[64];
+			this.py 			= new double[64];
+			this.pointVertex 	= new Vertex[64];
+			this.pointParent 	= new int[64];
+			this.pointByPosition = new LongLongMap();
+			this.edgeStart 		= new int[64];
+			this.edgeEnd 		= new int[64];
+			this.splitEdge 		= new int[16];
+			this.splitPoint 	= new int[16];
+			this.triangles 		= new int[64];
+		}
+		
+		
+		public void addContour(Vertex[] contour){
+			int first = -1;
+			int last = -1;
+			for (Vertex v : contour) {
+				int p = this.getOrAddPoint(v);
+				if (first == -1){
+					first = p;
+				}else if (p != last){
+					this.addEdge(last, p);
+				}
+				last = p;
+			}
+			if (first != -1 && last != first){
+				this.addEdge(last, first);
+			}
+		}
+		
+		
+		private int getOrAddPoint(Vertex v){
+			//Adding 0 turns -0 into 0
+			float x = v.x + 0f;
+			float y = v.y + 0f;
+			long key = ((long) Float.floatToIntBits(x) << 32) | (Float.floatToIntBits(y) & 0xffffffffL);
+			long existing = pointByPosition.get(key, -1);
+			if (existing != -1){
+				return (int) existing;
+			}
+			int p = this.addPoint(x, y, v);
+			pointByPosition.put(key, p);
+			return p;
+		}
+		
+		
+		private int addPoint(double x, double y, Vertex vertex){
+			if (pointCount == px.length){
+				int size = pointCount * 2;
+				px 			= Arrays.copyOf(px, size);
+				py 			= Arrays.copyOf(py, size);
+				pointVertex = Arrays.copyOf(pointVertex, size);
+				pointParent = Arrays.copyOf(pointParent, size);
+			}
+			px[pointCount] 			= x;
+			py[pointCount] 			= y;
+			pointVertex[pointCount] = vertex;
+			pointParent[pointCount] = pointCount;
+			return pointCount++;
+		}
+		
+		
+		private void addEdge(int a, int b){
+			if (edgeCount == edgeStart.length){
+				edgeStart 	= Arrays.copyOf(edgeStart, edgeCount * 2);
+				edgeEnd 	= Arrays.copyOf(edgeEnd, edgeCount * 2);
+			}
+			edgeStart[edgeCount] 	= a;
+			edgeEnd[edgeCount] 		= b;
+			edgeCount++;
+		}
+		
+		
+		public List<Vertex> triangulate(){
+			List<Vertex> result = new ArrayList<Vertex>();
+			if (edgeCount < 3){
+				return result;
+			}
+			
+			double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+			for (int i = 0; i < pointCount; i++) {
+				minX = Math.min(minX, px[i]);
+				minY = Math.min(minY, py[i]);
+				maxX = Math.max(maxX, px[i]);
+				maxY = Math.max(maxY, py[i]);
+			}
+			double size = Math.max(maxX - minX, maxY - minY);
+			if (size == 0 || Double.isNaN(size) || Double.isInfinite(size)){
+				return result;
+			}
+			this.tolerance = size * 1e-7;
+			
+			this.splitIntersectingEdges();
+			this.mergeEdges();
+			this.findBoundaryEdges(minX, minY, maxX, maxY);
+			
+			List<int[]> outers = new ArrayList<int[]>();
+			List<int[]> holes = new ArrayList<int[]>();
+			this.traceBoundaries(outers, holes);
+			
+			List<List<int[]>> holesOfOuters = this.assignHoles(outers, holes);
+			for (int i = 0; i < outers.size(); i++) {
+				new EarClipper(this, outers.get(i), holesOfOuters.get(i)).clip();
+			}
+			
+			for (int i = 0; i < triangleCount * 3; i++) {
+				int p = triangles[i];
+				Vertex v = new Vertex(pointVertex[p]);
+				v.x = (float) px[p];
+				v.y = (float) py[p];
+				result.add(v);
+			}
+			return result;
+		}
+		
+		
+		void addTriangle(int a, int b, int c){
+			if (triangleCount * 3 + 3 > triangles.length){
+				triangles = Arrays.copyOf(triangles, triangles.length * 2);
+			}
+			triangles[triangleCount * 3] 	 = a;
+			triangles[triangleCount * 3 + 1] = b;
+			triangles[triangleCount * 3 + 2] = c;
+			triangleCount++;
+		}
+		
+		
+		//////////////////////////////////////////////////
+		// Edge intersections
+		//////////////////////////////////////////////////
+		
+		/**
+		 * Finds the points where the edges have to be split, i.e. their intersections and 
+		 * the points lying on other edges. The edges are tested against the edges whose y range 
+		 * overlaps, in the order of their minimum y.
+		 */
+		private void splitIntersectingEdges(){
+			final double[] edgeMinY = new double[edgeCount];
+			double[] edgeMaxY = new double[edgeCount];
+			Integer[] order = new Integer[edgeCount];
+			for (int i = 0; i < edgeCount; i++) {
+				edgeMinY[i] = Math.min(py[edgeStart[i]], py[edgeEnd[i]]);
+				edgeMaxY[i] = Math.max(py[edgeStart[i]], py[edgeEnd[i]]);
+				order[i] = i;
+			}
+			Arrays.sort(order, new Comparator<Integer>() {
+				public int compare(Integer o1, Integer o2) {
+					return Double.compare(edgeMinY[o1], edgeMinY[o2]);
+				}
+			});
+			
+			for (int oi = 0; oi < edgeCount; oi++) {
+				int i = order[oi];
+				double iMinX = Math.min(px[edgeStart[i]], px[edgeEnd[i]]) - tolerance;
+				double iMaxX = Math.max(px[edgeStart[i]], px[edgeEnd[i]]) + tolerance;
+				for (int oj = oi + 1; oj < edgeCount; oj++) {
+					int j = order[oj];
+					if (edgeMinY[j] > edgeMaxY[i] + tolerance){
+						break;
+					}
+					if (Math.max(px[edgeStart[j]], px[edgeEnd[j]]) < iMinX || Math.min(px[edgeStart[j]], px[edgeEnd[j]]) > iMaxX){
+						continue;
+					}
+					this.intersect(i, j);
+				}
+			}
+		}
+		
+		
+		private void intersect(int i, int j){
+			int a = edgeStart[i], b = edgeEnd[i];
+			int c = edgeStart[j], d = edgeEnd[j];
+			double rx = px[b] - px[a], ry = py[b] - py[a];
+			double sx = px[d] - px[c], sy = py[d] - py[c];
+			double lengthR = Math.sqrt(rx * rx + ry * ry);
+			double lengthS = Math.sqrt(sx * sx + sy * sy);
+			double denom = rx * sy - ry * sx;
+			double qx = px[c] - px[a], qy = py[c] - py[a];
+			
+			if (Math.abs(denom) > 1e-12 * lengthR * lengthS){
+				double t = (qx * sy - qy * sx) / denom;
+				double u = (qx * ry - qy * rx) / denom;
+				double toleranceT = tolerance / lengthR;
+				double toleranceU = tolerance / lengthS;
+				if (t < -toleranceT || t > 1 + toleranceT || u < -toleranceU || u > 1 + toleranceU){
+					return;
+				}
+				int p;
+				if (t <= toleranceT){
+					p = a;
+				}else if (t >= 1 - toleranceT){
+					p = b;
+				}else if (u <= toleranceU){
+					p = c;
+				}else if (u >= 1 - toleranceU){
+					p = d;
+				}else{
+					p = this.addPoint(px[a] + t * rx, py[a] + t * ry, interpolate(pointVertex[a], pointVertex[b], (float) t));
+				}
+				this.addSplit(i, p);
+				this.addSplit(j, p);
+			}else{
+				//Parallel - if the edges are collinear, split them at the end points of the other edge
+				if (Math.abs(qx * ry - qy * rx) / lengthR > tolerance){
+					return;
+				}
+				this.addSplitIfOnEdge(i, c);
+				this.addSplitIfOnEdge(i, d);
+				this.addSplitIfOnEdge(j, a);
+				this.addSplitIfOnEdge(j, b);
+			}
+		}
+		
+		
+		private void addSplitIfOnEdge(int edge, int p){
+			int a = edgeStart[edge], b = edgeEnd[edge];
+			double rx = px[b] - px[a], ry = py[b] - py[a];
+			double t = ((px[p] - px[a]) * rx + (py[p] - py[a]) * ry) / (rx * rx + ry * ry);
+			if (t > 0 && t < 1){
+				this.addSplit(edge, p);
+			}
+		}
+		
+		
+		private void addSplit(int edge, int p){
+			if (p == edgeStart[edge] || p == edgeEnd[edge]){
+				return;
+			}
+			if (splitCount == splitEdge.length){
+				splitEdge 	= Arrays.copyOf(splitEdge, splitCount * 2);
+				splitPoint 	= Arrays.copyOf(splitPoint, splitCount * 2);
+			}
+			splitEdge[splitCount] 	= edge;
+			splitPoint[splitCount] 	= p;
+			splitCount++;
+		}
+		
+		
+		private static Vertex interpolate(Vertex a, Vertex b, float t){
+			return new Vertex(
+					a.x + (b.x - a.x) * t,
+					a.y + (b.y - a.y) * t,
+					a.z + (b.z - a.z) * t,
+					a.getTexCoordU() + (b.getTexCoordU() - a.getTexCoordU()) * t,
+					a.getTexCoordV() + (b.getTexCoordV() - a.getTexCoordV()) * t,
+					a.getR() + (b.getR() - a.getR()) * t,
+					a.getG() + (b.getG() - a.getG()) * t,
+					a.getB() + (b.getB() - a.getB()) * t,
+					a.getA() + (b.getA() - a.getA()) * t);
+		}
+		
+		
+		private int find(int p){
+			while (pointParent[p] != p){
+				pointParent[p] = pointParent[pointParent[p]];
+				p = pointParent[p];
+			}
+			return p;
+		}
+		
+		
+		private void union(int p, int q){
+			p = this.find(p);
+			q = this.find(q);
+			if (p != q){
+				//Keep the lower index, input points are preferred over intersection points
+				pointParent[Math.max(p, q)] = Math.min(p, q);
+			}
+		}
+		
+		
+		/**
+		 * Splits the edges at their split points, merges points closer than the tolerance 
+		 * and sums up the multiplicities of edges connecting the same points. Edges whose 
+		 * multiplicities cancel out are dropped.
+		 */
+		private void mergeEdges(){
+			//Sort the split points by edge and distance from the edge start
+			final double[] splitDistance = new double[splitCount];
+			Integer[] order = new Integer[splitCount];
+			for (int i = 0; i < splitCount; i++) {
+				int a = edgeStart[splitEdge[i]];
+				int p = splitPoint[i];
+				splitDistance[i] = Math.abs(px[p] - px[a]) + Math.abs(py[p] - py[a]);
+				order[i] = i;
+			}
+			Arrays.sort(order, new Comparator<Integer>() {
+				public int compare(Integer o1, Integer o2) {
+					if (splitEdge[o1] != splitEdge[o2]){
+						return splitEdge[o1] - splitEdge[o2];
+					}
+					return Double.compare(splitDistance[o1], splitDistance[o2]);
+				}
+			});
+			
+			//The points of each edge, in order
+			int[] chainStart = new int[edgeCount + 1];
+			int[] chain = new int[edgeCount * 2 + splitCount];
+			int n = 0;
+			int s = 0;
+			for (int e = 0; e < edgeCount; e++) {
+				chainStart[e] = n;
+				chain[n++] = edgeStart[e];
+				while (s < splitCount && splitEdge[order[s]] == e){
+					chain[n++] = splitPoint[order[s++]];
+				}
+				chain[n++] = edgeEnd[e];
+			}
+			chainStart[edgeCount] = n;
+			
+			//Merge consecutive points closer than the tolerance
+			for (int e = 0; e < edgeCount; e++) {
+				for (int k = chainStart[e]; k < chainStart[e + 1] - 1; k++) {
+					int p = chain[k], q = chain[k + 1];
+					if (Math.abs(px[p] - px[q]) <= tolerance && Math.abs(py[p] - py[q]) <= tolerance){
+						this.union(p, q);
+					}
+				}
+			}
+			
+			//Sum up the multiplicities of the edges between the same points
+			LongLongMap edgeByPoints = new LongLongMap();
+			int[] ua = new int[16], ub = new int[16], um = new int[16];
+			int uCount = 0;
+			for (int e = 0; e < edgeCount; e++) {
+				for (int k = chainStart[e]; k < chainStart[e + 1] - 1; k++) {
+					int p = this.find(chain[k]), q = this.find(chain[k + 1]);
+					if (p == q){
+						continue;
+					}
+					int lo = Math.min(p, q), hi = Math.max(p, q);
+					long key = ((long) lo << 32) | hi;
+					int index = (int) edgeByPoints.get(key, -1);
+					if (index == -1){
+						if (uCount == ua.length){
+							ua = Arrays.copyOf(ua, uCount * 2);
+							ub = Arrays.copyOf(ub, uCount * 2);
+							um = Arrays.copyOf(um, uCount * 2);
+						}
+						index = uCount++;
+						ua[index] = lo;
+						ub[index] = hi;
+						um[index] = 0;
+						edgeByPoints.put(key, index);
+					}
+					um[index] += (p == lo) ? 1 : -1;
+				}
+			}
+			
+			//Orient the edges so that their multiplicity is positive
+			fa = new int[uCount];
+			fb = new int[uCount];
+			fm = new int[uCount];
+			fCount = 0;
+			for (int i = 0; i < uCount; i++) {
+				if (um[i] > 0){
+					fa[fCount] = ua[i];
+					fb[fCount] = ub[i];
+					fm[fCount] = um[i];
+					fCount++;
+				}else if (um[i] < 0){
+					fa[fCount] = ub[i];
+					fb[fCount] = ua[i];
+					fm[fCount] = -um[i];
+					fCount++;
+				}
+			}
+		}
+		
+		
+		//////////////////////////////////////////////////
+		// Winding numbers
+		//////////////////////////////////////////////////
+		
+		/**
+		 * Computes the winding numbers on both sides of each edge and keeps the edges 
+		 * between inside and outside regions, oriented with the inside on their left.
+		 * <br>The winding number next to an edge is computed by counting the edges crossed 
+		 * by a ray from the middle of the edge, along the x axis for steep edges and along 
+		 * the y axis for flat edges. The edges are sorted into bands to only test the edges 
+		 * that may be crossed.
+		 */
+		private void findBoundaryEdges(double minX, double minY, double maxX, double maxY){
+			int bandCount = Math.max(1, (int) Math.sqrt(fCount));
+			int[][] yBands = this.createBands(bandCount, minY, maxY, py);
+			int[][] xBands = this.createBands(bandCount, minX, maxX, px);
+			
+			ba = new int[fCount];
+			bb = new int[fCount];
+			bCount = 0;
+			for (int e = 0; e < fCount; e++) {
+				int a = fa[e], b = fb[e];
+				double dx = px[b] - px[a];
+				double dy = py[b] - py[a];
+				double mx = (px[a] + px[b]) * 0.5;
+				double my = (py[a] + py[b]) * 0.5;
+				
+				int windingLeft, windingRight;
+				if (Math.abs(dy) >= Math.abs(dx)){
+					int[] band = yBands[getBand(my, minY, maxY, bandCount)];
+					int winding = this.getWindingAlongX(mx, my, e, band);
+					//The ray points to the left of the edge if the edge points downwards
+					if (dy < 0){
+						windingLeft = winding;
+						windingRight = winding - fm[e];
+					}else{
+						windingRight = winding;
+						windingLeft = winding + fm[e];
+					}
+				}else{
+					int[] band = xBands[getBand(mx, minX, maxX, bandCount)];
+					int winding = this.getWindingAlongY(mx, my, e, band);
+					//The ray points to the left of the edge if the edge points to the right
+					if (dx > 0){
+						windingLeft = winding;
+						windingRight = winding - fm[e];
+					}else{
+						windingRight = winding;
+						windingLeft = winding + fm[e];
+					}
+				}
+				
+				boolean insideLeft = isInside(windingRule, windingLeft);
+				boolean insideRight = isInside(windingRule, windingRight);
+				if (insideLeft != insideRight){
+					ba[bCount] = insideLeft ? a : b;
+					bb[bCount] = insideLeft ? b : a;
+					bCount++;
+				}
+			}
+		}
+		
+		
+		/**
+		 * Sorts the edges into bands by their range of the specified coordinate.
+		 * The first entry of each band is the number of edges in the band.
+		 */
+		private int[][] createBands(int bandCount, double min, double max, double[] coords){
+			int[] counts = new int[bandCount];
+			for (int e = 0; e < fCount; e++) {
+				int from = getBand(Math.min(coords[fa[e]], coords[fb[e]]), min, max, bandCount);
+				int to = getBand(Math.max(coords[fa[e]], coords[fb[e]]), min, max, bandCount);
+				for (int k = from; k <= to; k++) {
+					counts[k]++;
+				}
+			}
+			int[][] bands = new int[bandCount][];
+			for (int k = 0; k < bandCount; k++) {
+				bands[k] = new int[counts[k] + 1];
+			}
+			for (int e = 0; e < fCount; e++) {
+				int from = getBand(Math.min(coords[fa[e]], coords[fb[e]]), min, max, bandCount);
+				int to = getBand(Math.max(coords[fa[e]], coords[fb[e]]), min, max, bandCount);
+				for (int k = from; k <= to; k++) {
+					bands[k][++bands[k][0]] = e;
+				}
+			}
+			return bands;
+		}
+		
+		
+		private static int getBand(double value, double min, double max, int bandCount){
+			if (max <= min){
+				return 0;
+			}
+			int band = (int) ((value - min) / (max - min) * bandCount);
+			return Math.max(0, Math.min(bandCount - 1, band));
+		}
+		
+		
+		/**
+		 * Gets the winding number right of the point, counting the edges crossing the ray 
+		 * from the point along the positive x axis.
+		 */
+		private int getWindingAlongX(double x, double y, int excludedEdge, int[] band){
+			int winding = 0;
+			for (int k = 1; k <= band[0]; k++) {
+				int e = band[k];
+				if (e == excludedEdge){
+					continue;
+				}
+				double y0 = py[fa[e]], y1 = py[fb[e]];
+				if (y0 <= y && y < y1){
+					if (this.getCrossingX(e, y) > x){
+						winding += fm[e];
+					}
+				}else if (y1 <= y && y < y0){
+					if (this.getCrossingX(e, y) > x){
+						winding -= fm[e];
+					}
+				}
+			}
+			return winding;
+		}
+		
+		
+		/**
+		 * Gets the winding number above the point, counting the edges crossing the ray 
+		 * from the point along the positive y axis.
+		 */
+		private int getWindingAlongY(double x, double y, int excludedEdge, int[] band){
+			int winding = 0;
+			for (int k = 1; k <= band[0]; k++) {
+				int e = band[k];
+				if (e == excludedEdge){
+					continue;
+				}
+				double x0 = px[fa[e]], x1 = px[fb[e]];
+				if (x1 <= x && x < x0){
+					if (this.getCrossingY(e, x) > y){
+						winding += fm[e];
+					}
+				}else if (x0 <= x && x < x1){
+					if (this.getCrossingY(e, x) > y){
+						winding -= fm[e];
+					}
+				}
+			}
+			return winding;
+		}
+		
+		
+		private double getCrossingX(int e, double y){
+			int a = fa[e], b = fb[e];
+			return px[a] + (y - py[a]) * (px[b] - px[a]) / (py[b] - py[a]);
+		}
+		
+		
+		private double getCrossingY(int e, double x){
+			int a = fa[e], b = fb[e];
+			return py[a] + (x - px[a]) * (py[b] - py[a]) / (px[b] - px[a]);
+		}
+		
+		
+		//////////////////////////////////////////////////
+		// Boundaries
+		//////////////////////////////////////////////////
+		
+		/**
+		 * Connects the boundary edges to closed boundaries. Outer boundaries are 
+		 * counter clockwise, holes clockwise.
+		 * <br>At points with more than one outgoing edge, the edge that is reached first when 
+		 * turning clockwise from the incoming edge is taken, so the boundary encloses the same
+		 * inside region.
+		 */
+		private void traceBoundaries(List<int[]> outers, List<int[]> holes){
+			//The outgoing edges of each point
+			int[] outStart = new int[pointCount + 1];
+			for (int e = 0; e < bCount; e++) {
+				outStart[ba[e] + 1]++;
+			}
+			for (int p = 0; p < pointCount; p++) {
+				outStart[p + 1] += outStart[p];
+			}
+			int[] out = new int[bCount];
+			int[] fill = Arrays.copyOf(outStart, pointCount);
+			for (int e = 0; e < bCount; e++) {
+				out[fill[ba[e]]++] = e;
+			}
+			
+			boolean[] used = new boolean[bCount];
+			int[] loop = new int[bCount];
+			for (int start = 0; start < bCount; start++) {
+				if (used[start]){
+					continue;
+				}
+				int length = 0;
+				int e = start;
+				while (true){
+					used[e] = true;
+					loop[length++] = ba[e];
+					int u = ba[e];
+					int v = bb[e];
+					double backAngle = Math.atan2(py[u] - py[v], px[u] - px[v]);
+					int next = -1;
+					double bestTurn = Double.MAX_VALUE;
+					for (int k = outStart[v]; k < outStart[v + 1]; k++) {
+						int candidate = out[k];
+						if (used[candidate] && candidate != start){
+							continue;
+						}
+						int w = bb[candidate];
+						double turn = backAngle - Math.atan2(py[w] - py[v], px[w] - px[v]);
+						while (turn <= 0){
+							turn += 2 * Math.PI;
+						}
+						while (turn > 2 * Math.PI){
+							turn -= 2 * Math.PI;
+						}
+						if (turn < bestTurn){
+							bestTurn = turn;
+							next = candidate;
+						}
+					}
+					if (next == -1 || next == start || length == bCount){
+						break;
+					}
+					e = next;
+				}
+				if (length < 3){
+					continue;
+				}
+				int[] boundary = Arrays.copyOf(loop, length);
+				double area = this.getSignedArea(boundary);
+				if (area > 0){
+					outers.add(boundary);
+				}else if (area < 0){
+					holes.add(boundary);
+				}
+			}
+		}
+		
+		
+		private double getSignedArea(int[] boundary){
+			double area = 0;
+			for (int i = 0, j = boundary.length - 1; i < boundary.length; j = i++) {
+				area += (px[boundary[j]] - px[boundary[i]]) * (py[boundary[i]] + py[boundary[j]]);
+			}
+			return area * 0.5;
+		}
+		
+		
+		/**
+		 * Finds the outer boundary of each hole. The middle of the longest edge of the hole
+		 * is inside of the outer boundary of the hole and inside of all outer boundaries 
+		 * enclosing that outer boundary, so the smallest outer boundary containing it is taken.
+		 * <br>The middle of a boundary edge can't lie on another boundary, because the edges
+		 * were split at all points lying on them.
+		 * 
+		 * @return the holes of each outer boundary
+		 */
+		private List<List<int[]>> assignHoles(List<int[]> outers, List<int[]> holes){
+			List<List<int[]>> holesOfOuters = new ArrayList<List<int[]>>(outers.size());
+			for (int i = 0; i < outers.size(); i++) {
+				holesOfOuters.add(new ArrayList<int[]>());
+			}
+			if (holes.isEmpty()){
+				return holesOfOuters;
+			}
+			
+			double[] outerArea = new double[outers.size()];
+			double[] outerBounds = new double[outers.size() * 4];
+			for (int i = 0; i < outers.size(); i++) {
+				int[] outer = outers.get(i);
+				outerArea[i] = this.getSignedArea(outer);
+				outerBounds[i*4] 	 = outerBounds[i*4 + 1] = Double.MAX_VALUE;
+				outerBounds[i*4 + 2] = outerBounds[i*4 + 3] = -Double.MAX_VALUE;
+				for (int p : outer) {
+					outerBounds[i*4] 	 = Math.min(outerBounds[i*4], px[p]);
+					outerBounds[i*4 + 1] = Math.min(outerBounds[i*4 + 1], py[p]);
+					outerBounds[i*4 + 2] = Math.max(outerBounds[i*4 + 2], px[p]);
+					outerBounds[i*4 + 3] = Math.max(outerBounds[i*4 + 3], py[p]);
+				}
+			}
+			
+			for (int[] hole : holes) {
+				int longest = 0;
+				double longestLength = -1;
+				for (int i = 0, j = hole.length - 1; i < hole.length; j = i++) {
+					double dx = px[hole[i]] - px[hole[j]];
+					double dy = py[hole[i]] - py[hole[j]];
+					if (dx * dx + dy * dy > longestLength){
+						longestLength = dx * dx + dy * dy;
+						longest = i;
+					}
+				}
+				int a = hole[(longest + hole.length - 1) % hole.length];
+				int b = hole[longest];
+				double mx = (px[a] + px[b]) * 0.5;
+				double my = (py[a] + py[b]) * 0.5;
+				
+				int container = -1;
+				for (int i = 0; i < outers.size(); i++) {
+					if (mx < outerBounds[i*4] || my < outerBounds[i*4 + 1] || mx > outerBounds[i*4 + 2] || my > outerBounds[i*4 + 3]){
+						continue;
+					}
+					if ((container == -1 || outerArea[i] < outerArea[container]) && this.contains(outers.get(i), mx, my)){
+						container = i;
+					}
+				}
+				if (container != -1){
+					holesOfOuters.get(container).add(hole);
+				}
+			}
+			return holesOfOuters;
+		}
+		
+		
+		private boolean contains(int[] boundary, double x, double y){
+			boolean inside = false;
+			for (int i = 0, j = boundary.length - 1; i < boundary.length; j = i++) {
+				int p = boundary[j], q = boundary[i];
+				if ((py[p] <= y && y < py[q]) || (py[q] <= y && y < py[p])){
+					if (px[p] + (y - py[p]) * (px[q] - px[p]) / (py[q] - py[p]) > x){
+						inside = !inside;
+					}
+				}
+			}
+			return inside;
+		}
+		
+		
+		double getX(int p){
+			return px[p];
+		}
+		
+		double getY(int p){
+			return py[p];
+		}
+		
+		double getTolerance(){
+			return tolerance;
+		}
+	}
+	
+	
+	/**
+	 * Triangulates a counter clockwise outer boundary and its clockwise holes by ear clipping.
+	 * The boundary is stored as a doubly linked list of nodes. The holes are connected to the 
+	 * outer boundary by bridges, which duplicate the two points they connect.
+	 */
+	private static class EarClipper{
+		private Tessellation tessellation;
+		
+		/** The point, the next and the previous node of each node. */
+		private int[] point, next, prev;
+		private int nodeCount;
+		
+		/** A node of the boundary after the holes are bridged. */
+		private int start;
+		
+		/** The nodes cut off as ears. */
+		private boolean[] removed;
+		
+		/** The nodes sorted into a grid of cells, so the ear test only has to check the nodes near the ear. */
+		private int[] cellStart, cellNodes;
+		private int gridSize;
+		private double gridMinX, gridMinY, gridCellWidth, gridCellHeight;
+		
+		
+		public EarClipper(Tessellation tessellation, int[] outer, List<int[]> holes){
+			this.tessellation = tessellation;
+			int size = outer.length;
+			for (int[] hole : holes) {
+				size += hole.length + 2;
+			}
+			this.point 	= new int[size];
+			this.next 	= new int[size];
+			this.prev 	= new int[size];
+			
+			this.start = this.createRing(outer);
+			
+			//Bridge the holes in the order of their rightmost point, from right to left
+			final double[] holeMaxX = new double[holes.size()];
+			int[] holeRightmost = new int[holes.size()];
+			int[] holeStart = new int[holes.size()];
+			Integer[] order = new Integer[holes.size()];
+			for (int h = 0; h < holes.size(); h++) {
+				holeStart[h] = this.createRing(holes.get(h));
+				int rightmost = holeStart[h];
+				int node = holeStart[h];
+				do {
+					if (x(node) > x(rightmost) || (x(node) == x(rightmost) && y(node) > y(rightmost))){
+						rightmost = node;
+					}
+					node = next[node];
+				} while (node != holeStart[h]);
+				holeRightmost[h] = rightmost;
+				holeMaxX[h] = x(rightmost);
+				order[h] = h;
+			}
+			Arrays.sort(order, new Comparator<Integer>() {
+				public int compare(Integer o1, Integer o2) {
+					return Double.compare(holeMaxX[o2], holeMaxX[o1]);
+				}
+			});
+			for (Integer h : order) {
+				int hole = holeRightmost[h];
+				int bridge = this.findHoleBridge(hole, start);
+				if (bridge != -1){
+					bridge = this.getNodeLocallyInside(bridge, hole);
+					hole = this.getNodeLocallyInside(hole, bridge);
+					this.splitPolygon(bridge, hole);
+				}
+			}
+		}
+		
+		
+		private int createRing(int[] points){
+			int first = nodeCount;
+			for (int i = 0; i < points.length; i++) {
+				int node = nodeCount++;
+				point[node] = points[i];
+				next[node] 	= i == points.length - 1 ? first : node + 1;
+				prev[node] 	= i == 0 ? first + points.length - 1 : node - 1;
+			}
+			return first;
+		}
+		
+		
+		private double x(int node){
+			return tessellation.getX(point[node]);
+		}
+		
+		private double y(int node){
+			return tessellation.getY(point[node]);
+		}
+		
+		
+		/**
+		 * Twice the signed area of the triangle, positive if counter clockwise.
+		 */
+		private double cross(int a, int b, int c){
+			return (x(b) - x(a)) * (y(c) - y(a)) - (y(b) - y(a)) * (x(c) - x(a));
+		}
+		
+		
+		private boolean samePosition(int a, int b){
+			return x(a) == x(b) && y(a) == y(b);
+		}
+		
+		
+		/**
+		 * Finds a node of the outer boundary that can be connected to the rightmost node
+		 * of a hole without crossing an edge.
+		 */
+		private int findHoleBridge(int hole, int outerStart){
+			double hx = x(hole), hy = y(hole);
+			double qx = Double.MAX_VALUE;
+			int m = -1;
+			
+			//Find the nearest edge hit by a ray from the hole point along the positive x axis
+			int p = outerStart;
+			do {
+				int n = next[p];
+				if ((y(p) <= hy && hy <= y(n)) || (y(n) <= hy && hy <= y(p))){
+					if (y(n) != y(p)){
+						double x = x(p) + (hy - y(p)) * (x(n) - x(p)) / (y(n) - y(p));
+						if (x >= hx && x < qx){
+							qx = x;
+							if (x == hx){
+								if (hy == y(p)) return p;
+								if (hy == y(n)) return n;
+							}
+							m = x(p) > x(n) ? p : n;
+						}
+					}
+				}
+				p = n;
+			} while (p != outerStart);
+			
+			if (m == -1){
+				return -1;
+			}
+			if (hx == qx){
+				return m;
+			}
+			
+			//Nodes inside (or on) the triangle of the hole point, the intersection and the end point of 
+			//the edge would block the bridge - take the one with the smallest angle to the ray instead.
+			//Of nodes in the same direction the nearest one is taken, the bridge would pass the others
+			int stop = m;
+			double mx = x(m), my = y(m);
+			double tolerance = tessellation.getTolerance();
+			double tanMin = Double.MAX_VALUE;
+			p = m;
+			do {
+				double x = x(p), y = y(p);
+				if (hx < x && x <= mx && isPointInTriangle(hx, hy, qx, hy, mx, my, x, y, tolerance)){
+					double tan = Math.abs(hy - y) / (x - hx);
+					boolean sameDirection = Math.abs(tan - tanMin) * (x - hx) <= tolerance;
+					if (this.isLocallyInside(p, hole) && ((tan < tanMin && !sameDirection) || (sameDirection && x < x(m)))){
+						m = p;
+						tanMin = tan;
+					}
+				}
+				p = next[p];
+			} while (p != stop);
+			return m;
+		}
+		
+		
+		/**
+		 * Points where a boundary touches itself or where an earlier bridge ends have more than 
+		 * one node. Gets the node of the point the diagonal to the target node starts inside of.
+		 */
+		private int getNodeLocallyInside(int node, int target){
+			int p = node;
+			do {
+				if (samePosition(p, node) && this.isLocallyInside(p, target)){
+					return p;
+				}
+				p = next[p];
+			} while (p != node);
+			return node;
+		}
+		
+		
+		/**
+		 * Checks if the point is inside of the triangle or closer than the tolerance to it.
+		 */
+		private static boolean isPointInTriangle(double ax, double ay, double bx, double by, double cx, double cy, double x, double y, double tolerance){
+			double orientation = Math.signum((bx - ax) * (cy - ay) - (by - ay) * (cx - ax));
+			double d1 = orientation * ((bx - ax) * (y - ay) - (by - ay) * (x - ax));
+			double d2 = orientation * ((cx - bx) * (y - by) - (cy - by) * (x - bx));
+			double d3 = orientation * ((ax - cx) * (y - cy) - (ay - cy) * (x - cx));
+			return d1 >= -tolerance * Math.sqrt((bx - ax) * (bx - ax) + (by - ay) * (by - ay))
+				&& d2 >= -tolerance * Math.sqrt((cx - bx) * (cx - bx) + (cy - by) * (cy - by))
+				&& d3 >= -tolerance * Math.sqrt((ax - cx) * (ax - cx) + (ay - cy) * (ay - cy));
+		}
+		
+		
+		/**
+		 * Checks if the diagonal from node a to node b starts inside of the polygon at a.
+		 */
+		private boolean isLocallyInside(int a, int b){
+			if (cross(prev[a], a, next[a]) >= 0){
+				return cross(a, next[a], b) >= 0 && cross(a, b, prev[a]) >= 0;
+			}
+			return cross(a, prev[a], b) < 0 || cross(a, b, next[a]) < 0;
+		}
+		
+		
+		/**
+		 * Connects node a of the outer boundary with node b of a hole, duplicating both nodes.
+		 */
+		private void splitPolygon(int a, int b){
+			int a2 = nodeCount++;
+			int b2 = nodeCount++;
+			point[a2] = point[a];
+			point[b2] = point[b];
+			int an = next[a];
+			int bp = prev[b];
+			
+			next[a] = b;
+			prev[b] = a;
+			
+			next[a2] = an;
+			prev[an] = a2;
+			
+			next[b2] = a2;
+			prev[a2] = b2;
+			
+			next[bp] = b2;
+			prev[b2] = bp;
+		}
+		
+		
+		/**
+		 * Cuts off ears until only a triangle is left. If no ear is found in a full turn,
+		 * the ear test is relaxed, so the clipping always terminates.
+		 */
+		public void clip(){
+			int ear = start;
+			int remaining = 0;
+			int node = start;
+			do {
+				remaining++;
+				node = next[node];
+			} while (node != start);
+			this.createGrid(remaining);
+			
+			int pass = 0;
+			int stop = ear;
+			while (remaining > 2){
+				int a = prev[ear];
+				int c = next[ear];
+				if (this.isEar(ear, pass)){
+					if (cross(a, ear, c) > 0){
+						tessellation.addTriangle(point[a], point[ear], point[c]);
+					}
+					next[a] = c;
+					prev[c] = a;
+					removed[ear] = true;
+					remaining--;
+					ear = c;
+					stop = c;
+					pass = 0;
+					continue;
+				}
+				ear = c;
+				if (ear == stop){
+					pass++;
+				}
+			}
+		}
+		
+		
+		private void createGrid(int count){
+			gridMinX = gridMinY = Double.MAX_VALUE;
+			double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+			int node = start;
+			do {
+				gridMinX = Math.min(gridMinX, x(node));
+				gridMinY = Math.min(gridMinY, y(node));
+				maxX = Math.max(maxX, x(node));
+				maxY = Math.max(maxY, y(node));
+				node = next[node];
+			} while (node != start);
+			gridSize = Math.max(1, (int) Math.sqrt(count / 2));
+			gridCellWidth = Math.max(maxX - gridMinX, Double.MIN_VALUE) / gridSize;
+			gridCellHeight = Math.max(maxY - gridMinY, Double.MIN_VALUE) / gridSize;
+			
+			removed = new boolean[nodeCount];
+			cellStart = new int[gridSize * gridSize + 1];
+			cellNodes = new int[count];
+			do {
+				cellStart[this.getCell(x(node), y(node)) + 1]++;
+				node = next[node];
+			} while (node != start);
+			for (int i = 0; i < gridSize * gridSize; i++) {
+				cellStart[i + 1] += cellStart[i];
+			}
+			int[] fill = Arrays.copyOf(cellStart, gridSize * gridSize);
+			do {
+				cellNodes[fill[this.getCell(x(node), y(node))]++] = node;
+				node = next[node];
+			} while (node != start);
+		}
+		
+		
+		private int getCell(double x, double y){
+			return this.getCellY(y) * gridSize + this.getCellX(x);
+		}
+		
+		private int getCellX(double x){
+			return Math.max(0, Math.min(gridSize - 1, (int) ((x - gridMinX) / gridCellWidth)));
+		}
+		
+		private int getCellY(double y){
+			return Math.max(0, Math.min(gridSize - 1, (int) ((y - gridMinY) / gridCellHeight)));
+		}
+		
+		
+		private boolean isEar(int ear, int pass){
+			int a = prev[ear];
+			int c = next[ear];
+			double area = cross(a, ear, c);
+			if (pass >= 3){
+				return true;
+			}
+			if (area < 0){
+				return false;
+			}
+			if (area == 0 || pass == 2){
+				return true;
+			}
+			double ax = x(a), ay = y(a), bx = x(ear), by = y(ear), cx = x(c), cy = y(c);
+			//In the first pass, points touching the triangle block the ear too, the scaled tolerances 
+			//catch points lying on an edge which aren't exactly on it because of rounding
+			double tolerance = pass == 0 ? tessellation.getTolerance() : 0;
+			double toleranceAB = -tolerance * Math.sqrt((bx - ax) * (bx - ax) + (by - ay) * (by - ay));
+			double toleranceBC = -tolerance * Math.sqrt((cx - bx) * (cx - bx) + (cy - by) * (cy - by));
+			double toleranceCA = -tolerance * Math.sqrt((ax - cx) * (ax - cx) + (ay - cy) * (ay - cy));
+			double minX = Math.min(ax, Math.min(bx, cx)) - tolerance;
+			double minY = Math.min(ay, Math.min(by, cy)) - tolerance;
+			double maxX = Math.max(ax, Math.max(bx, cx)) + tolerance;
+			double maxY = Math.max(ay, Math.max(by, cy)) + tolerance;
+			int fromX = this.getCellX(minX), toX = this.getCellX(maxX);
+			int toY = this.getCellY(maxY);
+			for (int cellY = this.getCellY(minY); cellY <= toY; cellY++) {
+				for (int cell = cellY * gridSize + fromX; cell <= cellY * gridSize + toX; cell++) {
+					for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+						int p = cellNodes[k];
+						double x = x(p), y = y(p);
+						if (removed[p] || x < minX || x > maxX || y < minY || y > maxY 
+						 || samePosition(p, a) || samePosition(p, ear) || samePosition(p, c)
+						){
+							continue;
+						}
+						double ab = (bx - ax) * (y - ay) - (by - ay) * (x - ax);
+						double bc = (cx - bx) * (y - by) - (cy - by) * (x - bx);
+						double ca = (ax - cx) * (y - cy) - (ay - cy) * (x - cx);
+						if (pass == 0 ? (ab >= toleranceAB && bc >= toleranceBC && ca >= toleranceCA) : (ab > 0 && bc > 0 && ca > 0)){
+							return false;
+						}
+					}
+				}
+			}
+			return true;
+		}
+	}
+	
+}
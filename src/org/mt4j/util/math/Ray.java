@@ -58,6 +58,21 @@ public class Ray {
 	}
 	
 	
+	/**
+	 * Copies the start point and the point in ray direction of the
+	 * specified ray into this ray's vectors.
+	 * 
+	 * @param ray the ray to copy
+	 * @return this ray
+	 */
+	public Ray setTo(Ray ray){
+		Vector3D start = ray.getRayStartPoint();
+		Vector3D point = ray.getPointInRayDirection();
+		this.rayStartPoint.setXYZW(start.x, start.y, start.z, start.w);
+		this.pointInRayDirection.setXYZW(point.x, point.y, point.z, point.w);
+		return this;
+	}
+	
 	/**
 	 * Gets the ray direction.
 	 * 
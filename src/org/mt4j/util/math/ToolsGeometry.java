@@ -17,7 +17,6 @@
  ***********************************************************************/
 package org.mt4j.util.math;
 
-import java.nio.IntBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -231,8 +230,10 @@ public class ToolsGeometry {
     private static final Vector3D tempV2b = new Vector3D();
 
     /**
-     * This is a <b>VERY </b> brute force method of detecting if two MTTriangleMesh
-     * objects intersect.
+     * Checks if two MTTriangleMesh objects intersect.
+     * <br>The triangle hierarchies of the meshes are used to find the pairs of
+     * triangles that may intersect. Only the vertices of these triangles of the second mesh
+     * are transformed into the local space of the first mesh and tested.
      * 
      * @param mesh1 The first TriMesh.
      * @param mesh2 The second TriMesh.
@@ -240,31 +241,8 @@ public class ToolsGeometry {
      * @return True if they intersect, false otherwise.
      */
     public static boolean isMeshesIntersecting(MTTriangleMesh mesh1, MTTriangleMesh mesh2) {
-    	IntBuffer indexA = mesh1.getGeometryInfo().getIndexBuff();
-    	IntBuffer indexB = mesh2.getGeometryInfo().getIndexBuff();
-    	
-    	//Transform the vertices of both meshes into world coordinates
-    	Matrix aTransform = mesh1.getGlobalMatrix();
-    	Matrix bTransform = mesh2.getGlobalMatrix();
-
-    	Vector3D[] vertA = ToolsBuffers.getVector3DArray(mesh1.getGeometryInfo().getVertBuff());
-//    	Vector3D[] vertA = mesh1.getGeometryInfo().getVerticesLocal(); //This would have to be copied..
-    	Vector3D.transFormArrayLocal(aTransform, vertA);
-
-    	Vector3D[] vertB = ToolsBuffers.getVector3DArray(mesh2.getGeometryInfo().getVertBuff());
-//    	Vector3D[] vertB = mesh2.getGeometryInfo().getVerticesLocal(); 
-    	Vector3D.transFormArrayLocal(bTransform, vertB);
-
-    	for (int i = 0; i < mesh1.getTriangleCount(); i++) {
-    		for (int j = 0; j < mesh2.getTriangleCount(); j++) {
-    			if (isTrianglesIntersect(vertA[indexA.get(i * 3 + 0)],
-    					vertA[indexA.get(i * 3 + 1)], vertA[indexA.get(i * 3 + 2)],
-    					vertB[indexB.get(j * 3 + 0)], vertB[indexB.get(j * 3 + 1)],
-    					vertB[indexB.get(j * 3 + 2)]))
-    				return true;
-    		}
-    	}
-    	return false;
+    	Matrix mesh2ToMesh1 = mesh1.getGlobalInverseMatrix().mult(mesh2.getGlobalMatrix());
+    	return mesh1.getTriangleHierarchy().intersects(mesh2.getTriangleHierarchy(), mesh2ToMesh1);
     }
 
     /**
@@ -339,7 +317,7 @@ public class ToolsGeometry {
 //  	e1.cross(e2, n2);
     	e1 = u1.getSubtracted(u0);
     	e2 = u2.getSubtracted(u0);
-    	n1 = e1.getCross(e2);
+    	n2 = e1.getCross(e2);
 
     	d2 = -n2.dot(u0);
     	/* plane equation 2: n2.X+d2=0 */
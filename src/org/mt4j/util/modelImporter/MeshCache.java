@@ -0,0 +1,858 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.util.modelImporter;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.mt4j.components.visibleComponents.StyleInfo;
+import org.mt4j.components.visibleComponents.shapes.GeometryInfo;
+import org.mt4j.components.visibleComponents.shapes.mesh.MTTriangleMesh;
+import org.mt4j.util.MT4jSettings;
+import org.mt4j.util.logging.ILogger;
+import org.mt4j.util.logging.MTLoggerFactory;
+import org.mt4j.util.math.ToolsBuffers;
+import org.mt4j.util.math.Vector3D;
+import org.mt4j.util.math.Vertex;
+
+import processing.core.PApplet;
+import processing.core.PImage;
+
+/**
+ * A cache for the meshes of imported models, stored in a compact binary file per model.
+ * <p>
+ * The <code>ModelImporterFactory</code> writes the meshes of a model to the cache after loading it
+ * with a factory and restores them from the cache the next time the model is loaded. The cache
+ * file is memory mapped read only, the vertex positions, texture coordinates, normals and indices are used 
+ * as the OpenGL draw buffers of the meshes directly. So the parsing and the normal generation is skipped.
+ * The materials are assigned again by the factory, using the material references stored with
+ * the meshes.
+ * <p>
+ * A cache file is only used if it was created for the same content of the model file (checked
+ * with a checksum), the same crease angle and texture flipping and if the files the model
+ * depends on (like .mtl files) were not changed. Otherwise the model is loaded again and the cache
+ * file is replaced. The key of a cache file is checked before the file is mapped, so an outdated 
+ * file is never mapped and can be replaced - a mapped file can't be deleted on some systems.
+ * <p>
+ * The data of a mesh is stored in blocks of vertex positions, vertex colors, texture coordinates, 
+ * normals and indices, in the native byte order.
+ */
+public class MeshCache {
+	private static final ILogger logger = MTLoggerFactory.getLogger(MeshCache.class.getName());
+	static{
+		logger.setLevel(ILogger.WARN);
+	}
+	
+	/** The magic number at the start of a cache file ("MTMC"). */
+	private static final int MAGIC = 0x4D544D43;
+	
+	/** The version of the file format. */
+	private static final int VERSION = 1;
+	
+	/** The suffix of the cache files. */
+	public static final String SUFFIX = ".mtmesh";
+	
+	/** The directory of the cache files. */
+	private File directory;
+	
+	
+	/**
+	 * Instantiates a new mesh cache.
+	 * 
+	 * @param directory the directory to store the cache files in, created if it doesent exist
+	 */
+	public MeshCache(File directory){
+		this.directory = directory;
+	}
+	
+	
+	/**
+	 * Gets the default directory of the cache files, a directory in the temporary directory
+	 * of the system.
+	 * 
+	 * @return the default directory
+	 */
+	public static File getDefaultDirectory(){
+		return new File(System.getProperty("java.io.tmpdir"), "mt4j-meshcache");
+	}
+	
+	
+	/**
+	 * Loads the model from the cache if the cache file is up to date. Otherwise the model is loaded 
+	 * with the factory and the meshes are written to the cache.
+	 * 
+	 * @param pa the applet
+	 * @param factory the factory for the file type of the model
+	 * @param pathToModel the path to the model
+	 * @param creaseAngle the crease angle
+	 * @param flipTextureY flip texture y
+	 * @param flipTextureX flip texture x
+	 * @return the meshes
+	 * @throws FileNotFoundException the file not found exception
+	 */
+	MTTriangleMesh[] loadModel(PApplet pa, ModelImporterFactory factory, String pathToModel, float creaseAngle, boolean flipTextureY, boolean flipTextureX) throws FileNotFoundException{
+		Key key = null;
+		try {
+			key = createKey(pa, factory, pathToModel, creaseAngle, flipTextureY, flipTextureX);
+		} catch (IOException e) {
+			logger.warn("Couldnt read the model \"{}\" to check the mesh cache: {}", pathToModel, e.getMessage());
+		}
+		if (key == null){
+			return factory.loadModelImpl(pa, pathToModel, creaseAngle, flipTextureY, flipTextureX);
+		}
+		
+		File cacheFile = this.getCacheFile(pathToModel);
+		if (cacheFile.exists()){
+			try {
+				//Check the key before mapping the file, the mapping would keep an outdated file from being replaced
+				Key cachedKey = readKey(cacheFile);
+				if (cachedKey.isUpToDate(key, getDependencyStates(pathToModel, cachedKey.getDependencies()))){
+					logger.debug("Loading \"{}\" from the mesh cache {}", pathToModel, cacheFile);
+					return this.createMeshes(pa, factory, pathToModel, read(cacheFile));
+				}
+				logger.debug("The mesh cache of \"{}\" is out of date", pathToModel);
+			} catch (IOException e) {
+				logger.warn("Couldnt read the mesh cache file {}: {}", cacheFile, e.getMessage());
+			}
+		}
+		
+		factory.clearMeshCacheInfo();
+		MTTriangleMesh[] meshes = factory.loadModelImpl(pa, pathToModel, creaseAngle, flipTextureY, flipTextureX);
+		if (meshes.length > 0){
+			try {
+				String[] dependencies = factory.getDependencies();
+				List<MeshData> meshData = new ArrayList<MeshData>(meshes.length);
+				for (MTTriangleMesh mesh : meshes) {
+					meshData.add(MeshData.fromMesh(mesh, factory.getMaterialReference(mesh)));
+				}
+				this.writeCacheFile(cacheFile, key.withDependencies(dependencies, getDependencyStates(pathToModel, dependencies)), meshData);
+			} catch (IOException e) {
+				logger.warn("Couldnt write the mesh cache file {}: {}", cacheFile, e.getMessage());
+			}
+		}
+		factory.clearMeshCacheInfo();
+		return meshes;
+	}
+	
+	
+	/**
+	 * Creates the meshes from the data of a cache file.
+	 */
+	private MTTriangleMesh[] createMeshes(PApplet pa, ModelImporterFactory factory, String pathToModel, Contents contents){
+		List<MeshData> meshData = contents.getMeshes();
+		boolean openGl = MT4jSettings.getInstance().isOpenGlMode();
+		StyleInfo defaultStyle = new StyleInfo();
+		
+		MTTriangleMesh[] meshes = new MTTriangleMesh[meshData.size()];
+		String[] materialReferences = new String[meshData.size()];
+		for (int i = 0; i < meshes.length; i++) {
+			MeshData data = meshData.get(i);
+			Vertex[] vertices = data.createVertices();
+			Vector3D[] normals = data.createNormals();
+			int[] indices = data.createIndices();
+			
+			GeometryInfo geometry = new GeometryInfo(pa, vertices, normals, indices);
+			if (openGl){
+				geometry.setDrawBuffers(
+						data.positions, 
+						ToolsBuffers.generateColorBuffer(vertices), 
+						ToolsBuffers.generateStrokeColorBuffer(vertices.length, defaultStyle.getStrokeRed(), defaultStyle.getStrokeGreen(), defaultStyle.getStrokeBlue(), defaultStyle.getStrokeAlpha()), 
+						data.texCoords, 
+						data.normals, 
+						data.indices);
+			}
+			
+			MTTriangleMesh mesh = new MTTriangleMesh(pa, geometry);
+			mesh.setName(data.name);
+			meshes[i] = mesh;
+			materialReferences[i] = data.materialReference;
+		}
+		factory.restoreMaterials(pa, pathToModel, contents.getKey().dependencies, meshes, materialReferences);
+		return meshes;
+	}
+	
+	
+	private void writeCacheFile(File cacheFile, Key key, List<MeshData> meshes) throws IOException{
+		if (!directory.exists() && !directory.mkdirs()){
+			throw new IOException("Couldnt create the directory " + directory);
+		}
+		//Write to a temporary file first, so a cache file is never left incomplete
+		File tempFile = File.createTempFile(cacheFile.getName(), ".tmp", directory);
+		try {
+			write(tempFile, key, meshes);
+			if (cacheFile.exists() && !cacheFile.delete()){
+				throw new IOException("Couldnt replace " + cacheFile);
+			}
+			if (!tempFile.renameTo(cacheFile)){
+				throw new IOException("Couldnt rename " + tempFile + " to " + cacheFile);
+			}
+		} finally {
+			if (tempFile.exists()){
+				tempFile.delete();
+			}
+		}
+	}
+	
+	
+	/**
+	 * Gets the cache file for a model.
+	 * 
+	 * @param pathToModel the path to the model
+	 * @return the cache file
+	 */
+	public File getCacheFile(String pathToModel){
+		File modelFile = new File(pathToModel);
+		String path = modelFile.exists() ? modelFile.getAbsolutePath() : pathToModel;
+		String name = modelFile.getName().replaceAll("[^A-Za-z0-9._-]", "_");
+		return new File(directory, name + "-" + Integer.toHexString(path.hashCode()) + SUFFIX);
+	}
+	
+	
+	/**
+	 * Gets the directory of the cache files.
+	 * 
+	 * @return the directory
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+	
+	
+	/**
+	 * Deletes all cache files in the cache directory.
+	 */
+	public void clear(){
+		File[] files = directory.listFiles();
+		if (files != null){
+			for (File file : files) {
+				if (file.getName().endsWith(SUFFIX) && !file.delete()){
+					logger.warn("Couldnt delete the mesh cache file {}", file);
+				}
+			}
+		}
+	}
+	
+	
+	/**
+	 * Creates the key of the current model file, without the dependencies.
+	 * 
+	 * @return the key, or null if the model file doesent exist
+	 */
+	private static Key createKey(PApplet pa, ModelImporterFactory factory, String pathToModel, float creaseAngle, boolean flipTextureY, boolean flipTextureX) throws IOException{
+		InputStream in = openModel(pa, pathToModel);
+		if (in == null){
+			return null;
+		}
+		CRC32 checksum = new CRC32();
+		long length = 0;
+		try {
+			byte[] buffer = new byte[64 * 1024];
+			int read;
+			while ((read = in.read(buffer)) != -1){
+				checksum.update(buffer, 0, read);
+				length += read;
+			}
+		} finally {
+			in.close();
+		}
+		return new Key(factory.getClass().getName(), length, checksum.getValue(), creaseAngle, flipTextureY, flipTextureX);
+	}
+	
+	
+	/**
+	 * Opens the model like the factories do, from the file system or from the classpath.
+	 */
+	private static InputStream openModel(PApplet pa, String pathToModel) throws IOException{
+		File file = new File(pathToModel);
+		if (file.exists()){
+			return new FileInputStream(file);
+		}
+		InputStream in = Thread.currentThread().getContextClassLoader().getResourceAsStream(pathToModel);
+		if (in == null && pa != null){
+			in = pa.getClass().getResourceAsStream(pathToModel);
+		}
+		return in;
+	}
+	
+	
+	/**
+	 * Gets the length and modification time of the dependencies, -1 for dependencies
+	 * that arent files next to the model.
+	 */
+	private static long[] getDependencyStates(String pathToModel, String[] dependencies){
+		long[] states = new long[dependencies.length * 2];
+		File modelFolder = new File(pathToModel).getAbsoluteFile().getParentFile();
+		for (int i = 0; i < dependencies.length; i++) {
+			File file = new File(modelFolder, dependencies[i]);
+			states[i * 2] 		= file.exists() ? file.length() : -1;
+			states[i * 2 + 1] 	= file.exists() ? file.lastModified() : -1;
+		}
+		return states;
+	}
+	
+	
+	/**
+	 * Writes a cache file.
+	 * 
+	 * @param file the file
+	 * @param key the key of the model
+	 * @param meshes the meshes
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static void write(File file, Key key, List<MeshData> meshes) throws IOException{
+		ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+		DataOutputStream header = new DataOutputStream(headerBytes);
+		header.writeInt(MAGIC);
+		header.writeInt(VERSION);
+		header.writeBoolean(ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN);
+		key.write(header);
+		header.writeInt(meshes.size());
+		for (MeshData mesh : meshes) {
+			header.writeUTF(mesh.name);
+			header.writeBoolean(mesh.materialReference != null);
+			header.writeUTF(mesh.materialReference != null ? mesh.materialReference : "");
+			header.writeInt(mesh.vertexCount);
+			header.writeInt(mesh.indices != null ? mesh.indices.remaining() : -1);
+			header.writeBoolean(mesh.normals != null);
+		}
+		header.close();
+		
+		RandomAccessFile out = new RandomAccessFile(file, "rw");
+		try {
+			out.setLength(0);
+			FileChannel channel = out.getChannel();
+			ByteBuffer start = ByteBuffer.allocate(getDataOffset(headerBytes.size()));
+			start.putInt(headerBytes.size());
+			start.put(headerBytes.toByteArray());
+			start.rewind();
+			writeFully(channel, start);
+			
+			for (MeshData mesh : meshes) {
+				writeFully(channel, toBytes(mesh.positions));
+				writeFully(channel, toBytes(mesh.colors));
+				writeFully(channel, toBytes(mesh.texCoords));
+				if (mesh.normals != null){
+					writeFully(channel, toBytes(mesh.normals));
+				}
+				if (mesh.indices != null){
+					ByteBuffer bytes = ByteBuffer.allocate(mesh.indices.remaining() * 4).order(ByteOrder.nativeOrder());
+					bytes.asIntBuffer().put(mesh.indices.duplicate());
+					writeFully(channel, bytes);
+				}
+			}
+		} finally {
+			out.close();
+		}
+	}
+	
+	
+	private static ByteBuffer toBytes(FloatBuffer floats){
+		ByteBuffer bytes = ByteBuffer.allocate(floats.remaining() * 4).order(ByteOrder.nativeOrder());
+		bytes.asFloatBuffer().put(floats.duplicate());
+		return bytes;
+	}
+	
+	
+	private static void writeFully(FileChannel channel, ByteBuffer bytes) throws IOException{
+		while (bytes.hasRemaining()){
+			channel.write(bytes);
+		}
+	}
+	
+	
+	/**
+	 * The mesh data starts after the header length and the header, aligned to 8 bytes.
+	 */
+	private static int getDataOffset(int headerLength){
+		return (4 + headerLength + 7) & ~7;
+	}
+	
+	
+	/**
+	 * Reads the key of a cache file, without mapping the file.
+	 * 
+	 * @param file the file
+	 * @return the key
+	 * @throws IOException Signals that an I/O exception has occurred, also thrown if the file isnt a valid cache file
+	 */
+	public static Key readKey(File file) throws IOException{
+		FileInputStream in = new FileInputStream(file);
+		try {
+			DataInputStream header = openHeader(readHeaderBytes(new DataInputStream(new BufferedInputStream(in)), file.length()));
+			return Key.read(header);
+		} finally {
+			in.close();
+		}
+	}
+	
+	
+	/**
+	 * Reads a cache file. The mesh data is memory mapped, the buffers of the meshes
+	 * are read only. The header is read and checked before the file is mapped.
+	 * 
+	 * @param file the file
+	 * @return the contents
+	 * @throws IOException Signals that an I/O exception has occurred, also thrown if the file isnt a valid cache file
+	 */
+	public static Contents read(File file) throws IOException{
+		FileInputStream in = new FileInputStream(file);
+		try {
+			FileChannel channel = in.getChannel();
+			long size = channel.size();
+			byte[] headerBytes = readHeaderBytes(new DataInputStream(new BufferedInputStream(in)), size);
+			DataInputStream header = openHeader(headerBytes);
+			Key key = Key.read(header);
+			
+			int meshCount = header.readInt();
+			if (meshCount < 0){
+				throw new IOException("Invalid mesh count in the mesh cache file: " + meshCount);
+			}
+			List<MeshData> meshes = new ArrayList<MeshData>(meshCount);
+			int[] indexCounts = new int[meshCount];
+			boolean[] hasNormals = new boolean[meshCount];
+			long dataSize = 0;
+			for (int i = 0; i < meshCount; i++) {
+				MeshData mesh = new MeshData();
+				mesh.name 				= header.readUTF();
+				boolean hasMaterial 	= header.readBoolean();
+				String materialReference = header.readUTF();
+				mesh.materialReference 	= hasMaterial ? materialReference : null;
+				mesh.vertexCount 		= header.readInt();
+				indexCounts[i] 			= header.readInt();
+				hasNormals[i] 			= header.readBoolean();
+				if (mesh.vertexCount < 0){
+					throw new IOException("Invalid vertex count in the mesh cache file: " + mesh.vertexCount);
+				}
+				dataSize += (mesh.vertexCount * (3L + 4 + 2 + (hasNormals[i] ? 3 : 0)) + Math.max(indexCounts[i], 0)) * 4;
+				meshes.add(mesh);
+			}
+			int offset = getDataOffset(headerBytes.length);
+			if (offset + dataSize > size){
+				throw new IOException("The mesh cache file is truncated");
+			}
+			
+			ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			for (int i = 0; i < meshCount; i++) {
+				MeshData mesh = meshes.get(i);
+				int vertexCount = mesh.vertexCount;
+				mesh.positions 			= slice(data, offset, vertexCount * 3).asFloatBuffer();
+				offset += vertexCount * 3 * 4;
+				mesh.colors 			= slice(data, offset, vertexCount * 4).asFloatBuffer();
+				offset += vertexCount * 4 * 4;
+				mesh.texCoords 			= slice(data, offset, vertexCount * 2).asFloatBuffer();
+				offset += vertexCount * 2 * 4;
+				if (hasNormals[i]){
+					mesh.normals 		= slice(data, offset, vertexCount * 3).asFloatBuffer();
+					offset += vertexCount * 3 * 4;
+				}
+				if (indexCounts[i] >= 0){
+					mesh.indices 		= slice(data, offset, indexCounts[i]).asIntBuffer();
+					offset += indexCounts[i] * 4;
+				}
+			}
+			return new Contents(key, meshes);
+		} finally {
+			//The mapping stays valid after closing the file
+			in.close();
+		}
+	}
+	
+	
+	/**
+	 * Reads the header of a cache file, preceded by its length.
+	 */
+	private static byte[] readHeaderBytes(DataInputStream in, long size) throws IOException{
+		if (size < 4 || size > Integer.MAX_VALUE){
+			throw new IOException("Invalid mesh cache file size: " + size);
+		}
+		int headerLength = in.readInt();
+		if (headerLength < 0 || getDataOffset(headerLength) > size){
+			throw new IOException("Invalid mesh cache header length: " + headerLength);
+		}
+		byte[] headerBytes = new byte[headerLength];
+		in.readFully(headerBytes);
+		return headerBytes;
+	}
+	
+	
+	/**
+	 * Checks the start of the header and returns a stream positioned at the key.
+	 */
+	private static DataInputStream openHeader(byte[] headerBytes) throws IOException{
+		DataInputStream header = new DataInputStream(new ByteArrayInputStream(headerBytes));
+		if (header.readInt() != MAGIC){
+			throw new IOException("Not a mesh cache file");
+		}
+		int version = header.readInt();
+		if (version != VERSION){
+			throw new IOException("Unsupported mesh cache version: " + version);
+		}
+		if (header.readBoolean() != (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN)){
+			throw new IOException("The mesh cache file was written with a different byte order");
+		}
+		return header;
+	}
+	
+	
+	private static ByteBuffer slice(ByteBuffer data, int offset, int values){
+		ByteBuffer slice = data.duplicate();
+		slice.position(offset);
+		slice.limit(offset + values * 4);
+		return slice.slice().order(ByteOrder.nativeOrder());
+	}
+	
+	
+	
+	/**
+	 * Identifies the model a cache file was created from and the settings it was loaded with.
+	 */
+	public static class Key {
+		private String factory;
+		private long sourceLength;
+		private long sourceChecksum;
+		private float creaseAngle;
+		private boolean flipTextureY;
+		private boolean flipTextureX;
+		
+		/** The files the model depends on, relative to the model. */
+		private String[] dependencies;
+		
+		/** The length and modification time of each dependency. */
+		private long[] dependencyStates;
+		
+		/**
+		 * Instantiates a new key without dependencies.
+		 * 
+		 * @param factory the name of the factory class
+		 * @param sourceLength the length of the model file
+		 * @param sourceChecksum the checksum of the model file
+		 * @param creaseAngle the crease angle
+		 * @param flipTextureY flip texture y
+		 * @param flipTextureX flip texture x
+		 */
+		public Key(String factory, long sourceLength, long sourceChecksum, float creaseAngle, boolean flipTextureY, boolean flipTextureX) {
+			this.factory 			= factory;
+			this.sourceLength 		= sourceLength;
+			this.sourceChecksum 	= sourceChecksum;
+			this.creaseAngle 		= creaseAngle;
+			this.flipTextureY 		= flipTextureY;
+			this.flipTextureX 		= flipTextureX;
+			this.dependencies 		= new String[0];
+			this.dependencyStates 	= new long[0];
+		}
+		
+		/**
+		 * Creates a copy of this key with the dependencies.
+		 * 
+		 * @param dependencies the files the model depends on, relative to the model
+		 * @param dependencyStates the length and modification time of each dependency
+		 * @return the key
+		 */
+		public Key withDependencies(String[] dependencies, long[] dependencyStates){
+			Key key = new Key(factory, sourceLength, sourceChecksum, creaseAngle, flipTextureY, flipTextureX);
+			key.dependencies 		= dependencies;
+			key.dependencyStates 	= dependencyStates;
+			return key;
+		}
+		
+		/**
+		 * Checks if the cache file with this key was created from the same model with the
+		 * same settings and if the dependencies didnt change.
+		 * 
+		 * @param sourceKey the key of the current model file, without dependencies
+		 * @param currentDependencyStates the current states of the dependencies of this key
+		 * @return true, if up to date
+		 */
+		public boolean isUpToDate(Key sourceKey, long[] currentDependencyStates){
+			return sourceKey.withDependencies(dependencies, currentDependencyStates).equals(this);
+		}
+		
+		/**
+		 * Gets the files the model depends on, relative to the model.
+		 * 
+		 * @return the dependencies
+		 */
+		public String[] getDependencies() {
+			return dependencies;
+		}
+		
+		private void write(DataOutputStream out) throws IOException{
+			out.writeUTF(factory);
+			out.writeLong(sourceLength);
+			out.writeLong(sourceChecksum);
+			out.writeFloat(creaseAngle);
+			out.writeBoolean(flipTextureY);
+			out.writeBoolean(flipTextureX);
+			out.writeInt(dependencies.length);
+			for (int i = 0; i < dependencies.length; i++) {
+				out.writeUTF(dependencies[i]);
+				out.writeLong(dependencyStates[i * 2]);
+				out.writeLong(dependencyStates[i * 2 + 1]);
+			}
+		}
+		
+		private static Key read(DataInputStream in) throws IOException{
+			Key key = new Key(in.readUTF(), in.readLong(), in.readLong(), in.readFloat(), in.readBoolean(), in.readBoolean());
+			int dependencyCount = in.readInt();
+			key.dependencies = new String[dependencyCount];
+			key.dependencyStates = new long[dependencyCount * 2];
+			for (int i = 0; i < dependencyCount; i++) {
+				key.dependencies[i] = in.readUTF();
+				key.dependencyStates[i * 2] 	= in.readLong();
+				key.dependencyStates[i * 2 + 1] = in.readLong();
+			}
+			return key;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)){
+				return false;
+			}
+			Key other = (Key) obj;
+			return factory.equals(other.factory)
+				&& sourceLength == other.sourceLength
+				&& sourceChecksum == other.sourceChecksum
+				&& Float.floatToIntBits(creaseAngle) == Float.floatToIntBits(other.creaseAngle)
+				&& flipTextureY == other.flipTextureY
+				&& flipTextureX == other.flipTextureX
+				&& Arrays.equals(dependencies, other.dependencies)
+				&& Arrays.equals(dependencyStates, other.dependencyStates);
+		}
+
+		@Override
+		public int hashCode() {
+			return factory.hashCode() * 31 + (int) (sourceChecksum ^ sourceLength);
+		}
+	}
+	
+	
+	/**
+	 * The data of a cached mesh.
+	 * <br>The buffers of the data read from a cache file are read only views of the mapped file, 
+	 * they have to be copied if they should be changed.
+	 */
+	public static class MeshData {
+		private String name;
+		private String materialReference;
+		private int vertexCount;
+		
+		/** The vertex positions (x,y,z). */
+		private FloatBuffer positions;
+		
+		/** The vertex colors (r,g,b,a in the range 0..255). */
+		private FloatBuffer colors;
+		
+		/** The normalized texture coordinates (u,v). */
+		private FloatBuffer texCoords;
+		
+		/** The normals (x,y,z) or null. */
+		private FloatBuffer normals;
+		
+		/** The indices or null. */
+		private IntBuffer indices;
+		
+		private MeshData(){
+		}
+		
+		/**
+		 * Instantiates new mesh data from arrays.
+		 * 
+		 * @param name the name of the mesh
+		 * @param materialReference the material reference or null
+		 * @param positions the positions (x,y,z)
+		 * @param colors the vertex colors (r,g,b,a in the range 0..255)
+		 * @param texCoords the normalized texture coordinates (u,v)
+		 * @param normals the normals (x,y,z) or null
+		 * @param indices the indices or null
+		 */
+		public MeshData(String name, String materialReference, float[] positions, float[] colors, float[] texCoords, float[] normals, int[] indices){
+			this.name 				= name;
+			this.materialReference 	= materialReference;
+			this.vertexCount 		= positions.length / 3;
+			this.positions 			= FloatBuffer.wrap(positions);
+			this.colors 			= FloatBuffer.wrap(colors);
+			this.texCoords 			= FloatBuffer.wrap(texCoords);
+			this.normals 			= normals != null ? FloatBuffer.wrap(normals) : null;
+			this.indices 			= indices != null ? IntBuffer.wrap(indices) : null;
+		}
+		
+		/**
+		 * Creates the mesh data from a mesh.
+		 * 
+		 * @param mesh the mesh
+		 * @param materialReference the material reference or null
+		 * @return the mesh data
+		 */
+		static MeshData fromMesh(MTTriangleMesh mesh, String materialReference){
+			GeometryInfo geometry = mesh.getGeometryInfo();
+			Vertex[] vertices = geometry.getVertices();
+			float[] positions 	= new float[vertices.length * 3];
+			float[] colors 		= new float[vertices.length * 4];
+			float[] texCoords 	= new float[vertices.length * 2];
+			
+			//Rectangular textures un-normalize the texture coordinates of the shape, store them normalized
+			float texScaleU = 1;
+			float texScaleV = 1;
+			PImage texture = mesh.getTexture();
+			if (!geometry.isTextureCoordsNormalized() && texture != null && texture.width > 0 && texture.height > 0){
+				texScaleU = texture.width;
+				texScaleV = texture.height;
+			}
+			for (int i = 0; i < vertices.length; i++) {
+				Vertex v = vertices[i];
+				positions[i * 3] 	 = v.x;
+				positions[i * 3 + 1] = v.y;
+				positions[i * 3 + 2] = v.z;
+				colors[i * 4] 		= v.getR();
+				colors[i * 4 + 1] 	= v.getG();
+				colors[i * 4 + 2] 	= v.getB();
+				colors[i * 4 + 3] 	= v.getA();
+				texCoords[i * 2] 	 = v.getTexCoordU() / texScaleU;
+				texCoords[i * 2 + 1] = v.getTexCoordV() / texScaleV;
+			}
+			
+			float[] normals = null;
+			Vector3D[] meshNormals = geometry.getNormals();
+			if (geometry.isContainsNormals() && meshNormals.length == vertices.length){
+				normals = new float[vertices.length * 3];
+				for (int i = 0; i < meshNormals.length; i++) {
+					normals[i * 3] 		= meshNormals[i].x;
+					normals[i * 3 + 1] 	= meshNormals[i].y;
+					normals[i * 3 + 2] 	= meshNormals[i].z;
+				}
+			}
+			return new MeshData(mesh.getName(), materialReference, positions, colors, texCoords, normals, geometry.isIndexed() ? geometry.getIndices() : null);
+		}
+		
+		/**
+		 * Creates the vertices of the mesh.
+		 * 
+		 * @return the vertices
+		 */
+		public Vertex[] createVertices(){
+			Vertex[] vertices = new Vertex[vertexCount];
+			for (int i = 0; i < vertexCount; i++) {
+				vertices[i] = new Vertex(
+						positions.get(i * 3), positions.get(i * 3 + 1), positions.get(i * 3 + 2), 
+						texCoords.get(i * 2), texCoords.get(i * 2 + 1), 
+						colors.get(i * 4), colors.get(i * 4 + 1), colors.get(i * 4 + 2), colors.get(i * 4 + 3));
+			}
+			return vertices;
+		}
+		
+		/**
+		 * Creates the normals of the mesh.
+		 * 
+		 * @return the normals or null
+		 */
+		public Vector3D[] createNormals(){
+			if (normals == null){
+				return null;
+			}
+			Vector3D[] vectors = new Vector3D[vertexCount];
+			for (int i = 0; i < vertexCount; i++) {
+				vectors[i] = new Vector3D(normals.get(i * 3), normals.get(i * 3 + 1), normals.get(i * 3 + 2));
+			}
+			return vectors;
+		}
+		
+		/**
+		 * Creates the indices of the mesh.
+		 * 
+		 * @return the indices or null
+		 */
+		public int[] createIndices(){
+			if (indices == null){
+				return null;
+			}
+			int[] array = new int[indices.remaining()];
+			indices.duplicate().get(array);
+			return array;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String getMaterialReference() {
+			return materialReference;
+		}
+
+		public int getVertexCount() {
+			return vertexCount;
+		}
+
+		public FloatBuffer getPositions() {
+			return positions;
+		}
+
+		public FloatBuffer getTexCoords() {
+			return texCoords;
+		}
+
+		public FloatBuffer getNormals() {
+			return normals;
+		}
+
+		public IntBuffer getIndices() {
+			return indices;
+		}
+	}
+	
+	
+	/**
+	 * The contents of a cache file.
+	 */
+	public static class Contents {
+		private Key key;
+		private List<MeshData> meshes;
+		
+		private Contents(Key key, List<MeshData> meshes) {
+			this.key = key;
+			this.meshes = meshes;
+		}
+
+		public Key getKey() {
+			return key;
+		}
+
+		public List<MeshData> getMeshes() {
+			return meshes;
+		}
+	}
+	
+}
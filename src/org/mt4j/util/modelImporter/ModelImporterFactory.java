@@ -18,8 +18,12 @@
 package org.mt4j.util.modelImporter;
 
 import java.io.FileNotFoundException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.mt4j.components.visibleComponents.shapes.mesh.MTTriangleMesh;
@@ -43,6 +47,15 @@ public abstract class ModelImporterFactory {
 		registerModelImporterFactory(".3ds", Model3dsFileFactory.class);
 		registerModelImporterFactory(".obj", ModelObjFileFactory.class);
 	}
+	
+	/** The cache for the loaded meshes, null if disabled. */
+	private static MeshCache meshCache = new MeshCache(MeshCache.getDefaultDirectory());
+	
+	/** The material references of the loaded meshes, stored in the mesh cache. */
+	private Map<MTTriangleMesh, String> materialReferences = new IdentityHashMap<MTTriangleMesh, String>();
+	
+	/** The files the loaded model depends on, relative to the model. */
+	private List<String> dependencies = new ArrayList<String>();
 
 
 	/**
@@ -117,6 +130,10 @@ public abstract class ModelImporterFactory {
 			String suffix = getFileSuffix(pathToModel);
 			ModelImporterFactory factory = getFactory(suffix);
 			if (factory != null){
+				MeshCache cache = meshCache;
+				if (cache != null && factory.isMeshCacheSupported()){
+					return cache.loadModel(pa, factory, pathToModel, creaseAngle, flipTextureY, flipTextureX);
+				}
 				return factory.loadModelImpl(pa, pathToModel, creaseAngle, flipTextureY, flipTextureX);	
 			}
 		} catch (IllegalAccessException e) {
@@ -131,6 +148,28 @@ public abstract class ModelImporterFactory {
 	
 	
 
+	/**
+	 * Sets the cache for the loaded meshes. The meshes of models loaded by factories
+	 * supporting the cache are written to the cache and restored from it the next
+	 * time the model is loaded. The cache is enabled by default.
+	 * 
+	 * @param cache the mesh cache, null to disable the cache
+	 */
+	public static void setMeshCache(MeshCache cache){
+		meshCache = cache;
+	}
+	
+	
+	/**
+	 * Gets the cache for the loaded meshes.
+	 * 
+	 * @return the mesh cache, null if disabled
+	 */
+	public static MeshCache getMeshCache(){
+		return meshCache;
+	}
+	
+	
 	/**
 	 * Gets the factory.
 	 * 
@@ -221,6 +260,73 @@ public abstract class ModelImporterFactory {
 	 */
 	public abstract MTTriangleMesh[] loadModelImpl(PApplet pa, String pathToModel, float creaseAngle, boolean flipTextureY, boolean flipTextureX) throws FileNotFoundException;
 	
+	
+	/**
+	 * Checks if the meshes created by this factory can be stored in the <code>MeshCache</code>.
+	 * <br>A factory supporting the cache has to report the material of each mesh with
+	 * <code>setMaterialReference</code>, the files the model depends on with <code>addDependency</code>
+	 * and has to override <code>restoreMaterials</code>.
+	 * 
+	 * @return true, if the mesh cache is supported
+	 */
+	protected boolean isMeshCacheSupported(){
+		return false;
+	}
+	
+	
+	/**
+	 * Sets a reference to the material of a loaded mesh, e.g. the material name. 
+	 * The reference is stored in the mesh cache and passed to <code>restoreMaterials</code>.
+	 * 
+	 * @param mesh the mesh
+	 * @param materialReference the material reference
+	 */
+	protected void setMaterialReference(MTTriangleMesh mesh, String materialReference){
+		materialReferences.put(mesh, materialReference);
+	}
+	
+	
+	/**
+	 * Adds a file the loaded model depends on, like a material library. 
+	 * The mesh cache is invalidated if the file is changed.
+	 * 
+	 * @param pathRelativeToModel the path of the file, relative to the model
+	 */
+	protected void addDependency(String pathRelativeToModel){
+		if (!dependencies.contains(pathRelativeToModel)){
+			dependencies.add(pathRelativeToModel);
+		}
+	}
+	
+	
+	/**
+	 * Assigns the materials to meshes restored from the mesh cache.
+	 * 
+	 * @param pa the parent processing applet
+	 * @param pathToModel the path of the model file
+	 * @param dependencies the files the model depends on, relative to the model
+	 * @param meshes the restored meshes
+	 * @param materialReferences the material reference of each mesh, may contain null
+	 */
+	protected void restoreMaterials(PApplet pa, String pathToModel, String[] dependencies, MTTriangleMesh[] meshes, String[] materialReferences){
+	}
+	
+	
+	String getMaterialReference(MTTriangleMesh mesh){
+		return materialReferences.get(mesh);
+	}
+	
+	
+	String[] getDependencies(){
+		return dependencies.toArray(new String[dependencies.size()]);
+	}
+	
+	
+	void clearMeshCacheInfo(){
+		materialReferences.clear();
+		dependencies.clear();
+	}
+	
 
 
 }
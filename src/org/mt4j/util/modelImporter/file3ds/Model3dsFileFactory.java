@@ -271,7 +271,8 @@ public class Model3dsFileFactory extends ModelImporterFactory{
 							if (mesh != null){
 								mesh.setName(m.name() + " material: " + Integer.toString(currentGroupName));
 								//Assign texture
-								this.assignMaterial(pathToModel, file, scene, m, currentGroupName, mesh);
+								String materialName = this.assignMaterial(pathToModel, file, scene, m, currentGroupName, mesh);
+								this.setMaterialReference(mesh, materialName);
 
 								if (mesh.getTexture() != null){
 									mesh.setTextureEnabled(true);
@@ -339,8 +340,9 @@ public class Model3dsFileFactory extends ModelImporterFactory{
 	 * @param m
 	 * @param sceneMaterialID
 	 * @param mesh
+	 * @return the name of the material or null
 	 */		
-	private void assignMaterial(String pathToModel, File modelFile, Scene3ds scene, Mesh3ds m, int sceneMaterialID, MTTriangleMesh mesh){
+	private String assignMaterial(String pathToModel, File modelFile, Scene3ds scene, Mesh3ds m, int sceneMaterialID, MTTriangleMesh mesh){
 		if (scene.materials() > 0){
 			if (m.faceMats() > 0){
 				//Just take the first material in the mesh, it could have more but we dont support more than 1 material for a mesh
@@ -353,93 +355,133 @@ public class Model3dsFileFactory extends ModelImporterFactory{
 				materialName = materialName.trim();
 				materialName = materialName.toLowerCase();
 
-				//Try to load texture
-				try {
-					PImage cachedImage = textureCache.get(materialName);
-					if (cachedImage != null){
-						mesh.setTexture(cachedImage);
-						mesh.setTextureEnabled(true);
-						if (debug)
-							logger.debug("->Loaded texture from CACHE : \"" + materialName + "\"");
-						return;
-					}
-					
-					if (modelFile.exists()){ //If model is loaded from local file system
-						String modelFolder  = modelFile.getParent();// pathToModel.substring(), pathToModel.lastIndexOf(File.pathSeparator)
-						File modelFolderFile = new File (modelFolder);
-						if (modelFolderFile.exists() &&  modelFolderFile.isDirectory())
-							modelFolder = modelFolderFile.getAbsolutePath();
-						else{
-							modelFolder = "";
-						}
-
-						String[] suffix = new String[]{"jpg", "JPG", "tga" , "TGA", "bmp", "BMP", "png", "PNG", "tiff", "TIFF"};
-						for (int j = 0; j < suffix.length; j++) {
-							String suffixString = suffix[j];
-							//Try to load and set texture to mesh
-							String texturePath 	= modelFolder + MTApplication.separator + materialName + "." +  suffixString;
-							File textureFile = new File(texturePath);
-							if (textureFile.exists()){
-								boolean success = textureFile.renameTo(new File(texturePath));
-								if (!success) {
-									// File was not successfully renamed
-									logger.debug("failed to RENAME file: " + textureFile.getAbsolutePath());
-								}
-								PImage texture = null;
-								if (MT4jSettings.getInstance().isOpenGlMode()){ //TODO check if render thread
-									PImage img = pa.loadImage(texturePath);
-									if (Tools3D.isPowerOfTwoDimension(img)){
-										texture = new GLTexture(pa, img, new GLTextureSettings(TEXTURE_TARGET.TEXTURE_2D, SHRINKAGE_FILTER.Trilinear, EXPANSION_FILTER.Bilinear, WRAP_MODE.REPEAT, WRAP_MODE.REPEAT));
-									}else{
-										texture = new GLTexture(pa, img, new GLTextureSettings(TEXTURE_TARGET.RECTANGULAR, SHRINKAGE_FILTER.Trilinear, EXPANSION_FILTER.Bilinear, WRAP_MODE.REPEAT, WRAP_MODE.REPEAT));
-										// ((GLTexture)texture).setFilter(SHRINKAGE_FILTER.BilinearNoMipMaps, EXPANSION_FILTER.Bilinear);
-									}
-								}else{
-									texture 		= pa.loadImage(texturePath);
-								}
-								mesh.setTexture(texture);
-								mesh.setTextureEnabled(true);
+				this.assignTexture(pathToModel, modelFile, materialName, mesh);
+				return materialName;
+			}//if (m.faceMats() > 0)
+		}//if (scene.materials() > 0)
+		return null;
+	}
+	
+	
+	/**
+	 * Loads the texture named like the material from the folder of the model and assigns it to the mesh.
+	 * 
+	 * @param pathToModel
+	 * @param modelFile
+	 * @param materialName the trimmed, lower case material name
+	 * @param mesh
+	 */
+	private void assignTexture(String pathToModel, File modelFile, String materialName, MTTriangleMesh mesh){
+		//Try to load texture
+		try {
+			PImage cachedImage = textureCache.get(materialName);
+			if (cachedImage != null){
+				mesh.setTexture(cachedImage);
+				mesh.setTextureEnabled(true);
+				if (debug)
+					logger.debug("->Loaded texture from CACHE : \"" + materialName + "\"");
+				return;
+			}
+			
+			if (modelFile.exists()){ //If model is loaded from local file system
+				String modelFolder  = modelFile.getParent();// pathToModel.substring(), pathToModel.lastIndexOf(File.pathSeparator)
+				File modelFolderFile = new File (modelFolder);
+				if (modelFolderFile.exists() &&  modelFolderFile.isDirectory())
+					modelFolder = modelFolderFile.getAbsolutePath();
+				else{
+					modelFolder = "";
+				}
 
-								textureCache.put(materialName, texture);
-								if (debug)
-									logger.debug("->Loaded material texture: \"" + materialName + "\"");
-								break;
-							}
-							if (j+1==suffix.length){
-								logger.error("Couldnt load material texture: \"" + materialName + "\"");
-							}
+				String[] suffix = new String[]{"jpg", "JPG", "tga" , "TGA", "bmp", "BMP", "png", "PNG", "tiff", "TIFF"};
+				for (int j = 0; j < suffix.length; j++) {
+					String suffixString = suffix[j];
+					//Try to load and set texture to mesh
+					String texturePath 	= modelFolder + MTApplication.separator + materialName + "." +  suffixString;
+					File textureFile = new File(texturePath);
+					if (textureFile.exists()){
+						boolean success = textureFile.renameTo(new File(texturePath));
+						if (!success) {
+							// File was not successfully renamed
+							logger.debug("failed to RENAME file: " + textureFile.getAbsolutePath());
 						}
-					}else{//Probably loading from jar file
 						PImage texture = null;
-						String[] suffix = new String[]{"jpg", "JPG", "tga" , "TGA", "bmp", "BMP", "png", "PNG", "tiff", "TIFF"};
-						for (String suffixString : suffix) {
-							String modelFolder  = pathToModel.substring(0, pathToModel.lastIndexOf(MTApplication.separator));
-							String texturePath 	= modelFolder + MTApplication.separator + materialName + "." +  suffixString;
-							if (MT4jSettings.getInstance().isOpenGlMode()){
-								PImage img = pa.loadImage(texturePath);
-								if (Tools3D.isPowerOfTwoDimension(img)){
-									texture = new GLTexture(pa, img, new GLTextureSettings(TEXTURE_TARGET.TEXTURE_2D, SHRINKAGE_FILTER.Trilinear, EXPANSION_FILTER.Bilinear, WRAP_MODE.REPEAT, WRAP_MODE.REPEAT));
-								}else{
-									texture = new GLTexture(pa, img, new GLTextureSettings(TEXTURE_TARGET.RECTANGULAR, SHRINKAGE_FILTER.Trilinear, EXPANSION_FILTER.Bilinear, WRAP_MODE.REPEAT, WRAP_MODE.REPEAT));
-									// ((GLTexture)texture).setFilter(SHRINKAGE_FILTER.BilinearNoMipMaps, EXPANSION_FILTER.Bilinear);
-								}
+						if (MT4jSettings.getInstance().isOpenGlMode()){ //TODO check if render thread
+							PImage img = pa.loadImage(texturePath);
+							if (Tools3D.isPowerOfTwoDimension(img)){
+								texture = new GLTexture(pa, img, new GLTextureSettings(TEXTURE_TARGET.TEXTURE_2D, SHRINKAGE_FILTER.Trilinear, EXPANSION_FILTER.Bilinear, WRAP_MODE.REPEAT, WRAP_MODE.REPEAT));
 							}else{
-								texture = pa.loadImage(texturePath);
+								texture = new GLTexture(pa, img, new GLTextureSettings(TEXTURE_TARGET.RECTANGULAR, SHRINKAGE_FILTER.Trilinear, EXPANSION_FILTER.Bilinear, WRAP_MODE.REPEAT, WRAP_MODE.REPEAT));
+								// ((GLTexture)texture).setFilter(SHRINKAGE_FILTER.BilinearNoMipMaps, EXPANSION_FILTER.Bilinear);
 							}
-							mesh.setTexture(texture);
-							mesh.setTextureEnabled(true);
+						}else{
+							texture 		= pa.loadImage(texturePath);
+						}
+						mesh.setTexture(texture);
+						mesh.setTextureEnabled(true);
 
-							textureCache.put(materialName, texture);
-							if (debug)
-								logger.debug("->Loaded material texture: \"" + materialName + "\"");
-							break;
+						textureCache.put(materialName, texture);
+						if (debug)
+							logger.debug("->Loaded material texture: \"" + materialName + "\"");
+						break;
+					}
+					if (j+1==suffix.length){
+						logger.error("Couldnt load material texture: \"" + materialName + "\"");
+					}
+				}
+			}else{//Probably loading from jar file
+				PImage texture = null;
+				String[] suffix = new String[]{"jpg", "JPG", "tga" , "TGA", "bmp", "BMP", "png", "PNG", "tiff", "TIFF"};
+				for (String suffixString : suffix) {
+					String modelFolder  = pathToModel.substring(0, pathToModel.lastIndexOf(MTApplication.separator));
+					String texturePath 	= modelFolder + MTApplication.separator + materialName + "." +  suffixString;
+					if (MT4jSettings.getInstance().isOpenGlMode()){
+						PImage img = pa.loadImage(texturePath);
+						if (Tools3D.isPowerOfTwoDimension(img)){
+							texture = new GLTexture(pa, img, new GLTextureSettings(TEXTURE_TARGET.TEXTURE_2D, SHRINKAGE_FILTER.Trilinear, EXPANSION_FILTER.Bilinear, WRAP_MODE.REPEAT, WRAP_MODE.REPEAT));
+						}else{
+							texture = new GLTexture(pa, img, new GLTextureSettings(TEXTURE_TARGET.RECTANGULAR, SHRINKAGE_FILTER.Trilinear, EXPANSION_FILTER.Bilinear, WRAP_MODE.REPEAT, WRAP_MODE.REPEAT));
+							// ((GLTexture)texture).setFilter(SHRINKAGE_FILTER.BilinearNoMipMaps, EXPANSION_FILTER.Bilinear);
 						}
+					}else{
+						texture = pa.loadImage(texturePath);
 					}
-				} catch (Exception e) {
-					logger.error(e.getMessage());
+					mesh.setTexture(texture);
+					mesh.setTextureEnabled(true);
+
+					textureCache.put(materialName, texture);
+					if (debug)
+						logger.debug("->Loaded material texture: \"" + materialName + "\"");
+					break;
 				}
-			}//if (m.faceMats() > 0)
-		}//if (scene.materials() > 0)
+			}
+		} catch (Exception e) {
+			logger.error(e.getMessage());
+		}
+	}
+	
+	
+	@Override
+	protected boolean isMeshCacheSupported() {
+		return true;
+	}
+	
+	
+	@Override
+	protected void restoreMaterials(PApplet pa, String pathToModel, String[] dependencies, MTTriangleMesh[] meshes, String[] materialReferences) {
+		this.pa = pa;
+		if (textureCache != null)
+			textureCache.clear();
+		textureCache = new WeakHashMap<String, PImage>();
+		
+		File file = new File(pathToModel);
+		for (int i = 0; i < meshes.length; i++) {
+			if (materialReferences[i] != null){
+				this.assignTexture(pathToModel, file, materialReferences[i], meshes[i]);
+				if (meshes[i].getTexture() != null){
+					meshes[i].setTextureEnabled(true);
+				}
+			}
+		}
 	}
 	
 	
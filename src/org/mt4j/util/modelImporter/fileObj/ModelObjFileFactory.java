@@ -45,24 +45,30 @@
 
 package org.mt4j.util.modelImporter.fileObj;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
-import java.io.StreamTokenizer;
 import java.net.URL;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.media.opengl.GL;
 
 import org.mt4j.MTApplication;
 import org.mt4j.components.visibleComponents.shapes.GeometryInfo;
 import org.mt4j.components.visibleComponents.shapes.mesh.MTTriangleMesh;
 import org.mt4j.util.TriangleNormalGenerator;
-import org.mt4j.util.math.Vector3D;
+import org.mt4j.util.logging.ILogger;
+import org.mt4j.util.logging.MTLoggerFactory;
 import org.mt4j.util.math.Vertex;
 import org.mt4j.util.modelImporter.ModelImporterFactory;
 
@@ -217,6 +223,11 @@ import processing.opengl.PGraphicsOpenGL;
  */
 
 public class ModelObjFileFactory  extends ModelImporterFactory {
+	private static final ILogger logger = MTLoggerFactory.getLogger(ModelObjFileFactory.class.getName());
+	static{
+		logger.setLevel(ILogger.WARN);
+	}
+	
 	// 0=Input file assumed good
 	// 1=Input file checked for inconsistencies
 	// 2=path names
@@ -287,8 +298,11 @@ public class ModelObjFileFactory  extends ModelImporterFactory {
 	 */
 	public static final int STRIPIFY = REVERSE << 1;
 	
-
-	private static final char BACKSLASH = '\\';
+	/** The threads building the meshes of the groups, shared by all factories. */
+	private static ExecutorService meshBuildPool;
+	
+	/** The number of threads building the meshes, including the loading thread. */
+	private static int meshBuildThreads = Runtime.getRuntime().availableProcessors();
 
 	private int flags;
 	private String basePath = null;
@@ -296,66 +310,12 @@ public class ModelObjFileFactory  extends ModelImporterFactory {
 	private boolean fromUrl = false;
 	private float radians;
 
-	// First, lists of points are read from the .obj file into these arrays. . .
-	private ArrayList<Vertex> coordList;	// Holds Point3f
-	private ArrayList<float[]> texList;		// Holds TexCoord2f
-	private ArrayList<Vector3D> normList;		// Holds Vector3f
-
-	// . . . and index lists are read into these arrays.
-	private ArrayList<Integer> coordIdxList;	// Holds Integer index into coordList
-	private ArrayList<Integer> texIdxList;	// Holds Integer index into texList
-	private ArrayList<Integer> normIdxList;	// Holds Integer index into normList
-
-	// The length of each face is stored in this array.
-	private ArrayList<Integer> stripCounts;	// Holds Integer
-
-	// Each face's Geometry Group membership is kept here. . .
-	private HashMap<Integer, String> groups;		// key=Integer index into stripCounts
-	// value=String name of group
-	private String curGroup;
-
-	// . . . and Smoothing Group membership is kept here
-	private HashMap<Integer, String> sGroups;		// key=Integer index into stripCounts
-	// value=String name of group
-	private String curSgroup;
-
-	// The name of each group's "usemtl" material property is kept here
-	private HashMap<String, String> groupMaterials;	// key=String name of Group
-	// value=String name of material
 
 
-	// After reading the entire file, the faces are converted into triangles.
-	// The Geometry Group information is converted into these structures. . .
-	private HashMap triGroups;		// key=String name of group
-	// value=ArrayList of Integer
-	//       indices into coordIdxList
-	private ArrayList curTriGroup;
-
-	// . . . and Smoothing Group info is converted into these.
-	private HashMap triSgroups;		// key=String name of group
-	// value=ArrayList of Integer
-	// indices into coordIdxList
-	private ArrayList curTriSgroup;
-
-
-	// Finally, coordList, texList, and normList are converted to arrays for
-	// use with GeometryInfo
-	private Vertex coordArray[] = null;
-	private Vector3D normArray[] = null;
-	
-//	private TexCoord2f texArray[] = null;
-	
-	private float[][] texArray = null;
-
-	// Used for debugging
-	private long time;
-
 	private ObjectFileMaterials materials = null;
 
 	private PApplet pa;
 
-	private HashMap<String, Group> groupNameToGroupObj;
-
 //	private boolean flipTextureY;
 	
 	private boolean debugNormalGenerator;
@@ -395,8 +355,6 @@ public class ModelObjFileFactory  extends ModelImporterFactory {
 		this.setFlags(flags);
 		this.radians = radians;
 		
-		groupNameToGroupObj = new HashMap<String, Group>();
-		
 		debugNormalGenerator = false;
 	} // End of ObjectFile(int, float)
 
@@ -418,560 +376,268 @@ public class ModelObjFileFactory  extends ModelImporterFactory {
 	public MTTriangleMesh[] loadModelImpl(PApplet pa, String filename, float creaseAngle, boolean flipTextureY, boolean flipTextureX) throws FileNotFoundException {
 		this.pa = pa;
 		this.setBasePathFromFilename(filename);
-		Reader reader = null;
+		ObjFileReader reader = new ObjFileReader();
 		
-		File file = new File(filename);
-		if (file.exists()){
-			reader = new BufferedReader(new FileReader(filename));
-		}else{
-			InputStream stream = Thread.currentThread().getContextClassLoader().getResourceAsStream(filename);  
-			if (stream == null){
-				stream = pa.getClass().getResourceAsStream(filename);
-			}
-			if (stream == null){
-				throw new FileNotFoundException("File not found: " + filename);
+		long time = System.currentTimeMillis();
+		try {
+			File file = new File(filename);
+			if (file.exists()){
+				reader.read(file);
+			}else{
+				InputStream stream = Thread.currentThread().getContextClassLoader().getResourceAsStream(filename);  
+				if (stream == null){
+					stream = pa.getClass().getResourceAsStream(filename);
+				}
+				if (stream == null){
+					throw new FileNotFoundException("File not found: " + filename);
+				}
+				try {
+					reader.read(stream);
+				} finally {
+					stream.close();
+				}
 			}
-			reader = new BufferedReader(new InputStreamReader(stream)); 
+		} catch (FileNotFoundException e) {
+			throw e;
+		} catch (IOException e) {
+			throw new ParsingErrorException("IO error reading " + filename + ": " + e.getMessage());
+		}
+		if ((DEBUG & 8) != 0) {
+			System.out.println("Read file: " + (System.currentTimeMillis() - time) + " ms");
 		}
-//			throw new FileNotFoundException("File not found: " + file.getAbsolutePath());
 		
-		return load(reader,creaseAngle, flipTextureY, flipTextureX);
+		return load(reader, creaseAngle, flipTextureY, flipTextureX);
 	} // End of load(String)
 
 
 
 	/**
-	 * The Object File is loaded from the already opened file.
-	 * To attach the model to your scene, call getSceneGroup() on
-	 * the Scene object passed back, and attach the returned
-	 * BranchGroup to your scene graph.  For an example, see 
-	 * j3d-examples/ObjLoad/ObjLoad.java.
-	 * @param flipTextureX 
+	 * Creates the meshes from the read file.
 	 */
-	private MTTriangleMesh[] load(Reader reader, float creaseAngle, boolean flipTextureY, boolean flipTextureX) throws ParsingErrorException {
-		// ObjectFileParser does lexical analysis
-		ObjectFileParser st = new ObjectFileParser(reader);
-
-		coordList 		= new ArrayList<Vertex>();
-		texList 		= new ArrayList<float[]>();
-		normList 		= new ArrayList<Vector3D>();
-		coordIdxList 	= new ArrayList<Integer>();
-		texIdxList 		= new ArrayList<Integer>();
-		normIdxList 	= new ArrayList<Integer>();
-		groups 			= new HashMap<Integer, String>(50);
-		curGroup 		= "default";
-		sGroups 		= new HashMap<Integer, String>(50);
-		curSgroup 		= null;
-		stripCounts 	= new ArrayList<Integer>();
-		groupMaterials 	= new HashMap<String, String>(50);
-		groupMaterials.put(curGroup, "default");
+	private MTTriangleMesh[] load(ObjFileReader reader, float creaseAngle, boolean flipTextureY, boolean flipTextureX) throws ParsingErrorException {
 		materials 		= new ObjectFileMaterials();
 		materials.pa 	= this.pa;
-
-		//FIXME ADDED
-		Group group = new Group(curGroup);
-		groupNameToGroupObj.put(curGroup, group);
-
-		time = 0L;
-		if ((DEBUG & 8) != 0) {
-			time = System.currentTimeMillis();
-		}
-
-		//GO THROUGH THE FILE
-		this.readFile(st);
-
-		if ((DEBUG & 8) != 0) {
-			time = System.currentTimeMillis() - time;
-			System.out.println("Read file: " + time + " ms");
-			time = System.currentTimeMillis();
+		for (String materialLibrary : reader.getMaterialLibraries()) {
+			materials.readMaterialFile(basePath, materialLibrary);
+			this.addDependency(materialLibrary);
 		}
-
-
-//		if ((flags & RESIZE) != 0) 
-		resize(); //FIXME resize default ja / nein?
-		return createMeshesFromGroups(creaseAngle, flipTextureY, flipTextureX);
+		return createMeshesFromGroups(reader, creaseAngle, flipTextureY, flipTextureX);
 	} // End of load(Reader)
 
 
 	/**
+	 * Creates a mesh for each group with more than 2 vertices.
+	 * <br>The vertex arrays and normals of the groups are created in parallel, the meshes
+	 * are created and the materials are assigned by the calling thread afterwards. 
 	 * 
+	 * @param reader the read file
 	 * @param creaseAngle 
 	 * @param flipTextureY
 	 * @param flipTextureX 
 	 * @return
 	 */
-	private MTTriangleMesh[] createMeshesFromGroups(float creaseAngle, boolean flipTextureY, boolean flipTextureX){
+	private MTTriangleMesh[] createMeshesFromGroups(ObjFileReader reader, float creaseAngle, boolean flipTextureY, boolean flipTextureX){
 		ArrayList<MTTriangleMesh> meshList = new ArrayList<MTTriangleMesh>();
-
-		TriangleNormalGenerator normalGenerator = new TriangleNormalGenerator();
-		normalGenerator.setDebug(this.debugNormalGenerator);
+		List<ObjFileReader.Group> groups = new ArrayList<ObjFileReader.Group>(reader.getGroups());
+		
+		GeometryInfo[] geometries = this.buildGeometries(reader, groups, creaseAngle, flipTextureY, flipTextureX);
 
 		//Go through all groups and create the meshes
 		int totalNumVerts = 0;
-        for (String s : groupNameToGroupObj.keySet()) {
-            String currentGroupName = s;
-            Group currentGroup = groupNameToGroupObj.get(currentGroupName);
-
-            //Compile vertices/indices/texture arrays just for this group as a teilmenge from all with recalculated indices
-            currentGroup.compileItsOwnLists(coordList, texList);
-
-            //Get the new arrays
-            Vertex[] vertices = currentGroup.getGroupVertices(); //currentGroup.verticesForGroup.toArray(new Vertex[currentGroup.verticesForGroup.size()]);
-            int[] indices = currentGroup.getIndexArray(); //currentGroup.indexArray;
-            float[][] textureCoords = currentGroup.getGroupTexCoords(); //currentGroup.texCoordsForGroup.toArray(new float[currentGroup.texCoordsForGroup.size()][]);
-            int[] texIndices = currentGroup.getTexCoordIndices(); //currentGroup.texCoordIndexArray;
-
-            System.out.println("\nGroup: \"" + currentGroup.name + "\" ->Vertices: " + currentGroup.verticesForGroup.size() + " ->TextureCoords: " + currentGroup.texCoordsForGroup.size() + " ->Indices: " + currentGroup.indexArray.length + " ->Texcoord Indices: " + currentGroup.texCoordIndexArray.length);
-            System.out.println();
-
-            if (vertices.length > 2) {
-                GeometryInfo geometry = null;
-
-                //Load as all vertex normals smoothed if creaseAngle == 180;
-                if (creaseAngle == 180) {
-                    geometry = normalGenerator.generateSmoothNormals(pa, vertices, indices, textureCoords, texIndices, creaseAngle, flipTextureY, flipTextureX);
-                } else {
-                    geometry = normalGenerator.generateCreaseAngleNormals(pa, vertices, indices, textureCoords, texIndices, creaseAngle, flipTextureY, flipTextureX);
-                }
-
-                MTTriangleMesh mesh = new MTTriangleMesh(pa, geometry);
-
-                if (mesh != null) {
-                    mesh.setName(currentGroupName);
-                    //Assign texture and material
-                    String matName = groupMaterials.get(currentGroupName);
-                    materials.assignMaterial(((PGraphicsOpenGL) pa.g).gl, matName, mesh);
-
-                    if (mesh.getTexture() != null) {
-                        mesh.setTextureEnabled(true);
-                    } else {
-                        System.out.println("No texture could be assigned to mesh.");
-                    }
-                    meshList.add(mesh);
-                } else {
-                    System.err.println("Mesh not created, returned null from meshDenormalization.");
-                }
-            } else {
-                System.out.println("Group not created, < 2 vertices..");
-            }
-            totalNumVerts += currentGroup.verticesForGroup.size();
-        }
-		System.out.println("All groups on .obj file have total number of vertices: " + totalNumVerts);
-
-		//Cleanup
-		stripCounts = null;
-		groups 		= null;
-		sGroups 	= null;
-		groupNameToGroupObj.clear();
+		for (int i = 0; i < groups.size(); i++) {
+			ObjFileReader.Group currentGroup = groups.get(i);
+			String currentGroupName = currentGroup.getName();
+			int vertexCount = currentGroup.getGroupVertices().length;
+
+			logger.debug("Group: \"{}\" ->Vertices: {} ->TextureCoords: {} ->Indices: {} ->Texcoord Indices: {}", new Object[]{
+					currentGroupName, vertexCount, currentGroup.getGroupTexCoords().length, currentGroup.getIndexArray().length, currentGroup.getTexCoordIndices().length});
+
+			if (vertexCount > 2) {
+				MTTriangleMesh mesh = new MTTriangleMesh(pa, geometries[i]);
+				mesh.setName(currentGroupName);
+				//Assign texture and material
+				String matName = reader.getGroupMaterial(currentGroupName);
+				this.assignMaterial(mesh, matName);
+				this.setMaterialReference(mesh, matName);
+				meshList.add(mesh);
+			} else {
+				logger.debug("Group {} not created, < 2 vertices..", currentGroupName);
+			}
+			totalNumVerts += vertexCount;
+			currentGroup.clearCompiled();
+		}
+		logger.debug("All groups on .obj file have total number of vertices: {}", totalNumVerts);
 
 		return meshList.toArray(new MTTriangleMesh[meshList.size()]);
 	}
-
-
-
-
-
+	
+	
 	/**
-	 * readFile
-	 *
-	 *    Read the model data from the file.
+	 * Assigns the material and texture to the mesh.
 	 */
-	void readFile(ObjectFileParser st) throws ParsingErrorException {
-		int t;
-	
-		st.getToken();
-		while (st.ttype != ObjectFileParser.TT_EOF) {
+	private void assignMaterial(MTTriangleMesh mesh, String materialName){
+		//Without OpenGL only the texture is assigned
+		GL gl = pa.g instanceof PGraphicsOpenGL ? ((PGraphicsOpenGL) pa.g).gl : null;
+		materials.assignMaterial(gl, materialName, mesh);
+		if (mesh.getTexture() != null) {
+			mesh.setTextureEnabled(true);
+		} else {
+			logger.debug("No texture could be assigned to mesh {}.", mesh.getName());
+		}
+	}
 	
-			// Print out one token for each line
-			if ((DEBUG & 16) != 0) {
-				System.out.print("Token ");
-				if (st.ttype == ObjectFileParser.TT_EOL) System.out.println("EOL");
-				else if (st.ttype == ObjectFileParser.TT_WORD)
-					System.out.println(st.sval);
-				else System.out.println((char)st.ttype);
-			}
 	
-			if (st.ttype == ObjectFileParser.TT_WORD) {
-				if (st.sval.equals("v")) {
-					readVertex(st);
-				} else if (st.sval.equals("vn")) {
-					readNormal(st);
-				} else if (st.sval.equals("vt")) {
-					readTexture(st);
-				} else if (st.sval.equals("f")) {
-					readFace(st);
-				} else if (st.sval.equals("fo")) {  // Not sure what the dif is
-					readFace(st);
-				} else if (st.sval.equals("g")) {
-					readPartName(st);
-				} else if (st.sval.equals("s")) {
-					readSmoothingGroup(st);
-				} else if (st.sval.equals("p")) {
-					st.skipToNextLine();
-				} else if (st.sval.equals("l")) {
-					st.skipToNextLine();
-				} else if (st.sval.equals("mtllib")) {
-					loadMaterialFile(st);
-				} else if (st.sval.equals("usemtl")) {
-					readMaterialName(st);
-				} else if (st.sval.equals("maplib")) {
-					st.skipToNextLine();
-				} else if (st.sval.equals("usemap")) {
-					st.skipToNextLine();
-				} else {
-					/*
-					throw new ParsingErrorException(
-							"Unrecognized token, line " + st.lineno());
-							*/
-					System.err.println("Unrecognized token, line " + st.lineno());
-//					st.getToken();
-//					st.skipToNextLine();
-				}
-			}
-			
-			if (st.ttype == StreamTokenizer.TT_EOF) {
-				break;
-			}
+	@Override
+	protected boolean isMeshCacheSupported() {
+		return true;
+	}
 	
-			st.skipToNextLine();
 	
-			// Get next token
-			st.getToken();
+	@Override
+	protected void restoreMaterials(PApplet pa, String pathToModel, String[] dependencies, MTTriangleMesh[] meshes, String[] materialReferences) {
+		this.pa = pa;
+		this.setBasePathFromFilename(pathToModel);
+		materials 		= new ObjectFileMaterials();
+		materials.pa 	= pa;
+		for (String materialLibrary : dependencies) {
+			materials.readMaterialFile(basePath, materialLibrary);
 		}
-	} // End of readFile
-
-
-	void readVertex(ObjectFileParser st) throws ParsingErrorException {
-		Vertex p = new Vertex();
-
-		st.getNumber();
-		p.x = (float)st.nval;
-		st.getNumber();
-		p.y = (float)st.nval;
-		st.getNumber();
-		p.z = (float)st.nval;
-
-		if ((DEBUG & 32) != 0)
-			System.out.println("  (" + p.x + "," + p.y + "," + p.z + ")");
-
-		st.skipToNextLine();
-
-		// Add this vertex to the array
-		coordList.add(p);
-	} // End of readVertex
-
-
-	/**
-	 * readNormal
-	 */
-	void readNormal(ObjectFileParser st) throws ParsingErrorException {
-		Vector3D p = new Vector3D();
-
-		st.getNumber();
-		p.x = (float)st.nval;
-		st.getNumber();
-		p.y = (float)st.nval;
-		st.getNumber();
-		p.z = (float)st.nval;
-
-		if ((DEBUG & 32) != 0)
-			System.out.println("  (" + p.x + "," + p.y + "," + p.z + ")");
-
-		st.skipToNextLine();
-
-		// Add this vertex to the array
-		normList.add(p);
-	} // End of readNormal
-
-
-	/**
-	 * readTexture
-	 */
-	void readTexture(ObjectFileParser st) throws ParsingErrorException {
-//		TexCoord2f p = new TexCoord2f();
-		float[] p = new float[2];
-
-		st.getNumber();
-//		p.x = (float)st.nval;
-		p[0] = (float)st.nval;
-		st.getNumber();
-//		p.y = (float)st.nval;
-		p[1] = (float)st.nval;
-
-		if ((DEBUG & 32) != 0)
-			System.out.println("  (" + p[0] + "," + p[1] + ")");
-
-		st.skipToNextLine();
-
-		// Add this vertex to the array
-		texList.add(p);
-	} // End of readTexture
-
-
+		for (int i = 0; i < meshes.length; i++) {
+			this.assignMaterial(meshes[i], materialReferences[i]);
+		}
+	}
+	
+	
 	/**
-	 * readFace
+	 * Compiles the groups and generates the normals of the groups with more than 2 vertices.
+	 * The groups are distributed over the mesh build threads, the calling thread builds groups, too.
 	 *
-	 *    Adds the indices of the current face to the arrays.
-	 *
-	 *    ViewPoint files can have up to three arrays:  Vertex Positions,
-	 *    Texture Coordinates, and Vertex Normals.  Each vertex can
-	 *    contain indices into all three arrays.
+	 * @return the geometries by group index, null for groups with less than 3 vertices
 	 */
-	void readFace(ObjectFileParser st) throws ParsingErrorException {
-		int vertIndex, 
-			texIndex = 0, 
-			normIndex = 0;
+	private GeometryInfo[] buildGeometries(final ObjFileReader reader, final List<ObjFileReader.Group> groups, final float creaseAngle, final boolean flipTextureY, final boolean flipTextureX){
+		final GeometryInfo[] geometries = new GeometryInfo[groups.size()];
 		
-		int count = 0;
-
-		//   There are n vertices on each line.  Each vertex is comprised
-		//   of 1-3 numbers separated by slashes ('/').  The slashes may
-		//   be omitted if there's only one number.
-
-		st.getToken();
-
-		ArrayList<Integer> faceVertIndices = new ArrayList<Integer>();
-		
-		ArrayList<Integer> faceTexIndices  = new ArrayList<Integer>();
-		
-		
-		while (st.ttype != StreamTokenizer.TT_EOF &&
-				st.ttype != StreamTokenizer.TT_EOL
-		) {
-			// First token is always a number (or EOL)
-			st.pushBack();
-			st.getNumber();
-			vertIndex = (int)st.nval - 1;
-			
-			if (vertIndex < 0) 
-				vertIndex += coordList.size() + 1;
-			
-			coordIdxList.add(vertIndex);
-			
-			//	MODIFIED
-			faceVertIndices.add(vertIndex);
-
-			// Next token is a slash, a number, or EOL.  Continue on slash
-			st.getToken();
-			if (st.ttype == '/') {
-
-				// If there's a number after the first slash, read it
-				st.getToken();
-				if (st.ttype == StreamTokenizer.TT_WORD) {
-					// It's a number
-					st.pushBack();
-					st.getNumber();
-					texIndex = (int)st.nval - 1;
-					
-					if (texIndex < 0) 
-						texIndex += texList.size() + 1;
-					
-					texIdxList.add(texIndex);
-					
-					//MODIFIED
-					faceTexIndices.add(texIndex);
-					
-					st.getToken();
-				}
-
-				// Next token is a slash, a number, or EOL.  Continue on slash
-				if (st.ttype == '/') {
-					// There has to be a number after the 2nd slash
-					st.getNumber();
-					normIndex = (int)st.nval - 1;
-					if (normIndex < 0) 
-						normIndex += normList.size() + 1;
-					
-					normIdxList.add(normIndex);
-					st.getToken();
-				}
-			}
-			if ((DEBUG & 32) != 0) {
-				System.out.println("  " + vertIndex + '/' + texIndex + '/' + normIndex);
-			}
-			count++;
+		//Build the largest groups first, so the threads finish at about the same time
+		final Integer[] order = new Integer[groups.size()];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
 		}
-
-		Integer faceNum = stripCounts.size();
-		stripCounts.add(count);
-
-		// Add face to current groups
-		groups.put(faceNum, curGroup);
-		if (curSgroup != null) sGroups.put(faceNum, curSgroup);
-		
-
-		//TODO really Triangulate any faces with more than 4 vertices
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer o1, Integer o2) {
+				return groups.get(o2).getFaceCount() - groups.get(o1).getFaceCount();
+			}
+		});
 		
-		//Add Face to current group
-		//"Triangulate" the Quad if the objecfile defines quad faces
-		//instead of triangle faces, just make 2 triangles out of the quad
-		Group currGroup = groupNameToGroupObj.get(curGroup);
-		if (currGroup != null){
-			if (faceVertIndices.size() == 3){
-				//Create my own face
-				AFace face = new AFace();
-				face.p0 = faceVertIndices.get(0);
-				face.p1 = faceVertIndices.get(1);
-				face.p2 = faceVertIndices.get(2);
+		final AtomicInteger next = new AtomicInteger();
+		Runnable builder = new Runnable() {
+			public void run() {
+				int[] vertexRemap = new int[reader.getVertexCount()];
+				Arrays.fill(vertexRemap, -1);
+				int[] texCoordRemap = new int[reader.getTexCoordCount()];
+				Arrays.fill(texCoordRemap, -1);
+				TriangleNormalGenerator normalGenerator = new TriangleNormalGenerator();
+				normalGenerator.setDebug(debugNormalGenerator);
 				
-				if (faceTexIndices.size() >= 3){
-					face.t0 = faceTexIndices.get(0);
-					face.t1 = faceTexIndices.get(1);
-					face.t2 = faceTexIndices.get(2);
-				}
-				currGroup.addFace(face);
-			}else if (faceVertIndices.size() == 4){
-				AFace face1 = new AFace();
-				face1.p0 = faceVertIndices.get(0);
-				face1.p1 = faceVertIndices.get(1);
-				face1.p2 = faceVertIndices.get(2);
-				
-				AFace face2 = new AFace();
-				face2.p0 = faceVertIndices.get(0);
-				face2.p1 = faceVertIndices.get(2);
-				face2.p2 = faceVertIndices.get(3);
-				
-				if (faceTexIndices.size() == 4){
-					face1.t0 = faceTexIndices.get(0);
-					face1.t1 = faceTexIndices.get(1);
-					face1.t2 = faceTexIndices.get(2);
+				int i;
+				while ((i = next.getAndIncrement()) < order.length){
+					int groupIndex = order[i];
+					ObjFileReader.Group group = groups.get(groupIndex);
+					group.compile(vertexRemap, texCoordRemap);
 					
-					face2.t0 = faceTexIndices.get(0);
-					face2.t1 = faceTexIndices.get(2);
-					face2.t2 = faceTexIndices.get(3);
+					Vertex[] vertices = group.getGroupVertices();
+					if (vertices.length > 2){
+						//Load as all vertex normals smoothed if creaseAngle == 180;
+						if (creaseAngle == 180) {
+							geometries[groupIndex] = normalGenerator.generateSmoothNormals(pa, vertices, group.getIndexArray(), group.getGroupTexCoords(), group.getTexCoordIndices(), creaseAngle, flipTextureY, flipTextureX);
+						} else {
+							geometries[groupIndex] = normalGenerator.generateCreaseAngleNormals(pa, vertices, group.getIndexArray(), group.getGroupTexCoords(), group.getTexCoordIndices(), creaseAngle, flipTextureY, flipTextureX);
+						}
+					}
 				}
-				currGroup.addFace(face1);
-				currGroup.addFace(face2);
-			}else{
-				System.err.println("Obj-Loader only supports faces with 3 or 4 vertices per face!");
 			}
-		}else{
-			System.err.println("CURRENT GROUP IS NULL! SOMETHINGS WRONG!");
-		}
+		};
 		
-		if (st.ttype == StreamTokenizer.TT_EOF) {
-			return;
+		int threads = Math.min(getMeshBuildThreads(), groups.size());
+		if (threads <= 1){
+			builder.run();
+			return geometries;
 		}
 		
-		// In case we exited early
-		st.skipToNextLine();
-	} // End of readFace
-
-
-	/**
-	 * readPartName
-	 */
-	void readPartName(ObjectFileParser st) {
-		st.getToken();
-
-		// Find the Material Property of the current group
-		String curMat = groupMaterials.get(curGroup);
-
-		// New faces will be added to the curGroup
-		if (st.ttype != ObjectFileParser.TT_WORD) 
-			curGroup = "default";
-		else 
-			curGroup = st.sval;
-		
-		if ((DEBUG & 32) != 0) 
-			System.out.println("  Changed to group " + curGroup);
-
-		// See if this group has Material Properties yet
-		if (groupMaterials.get(curGroup) == null) {
-			// It doesn't - carry over from last group
-			groupMaterials.put(curGroup, curMat);
+		ExecutorService pool = getMeshBuildPool();
+		List<Future<?>> futures = new ArrayList<Future<?>>(threads - 1);
+		for (int i = 1; i < threads; i++) {
+			futures.add(pool.submit(builder));
 		}
-
-		//FIXME ADDED!
-		if (groupNameToGroupObj.get(curGroup) == null){
-			Group group = new Group(curGroup);
-			groupNameToGroupObj.put(curGroup, group);
-			
+		RuntimeException failure = null;
+		try {
+			builder.run();
+		} catch (RuntimeException e) {
+			next.set(order.length);
+			failure = e;
 		}
-		
-		st.skipToNextLine();
-	} // End of readPartName
-
-
-	/**
-	 * readMaterialName
-	 */
-	void readMaterialName(ObjectFileParser st) throws ParsingErrorException {
-		st.getToken();
-		if (st.ttype == ObjectFileParser.TT_WORD) {
-			String useMaterialName = st.sval;
-			
-			//////FIXME ADDED! added, to group by material if no groups are in obj file!
-//			if (curGroup.equalsIgnoreCase("default")){
-				curGroup = useMaterialName;
-				
-				if ((DEBUG & 32) != 0) 
-					System.out.println("  Changed to group " + curGroup);
-				
-				if (groupNameToGroupObj.get(curGroup) == null){
-					Group group = new Group(curGroup);
-					groupNameToGroupObj.put(curGroup, group);
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (ExecutionException e) {
+				next.set(order.length);
+				if (failure == null){
+					Throwable cause = e.getCause();
+					if (cause instanceof Error){
+						throw (Error) cause;
+					}
+					failure = cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+				}
+			} catch (InterruptedException e) {
+				next.set(order.length);
+				Thread.currentThread().interrupt();
+				if (failure == null){
+					failure = new ParsingErrorException("Interrupted while building the meshes");
 				}
-				
-//				// See if this group has Material Properties yet
-//				if (groupMaterials.get(curGroup) == null) {
-//					// It doesn't - carry over from last group
-//					groupMaterials.put(curGroup, curMat);
-//				}
-//			}
-			//////// added to group by material if no groups are in obj file!
-			
-			groupMaterials.put(curGroup, useMaterialName);
-			if ((DEBUG & 32) != 0) {
-				System.out.println("  Material Property " + st.sval +
-						" assigned to group " + curGroup);
 			}
 		}
-		st.skipToNextLine();
-	} // End of readMaterialName
-
-
+		if (failure != null){
+			throw failure;
+		}
+		return geometries;
+	}
+	
+	
+	private static synchronized ExecutorService getMeshBuildPool(){
+		if (meshBuildPool == null){
+			final AtomicInteger threadCount = new AtomicInteger();
+			meshBuildPool = Executors.newCachedThreadPool(new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "MT4j mesh builder " + threadCount.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		return meshBuildPool;
+	}
+	
+	
 	/**
-	 * loadMaterialFile
-	 *
-	 *	Both types of slashes are returned as tokens from our parser,
-	 *	so we go through the line token by token and keep just the
-	 *	last token on the line.  This should be the filename without
-	 *	any directory info.
+	 * Sets the number of threads building the meshes of the groups of a file in parallel,
+	 * including the thread loading the file. Defaults to the number of processors.
+	 * 
+	 * @param threads the number of threads, 1 to build all meshes in the loading thread
 	 */
-	void loadMaterialFile(ObjectFileParser st) throws ParsingErrorException {
-		String s = null;
-
-		// Filenames are case sensitive
-		st.lowerCaseMode(false);
-
-		// Get name of material file (skip path)
-		do {
-			st.getToken();
-			if (st.ttype == ObjectFileParser.TT_WORD) s = st.sval;
-		} while (st.ttype != ObjectFileParser.TT_EOL);
-
-		materials.readMaterialFile(basePath, s);
-
-		st.lowerCaseMode(true);
-		st.skipToNextLine();
-	} // End of loadMaterialFile
-
-
+	public static synchronized void setMeshBuildThreads(int threads){
+		if (threads < 1){
+			throw new IllegalArgumentException("The number of mesh build threads has to be > 0: " + threads);
+		}
+		meshBuildThreads = threads;
+	}
+	
 	/**
-	 * readSmoothingGroup
+	 * Gets the number of threads building the meshes of a file in parallel.
+	 * 
+	 * @return the mesh build threads
 	 */
-	void readSmoothingGroup(ObjectFileParser st) throws ParsingErrorException {
-		st.getToken();
-		if (st.ttype != ObjectFileParser.TT_WORD) {
-			st.skipToNextLine();
-			return;
-		}
-		if (st.sval.equals("off")) curSgroup = "0";
-		else curSgroup = st.sval;
-		if ((DEBUG & 32) != 0) System.out.println("  Smoothing group " + curSgroup);
-		st.skipToNextLine();
-	} // End of readSmoothingGroup
+	public static synchronized int getMeshBuildThreads(){
+		return meshBuildThreads;
+	}
 
 
 	/**
@@ -1005,93 +671,6 @@ public class ModelObjFileFactory  extends ModelImporterFactory {
 	} // End of setBasePathFromFilename
 
 
-	/**
-	 * getLimits
-	 *
-	 * Returns an array of Vertex which form a bounding box around the
-	 * object.  Element 0 is the low value, element 1 is the high value.
-	 * See normalize() below for an example of how to use this method.
-	 */
-	private Vertex[] getLimits() {
-		Vertex cur_vtx = new Vertex();
-
-		// Find the limits of the model
-		Vertex[] limit = new Vertex[2];
-		limit[0] = new Vertex(Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE);
-		limit[1] = new Vertex(Float.MIN_VALUE, Float.MIN_VALUE, Float.MIN_VALUE);
-        for (Vertex aCoordList : coordList) {
-
-            cur_vtx = aCoordList;
-
-            // Keep track of limits for normalization
-            if (cur_vtx.x < limit[0].x) limit[0].x = cur_vtx.x;
-            if (cur_vtx.x > limit[1].x) limit[1].x = cur_vtx.x;
-            if (cur_vtx.y < limit[0].y) limit[0].y = cur_vtx.y;
-            if (cur_vtx.y > limit[1].y) limit[1].y = cur_vtx.y;
-            if (cur_vtx.z < limit[0].z) limit[0].z = cur_vtx.z;
-            if (cur_vtx.z > limit[1].z) limit[1].z = cur_vtx.z;
-        }
-
-		if ((DEBUG & 64) != 0) {
-			System.out.println("Model range: (" +
-					limit[0].x + "," + limit[0].y + "," + limit[0].z + ") to (" +
-					limit[1].x + "," + limit[1].y + "," + limit[1].z + ")");
-		}
-
-		return limit;
-	} // End of getLimits
-
-
-
-	/**
-	 * Center the object and make it (-1,-1,-1) to (1,1,1).
-	 */
-	private void resize() {
-		int i, j;
-		Vertex cur_vtx = new Vertex();
-		float biggest_dif;
-
-		Vertex[] limit = getLimits();
-
-		// Move object so it's centered on (0,0,0)
-		Vector3D offset = new Vector3D(-0.5f * (limit[0].x + limit[1].x),
-				-0.5f * (limit[0].y + limit[1].y),
-				-0.5f * (limit[0].z + limit[1].z));
-
-		if ((DEBUG & 64) != 0) {
-			System.out.println("Offset amount: (" +
-					offset.x + "," + offset.y + "," + offset.z + ")");
-		}
-
-		// Find the divide-by value for the normalization
-		biggest_dif = limit[1].x - limit[0].x;
-		if (biggest_dif < limit[1].y - limit[0].y)
-			biggest_dif = limit[1].y - limit[0].y;
-		if (biggest_dif < limit[1].z - limit[0].z)
-			biggest_dif = limit[1].z - limit[0].z;
-		biggest_dif /= 2.0f;
-
-		for (i = 0 ; i < coordList.size() ; i++) {
-
-			cur_vtx = coordList.get(i);
-
-//			cur_vtx.add(cur_vtx, offset);
-			Vector3D tmp = cur_vtx.getAdded(offset);
-			cur_vtx = new Vertex(tmp.x,tmp.y,tmp.z);
-			
-//			Vector3D tmp = new Vector3D(offset);
-//			cur_vtx.addLocal(tmp);
-//			cur_vtx.addLocal(cur_vtx);
-
-			cur_vtx.x /= biggest_dif;
-			cur_vtx.y /= biggest_dif;
-			cur_vtx.z /= biggest_dif;
-
-			// coordList.setElementAt(cur_vtx, i);
-		}
-	} // End of resize
-
-
 //	private int[] objectToIntArray(ArrayList inList) {
 //		int outList[] = new int[inList.size()];
 //		for (int i = 0 ; i < inList.size() ; i++) {
@@ -1256,234 +835,6 @@ public class ModelObjFileFactory  extends ModelImporterFactory {
 	
 	
 	
-	/**
-	 * A class representing one group in a .obj file
-	 * @author C.Ruff
-	 *
-	 */
-	private class Group{
-		private String name;
-		private ArrayList<AFace> faces;
-		private ArrayList<Vertex> verticesForGroup;
-		
-		private HashMap<Integer, Integer> oldIndexToNewIndex;
-		
-		private ArrayList<float[]> texCoordsForGroup;
-		private HashMap<Integer, Integer> oldTexIndexToNewTexIndex;
-		
-		private int[] indexArray;
-		
-		private int[] texCoordIndexArray;
-		
-		public Group(String name){
-			this.name = name;
-			faces = new ArrayList<AFace>();
-			
-			verticesForGroup = new ArrayList<Vertex>();
-			oldIndexToNewIndex = new HashMap<Integer, Integer>();
-			
-			texCoordsForGroup = new ArrayList<float[]>();
-			oldTexIndexToNewTexIndex = new HashMap<Integer, Integer>();
-			
-			indexArray = new int[0];
-			texCoordIndexArray = new int[0];
-			
-			name = "default";
-		}
-		
-		public void addFace(AFace face){
-			faces.add(face);
-		}
-
-		//Irgendwann am ende ausfhren
-		//=>fr jede gruppe eigene liste von vertices on indices speichern
-		//aus hauptlisten rausholen
-		
-		/**
-		 * Uses the faces attached to this group during the parsing process and the lists with
-		 * all vertex and all texture coordinates of the obj file to create arrays for this group
-		 * with vertices and texture coords that only belong to this single group.
-		 * 
-		 * @param allFileVerts
-		 * @param allTexCoords
-		 */
-		public void compileItsOwnLists(ArrayList<Vertex> allFileVerts, ArrayList<float[]> allTexCoords){
-			indexArray = new int[faces.size()*3];
-			
-			if (allTexCoords.size() > 0){
-				texCoordIndexArray = new int[faces.size()*3];
-			}
-			
-			for (int i = 0; i < faces.size(); i++) {
-				AFace currentFace = faces.get(i);
-				
-				Vertex v0 = allFileVerts.get(currentFace.p0);
-				Vertex v1 = allFileVerts.get(currentFace.p1);
-				Vertex v2 = allFileVerts.get(currentFace.p2);
-				
-				if (	allTexCoords.size() > currentFace.t0
-					&& 	allTexCoords.size() > currentFace.t1
-					&& 	allTexCoords.size() > currentFace.t2
-				){
-					float[] texV0 = allTexCoords.get(currentFace.t0);
-					float[] texV1 = allTexCoords.get(currentFace.t1);
-					float[] texV2 = allTexCoords.get(currentFace.t2);
-					
-					//Etwas redundant immer wieder zu machen beim gleichen vertex..whatever
-					v0.setTexCoordU(texV0[0]);
-					v0.setTexCoordV(texV0[1]);
-					
-					v1.setTexCoordU(texV1[0]);
-					v1.setTexCoordV(texV1[1]);
-					
-					v2.setTexCoordU(texV2[0]);
-					v2.setTexCoordV(texV2[1]);
-					
-					//Check if there is a texture index in the hashtable at the faces texture pointer
-					//if not, create a new index = the end of thexcoords list, and put the pointer into the hash
-					//if yes, point the faces texture pointer to the pointer in the hash
-					
-					//This process maps the texture coords and indices of all the groups in the obj
-					//file to only this groups texture coord list and texture indices, the indices 
-					//are created from the index in the thex coord list when they are put in
-					//Only the texture coordinates are added to the list that have not been adressed
-					//in the texture indices pointers in the faces
-					//Same texture pointers will point to the same texcoord in the list
-					Integer oldToNewT0 = oldTexIndexToNewTexIndex.get(currentFace.t0);
-					if (oldToNewT0 != null){
-						currentFace.t0 = oldToNewT0;
-					}else{
-						int newIndex = texCoordsForGroup.size();
-						texCoordsForGroup.add(texV0);
-						oldTexIndexToNewTexIndex.put(currentFace.t0, newIndex);
-						currentFace.t0 = newIndex;
-					}
-					
-					Integer oldToNewT1 = oldTexIndexToNewTexIndex.get(currentFace.t1);
-					if (oldToNewT1 != null){
-						currentFace.t1 = oldToNewT1;
-					}else{
-						int newIndex = texCoordsForGroup.size();
-						texCoordsForGroup.add(texV1);
-						oldTexIndexToNewTexIndex.put(currentFace.t1, newIndex);
-						currentFace.t1 = newIndex;
-					}
-					
-					Integer oldToNewT2 = oldTexIndexToNewTexIndex.get(currentFace.t2);
-					if (oldToNewT2 != null){
-						currentFace.t2 = oldToNewT2;
-					}else{
-						int newIndex = texCoordsForGroup.size();
-						texCoordsForGroup.add(texV2);
-						oldTexIndexToNewTexIndex.put(currentFace.t2, newIndex);
-						currentFace.t2 = newIndex;
-					}
-				}
-				
-				//Do the same for the vertices.
-				//Create a new vertex pointer when adding the vertex to the list
-				Integer oldToNewP0 = oldIndexToNewIndex.get(currentFace.p0);
-				if (oldToNewP0 != null){
-					//index of the old vertex list has already been mapped to a new one here -> use the new index in the face
-					currentFace.p0 = oldToNewP0;
-				}else{
-					int newIndex = verticesForGroup.size();
-					verticesForGroup.add(v0);
-					//mark that the former index (for exmample 323) is now at new index (f.e. 1)
-					oldIndexToNewIndex.put(currentFace.p0, newIndex); 
-					currentFace.p0 = newIndex;
-				}
-				
-				Integer oldToNewP1 = oldIndexToNewIndex.get(currentFace.p1);
-				if (oldToNewP1 != null){
-					currentFace.p1 = oldToNewP1;
-				}else{
-					int newIndex = verticesForGroup.size();
-					verticesForGroup.add(v1);
-					oldIndexToNewIndex.put(currentFace.p1, newIndex);
-					currentFace.p1 = newIndex;
-				}
-				
-				Integer oldToNewP2 = oldIndexToNewIndex.get(currentFace.p2);
-				if (oldToNewP2 != null){
-					currentFace.p2 = oldToNewP2;
-				}else{
-					int newIndex = verticesForGroup.size();
-					verticesForGroup.add(v2);
-					oldIndexToNewIndex.put(currentFace.p2, newIndex);
-					currentFace.p2 = newIndex;
-				}
-				
-				indexArray[i*3]   = currentFace.p0;
-				indexArray[i*3+1] = currentFace.p1;
-				indexArray[i*3+2] = currentFace.p2;
-				
-				if (allTexCoords.size() > 0){
-					texCoordIndexArray[i*3]   = currentFace.t0;
-					texCoordIndexArray[i*3+1] = currentFace.t1;
-					texCoordIndexArray[i*3+2] = currentFace.t2;
-				}
-			}
-		}
-
-		public int[] getIndexArray() {
-			return indexArray;
-		}
-
-		public String getName() {
-			return name;
-		}
-
-		public int[] getTexCoordIndices() {
-			return texCoordIndexArray;
-		}
-
-		public float[][] getGroupTexCoords() {
-			return texCoordsForGroup.toArray(new float[this.texCoordsForGroup.size()][]);
-		}
-
-		public Vertex[] getGroupVertices() {
-			return verticesForGroup.toArray(new Vertex[this.verticesForGroup.size()]);
-		}
-		
-		
-		
-	}
-	
-	
-	/**
-	 * A class representing a face in the obj file.
-	 * Has pointers into the vertex and the texture arrays.
-	 * 
-	 * @author C.Ruff
-	 *
-	 */
-	private class AFace{
-		int p0;
-		int p1;
-		int p2;
-		
-		int t0;
-		int t1;
-		int t2;
-		
-		public AFace(){
-			p0 = -1;
-			p1 = -1;
-			p2 = -1;
-			
-			t0 = 0;
-			t1 = 0;
-			t2 = 0;
-		}
-	}
-	
-	
-	
-	
-	
-	
-	
 	/**
 	 * Each face is converted to triangles.  As each face is converted,
 	 * we look up which geometry group and smoothing group the face
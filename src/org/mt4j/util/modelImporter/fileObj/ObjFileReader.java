@@ -0,0 +1,885 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.util.modelImporter.fileObj;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.mt4j.util.logging.ILogger;
+import org.mt4j.util.logging.MTLoggerFactory;
+import org.mt4j.util.math.Vertex;
+
+
+/**
+ * Reads the geometry of a Wavefront .obj file.
+ * <p>
+ * The file is scanned byte by byte, files are memory mapped. The vertex positions, texture 
+ * coordinates and faces are stored in primitive arrays, no objects are created per vertex
+ * or face. Numbers are parsed without creating strings, only numbers which can't be 
+ * parsed exactly that way fall back to <code>Double.valueOf()</code>.
+ * <br>The tokens are recognized the same way as by the <code>ObjectFileParser</code>, 
+ * see <code>ModelObjFileFactory</code> for the supported tokens.
+ * <p>
+ * The faces are collected in groups, by the <code>g</code> and <code>usemtl</code> tokens. 
+ * Each group can be compiled to its own vertex, index and texture coordinate arrays 
+ * with <code>Group.compile()</code>, different groups can be compiled in parallel.
+ */
+public class ObjFileReader {
+	private static final ILogger logger = MTLoggerFactory.getLogger(ObjFileReader.class.getName());
+	static{
+		logger.setLevel(ILogger.WARN);
+	}
+	
+	private static final int TT_EOF = -1;
+	private static final int TT_EOL = '\n';
+	private static final int TT_WORD = -3;
+	
+	private static final char BACKSLASH = '\\';
+	
+	/** The name of the group the faces are added to if no group is specified. */
+	public static final String DEFAULT_GROUP = "default";
+	
+	/** Powers of ten which are exactly representable as double. */
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+	
+	/** The largest integer up to which all integers are exactly representable as double. */
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+	
+	//Scanner state
+	private ByteBuffer buffer;
+	private int pos;
+	private int limit;
+	private int line;
+	private int ttype;
+	private int wordStart;
+	private int wordEnd;
+	private boolean lowerCase;
+	
+	/** The vertex positions, x,y,z per vertex. */
+	private float[] positions;
+	private int vertexCount;
+	
+	/** The texture coordinates, u,v per coordinate. */
+	private float[] texCoords;
+	private int texCoordCount;
+	
+	private int normalCount;
+	
+	/** The groups by name. Iterated in the order of the hash map, like the meshes were always created. */
+	private HashMap<String, Group> groups;
+	
+	/** The material names by group name. */
+	private HashMap<String, String> groupMaterials;
+	
+	private String currentGroup;
+	
+	/** The files named by <code>mtllib</code> tokens. */
+	private List<String> materialLibraries;
+	
+	/** The unrecognized tokens which were already reported. */
+	private Set<String> unrecognizedTokens;
+	
+	/** The vertex and texture coordinate indices of the face being read. */
+	private int[] faceVertices;
+	private int[] faceTexCoords;
+	
+	
+	/**
+	 * Instantiates a new obj file reader.
+	 */
+	public ObjFileReader(){
+		this.faceVertices = new int[8];
+		this.faceTexCoords = new int[8];
+		this.reset();
+	}
+	
+	
+	private void reset(){
+		positions = new float[3 * 1024];
+		vertexCount = 0;
+		texCoords = new float[2 * 1024];
+		texCoordCount = 0;
+		normalCount = 0;
+		groups = new HashMap<String, Group>();
+		groupMaterials = new HashMap<String, String>(50);
+		materialLibraries = new ArrayList<String>();
+		unrecognizedTokens = new HashSet<String>();
+		
+		currentGroup = DEFAULT_GROUP;
+		groupMaterials.put(currentGroup, "default");
+		groups.put(currentGroup, new Group(currentGroup));
+	}
+	
+	
+	/**
+	 * Reads the file. The file is memory mapped.
+	 *
+	 * @param file the file
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @throws ParsingErrorException if the file isn't a valid .obj file
+	 */
+	public void read(File file) throws IOException {
+		FileInputStream in = new FileInputStream(file);
+		try {
+			FileChannel channel = in.getChannel();
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE){
+				throw new IOException("File too large to read: " + file + " (" + size + " bytes)");
+			}
+			this.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+		} finally {
+			in.close();
+		}
+	}
+	
+	
+	/**
+	 * Reads the stream completely. Doesn't close the stream.
+	 *
+	 * @param in the stream
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @throws ParsingErrorException if the stream isn't a valid .obj file
+	 */
+	public void read(InputStream in) throws IOException {
+		byte[] bytes = new byte[64 * 1024];
+		int length = 0;
+		int read;
+		while ((read = in.read(bytes, length, bytes.length - length)) != -1){
+			length += read;
+			if (length == bytes.length){
+				byte[] newBytes = new byte[bytes.length * 2];
+				System.arraycopy(bytes, 0, newBytes, 0, length);
+				bytes = newBytes;
+			}
+		}
+		this.read(ByteBuffer.wrap(bytes, 0, length));
+	}
+	
+	
+	/**
+	 * Reads the .obj data from the current position to the limit of the buffer.
+	 * The results of a previous read are discarded.
+	 *
+	 * @param data the data
+	 * @throws ParsingErrorException if the data isn't a valid .obj file
+	 */
+	public void read(ByteBuffer data){
+		this.reset();
+		this.buffer = data;
+		this.pos = data.position();
+		this.limit = data.limit();
+		this.line = 1;
+		this.lowerCase = true;
+		try {
+			this.readFile();
+		} finally {
+			this.buffer = null;
+		}
+	}
+	
+	
+	private void readFile(){
+		this.getToken();
+		while (ttype != TT_EOF){
+			if (ttype == TT_WORD){
+				if (this.isWord("v")){
+					this.readVertex();
+				}else if (this.isWord("vn")){
+					this.readNormal();
+				}else if (this.isWord("vt")){
+					this.readTexCoord();
+				}else if (this.isWord("f") || this.isWord("fo")){
+					this.readFace();
+				}else if (this.isWord("g")){
+					this.readGroupName();
+				}else if (this.isWord("usemtl")){
+					this.readMaterialName();
+				}else if (this.isWord("mtllib")){
+					this.readMaterialLibrary();
+				}else if (this.isWord("s") || this.isWord("p") || this.isWord("l") 
+						|| this.isWord("maplib") || this.isWord("usemap")
+				){
+					//Smoothing groups, points, lines and maps are ignored
+				}else{
+					String token = this.getWord();
+					if (unrecognizedTokens.add(token)){
+						logger.warn("Unrecognized token \"{}\", line {}", token, line);
+					}
+				}
+			}
+			this.skipToNextLine();
+			this.getToken();
+		}
+	}
+	
+	
+	private void readVertex(){
+		if (vertexCount * 3 + 3 > positions.length){
+			positions = grow(positions, positions.length * 2);
+		}
+		int offset = vertexCount * 3;
+		positions[offset] 	  = this.getFloat();
+		positions[offset + 1] = this.getFloat();
+		positions[offset + 2] = this.getFloat();
+		vertexCount++;
+	}
+	
+	
+	private void readNormal(){
+		//The normals are generated, the ones of the file are only checked
+		this.getFloat();
+		this.getFloat();
+		this.getFloat();
+		normalCount++;
+	}
+	
+	
+	private void readTexCoord(){
+		if (texCoordCount * 2 + 2 > texCoords.length){
+			texCoords = grow(texCoords, texCoords.length * 2);
+		}
+		int offset = texCoordCount * 2;
+		texCoords[offset] 	  = this.getFloat();
+		texCoords[offset + 1] = this.getFloat();
+		texCoordCount++;
+	}
+	
+	
+	/**
+	 * Reads the vertices of a face. Each vertex is <code>v</code>, <code>v/t</code>, 
+	 * <code>v/t/n</code> or <code>v//n</code>. Negative indices are relative to the end of the lists.
+	 */
+	private void readFace(){
+		int vertices = 0;
+		int texCoordIndices = 0;
+		
+		this.getToken();
+		while (ttype != TT_EOF && ttype != TT_EOL){
+			if (vertices == faceVertices.length){
+				faceVertices = grow(faceVertices, vertices * 2);
+			}
+			int vertexIndex = (int) this.getNumberOfCurrentToken() - 1;
+			if (vertexIndex < 0){
+				vertexIndex += vertexCount + 1;
+			}
+			faceVertices[vertices++] = vertexIndex;
+			
+			this.getToken();
+			if (ttype == '/'){
+				this.getToken();
+				if (ttype == TT_WORD){
+					if (texCoordIndices == faceTexCoords.length){
+						faceTexCoords = grow(faceTexCoords, texCoordIndices * 2);
+					}
+					int texIndex = (int) this.getNumberOfCurrentToken() - 1;
+					if (texIndex < 0){
+						texIndex += texCoordCount + 1;
+					}
+					faceTexCoords[texCoordIndices++] = texIndex;
+					this.getToken();
+				}
+				
+				if (ttype == '/'){
+					//Normal index, only checked
+					this.getNumber();
+					this.getToken();
+				}
+			}
+		}
+		
+		//Faces with 4 vertices are split into 2 triangles
+		Group group = groups.get(currentGroup);
+		if (vertices == 3){
+			if (texCoordIndices >= 3){
+				group.addFace(faceVertices[0], faceVertices[1], faceVertices[2], faceTexCoords[0], faceTexCoords[1], faceTexCoords[2]);
+			}else{
+				group.addFace(faceVertices[0], faceVertices[1], faceVertices[2], 0, 0, 0);
+			}
+		}else if (vertices == 4){
+			if (texCoordIndices == 4){
+				group.addFace(faceVertices[0], faceVertices[1], faceVertices[2], faceTexCoords[0], faceTexCoords[1], faceTexCoords[2]);
+				group.addFace(faceVertices[0], faceVertices[2], faceVertices[3], faceTexCoords[0], faceTexCoords[2], faceTexCoords[3]);
+			}else{
+				group.addFace(faceVertices[0], faceVertices[1], faceVertices[2], 0, 0, 0);
+				group.addFace(faceVertices[0], faceVertices[2], faceVertices[3], 0, 0, 0);
+			}
+		}else{
+			logger.warn("Obj-Loader only supports faces with 3 or 4 vertices per face! Line {}", line);
+		}
+	}
+	
+	
+	private void readGroupName(){
+		this.getToken();
+		String material = groupMaterials.get(currentGroup);
+		currentGroup = ttype == TT_WORD ? this.getWord() : DEFAULT_GROUP;
+		
+		//Groups without a material get the one of the previous group
+		if (groupMaterials.get(currentGroup) == null){
+			groupMaterials.put(currentGroup, material);
+		}
+		this.addGroup(currentGroup);
+	}
+	
+	
+	private void readMaterialName(){
+		this.getToken();
+		if (ttype == TT_WORD){
+			//The faces are also grouped by material, for files without groups
+			String material = this.getWord();
+			currentGroup = material;
+			this.addGroup(currentGroup);
+			groupMaterials.put(currentGroup, material);
+		}
+	}
+	
+	
+	/**
+	 * Only the last word of the line is used as the filename, 
+	 * the path is ignored because slashes are tokens.
+	 */
+	private void readMaterialLibrary(){
+		String fileName = null;
+		
+		//Filenames are case sensitive
+		lowerCase = false;
+		do {
+			this.getToken();
+			if (ttype == TT_WORD){
+				fileName = this.getWord();
+			}
+		} while (ttype != TT_EOL && ttype != TT_EOF);
+		lowerCase = true;
+		
+		materialLibraries.add(fileName);
+	}
+	
+	
+	private void addGroup(String name){
+		if (groups.get(name) == null){
+			groups.put(name, new Group(name));
+		}
+	}
+	
+	
+	
+	////////// Scanner //////////
+	
+	private static boolean isWordChar(int c){
+		return c > '!' && c <= '~' && c != '#' && c != '/' && c != BACKSLASH;
+	}
+	
+	
+	/**
+	 * Reads the next token: a word, an end of line, the end of the data or a single character.
+	 * Spaces and tabs separate tokens, comments start with '!'.
+	 */
+	private void nextToken(){
+		while (pos < limit){
+			int c = buffer.get(pos) & 0xff;
+			if (c == ' ' || c == '\t'){
+				pos++;
+			}else if (c == '\n'){
+				pos++;
+				line++;
+				ttype = TT_EOL;
+				return;
+			}else if (c == '\r'){
+				pos++;
+				if (pos < limit && buffer.get(pos) == '\n'){
+					pos++;
+				}
+				line++;
+				ttype = TT_EOL;
+				return;
+			}else if (c == '!'){
+				//Comment until the end of the line
+				while (pos < limit && buffer.get(pos) != '\n' && buffer.get(pos) != '\r'){
+					pos++;
+				}
+			}else if (isWordChar(c)){
+				wordStart = pos;
+				do {
+					pos++;
+				} while (pos < limit && isWordChar(buffer.get(pos) & 0xff));
+				wordEnd = pos;
+				ttype = TT_WORD;
+				return;
+			}else{
+				pos++;
+				ttype = c;
+				return;
+			}
+		}
+		ttype = TT_EOF;
+	}
+	
+	
+	/**
+	 * Gets the next token, a backslash at the end of a line continues the line.
+	 */
+	private void getToken(){
+		this.nextToken();
+		while (ttype == BACKSLASH){
+			this.nextToken();
+			if (ttype != TT_EOL){
+				return;
+			}
+			this.nextToken();
+		}
+	}
+	
+	
+	private void skipToNextLine(){
+		while (ttype != TT_EOL && ttype != TT_EOF){
+			this.getToken();
+		}
+	}
+	
+	
+	private boolean isWord(String word){
+		int length = wordEnd - wordStart;
+		if (length != word.length()){
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (toLowerCase(buffer.get(wordStart + i)) != word.charAt(i)){
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	
+	private static char toLowerCase(byte b){
+		char c = (char) (b & 0xff);
+		return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+	}
+	
+	
+	private String getWord(){
+		char[] chars = new char[wordEnd - wordStart];
+		for (int i = 0; i < chars.length; i++) {
+			byte b = buffer.get(wordStart + i);
+			chars[i] = lowerCase ? toLowerCase(b) : (char) (b & 0xff);
+		}
+		return new String(chars);
+	}
+	
+	
+	private float getFloat(){
+		return (float) this.getNumber();
+	}
+	
+	
+	private double getNumber(){
+		this.getToken();
+		return this.getNumberOfCurrentToken();
+	}
+	
+	
+	private double getNumberOfCurrentToken(){
+		if (ttype != TT_WORD){
+			throw new ParsingErrorException("Expected number on line " + line);
+		}
+		double value = this.parseDouble(wordStart, wordEnd);
+		if (Double.isNaN(value)){
+			//Not parsed in the fast path
+			try {
+				value = Double.valueOf(this.getWord());
+			} catch (NumberFormatException e) {
+				throw new ParsingErrorException(e.getMessage());
+			}
+		}
+		return value;
+	}
+	
+	
+	/**
+	 * Parses a decimal number like <code>-12.5e-3</code>. 
+	 * The result is exactly the same as the one of <code>Double.valueOf()</code>: the
+	 * digits are read into a long and multiplied or divided by an exact power of ten, 
+	 * which is correctly rounded if both numbers are exactly representable as double. 
+	 *
+	 * @return the number, NaN if the number has another format or can't be parsed exactly that way
+	 */
+	private double parseDouble(int start, int end){
+		int i = start;
+		boolean negative = false;
+		byte c = buffer.get(i);
+		if (c == '-' || c == '+'){
+			negative = c == '-';
+			i++;
+		}
+		
+		long mantissa = 0;
+		int digits = 0;
+		int significantDigits = 0;
+		int exponent = 0;
+		boolean fraction = false;
+		for (; i < end; i++) {
+			c = buffer.get(i);
+			if (c >= '0' && c <= '9'){
+				digits++;
+				if (mantissa != 0 || c != '0'){
+					if (++significantDigits > 18){
+						return Double.NaN;
+					}
+					mantissa = mantissa * 10 + (c - '0');
+				}
+				if (fraction){
+					exponent--;
+				}
+			}else if (c == '.' && !fraction){
+				fraction = true;
+			}else{
+				break;
+			}
+		}
+		if (digits == 0){
+			return Double.NaN;
+		}
+		
+		if (i < end){
+			c = buffer.get(i);
+			if (c != 'e' && c != 'E' || ++i == end){
+				return Double.NaN;
+			}
+			boolean negativeExponent = false;
+			c = buffer.get(i);
+			if (c == '-' || c == '+'){
+				negativeExponent = c == '-';
+				if (++i == end){
+					return Double.NaN;
+				}
+			}
+			int exp = 0;
+			for (; i < end; i++) {
+				c = buffer.get(i);
+				if (c < '0' || c > '9' || exp > 10000){
+					return Double.NaN;
+				}
+				exp = exp * 10 + (c - '0');
+			}
+			exponent += negativeExponent ? -exp : exp;
+		}
+		
+		if (mantissa > MAX_EXACT_MANTISSA || exponent < -22 || exponent > 22){
+			return Double.NaN;
+		}
+		double value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+		return negative ? -value : value;
+	}
+	
+	
+	private static float[] grow(float[] array, int length){
+		float[] newArray = new float[length];
+		System.arraycopy(array, 0, newArray, 0, array.length);
+		return newArray;
+	}
+	
+	private static int[] grow(int[] array, int length){
+		int[] newArray = new int[length];
+		System.arraycopy(array, 0, newArray, 0, array.length);
+		return newArray;
+	}
+	
+	
+	
+	/**
+	 * Gets the number of vertex positions.
+	 *
+	 * @return the vertex count
+	 */
+	public int getVertexCount() {
+		return vertexCount;
+	}
+	
+	/**
+	 * Gets the vertex positions, x,y,z per vertex. The array can be longer than needed.
+	 *
+	 * @return the positions
+	 */
+	public float[] getPositions() {
+		return positions;
+	}
+	
+	/**
+	 * Gets the number of texture coordinates.
+	 *
+	 * @return the tex coord count
+	 */
+	public int getTexCoordCount() {
+		return texCoordCount;
+	}
+	
+	/**
+	 * Gets the texture coordinates, u,v per coordinate. The array can be longer than needed.
+	 *
+	 * @return the tex coords
+	 */
+	public float[] getTexCoords() {
+		return texCoords;
+	}
+	
+	/**
+	 * Gets the number of normals in the file. The normals themselves aren't kept.
+	 *
+	 * @return the normal count
+	 */
+	public int getNormalCount() {
+		return normalCount;
+	}
+	
+	/**
+	 * Gets the groups, including empty ones.
+	 *
+	 * @return the groups
+	 */
+	public Collection<Group> getGroups() {
+		return groups.values();
+	}
+	
+	/**
+	 * Gets the group.
+	 *
+	 * @param name the name
+	 * @return the group or null
+	 */
+	public Group getGroup(String name) {
+		return groups.get(name);
+	}
+	
+	/**
+	 * Gets the name of the material used by a group.
+	 *
+	 * @param groupName the group name
+	 * @return the material name
+	 */
+	public String getGroupMaterial(String groupName) {
+		return groupMaterials.get(groupName);
+	}
+	
+	/**
+	 * Gets the material files named in the file.
+	 *
+	 * @return the material libraries
+	 */
+	public List<String> getMaterialLibraries() {
+		return materialLibraries;
+	}
+	
+	
+	
+	/**
+	 * The faces of one group of the file.
+	 */
+	public class Group {
+		private final String name;
+		
+		/** The faces, the 3 vertex indices and the 3 texture coordinate indices per face. */
+		private int[] faces;
+		private int faceCount;
+		
+		private Vertex[] groupVertices;
+		private float[][] groupTexCoords;
+		private int[] indices;
+		private int[] texCoordIndices;
+		
+		private Group(String name){
+			this.name = name;
+			this.faces = new int[6 * 16];
+		}
+		
+		private void addFace(int p0, int p1, int p2, int t0, int t1, int t2){
+			if (faceCount * 6 + 6 > faces.length){
+				faces = grow(faces, faces.length * 2);
+			}
+			int offset = faceCount * 6;
+			faces[offset] 	  = p0;
+			faces[offset + 1] = p1;
+			faces[offset + 2] = p2;
+			faces[offset + 3] = t0;
+			faces[offset + 4] = t1;
+			faces[offset + 5] = t2;
+			faceCount++;
+		}
+		
+		
+		/**
+		 * Creates the arrays with only the vertices and texture coordinates used by this group 
+		 * and the indices into them. The vertices and texture coordinates are in the order 
+		 * they are first used by the faces.
+		 * <br>Different groups can be compiled in parallel if they use different remap arrays.
+		 *
+		 * @param vertexRemap an array with at least <code>getVertexCount()</code> entries, all -1. They are -1 again afterwards.
+		 * @param texCoordRemap an array with at least <code>getTexCoordCount()</code> entries, all -1. They are -1 again afterwards.
+		 */
+		public void compile(int[] vertexRemap, int[] texCoordRemap){
+			indices = new int[faceCount * 3];
+			texCoordIndices = texCoordCount > 0 ? new int[faceCount * 3] : new int[0];
+			
+			int[] usedVertices = new int[Math.max(16, Math.min(vertexCount, faceCount * 3))];
+			int usedVertexCount = 0;
+			int[] usedTexCoords = new int[usedVertices.length];
+			int usedTexCoordCount = 0;
+			
+			try {
+				for (int i = 0; i < faceCount; i++) {
+					int offset = i * 6;
+					
+					//Faces whose texture coordinates don't exist keep their indices
+					if (faces[offset + 3] < texCoordCount && faces[offset + 4] < texCoordCount && faces[offset + 5] < texCoordCount){
+						for (int j = 3; j < 6; j++) {
+							int t = faces[offset + j];
+							int newIndex = texCoordRemap[t];
+							if (newIndex == -1){
+								if (usedTexCoordCount == usedTexCoords.length){
+									usedTexCoords = grow(usedTexCoords, usedTexCoordCount * 2);
+								}
+								newIndex = usedTexCoordCount;
+								usedTexCoords[usedTexCoordCount++] = t;
+								texCoordRemap[t] = newIndex;
+							}
+							texCoordIndices[i * 3 + j - 3] = newIndex;
+						}
+					}else if (texCoordCount > 0){
+						texCoordIndices[i * 3] 	   = faces[offset + 3];
+						texCoordIndices[i * 3 + 1] = faces[offset + 4];
+						texCoordIndices[i * 3 + 2] = faces[offset + 5];
+					}
+					
+					for (int j = 0; j < 3; j++) {
+						int p = faces[offset + j];
+						if (p < 0 || p >= vertexCount){
+							throw new ParsingErrorException("Vertex index " + (p + 1) + " of group " + name + " doesn't exist, vertex count: " + vertexCount);
+						}
+						int newIndex = vertexRemap[p];
+						if (newIndex == -1){
+							if (usedVertexCount == usedVertices.length){
+								usedVertices = grow(usedVertices, usedVertexCount * 2);
+							}
+							newIndex = usedVertexCount;
+							usedVertices[usedVertexCount++] = p;
+							vertexRemap[p] = newIndex;
+						}
+						indices[i * 3 + j] = newIndex;
+					}
+				}
+			} finally {
+				//Reset the remap arrays for the next group
+				for (int i = 0; i < usedVertexCount; i++) {
+					vertexRemap[usedVertices[i]] = -1;
+				}
+				for (int i = 0; i < usedTexCoordCount; i++) {
+					texCoordRemap[usedTexCoords[i]] = -1;
+				}
+			}
+			
+			groupVertices = new Vertex[usedVertexCount];
+			for (int i = 0; i < usedVertexCount; i++) {
+				int offset = usedVertices[i] * 3;
+				groupVertices[i] = new Vertex(positions[offset], positions[offset + 1], positions[offset + 2]);
+			}
+			groupTexCoords = new float[usedTexCoordCount][];
+			for (int i = 0; i < usedTexCoordCount; i++) {
+				int offset = usedTexCoords[i] * 2;
+				groupTexCoords[i] = new float[]{texCoords[offset], texCoords[offset + 1]};
+			}
+		}
+		
+		/**
+		 * Gets the name.
+		 *
+		 * @return the name
+		 */
+		public String getName() {
+			return name;
+		}
+		
+		/**
+		 * Gets the number of triangles.
+		 *
+		 * @return the face count
+		 */
+		public int getFaceCount() {
+			return faceCount;
+		}
+		
+		/**
+		 * Gets the vertices of the group, null before <code>compile()</code>.
+		 *
+		 * @return the group vertices
+		 */
+		public Vertex[] getGroupVertices() {
+			return groupVertices;
+		}
+		
+		/**
+		 * Gets the texture coordinates of the group, null before <code>compile()</code>.
+		 *
+		 * @return the group tex coords
+		 */
+		public float[][] getGroupTexCoords() {
+			return groupTexCoords;
+		}
+		
+		/**
+		 * Gets the vertex indices, 3 per triangle, null before <code>compile()</code>.
+		 *
+		 * @return the indices
+		 */
+		public int[] getIndexArray() {
+			return indices;
+		}
+		
+		/**
+		 * Gets the texture coordinate indices, 3 per triangle. Empty if the file has no 
+		 * texture coordinates, null before <code>compile()</code>.
+		 *
+		 * @return the tex coord indices
+		 */
+		public int[] getTexCoordIndices() {
+			return texCoordIndices;
+		}
+		
+		/**
+		 * Releases the compiled arrays.
+		 */
+		public void clearCompiled(){
+			groupVertices = null;
+			groupTexCoords = null;
+			indices = null;
+			texCoordIndices = null;
+		}
+	}
+
+}
@@ -182,7 +182,9 @@ class ObjectFileMaterials implements ImageObserver {
 //    		if (p.transparent) 
 //    			a.setTransparencyAttributes(new TransparencyAttributes(TransparencyAttributes.NICEST,p.transparencyLevel));
     		
-    		shape.setMaterial(m);
+    		if (gl != null){
+    			shape.setMaterial(m);
+    		}
     	}else{
     		System.err.println("No material \"" + matName + "\" found for object " + shape.getName());
     	}
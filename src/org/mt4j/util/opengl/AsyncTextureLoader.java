@@ -0,0 +1,390 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.util.opengl;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.media.opengl.GL;
+
+import org.mt4j.MTApplication;
+import org.mt4j.components.visibleComponents.shapes.AbstractShape;
+import org.mt4j.sceneManagement.IPreDrawAction;
+import org.mt4j.util.logging.ILogger;
+import org.mt4j.util.logging.MTLoggerFactory;
+import org.mt4j.util.math.Tools3D;
+
+import processing.core.PConstants;
+import processing.core.PImage;
+
+/**
+ * Loads textures without blocking the OpenGL thread.
+ * <p>
+ * The images are decoded on a pool of decoding threads. Each frame, the OpenGL thread 
+ * creates the textures of the decoded images and uploads their pixels with a 
+ * <code>TextureUploadQueue</code>, only as many bytes per frame as the upload budget allows.
+ * Large images are uploaded over several frames. By default the <code>GLTextureUploadBackend</code>
+ * is used, which uploads through pixel buffer objects if they are available.
+ * <br>The result is delivered by the returned <code>TextureRequest</code> (a <code>Future</code>)
+ * and the optional <code>ITextureLoadListener</code>, which is called on the OpenGL thread.
+ * <p>
+ * Until a texture is ready, a shared placeholder texture can be shown, see 
+ * <code>loadInto()</code>.
+ * <br>The loader registers itself as a pre draw action of the application, 
+ * <code>shutdown()</code> stops it.
+ */
+public class AsyncTextureLoader implements IPreDrawAction {
+	private static final ILogger logger = MTLoggerFactory.getLogger(AsyncTextureLoader.class.getName());
+	static{
+		logger.setLevel(ILogger.WARN);
+	}
+	
+	/** The default number of decoding threads. */
+	public static final int DEFAULT_DECODE_THREADS = 2;
+	
+	/** The application. */
+	private final MTApplication app;
+	
+	/** The decoding threads. */
+	private final ExecutorService decodePool;
+	
+	/** The decoded requests waiting for their upload to start. */
+	private final ConcurrentLinkedQueue<TextureRequest> decoded;
+	
+	/** The upload queue. */
+	private final TextureUploadQueue uploadQueue;
+	
+	/** The image decoder. */
+	private IImageDecoder decoder;
+	
+	/** The number of requests that are not done yet. */
+	private final AtomicInteger pending;
+	
+	/** The placeholder texture, created on first use. */
+	private GLTexture placeholder;
+	
+	private volatile boolean shutdown;
+	
+	
+	/**
+	 * Instantiates a new texture loader with the default number of decoding threads.
+	 *
+	 * @param app the application
+	 */
+	public AsyncTextureLoader(MTApplication app){
+		this(app, DEFAULT_DECODE_THREADS, new GLTextureUploadBackend(app));
+	}
+	
+	/**
+	 * Instantiates a new texture loader.
+	 *
+	 * @param app the application
+	 * @param decodeThreads the number of decoding threads
+	 * @param uploadBackend the backend uploading the pixels
+	 */
+	public AsyncTextureLoader(final MTApplication app, int decodeThreads, ITextureUploadBackend uploadBackend){
+		this.app = app;
+		this.decoded = new ConcurrentLinkedQueue<TextureRequest>();
+		this.uploadQueue = new TextureUploadQueue(uploadBackend);
+		this.pending = new AtomicInteger();
+		this.decoder = new IImageDecoder() {
+			public PImage decode(String fileName) {
+				return app.loadImage(fileName);
+			}
+		};
+		final AtomicInteger threadCount = new AtomicInteger();
+		this.decodePool = Executors.newFixedThreadPool(Math.max(1, decodeThreads), new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "MT4j texture decoder " + threadCount.incrementAndGet());
+				t.setDaemon(true);
+				t.setPriority(Thread.NORM_PRIORITY - 1);
+				return t;
+			}
+		});
+		if (app != null){
+			app.registerPreDrawAction(this);
+		}
+	}
+	
+	
+	/**
+	 * Loads the texture with the default settings.
+	 *
+	 * @param fileName the file name or url
+	 * @return the texture request
+	 */
+	public TextureRequest load(String fileName){
+		return this.load(fileName, new GLTextureSettings(), null);
+	}
+	
+	/**
+	 * Loads the texture. The image is decoded on a decoding thread, the texture is 
+	 * created and uploaded on the OpenGL thread.
+	 * <br>Can be called from any thread.
+	 *
+	 * @param fileName the file name or url
+	 * @param settings the texture settings
+	 * @param listener the listener, called on the OpenGL thread when the request is done, can be null
+	 * @return the texture request
+	 */
+	public TextureRequest load(final String fileName, GLTextureSettings settings, ITextureLoadListener listener){
+		final TextureRequest request = new TextureRequest(fileName, settings, listener);
+		if (shutdown){
+			request.setError(new IllegalStateException("Texture loader was shut down"));
+			decoded.add(request);
+			return request;
+		}
+		pending.incrementAndGet();
+		decodePool.execute(new Runnable() {
+			public void run() {
+				if (!request.isCancelled()){
+					try {
+						PImage image = decoder.decode(fileName);
+						if (image == null || image.width <= 0 || image.height <= 0){
+							throw new IllegalArgumentException("Image couldn't be loaded: " + fileName);
+						}
+						image.loadPixels();
+						request.setImage(image);
+					} catch (Throwable e) {
+						logger.error("Error decoding texture " + fileName + ": " + e);
+						request.setError(e);
+					}
+				}
+				decoded.add(request);
+			}
+		});
+		return request;
+	}
+	
+	
+	/**
+	 * Loads the texture and sets it on the shape when it is ready. Until then, the shape shows the
+	 * placeholder texture. If the texture couldn't be loaded, the placeholder stays.
+	 * <br>Has to be called from the OpenGL thread.
+	 *
+	 * @param shape the shape
+	 * @param fileName the file name or url
+	 * @param settings the texture settings
+	 * @return the texture request
+	 */
+	public TextureRequest loadInto(final AbstractShape shape, String fileName, GLTextureSettings settings){
+		shape.setTexture(this.getPlaceholder());
+		return this.load(fileName, settings, new ITextureLoadListener() {
+			public void textureLoaded(TextureRequest request) {
+				if (request.getTexture() != null){
+					shape.setTexture(request.getTexture());
+				}
+			}
+		});
+	}
+	
+	
+	/**
+	 * Gets the placeholder texture, a small grey texture shared by all requests.
+	 * <br>Has to be called from the OpenGL thread.
+	 *
+	 * @return the placeholder
+	 */
+	public GLTexture getPlaceholder(){
+		if (placeholder == null){
+			PImage image = new PImage(2, 2, PConstants.ARGB);
+			for (int i = 0; i < image.pixels.length; i++) {
+				image.pixels[i] = 0xFF808080;
+			}
+			placeholder = new GLTexture(app, image);
+			//Keep the placeholder alive when the shapes using it are destroyed
+			placeholder.retain();
+		}
+		return placeholder;
+	}
+	
+	
+	/* (non-Javadoc)
+	 * @see org.mt4j.sceneManagement.IPreDrawAction#processAction()
+	 */
+	public void processAction() {
+		this.update();
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.mt4j.sceneManagement.IPreDrawAction#isLoop()
+	 */
+	public boolean isLoop() {
+		return true;
+	}
+	
+	
+	/**
+	 * Starts the uploads of the decoded images and uploads as many bytes as the upload budget allows.
+	 * Called every frame on the OpenGL thread.
+	 */
+	public void update(){
+		TextureRequest request;
+		while ((request = decoded.poll()) != null){
+			if (request.isCancelled()){
+				pending.decrementAndGet();
+			}else if (request.getImage() == null){
+				pending.decrementAndGet();
+				request.complete(null);
+			}else{
+				this.startUpload(request);
+			}
+		}
+		
+		uploadQueue.process();
+	}
+	
+	
+	private void startUpload(final TextureRequest request){
+		PImage image = request.getImage();
+		final GLTexture texture = this.createTexture(image, request.getSettings());
+		texture.loadPImageTexture(image);
+		
+		final boolean mipMaps = texture.getShrinkageFilter().usesMipMapLevels();
+		if (mipMaps && (!GLFBO.isSupported(app) || !Tools3D.isPowerOfTwoDimension(image))){
+			//The mip maps have to be built in software by the texture itself
+			texture.updateGLTextureFromPImage();
+			this.finish(request, texture);
+			return;
+		}
+		
+		uploadQueue.add(new TextureUploadQueue.Upload(texture.getTextureTarget(), texture.getTextureID(), image.width, image.height, image.pixels, new Runnable() {
+			public void run() {
+				if (mipMaps){
+					GL gl = Tools3D.getGL(app);
+					gl.glBindTexture(texture.getTextureTarget(), texture.getTextureID());
+					gl.glGenerateMipmapEXT(texture.getTextureTarget());
+					gl.glBindTexture(texture.getTextureTarget(), 0);
+				}
+				finish(request, texture);
+			}
+		}));
+	}
+	
+	private void finish(TextureRequest request, GLTexture texture){
+		pending.decrementAndGet();
+		if (request.isCancelled()){
+			texture.destroy();
+		}else{
+			request.complete(texture);
+		}
+	}
+	
+	
+	/**
+	 * Creates the texture for a decoded image. Called on the OpenGL thread.
+	 *
+	 * @param image the image
+	 * @param settings the settings
+	 * @return the texture
+	 */
+	protected GLTexture createTexture(PImage image, GLTextureSettings settings){
+		return new GLTexture(app, image.width, image.height, settings);
+	}
+	
+	
+	/**
+	 * Stops the decoding threads and unregisters the loader from the application.
+	 * Requests that are not done yet won't finish.
+	 */
+	public void shutdown(){
+		shutdown = true;
+		decodePool.shutdownNow();
+		if (app != null){
+			app.invokeLater(new Runnable() {
+				public void run() {
+					app.unregisterPreDrawAction(AsyncTextureLoader.this);
+					uploadQueue.getBackend().release();
+					if (placeholder != null){
+						placeholder.release(true);
+						placeholder = null;
+					}
+				}
+			});
+		}
+	}
+	
+	
+	/**
+	 * Gets the number of requests that are not done yet.
+	 *
+	 * @return the pending count
+	 */
+	public int getPendingCount(){
+		return pending.get();
+	}
+	
+	/**
+	 * Gets the number of decoded images waiting for their upload to start.
+	 *
+	 * @return the decoded count
+	 */
+	public int getDecodedCount(){
+		return decoded.size();
+	}
+	
+	/**
+	 * Gets the upload queue.
+	 *
+	 * @return the upload queue
+	 */
+	public TextureUploadQueue getUploadQueue(){
+		return uploadQueue;
+	}
+	
+	/**
+	 * Sets the bytes that may be uploaded per frame.
+	 *
+	 * @param bytesPerFrame the upload budget, 0 for no limit
+	 */
+	public void setUploadBudget(int bytesPerFrame){
+		uploadQueue.setFrameBudget(bytesPerFrame);
+	}
+	
+	/**
+	 * Gets the bytes that may be uploaded per frame.
+	 *
+	 * @return the upload budget
+	 */
+	public int getUploadBudget(){
+		return uploadQueue.getFrameBudget();
+	}
+	
+	/**
+	 * Sets the image decoder, e.g. to load images from another source.
+	 * The default decoder uses <code>PApplet.loadImage()</code>.
+	 *
+	 * @param decoder the new decoder
+	 */
+	public void setDecoder(IImageDecoder decoder){
+		this.decoder = decoder;
+	}
+	
+	/**
+	 * Gets the image decoder.
+	 *
+	 * @return the decoder
+	 */
+	public IImageDecoder getDecoder(){
+		return decoder;
+	}
+	
+}
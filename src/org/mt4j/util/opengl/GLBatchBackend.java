@@ -0,0 +1,169 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.util.opengl;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import javax.media.opengl.GL;
+
+import org.mt4j.util.FrameProfiler;
+import org.mt4j.util.math.Tools3D;
+import org.mt4j.util.math.ToolsBuffers;
+
+import processing.core.PApplet;
+import processing.core.PGraphics3D;
+
+
+/**
+ * Draws the batches of a <code>GeometryBatcher</code> with OpenGL vertex arrays.
+ * The direct buffers are reused and only grow when a batch doesn't fit.
+ */
+public class GLBatchBackend implements IBatchBackend {
+
+	/** The renderer. */
+	private PApplet renderer;
+
+	private FloatBuffer vertBuff;
+	private FloatBuffer colorBuff;
+	private FloatBuffer texBuff;
+	private IntBuffer indexBuff;
+	private FloatBuffer lineVertBuff;
+	private FloatBuffer lineColorBuff;
+	private IntBuffer lineIndexBuff;
+
+	/** The view matrix of the batch. */
+	private float[] view;
+
+
+	/**
+	 * Instantiates a new OpenGL batch backend.
+	 *
+	 * @param renderer the renderer
+	 */
+	public GLBatchBackend(PApplet renderer){
+		this.renderer = renderer;
+		this.view = new float[16];
+	}
+
+
+	/* (non-Javadoc)
+	 * @see org.mt4j.util.opengl.IBatchBackend#drawBatch(org.mt4j.util.opengl.GeometryBatcher)
+	 */
+	public void drawBatch(GeometryBatcher batch) {
+		PGraphics3D g = (PGraphics3D)renderer.g;
+		//The vertices are already in world space - only the view matrix is used
+		g.pushMatrix();
+		batch.getView(view);
+		g.modelview.set(view);
+
+		GL gl = Tools3D.beginGL(g);
+		gl.glEnableClientState(GL.GL_VERTEX_ARRAY);
+		gl.glEnableClientState(GL.GL_COLOR_ARRAY);
+
+		/////// DRAW FILLS ///////
+		int indexCount = batch.getIndexCount();
+		if (indexCount > 0){
+			int vertexCount = batch.getVertexCount();
+			vertBuff = fill(vertBuff, batch.getPositions(), vertexCount * 3);
+			colorBuff = fill(colorBuff, batch.getColors(), vertexCount * 4);
+			indexBuff = fill(indexBuff, batch.getIndices(), indexCount);
+
+			gl.glVertexPointer(3, GL.GL_FLOAT, 0, vertBuff);
+			gl.glColorPointer(4, GL.GL_FLOAT, 0, colorBuff);
+
+			int textureTarget = batch.getTextureTarget();
+			boolean textured = batch.getTextureID() != 0;
+			if (textured){
+				texBuff = fill(texBuff, batch.getTexCoords(), vertexCount * 2);
+				gl.glEnable(textureTarget);
+				FrameProfiler.countTextureBind();
+				gl.glBindTexture(textureTarget, batch.getTextureID());
+				gl.glEnableClientState(GL.GL_TEXTURE_COORD_ARRAY);
+				gl.glTexCoordPointer(2, GL.GL_FLOAT, 0, texBuff);
+			}
+
+			FrameProfiler.countDrawCall();
+			gl.glDrawElements(GL.GL_TRIANGLES, indexCount, GL.GL_UNSIGNED_INT, indexBuff);
+
+			if (textured){
+				gl.glBindTexture(textureTarget, 0);
+				gl.glDisableClientState(GL.GL_TEXTURE_COORD_ARRAY);
+				gl.glDisable(textureTarget);
+			}
+		}
+
+		////////// DRAW OUTLINES ////////
+		int lineIndexCount = batch.getLineIndexCount();
+		if (lineIndexCount > 0){
+			int lineVertexCount = batch.getLineVertexCount();
+			lineVertBuff = fill(lineVertBuff, batch.getLinePositions(), lineVertexCount * 3);
+			lineColorBuff = fill(lineColorBuff, batch.getLineColors(), lineVertexCount * 4);
+			lineIndexBuff = fill(lineIndexBuff, batch.getLineIndices(), lineIndexCount);
+
+			gl.glVertexPointer(3, GL.GL_FLOAT, 0, lineVertBuff);
+			gl.glColorPointer(4, GL.GL_FLOAT, 0, lineColorBuff);
+
+			Tools3D.setLineSmoothEnabled(gl, true);
+			short lineStipple = batch.getLineStipple();
+			if (lineStipple != 0){
+				gl.glLineStipple(1, lineStipple);
+				gl.glEnable(GL.GL_LINE_STIPPLE);
+			}
+			if (batch.getStrokeWeight() > 0){
+				gl.glLineWidth(batch.getStrokeWeight());
+			}
+
+			FrameProfiler.countDrawCall();
+			gl.glDrawElements(GL.GL_LINES, lineIndexCount, GL.GL_UNSIGNED_INT, lineIndexBuff);
+
+			if (lineStipple != 0){
+				gl.glDisable(GL.GL_LINE_STIPPLE);
+			}
+			Tools3D.setLineSmoothEnabled(gl, false);
+		}
+
+		gl.glDisableClientState(GL.GL_VERTEX_ARRAY);
+		gl.glDisableClientState(GL.GL_COLOR_ARRAY);
+		Tools3D.endGL(g);
+
+		g.popMatrix();
+	}
+
+
+	private static FloatBuffer fill(FloatBuffer buffer, float[] data, int length){
+		if (buffer == null || buffer.capacity() < length){
+			buffer = ToolsBuffers.createFloatBuffer(Math.max(length, buffer != null ? buffer.capacity() * 2 : 0));
+		}
+		buffer.clear();
+		buffer.put(data, 0, length);
+		buffer.flip();
+		return buffer;
+	}
+
+	private static IntBuffer fill(IntBuffer buffer, int[] data, int length){
+		if (buffer == null || buffer.capacity() < length){
+			buffer = ToolsBuffers.createIntBuffer(Math.max(length, buffer != null ? buffer.capacity() * 2 : 0));
+		}
+		buffer.clear();
+		buffer.put(data, 0, length);
+		buffer.flip();
+		return buffer;
+	}
+
+}
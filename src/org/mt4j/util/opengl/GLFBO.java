@@ -23,12 +23,12 @@ import java.util.List;
 
 import javax.media.opengl.GL;
 
-import org.mt4j.MTApplication;
 import org.mt4j.util.logging.ILogger;
 import org.mt4j.util.logging.MTLoggerFactory;
 import org.mt4j.util.math.Tools3D;
 import org.mt4j.util.math.ToolsBuffers;
 import org.mt4j.util.math.ToolsMath;
+import org.mt4j.util.opengl.GLResourceManager.ResourceType;
 import org.mt4j.util.opengl.GLTexture.EXPANSION_FILTER;
 import org.mt4j.util.opengl.GLTexture.SHRINKAGE_FILTER;
 import org.mt4j.util.opengl.GLTexture.TEXTURE_TARGET;
@@ -60,6 +60,10 @@ public class GLFBO {
 	private int fboID;
 
 	private int depthRBID;
+	
+	/** The handles of the frame buffer and the depth buffer registered with the resource manager. */
+	private GLResourceManager.Resource fboResource;
+	private GLResourceManager.Resource depthRBResource;
 
 	private int width;
 	private int height;
@@ -154,6 +158,12 @@ public class GLFBO {
 		}
 		
 		gl.glBindFramebufferEXT(GL.GL_FRAMEBUFFER_EXT, 0);
+		
+		GLResourceManager resourceManager = GLResourceManager.getManager(pa);
+		if (resourceManager != null){
+			this.fboResource = resourceManager.register(this, ResourceType.FRAMEBUFFER, fboID, 0);
+			this.depthRBResource = resourceManager.register(this, ResourceType.RENDERBUFFER, depthRBID, 4L * width * height);
+		}
 	}
 	
 	
@@ -394,8 +404,20 @@ public class GLFBO {
 	
 	/**
 	 * Destroys and deallocates this FBO.
+	 * If it is registered with the resource manager, it is deleted by the manager 
+	 * at the beginning of the next frame.
 	 */
 	public void destroy() {
+		if (fboResource != null){
+			GLResourceManager resourceManager = GLResourceManager.getManager(pa);
+			resourceManager.release(fboResource);
+			resourceManager.release(depthRBResource);
+			fboResource = null;
+			depthRBResource = null;
+			fboID = 0;
+			depthRBID = 0;
+		}
+		
 		if (fboID > 0) {
 			final IntBuffer id = ToolsBuffers.createIntBuffer(1);
 			id.put(fboID);
@@ -415,23 +437,6 @@ public class GLFBO {
 		this.textures.clear();
 	}
 	
-	@Override
-	protected void finalize() throws Throwable {
-		logger.debug("Finalizing - " + this);
-		if (this.pa instanceof MTApplication) {
-			MTApplication mtApp = (MTApplication) this.pa;
-			mtApp.invokeLater(new Runnable() {
-				public void run() {
-					destroy();
-				}
-			});
-		}else{
-			//TODO use registerPre()?
-			//is the object even valid after finalize() is called??
-		}
-		super.finalize();
-	}
-
 	public boolean isStencilBufferAttached() {
 		return stencilBufferAttached;
 	}
@@ -0,0 +1,77 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.util.opengl;
+
+import javax.media.opengl.GL;
+
+import org.mt4j.util.math.Tools3D;
+import org.mt4j.util.opengl.GLResourceManager.ResourceType;
+
+import processing.core.PApplet;
+
+
+/**
+ * Deletes the OpenGL objects queued by a <code>GLResourceManager</code> with OpenGL.
+ * It has to be used from the OpenGL thread.
+ */
+public class GLResourceDeleter implements IGLResourceDeleter {
+	
+	/** The renderer. */
+	private PApplet renderer;
+	
+	
+	/**
+	 * Instantiates a new OpenGL resource deleter.
+	 *
+	 * @param renderer the renderer
+	 */
+	public GLResourceDeleter(PApplet renderer){
+		this.renderer = renderer;
+	}
+	
+
+	/* (non-Javadoc)
+	 * @see org.mt4j.util.opengl.IGLResourceDeleter#deleteResources(org.mt4j.util.opengl.GLResourceManager.ResourceType, int[], int, int)
+	 */
+	public void deleteResources(ResourceType type, int[] ids, int offset, int count) {
+		GL gl = Tools3D.getGL(renderer);
+		switch (type) {
+		case TEXTURE:
+			gl.glDeleteTextures(count, ids, offset);
+			break;
+		case BUFFER:
+			gl.glDeleteBuffersARB(count, ids, offset);
+			break;
+		case FRAMEBUFFER:
+			gl.glDeleteFramebuffersEXT(count, ids, offset);
+			break;
+		case RENDERBUFFER:
+			gl.glDeleteRenderbuffersEXT(count, ids, offset);
+			break;
+		case DISPLAY_LIST:
+			//Display lists can only be deleted in ranges of consecutive ids
+			for (int i = offset; i < offset + count; i++) {
+				gl.glDeleteLists(ids[i], 1);
+			}
+			break;
+		default:
+			break;
+		}
+	}
+
+}
@@ -0,0 +1,523 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.util.opengl;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.mt4j.MTApplication;
+import org.mt4j.util.logging.ILogger;
+import org.mt4j.util.logging.MTLoggerFactory;
+
+import processing.core.PApplet;
+
+
+/**
+ * Keeps track of the OpenGL objects (textures, buffers, frame buffers, render buffers and 
+ * display lists) and deletes them in the rendering thread.
+ * <p>
+ * The owner of an OpenGL object registers a handle for it and releases the handle when
+ * it doesnt need the object anymore. The objects are reference counted: several owners can
+ * register handles for the same object, it is only deleted after all handles are released.
+ * <br>If an owner is garbage collected without releasing its handles, they are released
+ * automatically, so the owners dont need a <code>finalize()</code> method. The handles dont 
+ * keep their owners from being collected.
+ * <p>
+ * The deletions are queued and run by <code>processDeletions()</code> at the beginning of a frame.
+ * At most <code>getMaxDeletionsPerFrame()</code> objects are deleted per frame, so destroying a 
+ * large scene doesnt cause a long frame.
+ * <br>The estimated memory used by the objects is counted by the class of the owners, 
+ * see <code>getUsageByOwner()</code> and <code>getReport()</code>.
+ * <p>
+ * Handles can be registered and released from any thread, <code>processDeletions()</code> 
+ * has to be called by the rendering thread.
+ */
+public class GLResourceManager {
+	private static final ILogger logger = MTLoggerFactory.getLogger(GLResourceManager.class.getName());
+	static{
+		logger.setLevel(ILogger.WARN);
+	}
+	
+	/**
+	 * The type of an OpenGL object.
+	 */
+	public enum ResourceType{
+		/** A texture object. */
+		TEXTURE,
+		/** A vertex buffer object. */
+		BUFFER,
+		/** A frame buffer object. */
+		FRAMEBUFFER,
+		/** A render buffer object. */
+		RENDERBUFFER,
+		/** A display list. */
+		DISPLAY_LIST
+	}
+	
+	/** The default maximum number of objects deleted per frame. */
+	public static final int DEFAULT_MAX_DELETIONS_PER_FRAME = 64;
+	
+	/** The deleter. */
+	private final IGLResourceDeleter deleter;
+	
+	/** The queue the handles of collected owners are enqueued in. */
+	private final ReferenceQueue<Object> collectedOwners;
+	
+	/** The registered handles. Keeps the handles reachable until they are released. */
+	private final Set<Resource> handles;
+	
+	/** The number of handles by object. */
+	private final Map<Long, int[]> referenceCounts;
+	
+	/** The objects waiting to be deleted. */
+	private final ArrayDeque<Resource> pendingDeletions;
+	
+	/** The max deletions per frame, 0 if unbounded. */
+	private int maxDeletionsPerFrame;
+	
+	private ResourceType[] deletionTypes;
+	private int[] deletionIDs;
+	
+	private int lastDeleted;
+	private long totalDeleted;
+	private long totalCollected;
+	
+	
+	/**
+	 * Instantiates a new resource manager with the default maximum deletions per frame.
+	 *
+	 * @param deleter the deleter
+	 */
+	public GLResourceManager(IGLResourceDeleter deleter){
+		this(deleter, DEFAULT_MAX_DELETIONS_PER_FRAME);
+	}
+	
+	/**
+	 * Instantiates a new resource manager.
+	 *
+	 * @param deleter the deleter
+	 * @param maxDeletionsPerFrame the max deletions per frame, 0 for no limit
+	 */
+	public GLResourceManager(IGLResourceDeleter deleter, int maxDeletionsPerFrame){
+		if (deleter == null){
+			throw new IllegalArgumentException("Deleter is null");
+		}
+		this.deleter = deleter;
+		this.collectedOwners = new ReferenceQueue<Object>();
+		this.handles = new HashSet<Resource>();
+		this.referenceCounts = new HashMap<Long, int[]>();
+		this.pendingDeletions = new ArrayDeque<Resource>();
+		this.deletionTypes = new ResourceType[16];
+		this.deletionIDs = new int[16];
+		this.setMaxDeletionsPerFrame(maxDeletionsPerFrame);
+	}
+	
+	
+	/**
+	 * Gets the resource manager of the application. 
+	 * 
+	 * @param app the application
+	 * @return the resource manager or null if the application isnt a <code>MTApplication</code>
+	 */
+	public static GLResourceManager getManager(PApplet app){
+		if (app instanceof MTApplication) {
+			return ((MTApplication) app).getGLResourceManager();
+		}
+		return null;
+	}
+	
+	
+	/**
+	 * Registers a handle for an OpenGL object.
+	 * If the owner is garbage collected before the handle is released, it is released automatically.
+	 *
+	 * @param owner the owner
+	 * @param type the type of the object
+	 * @param id the id (name) of the object
+	 * @param bytes the estimated memory used by the object
+	 * @return the handle
+	 */
+	public Resource register(Object owner, ResourceType type, int id, long bytes){
+		if (owner == null || type == null){
+			throw new IllegalArgumentException("Owner or type is null");
+		}
+		if (id <= 0){
+			throw new IllegalArgumentException("Invalid " + type + " id: " + id);
+		}
+		Resource handle = new Resource(owner, collectedOwners, type, id, bytes);
+		synchronized (handles) {
+			handles.add(handle);
+			Long key = getKey(type, id);
+			int[] count = referenceCounts.get(key);
+			if (count == null){
+				count = new int[1];
+				referenceCounts.put(key, count);
+			}
+			count[0]++;
+		}
+		return handle;
+	}
+	
+	
+	/**
+	 * Releases a handle. If it was the last handle of its object, the object is queued for deletion.
+	 * Releasing a handle twice has no effect.
+	 *
+	 * @param handle the handle
+	 * @return true, if the object was queued for deletion
+	 */
+	public boolean release(Resource handle){
+		if (handle == null){
+			return false;
+		}
+		handle.clear();
+		synchronized (handles) {
+			if (!handles.remove(handle)){
+				return false;
+			}
+			return this.removeReference(handle);
+		}
+	}
+	
+	
+	private boolean removeReference(Resource handle){
+		Long key = getKey(handle.type, handle.id);
+		int[] count = referenceCounts.get(key);
+		if (count != null && --count[0] > 0){
+			return false;
+		}
+		referenceCounts.remove(key);
+		pendingDeletions.addLast(handle);
+		return true;
+	}
+	
+	
+	/**
+	 * Releases the handles of collected owners and deletes the queued objects,
+	 * at most <code>getMaxDeletionsPerFrame()</code>. 
+	 * Has to be called by the rendering thread.
+	 *
+	 * @return the number of deleted objects
+	 */
+	public int processDeletions(){
+		Resource collected;
+		while ((collected = (Resource) collectedOwners.poll()) != null){
+			synchronized (handles) {
+				if (handles.remove(collected)){
+					totalCollected++;
+					logger.debug("Releasing " + collected + " of a collected " + collected.ownerType);
+					this.removeReference(collected);
+				}
+			}
+		}
+		
+		int count;
+		synchronized (handles) {
+			count = pendingDeletions.size();
+			if (maxDeletionsPerFrame > 0 && count > maxDeletionsPerFrame){
+				count = maxDeletionsPerFrame;
+			}
+			if (deletionIDs.length < count){
+				deletionIDs = new int[Math.max(count, deletionIDs.length * 2)];
+				deletionTypes = new ResourceType[deletionIDs.length];
+			}
+			for (int i = 0; i < count; i++) {
+				Resource handle = pendingDeletions.pollFirst();
+				deletionTypes[i] = handle.type;
+				deletionIDs[i] = handle.id;
+			}
+		}
+		
+		//Delete runs of the same type with one call
+		int start = 0;
+		for (int i = 1; i <= count; i++) {
+			if (i == count || deletionTypes[i] != deletionTypes[start]){
+				deleter.deleteResources(deletionTypes[start], deletionIDs, start, i - start);
+				start = i;
+			}
+		}
+		for (int i = 0; i < count; i++) {
+			deletionTypes[i] = null;
+		}
+		lastDeleted = count;
+		totalDeleted += count;
+		return count;
+	}
+	
+	
+	private static Long getKey(ResourceType type, int id){
+		return Long.valueOf(((long) type.ordinal() << 32) | (id & 0xffffffffL));
+	}
+	
+	
+	/**
+	 * Gets the number of handles registered for an object.
+	 *
+	 * @param type the type of the object
+	 * @param id the id of the object
+	 * @return the reference count
+	 */
+	public int getReferenceCount(ResourceType type, int id){
+		synchronized (handles) {
+			int[] count = referenceCounts.get(getKey(type, id));
+			return count != null ? count[0] : 0;
+		}
+	}
+	
+	/**
+	 * Gets the number of registered handles.
+	 *
+	 * @return the handle count
+	 */
+	public int getHandleCount(){
+		synchronized (handles) {
+			return handles.size();
+		}
+	}
+	
+	/**
+	 * Gets the number of objects waiting to be deleted.
+	 *
+	 * @return the pending count
+	 */
+	public int getPendingCount(){
+		synchronized (handles) {
+			return pendingDeletions.size();
+		}
+	}
+	
+	/**
+	 * Gets the number of objects deleted in the last call of <code>processDeletions()</code>.
+	 *
+	 * @return the last deleted count
+	 */
+	public int getLastDeletedCount() {
+		return lastDeleted;
+	}
+	
+	/**
+	 * Gets the number of deleted objects.
+	 *
+	 * @return the total deleted count
+	 */
+	public long getTotalDeletedCount() {
+		return totalDeleted;
+	}
+	
+	/**
+	 * Gets the number of handles that were released because their owner was garbage
+	 * collected. These are resources that should have been destroyed explicitly.
+	 *
+	 * @return the collected count
+	 */
+	public long getCollectedCount() {
+		return totalCollected;
+	}
+	
+	/**
+	 * Gets the max deletions per frame.
+	 *
+	 * @return the max deletions per frame, 0 if unbounded
+	 */
+	public int getMaxDeletionsPerFrame() {
+		return maxDeletionsPerFrame;
+	}
+
+	/**
+	 * Sets the maximum number of objects deleted per frame. 
+	 *
+	 * @param maxDeletionsPerFrame the max deletions per frame, 0 for no limit
+	 */
+	public void setMaxDeletionsPerFrame(int maxDeletionsPerFrame) {
+		this.maxDeletionsPerFrame = Math.max(0, maxDeletionsPerFrame);
+	}
+	
+	
+	/**
+	 * Gets the number of handles and the estimated memory of the registered objects, by
+	 * the class of their owners. Sorted by memory, largest first.
+	 *
+	 * @return the usage by owner
+	 */
+	public List<Usage> getUsageByOwner(){
+		Map<String, Usage> usageByOwner = new HashMap<String, Usage>();
+		synchronized (handles) {
+			for (Resource handle : handles) {
+				Usage usage = usageByOwner.get(handle.ownerType);
+				if (usage == null){
+					usage = new Usage(handle.ownerType);
+					usageByOwner.put(handle.ownerType, usage);
+				}
+				usage.counts[handle.type.ordinal()]++;
+				usage.bytes += handle.bytes;
+			}
+		}
+		List<Usage> result = new ArrayList<Usage>(usageByOwner.values());
+		Collections.sort(result, new Comparator<Usage>() {
+			public int compare(Usage u1, Usage u2) {
+				if (u1.bytes != u2.bytes){
+					return u1.bytes > u2.bytes ? -1 : 1;
+				}
+				return u1.ownerType.compareTo(u2.ownerType);
+			}
+		});
+		return result;
+	}
+	
+	
+	/**
+	 * Gets a readable report of the OpenGL objects and their estimated memory by owner class.
+	 *
+	 * @return the report
+	 */
+	public String getReport(){
+		List<Usage> usages = this.getUsageByOwner();
+		long bytes = 0;
+		for (Usage usage : usages) {
+			bytes += usage.bytes;
+		}
+		StringBuilder sb = new StringBuilder();
+		sb.append("OpenGL resources: ").append(this.getHandleCount()).append(" handles, ")
+		.append(bytes / 1024).append(" KB, ")
+		.append(this.getPendingCount()).append(" pending deletions, ")
+		.append(totalDeleted).append(" deleted, ")
+		.append(totalCollected).append(" released by garbage collection");
+		for (Usage usage : usages) {
+			sb.append("\n  ").append(usage.ownerType).append(": ").append(usage.bytes / 1024).append(" KB");
+			for (ResourceType type : ResourceType.values()) {
+				if (usage.getCount(type) > 0){
+					sb.append(", ").append(usage.getCount(type)).append(" ").append(type);
+				}
+			}
+		}
+		return sb.toString();
+	}
+	
+	
+	/**
+	 * A handle for an OpenGL object registered by an owner.
+	 */
+	public static class Resource extends PhantomReference<Object> {
+		private final ResourceType type;
+		private final int id;
+		private final long bytes;
+		private final String ownerType;
+		
+		private Resource(Object owner, ReferenceQueue<Object> queue, ResourceType type, int id, long bytes){
+			super(owner, queue);
+			this.type = type;
+			this.id = id;
+			this.bytes = bytes;
+			this.ownerType = owner.getClass().getName();
+		}
+		
+		/**
+		 * Gets the type of the object.
+		 *
+		 * @return the type
+		 */
+		public ResourceType getType() {
+			return type;
+		}
+		
+		/**
+		 * Gets the id of the object.
+		 *
+		 * @return the id
+		 */
+		public int getID() {
+			return id;
+		}
+		
+		/**
+		 * Gets the estimated memory used by the object.
+		 *
+		 * @return the bytes
+		 */
+		public long getBytes() {
+			return bytes;
+		}
+		
+		/**
+		 * Gets the class name of the owner.
+		 *
+		 * @return the owner type
+		 */
+		public String getOwnerType() {
+			return ownerType;
+		}
+		
+		@Override
+		public String toString() {
+			return type + " " + id;
+		}
+	}
+	
+	
+	/**
+	 * The OpenGL objects of the owners of one class.
+	 */
+	public static class Usage {
+		private final String ownerType;
+		private final int[] counts;
+		private long bytes;
+		
+		private Usage(String ownerType){
+			this.ownerType = ownerType;
+			this.counts = new int[ResourceType.values().length];
+		}
+		
+		/**
+		 * Gets the class name of the owners.
+		 *
+		 * @return the owner type
+		 */
+		public String getOwnerType() {
+			return ownerType;
+		}
+		
+		/**
+		 * Gets the number of handles of a type.
+		 *
+		 * @param type the type
+		 * @return the count
+		 */
+		public int getCount(ResourceType type) {
+			return counts[type.ordinal()];
+		}
+		
+		/**
+		 * Gets the estimated memory of the objects.
+		 *
+		 * @return the bytes
+		 */
+		public long getBytes() {
+			return bytes;
+		}
+	}
+
+}
@@ -25,6 +25,7 @@ import javax.media.opengl.glu.GLU;
 import org.mt4j.MTApplication;
 import org.mt4j.util.math.Tools3D;
 import org.mt4j.util.math.ToolsMath;
+import org.mt4j.util.opengl.GLResourceManager.ResourceType;
 
 import processing.core.PApplet;
 import processing.core.PConstants;
@@ -38,6 +39,9 @@ import com.sun.opengl.util.BufferUtil;
  * It holds a texture which can be used by processing and OpenGL. It allows to load, configure and update the OpenGL texture object as well
  * as Processing's PImage superclass.
  * If the texture isnt neeeded anymore, the destroy() method has to be called.
+ * Textures shared by several shapes are reference counted, see <code>retain()</code> and <code>release()</code>.
+ * The OpenGL texture object is registered with the application's <code>GLResourceManager</code>, so it
+ * is also deleted if the texture is garbage collected without being destroyed.
  *
  * @author Christopher Ruff
  */
@@ -225,6 +229,12 @@ public class GLTexture extends PImage {
 	
 	protected int[] glTextureID = { 0 } ;
 	
+	/** The handle of the texture object registered with the resource manager. */
+	private GLResourceManager.Resource glResource;
+	
+	/** The number of users (e.g. shapes) of this texture. */
+	private int useCount;
+	
 	private GLTextureSettings glTextureSettings;
 	
 	private int internalFormat;
@@ -236,7 +246,7 @@ public class GLTexture extends PImage {
 	
 	//FIXME too many isPowerOfTwo checks (see space3d example texture creation)
 	
-	//TODO implement PBO texture upload
+	//PBO texture uploads are done by the GLTextureUploadBackend of the AsyncTextureLoader
 	//TODO initialize so that only the GLTexture object is initialized or nothing
 	
 	//TODO if shape useOpenGL/useProcessing changes check if PImage or OpenGL texture object is initialized and do if it isnt - on demand!
@@ -518,6 +528,14 @@ public class GLTexture extends PImage {
 
 		//Create the texture object
 		gl.glGenTextures(1, glTextureID, 0);
+		GLResourceManager resourceManager = GLResourceManager.getManager(app);
+		if (resourceManager != null){
+			long bytes = 4L * width * height;
+			if (glTextureSettings.shrinkFilter.usesMipMapLevels()){
+				bytes += bytes / 3;
+			}
+			this.glResource = resourceManager.register(this, ResourceType.TEXTURE, glTextureID[0], bytes);
+		}
 		//Bind the texture
 		gl.glBindTexture(textureTarget, glTextureID[0]);
 		//SET texture mag/min FILTER mode
@@ -768,14 +786,56 @@ public class GLTexture extends PImage {
 
 	/**
      * Deletes the opengl texture object.
+     * If it is registered with the resource manager, it is deleted by the manager 
+     * at the beginning of the next frame.
      */
     public void destroy(){
-    	if (this.glTextureID[0] != 0){
+    	if (this.glResource != null){
+    		GLResourceManager.getManager(app).release(this.glResource);
+    		this.glResource = null;
+    		this.glTextureID[0] = 0;
+    	}else if (this.glTextureID[0] != 0){
 	        gl.glDeleteTextures(1, this.glTextureID, 0);  
 	        this.glTextureID[0] = 0;
     	}
-    	
-//    	releasePBO(); //FIXME implement
+    }
+    
+    
+    /**
+     * Registers a user of this texture, e.g. a shape it is applied to. 
+     * Has to be balanced with a call to <code>release()</code>.
+     */
+    public void retain(){
+    	this.useCount++;
+    }
+    
+    
+    /**
+     * Unregisters a user of this texture. 
+     * If it was the last user and <code>destroyIfUnused</code> is true, the texture is destroyed.
+     *
+     * @param destroyIfUnused whether to destroy the texture if it isnt used anymore
+     * @return true, if the texture was destroyed
+     */
+    public boolean release(boolean destroyIfUnused){
+    	if (this.useCount > 0){
+    		this.useCount--;
+    	}
+    	if (this.useCount == 0 && destroyIfUnused){
+    		this.destroy();
+    		return true;
+    	}
+    	return false;
+    }
+    
+    
+    /**
+     * Gets the number of users of this texture registered with <code>retain()</code>.
+     *
+     * @return the use count
+     */
+    public int getUseCount(){
+    	return this.useCount;
     }
     
     
@@ -1098,23 +1158,5 @@ public class GLTexture extends PImage {
      border; POTS textures do support an optional 1-texel border.
 
 	 */
-	
-	
-	@Override
-	protected void finalize() throws Throwable {
-		//System.out.println("Finalizing GLTEXTURE - " + this);
-		if (this.app instanceof MTApplication) {
-			MTApplication mtApp = (MTApplication) this.app;
-			mtApp.invokeLater(new Runnable() {
-				public void run() {
-					destroy();
-				}
-			});
-		}else{
-			//TODO use registerPre()?
-			//is the object even valid after finalize() is called??
-		}
-		super.finalize();
-	}
 
 }
@@ -0,0 +1,125 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.util.opengl;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+import javax.media.opengl.GL;
+
+import org.mt4j.util.math.Tools3D;
+
+import processing.core.PApplet;
+
+
+/**
+ * Uploads texture strips with OpenGL. The pixels are uploaded as <code>GL_BGRA/GL_UNSIGNED_BYTE</code>
+ * like in <code>GLTexture.updateGLTexture()</code>.
+ * <p>
+ * If the <code>GL_ARB_pixel_buffer_object</code> extension is available, the rows are copied 
+ * into a streaming pixel buffer object first and the texture is updated from it, so the driver
+ * can do the transfer asynchronously. The buffer storage is orphaned for each strip, so we
+ * never wait for the previous transfer.
+ */
+public class GLTextureUploadBackend implements ITextureUploadBackend {
+	
+	/** The renderer. */
+	private PApplet renderer;
+	
+	/** The pixel buffer object. */
+	private final int[] pixelBuffer = { 0 };
+	
+	/** Whether pixel buffer objects are used, null until checked. */
+	private Boolean usePixelBuffers;
+	
+	
+	/**
+	 * Instantiates a new OpenGL texture upload backend.
+	 *
+	 * @param renderer the renderer
+	 */
+	public GLTextureUploadBackend(PApplet renderer){
+		this.renderer = renderer;
+	}
+	
+	
+	/* (non-Javadoc)
+	 * @see org.mt4j.util.opengl.ITextureUploadBackend#uploadRows(int, int, int, int, int, int[], int)
+	 */
+	public void uploadRows(int target, int textureID, int width, int yOffset, int rows, int[] pixels, int offset) {
+		GL gl = Tools3D.getGL(renderer);
+		if (usePixelBuffers == null){
+			usePixelBuffers = gl.isExtensionAvailable("GL_ARB_pixel_buffer_object");
+		}
+		int count = rows * width;
+		gl.glBindTexture(target, textureID);
+		
+		boolean uploaded = false;
+		if (usePixelBuffers){
+			if (pixelBuffer[0] == 0){
+				gl.glGenBuffers(1, pixelBuffer, 0);
+			}
+			gl.glBindBuffer(GL.GL_PIXEL_UNPACK_BUFFER_ARB, pixelBuffer[0]);
+			gl.glBufferData(GL.GL_PIXEL_UNPACK_BUFFER_ARB, count * 4, null, GL.GL_STREAM_DRAW);
+			ByteBuffer mapped = gl.glMapBuffer(GL.GL_PIXEL_UNPACK_BUFFER_ARB, GL.GL_WRITE_ONLY);
+			if (mapped != null){
+				mapped.order(ByteOrder.nativeOrder()).asIntBuffer().put(pixels, offset, count);
+				gl.glUnmapBuffer(GL.GL_PIXEL_UNPACK_BUFFER_ARB);
+				gl.glTexSubImage2D(target, 0, 0, yOffset, width, rows, GL.GL_BGRA, GL.GL_UNSIGNED_BYTE, 0L);
+				uploaded = true;
+			}
+			gl.glBindBuffer(GL.GL_PIXEL_UNPACK_BUFFER_ARB, 0);
+		}
+		
+		if (!uploaded){
+			gl.glTexSubImage2D(target, 0, 0, yOffset, width, rows, GL.GL_BGRA, GL.GL_UNSIGNED_BYTE, IntBuffer.wrap(pixels, offset, count));
+		}
+		gl.glBindTexture(target, 0);
+	}
+	
+	
+	/* (non-Javadoc)
+	 * @see org.mt4j.util.opengl.ITextureUploadBackend#release()
+	 */
+	public void release() {
+		if (pixelBuffer[0] != 0){
+			Tools3D.getGL(renderer).glDeleteBuffers(1, pixelBuffer, 0);
+			pixelBuffer[0] = 0;
+		}
+	}
+	
+	/**
+	 * Checks if pixel buffer objects are used. Known after the first upload.
+	 *
+	 * @return true, if pixel buffers are used
+	 */
+	public boolean isUsingPixelBuffers(){
+		return usePixelBuffers != null && usePixelBuffers;
+	}
+	
+	/**
+	 * Sets whether pixel buffer objects are used. By default they are used if the extension is available.
+	 *
+	 * @param usePixelBuffers whether to use pixel buffers
+	 */
+	public void setUsePixelBuffers(boolean usePixelBuffers){
+		this.usePixelBuffers = usePixelBuffers;
+	}
+	
+}
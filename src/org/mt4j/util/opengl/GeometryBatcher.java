@@ -0,0 +1,724 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.util.opengl;
+
+import javax.media.opengl.GL;
+
+import org.mt4j.util.MTColor;
+import org.mt4j.util.math.Matrix;
+import org.mt4j.util.math.Vertex;
+
+
+/**
+ * Collects the geometry of consecutive shapes into one vertex and index buffer
+ * so that they can be drawn with a single draw call per batch.
+ * <p>
+ * The vertices are transformed into world space by the global matrix of their shape
+ * when they are added. The fill geometry is converted to an indexed triangle list,
+ * the outline to an indexed line list. A batch is drawn by the <code>IBatchBackend</code>
+ * when it is flushed - because the texture or the line settings of the next shape
+ * differ, the batch is full, the view changes or the flush is requested explicitly.
+ * <p>
+ * All fills of a batch are drawn before all its outlines. To keep the drawing order
+ * intact the batch is flushed before a filled shape is added that overlaps the
+ * outline of an earlier shape of the batch on the x/y plane.
+ * <p>
+ * This class doesn't use OpenGL itself, so it can be used with a recording
+ * backend without a graphics context.
+ */
+public class GeometryBatcher {
+
+	/** The default maximum number of vertices of a batch. */
+	public static final int DEFAULT_MAX_BATCH_VERTICES = 16384;
+
+	/** The maximum number of outlines that are checked for overlaps before the batch is flushed. */
+	private static final int MAX_OUTLINE_CHECKS = 1024;
+
+	/** The backend drawing the batches. */
+	private IBatchBackend backend;
+
+	/** The maximum number of vertices of a batch. */
+	private int maxBatchVertices;
+
+	//Fill geometry
+	private float[] positions;
+	private float[] colors;
+	private float[] texCoords;
+	private int vertexCount;
+	private int[] indices;
+	private int indexCount;
+
+	//Outline geometry
+	private float[] linePositions;
+	private float[] lineColors;
+	private int lineVertexCount;
+	private int[] lineIndices;
+	private int lineIndexCount;
+
+	//Batch state
+	private boolean textureStateSet;
+	private int textureTarget;
+	private int textureID;
+	private boolean lineStateSet;
+	private float strokeWeight;
+	private short lineStipple;
+	private int pendingShapes;
+
+	/** The x/y bounds (minX, minY, maxX, maxY) of the outlines in the batch. */
+	private float[] outlineBounds;
+	private int outlineCount;
+
+	/** The view matrices (row major), the current one is on top. */
+	private float[] viewStack;
+	private int viewDepth;
+
+	/** Temporary x/y bounds of the shape being added. */
+	private float[] shapeBounds;
+
+	private int batchCount;
+	private int batchedShapeCount;
+
+
+	/**
+	 * Instantiates a new geometry batcher.
+	 *
+	 * @param backend the backend drawing the batches
+	 */
+	public GeometryBatcher(IBatchBackend backend){
+		this.backend = backend;
+		this.maxBatchVertices = DEFAULT_MAX_BATCH_VERTICES;
+
+		this.positions 		= new float[256 * 3];
+		this.colors 		= new float[256 * 4];
+		this.texCoords 		= new float[256 * 2];
+		this.indices 		= new int[256 * 3];
+		this.linePositions 	= new float[256 * 3];
+		this.lineColors 	= new float[256 * 4];
+		this.lineIndices 	= new int[256 * 2];
+		this.outlineBounds 	= new float[64 * 4];
+		this.shapeBounds 	= new float[4];
+
+		this.viewStack = new float[4 * 16];
+		this.viewDepth = 1;
+		this.setIdentity(viewStack, 0);
+	}
+
+
+	/**
+	 * Checks if shapes with the fill draw mode can be batched.
+	 *
+	 * @param fillDrawMode the fill draw mode
+	 * @return true, if the draw mode is supported
+	 */
+	public static boolean isSupportedDrawMode(int fillDrawMode){
+		switch (fillDrawMode) {
+		case GL.GL_TRIANGLES:
+		case GL.GL_TRIANGLE_STRIP:
+		case GL.GL_TRIANGLE_FAN:
+		case GL.GL_POLYGON:
+		case GL.GL_QUADS:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+
+	/**
+	 * Starts a new frame with the view matrix. Discards the view stack
+	 * of the last frame.
+	 *
+	 * @param view the view matrix (row major)
+	 */
+	public void beginFrame(float[] view){
+		this.flush();
+		this.viewDepth = 1;
+		System.arraycopy(view, 0, viewStack, 0, 16);
+	}
+
+
+	/**
+	 * Flushes the batch and makes the view matrix current,
+	 * for example when a component with an attached camera is drawn.
+	 *
+	 * @param view the view matrix (row major)
+	 */
+	public void pushView(float[] view){
+		this.flush();
+		if ((viewDepth + 1) * 16 > viewStack.length){
+			float[] newStack = new float[viewStack.length * 2];
+			System.arraycopy(viewStack, 0, newStack, 0, viewStack.length);
+			viewStack = newStack;
+		}
+		System.arraycopy(view, 0, viewStack, viewDepth * 16, 16);
+		viewDepth++;
+	}
+
+
+	/**
+	 * Flushes the batch and restores the previous view matrix.
+	 */
+	public void popView(){
+		this.flush();
+		if (viewDepth > 1){
+			viewDepth--;
+		}
+	}
+
+
+	/**
+	 * Adds the geometry of a shape to the batch.
+	 *
+	 * @param globalMatrix the global matrix of the shape
+	 * @param vertices the vertices in local space, with their color and texture coordinates
+	 * @param vertexIndices the indices, or null if the geometry isn't indexed
+	 * @param fillDrawMode the fill draw mode
+	 * @param noFill if the fill isn't drawn
+	 * @param texTarget the texture target, ignored if the texture id is 0
+	 * @param texID the texture id, 0 for no texture
+	 * @param noStroke if the outline isn't drawn
+	 * @param strokeColor the stroke color
+	 * @param weight the stroke weight
+	 * @param stipple the line stipple pattern
+	 * @return true, if the shape was added - false if the draw mode isn't supported
+	 */
+	public boolean add(Matrix globalMatrix, Vertex[] vertices, int[] vertexIndices, int fillDrawMode,
+			boolean noFill, int texTarget, int texID,
+			boolean noStroke, MTColor strokeColor, float weight, short stipple){
+		if (!isSupportedDrawMode(fillDrawMode)){
+			return false;
+		}
+		int count = vertices.length;
+		int sequenceLength = vertexIndices != null ? vertexIndices.length : count;
+		boolean fill = !noFill && sequenceLength >= 3;
+		boolean stroke = !noStroke && sequenceLength >= 2;
+		if (!fill && !stroke){
+			return true;
+		}
+		if (texTarget == 0){
+			texID = 0;
+		}
+
+		//Flush if the state of the shape doesn't match the batch
+		if (pendingShapes > 0){
+			boolean compatible = true;
+			if (fill && textureStateSet && (texID != textureID || (texID != 0 && texTarget != textureTarget))){
+				compatible = false;
+			}
+			if (stroke && lineStateSet && (weight != strokeWeight || stipple != lineStipple)){
+				compatible = false;
+			}
+			if ((fill ? vertexCount + count : vertexCount) > maxBatchVertices
+				|| (stroke ? lineVertexCount + count : lineVertexCount) > maxBatchVertices
+				|| outlineCount >= MAX_OUTLINE_CHECKS
+			){
+				compatible = false;
+			}
+			if (compatible && fill && outlineCount > 0){
+				this.computeBounds(globalMatrix, vertices);
+				compatible = !this.overlapsOutline();
+			}
+			if (!compatible){
+				this.flush();
+			}
+		}
+
+		if (fill){
+			if (!textureStateSet){
+				textureStateSet = true;
+				textureID = texID;
+				textureTarget = texID != 0 ? texTarget : 0;
+			}
+			this.addFill(globalMatrix, vertices, vertexIndices, sequenceLength, fillDrawMode);
+		}
+		if (stroke){
+			if (!lineStateSet){
+				lineStateSet = true;
+				strokeWeight = weight;
+				lineStipple = stipple;
+			}
+			this.addOutline(globalMatrix, vertices, vertexIndices, sequenceLength, strokeColor);
+		}
+		pendingShapes++;
+		return true;
+	}
+
+
+	private void addFill(Matrix m, Vertex[] vertices, int[] vertexIndices, int sequenceLength, int fillDrawMode){
+		int count = vertices.length;
+		int base = vertexCount;
+		this.ensureFillCapacity(base + count);
+		for (int i = 0; i < count; i++) {
+			Vertex v = vertices[i];
+			int p = (base + i) * 3;
+			this.transform(m, v, positions, p);
+			int c = (base + i) * 4;
+			colors[c] 		= v.getR() / 255f;
+			colors[c + 1] 	= v.getG() / 255f;
+			colors[c + 2] 	= v.getB() / 255f;
+			colors[c + 3] 	= v.getA() / 255f;
+			int t = (base + i) * 2;
+			texCoords[t] 	 = v.getTexCoordU();
+			texCoords[t + 1] = v.getTexCoordV();
+		}
+		vertexCount += count;
+
+		switch (fillDrawMode) {
+		case GL.GL_TRIANGLES:
+			for (int i = 0; i + 2 < sequenceLength; i += 3) {
+				this.addTriangle(base, vertexIndices, i, i + 1, i + 2);
+			}
+			break;
+		case GL.GL_TRIANGLE_STRIP:
+			for (int i = 0; i + 2 < sequenceLength; i++) {
+				if (i % 2 == 0){
+					this.addTriangle(base, vertexIndices, i, i + 1, i + 2);
+				}else{
+					this.addTriangle(base, vertexIndices, i + 1, i, i + 2);
+				}
+			}
+			break;
+		case GL.GL_QUADS:
+			for (int i = 0; i + 3 < sequenceLength; i += 4) {
+				this.addTriangle(base, vertexIndices, i, i + 1, i + 2);
+				this.addTriangle(base, vertexIndices, i, i + 2, i + 3);
+			}
+			break;
+		default: //GL_TRIANGLE_FAN, GL_POLYGON
+			for (int i = 1; i + 1 < sequenceLength; i++) {
+				this.addTriangle(base, vertexIndices, 0, i, i + 1);
+			}
+			break;
+		}
+	}
+
+
+	private void addTriangle(int base, int[] vertexIndices, int a, int b, int c){
+		if (indexCount + 3 > indices.length){
+			indices = grow(indices, indexCount + 3);
+		}
+		if (vertexIndices != null){
+			a = vertexIndices[a];
+			b = vertexIndices[b];
+			c = vertexIndices[c];
+		}
+		indices[indexCount++] = base + a;
+		indices[indexCount++] = base + b;
+		indices[indexCount++] = base + c;
+	}
+
+
+	private void addOutline(Matrix m, Vertex[] vertices, int[] vertexIndices, int sequenceLength, MTColor strokeColor){
+		int count = vertices.length;
+		int base = lineVertexCount;
+		this.ensureLineCapacity(base + count);
+		float r = strokeColor.getR() / 255f;
+		float g = strokeColor.getG() / 255f;
+		float b = strokeColor.getB() / 255f;
+		float a = strokeColor.getAlpha() / 255f;
+		for (int i = 0; i < count; i++) {
+			this.transform(m, vertices[i], linePositions, (base + i) * 3);
+			int c = (base + i) * 4;
+			lineColors[c] 	  = r;
+			lineColors[c + 1] = g;
+			lineColors[c + 2] = b;
+			lineColors[c + 3] = a;
+		}
+		lineVertexCount += count;
+
+		//The outline is drawn as a line strip through the vertex sequence
+		int segments = sequenceLength - 1;
+		if (lineIndexCount + segments * 2 > lineIndices.length){
+			lineIndices = grow(lineIndices, lineIndexCount + segments * 2);
+		}
+		for (int i = 0; i < segments; i++) {
+			lineIndices[lineIndexCount++] = base + (vertexIndices != null ? vertexIndices[i] : i);
+			lineIndices[lineIndexCount++] = base + (vertexIndices != null ? vertexIndices[i + 1] : i + 1);
+		}
+
+		//Remember the outline bounds
+		if ((outlineCount + 1) * 4 > outlineBounds.length){
+			float[] newBounds = new float[outlineBounds.length * 2];
+			System.arraycopy(outlineBounds, 0, newBounds, 0, outlineBounds.length);
+			outlineBounds = newBounds;
+		}
+		float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+		float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+		for (int i = 0; i < count; i++) {
+			int p = (base + i) * 3;
+			minX = Math.min(minX, linePositions[p]);
+			minY = Math.min(minY, linePositions[p + 1]);
+			maxX = Math.max(maxX, linePositions[p]);
+			maxY = Math.max(maxY, linePositions[p + 1]);
+		}
+		int o = outlineCount * 4;
+		outlineBounds[o] 	 = minX;
+		outlineBounds[o + 1] = minY;
+		outlineBounds[o + 2] = maxX;
+		outlineBounds[o + 3] = maxY;
+		outlineCount++;
+	}
+
+
+	private void computeBounds(Matrix m, Vertex[] vertices){
+		float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+		float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+		for (int i = 0; i < vertices.length; i++) {
+			Vertex v = vertices[i];
+			float x = m.m00 * v.x + m.m01 * v.y + m.m02 * v.z + m.m03;
+			float y = m.m10 * v.x + m.m11 * v.y + m.m12 * v.z + m.m13;
+			minX = Math.min(minX, x);
+			minY = Math.min(minY, y);
+			maxX = Math.max(maxX, x);
+			maxY = Math.max(maxY, y);
+		}
+		shapeBounds[0] = minX;
+		shapeBounds[1] = minY;
+		shapeBounds[2] = maxX;
+		shapeBounds[3] = maxY;
+	}
+
+
+	/**
+	 * Checks if the shape bounds overlap the bounds of an outline in the batch.
+	 * Bounds that only touch don't overlap, so that outlines of adjacent shapes
+	 * don't break the batch.
+	 */
+	private boolean overlapsOutline(){
+		for (int i = 0; i < outlineCount; i++) {
+			int o = i * 4;
+			if (shapeBounds[0] < outlineBounds[o + 2] && shapeBounds[2] > outlineBounds[o]
+				&& shapeBounds[1] < outlineBounds[o + 3] && shapeBounds[3] > outlineBounds[o + 1]
+			){
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	private void transform(Matrix m, Vertex v, float[] target, int offset){
+		float x = v.x, y = v.y, z = v.z;
+		target[offset] 	   = m.m00 * x + m.m01 * y + m.m02 * z + m.m03;
+		target[offset + 1] = m.m10 * x + m.m11 * y + m.m12 * z + m.m13;
+		target[offset + 2] = m.m20 * x + m.m21 * y + m.m22 * z + m.m23;
+	}
+
+
+	/**
+	 * Draws the pending geometry with the backend and starts a new batch.
+	 * Does nothing if the batch is empty.
+	 */
+	public void flush(){
+		if (pendingShapes == 0){
+			return;
+		}
+		if (indexCount > 0 || lineIndexCount > 0){
+			backend.drawBatch(this);
+			batchCount++;
+		}
+		batchedShapeCount += pendingShapes;
+
+		pendingShapes = 0;
+		vertexCount = 0;
+		indexCount = 0;
+		lineVertexCount = 0;
+		lineIndexCount = 0;
+		outlineCount = 0;
+		textureStateSet = false;
+		textureTarget = 0;
+		textureID = 0;
+		lineStateSet = false;
+		strokeWeight = 0;
+		lineStipple = 0;
+	}
+
+
+	private void ensureFillCapacity(int vertices){
+		if (vertices * 3 > positions.length){
+			int newSize = Math.max(vertices, positions.length / 3 * 2);
+			float[] p = new float[newSize * 3];
+			System.arraycopy(positions, 0, p, 0, vertexCount * 3);
+			positions = p;
+			float[] c = new float[newSize * 4];
+			System.arraycopy(colors, 0, c, 0, vertexCount * 4);
+			colors = c;
+			float[] t = new float[newSize * 2];
+			System.arraycopy(texCoords, 0, t, 0, vertexCount * 2);
+			texCoords = t;
+		}
+	}
+
+
+	private void ensureLineCapacity(int vertices){
+		if (vertices * 3 > linePositions.length){
+			int newSize = Math.max(vertices, linePositions.length / 3 * 2);
+			float[] p = new float[newSize * 3];
+			System.arraycopy(linePositions, 0, p, 0, lineVertexCount * 3);
+			linePositions = p;
+			float[] c = new float[newSize * 4];
+			System.arraycopy(lineColors, 0, c, 0, lineVertexCount * 4);
+			lineColors = c;
+		}
+	}
+
+
+	private static int[] grow(int[] array, int minSize){
+		int[] newArray = new int[Math.max(minSize, array.length * 2)];
+		System.arraycopy(array, 0, newArray, 0, array.length);
+		return newArray;
+	}
+
+
+	private void setIdentity(float[] m, int offset){
+		for (int i = 0; i < 16; i++) {
+			m[offset + i] = (i % 5 == 0) ? 1 : 0;
+		}
+	}
+
+
+	/**
+	 * Gets the backend.
+	 *
+	 * @return the backend
+	 */
+	public IBatchBackend getBackend() {
+		return backend;
+	}
+
+	/**
+	 * Sets the backend. Flushes the batch with the old backend first.
+	 *
+	 * @param backend the new backend
+	 */
+	public void setBackend(IBatchBackend backend) {
+		this.flush();
+		this.backend = backend;
+	}
+
+	/**
+	 * Gets the maximum number of vertices of a batch.
+	 *
+	 * @return the max batch vertices
+	 */
+	public int getMaxBatchVertices() {
+		return maxBatchVertices;
+	}
+
+	/**
+	 * Sets the maximum number of vertices of a batch. A single shape
+	 * with more vertices is still drawn in one batch.
+	 *
+	 * @param maxBatchVertices the new max batch vertices
+	 */
+	public void setMaxBatchVertices(int maxBatchVertices) {
+		this.maxBatchVertices = Math.max(3, maxBatchVertices);
+	}
+
+	/**
+	 * Gets a copy of the current view matrix (row major).
+	 *
+	 * @return the view matrix
+	 */
+	public float[] getView(){
+		float[] view = new float[16];
+		System.arraycopy(viewStack, (viewDepth - 1) * 16, view, 0, 16);
+		return view;
+	}
+
+	/**
+	 * Copies the current view matrix (row major) into the array.
+	 *
+	 * @param view the array receiving the matrix
+	 */
+	public void getView(float[] view){
+		System.arraycopy(viewStack, (viewDepth - 1) * 16, view, 0, 16);
+	}
+
+	/**
+	 * Gets the world space positions (x,y,z) of the fill vertices of the batch.
+	 * Only the first <code>getVertexCount()</code> vertices are valid.
+	 *
+	 * @return the positions
+	 */
+	public float[] getPositions() {
+		return positions;
+	}
+
+	/**
+	 * Gets the colors (r,g,b,a from 0 to 1) of the fill vertices of the batch.
+	 *
+	 * @return the colors
+	 */
+	public float[] getColors() {
+		return colors;
+	}
+
+	/**
+	 * Gets the texture coordinates (u,v) of the fill vertices of the batch.
+	 *
+	 * @return the tex coords
+	 */
+	public float[] getTexCoords() {
+		return texCoords;
+	}
+
+	/**
+	 * Gets the number of fill vertices of the batch.
+	 *
+	 * @return the vertex count
+	 */
+	public int getVertexCount() {
+		return vertexCount;
+	}
+
+	/**
+	 * Gets the triangle list indices of the batch.
+	 *
+	 * @return the indices
+	 */
+	public int[] getIndices() {
+		return indices;
+	}
+
+	/**
+	 * Gets the number of triangle list indices of the batch.
+	 *
+	 * @return the index count
+	 */
+	public int getIndexCount() {
+		return indexCount;
+	}
+
+	/**
+	 * Gets the world space positions of the outline vertices of the batch.
+	 *
+	 * @return the line positions
+	 */
+	public float[] getLinePositions() {
+		return linePositions;
+	}
+
+	/**
+	 * Gets the colors of the outline vertices of the batch.
+	 *
+	 * @return the line colors
+	 */
+	public float[] getLineColors() {
+		return lineColors;
+	}
+
+	/**
+	 * Gets the number of outline vertices of the batch.
+	 *
+	 * @return the line vertex count
+	 */
+	public int getLineVertexCount() {
+		return lineVertexCount;
+	}
+
+	/**
+	 * Gets the line list indices of the batch.
+	 *
+	 * @return the line indices
+	 */
+	public int[] getLineIndices() {
+		return lineIndices;
+	}
+
+	/**
+	 * Gets the number of line list indices of the batch.
+	 *
+	 * @return the line index count
+	 */
+	public int getLineIndexCount() {
+		return lineIndexCount;
+	}
+
+	/**
+	 * Gets the texture target of the batch.
+	 *
+	 * @return the texture target, 0 if the batch isn't textured
+	 */
+	public int getTextureTarget() {
+		return textureTarget;
+	}
+
+	/**
+	 * Gets the texture id of the batch.
+	 *
+	 * @return the texture id, 0 if the batch isn't textured
+	 */
+	public int getTextureID() {
+		return textureID;
+	}
+
+	/**
+	 * Gets the stroke weight of the outlines of the batch.
+	 *
+	 * @return the stroke weight
+	 */
+	public float getStrokeWeight() {
+		return strokeWeight;
+	}
+
+	/**
+	 * Gets the line stipple pattern of the outlines of the batch.
+	 *
+	 * @return the line stipple
+	 */
+	public short getLineStipple() {
+		return lineStipple;
+	}
+
+	/**
+	 * Gets the number of shapes in the batch that wasn't flushed yet.
+	 *
+	 * @return the pending shape count
+	 */
+	public int getPendingShapeCount() {
+		return pendingShapes;
+	}
+
+	/**
+	 * Gets the number of batches drawn since the last reset of the statistics.
+	 *
+	 * @return the batch count
+	 */
+	public int getBatchCount() {
+		return batchCount;
+	}
+
+	/**
+	 * Gets the number of shapes drawn in batches since the last reset of the statistics.
+	 *
+	 * @return the batched shape count
+	 */
+	public int getBatchedShapeCount() {
+		return batchedShapeCount;
+	}
+
+	/**
+	 * Resets the batch and shape counters.
+	 */
+	public void resetStatistics(){
+		batchCount = 0;
+		batchedShapeCount = 0;
+	}
+
+}
@@ -25,7 +25,6 @@ import javax.media.opengl.glu.GLU;
 import javax.media.opengl.glu.GLUtessellator;
 import javax.media.opengl.glu.GLUtessellatorCallbackAdapter;
 
-import org.mt4j.MTApplication;
 import org.mt4j.components.visibleComponents.shapes.GeometryInfo;
 import org.mt4j.components.visibleComponents.shapes.mesh.MTTriangleMesh;
 import org.mt4j.util.math.Vertex;
@@ -107,21 +106,6 @@ public class GluTrianglulator extends GLUtessellatorCallbackAdapter{
     	}
     }
     
-    @Override
-    protected void finalize() throws Throwable {
-    	if (this.p instanceof MTApplication ) {
-			MTApplication mtApp = (MTApplication) this.p;
-			mtApp.invokeLater(new Runnable() {
-				public void run() {
-					deleteTess();
-				}
-			});
-		}else{
-			//TODO use registerPre()?
-			//is the object even valid after finalize() is called??
-		}
-		super.finalize();
-    }
     
     
     /**
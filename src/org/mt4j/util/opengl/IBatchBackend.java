@@ -0,0 +1,35 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.util.opengl;
+
+
+/**
+ * Draws the batches collected by a <code>GeometryBatcher</code>.
+ */
+public interface IBatchBackend {
+
+	/**
+	 * Draws the pending geometry of the batcher. The fill triangles have to be
+	 * drawn before the outlines. The geometry is in world space and has to be
+	 * drawn with the current view matrix of the batcher.
+	 *
+	 * @param batch the batcher holding the batch
+	 */
+	public void drawBatch(GeometryBatcher batch);
+
+}
@@ -0,0 +1,38 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.util.opengl;
+
+import org.mt4j.util.opengl.GLResourceManager.ResourceType;
+
+
+/**
+ * Deletes the OpenGL objects queued by a <code>GLResourceManager</code>.
+ */
+public interface IGLResourceDeleter {
+
+	/**
+	 * Deletes OpenGL objects of one type.
+	 *
+	 * @param type the type of the objects
+	 * @param ids the ids (names) of the objects
+	 * @param offset the index of the first id to delete
+	 * @param count the number of ids to delete
+	 */
+	public void deleteResources(ResourceType type, int[] ids, int offset, int count);
+
+}
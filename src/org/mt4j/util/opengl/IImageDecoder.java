@@ -0,0 +1,37 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.util.opengl;
+
+import processing.core.PImage;
+
+/**
+ * The Interface IImageDecoder. Decodes images for the <code>AsyncTextureLoader</code>.
+ * The decoder is called from the decoding threads, so it has to be thread safe.
+ */
+public interface IImageDecoder {
+	
+	/**
+	 * Decodes the image.
+	 * 
+	 * @param fileName the file name or url
+	 * @return the decoded image or null if it couldn't be loaded
+	 * @throws Exception if the image couldn't be loaded
+	 */
+	public PImage decode(String fileName) throws Exception;
+
+}
@@ -0,0 +1,44 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.util.opengl;
+
+
+/**
+ * Uploads the strips of a <code>TextureUploadQueue</code> into textures.
+ */
+public interface ITextureUploadBackend {
+
+	/**
+	 * Uploads rows of ARGB pixels into a texture. The rows span the whole texture width.
+	 *
+	 * @param target the texture target, e.g. <code>GL.GL_TEXTURE_2D</code>
+	 * @param textureID the texture id
+	 * @param width the texture width
+	 * @param yOffset the first row in the texture
+	 * @param rows the number of rows
+	 * @param pixels the pixels
+	 * @param offset the index of the first pixel to upload
+	 */
+	public void uploadRows(int target, int textureID, int width, int yOffset, int rows, int[] pixels, int offset);
+	
+	/**
+	 * Releases the resources held by the backend. It can still be used afterwards.
+	 */
+	public void release();
+
+}
@@ -0,0 +1,172 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.util.opengl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * A batch backend that doesn't draw anything but records the batches
+ * it is given. Can be used to check the batching without a graphics context.
+ */
+public class RecordingBatchBackend implements IBatchBackend {
+
+	/** The recorded batches. */
+	private List<BatchRecord> records;
+
+
+	/**
+	 * Instantiates a new recording batch backend.
+	 */
+	public RecordingBatchBackend(){
+		this.records = new ArrayList<BatchRecord>();
+	}
+
+
+	/* (non-Javadoc)
+	 * @see org.mt4j.util.opengl.IBatchBackend#drawBatch(org.mt4j.util.opengl.GeometryBatcher)
+	 */
+	public void drawBatch(GeometryBatcher batch) {
+		float[] positions = new float[batch.getVertexCount() * 3];
+		System.arraycopy(batch.getPositions(), 0, positions, 0, positions.length);
+		int[] indices = new int[batch.getIndexCount()];
+		System.arraycopy(batch.getIndices(), 0, indices, 0, indices.length);
+		int[] lineIndices = new int[batch.getLineIndexCount()];
+		System.arraycopy(batch.getLineIndices(), 0, lineIndices, 0, lineIndices.length);
+
+		records.add(new BatchRecord(
+				batch.getPendingShapeCount(),
+				batch.getVertexCount(),
+				batch.getLineVertexCount(),
+				positions,
+				indices,
+				lineIndices,
+				batch.getTextureTarget(),
+				batch.getTextureID(),
+				batch.getStrokeWeight(),
+				batch.getLineStipple(),
+				batch.getView()));
+	}
+
+	/**
+	 * Gets the recorded batches.
+	 *
+	 * @return the records
+	 */
+	public List<BatchRecord> getRecords() {
+		return records;
+	}
+
+	/**
+	 * Removes all recorded batches.
+	 */
+	public void clear(){
+		records.clear();
+	}
+
+
+	/**
+	 * A recorded batch.
+	 */
+	public static class BatchRecord{
+		private int shapeCount;
+		private int vertexCount;
+		private int lineVertexCount;
+		private float[] positions;
+		private int[] indices;
+		private int[] lineIndices;
+		private int textureTarget;
+		private int textureID;
+		private float strokeWeight;
+		private short lineStipple;
+		private float[] view;
+
+		private BatchRecord(int shapeCount, int vertexCount, int lineVertexCount,
+				float[] positions, int[] indices, int[] lineIndices,
+				int textureTarget, int textureID, float strokeWeight, short lineStipple, float[] view) {
+			this.shapeCount = shapeCount;
+			this.vertexCount = vertexCount;
+			this.lineVertexCount = lineVertexCount;
+			this.positions = positions;
+			this.indices = indices;
+			this.lineIndices = lineIndices;
+			this.textureTarget = textureTarget;
+			this.textureID = textureID;
+			this.strokeWeight = strokeWeight;
+			this.lineStipple = lineStipple;
+			this.view = view;
+		}
+
+		/** @return the number of shapes in the batch */
+		public int getShapeCount() {
+			return shapeCount;
+		}
+
+		/** @return the number of fill vertices */
+		public int getVertexCount() {
+			return vertexCount;
+		}
+
+		/** @return the number of outline vertices */
+		public int getLineVertexCount() {
+			return lineVertexCount;
+		}
+
+		/** @return the world space positions of the fill vertices */
+		public float[] getPositions() {
+			return positions;
+		}
+
+		/** @return the triangle list indices */
+		public int[] getIndices() {
+			return indices;
+		}
+
+		/** @return the line list indices */
+		public int[] getLineIndices() {
+			return lineIndices;
+		}
+
+		/** @return the texture target, 0 if not textured */
+		public int getTextureTarget() {
+			return textureTarget;
+		}
+
+		/** @return the texture id, 0 if not textured */
+		public int getTextureID() {
+			return textureID;
+		}
+
+		/** @return the stroke weight */
+		public float getStrokeWeight() {
+			return strokeWeight;
+		}
+
+		/** @return the line stipple */
+		public short getLineStipple() {
+			return lineStipple;
+		}
+
+		/** @return the view matrix (row major) */
+		public float[] getView() {
+			return view;
+		}
+	}
+
+}
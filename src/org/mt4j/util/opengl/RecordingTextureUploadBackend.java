@@ -0,0 +1,130 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.util.opengl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * A texture upload backend that doesn't upload anything but records the strips
+ * it is given. Can be used to check the upload budgeting without a graphics context.
+ */
+public class RecordingTextureUploadBackend implements ITextureUploadBackend {
+
+	/** The recorded strips. */
+	private List<StripRecord> records;
+	
+	private int releaseCount;
+
+
+	/**
+	 * Instantiates a new recording texture upload backend.
+	 */
+	public RecordingTextureUploadBackend(){
+		this.records = new ArrayList<StripRecord>();
+	}
+
+
+	/* (non-Javadoc)
+	 * @see org.mt4j.util.opengl.ITextureUploadBackend#uploadRows(int, int, int, int, int, int[], int)
+	 */
+	public void uploadRows(int target, int textureID, int width, int yOffset, int rows, int[] pixels, int offset) {
+		int[] copy = new int[rows * width];
+		System.arraycopy(pixels, offset, copy, 0, copy.length);
+		records.add(new StripRecord(target, textureID, yOffset, rows, copy));
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.mt4j.util.opengl.ITextureUploadBackend#release()
+	 */
+	public void release() {
+		releaseCount++;
+	}
+
+	/**
+	 * Gets the recorded strips.
+	 *
+	 * @return the records
+	 */
+	public List<StripRecord> getRecords() {
+		return records;
+	}
+	
+	/**
+	 * Gets the number of times the backend was released.
+	 *
+	 * @return the release count
+	 */
+	public int getReleaseCount() {
+		return releaseCount;
+	}
+
+	/**
+	 * Removes all recorded strips.
+	 */
+	public void clear(){
+		records.clear();
+	}
+
+
+	/**
+	 * A recorded strip.
+	 */
+	public static class StripRecord{
+		private int target;
+		private int textureID;
+		private int yOffset;
+		private int rows;
+		private int[] pixels;
+
+		private StripRecord(int target, int textureID, int yOffset, int rows, int[] pixels) {
+			this.target = target;
+			this.textureID = textureID;
+			this.yOffset = yOffset;
+			this.rows = rows;
+			this.pixels = pixels;
+		}
+
+		/** @return the texture target */
+		public int getTarget() {
+			return target;
+		}
+
+		/** @return the texture id */
+		public int getTextureID() {
+			return textureID;
+		}
+
+		/** @return the first row of the strip in the texture */
+		public int getYOffset() {
+			return yOffset;
+		}
+
+		/** @return the number of rows */
+		public int getRows() {
+			return rows;
+		}
+
+		/** @return a copy of the uploaded pixels */
+		public int[] getPixels() {
+			return pixels;
+		}
+	}
+
+}
@@ -0,0 +1,177 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.util.opengl;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import processing.core.PImage;
+
+/**
+ * A texture requested from the <code>AsyncTextureLoader</code>. 
+ * <p>
+ * The image is decoded on a decoding thread, then uploaded into the texture on the 
+ * OpenGL thread. <code>get()</code> blocks until the texture is ready, so it must
+ * not be called from the OpenGL thread - there, <code>isDone()</code> and 
+ * <code>getTexture()</code> or an <code>ITextureLoadListener</code> should be used.
+ */
+public class TextureRequest implements Future<GLTexture> {
+	
+	private final String fileName;
+	private final GLTextureSettings settings;
+	private final ITextureLoadListener listener;
+	private final CountDownLatch done;
+	
+	private volatile PImage image;
+	private volatile GLTexture texture;
+	private volatile Throwable error;
+	private volatile boolean cancelled;
+	
+	
+	/**
+	 * Instantiates a new texture request.
+	 *
+	 * @param fileName the file name
+	 * @param settings the texture settings
+	 * @param listener the listener, can be null
+	 */
+	TextureRequest(String fileName, GLTextureSettings settings, ITextureLoadListener listener) {
+		this.fileName = fileName;
+		this.settings = settings;
+		this.listener = listener;
+		this.done = new CountDownLatch(1);
+	}
+	
+	
+	/**
+	 * Sets the decoded image. Called by the decoding thread.
+	 */
+	void setImage(PImage image){
+		this.image = image;
+	}
+	
+	/**
+	 * Sets the error. Called by the decoding thread.
+	 */
+	void setError(Throwable error){
+		this.error = error;
+	}
+	
+	/**
+	 * Finishes the request and notifies the listener. Called on the OpenGL thread.
+	 */
+	void complete(GLTexture texture){
+		this.texture = texture;
+		this.image = null;
+		done.countDown();
+		if (listener != null && !cancelled){
+			listener.textureLoaded(this);
+		}
+	}
+	
+	
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		if (this.isDone()){
+			return false;
+		}
+		cancelled = true;
+		done.countDown();
+		return true;
+	}
+	
+	public boolean isCancelled() {
+		return cancelled;
+	}
+	
+	public boolean isDone() {
+		return done.getCount() == 0;
+	}
+	
+	public GLTexture get() throws InterruptedException, ExecutionException {
+		done.await();
+		return this.getResult();
+	}
+	
+	public GLTexture get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+		if (!done.await(timeout, unit)){
+			throw new TimeoutException("Texture not loaded yet: " + fileName);
+		}
+		return this.getResult();
+	}
+	
+	private GLTexture getResult() throws ExecutionException{
+		if (cancelled){
+			throw new CancellationException("Texture request cancelled: " + fileName);
+		}
+		if (error != null){
+			throw new ExecutionException(error);
+		}
+		return texture;
+	}
+	
+	
+	/**
+	 * Gets the texture without blocking.
+	 *
+	 * @return the texture, null if it isn't ready or couldn't be loaded
+	 */
+	public GLTexture getTexture() {
+		return texture;
+	}
+	
+	/**
+	 * Gets the decoded image while it waits for the upload.
+	 *
+	 * @return the image, null if not decoded yet or already uploaded
+	 */
+	public PImage getImage() {
+		return image;
+	}
+	
+	/**
+	 * Gets the error that prevented the loading.
+	 *
+	 * @return the error or null
+	 */
+	public Throwable getError() {
+		return error;
+	}
+	
+	/**
+	 * Gets the file name.
+	 *
+	 * @return the file name
+	 */
+	public String getFileName() {
+		return fileName;
+	}
+	
+	/**
+	 * Gets the texture settings.
+	 *
+	 * @return the settings
+	 */
+	public GLTextureSettings getSettings() {
+		return settings;
+	}
+	
+}
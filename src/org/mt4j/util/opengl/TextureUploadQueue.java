@@ -0,0 +1,257 @@
+/***********************************************************************
+ * mt4j Copyright (c) 2008 - 2010 Christopher Ruff, Fraunhofer-Gesellschaft All rights reserved.
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ***********************************************************************/
+package org.mt4j.util.opengl;
+
+import java.util.ArrayDeque;
+
+
+/**
+ * Uploads image data into textures within a budget of bytes per frame.
+ * <p>
+ * Each upload is split into strips of whole rows, as many rows are uploaded each frame
+ * as the budget allows. At least one row is uploaded per frame, so images with rows larger 
+ * than the budget still finish. The uploads are done in the order they were added.
+ * <br>The strips are handed to an <code>ITextureUploadBackend</code>, the 
+ * <code>GLTextureUploadBackend</code> uploads them with OpenGL.
+ * <p>
+ * This class isn't thread safe, it has to be used from the OpenGL thread only.
+ */
+public class TextureUploadQueue {
+	
+	/** The default budget of bytes uploaded per frame. */
+	public static final int DEFAULT_FRAME_BUDGET = 4 * 1024 * 1024;
+	
+	/** The backend. */
+	private ITextureUploadBackend backend;
+	
+	/** The waiting uploads. */
+	private final ArrayDeque<Upload> uploads;
+	
+	/** The bytes that may be uploaded per frame. */
+	private int frameBudget;
+	
+	private long lastFrameBytes;
+	private long totalBytes;
+	private int lastFrameStrips;
+	
+	
+	/**
+	 * Instantiates a new texture upload queue with the default budget.
+	 *
+	 * @param backend the backend
+	 */
+	public TextureUploadQueue(ITextureUploadBackend backend){
+		this(backend, DEFAULT_FRAME_BUDGET);
+	}
+	
+	/**
+	 * Instantiates a new texture upload queue.
+	 *
+	 * @param backend the backend
+	 * @param frameBudget the bytes that may be uploaded per frame, 0 for no limit
+	 */
+	public TextureUploadQueue(ITextureUploadBackend backend, int frameBudget){
+		this.backend = backend;
+		this.uploads = new ArrayDeque<Upload>();
+		this.frameBudget = frameBudget;
+	}
+	
+	
+	/**
+	 * Adds an upload. It is started in the next call of <code>process()</code>.
+	 *
+	 * @param upload the upload
+	 */
+	public void add(Upload upload){
+		uploads.add(upload);
+	}
+	
+	
+	/**
+	 * Removes an upload that hasn't finished yet.
+	 *
+	 * @param upload the upload
+	 * @return true, if it was waiting
+	 */
+	public boolean remove(Upload upload){
+		return uploads.remove(upload);
+	}
+	
+	
+	/**
+	 * Uploads the next rows of the waiting uploads, as many as the frame budget allows.
+	 * The completion actions of the finished uploads are run.
+	 * <br>Has to be called once per frame from the OpenGL thread.
+	 *
+	 * @return the number of bytes uploaded
+	 */
+	public long process(){
+		long budget = frameBudget > 0 ? frameBudget : Long.MAX_VALUE;
+		long bytes = 0;
+		int strips = 0;
+		while (!uploads.isEmpty()){
+			Upload upload = uploads.peek();
+			long rowBytes = upload.width * 4L;
+			int rows = (int) Math.min(upload.height - upload.nextRow, (budget - bytes) / rowBytes);
+			if (rows <= 0){
+				if (bytes > 0){
+					break;
+				}
+				//Row larger than the budget, upload one anyway
+				rows = 1;
+			}
+			
+			backend.uploadRows(upload.target, upload.textureID, upload.width, upload.nextRow, rows, upload.pixels, upload.nextRow * upload.width);
+			upload.nextRow += rows;
+			bytes += rows * rowBytes;
+			strips++;
+			
+			if (upload.isComplete()){
+				uploads.poll();
+				if (upload.onComplete != null){
+					upload.onComplete.run();
+				}
+			}
+		}
+		lastFrameBytes = bytes;
+		lastFrameStrips = strips;
+		totalBytes += bytes;
+		return bytes;
+	}
+	
+	
+	/**
+	 * Gets the number of uploads that haven't finished yet.
+	 *
+	 * @return the waiting upload count
+	 */
+	public int size(){
+		return uploads.size();
+	}
+	
+	/**
+	 * Gets the backend.
+	 *
+	 * @return the backend
+	 */
+	public ITextureUploadBackend getBackend() {
+		return backend;
+	}
+	
+	/**
+	 * Gets the bytes that may be uploaded per frame.
+	 *
+	 * @return the frame budget
+	 */
+	public int getFrameBudget() {
+		return frameBudget;
+	}
+
+	/**
+	 * Sets the bytes that may be uploaded per frame.
+	 *
+	 * @param frameBudget the new frame budget, 0 for no limit
+	 */
+	public void setFrameBudget(int frameBudget) {
+		this.frameBudget = frameBudget;
+	}
+
+	/**
+	 * Gets the bytes uploaded in the last frame.
+	 *
+	 * @return the last frame bytes
+	 */
+	public long getLastFrameBytes() {
+		return lastFrameBytes;
+	}
+	
+	/**
+	 * Gets the number of strips uploaded in the last frame.
+	 *
+	 * @return the last frame strips
+	 */
+	public int getLastFrameStrips() {
+		return lastFrameStrips;
+	}
+
+	/**
+	 * Gets the bytes uploaded in total.
+	 *
+	 * @return the total bytes
+	 */
+	public long getTotalBytes() {
+		return totalBytes;
+	}
+	
+	
+	/**
+	 * An upload of image data into a texture that was already set up with the 
+	 * right dimensions.
+	 */
+	public static class Upload {
+		private final int target;
+		private final int textureID;
+		private final int width;
+		private final int height;
+		private final int[] pixels;
+		private final Runnable onComplete;
+		private int nextRow;
+		
+		/**
+		 * Instantiates a new upload.
+		 *
+		 * @param target the texture target, e.g. <code>GL.GL_TEXTURE_2D</code>
+		 * @param textureID the texture id
+		 * @param width the width
+		 * @param height the height
+		 * @param pixels the ARGB pixels, at least width * height
+		 * @param onComplete run on the OpenGL thread when the upload is finished, can be null
+		 */
+		public Upload(int target, int textureID, int width, int height, int[] pixels, Runnable onComplete){
+			if (pixels.length < width * height){
+				throw new IllegalArgumentException("Not enough pixels for " + width + "x" + height + ": " + pixels.length);
+			}
+			this.target = target;
+			this.textureID = textureID;
+			this.width = width;
+			this.height = height;
+			this.pixels = pixels;
+			this.onComplete = onComplete;
+			this.nextRow = 0;
+		}
+		
+		/**
+		 * Gets the number of rows uploaded so far.
+		 *
+		 * @return the uploaded rows
+		 */
+		public int getUploadedRows(){
+			return nextRow;
+		}
+		
+		/**
+		 * Checks if all rows are uploaded.
+		 *
+		 * @return true, if complete
+		 */
+		public boolean isComplete(){
+			return nextRow >= height;
+		}
+	}
+	
+}
@@ -22,6 +22,8 @@ import java.io.File;
 //TODO IMPLEMENT!
 
 import org.mt4j.components.MTComponent;
+import org.mt4j.util.logging.ILogger;
+import org.mt4j.util.logging.MTLoggerFactory;
 
 import processing.core.PApplet;
 
@@ -33,6 +35,10 @@ import com.whirlycott.cache.CacheManager;
  * The Class SVGCache.
  */
 public class SVGCache {
+	private static final ILogger logger = MTLoggerFactory.getLogger(SVGCache.class.getName());
+	static{
+		logger.setLevel(ILogger.WARN);
+	}
 	
 	/** The svg cache. */
 	private static SVGCache svgCache;
@@ -86,7 +92,7 @@ public class SVGCache {
 		returnComponent = (MTComponent) cache.retrieve(fileName);
 		
 		if (returnComponent == null){
-			System.out.println("Found no cached obj for filepath: " + fileName);
+			logger.debug("Found no cached obj for filepath: {}", fileName);
 			if (new File(fileName).exists()){
 //				BatikSvgParser batikSvgParser = new BatikSvgParser(pa);
 //				SVGDocument svgDoc = batikSvgParser.parseSvg(fileName);
@@ -104,10 +110,10 @@ public class SVGCache {
 				//TODO store copy? because sonst wird matrix etc verndert wenn damit gearbeitet wurde
 				cache.store(fileName, svg);
 			}else{
-				System.out.println("File doesent exist! aborting..." + fileName);
+				logger.warn("File doesent exist! aborting...{}", fileName);
 			}
 		}else{
-			System.out.println("Found cached svg.");
+			logger.debug("Found cached svg: {}", fileName);
 		}
 		
 		return returnComponent;
@@ -42,7 +42,6 @@ import java.util.Set;
 import java.util.Stack;
 
 import javax.media.opengl.GL;
-import javax.media.opengl.glu.GLU;
 import javax.swing.JPanel;
 
 import org.apache.batik.bridge.AbstractSVGGradientElementBridge;
@@ -138,11 +137,11 @@ import org.mt4j.util.logging.ILogger;
 import org.mt4j.util.logging.MTLoggerFactory;
 import org.mt4j.util.math.ConvexityUtil;
 import org.mt4j.util.math.Matrix;
+import org.mt4j.util.math.PolygonTriangulator;
 import org.mt4j.util.math.ToolsGeometry;
 import org.mt4j.util.math.Vector3D;
 import org.mt4j.util.math.Vertex;
 import org.mt4j.util.opengl.GLTexture;
-import org.mt4j.util.opengl.GluTrianglulator;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.NamedNodeMap;
@@ -869,7 +868,7 @@ public class SVGLoader implements SVGConstants{
 		  boolean noStroke 		= false;
 		  float strokeOpacity 	= 1;
 		  float fillOpacity   	= 1;
-		  int windingRule 		= GLU.GLU_TESS_WINDING_NONZERO;
+		  int windingRule 		= PolygonTriangulator.WINDING_RULE_NONZERO;
 		  // SVG Defaults \\
 		  
 		  
@@ -884,11 +883,11 @@ public class SVGLoader implements SVGConstants{
 		  Value fillRuleValue = CSSUtilities.getComputedStyle(gfxElem, SVGCSSEngine.FILL_RULE_INDEX);
 		  String fillRule = fillRuleValue.getStringValue();
 		  if (fillRule.equalsIgnoreCase("nonzero")){
-			  windingRule = GLU.GLU_TESS_WINDING_NONZERO;
+			  windingRule = PolygonTriangulator.WINDING_RULE_NONZERO;
 		  }else if (fillRule.equalsIgnoreCase("evenodd")){
-			  windingRule = GLU.GLU_TESS_WINDING_ODD;
+			  windingRule = PolygonTriangulator.WINDING_RULE_ODD;
 		  }else{
-			  windingRule = GLU.GLU_TESS_WINDING_NONZERO;
+			  windingRule = PolygonTriangulator.WINDING_RULE_NONZERO;
 		  }
 		  //logger.debug("fillRule: " + fillRule);
 		  
@@ -2386,12 +2385,7 @@ public class SVGLoader implements SVGConstants{
 		int segments = 10; 
 		List<Vertex[]> bezierContours = ToolsGeometry.createVertexArrFromBezierVertexArrays(contours, segments);
 		
-		GluTrianglulator triangulator = new GluTrianglulator(pa);
-		
-//		MTTriangleMesh mesh = triangulator.toTriangleMesh(bezierContours, windingRule);
-		
-		triangulator.tesselate(bezierContours, windingRule);
-		List<Vertex> tris = triangulator.getTriList();
+		List<Vertex> tris = new PolygonTriangulator().triangulate(bezierContours, windingRule);
 		Vertex[] verts = tris.toArray(new Vertex[tris.size()]);
 		GeometryInfo geom = new GeometryInfo(pa, verts);
 		
@@ -2401,8 +2395,6 @@ public class SVGLoader implements SVGConstants{
 		//TODO put outline contourse in own class SVGMesh! 
 		//not belonging in general mesh class
 		mesh.setOutlineContours(bezierContours);
-		
-		triangulator.deleteTess(); //Delete triangulator (C++ object)
 		return mesh;
 	}
 	
@@ -19,12 +19,16 @@ package processing.core;
 
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
 import org.mt4j.MTApplication;
 import org.mt4j.components.visibleComponents.font.BitmapFont;
 import org.mt4j.components.visibleComponents.font.BitmapFontCharacter;
 import org.mt4j.components.visibleComponents.font.IFont;
+import org.mt4j.components.visibleComponents.font.fontFactories.BitmapFontFactory;
+import org.mt4j.components.visibleComponents.font.fontFactories.GlyphAtlasPacker;
 import org.mt4j.components.visibleComponents.font.fontFactories.IFontFactory;
 import org.mt4j.util.MT4jSettings;
 import org.mt4j.util.MTColor;
@@ -323,6 +327,10 @@ public class BitmapFontFactoryProxy implements IFontFactory {
 	
 	
 	private List<BitmapFontCharacter> createCharacters(PApplet pa, PFont p5Font, String chars, MTColor fillColor /*, MTColor strokeColor*/){
+		if (MT4jSettings.getInstance().isOpenGlMode() && BitmapFontFactory.isUseGlyphAtlas()){
+			return this.createAtlasCharacters(pa, p5Font, chars, fillColor);
+		}
+		
 		List<BitmapFontCharacter> bitMapCharacters = new ArrayList<BitmapFontCharacter>();
 		
 		for (int i = 0; i < chars.length(); i++) {
@@ -420,6 +428,98 @@ public class BitmapFontFactoryProxy implements IFontFactory {
 		return bitMapCharacters;
 	}
 	
+	/**
+	 * Creates the specified characters. The glyph images are packed into
+	 * atlas pages, all characters on a page share the same texture.
+	 *
+	 * @param pa the pa
+	 * @param p5Font the p5 font
+	 * @param chars the chars
+	 * @param fillColor the fill color
+	 * @return the characters
+	 */
+	private List<BitmapFontCharacter> createAtlasCharacters(PApplet pa, PFont p5Font, String chars, MTColor fillColor){
+		List<BitmapFontCharacter> bitMapCharacters = new ArrayList<BitmapFontCharacter>();
+		
+		//Same borders around the glyph as in createCharacters() because of anti aliasing artifacts
+		int topShiftAmount = 4;
+		int leftShiftAmount = 4;
+		
+		List<Glyph> glyphs = new ArrayList<Glyph>();
+		StringBuilder glyphChars = new StringBuilder();
+		for (int i = 0; i < chars.length(); i++) {
+			char c = chars.charAt(i);
+			Glyph glyph = p5Font.getGlyph(c);
+			if (glyph != null){
+				glyphs.add(glyph);
+				glyphChars.append(c);
+			}else{
+				logger.warn("Couldnt create bitmap character : " + c + " -> not found!");
+			}
+		}
+		int glyphCount = glyphs.size();
+		if (glyphCount == 0){
+			return bitMapCharacters;
+		}
+		
+		//Pack the glyphs, the highest first
+		final int[] widths = new int[glyphCount];
+		final int[] heights = new int[glyphCount];
+		Integer[] packOrder = new Integer[glyphCount];
+		for (int i = 0; i < glyphCount; i++) {
+			Glyph glyph = glyphs.get(i);
+			widths[i] = glyph.width + leftShiftAmount + 1;
+			heights[i] = glyph.height + topShiftAmount + 1;
+			packOrder[i] = i;
+		}
+		Arrays.sort(packOrder, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				return heights[b] - heights[a];
+			}
+		});
+		GlyphAtlasPacker packer = new GlyphAtlasPacker();
+		int[][] placements = new int[glyphCount][3];
+		for (Integer index : packOrder) {
+			packer.pack(widths[index], heights[index], placements[index]);
+		}
+		
+		//Copy the glyph images into the pages, make them white and use the glyph image as alpha
+		PImage[] pages = new PImage[packer.getPageCount()];
+		for (int i = 0; i < pages.length; i++) {
+			pages[i] = new PImage(packer.getPageWidth(i), packer.getPageHeight(i), PImage.ARGB);
+		}
+		for (int i = 0; i < glyphCount; i++) {
+			Glyph glyph = glyphs.get(i);
+			PImage charImage = glyph.image;
+			PImage page = pages[placements[i][0]];
+			int targetX = placements[i][1] + leftShiftAmount;
+			int targetY = placements[i][2] + topShiftAmount;
+			for (int y = 0; y < glyph.height; y++) {
+				for (int x = 0; x < glyph.width; x++) {
+					page.pixels[(targetY + y) * page.width + targetX + x] = (charImage.pixels[y * charImage.width + x] << 24) | 0x00FFFFFF;
+				}
+			}
+		}
+		
+		for (int i = 0; i < glyphCount; i++) {
+			Glyph glyph = glyphs.get(i);
+			int charHeight = glyph.height;
+			int topOffset =  (-charHeight - (glyph.topExtent - charHeight)) - topShiftAmount;
+			int leftExtend = glyph.leftExtent - leftShiftAmount;
+			int page = placements[i][0];
+			
+			String StringChar = Character.toString(glyphChars.charAt(i));
+			BitmapFontCharacter character = new BitmapFontCharacter(pa, pages[page], placements[i][1], placements[i][2], widths[i], heights[i], StringChar, leftExtend, topOffset, glyph.setWidth);
+			//The following characters of the page share the texture created for this one
+			pages[page] = character.getTexture();
+			character.setName(StringChar);
+			character.setFillColor(new MTColor(fillColor));
+			character.generateAndUseDisplayLists();
+			bitMapCharacters.add(character);
+		}
+		return bitMapCharacters;
+	}
+	
 	private int nextPowerOfTwo(int val) {
 	      int ret = 1;
 	      while (ret < val) {
@@ -0,0 +1,106 @@
+package org.mt4j.test.components;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.mt4j.components.bounds.BoundingVolumeHierarchy;
+
+public class BoundingVolumeHierarchyTest extends TestCase {
+
+	private static final int LEAVES = 500;
+
+	private float[] bounds;
+	private int[] ids;
+	private Random random;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		random = new Random(42);
+		bounds = new float[LEAVES * 6];
+		ids = new int[LEAVES];
+		for (int i = 0; i < LEAVES; i++) {
+			ids[i] = i;
+			this.setRandomBox(i);
+		}
+	}
+
+	private void setRandomBox(int i){
+		float x = random.nextFloat() * 1000;
+		float y = random.nextFloat() * 1000;
+		float z = random.nextFloat() * 10;
+		float w = 5 + random.nextFloat() * 100;
+		float h = 5 + random.nextFloat() * 100;
+		bounds[i*6] 	= x;
+		bounds[i*6 + 1] = y;
+		bounds[i*6 + 2] = z;
+		bounds[i*6 + 3] = x + w;
+		bounds[i*6 + 4] = y + h;
+		bounds[i*6 + 5] = z + 1;
+	}
+
+	public void testQueryMatchesBruteForce(){
+		BoundingVolumeHierarchy bvh = new BoundingVolumeHierarchy();
+		bvh.build(ids, LEAVES, bounds);
+		assertEquals(LEAVES, bvh.getLeafCount());
+		assertTrue("Tree should be balanced", bvh.getDepth() <= 11);
+
+		for (int i = 0; i < 200; i++) {
+			this.checkQuery(bvh, random.nextFloat() * 1100, random.nextFloat() * 1100);
+		}
+	}
+
+	public void testRefit(){
+		BoundingVolumeHierarchy bvh = new BoundingVolumeHierarchy();
+		bvh.build(ids, LEAVES, bounds);
+		for (int i = 0; i < 100; i++) {
+			int leaf = random.nextInt(LEAVES);
+			this.setRandomBox(leaf);
+			assertTrue(bvh.refit(leaf, bounds));
+		}
+		assertEquals(100, bvh.getRefitCount());
+		for (int i = 0; i < 200; i++) {
+			this.checkQuery(bvh, random.nextFloat() * 1100, random.nextFloat() * 1100);
+		}
+	}
+
+	public void testSubsetOfIds(){
+		BoundingVolumeHierarchy bvh = new BoundingVolumeHierarchy();
+		int[] subset = new int[]{3, 7, 11};
+		bvh.build(subset, subset.length, bounds);
+		assertTrue(bvh.contains(7));
+		assertFalse(bvh.contains(8));
+		assertFalse(bvh.refit(8, bounds));
+
+		int[] result = new int[LEAVES];
+		int found = bvh.queryLine(bounds[7*6] + 1, bounds[7*6 + 1] + 1, -100, 0, 0, 1, 0, result);
+		boolean contains7 = false;
+		for (int i = 0; i < found; i++) {
+			contains7 |= result[i] == 7;
+			assertTrue(result[i] == 3 || result[i] == 7 || result[i] == 11);
+		}
+		assertTrue(contains7);
+
+		bvh.build(subset, 0, bounds);
+		assertEquals(0, bvh.queryLine(0, 0, 0, 0, 0, 1, 0, result));
+	}
+
+	private void checkQuery(BoundingVolumeHierarchy bvh, float x, float y){
+		int[] result = new int[LEAVES];
+		int found = bvh.queryLine(x, y, 100, 0, 0, -1, 0, result);
+		int[] hits = Arrays.copyOf(result, found);
+		Arrays.sort(hits);
+
+		int expectedCount = 0;
+		int[] expected = new int[LEAVES];
+		for (int i = 0; i < LEAVES; i++) {
+			if (x >= bounds[i*6] && x <= bounds[i*6 + 3] && y >= bounds[i*6 + 1] && y <= bounds[i*6 + 4]){
+				expected[expectedCount++] = i;
+			}
+		}
+		assertTrue(Arrays.equals(Arrays.copyOf(expected, expectedCount), hits));
+	}
+
+}
@@ -0,0 +1,101 @@
+package org.mt4j.test.components;
+
+import junit.framework.TestCase;
+
+import org.mt4j.components.CanvasBatching;
+import org.mt4j.components.visibleComponents.shapes.MTPolygon;
+import org.mt4j.util.MT4jSettings;
+import org.mt4j.util.logging.JavaLogger;
+import org.mt4j.util.logging.MTLoggerFactory;
+import org.mt4j.util.math.Vertex;
+import org.mt4j.util.opengl.GeometryBatcher;
+import org.mt4j.util.opengl.RecordingBatchBackend;
+
+import processing.core.PApplet;
+import processing.core.PImage;
+
+public class CanvasBatchingTest extends TestCase {
+
+	private PApplet app;
+	private int rendererMode;
+	private RecordingBatchBackend backend;
+	private GeometryBatcher batcher;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		MTLoggerFactory.setLoggerProvider(new JavaLogger());
+		app = new PApplet();
+		rendererMode = MT4jSettings.getInstance().renderer;
+		backend = new RecordingBatchBackend();
+		batcher = new GeometryBatcher(backend);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		MT4jSettings.getInstance().renderer = rendererMode;
+	}
+
+	private DirectGLPolygon createPolygon(PImage texture){
+		//Create the shapes without an OpenGL context
+		MT4jSettings.getInstance().renderer = MT4jSettings.P3D_MODE;
+		DirectGLPolygon poly = new DirectGLPolygon(app, new Vertex[]{
+				new Vertex(0, 0, 0, 0, 0),
+				new Vertex(10, 0, 0, 1, 0),
+				new Vertex(10, 10, 0, 1, 1),
+				new Vertex(0, 10, 0, 0, 1),
+				new Vertex(0, 0, 0, 0, 0)});
+		if (texture != null){
+			poly.setTexture(texture);
+		}
+		poly.directGL = true;
+		MT4jSettings.getInstance().renderer = MT4jSettings.OPENGL_MODE;
+		return poly;
+	}
+
+	public void testUntexturedPolygonIsBatched(){
+		DirectGLPolygon poly = this.createPolygon(null);
+		assertEquals(CanvasBatching.BATCH, CanvasBatching.getDrawKind(poly));
+		assertTrue(CanvasBatching.addToBatch(batcher, poly));
+		batcher.flush();
+		assertEquals(1, backend.getRecords().size());
+		assertEquals(1, backend.getRecords().get(0).getShapeCount());
+		assertEquals(0, backend.getRecords().get(0).getTextureID());
+	}
+
+	public void testPImageTextureIsDrawnDirectly(){
+		DirectGLPolygon poly = this.createPolygon(new PImage(4, 4));
+		assertTrue(poly.isTextureEnabled());
+		//The batch could only draw it untextured
+		assertEquals(CanvasBatching.DRAW_DIRECT, CanvasBatching.getDrawKind(poly));
+		batcher.flush();
+		assertEquals(0, backend.getRecords().size());
+
+		poly.setTextureEnabled(false);
+		assertEquals(CanvasBatching.BATCH, CanvasBatching.getDrawKind(poly));
+		assertTrue(CanvasBatching.addToBatch(batcher, poly));
+		batcher.flush();
+		assertEquals(1, backend.getRecords().size());
+		assertEquals(0, backend.getRecords().get(0).getTextureID());
+	}
+
+
+	/**
+	 * A polygon that claims to be drawn with direct OpenGL once
+	 * it is set up, but keeps its plain PImage texture.
+	 */
+	private static class DirectGLPolygon extends MTPolygon{
+		private boolean directGL;
+
+		public DirectGLPolygon(PApplet pApplet, Vertex[] vertices) {
+			super(pApplet, vertices);
+		}
+
+		@Override
+		public boolean isUseDirectGL() {
+			return directGL || super.isUseDirectGL();
+		}
+	}
+
+}
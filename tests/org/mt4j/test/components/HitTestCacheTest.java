@@ -0,0 +1,73 @@
+package org.mt4j.test.components;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import junit.framework.TestCase;
+
+import org.mt4j.components.HitTestCache;
+import org.mt4j.components.interfaces.IMTComponent3D;
+
+public class HitTestCacheTest extends TestCase {
+
+	private IMTComponent3D compA;
+	private IMTComponent3D compB;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		compA = createComponent();
+		compB = createComponent();
+	}
+
+	private static IMTComponent3D createComponent(){
+		return (IMTComponent3D) Proxy.newProxyInstance(IMTComponent3D.class.getClassLoader(), new Class<?>[]{IMTComponent3D.class}, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				if (method.getName().equals("equals")){
+					return proxy == args[0];
+				}else if (method.getName().equals("hashCode")){
+					return System.identityHashCode(proxy);
+				}
+				return null;
+			}
+		});
+	}
+
+	public void testCellsAndStatistics(){
+		HitTestCache cache = new HitTestCache(4f, 100);
+		assertNull(cache.get(10, 10));
+		cache.put(10, 10, compA);
+		cache.put(-1, 10, compB);
+		assertSame(compA, cache.get(11.5f, 8.2f));
+		assertNull(cache.get(12.1f, 10));
+		assertSame(compB, cache.get(-3.9f, 11));
+		assertEquals(2, cache.getHits());
+		assertEquals(2, cache.getMisses());
+	}
+
+	public void testInvalidate(){
+		HitTestCache cache = new HitTestCache();
+		cache.put(10, 10, compA);
+		assertEquals(1, cache.size());
+		cache.invalidate();
+		cache.invalidate();
+		assertEquals(1, cache.getInvalidations());
+		assertEquals(0, cache.size());
+		assertNull(cache.get(10, 10));
+		cache.put(10, 10, compB);
+		assertSame(compB, cache.get(10, 10));
+	}
+
+	public void testMaxEntries(){
+		HitTestCache cache = new HitTestCache(1f, 3);
+		for (int i = 0; i < 3; i++) {
+			cache.put(i, 0, compA);
+		}
+		assertEquals(3, cache.size());
+		cache.put(100, 0, compB);
+		assertEquals(1, cache.size());
+		assertSame(compB, cache.get(100, 0));
+	}
+
+}
@@ -9,6 +9,8 @@ import org.mt4j.test.AbstractWindowTestcase;
 import org.mt4j.test.testUtil.DummyScene;
 import org.mt4j.test.testUtil.TestRunnable;
 import org.mt4j.util.MTColor;
+import org.mt4j.util.camera.MTCamera;
+import org.mt4j.util.math.Matrix;
 import org.mt4j.util.math.Tools3D;
 import org.mt4j.util.math.ToolsMath;
 import org.mt4j.util.math.Vector3D;
@@ -139,6 +141,199 @@ public class MTComponentTest extends AbstractWindowTestcase {
 	}
 	
 	
+	private static void assertGlobalTranslation(MTComponent comp, float x, float y, float z){
+		Matrix global = comp.getGlobalMatrix();
+		assertEquals(comp.getName() + " global x", x, global.m03, 0.001f);
+		assertEquals(comp.getName() + " global y", y, global.m13, 0.001f);
+		assertEquals(comp.getName() + " global z", z, global.m23, 0.001f);
+		//The inverse has to map the global position back to the origin
+		Vector3D origin = comp.getGlobalInverseMatrix().mult(new Vector3D(x, y, z));
+		assertTrue(comp.getName() + " global inverse", origin.equalsVectorWithTolerance(Vector3D.ZERO_VECTOR, 0.001f));
+	}
+	
+	
+	public void testGlobalMatrixParentTranslate(){
+		runTest(new TestRunnable() {
+			@Override
+			public void runMTTestCode() {
+				MTComponent child = new MTComponent(app, "child");
+				MTComponent grandChild = new MTComponent(app, "grandChild");
+				parent.addChild(child);
+				child.addChild(grandChild);
+				child.translate(new Vector3D(5, 0, 0));
+				assertGlobalTranslation(child, 5, 0, 0);
+				assertGlobalTranslation(grandChild, 5, 0, 0);
+				
+				parent.translate(new Vector3D(10, 20, 0));
+				assertGlobalTranslation(child, 15, 20, 0);
+				assertGlobalTranslation(grandChild, 15, 20, 0);
+				
+				//Query the deepest component first
+				parent.translate(new Vector3D(0, 0, 3));
+				grandChild.translate(new Vector3D(1, 1, 1));
+				assertGlobalTranslation(grandChild, 16, 21, 4);
+				assertGlobalTranslation(child, 15, 20, 3);
+				assertGlobalTranslation(grandChild, 16, 21, 4);
+				assertTrue(grandChild.localToGlobal(new Vector3D(0, 0, 0)).equalsVectorWithTolerance(new Vector3D(16, 21, 4), 0.001f));
+				
+				parent.setLocalMatrix(new Matrix());
+				assertGlobalTranslation(grandChild, 6, 1, 1);
+				parent.removeAllChildren();
+			}
+		});
+	}
+	
+	
+	public void testGlobalMatrixDeepChain(){
+		runTest(new TestRunnable() {
+			@Override
+			public void runMTTestCode() {
+				MTComponent[] chain = new MTComponent[50];
+				MTComponent last = parent;
+				for (int i = 0; i < chain.length; i++) {
+					chain[i] = new MTComponent(app, "level " + i);
+					chain[i].translate(new Vector3D(1, 0, 0));
+					last.addChild(chain[i]);
+					last = chain[i];
+				}
+				assertGlobalTranslation(chain[49], 50, 0, 0);
+				assertGlobalTranslation(chain[0], 1, 0, 0);
+				
+				chain[0].translate(new Vector3D(100, 0, 0));
+				assertGlobalTranslation(chain[49], 150, 0, 0);
+				assertGlobalTranslation(chain[24], 125, 0, 0);
+				
+				//Only the lower half of the chain moves
+				chain[25].translate(new Vector3D(10, 0, 0));
+				assertGlobalTranslation(chain[24], 125, 0, 0);
+				assertGlobalTranslation(chain[25], 136, 0, 0);
+				assertGlobalTranslation(chain[49], 160, 0, 0);
+				
+				parent.translate(new Vector3D(0, 7, 0));
+				for (int i = 0; i < chain.length; i++) {
+					assertGlobalTranslation(chain[i], i + 101 + (i >= 25 ? 10 : 0), 7, 0);
+				}
+				
+				parent.setLocalMatrix(new Matrix());
+				parent.removeAllChildren();
+			}
+		});
+	}
+	
+	
+	public void testGlobalMatrixReparent(){
+		runTest(new TestRunnable() {
+			@Override
+			public void runMTTestCode() {
+				MTComponent parentA = new MTComponent(app, "parentA");
+				MTComponent parentB = new MTComponent(app, "parentB");
+				parent.addChild(parentA);
+				parent.addChild(parentB);
+				parentA.translate(new Vector3D(100, 0, 0));
+				parentB.translate(new Vector3D(0, 200, 0));
+				
+				MTComponent child = new MTComponent(app, "child");
+				MTComponent grandChild = new MTComponent(app, "grandChild");
+				child.addChild(grandChild);
+				child.translate(new Vector3D(1, 1, 0));
+				
+				parentA.addChild(child);
+				assertGlobalTranslation(grandChild, 101, 1, 0);
+				
+				//Without parent the global matrix is the local matrix
+				parentA.removeChild(child);
+				assertNull(child.getParent());
+				assertGlobalTranslation(child, 1, 1, 0);
+				assertGlobalTranslation(grandChild, 1, 1, 0);
+				
+				parentB.addChild(child);
+				assertGlobalTranslation(grandChild, 1, 201, 0);
+				
+				//Move directly to the other parent
+				parentA.addChild(child);
+				assertEquals(parentA, child.getParent());
+				assertFalse(parentB.containsDirectChild(child));
+				assertGlobalTranslation(grandChild, 101, 1, 0);
+				
+				//Transforming the old parent doesnt move the child anymore
+				parentB.translate(new Vector3D(0, 50, 0));
+				assertGlobalTranslation(grandChild, 101, 1, 0);
+				parentA.translate(new Vector3D(0, 0, 5));
+				assertGlobalTranslation(grandChild, 101, 1, 5);
+				
+				parent.removeAllChildren();
+			}
+		});
+	}
+	
+	
+	public void testGlobalMatrixSetLocalMatrix(){
+		runTest(new TestRunnable() {
+			@Override
+			public void runMTTestCode() {
+				MTComponent child = new MTComponent(app, "child");
+				MTComponent grandChild = new MTComponent(app, "grandChild");
+				parent.addChild(child);
+				child.addChild(grandChild);
+				
+				parent.setLocalMatrix(Matrix.getTranslationMatrix(10, 0, 0));
+				child.setLocalMatrix(Matrix.getTranslationMatrix(0, 5, 0));
+				assertGlobalTranslation(child, 10, 5, 0);
+				assertGlobalTranslation(grandChild, 10, 5, 0);
+				
+				grandChild.setLocalMatrix(Matrix.getTranslationMatrix(0, 0, 2));
+				assertGlobalTranslation(grandChild, 10, 5, 2);
+				
+				parent.setLocalMatrix(Matrix.getTranslationMatrix(-3, 0, 0));
+				assertGlobalTranslation(grandChild, -3, 5, 2);
+				assertGlobalTranslation(child, -3, 5, 0);
+				
+				//A scaled parent scales the translation of the children
+				parent.setLocalMatrix(Matrix.getScalingMatrix(2, 2, 2));
+				assertGlobalTranslation(child, 0, 10, 0);
+				assertGlobalTranslation(grandChild, 0, 10, 4);
+				
+				parent.setLocalMatrix(new Matrix());
+				assertGlobalTranslation(grandChild, 0, 5, 2);
+				parent.removeAllChildren();
+			}
+		});
+	}
+	
+	
+	public void testHitTestCacheCameraChanges(){
+		runTest(new TestRunnable() {
+			@Override
+			public void runMTTestCode() {
+				MTRectangle rect = new MTRectangle(getMTApplication(),100,100);
+				parent.addChild(rect);
+				MTCanvas canvas = getCanvas();
+				MTCamera cam = (MTCamera) canvas.getViewingCamera();
+				assertEquals(rect, canvas.getComponentAt(50, 50));
+				
+				//Roll the camera - the cached result may not be used anymore
+				cam.setXAxisUp(1);
+				cam.setYAxisUp(0);
+				assertEquals(canvas, canvas.getComponentAt(50, 50));
+				cam.setXAxisUp(0);
+				cam.setYAxisUp(1);
+				assertEquals(rect, canvas.getComponentAt(50, 50));
+				
+				//Switch to another camera at the same position
+				MTCamera rolledCam = new MTCamera(getMTApplication());
+				rolledCam.setXAxisUp(1);
+				rolledCam.setYAxisUp(0);
+				canvas.attachCamera(rolledCam);
+				assertEquals(canvas, canvas.getComponentAt(50, 50));
+				canvas.attachCamera(cam);
+				assertEquals(rect, canvas.getComponentAt(50, 50));
+				
+				parent.removeAllChildren();
+			}
+		});
+	}
+	
+	
 	
 	
 	
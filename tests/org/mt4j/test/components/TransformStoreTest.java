@@ -0,0 +1,158 @@
+package org.mt4j.test.components;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.mt4j.components.TransformStore;
+import org.mt4j.util.math.Matrix;
+import org.mt4j.util.math.Vector3D;
+
+public class TransformStoreTest extends TestCase {
+
+	private static final int NODES = 200;
+
+	private Random random;
+	private TransformStore store;
+	private int[] slots;
+	private int[] parents;
+	private Matrix[] locals;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		random = new Random(7);
+		store = new TransformStore(4);
+		slots = new int[NODES];
+		parents = new int[NODES];
+		locals = new Matrix[NODES];
+		for (int i = 0; i < NODES; i++) {
+			parents[i] = i == 0 ? -1 : random.nextInt(i);
+			slots[i] = store.allocate(null, parents[i] < 0 ? TransformStore.NO_PARENT : slots[parents[i]]);
+			locals[i] = this.randomMatrix();
+			store.setLocal(slots[i], locals[i]);
+		}
+	}
+
+	private Matrix randomMatrix(){
+		Matrix m = Matrix.getZRotationMatrix(new Vector3D(random.nextFloat(), random.nextFloat(), 0), random.nextFloat() * 20);
+		m.multLocal(Matrix.getTranslationMatrix(random.nextFloat() * 5, random.nextFloat() * 5, 0));
+		return m;
+	}
+
+	private Matrix expectedWorld(int node){
+		Matrix m = new Matrix(locals[node]);
+		for (int p = parents[node]; p >= 0; p = parents[p]) {
+			m = locals[p].mult(m, new Matrix());
+		}
+		return m;
+	}
+
+	private void checkAll(){
+		store.update();
+		assertFalse(store.isDirty());
+		Matrix world = new Matrix();
+		for (int i = 0; i < NODES; i++) {
+			if (slots[i] >= 0){
+				store.getWorld(slots[i], world);
+				assertMatrixEquals(this.expectedWorld(i), world);
+			}
+		}
+	}
+
+	public void testWorldMatrices(){
+		assertTrue(store.isDirty());
+		this.checkAll();
+		assertEquals(1, store.getUpdateCount());
+		store.update();
+		assertEquals("No pass without changes", 1, store.getUpdateCount());
+
+		for (int i = 0; i < 20; i++) {
+			int node = random.nextInt(NODES);
+			locals[node] = this.randomMatrix();
+			store.setLocal(slots[node], locals[node]);
+		}
+		this.checkAll();
+	}
+
+	public void testReparentReorders(){
+		TransformStore small = new TransformStore();
+		int root = small.allocate(null, TransformStore.NO_PARENT);
+		int a = small.allocate(null, root);
+		int b = small.allocate(null, root);
+		int c = small.allocate(null, root);
+		Matrix rootLocal = this.randomMatrix();
+		Matrix aLocal = this.randomMatrix();
+		Matrix cLocal = this.randomMatrix();
+		small.setLocal(root, rootLocal);
+		small.setLocal(a, aLocal);
+		small.setLocal(b, this.randomMatrix());
+		small.setLocal(c, cLocal);
+		small.update();
+		assertEquals(0, small.getReorderCount());
+
+		//Move a below c, which has a higher slot -> a becomes the last slot
+		small.setParent(a, c);
+		small.update();
+		assertEquals(1, small.getReorderCount());
+		assertEquals(4, small.getSlotCount());
+		assertEquals(2, small.getParent(3));
+		Matrix expected = rootLocal.mult(cLocal, new Matrix()).mult(aLocal, new Matrix());
+		assertMatrixEquals(expected, small.getWorld(3, new Matrix()));
+	}
+
+	private static void assertMatrixEquals(Matrix expected, Matrix actual){
+		try {
+			for (int i = 0; i < 4; i++) {
+				float[] e = expected.getRow(i);
+				float[] a = actual.getRow(i);
+				for (int j = 0; j < 4; j++) {
+					assertEquals(e[j], a[j], 0.01f);
+				}
+			}
+		} catch (Exception e) {
+			fail(e.toString());
+		}
+	}
+
+	public void testReleaseCompacts(){
+		this.checkAll();
+		//Release the leaves
+		boolean[] hasChild = new boolean[NODES];
+		for (int i = 1; i < NODES; i++) {
+			hasChild[parents[i]] = true;
+		}
+		int releasedCount = 0;
+		for (int i = 0; i < NODES; i++) {
+			if (!hasChild[i]){
+				store.release(slots[i]);
+				slots[i] = -1;
+				releasedCount++;
+			}
+		}
+		assertEquals(NODES - releasedCount, store.getSlotCount());
+		//Changes are still applied to the remaining nodes
+		locals[0] = this.randomMatrix();
+		store.setLocal(slots[0], locals[0]);
+		store.update();
+		assertEquals(1, store.getReorderCount());
+		//Slots were compacted - without owners the test can't know the new slots, so only check the root
+		Matrix world = store.getWorld(0, new Matrix());
+		assertMatrixEquals(locals[0], world);
+	}
+
+	public void testInvalidSlot(){
+		try {
+			store.getWorld(NODES, new Matrix());
+			fail("Slot outside the store");
+		} catch (IllegalArgumentException expected) {
+		}
+		store.release(slots[NODES - 1]);
+		try {
+			store.setLocal(slots[NODES - 1], new Matrix());
+			fail("Released slot");
+		} catch (IllegalArgumentException expected) {
+		}
+	}
+
+}
@@ -0,0 +1,67 @@
+package org.mt4j.test.components.visibleComponents.font;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.mt4j.components.visibleComponents.font.fontFactories.GlyphAtlasPacker;
+
+public class GlyphAtlasPackerTest extends TestCase {
+
+	public void testGlyphsDontOverlap(){
+		GlyphAtlasPacker packer = new GlyphAtlasPacker(128, 1);
+		Random random = new Random(7);
+		int count = 300;
+		int[][] rects = new int[count][5];
+		for (int i = 0; i < count; i++) {
+			int w = 3 + random.nextInt(20);
+			int h = 3 + random.nextInt(25);
+			int[] result = new int[3];
+			packer.pack(w, h, result);
+			rects[i] = new int[]{result[0], result[1], result[2], w, h};
+
+			assertTrue(result[1] >= 0 && result[1] + w <= packer.getPageWidth(result[0]));
+			assertTrue(result[2] >= 0 && result[2] + h <= packer.getPageHeight(result[0]));
+			assertTrue(packer.getPageWidth(result[0]) <= 128);
+			assertTrue(packer.getPageHeight(result[0]) <= 128);
+		}
+		assertTrue(packer.getPageCount() > 1);
+
+		for (int i = 0; i < count; i++) {
+			for (int j = i + 1; j < count; j++) {
+				int[] a = rects[i];
+				int[] b = rects[j];
+				boolean overlap = a[0] == b[0]
+					&& a[1] < b[1] + b[3] && b[1] < a[1] + a[3]
+					&& a[2] < b[2] + b[4] && b[2] < a[2] + a[4];
+				assertFalse("Glyphs " + i + " and " + j + " overlap", overlap);
+			}
+		}
+	}
+
+	public void testPadding(){
+		GlyphAtlasPacker packer = new GlyphAtlasPacker(64, 2);
+		int[] a = new int[3];
+		int[] b = new int[3];
+		packer.pack(10, 10, a);
+		packer.pack(10, 10, b);
+		assertEquals(0, a[1]);
+		assertEquals(12, b[1]);
+		assertEquals(1, packer.getPageCount());
+		//Trimmed to power of two
+		assertEquals(32, packer.getPageWidth(0));
+		assertEquals(16, packer.getPageHeight(0));
+	}
+
+	public void testOversizedGlyphGetsOwnPage(){
+		GlyphAtlasPacker packer = new GlyphAtlasPacker(64, 1);
+		int[] result = new int[3];
+		packer.pack(10, 10, result);
+		packer.pack(100, 20, result);
+		assertEquals(1, result[0]);
+		assertEquals(128, packer.getPageWidth(1));
+		packer.pack(10, 10, result);
+		assertEquals(2, result[0]);
+	}
+
+}
@@ -0,0 +1,104 @@
+package org.mt4j.test.components.visibleComponents.font;
+
+import junit.framework.TestCase;
+
+import org.mt4j.components.visibleComponents.font.TextRunBuffer;
+import org.mt4j.util.math.Vertex;
+
+public class TextRunBufferTest extends TestCase {
+
+	private static final int PADDING = 8;
+	private static final int LINE_HEIGHT = 20;
+
+	private TextRunBuffer run;
+	private Object page1;
+	private Object page2;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		run = new TextRunBuffer();
+		page1 = new Object();
+		page2 = new Object();
+	}
+
+	private Vertex[] quad(float x, float y, float w, float h, float u){
+		return new Vertex[]{
+				new Vertex(x, y, 0, u, 0),
+				new Vertex(x + w, y, 0, u + 0.1f, 0),
+				new Vertex(x + w, y + h, 0, u + 0.1f, 0.1f),
+				new Vertex(x, y + h, 0, u, 0.1f)};
+	}
+
+	public void testLayout(){
+		run.begin(PADDING, LINE_HEIGHT);
+		run.addCharacter("a", 10, quad(1, -12, 8, 12, 0.5f), page1);
+		run.addCharacter(" ", 5, null, null);
+		run.addCharacter("b", 11, quad(0, -14, 9, 14, 0.2f), page1);
+		run.addCharacter("\n", 0, null, null);
+		run.addCharacter("c", 9, quad(2, -10, 7, 10, 0.3f), page1);
+		run.end();
+
+		assertEquals(3, run.getQuadCount());
+		assertEquals(1, run.getGroupCount());
+		assertEquals(3, run.getGroupQuadCount(0));
+
+		float[] data = run.getData();
+		int stride = TextRunBuffer.FLOATS_PER_VERTEX;
+		//First vertex of 'a': u, v, x, y
+		assertEquals(0.5f, data[0]);
+		assertEquals(PADDING + 1f, data[2]);
+		assertEquals(-12f, data[3]);
+		//'b' after 'a' and the space
+		assertEquals(PADDING + 10 + 5f, data[4 * stride + 2]);
+		//'c' on the next line, starting at the padding again
+		assertEquals(PADDING + 2f, data[8 * stride + 2]);
+		assertEquals(LINE_HEIGHT - 10f, data[8 * stride + 3]);
+
+		//Caret after 'c'
+		assertEquals(PADDING + 2 + 9 - 3f, run.getCaretX());
+		assertEquals((float)LINE_HEIGHT, run.getCaretY());
+	}
+
+	public void testGroupsByTexture(){
+		run.begin(PADDING, LINE_HEIGHT);
+		run.addCharacter("a", 10, quad(0, 0, 5, 5, 0), page1);
+		run.addCharacter("b", 10, quad(0, 0, 5, 5, 0), page1);
+		run.addCharacter("c", 10, quad(0, 0, 5, 5, 0), page2);
+		run.addCharacter("d", 10, quad(0, 0, 5, 5, 0), page1);
+		run.end();
+		assertEquals(3, run.getGroupCount());
+		assertEquals(page2, run.getGroupTexture(1));
+		assertEquals(2, run.getGroupFirstQuad(1));
+		assertEquals(1, run.getGroupQuadCount(2));
+	}
+
+	public void testCaretPositions(){
+		run.begin(PADDING, LINE_HEIGHT);
+		run.end();
+		assertEquals(0f, run.getCaretX());
+
+		run.begin(PADDING, LINE_HEIGHT);
+		run.addCharacter("a", 12, null, null);
+		run.addCharacter("\n", 0, null, null);
+		run.end();
+		assertEquals((float)PADDING, run.getCaretX());
+		assertEquals((float)LINE_HEIGHT, run.getCaretY());
+
+		run.begin(PADDING, LINE_HEIGHT);
+		run.addCharacter("\t", 40, null, null);
+		run.end();
+		assertEquals(PADDING + 40 - 2f, run.getCaretX());
+		assertEquals(0, run.getQuadCount());
+
+		//Growing the buffer
+		run.begin(PADDING, LINE_HEIGHT);
+		for (int i = 0; i < 1000; i++) {
+			run.addCharacter("x", 3, quad(0, 0, 1, 1, 0), page1);
+		}
+		run.end();
+		assertEquals(1000, run.getQuadCount());
+		assertEquals(PADDING + 999 * 3f, run.getData()[999 * 4 * TextRunBuffer.FLOATS_PER_VERTEX + 2]);
+	}
+
+}
@@ -0,0 +1,114 @@
+package org.mt4j.test.components.visibleComponents.shapes.mesh;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.mt4j.components.visibleComponents.shapes.mesh.Triangle;
+import org.mt4j.components.visibleComponents.shapes.mesh.TriangleHierarchy;
+import org.mt4j.util.math.Matrix;
+import org.mt4j.util.math.Ray;
+import org.mt4j.util.math.ToolsGeometry;
+import org.mt4j.util.math.Vector3D;
+import org.mt4j.util.math.Vertex;
+
+public class TriangleHierarchyTest extends TestCase {
+
+	private static final int TRIANGLES = 400;
+
+	private Random random;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		random = new Random(7);
+	}
+
+	private Triangle[] createTriangles(int count, float offset){
+		Triangle[] triangles = new Triangle[count];
+		for (int i = 0; i < count; i++) {
+			float x = offset + random.nextFloat() * 100;
+			float y = random.nextFloat() * 100;
+			float z = random.nextFloat() * 100;
+			triangles[i] = new Triangle(
+					new Vertex(x, y, z), 
+					new Vertex(x + random.nextFloat() * 10, y + random.nextFloat() * 10, z + random.nextFloat() * 10), 
+					new Vertex(x + random.nextFloat() * 10, y + random.nextFloat() * 10, z + random.nextFloat() * 10), 
+					i * 3, i * 3 + 1, i * 3 + 2);
+		}
+		return triangles;
+	}
+
+	private Vector3D getClosestIntersectionBruteForce(Triangle[] triangles, Ray ray){
+		float distance = Float.MAX_VALUE;
+		Vector3D closest = null;
+		for (Triangle tri : triangles) {
+			Vector3D point = tri.getRayTriangleIntersection(ray);
+			if (point != null && point.getSubtracted(ray.getRayStartPoint()).length() <= distance){
+				distance = point.getSubtracted(ray.getRayStartPoint()).length();
+				closest = point;
+			}
+		}
+		return closest;
+	}
+
+	public void testRayMatchesBruteForce(){
+		Triangle[] triangles = this.createTriangles(TRIANGLES, 0);
+		TriangleHierarchy hierarchy = new TriangleHierarchy(triangles);
+		int hits = 0;
+		for (int i = 0; i < 300; i++) {
+			Vector3D start = new Vector3D(random.nextFloat() * 110, random.nextFloat() * 110, -50);
+			Vector3D target = new Vector3D(random.nextFloat() * 110, random.nextFloat() * 110, 200);
+			Ray ray = new Ray(start, target);
+
+			Vector3D expected = this.getClosestIntersectionBruteForce(triangles, ray);
+			Vector3D actual = hierarchy.getClosestIntersection(ray);
+			if (expected == null){
+				assertNull(actual);
+			}else{
+				hits++;
+				assertNotNull(actual);
+				assertTrue(expected.equalsVectorWithTolerance(actual, 0.0001f));
+			}
+		}
+		assertTrue("The rays should hit some triangles", hits > 10);
+	}
+
+	public void testIntersectsMatchesBruteForce(){
+		Triangle[] trianglesA = this.createTriangles(TRIANGLES, 0);
+		Triangle[] trianglesB = this.createTriangles(TRIANGLES, 0);
+		TriangleHierarchy hierarchyA = new TriangleHierarchy(trianglesA);
+		TriangleHierarchy hierarchyB = new TriangleHierarchy(trianglesB);
+
+		float[] offsets = new float[]{0, 50, 105, 200};
+		for (float offset : offsets) {
+			Matrix bToA = Matrix.getZRotationMatrix(new Vector3D(50, 50, 0), 30);
+			bToA = Matrix.getTranslationMatrix(offset, 0, 0).mult(bToA);
+
+			boolean expected = false;
+			for (int i = 0; i < trianglesA.length && !expected; i++) {
+				for (int j = 0; j < trianglesB.length && !expected; j++) {
+					Triangle b = trianglesB[j];
+					expected = ToolsGeometry.isTrianglesIntersect(trianglesA[i].v0, trianglesA[i].v1, trianglesA[i].v2,
+							bToA.mult(b.v0, null), bToA.mult(b.v1, null), bToA.mult(b.v2, null));
+				}
+			}
+			assertEquals("Offset " + offset, expected, hierarchyA.intersects(hierarchyB, bToA));
+		}
+		assertTrue(hierarchyA.intersects(hierarchyA, null));
+	}
+
+	public void testSeparatedMeshes(){
+		TriangleHierarchy hierarchyA = new TriangleHierarchy(this.createTriangles(TRIANGLES, 0));
+		TriangleHierarchy hierarchyB = new TriangleHierarchy(this.createTriangles(TRIANGLES, 500));
+		assertFalse(hierarchyA.intersects(hierarchyB, null));
+		assertTrue(hierarchyA.intersects(hierarchyB, Matrix.getTranslationMatrix(-500, 0, 0)));
+	}
+
+	public void testEmpty(){
+		TriangleHierarchy hierarchy = new TriangleHierarchy(new Triangle[0]);
+		assertNull(hierarchy.getClosestIntersection(new Ray(new Vector3D(0, 0, -1), new Vector3D(0, 0, 1))));
+		assertFalse(hierarchy.intersects(hierarchy, null));
+	}
+
+}
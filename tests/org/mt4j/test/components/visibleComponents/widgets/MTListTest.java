@@ -0,0 +1,218 @@
+package org.mt4j.test.components.visibleComponents.widgets;
+
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.mt4j.components.MTComponent;
+import org.mt4j.components.visibleComponents.widgets.IListCellProvider;
+import org.mt4j.components.visibleComponents.widgets.MTList;
+import org.mt4j.components.visibleComponents.widgets.MTListCell;
+import org.mt4j.util.MT4jSettings;
+import org.mt4j.util.logging.JavaLogger;
+import org.mt4j.util.logging.MTLoggerFactory;
+
+import processing.core.PApplet;
+
+public class MTListTest extends TestCase {
+
+	private static final float CELL_HEIGHT = 40;
+	private static final float LIST_HEIGHT = 300;
+
+	private PApplet app;
+	private int rendererMode;
+	private FakeCellProvider provider;
+	private MTList list;
+
+	private class FakeCellProvider implements IListCellProvider{
+		private int count;
+		private int created;
+		private int binds;
+		private final Map<MTListCell, Integer> boundRows = new IdentityHashMap<MTListCell, Integer>();
+		private final Map<MTListCell, Boolean> boundSelected = new IdentityHashMap<MTListCell, Boolean>();
+
+		public FakeCellProvider(int count){
+			this.count = count;
+		}
+
+		public int getCellCount() {
+			return count;
+		}
+
+		public MTListCell createCell(MTList list) {
+			created++;
+			return new MTListCell(app, 200, CELL_HEIGHT);
+		}
+
+		public void bindCell(MTListCell cell, int index) {
+			assertTrue(index >= 0 && index < count);
+			binds++;
+			boundRows.put(cell, index);
+			boundSelected.put(cell, cell.isSelected());
+		}
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		MTLoggerFactory.setLoggerProvider(new JavaLogger());
+		app = new PApplet();
+		//Create the components without an OpenGL context
+		rendererMode = MT4jSettings.getInstance().renderer;
+		MT4jSettings.getInstance().renderer = MT4jSettings.P3D_MODE;
+
+		list = new MTList(app, 0, 0, 200, LIST_HEIGHT, 0);
+		list.setPreferredCellHeight(CELL_HEIGHT);
+		provider = new FakeCellProvider(10000);
+		list.setCellProvider(provider);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		MT4jSettings.getInstance().renderer = rendererMode;
+	}
+
+	/**
+	 * Checks that the cells in the scene graph are bound to the rows from the first
+	 * visible index on and returns the number of them.
+	 */
+	private int assertCellsBound(){
+		MTComponent container = list.getChildren()[0];
+		Set<Integer> rows = new HashSet<Integer>();
+		for (MTComponent child : container.getChildren()) {
+			Integer row = provider.boundRows.get(child);
+			assertNotNull("Cell was bound", row);
+			assertTrue("Row " + row + " in the visible window", row >= list.getFirstVisibleIndex()
+					&& row < list.getFirstVisibleIndex() + list.getVisibleCellCount());
+			assertTrue("Row bound once", rows.add(row));
+		}
+		assertEquals(list.getVisibleCellCount(), container.getChildren().length);
+		return rows.size();
+	}
+
+	public void testOnlyVisibleWindowIsMaterialized(){
+		int visibleRows = (int) Math.ceil(LIST_HEIGHT / CELL_HEIGHT);
+		assertEquals(1, list.getCellOverscan());
+		assertEquals(0, list.getFirstVisibleIndex());
+		//No overscan above the first row
+		assertEquals(visibleRows + 1, list.getVisibleCellCount());
+		assertEquals(visibleRows + 1, provider.created);
+		assertEquals(visibleRows + 1, list.getMaterializedCellCount());
+		assertCellsBound();
+
+		list.setCellOverscan(3);
+		assertEquals(visibleRows + 3, list.getVisibleCellCount());
+
+		list.scrollY(-100 * CELL_HEIGHT);
+		assertEquals(100 - 3, list.getFirstVisibleIndex());
+		assertEquals(visibleRows + 2 * 3, list.getVisibleCellCount());
+		assertEquals(visibleRows + 2 * 3, assertCellsBound());
+	}
+
+	public void testCellsAreRecycledOnScroll(){
+		list.scrollY(-5 * CELL_HEIGHT);
+		//A partially visible row at both ends needs one more cell
+		for (int i = 0; i < 4; i++) {
+			list.scrollY(-CELL_HEIGHT / 4);
+		}
+		int created = provider.created;
+		int materialized = list.getMaterializedCellCount();
+		int binds = provider.binds;
+		assertEquals(created, materialized);
+
+		for (int i = 0; i < 196; i++) {
+			list.scrollY(-CELL_HEIGHT / 4);
+			assertCellsBound();
+		}
+		assertEquals(50 + 5 - 1, list.getFirstVisibleIndex());
+		assertEquals("Scrolled out cells are reused", created, provider.created);
+		assertEquals(materialized, list.getMaterializedCellCount());
+		assertEquals("Only the rows scrolled into view are bound", binds + 49, provider.binds);
+
+		//A jump rebinds the whole window, still without new cells
+		list.scrollY(-2000 * CELL_HEIGHT);
+		assertCellsBound();
+		list.scrollY(1000 * CELL_HEIGHT);
+		assertCellsBound();
+		assertEquals(created, provider.created);
+	}
+
+	public void testNotifyCellsChangedRebindsAndClamps(){
+		//Scroll to the end of the list
+		list.scrollY(-1000000);
+		assertEquals(10000, list.getFirstVisibleIndex() + list.getVisibleCellCount());
+
+		provider.count = 20;
+		provider.boundRows.clear();
+		int created = provider.created;
+		list.notifyCellsChanged();
+		assertEquals("Scrolled back to the end of the shorter list", 20, list.getFirstVisibleIndex() + list.getVisibleCellCount());
+		assertTrue(list.getFirstVisibleIndex() > 0);
+		assertEquals("All visible cells are bound again", list.getVisibleCellCount(), assertCellsBound());
+		assertEquals(created, provider.created);
+
+		provider.count = 3;
+		provider.boundRows.clear();
+		list.notifyCellsChanged();
+		assertEquals(0, list.getFirstVisibleIndex());
+		assertEquals(3, list.getVisibleCellCount());
+		assertEquals(3, assertCellsBound());
+		assertEquals("Removed rows leave their cells in the pool", created, list.getMaterializedCellCount());
+
+		//The container fits into the list, so it can't be scrolled
+		list.scrollY(-200);
+		assertEquals(0, list.getFirstVisibleIndex());
+		assertEquals(3, list.getVisibleCellCount());
+	}
+
+	/**
+	 * Checks that exactly the cells of the selected rows are selected when they are bound.
+	 */
+	private void assertSelectionBound(){
+		for (MTComponent child : list.getChildren()[0].getChildren()) {
+			MTListCell cell = (MTListCell) child;
+			int row = provider.boundRows.get(cell);
+			assertEquals("Selection of row " + row, list.isCellSelected(row), cell.isSelected());
+			assertEquals("Selection of row " + row + " when bound", list.isCellSelected(row), provider.boundSelected.get(cell).booleanValue());
+		}
+	}
+
+	public void testRecycledCellsGetTheSelectionOfTheirRow(){
+		list.setCellSelected(2, true);
+		list.setCellSelected(4, true);
+		assertTrue(list.isCellSelected(2));
+		assertFalse(list.isCellSelected(3));
+		assertSelectionBound();
+		list.setCellSelected(4, false);
+		assertSelectionBound();
+
+		//The cell of row 2 is recycled for a row further down
+		for (int i = 0; i < 40; i++) {
+			list.scrollY(-CELL_HEIGHT / 2);
+			assertSelectionBound();
+		}
+		assertTrue(list.getFirstVisibleIndex() > 2);
+		assertTrue("Cells were recycled", provider.created < list.getFirstVisibleIndex() + list.getVisibleCellCount());
+		list.setCellSelected(list.getFirstVisibleIndex() + 1, true);
+		assertSelectionBound();
+
+		//Scrolled back, row 2 is selected again
+		list.scrollY(1000 * CELL_HEIGHT);
+		assertEquals(0, list.getFirstVisibleIndex());
+		assertSelectionBound();
+		assertTrue(list.isCellSelected(2));
+
+		//Removed rows lose their selection
+		provider.count = 2;
+		list.notifyCellsChanged();
+		provider.count = 10;
+		list.notifyCellsChanged();
+		assertFalse(list.isCellSelected(2));
+		assertSelectionBound();
+	}
+
+}
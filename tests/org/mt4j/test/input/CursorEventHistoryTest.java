@@ -0,0 +1,128 @@
+package org.mt4j.test.input;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.mt4j.input.inputData.AbstractCursorInputEvt;
+import org.mt4j.input.inputData.CursorEventHistory;
+import org.mt4j.input.inputData.InputCursor;
+import org.mt4j.input.inputData.MTFingerInputEvt;
+import org.mt4j.util.logging.JavaLogger;
+import org.mt4j.util.logging.MTLoggerFactory;
+import org.mt4j.util.math.Vector3D;
+
+public class CursorEventHistoryTest extends TestCase {
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		MTLoggerFactory.setLoggerProvider(new JavaLogger());
+	}
+
+	private MTFingerInputEvt event(float x, float y, InputCursor c){
+		return new MTFingerInputEvt(null, x, y, MTFingerInputEvt.INPUT_UPDATED, c);
+	}
+
+	public void testRingBuffer(){
+		CursorEventHistory history = new CursorEventHistory(4);
+		List<AbstractCursorInputEvt> view = history.asList();
+		assertTrue(view.isEmpty());
+
+		MTFingerInputEvt[] events = new MTFingerInputEvt[6];
+		for (int i = 0; i < events.length; i++) {
+			events[i] = event(i, 10 * i, null);
+			history.add(events[i]);
+		}
+		assertEquals(4, history.size());
+		assertEquals(4, view.size());
+		//The two oldest were overwritten
+		assertEquals(events[2], history.get(0));
+		assertEquals(events[5], view.get(3));
+		assertEquals(2f, history.getX(0));
+		assertEquals(50f, history.getY(3));
+		assertEquals(-1, history.indexOf(events[1]));
+		assertEquals(1, view.indexOf(events[3]));
+
+		try {
+			history.get(4);
+			fail();
+		} catch (IndexOutOfBoundsException e) {}
+		try {
+			view.add(events[0]);
+			fail();
+		} catch (UnsupportedOperationException e) {}
+
+		history.clear();
+		assertEquals(0, view.size());
+	}
+
+	public void testTimeWindow(){
+		CursorEventHistory history = new CursorEventHistory(8);
+		for (int i = 0; i < 5; i++) {
+			history.add(event(i, 0, null));
+		}
+		long now = history.getTimeStamp(4);
+		assertEquals(0, history.getFirstIndexSince(now, 10000, 0));
+		assertEquals(1, history.getFirstIndexSince(now, 10000, 1));
+		assertEquals(5, history.getFirstIndexSince(now + 20000, 10000, 0));
+	}
+
+	public void testCursorVelocityAndDirection(){
+		InputCursor c = new InputCursor();
+		assertEquals(Vector3D.ZERO_VECTOR, c.getDirection());
+		for (int i = 0; i < 150; i++) {
+			event(2 * i, 100 - i, c).onFired();
+		}
+		//Only the last events are kept
+		assertEquals(99, c.getEventCount());
+		assertEquals(102f, c.getFirstEvent().getX());
+		assertEquals(298f, c.getCurrentEvent().getX());
+		assertEquals(c.getEvents().get(97), c.getPreviousEvent());
+		assertEquals(c.getEvents().get(10), c.getPreviousEventOf(c.getEvents().get(11)));
+		assertNull(c.getPreviousEventOf(c.getEvents().get(1)));
+
+		Vector3D dir = new Vector3D();
+		assertSame(dir, c.getDirection(dir));
+		assertEquals(2f, dir.x);
+		assertEquals(-1f, dir.y);
+
+		//All events but the first are in the time window
+		Vector3D vel = c.getVelocityVector(100000);
+		assertEquals(0.2f * (298 - 104), vel.x, 0.001f);
+		assertEquals(0.2f * -97, vel.y, 0.001f);
+		assertEquals(98, c.getEvents(100000).size());
+		assertEquals(c.getCurrentEvent(), c.getEvents(100000).get(0));
+
+		Vector3D result = new Vector3D(5, 5, 5);
+		c.getVelocityVector(-1, result);
+		assertEquals(0f, result.x);
+		assertEquals(0f, result.z);
+	}
+
+	public void testGetEventsReturnsReadOnlyView(){
+		InputCursor c = new InputCursor();
+		for (int i = 0; i < 3; i++) {
+			event(i, 0, c).onFired();
+		}
+		List<AbstractCursorInputEvt> events = c.getEvents();
+		assertEquals(3, events.size());
+		try {
+			events.remove(0);
+			fail();
+		} catch (UnsupportedOperationException e) {}
+		try {
+			events.add(event(10, 0, null));
+			fail();
+		} catch (UnsupportedOperationException e) {}
+		assertEquals(3, c.getEventCount());
+		assertEquals(0f, c.getFirstEvent().getX());
+
+		//The view isn't copied on each call and sees the later events
+		assertSame(events, c.getEvents());
+		event(3, 0, c).onFired();
+		assertEquals(4, events.size());
+		assertEquals(c.getCurrentEvent(), events.get(3));
+	}
+
+}
@@ -0,0 +1,207 @@
+package org.mt4j.test.input;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.mt4j.input.inputData.InputCursor;
+import org.mt4j.input.inputData.MTFingerInputEvt;
+import org.mt4j.input.inputData.MTInputEvent;
+import org.mt4j.input.inputSources.InputEventQueue;
+import org.mt4j.input.inputSources.InputEventQueue.OverflowPolicy;
+import org.mt4j.util.logging.JavaLogger;
+import org.mt4j.util.logging.MTLoggerFactory;
+
+public class InputEventQueueTest extends TestCase {
+	
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		MTLoggerFactory.setLoggerProvider(new JavaLogger());
+	}
+
+	public void testFifoOrder(){
+		InputEventQueue q = new InputEventQueue(8, OverflowPolicy.BLOCK);
+		InputCursor c = new InputCursor();
+		for (int i = 0; i < 5; i++) {
+			q.enqueue(new MTFingerInputEvt(null, i, 0, MTFingerInputEvt.INPUT_UPDATED, c));
+		}
+		assertEquals(5, q.size());
+		for (int i = 0; i < 5; i++) {
+			MTFingerInputEvt e = (MTFingerInputEvt) q.poll();
+			assertEquals((float)i, e.getX());
+		}
+		assertNull(q.poll());
+		assertEquals(5, q.getEnqueuedCount());
+	}
+
+	public void testDropOldest(){
+		InputEventQueue q = new InputEventQueue(4, OverflowPolicy.DROP_OLDEST);
+		InputCursor c = new InputCursor();
+		for (int i = 0; i < 6; i++) {
+			q.enqueue(new MTFingerInputEvt(null, i, 0, MTFingerInputEvt.INPUT_UPDATED, c));
+		}
+		assertEquals(4, q.size());
+		assertEquals(2, q.getDroppedCount());
+		assertEquals(2f, ((MTFingerInputEvt) q.poll()).getX());
+	}
+
+	public void testDropOldestKeepsStartedAndEnded(){
+		InputEventQueue q = new InputEventQueue(4, OverflowPolicy.DROP_OLDEST);
+		InputCursor a = new InputCursor();
+		InputCursor b = new InputCursor();
+		q.enqueue(new MTFingerInputEvt(null, 0, 0, MTFingerInputEvt.INPUT_STARTED, a));
+		q.enqueue(new MTFingerInputEvt(null, 1, 0, MTFingerInputEvt.INPUT_UPDATED, a));
+		q.enqueue(new MTFingerInputEvt(null, 2, 0, MTFingerInputEvt.INPUT_UPDATED, a));
+		q.enqueue(new MTFingerInputEvt(null, 3, 0, MTFingerInputEvt.INPUT_UPDATED, a));
+		//Queue is full and the started event is at the head -> merged into the last update
+		q.enqueue(new MTFingerInputEvt(null, 4, 0, MTFingerInputEvt.INPUT_UPDATED, a));
+		assertEquals(0, q.getDroppedCount());
+		assertEquals(1, q.getCoalescedCount());
+		assertEquals(MTFingerInputEvt.INPUT_STARTED, ((MTFingerInputEvt) q.poll()).getId());
+
+		q.enqueue(new MTFingerInputEvt(null, 4, 0, MTFingerInputEvt.INPUT_ENDED, a));
+		//Full, the oldest update is dropped for the started event
+		q.enqueue(new MTFingerInputEvt(null, 0, 0, MTFingerInputEvt.INPUT_STARTED, b));
+		assertEquals(1, q.getDroppedCount());
+		assertEquals(4, q.size());
+
+		assertEquals(2f, ((MTFingerInputEvt) q.poll()).getX());
+		assertEquals(4f, ((MTFingerInputEvt) q.poll()).getX());
+		assertEquals(MTFingerInputEvt.INPUT_ENDED, ((MTFingerInputEvt) q.poll()).getId());
+		assertEquals(b, ((MTFingerInputEvt) q.poll()).getCursor());
+		assertNull(q.poll());
+	}
+
+	public void testDropOldestOverflowWithCursorSequences() throws InterruptedException{
+		final InputEventQueue q = new InputEventQueue(8, OverflowPolicy.DROP_OLDEST);
+		final int cursors = 50;
+		final int updatesPerCursor = 40;
+		Thread producer = new Thread(new Runnable() {
+			public void run() {
+				for (int i = 0; i < cursors; i++) {
+					InputCursor c = new InputCursor();
+					q.enqueue(new MTFingerInputEvt(null, i, 0, MTFingerInputEvt.INPUT_STARTED, c));
+					for (int j = 1; j <= updatesPerCursor; j++) {
+						q.enqueue(new MTFingerInputEvt(null, i, j, MTFingerInputEvt.INPUT_UPDATED, c));
+					}
+					q.enqueue(new MTFingerInputEvt(null, i, updatesPerCursor + 1, MTFingerInputEvt.INPUT_ENDED, c));
+				}
+			}
+		});
+		producer.start();
+
+		int[] started = new int[cursors];
+		int[] ended = new int[cursors];
+		int endedCursors = 0;
+		long polls = 0;
+		while (endedCursors < cursors){
+			MTInputEvent e = q.poll();
+			if (e == null){
+				if (!producer.isAlive() && q.isEmpty()){
+					fail("Started or ended events got lost");
+				}
+				Thread.yield();
+				continue;
+			}
+			//Poll slower than the producer enqueues
+			if (++polls % 4 == 0){
+				Thread.sleep(0, 100000);
+			}
+			MTFingerInputEvt fe = (MTFingerInputEvt) e;
+			int cursor = (int) fe.getX();
+			switch (fe.getId()) {
+			case MTFingerInputEvt.INPUT_STARTED:
+				assertEquals(0, ended[cursor]);
+				started[cursor]++;
+				break;
+			case MTFingerInputEvt.INPUT_UPDATED:
+				assertEquals("Update before the cursor was started", 1, started[cursor]);
+				assertEquals("Update after the cursor was ended", 0, ended[cursor]);
+				break;
+			case MTFingerInputEvt.INPUT_ENDED:
+				assertEquals(1, started[cursor]);
+				ended[cursor]++;
+				endedCursors++;
+				break;
+			default:
+				break;
+			}
+		}
+		producer.join();
+		assertNull(q.poll());
+		for (int i = 0; i < cursors; i++) {
+			assertEquals(1, started[i]);
+			assertEquals(1, ended[i]);
+		}
+		assertEquals(cursors * (updatesPerCursor + 2), q.getEnqueuedCount() + q.getCoalescedCount());
+	}
+
+	public void testCoalesceKeepsStartedAndEnded(){
+		InputEventQueue q = new InputEventQueue(4, OverflowPolicy.COALESCE);
+		InputCursor a = new InputCursor();
+		InputCursor b = new InputCursor();
+		q.enqueue(new MTFingerInputEvt(null, 0, 0, MTFingerInputEvt.INPUT_STARTED, a));
+		q.enqueue(new MTFingerInputEvt(null, 1, 0, MTFingerInputEvt.INPUT_UPDATED, a));
+		q.enqueue(new MTFingerInputEvt(null, 0, 0, MTFingerInputEvt.INPUT_STARTED, b));
+		q.enqueue(new MTFingerInputEvt(null, 2, 0, MTFingerInputEvt.INPUT_UPDATED, a));
+		//Queue is full -> merged into the last update of cursor a
+		q.enqueue(new MTFingerInputEvt(null, 3, 0, MTFingerInputEvt.INPUT_UPDATED, a));
+		assertEquals(1, q.getCoalescedCount());
+		assertEquals(4, q.size());
+
+		assertEquals(MTFingerInputEvt.INPUT_STARTED, ((MTFingerInputEvt) q.poll()).getId());
+		assertEquals(1f, ((MTFingerInputEvt) q.poll()).getX());
+		assertEquals(b, ((MTFingerInputEvt) q.poll()).getCursor());
+		assertEquals(3f, ((MTFingerInputEvt) q.poll()).getX());
+	}
+
+	public void testConcurrentProducers() throws InterruptedException{
+		final InputEventQueue q = new InputEventQueue(64, OverflowPolicy.BLOCK);
+		final int producers = 4;
+		final int perProducer = 5000;
+		Thread[] threads = new Thread[producers];
+		for (int p = 0; p < producers; p++) {
+			final int producer = p;
+			threads[p] = new Thread(new Runnable() {
+				public void run() {
+					InputCursor c = new InputCursor();
+					for (int i = 0; i < perProducer; i++) {
+						q.enqueue(new MTFingerInputEvt(null, producer, i, MTFingerInputEvt.INPUT_UPDATED, c));
+					}
+				}
+			});
+			threads[p].start();
+		}
+
+		Set<String> seen = new HashSet<String>();
+		float[] lastPerProducer = new float[]{-1, -1, -1, -1};
+		while (seen.size() < producers * perProducer){
+			MTInputEvent e = q.poll();
+			if (e == null){
+				boolean producersAlive = false;
+				for (Thread thread : threads) {
+					producersAlive |= thread.isAlive();
+				}
+				if (!producersAlive && q.isEmpty()){
+					fail("Events got lost");
+				}
+				Thread.yield();
+				continue;
+			}
+			MTFingerInputEvt fe = (MTFingerInputEvt) e;
+			int producer = (int) fe.getX();
+			assertTrue("Events of one producer have to stay in order", fe.getY() > lastPerProducer[producer]);
+			lastPerProducer[producer] = fe.getY();
+			assertTrue("Duplicate event", seen.add(producer + ":" + fe.getY()));
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertNull(q.poll());
+		assertEquals(producers * perProducer, q.getEnqueuedCount());
+		assertEquals(0, q.getDroppedCount());
+	}
+
+}
@@ -0,0 +1,90 @@
+package org.mt4j.test.input;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.mt4j.input.inputData.AbstractCursorInputEvt;
+import org.mt4j.input.inputData.InputCursor;
+import org.mt4j.input.inputData.MTFingerInputEvt;
+import org.mt4j.input.inputData.MTInputEvent;
+import org.mt4j.input.inputSources.AbstractInputSource;
+import org.mt4j.input.inputSources.IinputSourceListener;
+import org.mt4j.util.logging.JavaLogger;
+import org.mt4j.util.logging.MTLoggerFactory;
+
+public class InputSourceCoalescingTest extends TestCase {
+
+	private TestInputSource source;
+	private List<MTInputEvent> fired;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		MTLoggerFactory.setLoggerProvider(new JavaLogger());
+		source = new TestInputSource();
+		fired = new ArrayList<MTInputEvent>();
+		source.addInputListener(new IinputSourceListener() {
+			public boolean processInputEvent(MTInputEvent inputEvent) {
+				fired.add(inputEvent);
+				return false;
+			}
+			public boolean isDisabled() {
+				return false;
+			}
+		});
+	}
+
+	public void testUpdatesAreFiredWithoutCoalescing(){
+		InputCursor c = new InputCursor();
+		source.enqueue(new MTFingerInputEvt(source, 0, 0, MTFingerInputEvt.INPUT_STARTED, c));
+		source.enqueue(new MTFingerInputEvt(source, 1, 0, MTFingerInputEvt.INPUT_UPDATED, c));
+		source.enqueue(new MTFingerInputEvt(source, 2, 0, MTFingerInputEvt.INPUT_UPDATED, c));
+		source.flushEvents();
+		assertEquals(3, fired.size());
+		assertEquals(0, source.getMergedUpdateCount());
+	}
+
+	public void testCoalescing(){
+		source.setCoalesceUpdates(true);
+		InputCursor a = new InputCursor();
+		InputCursor b = new InputCursor();
+		source.enqueue(new MTFingerInputEvt(source, 0, 0, MTFingerInputEvt.INPUT_STARTED, a));
+		source.enqueue(new MTFingerInputEvt(source, 1, 0, MTFingerInputEvt.INPUT_UPDATED, a));
+		source.enqueue(new MTFingerInputEvt(source, 0, 5, MTFingerInputEvt.INPUT_STARTED, b));
+		source.enqueue(new MTFingerInputEvt(source, 2, 0, MTFingerInputEvt.INPUT_UPDATED, a));
+		source.enqueue(new MTFingerInputEvt(source, 0, 6, MTFingerInputEvt.INPUT_UPDATED, b));
+		source.enqueue(new MTFingerInputEvt(source, 3, 0, MTFingerInputEvt.INPUT_UPDATED, a));
+		source.enqueue(new MTFingerInputEvt(source, 0, 7, MTFingerInputEvt.INPUT_UPDATED, b));
+		source.enqueue(new MTFingerInputEvt(source, 0, 7, MTFingerInputEvt.INPUT_ENDED, b));
+		source.flushEvents();
+
+		//a: started, update(3) - b: started, update(7), ended
+		assertEquals(5, fired.size());
+		assertEquals(3, source.getMergedUpdateCount());
+		assertEquals(3f, ((AbstractCursorInputEvt) fired.get(2)).getX());
+		assertEquals(a, ((AbstractCursorInputEvt) fired.get(2)).getCursor());
+		assertEquals(7f, ((AbstractCursorInputEvt) fired.get(3)).getY());
+		assertEquals(MTFingerInputEvt.INPUT_ENDED, ((AbstractCursorInputEvt) fired.get(4)).getId());
+
+		//All samples are kept in the cursor history
+		assertEquals(4, a.getEventCount());
+		assertEquals(4, b.getEventCount());
+		//The previous event is the last one that was fired
+		assertEquals(0f, a.getPreviousEvent().getX());
+		assertEquals(3f, a.getCurrentEvent().getX());
+	}
+
+
+	private class TestInputSource extends AbstractInputSource{
+		public TestInputSource() {
+			super(null);
+		}
+
+		public void enqueue(MTInputEvent evt){
+			this.enqueueInputEvent(evt);
+		}
+	}
+
+}
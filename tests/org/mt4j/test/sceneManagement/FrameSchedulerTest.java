@@ -0,0 +1,151 @@
+package org.mt4j.test.sceneManagement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.mt4j.sceneManagement.FrameScheduler;
+import org.mt4j.sceneManagement.FrameScheduler.Priority;
+import org.mt4j.sceneManagement.IPreDrawAction;
+import org.mt4j.util.logging.JavaLogger;
+import org.mt4j.util.logging.MTLoggerFactory;
+
+public class FrameSchedulerTest extends TestCase {
+
+	/** A scheduler with a fake clock. Each test action advances it by one millisecond. */
+	private static class TestScheduler extends FrameScheduler {
+		long now;
+
+		TestScheduler(float budget){
+			super(budget);
+		}
+
+		@Override
+		protected long nanoTime() {
+			return now;
+		}
+	}
+
+	private TestScheduler scheduler;
+	private List<String> log;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		MTLoggerFactory.setLoggerProvider(new JavaLogger());
+		scheduler = new TestScheduler(5f);
+		log = new ArrayList<String>();
+	}
+
+	private Runnable action(final String name){
+		return new Runnable() {
+			public void run() {
+				log.add(name);
+				scheduler.now += 1000000L;
+			}
+		};
+	}
+
+	public void testBudgetDefersActions(){
+		for (int i = 0; i < 12; i++) {
+			scheduler.invokeLater(this.action("u" + i), Priority.USER);
+		}
+		scheduler.runFrame();
+		assertEquals(12, scheduler.getLastFrameQueued());
+		assertEquals(5, scheduler.getLastFrameExecuted());
+		assertEquals(7, scheduler.getLastFrameDeferred());
+		assertEquals(7, scheduler.getQueuedCount(Priority.USER));
+		assertEquals(5000000L, scheduler.getLastFrameNanos());
+
+		scheduler.runFrame();
+		scheduler.runFrame();
+		assertEquals(0, scheduler.getQueuedCount(Priority.USER));
+		assertEquals(12, scheduler.getTotalExecuted());
+		assertEquals(2, scheduler.getDeferredFrames());
+		//Order is kept
+		for (int i = 0; i < 12; i++) {
+			assertEquals("u" + i, log.get(i));
+		}
+	}
+
+	public void testPriorities(){
+		for (int i = 0; i < 10; i++) {
+			scheduler.invokeLater(this.action("user"), Priority.USER);
+			scheduler.invokeLater(this.action("gl"), Priority.GL_RESOURCE);
+		}
+		scheduler.invokeLater(this.action("input"), Priority.INPUT);
+		scheduler.runFrame();
+		//One of each priority first, then by priority until the budget is used
+		assertEquals("input", log.get(0));
+		assertEquals("gl", log.get(1));
+		assertEquals("user", log.get(2));
+		assertEquals("gl", log.get(3));
+		assertEquals(5, log.size());
+		//User actions still make progress every frame
+		scheduler.runFrame();
+		assertTrue(log.subList(5, log.size()).contains("user"));
+	}
+
+	public void testActionsQueuedDuringFrameRunNextFrame(){
+		scheduler.setFrameBudget(0);
+		scheduler.invokeLater(new Runnable() {
+			public void run() {
+				log.add("first");
+				scheduler.invokeLater(FrameSchedulerTest.this.action("second"), Priority.INPUT);
+			}
+		}, Priority.USER);
+		scheduler.runFrame();
+		assertEquals(1, log.size());
+		scheduler.runFrame();
+		assertEquals("second", log.get(1));
+	}
+
+	public void testPreDrawActions(){
+		final int[] runs = new int[2];
+		IPreDrawAction loop = new IPreDrawAction() {
+			public void processAction() {
+				runs[0]++;
+			}
+			public boolean isLoop() {
+				return true;
+			}
+		};
+		IPreDrawAction once = new IPreDrawAction() {
+			public void processAction() {
+				runs[1]++;
+			}
+			public boolean isLoop() {
+				return false;
+			}
+		};
+		scheduler.addPreDrawAction(loop);
+		scheduler.addPreDrawAction(once);
+		assertEquals(2, scheduler.getPreDrawActionCount());
+		scheduler.runFrame();
+		scheduler.runFrame();
+		assertEquals(2, runs[0]);
+		assertEquals(1, runs[1]);
+
+		scheduler.removePreDrawAction(loop);
+		scheduler.runFrame();
+		assertEquals(2, runs[0]);
+		assertEquals(0, scheduler.getPreDrawActionCount());
+
+		//Removing an action which isn't registered doesn't change the count
+		scheduler.removePreDrawAction(loop);
+		scheduler.removePreDrawAction(once);
+		assertEquals(0, scheduler.getPreDrawActionCount());
+		scheduler.addPreDrawAction(loop);
+		scheduler.removePreDrawAction(loop);
+		scheduler.removePreDrawAction(loop);
+		assertEquals(0, scheduler.getPreDrawActionCount());
+		scheduler.addPreDrawAction(loop);
+		scheduler.runFrame();
+		assertEquals(3, runs[0]);
+		scheduler.removePreDrawAction(loop);
+		scheduler.removePreDrawAction(loop);
+		assertEquals(0, scheduler.getPreDrawActionCount());
+	}
+
+}
@@ -0,0 +1,97 @@
+package org.mt4j.test.sceneManagement;
+
+import junit.framework.TestCase;
+
+import org.mt4j.sceneManagement.IUpdateStage;
+import org.mt4j.sceneManagement.UpdatePipeline;
+import org.mt4j.util.logging.JavaLogger;
+import org.mt4j.util.logging.MTLoggerFactory;
+
+public class UpdatePipelineTest extends TestCase {
+
+	/** Sums up the time deltas in a back buffer and publishes them to the front. */
+	private static class SumStage implements IUpdateStage {
+		long back;
+		long front;
+		Thread updateThread;
+		int published;
+
+		public void update(long timeDelta) {
+			updateThread = Thread.currentThread();
+			back += timeDelta;
+		}
+
+		public void publish() {
+			front = back;
+			published++;
+		}
+	}
+
+	private UpdatePipeline pipeline;
+	private SumStage stage;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		MTLoggerFactory.setLoggerProvider(new JavaLogger());
+		pipeline = new UpdatePipeline();
+		stage = new SumStage();
+		pipeline.addStage(stage);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		pipeline.shutdown();
+		super.tearDown();
+	}
+
+	public void testSerial(){
+		pipeline.finishFrame();
+		pipeline.startFrame(10);
+		assertEquals("Published in the same frame", 10, stage.front);
+		assertSame(Thread.currentThread(), stage.updateThread);
+		pipeline.finishFrame();
+		assertEquals(1, stage.published);
+	}
+
+	public void testPipelined(){
+		pipeline.setPipelined(true);
+		pipeline.finishFrame();
+		pipeline.startFrame(10);
+		assertEquals("Not published before the next frame", 0, stage.front);
+
+		pipeline.finishFrame();
+		assertEquals(10, stage.front);
+		assertNotSame(Thread.currentThread(), stage.updateThread);
+		assertTrue(stage.updateThread.isDaemon());
+
+		pipeline.startFrame(5);
+		pipeline.finishFrame();
+		assertEquals(15, stage.front);
+		assertEquals(2, stage.published);
+
+		//Switching back publishes the pending update
+		pipeline.startFrame(1);
+		pipeline.setPipelined(false);
+		assertEquals(16, stage.front);
+	}
+
+	public void testFailingStage(){
+		pipeline.setPipelined(true);
+		SumStage failing = new SumStage(){
+			@Override
+			public void update(long timeDelta) {
+				throw new IllegalStateException("Test");
+			}
+		};
+		pipeline.removeStage(stage);
+		pipeline.addStage(failing);
+		pipeline.addStage(stage);
+		assertEquals(2, pipeline.getStageCount());
+		pipeline.startFrame(3);
+		pipeline.finishFrame();
+		assertEquals("Other stages are still updated", 3, stage.front);
+		assertEquals(1, failing.published);
+	}
+
+}
@@ -0,0 +1,143 @@
+package org.mt4j.test.util;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.mt4j.util.FrameProfiler;
+import org.mt4j.util.FrameProfiler.Counter;
+import org.mt4j.util.FrameProfiler.FrameRecord;
+import org.mt4j.util.FrameProfiler.Phase;
+import org.mt4j.util.logging.JavaLogger;
+import org.mt4j.util.logging.MTLoggerFactory;
+
+public class FrameProfilerTest extends TestCase {
+
+	private FrameProfiler profiler;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		MTLoggerFactory.setLoggerProvider(new JavaLogger());
+		profiler = new FrameProfiler(4);
+		profiler.setEnabled(true);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		profiler.unregisterMBean();
+		super.tearDown();
+	}
+
+	private void frame(long drawNanos, int drawCalls){
+		profiler.beginFrame();
+		profiler.add(Phase.DRAW, drawNanos);
+		for (int i = 0; i < drawCalls; i++) {
+			FrameProfiler.countDrawCall();
+		}
+		profiler.endFrame();
+	}
+
+	public void testDisabled(){
+		profiler.setEnabled(false);
+		assertEquals(0, profiler.beginFrame());
+		assertFalse(profiler.isRecording());
+		profiler.add(Phase.DRAW, 1000);
+		assertEquals(0, profiler.mark(Phase.ANIMATION, 0));
+		profiler.endFrame();
+		assertEquals(0, profiler.getFrameCount());
+		assertEquals(0, profiler.getHistoryCount());
+	}
+
+	public void testPhasesAndCounters(){
+		long t = profiler.beginFrame();
+		assertTrue(profiler.isRecording());
+		profiler.mark(Phase.ANIMATION, t);
+		profiler.add(Phase.SCENE_UPDATE, 3000000);
+		profiler.addPreDrawAction(new Object(), 2000000);
+		profiler.count(Counter.CULLED_OBJECTS, 5);
+		FrameProfiler.countTextureBind();
+		FrameProfiler.countTextureBind();
+		profiler.endFrame();
+		assertFalse(profiler.isRecording());
+
+		assertEquals(3000000, profiler.getLastPhaseNanos(Phase.SCENE_UPDATE));
+		assertEquals(2000000, profiler.getLastPhaseNanos(Phase.PRE_DRAW));
+		assertTrue(profiler.getLastPhaseNanos(Phase.ANIMATION) >= 0);
+		assertEquals(5, profiler.getLastCount(Counter.CULLED_OBJECTS));
+		assertEquals(2, profiler.getLastCount(Counter.TEXTURE_BINDS));
+		assertEquals(0, profiler.getLastCount(Counter.DRAW_CALLS));
+		assertEquals(3.0, profiler.getLastPhaseTimes()[Phase.SCENE_UPDATE.ordinal()], 0.0001);
+		assertTrue(profiler.getReport().contains("SCENE_UPDATE"));
+
+		//The counters start at 0 in each frame
+		frame(0, 1);
+		assertEquals(0, profiler.getLastCount(Counter.TEXTURE_BINDS));
+		assertEquals(1, profiler.getLastCount(Counter.DRAW_CALLS));
+		assertEquals(0, profiler.getLastPhaseNanos(Phase.SCENE_UPDATE));
+	}
+
+	public void testDisplayListTextureBinds(){
+		profiler.beginFrame();
+		//Compiling a list doesn't bind the texture
+		FrameProfiler.beginDisplayList();
+		FrameProfiler.countTextureBind();
+		int binds = FrameProfiler.endDisplayList();
+		assertEquals(1, binds);
+		FrameProfiler.countTextureBind();
+		profiler.endFrame();
+		assertEquals(1, profiler.getLastCount(Counter.TEXTURE_BINDS));
+
+		//Each call of the list does
+		profiler.beginFrame();
+		FrameProfiler.countTextureBinds(binds);
+		FrameProfiler.countTextureBinds(binds);
+		profiler.endFrame();
+		assertEquals(2, profiler.getLastCount(Counter.TEXTURE_BINDS));
+		assertEquals(0, FrameProfiler.endDisplayList());
+	}
+
+	public void testRingBuffer(){
+		for (int i = 1; i <= 6; i++) {
+			frame(i * 1000000L, i);
+		}
+		assertEquals(6, profiler.getFrameCount());
+		assertEquals(4, profiler.getHistoryCount());
+
+		List<FrameRecord> history = profiler.getHistory();
+		assertEquals(4, history.size());
+		for (int i = 0; i < 4; i++) {
+			FrameRecord record = history.get(i);
+			assertEquals(i + 2, record.getFrame());
+			assertEquals((i + 3) * 1000000L, record.getPhaseNanos(Phase.DRAW));
+			assertEquals(i + 3, record.getCount(Counter.DRAW_CALLS));
+		}
+		assertEquals(6, profiler.getLastCount(Counter.DRAW_CALLS));
+		assertEquals(6.0, profiler.getAveragePhaseTimes()[Phase.DRAW.ordinal()] * 4 / 3, 0.0001);
+
+		profiler.reset();
+		assertEquals(0, profiler.getHistoryCount());
+		assertEquals(0, profiler.getLastCount(Counter.DRAW_CALLS));
+	}
+
+	public void testSpikes(){
+		profiler.beginFrame();
+		profiler.endFrame();
+		profiler.beginFrame();
+		try {
+			Thread.sleep(30);
+		} catch (InterruptedException e) {
+			fail();
+		}
+		profiler.endFrame();
+		profiler.beginFrame();
+		profiler.endFrame();
+
+		List<FrameRecord> spikes = profiler.getSpikes(20);
+		assertEquals(1, spikes.size());
+		assertEquals(1, spikes.get(0).getFrame());
+		assertTrue(spikes.get(0).getFrameNanos() >= 20000000L);
+		assertTrue(profiler.getMaxFrameTime() >= 20);
+	}
+
+}
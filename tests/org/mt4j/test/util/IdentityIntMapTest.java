@@ -0,0 +1,52 @@
+package org.mt4j.test.util;
+
+import java.util.IdentityHashMap;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.mt4j.util.IdentityIntMap;
+
+public class IdentityIntMapTest extends TestCase {
+
+	public void testMatchesIdentityHashMap(){
+		IdentityIntMap map = new IdentityIntMap(2);
+		IdentityHashMap<Object, Integer> reference = new IdentityHashMap<Object, Integer>();
+		//Equal but not identical keys are different entries
+		String[] keys = new String[200];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = new String("k" + (i % 50));
+		}
+		Random random = new Random(7);
+		for (int i = 0; i < 20000; i++) {
+			String key = keys[random.nextInt(keys.length)];
+			int op = random.nextInt(3);
+			if (op == 0){
+				int value = random.nextInt(1000);
+				reference.put(key, value);
+				map.put(key, value);
+			}else if (op == 1){
+				assertEquals(reference.remove(key) != null, map.remove(key));
+			}else{
+				Integer expected = reference.get(key);
+				assertEquals(expected == null ? -1 : expected.intValue(), map.get(key, -1));
+				assertEquals(reference.containsKey(key), map.containsKey(key));
+			}
+			assertEquals(reference.size(), map.size());
+		}
+		map.clear();
+		assertTrue(map.isEmpty());
+		assertFalse(map.containsKey(keys[0]));
+	}
+
+	public void testNullKeys(){
+		IdentityIntMap map = new IdentityIntMap();
+		assertEquals(-1, map.get(null, -1));
+		assertFalse(map.remove(null));
+		try {
+			map.put(null, 1);
+			fail();
+		} catch (IllegalArgumentException e) {}
+	}
+
+}
@@ -0,0 +1,135 @@
+package org.mt4j.test.util;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.mt4j.util.IndexedNormalGenerator;
+
+public class IndexedNormalGeneratorTest extends TestCase {
+
+	/** A unit cube with 8 shared vertices. */
+	private static final float[] CUBE_POSITIONS = new float[]{
+		0,0,0,  1,0,0,  1,1,0,  0,1,0,
+		0,0,1,  1,0,1,  1,1,1,  0,1,1
+	};
+
+	/** 12 triangles, counter clockwise seen from outside. */
+	private static final int[] CUBE_INDICES = new int[]{
+		0,2,1, 0,3,2, //back
+		4,5,6, 4,6,7, //front
+		0,1,5, 0,5,4, //bottom
+		3,7,6, 3,6,2, //top
+		0,4,7, 0,7,3, //left
+		1,2,6, 1,6,5  //right
+	};
+
+	public void testSmoothCube(){
+		IndexedNormalGenerator generator = new IndexedNormalGenerator();
+		generator.generateSmoothNormals(CUBE_POSITIONS, 8, CUBE_INDICES, null, null);
+		assertEquals(8, generator.getVertexCount());
+		assertEquals(12, generator.getFaceCount());
+		assertTrue(Arrays.equals(CUBE_INDICES, generator.getIndices()));
+
+		float[] normals = generator.getNormals();
+		for (int v = 0; v < 8; v++) {
+			//Each normal points away from the center of the cube
+			for (int i = 0; i < 3; i++) {
+				float direction = CUBE_POSITIONS[v * 3 + i] - 0.5f;
+				assertTrue(normals[v * 3 + i] * direction > 0);
+			}
+			assertEquals(1f, length(normals, v), 0.0001f);
+		}
+	}
+
+	public void testCreaseAngleCube(){
+		IndexedNormalGenerator generator = new IndexedNormalGenerator();
+		generator.generateCreaseAngleNormals(CUBE_POSITIONS, 8, CUBE_INDICES, null, null, 89);
+		//Each corner of the cube gets a vertex per side
+		assertEquals(24, generator.getVertexCount());
+
+		int[] indices = generator.getIndices();
+		int[] sources = generator.getSourceVertices();
+		float[] normals = generator.getNormals();
+		for (int face = 0; face < 12; face++) {
+			for (int corner = face * 3; corner < face * 3 + 3; corner++) {
+				int v = indices[corner];
+				assertEquals(CUBE_INDICES[corner], sources[v]);
+				//The two triangles of a side share the normal
+				int other = indices[(face ^ 1) * 3];
+				assertEquals(normals[other * 3], normals[v * 3]);
+				assertEquals(normals[other * 3 + 1], normals[v * 3 + 1]);
+				assertEquals(normals[other * 3 + 2], normals[v * 3 + 2]);
+				assertEquals(1f, length(normals, v), 0.0001f);
+			}
+		}
+
+		//A crease angle larger than 90 degree smoothes the cube again
+		generator.generateCreaseAngleNormals(CUBE_POSITIONS, 8, CUBE_INDICES, null, null, 91);
+		assertEquals(8, generator.getVertexCount());
+	}
+
+	public void testTexCoordDuplicates(){
+		float[] positions = new float[]{0,0,0, 1,0,0, 1,1,0, 0,1,0, 5,5,5};
+		int[] indices = new int[]{0,1,2, 0,2,3, 0,1,3};
+		float[] texCoords = new float[]{0,0, 1,0, 1,1, 0,1, 0.5f,0.5f};
+		int[] texIndices = new int[]{0,1,2, 4,2,3, 4,1,3};
+
+		IndexedNormalGenerator generator = new IndexedNormalGenerator();
+		generator.generateSmoothNormals(positions, 5, indices, texCoords, texIndices);
+		//Vertex 0 is used with 2 different texture coordinates, vertex 4 isnt used at all
+		assertEquals(6, generator.getVertexCount());
+		int[] newIndices = generator.getIndices();
+		assertEquals(5, newIndices[3]);
+		assertEquals(5, newIndices[6]);
+		assertEquals(0, generator.getSourceVertices()[5]);
+		assertEquals(-1, generator.getSourceVertices()[4]);
+		assertEquals(0.5f, generator.getTexCoords()[10]);
+		assertEquals(0.5f, generator.getTexCoords()[11]);
+	}
+
+	public void testParallelIsEqual(){
+		//A height field with enough faces to be split across threads
+		int size = 120;
+		Random random = new Random(3);
+		float[] positions = new float[size * size * 3];
+		for (int y = 0; y < size; y++) {
+			for (int x = 0; x < size; x++) {
+				int v = (y * size + x) * 3;
+				positions[v] 	 = x;
+				positions[v + 1] = y;
+				positions[v + 2] = random.nextFloat() * 2;
+			}
+		}
+		int[] indices = new int[(size - 1) * (size - 1) * 6];
+		int i = 0;
+		for (int y = 0; y < size - 1; y++) {
+			for (int x = 0; x < size - 1; x++) {
+				int v = y * size + x;
+				indices[i++] = v; indices[i++] = v + 1; 	   indices[i++] = v + size + 1;
+				indices[i++] = v; indices[i++] = v + size + 1; indices[i++] = v + size;
+			}
+		}
+
+		IndexedNormalGenerator sequential = new IndexedNormalGenerator();
+		sequential.generateCreaseAngleNormals(positions, size * size, indices, null, null, 40);
+		IndexedNormalGenerator parallel = new IndexedNormalGenerator();
+		parallel.setParallel(true);
+		parallel.generateCreaseAngleNormals(positions, size * size, indices, null, null, 40);
+
+		assertTrue(sequential.getVertexCount() > size * size);
+		assertEquals(sequential.getVertexCount(), parallel.getVertexCount());
+		assertTrue(Arrays.equals(sequential.getIndices(), parallel.getIndices()));
+		assertTrue(Arrays.equals(Arrays.copyOf(sequential.getNormals(), sequential.getVertexCount() * 3), 
+				Arrays.copyOf(parallel.getNormals(), parallel.getVertexCount() * 3)));
+	}
+
+	private static float length(float[] vectors, int v){
+		float x = vectors[v * 3];
+		float y = vectors[v * 3 + 1];
+		float z = vectors[v * 3 + 2];
+		return (float) Math.sqrt(x*x + y*y + z*z);
+	}
+
+}
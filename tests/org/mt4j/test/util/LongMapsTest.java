@@ -0,0 +1,77 @@
+package org.mt4j.test.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.mt4j.util.LongLongMap;
+import org.mt4j.util.LongObjectMap;
+
+public class LongMapsTest extends TestCase {
+
+	public void testObjectMapMatchesHashMap(){
+		LongObjectMap<String> map = new LongObjectMap<String>(2);
+		HashMap<Long, String> reference = new HashMap<Long, String>();
+		Random random = new Random(3);
+		for (int i = 0; i < 20000; i++) {
+			//Small key range so that there are many collisions and removals
+			long key = random.nextInt(300) - 100;
+			int op = random.nextInt(3);
+			if (op == 0){
+				String value = "v" + i;
+				assertEquals(reference.put(key, value), map.put(key, value));
+			}else if (op == 1){
+				assertEquals(reference.remove(key), map.remove(key));
+			}else{
+				assertEquals(reference.get(key), map.get(key));
+				assertEquals(reference.containsKey(key), map.containsKey(key));
+			}
+			assertEquals(reference.size(), map.size());
+		}
+		for (Map.Entry<Long, String> entry : reference.entrySet()) {
+			assertEquals(entry.getValue(), map.get(entry.getKey()));
+		}
+
+		String[] values = map.values(new String[0]);
+		assertEquals(reference.size(), values.length);
+		assertTrue(reference.values().containsAll(java.util.Arrays.asList(values)));
+
+		map.clear();
+		assertTrue(map.isEmpty());
+		assertNull(map.get(values.length > 0 ? 0 : 1));
+	}
+
+	public void testLongMapMatchesHashMap(){
+		LongLongMap map = new LongLongMap();
+		HashMap<Long, Long> reference = new HashMap<Long, Long>();
+		Random random = new Random(5);
+		for (int i = 0; i < 20000; i++) {
+			long key = random.nextInt(200) * 1024L;
+			int op = random.nextInt(3);
+			if (op == 0){
+				long value = random.nextLong();
+				reference.put(key, value);
+				map.put(key, value);
+			}else if (op == 1){
+				assertEquals(reference.remove(key) != null, map.remove(key));
+			}else{
+				Long expected = reference.get(key);
+				assertEquals(expected == null ? -1 : expected.longValue(), map.get(key, -1));
+			}
+			assertEquals(reference.size(), map.size());
+		}
+		map.clear();
+		assertEquals(0, map.size());
+		assertFalse(map.containsKey(0));
+	}
+
+	public void testNullValuesAreRejected(){
+		try {
+			new LongObjectMap<Object>().put(1, null);
+			fail();
+		} catch (IllegalArgumentException e) {}
+	}
+
+}
@@ -0,0 +1,202 @@
+package org.mt4j.test.util.animation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.mt4j.util.animation.Animation;
+import org.mt4j.util.animation.AnimationEvent;
+import org.mt4j.util.animation.AnimationManager;
+import org.mt4j.util.animation.AnimationUpdateEvent;
+import org.mt4j.util.animation.IAnimationListener;
+import org.mt4j.util.animation.IAnimationManagerListener;
+import org.mt4j.util.animation.MultiPurposeInterpolator;
+
+public class AnimationManagerTest extends TestCase {
+
+	private AnimationManager manager;
+	private List<String> calls;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		manager = new AnimationManager();
+		calls = new ArrayList<String>();
+	}
+
+	private class RecordingListener implements IAnimationManagerListener{
+		private final String name;
+		private int updates;
+		private IAnimationManagerListener toRemove;
+		private IAnimationManagerListener toAdd;
+
+		public RecordingListener(String name){
+			this.name = name;
+		}
+
+		public void updateAnimation(AnimationUpdateEvent ev) {
+			updates++;
+			calls.add(name);
+			if (toRemove != null){
+				manager.removeAnimationManagerListener(toRemove);
+			}
+			if (toAdd != null){
+				manager.addAnimationManagerListener(toAdd);
+			}
+		}
+	}
+
+	public void testAddRemoveDuringUpdate(){
+		RecordingListener a = new RecordingListener("a");
+		RecordingListener b = new RecordingListener("b");
+		RecordingListener c = new RecordingListener("c");
+		RecordingListener d = new RecordingListener("d");
+		a.toRemove = b;
+		a.toAdd = d;
+		manager.addAnimationManagerListener(a);
+		manager.addAnimationManagerListener(b);
+		manager.addAnimationManagerListener(c);
+
+		manager.update(10);
+		//b was removed before its turn, d is added for the next frame
+		assertEquals("[a, c]", calls.toString());
+		assertEquals(3, manager.getAnimationManagerListeners().length);
+
+		calls.clear();
+		a.toAdd = null;
+		manager.update(10);
+		assertEquals("[a, c, d]", calls.toString());
+		assertEquals(0, b.updates);
+	}
+
+	public void testDelayedListener(){
+		RecordingListener a = new RecordingListener("a");
+		manager.addAnimationManagerListener(a, 100);
+		assertEquals(1, manager.getDelayedListenerCount());
+		assertEquals(0, manager.getAnimationManagerListeners().length);
+
+		manager.update(60);
+		assertEquals(0, a.updates);
+		manager.update(39);
+		assertEquals(0, a.updates);
+		manager.update(1);
+		assertEquals(1, a.updates);
+		assertEquals(0, manager.getDelayedListenerCount());
+		manager.update(16);
+		assertEquals(2, a.updates);
+	}
+
+	public void testDelayLongerThanWheel(){
+		RecordingListener a = new RecordingListener("a");
+		RecordingListener b = new RecordingListener("b");
+		manager.addAnimationManagerListener(a, 5000);
+		manager.addAnimationManagerListener(b, 20);
+		for (int i = 0; i < 312; i++) {
+			manager.update(16);
+		}
+		assertEquals(0, a.updates);
+		assertTrue(b.updates > 0);
+		manager.update(16);
+		assertEquals(1, a.updates);
+	}
+
+	public void testRemoveDelayedListener(){
+		RecordingListener a = new RecordingListener("a");
+		manager.addAnimationManagerListener(a, 50);
+		manager.removeAnimationManagerListener(a);
+		assertEquals(0, manager.getDelayedListenerCount());
+		manager.update(100);
+		assertEquals(0, a.updates);
+	}
+
+	public void testTriggeredAnimationInScopedManager(){
+		final List<Integer> events = new ArrayList<Integer>();
+		Animation animation = new Animation("test", new MultiPurposeInterpolator(0, 100, 100, 0, 1, 1), null, 50);
+		animation.setAnimationManager(manager);
+		animation.addAnimationListener(new IAnimationListener() {
+			public void processAnimationEvent(AnimationEvent ae) {
+				events.add(ae.getId());
+			}
+		});
+		animation.start();
+		assertTrue(manager.contains(animation));
+		assertFalse(AnimationManager.getInstance().contains(animation));
+		assertEquals(1, manager.getDelayedListenerCount());
+
+		manager.update(40);
+		assertTrue(events.isEmpty());
+		manager.update(20);
+		assertEquals(1, events.size());
+		assertEquals(AnimationEvent.ANIMATION_STARTED, events.get(0).intValue());
+
+		for (int i = 0; i < 20 && manager.contains(animation); i++) {
+			manager.update(20);
+		}
+		assertFalse(manager.contains(animation));
+		assertEquals(AnimationEvent.ANIMATION_ENDED, events.get(events.size() - 1).intValue());
+		assertEquals(0, manager.getAnimationManagerListeners().length);
+	}
+
+	public void testStartTwiceDuringTrigger(){
+		EventRecorder recorder = new EventRecorder();
+		Animation animation = new Animation("test", new MultiPurposeInterpolator(0, 100, 100, 0, 1, 1), null, 50);
+		animation.setAnimationManager(manager);
+		animation.addAnimationListener(recorder);
+		animation.start();
+		manager.update(20);
+		animation.start();
+		assertEquals("Still waiting for the trigger", 1, manager.getDelayedListenerCount());
+		assertEquals(1, manager.size());
+
+		manager.update(20);
+		assertTrue("The second start doesn't skip the trigger time", recorder.events.isEmpty());
+		manager.update(10);
+		assertEquals(1, recorder.events.size());
+		assertTrue(recorder.events.get(0).startsWith(AnimationEvent.ANIMATION_STARTED + ":"));
+
+		//Starting a running animation doesn't change it either
+		animation.start();
+		assertEquals(0, manager.getDelayedListenerCount());
+		manager.update(10);
+		assertEquals(2, recorder.events.size());
+		assertTrue(recorder.events.get(1).startsWith(AnimationEvent.ANIMATION_UPDATED + ":"));
+	}
+
+	public void testStopDuringTriggerKeepsRemainingTime(){
+		EventRecorder recorder = new EventRecorder();
+		Animation animation = new Animation("test", new MultiPurposeInterpolator(0, 100, 100, 0, 1, 1), null, 50);
+		animation.setAnimationManager(manager);
+		animation.addAnimationListener(recorder);
+		animation.start();
+		manager.update(20);
+		animation.stop();
+		assertEquals(0, manager.getDelayedListenerCount());
+		assertFalse(manager.contains(animation));
+
+		//Waits for the 30ms left, not the whole trigger time
+		manager.update(100);
+		animation.start();
+		manager.update(20);
+		assertTrue(recorder.events.isEmpty());
+		manager.update(10);
+		assertEquals(1, recorder.events.size());
+		assertTrue(recorder.events.get(0).startsWith(AnimationEvent.ANIMATION_STARTED + ":"));
+
+		//Restarting waits for the whole trigger time again
+		animation.restart();
+		manager.update(40);
+		assertEquals(1, recorder.events.size());
+		manager.update(10);
+		assertEquals(2, recorder.events.size());
+	}
+
+	private class EventRecorder implements IAnimationListener{
+		private final List<String> events = new ArrayList<String>();
+
+		public void processAnimationEvent(AnimationEvent ae) {
+			events.add(ae.getId() + ":" + ae.getValue());
+		}
+	}
+
+}
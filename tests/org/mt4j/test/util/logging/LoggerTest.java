@@ -0,0 +1,112 @@
+package org.mt4j.test.util.logging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.mt4j.util.logging.AbstractLogger;
+import org.mt4j.util.logging.AsyncLogDispatcher;
+import org.mt4j.util.logging.ILogger;
+import org.mt4j.util.logging.JavaLogger;
+import org.mt4j.util.logging.MTLoggerFactory;
+
+public class LoggerTest extends TestCase {
+
+	private RecordingLogger logger;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		MTLoggerFactory.setLoggerProvider(new JavaLogger());
+		logger = new RecordingLogger();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		MTLoggerFactory.setAsynchronous(false);
+		super.tearDown();
+	}
+
+	public void testFormat(){
+		assertEquals("a 1 b 2", AbstractLogger.format("a {} b {}", new Object[]{1, 2}));
+		assertEquals("a 1 b {}", AbstractLogger.format("a {} b {}", new Object[]{1}));
+		assertEquals("a 1", AbstractLogger.format("a {}", new Object[]{1, 2}));
+		assertEquals("null x", AbstractLogger.format("{} x", new Object[]{null}));
+		assertEquals("plain", AbstractLogger.format("plain", null));
+	}
+
+	public void testDisabledLevelDoesntFormat(){
+		logger.setLevel(ILogger.WARN);
+		CountingArg arg = new CountingArg();
+		logger.debug("value {}", arg);
+		logger.info("values {} {}", arg, arg);
+		logger.debug("values {} {} {}", arg, arg, arg);
+		assertEquals(0, arg.count);
+		assertTrue(logger.messages.isEmpty());
+
+		logger.warn("value {}", arg);
+		assertEquals(1, arg.count);
+		assertEquals("value arg", logger.messages.get(0));
+	}
+
+	public void testAsynchronousLogging() throws InterruptedException{
+		MTLoggerFactory.setAsynchronous(true);
+		AsyncLogDispatcher dispatcher = MTLoggerFactory.getAsyncDispatcher();
+		assertNotNull(dispatcher);
+		for (int i = 0; i < 100; i++) {
+			logger.error("message {}", i);
+		}
+		for (int i = 0; i < 100 && logger.messages.size() < 100; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(100, logger.messages.size());
+		assertEquals("message 99", logger.messages.get(99));
+		assertTrue(logger.threads.contains("MT4j log dispatcher"));
+
+		MTLoggerFactory.setAsynchronous(false);
+		assertNull(MTLoggerFactory.getAsyncDispatcher());
+		logger.error("sync");
+		assertEquals(Thread.currentThread().getName(), logger.threads.get(logger.threads.size() - 1));
+	}
+
+	private static class CountingArg{
+		private int count;
+
+		@Override
+		public String toString() {
+			count++;
+			return "arg";
+		}
+	}
+
+	private static class RecordingLogger extends AbstractLogger{
+		private int level = ILogger.ALL;
+		private final List<String> messages = Collections.synchronizedList(new ArrayList<String>());
+		private final List<String> threads = Collections.synchronizedList(new ArrayList<String>());
+
+		@Override
+		protected void write(int level, String message) {
+			messages.add(message);
+			threads.add(Thread.currentThread().getName());
+		}
+
+		public boolean isEnabled(int level) {
+			return this.level == ILogger.ALL || (this.level != ILogger.OFF && level >= this.level);
+		}
+
+		public void setLevel(int level) {
+			this.level = level;
+		}
+
+		public int getLevel() {
+			return level;
+		}
+
+		public ILogger createNew(String name) {
+			return new RecordingLogger();
+		}
+	}
+
+}
@@ -0,0 +1,232 @@
+package org.mt4j.test.util.math;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.mt4j.util.math.PolygonTriangulator;
+import org.mt4j.util.math.Vertex;
+
+public class PolygonTriangulatorTest extends TestCase {
+
+	private PolygonTriangulator triangulator;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		triangulator = new PolygonTriangulator();
+	}
+
+	public void testSquare(){
+		Vertex[] square = rect(0, 0, 10, 10);
+		Vertex[] tris = triangulator.triangulate(square);
+		assertEquals(6, tris.length);
+		assertEquals(100, area(toList(tris)), 1e-4);
+		this.checkCoverage(contours(square), PolygonTriangulator.WINDING_RULE_ODD);
+	}
+
+	public void testKeepsVertexAttributes(){
+		Vertex[] square = rect(0, 0, 10, 10);
+		for (Vertex v : square) {
+			v.z = 5;
+			v.setRGBA(10, 20, 30, 40);
+		}
+		for (Vertex v : triangulator.triangulate(square)) {
+			assertEquals(5f, v.z);
+			assertEquals(10f, v.getR());
+			assertEquals(40f, v.getA());
+		}
+	}
+
+	public void testSquareWithHole(){
+		List<Vertex[]> contours = contours(rect(0, 0, 10, 10), reverse(rect(3, 3, 7, 7)));
+		List<Vertex> tris = triangulator.triangulate(contours, PolygonTriangulator.WINDING_RULE_ODD);
+		assertEquals(84, area(tris), 1e-4);
+		this.checkCoverage(contours, PolygonTriangulator.WINDING_RULE_ODD);
+		this.checkCoverage(contours, PolygonTriangulator.WINDING_RULE_NONZERO);
+	}
+
+	public void testOverlappingSquares(){
+		List<Vertex[]> contours = contours(rect(0, 0, 10, 10), rect(5, 5, 15, 15));
+		assertEquals(150, area(triangulator.triangulate(contours, PolygonTriangulator.WINDING_RULE_ODD)), 1e-4);
+		assertEquals(175, area(triangulator.triangulate(contours, PolygonTriangulator.WINDING_RULE_NONZERO)), 1e-4);
+		assertEquals(25, area(triangulator.triangulate(contours, PolygonTriangulator.WINDING_RULE_ABS_GEQ_TWO)), 1e-4);
+		assertEquals(0, triangulator.triangulate(contours, PolygonTriangulator.WINDING_RULE_NEGATIVE).size());
+		for (int rule = PolygonTriangulator.WINDING_RULE_ODD; rule <= PolygonTriangulator.WINDING_RULE_ABS_GEQ_TWO; rule++) {
+			this.checkCoverage(contours, rule);
+		}
+	}
+
+	public void testSelfIntersecting(){
+		Vertex[] bowtie = new Vertex[]{new Vertex(0, 0, 0), new Vertex(10, 10, 0), new Vertex(10, 0, 0), new Vertex(0, 10, 0)};
+		assertEquals(50, area(triangulator.triangulate(contours(bowtie))), 1e-4);
+		this.checkCoverage(contours(bowtie), PolygonTriangulator.WINDING_RULE_ODD);
+
+		Vertex[] pentagram = new Vertex[5];
+		for (int i = 0; i < 5; i++) {
+			double angle = Math.PI / 2 + i * 4 * Math.PI / 5;
+			pentagram[i] = new Vertex((float) (100 * Math.cos(angle)), (float) (100 * Math.sin(angle)), 0);
+		}
+		this.checkCoverage(contours(pentagram), PolygonTriangulator.WINDING_RULE_ODD);
+		this.checkCoverage(contours(pentagram), PolygonTriangulator.WINDING_RULE_NONZERO);
+		assertTrue(area(triangulator.triangulate(contours(pentagram), PolygonTriangulator.WINDING_RULE_NONZERO))
+				> area(triangulator.triangulate(contours(pentagram), PolygonTriangulator.WINDING_RULE_ODD)));
+	}
+
+	public void testRandomPolygons(){
+		Random random = new Random(7);
+		for (int n = 0; n < 20; n++) {
+			List<Vertex[]> contours = new ArrayList<Vertex[]>();
+			int contourCount = 1 + random.nextInt(3);
+			for (int c = 0; c < contourCount; c++) {
+				Vertex[] contour = new Vertex[3 + random.nextInt(8)];
+				for (int i = 0; i < contour.length; i++) {
+					contour[i] = new Vertex(random.nextInt(100), random.nextInt(100), 0);
+				}
+				contours.add(contour);
+			}
+			this.checkCoverage(contours, PolygonTriangulator.WINDING_RULE_ODD);
+			this.checkCoverage(contours, PolygonTriangulator.WINDING_RULE_NONZERO);
+		}
+	}
+
+	public void testDegenerateInput(){
+		assertEquals(0, triangulator.triangulate(new Vertex[]{new Vertex(0, 0, 0), new Vertex(1, 1, 0)}).length);
+		assertEquals(0, triangulator.triangulate(new Vertex[]{new Vertex(0, 0, 0), new Vertex(1, 1, 0), new Vertex(2, 2, 0)}).length);
+		try {
+			triangulator.triangulate(contours(rect(0, 0, 1, 1)), 5);
+			fail();
+		} catch (IllegalArgumentException e) {
+			//Expected
+		}
+	}
+
+	/**
+	 * Checks that sample points are covered by exactly one triangle if their winding number
+	 * is inside and by no triangle otherwise.
+	 */
+	private void checkCoverage(List<Vertex[]> contours, int rule){
+		List<Vertex> tris = triangulator.triangulate(contours, rule);
+		assertEquals(0, tris.size() % 3);
+		for (int i = 0; i < tris.size(); i += 3) {
+			//Allow for rounding of intersection points to float
+			assertTrue("Triangles should be counter clockwise", cross(tris.get(i), tris.get(i + 1), tris.get(i + 2)) > -1e-3);
+		}
+		float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+		for (Vertex[] contour : contours) {
+			for (Vertex v : contour) {
+				minX = Math.min(minX, v.x);
+				minY = Math.min(minY, v.y);
+				maxX = Math.max(maxX, v.x);
+				maxY = Math.max(maxY, v.y);
+			}
+		}
+		//Sample at irrational offsets so the points don't lie on edges
+		for (int i = 0; i < 40; i++) {
+			for (int j = 0; j < 40; j++) {
+				double x = minX + (maxX - minX) * (i + 0.5 + 0.0123 * Math.sqrt(2)) / 40;
+				double y = minY + (maxY - minY) * (j + 0.5 + 0.0171 * Math.sqrt(3)) / 40;
+				if (isOnEdge(contours, x, y, (maxX - minX + maxY - minY) * 1e-4)){
+					//The intersection points are rounded to float
+					continue;
+				}
+				int winding = winding(contours, x, y);
+				boolean inside;
+				switch (rule) {
+				case PolygonTriangulator.WINDING_RULE_ODD: 			inside = (winding & 1) != 0; break;
+				case PolygonTriangulator.WINDING_RULE_NONZERO: 		inside = winding != 0; break;
+				case PolygonTriangulator.WINDING_RULE_POSITIVE: 	inside = winding > 0; break;
+				case PolygonTriangulator.WINDING_RULE_NEGATIVE: 	inside = winding < 0; break;
+				default: 											inside = Math.abs(winding) >= 2; break;
+				}
+				int covered = 0;
+				for (int t = 0; t < tris.size(); t += 3) {
+					if (contains(tris.get(t), tris.get(t + 1), tris.get(t + 2), x, y)){
+						covered++;
+					}
+				}
+				assertEquals("Coverage at " + x + "," + y, inside ? 1 : 0, covered);
+			}
+		}
+	}
+
+	private static int winding(List<Vertex[]> contours, double x, double y){
+		int winding = 0;
+		for (Vertex[] contour : contours) {
+			for (int i = 0, j = contour.length - 1; i < contour.length; j = i++) {
+				Vertex a = contour[j], b = contour[i];
+				if (a.y <= y && b.y > y && cross(a.x, a.y, b.x, b.y, x, y) > 0){
+					winding++;
+				}else if (a.y > y && b.y <= y && cross(a.x, a.y, b.x, b.y, x, y) < 0){
+					winding--;
+				}
+			}
+		}
+		return winding;
+	}
+
+	private static boolean isOnEdge(List<Vertex[]> contours, double x, double y, double distance){
+		for (Vertex[] contour : contours) {
+			for (int i = 0, j = contour.length - 1; i < contour.length; j = i++) {
+				Vertex a = contour[j], b = contour[i];
+				double length = Math.hypot(b.x - a.x, b.y - a.y);
+				double t = ((x - a.x) * (b.x - a.x) + (y - a.y) * (b.y - a.y)) / (length * length);
+				if (length > 0 && t >= 0 && t <= 1 && Math.abs(cross(a.x, a.y, b.x, b.y, x, y)) / length < distance){
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static boolean contains(Vertex a, Vertex b, Vertex c, double x, double y){
+		return cross(a.x, a.y, b.x, b.y, x, y) > 0 && cross(b.x, b.y, c.x, c.y, x, y) > 0 && cross(c.x, c.y, a.x, a.y, x, y) > 0;
+	}
+
+	private static double cross(Vertex a, Vertex b, Vertex c){
+		return cross(a.x, a.y, b.x, b.y, c.x, c.y);
+	}
+
+	private static double cross(double ax, double ay, double bx, double by, double cx, double cy){
+		return (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+	}
+
+	private static double area(List<Vertex> tris){
+		double area = 0;
+		for (int i = 0; i < tris.size(); i += 3) {
+			area += cross(tris.get(i), tris.get(i + 1), tris.get(i + 2)) / 2;
+		}
+		return area;
+	}
+
+	private static Vertex[] rect(float x0, float y0, float x1, float y1){
+		return new Vertex[]{new Vertex(x0, y0, 0), new Vertex(x1, y0, 0), new Vertex(x1, y1, 0), new Vertex(x0, y1, 0)};
+	}
+
+	private static Vertex[] reverse(Vertex[] contour){
+		Vertex[] reversed = new Vertex[contour.length];
+		for (int i = 0; i < contour.length; i++) {
+			reversed[i] = contour[contour.length - 1 - i];
+		}
+		return reversed;
+	}
+
+	private static List<Vertex[]> contours(Vertex[]... contours){
+		List<Vertex[]> list = new ArrayList<Vertex[]>();
+		for (Vertex[] contour : contours) {
+			list.add(contour);
+		}
+		return list;
+	}
+
+	private static List<Vertex> toList(Vertex[] vertices){
+		List<Vertex> list = new ArrayList<Vertex>();
+		for (Vertex v : vertices) {
+			list.add(v);
+		}
+		return list;
+	}
+
+}
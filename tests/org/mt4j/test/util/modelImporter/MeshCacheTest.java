@@ -0,0 +1,128 @@
+package org.mt4j.test.util.modelImporter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.mt4j.util.logging.JavaLogger;
+import org.mt4j.util.logging.MTLoggerFactory;
+import org.mt4j.util.modelImporter.MeshCache;
+import org.mt4j.util.modelImporter.MeshCache.Contents;
+import org.mt4j.util.modelImporter.MeshCache.Key;
+import org.mt4j.util.modelImporter.MeshCache.MeshData;
+import org.mt4j.util.math.Vector3D;
+import org.mt4j.util.math.Vertex;
+
+public class MeshCacheTest extends TestCase {
+
+	private File file;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		MTLoggerFactory.setLoggerProvider(new JavaLogger());
+		file = File.createTempFile("meshcachetest", MeshCache.SUFFIX);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		file.delete();
+		super.tearDown();
+	}
+
+	private List<MeshData> createMeshes(){
+		List<MeshData> meshes = new ArrayList<MeshData>();
+		meshes.add(new MeshData("quad", "red", 
+				new float[]{0,0,0, 1,0,0, 1,1,0, 0,1,0}, 
+				new float[]{255,0,0,255, 255,0,0,255, 255,0,0,255, 255,0,0,128}, 
+				new float[]{0,0, 1,0, 1,1, 0,1}, 
+				new float[]{0,0,1, 0,0,1, 0,0,1, 0,0,1}, 
+				new int[]{0,1,2, 0,2,3}));
+		meshes.add(new MeshData("triangle", null, 
+				new float[]{0,0,5, 2,0,5, 0,2,5}, 
+				new float[]{255,255,255,255, 255,255,255,255, 255,255,255,255}, 
+				new float[]{0,0, 0,0, 0,0}, 
+				null, 
+				null));
+		return meshes;
+	}
+
+	public void testRoundTrip() throws IOException{
+		Key key = new Key("factory", 100, 12345, 89, true, false).withDependencies(new String[]{"a.mtl"}, new long[]{10, 20});
+		MeshCache.write(file, key, this.createMeshes());
+
+		Contents contents = MeshCache.read(file);
+		assertEquals(key, contents.getKey());
+		assertEquals(1, contents.getKey().getDependencies().length);
+		assertEquals(2, contents.getMeshes().size());
+
+		MeshData quad = contents.getMeshes().get(0);
+		assertEquals("quad", quad.getName());
+		assertEquals("red", quad.getMaterialReference());
+		assertEquals(4, quad.getVertexCount());
+		Vertex[] vertices = quad.createVertices();
+		assertEquals(1f, vertices[2].x);
+		assertEquals(1f, vertices[2].y);
+		assertEquals(1f, vertices[2].getTexCoordU());
+		assertEquals(255f, vertices[2].getR());
+		assertEquals(128f, vertices[3].getA());
+		Vector3D[] normals = quad.createNormals();
+		assertEquals(1f, normals[1].z);
+		int[] indices = quad.createIndices();
+		assertEquals(6, indices.length);
+		assertEquals(3, indices[5]);
+		assertEquals(12, quad.getPositions().remaining());
+		assertEquals(8, quad.getTexCoords().remaining());
+
+		MeshData triangle = contents.getMeshes().get(1);
+		assertNull(triangle.getMaterialReference());
+		assertNull(triangle.createNormals());
+		assertNull(triangle.createIndices());
+		assertEquals(5f, triangle.createVertices()[2].z);
+	}
+
+	public void testReadKeyAndReadOnlyBuffers() throws IOException{
+		Key key = new Key("factory", 100, 12345, 89, true, false);
+		MeshCache.write(file, key, this.createMeshes());
+		assertEquals(key, MeshCache.readKey(file));
+
+		Contents contents = MeshCache.read(file);
+		MeshData quad = contents.getMeshes().get(0);
+		assertTrue(quad.getPositions().isReadOnly());
+		assertTrue(quad.getPositions().isDirect());
+		assertTrue(quad.getIndices().isReadOnly());
+
+		//Only the header is read to check the key, the mesh data isnt needed
+		RandomAccessFile out = new RandomAccessFile(file, "rw");
+		out.setLength(out.length() - 8);
+		out.close();
+		assertEquals(key, MeshCache.readKey(file));
+	}
+
+	public void testKeyChanges(){
+		Key key = new Key("factory", 100, 12345, 89, true, false);
+		Key cached = key.withDependencies(new String[]{"a.mtl"}, new long[]{10, 20});
+		assertTrue(cached.isUpToDate(key, new long[]{10, 20}));
+		assertFalse(cached.isUpToDate(key, new long[]{10, 21}));
+		assertFalse(cached.isUpToDate(new Key("factory", 100, 12346, 89, true, false), new long[]{10, 20}));
+		assertFalse(cached.isUpToDate(new Key("factory", 100, 12345, 180, true, false), new long[]{10, 20}));
+		assertFalse(cached.isUpToDate(new Key("factory", 100, 12345, 89, false, false), new long[]{10, 20}));
+	}
+
+	public void testTruncatedFile() throws IOException{
+		MeshCache.write(file, new Key("factory", 100, 12345, 89, true, false), this.createMeshes());
+		RandomAccessFile out = new RandomAccessFile(file, "rw");
+		out.setLength(out.length() - 8);
+		out.close();
+		try {
+			MeshCache.read(file);
+			fail("A truncated file should be rejected");
+		} catch (IOException e) {
+		}
+	}
+
+}
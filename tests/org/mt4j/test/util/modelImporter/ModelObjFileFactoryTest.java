@@ -0,0 +1,84 @@
+package org.mt4j.test.util.modelImporter;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import junit.framework.TestCase;
+
+import org.mt4j.components.visibleComponents.shapes.mesh.MTTriangleMesh;
+import org.mt4j.util.MT4jSettings;
+import org.mt4j.util.logging.JavaLogger;
+import org.mt4j.util.logging.MTLoggerFactory;
+import org.mt4j.util.modelImporter.MeshCache;
+import org.mt4j.util.modelImporter.ModelImporterFactory;
+
+import processing.core.PApplet;
+import processing.core.PGraphics3D;
+
+public class ModelObjFileFactoryTest extends TestCase {
+
+	private PApplet app;
+	private int rendererMode;
+	private MeshCache meshCache;
+	private File objFile;
+	private File mtlFile;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		MTLoggerFactory.setLoggerProvider(new JavaLogger());
+		//A renderer without OpenGL
+		app = new PApplet();
+		PGraphics3D graphics = new PGraphics3D();
+		graphics.setParent(app);
+		graphics.setPrimary(true);
+		graphics.setSize(100, 100);
+		app.g = graphics;
+		rendererMode = MT4jSettings.getInstance().renderer;
+		MT4jSettings.getInstance().renderer = MT4jSettings.P3D_MODE;
+		//Parse the file instead of loading a cached result
+		meshCache = ModelImporterFactory.getMeshCache();
+		ModelImporterFactory.setMeshCache(null);
+
+		objFile = File.createTempFile("objfactorytest", ".obj");
+		mtlFile = new File(objFile.getParentFile(), objFile.getName().replace(".obj", ".mtl"));
+		PrintWriter mtl = new PrintWriter(new FileWriter(mtlFile));
+		mtl.println("newmtl Red");
+		mtl.println("Ka 0.2 0 0");
+		mtl.println("Kd 1 0 0");
+		mtl.println("illum 1");
+		mtl.close();
+		PrintWriter obj = new PrintWriter(new FileWriter(objFile));
+		obj.println("mtllib " + mtlFile.getName());
+		obj.println("v 0 0 0");
+		obj.println("v 1 0 0");
+		obj.println("v 1 1 0");
+		obj.println("v 0 1 0");
+		obj.println("g quad");
+		obj.println("usemtl Red");
+		obj.println("f 1 2 3 4");
+		obj.close();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		objFile.delete();
+		mtlFile.delete();
+		ModelImporterFactory.setMeshCache(meshCache);
+		MT4jSettings.getInstance().renderer = rendererMode;
+		super.tearDown();
+	}
+
+	public void testLoadWithMaterialWithoutOpenGL(){
+		MTTriangleMesh[] meshes = ModelImporterFactory.loadModel(app, objFile.getAbsolutePath(), 180, false, false);
+		assertEquals(1, meshes.length);
+		MTTriangleMesh mesh = meshes[0];
+		assertEquals(4, mesh.getVertexCount());
+		//A GLMaterial can only be applied with an OpenGL context
+		assertNull(mesh.getMaterial());
+		assertFalse(mesh.isTextureEnabled());
+	}
+
+}
@@ -0,0 +1,139 @@
+package org.mt4j.test.util.modelImporter;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.mt4j.util.logging.JavaLogger;
+import org.mt4j.util.logging.MTLoggerFactory;
+import org.mt4j.util.math.Vertex;
+import org.mt4j.util.modelImporter.fileObj.ObjFileReader;
+import org.mt4j.util.modelImporter.fileObj.ParsingErrorException;
+
+public class ObjFileReaderTest extends TestCase {
+
+	private static final String CUBE_SIDES = 
+		"# comment line\n" +
+		"mtllib Cube.mtl\n" +
+		"v 0 0 0\r\n" +
+		"v 1.0 0 0 ! trailing comment\n" +
+		"v 1 1e0 0\n" +
+		"v 0 1 \\\n" +
+		"  0\n" +
+		"v 0 0 -2.5\n" +
+		"vt 0 0\n" +
+		"vt 1 0\n" +
+		"vt 1 1\n" +
+		"vt 0 1\n" +
+		"vn 0 0 1\n" +
+		"f 1/1/1 2/2/1 3/3/1 4/4/1\n" +
+		"g Side\n" +
+		"usemtl Red\n" +
+		"f -5 -4 -1\n";
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		MTLoggerFactory.setLoggerProvider(new JavaLogger());
+	}
+
+	private ObjFileReader read(String obj){
+		ObjFileReader reader = new ObjFileReader();
+		reader.read(ByteBuffer.wrap(obj.getBytes()));
+		return reader;
+	}
+
+	public void testParse(){
+		ObjFileReader reader = this.read(CUBE_SIDES);
+		assertEquals(5, reader.getVertexCount());
+		assertEquals(4, reader.getTexCoordCount());
+		assertEquals(1, reader.getNormalCount());
+		assertEquals(Arrays.asList("Cube.mtl"), reader.getMaterialLibraries());
+		float[] positions = reader.getPositions();
+		assertEquals(1f, positions[3]);
+		assertEquals(1f, positions[7]);
+		assertEquals(0f, positions[11]);
+		assertEquals(-2.5f, positions[14]);
+
+		ObjFileReader.Group defaultGroup = reader.getGroup(ObjFileReader.DEFAULT_GROUP);
+		assertEquals(2, defaultGroup.getFaceCount());
+		assertEquals("default", reader.getGroupMaterial(ObjFileReader.DEFAULT_GROUP));
+
+		//The faces after a usemtl are grouped by the material
+		assertEquals(0, reader.getGroup("side").getFaceCount());
+		assertEquals("default", reader.getGroupMaterial("side"));
+		assertEquals(1, reader.getGroup("red").getFaceCount());
+		assertEquals("red", reader.getGroupMaterial("red"));
+		assertEquals(3, reader.getGroups().size());
+	}
+
+	public void testCompile(){
+		ObjFileReader reader = this.read(CUBE_SIDES);
+		int[] vertexRemap = new int[reader.getVertexCount()];
+		Arrays.fill(vertexRemap, -1);
+		int[] texCoordRemap = new int[reader.getTexCoordCount()];
+		Arrays.fill(texCoordRemap, -1);
+
+		ObjFileReader.Group quad = reader.getGroup(ObjFileReader.DEFAULT_GROUP);
+		quad.compile(vertexRemap, texCoordRemap);
+		assertEquals(4, quad.getGroupVertices().length);
+		assertTrue(Arrays.equals(new int[]{0, 1, 2, 0, 2, 3}, quad.getIndexArray()));
+		assertTrue(Arrays.equals(new int[]{0, 1, 2, 0, 2, 3}, quad.getTexCoordIndices()));
+		assertEquals(4, quad.getGroupTexCoords().length);
+		for (int i = 0; i < vertexRemap.length; i++) {
+			assertEquals(-1, vertexRemap[i]);
+		}
+
+		ObjFileReader.Group red = reader.getGroup("red");
+		red.compile(vertexRemap, texCoordRemap);
+		Vertex[] vertices = red.getGroupVertices();
+		assertEquals(3, vertices.length);
+		assertEquals(-2.5f, vertices[2].z);
+		assertTrue(Arrays.equals(new int[]{0, 1, 2}, red.getIndexArray()));
+		red.clearCompiled();
+	}
+
+	public void testNumbersMatchJavaParsing(){
+		Random random = new Random(7);
+		StringBuilder obj = new StringBuilder();
+		String[] values = new String[3000];
+		for (int i = 0; i < values.length; i++) {
+			switch (i % 5) {
+			case 0:
+				values[i] = Float.toString((random.nextFloat() - 0.5f) * 2000);
+				break;
+			case 1:
+				values[i] = Double.toString(random.nextGaussian());
+				break;
+			case 2:
+				values[i] = String.valueOf(random.nextInt(200000) - 100000) + "." + random.nextInt(1000000);
+				break;
+			case 3:
+				values[i] = String.valueOf(random.nextDouble() * Math.pow(10, random.nextInt(60) - 30)).toUpperCase();
+				break;
+			default:
+				values[i] = "0.12345678901234567890123" + random.nextInt(10);
+				break;
+			}
+		}
+		for (int i = 0; i < values.length; i += 3) {
+			obj.append("v ").append(values[i]).append(' ').append(values[i + 1]).append(' ').append(values[i + 2]).append('\n');
+		}
+		float[] positions = this.read(obj.toString()).getPositions();
+		for (int i = 0; i < values.length; i++) {
+			float expected = (float) Double.valueOf(values[i]).doubleValue();
+			assertEquals(values[i], Float.floatToIntBits(expected), Float.floatToIntBits(positions[i]));
+		}
+	}
+
+	public void testBadNumber(){
+		try {
+			this.read("v 0 0 0\nv 1 x 0\n");
+			fail("Expected a ParsingErrorException");
+		} catch (ParsingErrorException e) {
+		}
+	}
+
+}
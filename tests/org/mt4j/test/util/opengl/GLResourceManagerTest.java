@@ -0,0 +1,133 @@
+package org.mt4j.test.util.opengl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.mt4j.util.logging.JavaLogger;
+import org.mt4j.util.logging.MTLoggerFactory;
+import org.mt4j.util.opengl.GLResourceManager;
+import org.mt4j.util.opengl.IGLResourceDeleter;
+import org.mt4j.util.opengl.GLResourceManager.ResourceType;
+
+public class GLResourceManagerTest extends TestCase {
+
+	private List<String> deleted;
+	private int calls;
+	private IGLResourceDeleter deleter;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		MTLoggerFactory.setLoggerProvider(new JavaLogger());
+		deleted = new ArrayList<String>();
+		calls = 0;
+		deleter = new IGLResourceDeleter() {
+			public void deleteResources(ResourceType type, int[] ids, int offset, int count) {
+				calls++;
+				for (int i = offset; i < offset + count; i++) {
+					deleted.add(type + " " + ids[i]);
+				}
+			}
+		};
+	}
+
+	public void testSharedObjectDeletedAfterLastRelease(){
+		GLResourceManager manager = new GLResourceManager(deleter);
+		Object owner1 = new Object();
+		Object owner2 = new Object();
+		GLResourceManager.Resource h1 = manager.register(owner1, ResourceType.DISPLAY_LIST, 5, 0);
+		GLResourceManager.Resource h2 = manager.register(owner2, ResourceType.DISPLAY_LIST, 5, 0);
+		assertEquals(2, manager.getReferenceCount(ResourceType.DISPLAY_LIST, 5));
+
+		assertFalse(manager.release(h1));
+		assertFalse("Releasing twice has no effect", manager.release(h1));
+		assertEquals(0, manager.processDeletions());
+		assertTrue(deleted.isEmpty());
+
+		assertTrue(manager.release(h2));
+		assertEquals(1, manager.getPendingCount());
+		assertEquals(1, manager.processDeletions());
+		assertEquals("DISPLAY_LIST 5", deleted.get(0));
+		assertEquals(0, manager.getHandleCount());
+		assertEquals(0, manager.getReferenceCount(ResourceType.DISPLAY_LIST, 5));
+		assertNotNull(owner1);
+		assertNotNull(owner2);
+	}
+
+	public void testDeletionsPerFrameAreBounded(){
+		GLResourceManager manager = new GLResourceManager(deleter, 10);
+		Object owner = new Object();
+		for (int i = 1; i <= 25; i++) {
+			manager.release(manager.register(owner, i % 2 == 0 ? ResourceType.TEXTURE : ResourceType.BUFFER, i, 100));
+		}
+		assertEquals(25, manager.getPendingCount());
+		assertEquals(10, manager.processDeletions());
+		assertEquals(10, manager.processDeletions());
+		assertEquals(5, manager.processDeletions());
+		assertEquals(0, manager.processDeletions());
+		assertEquals(25, deleted.size());
+		assertEquals(25, manager.getTotalDeletedCount());
+		assertEquals("BUFFER 1", deleted.get(0));
+		assertEquals("TEXTURE 2", deleted.get(1));
+	}
+
+	public void testRunsOfOneTypeAreDeletedTogether(){
+		GLResourceManager manager = new GLResourceManager(deleter, 0);
+		Object owner = new Object();
+		for (int i = 1; i <= 6; i++) {
+			manager.release(manager.register(owner, i <= 4 ? ResourceType.BUFFER : ResourceType.TEXTURE, i, 0));
+		}
+		assertEquals(6, manager.processDeletions());
+		assertEquals(2, calls);
+	}
+
+	public void testCollectedOwnerReleasesHandles() throws InterruptedException{
+		GLResourceManager manager = new GLResourceManager(deleter);
+		manager.register(new Object(), ResourceType.TEXTURE, 7, 1024);
+		Object keptOwner = new Object();
+		manager.register(keptOwner, ResourceType.TEXTURE, 8, 1024);
+
+		for (int i = 0; i < 50 && manager.getCollectedCount() == 0; i++) {
+			System.gc();
+			Thread.sleep(10);
+			manager.processDeletions();
+		}
+		assertEquals(1, manager.getCollectedCount());
+		assertEquals(1, deleted.size());
+		assertEquals("TEXTURE 7", deleted.get(0));
+		assertEquals(1, manager.getHandleCount());
+		assertNotNull(keptOwner);
+	}
+
+	public void testUsageByOwner(){
+		GLResourceManager manager = new GLResourceManager(deleter);
+		Object owner = new Object();
+		String owner2 = "owner";
+		manager.register(owner, ResourceType.BUFFER, 1, 100);
+		manager.register(owner, ResourceType.BUFFER, 2, 100);
+		manager.register(owner2, ResourceType.TEXTURE, 3, 4096);
+
+		List<GLResourceManager.Usage> usages = manager.getUsageByOwner();
+		assertEquals(2, usages.size());
+		assertEquals(String.class.getName(), usages.get(0).getOwnerType());
+		assertEquals(4096, usages.get(0).getBytes());
+		assertEquals(1, usages.get(0).getCount(ResourceType.TEXTURE));
+		assertEquals(Object.class.getName(), usages.get(1).getOwnerType());
+		assertEquals(200, usages.get(1).getBytes());
+		assertEquals(2, usages.get(1).getCount(ResourceType.BUFFER));
+		assertTrue(manager.getReport().contains("3 handles"));
+	}
+
+	public void testInvalidRegistration(){
+		GLResourceManager manager = new GLResourceManager(deleter);
+		try {
+			manager.register(new Object(), ResourceType.TEXTURE, 0, 0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			//expected
+		}
+	}
+
+}
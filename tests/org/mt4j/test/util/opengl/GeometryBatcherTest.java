@@ -0,0 +1,139 @@
+package org.mt4j.test.util.opengl;
+
+import javax.media.opengl.GL;
+
+import junit.framework.TestCase;
+
+import org.mt4j.util.MTColor;
+import org.mt4j.util.math.Matrix;
+import org.mt4j.util.math.Vertex;
+import org.mt4j.util.opengl.GeometryBatcher;
+import org.mt4j.util.opengl.RecordingBatchBackend;
+import org.mt4j.util.opengl.RecordingBatchBackend.BatchRecord;
+
+public class GeometryBatcherTest extends TestCase {
+
+	private RecordingBatchBackend backend;
+	private GeometryBatcher batcher;
+	private MTColor black;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		backend = new RecordingBatchBackend();
+		batcher = new GeometryBatcher(backend);
+		black = new MTColor(0, 0, 0, 255);
+	}
+
+	private Vertex[] rect(float x, float y, float w, float h){
+		return new Vertex[]{
+				new Vertex(x, y, 0, 0, 0),
+				new Vertex(x + w, y, 0, 1, 0),
+				new Vertex(x + w, y + h, 0, 1, 1),
+				new Vertex(x, y + h, 0, 0, 1),
+				new Vertex(x, y, 0, 0, 0)};
+	}
+
+	private void addRect(float x, float y, int texID, boolean noStroke, float strokeWeight){
+		assertTrue(batcher.add(new Matrix(), rect(x, y, 10, 10), null, GL.GL_POLYGON,
+				false, GL.GL_TEXTURE_2D, texID, noStroke, black, strokeWeight, (short)0));
+	}
+
+	public void testConsecutiveShapesShareOneBatch(){
+		for (int i = 0; i < 100; i++) {
+			this.addRect(i * 20, 0, 0, false, 1);
+		}
+		batcher.flush();
+		assertEquals(1, backend.getRecords().size());
+		BatchRecord record = backend.getRecords().get(0);
+		assertEquals(100, record.getShapeCount());
+		assertEquals(500, record.getVertexCount());
+		//Fan of 5 vertices -> 3 triangles
+		assertEquals(100 * 3 * 3, record.getIndices().length);
+		//Line strip of 5 vertices -> 4 segments
+		assertEquals(100 * 4 * 2, record.getLineIndices().length);
+		assertEquals(100, batcher.getBatchedShapeCount());
+		assertEquals(1, batcher.getBatchCount());
+	}
+
+	public void testStateChangesFlush(){
+		this.addRect(0, 0, 0, true, 1);
+		this.addRect(20, 0, 0, true, 1);
+		this.addRect(40, 0, 5, true, 1); 	//texture
+		this.addRect(60, 0, 5, true, 1);
+		this.addRect(80, 0, 5, false, 1); 	//first outline sets the line state
+		this.addRect(100, 0, 5, false, 2); 	//stroke weight
+		batcher.flush();
+
+		assertEquals(3, backend.getRecords().size());
+		assertEquals(2, backend.getRecords().get(0).getShapeCount());
+		assertEquals(0, backend.getRecords().get(0).getTextureID());
+		assertEquals(3, backend.getRecords().get(1).getShapeCount());
+		assertEquals(5, backend.getRecords().get(1).getTextureID());
+		assertEquals(1f, backend.getRecords().get(1).getStrokeWeight());
+		assertEquals(2f, backend.getRecords().get(2).getStrokeWeight());
+	}
+
+	public void testFillOverOutlineFlushes(){
+		this.addRect(0, 0, 0, false, 1);
+		this.addRect(10, 0, 0, false, 1); 	//only touches
+		this.addRect(5, 5, 0, false, 1); 	//overlaps both outlines
+		batcher.flush();
+		assertEquals(2, backend.getRecords().size());
+		assertEquals(2, backend.getRecords().get(0).getShapeCount());
+		assertEquals(1, backend.getRecords().get(1).getShapeCount());
+	}
+
+	public void testVerticesArePreTransformed(){
+		Matrix m = Matrix.getTranslationMatrix(100, 200, 3);
+		batcher.add(m, rect(0, 0, 10, 10), null, GL.GL_TRIANGLE_FAN,
+				false, 0, 0, true, black, 1, (short)0);
+		batcher.flush();
+		float[] positions = backend.getRecords().get(0).getPositions();
+		assertEquals(100f, positions[0]);
+		assertEquals(200f, positions[1]);
+		assertEquals(3f, positions[2]);
+		assertEquals(110f, positions[3]);
+	}
+
+	public void testIndexedGeometry(){
+		Vertex[] vertices = new Vertex[]{new Vertex(0,0,0), new Vertex(1,0,0), new Vertex(1,1,0), new Vertex(0,1,0)};
+		int[] indices = new int[]{0, 1, 2, 0, 2, 3};
+		this.addRect(50, 50, 0, true, 1);
+		batcher.add(new Matrix(), vertices, indices, GL.GL_TRIANGLES,
+				false, 0, 0, true, black, 1, (short)0);
+		batcher.flush();
+		int[] recorded = backend.getRecords().get(0).getIndices();
+		assertEquals(9 + 6, recorded.length);
+		//Offset by the 5 vertices of the first shape
+		assertEquals(5, recorded[9]);
+		assertEquals(8, recorded[14]);
+	}
+
+	public void testViewChangesFlushAndUnsupportedModes(){
+		this.addRect(0, 0, 0, true, 1);
+		float[] view = new float[16];
+		view[0] = view[5] = view[10] = view[15] = 2;
+		batcher.pushView(view);
+		assertEquals(1, backend.getRecords().size());
+		this.addRect(0, 0, 0, true, 1);
+		batcher.popView();
+		assertEquals(2, backend.getRecords().size());
+		assertEquals(2f, backend.getRecords().get(1).getView()[0]);
+		assertEquals(1f, batcher.getView()[0]);
+
+		assertFalse(batcher.add(new Matrix(), rect(0, 0, 1, 1), null, GL.GL_LINE_LOOP,
+				false, 0, 0, false, black, 1, (short)0));
+		assertEquals(0, batcher.getPendingShapeCount());
+	}
+
+	public void testMaxBatchVertices(){
+		batcher.setMaxBatchVertices(12);
+		for (int i = 0; i < 6; i++) {
+			this.addRect(i * 20, 0, 0, true, 1);
+		}
+		batcher.flush();
+		assertEquals(3, backend.getRecords().size());
+	}
+
+}
@@ -0,0 +1,160 @@
+package org.mt4j.test.util.opengl;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.media.opengl.GL;
+
+import junit.framework.TestCase;
+
+import org.mt4j.util.logging.JavaLogger;
+import org.mt4j.util.logging.MTLoggerFactory;
+import org.mt4j.util.opengl.AsyncTextureLoader;
+import org.mt4j.util.opengl.IImageDecoder;
+import org.mt4j.util.opengl.ITextureLoadListener;
+import org.mt4j.util.opengl.RecordingTextureUploadBackend;
+import org.mt4j.util.opengl.RecordingTextureUploadBackend.StripRecord;
+import org.mt4j.util.opengl.TextureRequest;
+import org.mt4j.util.opengl.TextureUploadQueue;
+
+import processing.core.PImage;
+
+public class TextureUploadQueueTest extends TestCase {
+
+	private RecordingTextureUploadBackend backend;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		MTLoggerFactory.setLoggerProvider(new JavaLogger());
+		backend = new RecordingTextureUploadBackend();
+	}
+
+	public void testBudgetSplitsIntoStrips(){
+		TextureUploadQueue queue = new TextureUploadQueue(backend, 16000);
+		final int[] completed = new int[1];
+		int[] pixels = new int[100 * 100];
+		for (int i = 0; i < pixels.length; i++) {
+			pixels[i] = i;
+		}
+		TextureUploadQueue.Upload upload = new TextureUploadQueue.Upload(GL.GL_TEXTURE_2D, 1, 100, 100, pixels, new Runnable() {
+			public void run() {
+				completed[0]++;
+			}
+		});
+		queue.add(upload);
+
+		assertEquals(16000, queue.process());
+		assertEquals(40, upload.getUploadedRows());
+		assertEquals(16000, queue.process());
+		assertEquals(0, completed[0]);
+		assertEquals(8000, queue.process());
+		assertEquals(1, completed[0]);
+		assertEquals(0, queue.size());
+		assertEquals(40000, queue.getTotalBytes());
+		assertEquals(0, queue.process());
+
+		List<StripRecord> strips = backend.getRecords();
+		assertEquals(3, strips.size());
+		assertEquals(0, strips.get(0).getYOffset());
+		assertEquals(40, strips.get(1).getYOffset());
+		assertEquals(80, strips.get(2).getYOffset());
+		assertEquals(20, strips.get(2).getRows());
+		assertEquals(4000, strips.get(1).getPixels()[0]);
+		assertEquals(9999, strips.get(2).getPixels()[1999]);
+	}
+
+	public void testSmallUploadsShareAFrame(){
+		TextureUploadQueue queue = new TextureUploadQueue(backend, 1000);
+		for (int i = 0; i < 3; i++) {
+			queue.add(new TextureUploadQueue.Upload(GL.GL_TEXTURE_2D, i, 10, 10, new int[100], null));
+		}
+		//The rest of the budget is used for a part of the third upload
+		assertEquals(1000, queue.process());
+		assertEquals(3, queue.getLastFrameStrips());
+		assertEquals(1, queue.size());
+		assertEquals(1, backend.getRecords().get(1).getTextureID());
+		assertEquals(5, backend.getRecords().get(2).getRows());
+	}
+
+	public void testRowLargerThanBudget(){
+		TextureUploadQueue queue = new TextureUploadQueue(backend, 100);
+		TextureUploadQueue.Upload upload = new TextureUploadQueue.Upload(GL.GL_TEXTURE_2D, 1, 1000, 3, new int[3000], null);
+		queue.add(upload);
+		queue.process();
+		assertEquals(1, upload.getUploadedRows());
+		queue.process();
+		queue.process();
+		assertTrue(upload.isComplete());
+	}
+
+	public void testNoBudget(){
+		TextureUploadQueue queue = new TextureUploadQueue(backend, 0);
+		queue.add(new TextureUploadQueue.Upload(GL.GL_TEXTURE_2D, 1, 1000, 1000, new int[1000 * 1000], null));
+		queue.process();
+		assertEquals(1, backend.getRecords().size());
+		assertEquals(0, queue.size());
+	}
+
+	public void testLoaderReportsDecodeErrors() throws Exception{
+		AsyncTextureLoader loader = new AsyncTextureLoader(null, 1, backend);
+		final String[] decodingThread = new String[1];
+		loader.setDecoder(new IImageDecoder() {
+			public PImage decode(String fileName) throws Exception {
+				decodingThread[0] = Thread.currentThread().getName();
+				throw new FileNotFoundException(fileName);
+			}
+		});
+		final List<TextureRequest> notified = new ArrayList<TextureRequest>();
+		TextureRequest request = loader.load("missing.png", null, new ITextureLoadListener() {
+			public void textureLoaded(TextureRequest request) {
+				notified.add(request);
+			}
+		});
+		this.waitForDecoding(loader, 1);
+		assertTrue(decodingThread[0].startsWith("MT4j texture decoder"));
+		assertFalse(request.isDone());
+
+		loader.update();
+		assertTrue(request.isDone());
+		assertEquals(1, notified.size());
+		assertNull(request.getTexture());
+		assertEquals(0, loader.getPendingCount());
+		try {
+			request.get(1, TimeUnit.SECONDS);
+			fail();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof FileNotFoundException);
+		}
+		loader.shutdown();
+	}
+
+	public void testLoaderDecodesOffThread() throws Exception{
+		AsyncTextureLoader loader = new AsyncTextureLoader(null, 2, backend);
+		loader.setDecoder(new IImageDecoder() {
+			public PImage decode(String fileName) throws Exception {
+				return new PImage(8, 4, PImage.ARGB);
+			}
+		});
+		TextureRequest first = loader.load("a.png", null, null);
+		TextureRequest second = loader.load("b.png", null, null);
+		second.cancel(false);
+		this.waitForDecoding(loader, 2);
+		assertEquals(8, first.getImage().width);
+		assertFalse(first.isDone());
+		assertTrue(second.isCancelled());
+		assertTrue(second.isDone());
+		loader.shutdown();
+	}
+
+	private void waitForDecoding(AsyncTextureLoader loader, int count) throws InterruptedException{
+		for (int i = 0; i < 500 && loader.getDecodedCount() < count; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(count, loader.getDecodedCount());
+	}
+
+}